@@ -0,0 +1,512 @@
+/*
+ * Copyright (c) 2023, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.annotation;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Executable;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.TypePath;
+import org.objectweb.asm.TypeReference;
+
+import uk.ac.manchester.tornado.runtime.ParallelLoopPartitionerProvider;
+import uk.ac.manchester.tornado.runtime.tasks.ParallelJavaFallback;
+
+/**
+ * ASM implementation of {@link ParallelLoopPartitionerProvider}.
+ *
+ * <p>
+ * The task method is copied into a new class, defined by a class loader whose
+ * parent is the class loader of the task. In the copy, the outermost
+ * {@code @Parallel} loop is rewritten as follows:
+ * </p>
+ *
+ * <pre>
+ * for (&#64;Parallel int i = init; i &lt; n; i += step)
+ * </pre>
+ *
+ * <p>
+ * becomes
+ * </p>
+ *
+ * <pre>
+ * i = i + partition * chunk * step;
+ * int jump = (partitions - 1) * chunk * step;
+ * int remaining = chunk;
+ * for (; i &lt; n; i += step) {
+ *     ...
+ *     if (--remaining == 0) {
+ *         i += jump;
+ *         remaining = chunk;
+ *     }
+ * }
+ * </pre>
+ *
+ * <p>
+ * Thus, blocks of {@code chunk} iterations are assigned to the partitions in a
+ * round-robin fashion. Methods are not partitioned if the loop index is not
+ * updated with a constant step, if there is more than one outermost parallel
+ * loop, if they use invokedynamic, or if they access classes or members that
+ * are not public.
+ * </p>
+ *
+ * <p>
+ * Every partition runs the whole method, so only the parallel loop is split.
+ * Methods are not partitioned either if the parallel loop is nested in another
+ * loop, since the partitions would not synchronise between the iterations of
+ * the outer loop, or if the code before or after the parallel loop has side
+ * effects (array stores, field stores or calls to void methods), since that
+ * code would run once per partition.
+ * </p>
+ */
+public class ASMParallelLoopPartitioner implements ParallelLoopPartitionerProvider {
+
+    private static final String PARALLEL_ANNOTATION = "L" + System.getProperty("tornado.load.annotation.parallel", "uk.ac.manchester.tornado.api.annotations.Parallel").replace('.', '/') + ";";
+    private static final String FALLBACK_CLASS = Type.getInternalName(ParallelJavaFallback.class);
+    private static final String GENERATED_PACKAGE = "uk/ac/manchester/tornado/annotation/partitioned/";
+    private static final AtomicInteger classId = new AtomicInteger();
+
+    /**
+     * Scope of a local variable annotated with {@code @Parallel}.
+     */
+    private static final class ParallelScope {
+        private final int start;
+        private final int end;
+        private final int index;
+
+        ParallelScope(int start, int end, int index) {
+            this.start = start;
+            this.end = end;
+            this.index = index;
+        }
+
+        boolean contains(ParallelScope other) {
+            return this != other && start <= other.start && other.end <= end;
+        }
+    }
+
+    /**
+     * First pass: it finds the outermost parallel loop and checks that the method
+     * can be partitioned.
+     */
+    private static final class LoopAnalyzer extends MethodVisitor {
+        private final ClassLoader classLoader;
+        private final List<ParallelScope> scopes = new ArrayList<>();
+        private final List<int[]> stores = new ArrayList<>();
+        private final List<int[]> backwardJumps = new ArrayList<>();
+        private final List<Integer> sideEffects = new ArrayList<>();
+        private final Map<Label, Integer> labels = new IdentityHashMap<>();
+        private int currentLabel;
+        private int maxLocals;
+        private boolean supported = true;
+
+        LoopAnalyzer(ClassLoader classLoader) {
+            super(Opcodes.ASM7);
+            this.classLoader = classLoader;
+        }
+
+        @Override
+        public void visitLabel(Label label) {
+            currentLabel = labels.size();
+            labels.put(label, currentLabel);
+        }
+
+        @Override
+        public void visitVarInsn(int opcode, int var) {
+            if (opcode >= Opcodes.ISTORE && opcode <= Opcodes.ASTORE) {
+                // {label, local, step}. A step of 0 marks a store that is not an iinc
+                stores.add(new int[] { currentLabel, var, 0 });
+            }
+        }
+
+        @Override
+        public void visitIincInsn(int var, int increment) {
+            stores.add(new int[] { currentLabel, var, increment });
+        }
+
+        @Override
+        public void visitJumpInsn(int opcode, Label label) {
+            Integer target = labels.get(label);
+            if (target != null) {
+                // {label of the jump, label of the target}
+                backwardJumps.add(new int[] { currentLabel, target });
+            }
+        }
+
+        @Override
+        public void visitInsn(int opcode) {
+            if (opcode >= Opcodes.IASTORE && opcode <= Opcodes.SASTORE) {
+                sideEffects.add(currentLabel);
+            }
+        }
+
+        @Override
+        public void visitFieldInsn(int opcode, String owner, String name, String descriptor) {
+            supported &= isAccessibleField(classLoader, owner, name);
+            if (opcode == Opcodes.PUTFIELD || opcode == Opcodes.PUTSTATIC) {
+                sideEffects.add(currentLabel);
+            }
+        }
+
+        @Override
+        public void visitMethodInsn(int opcode, String owner, String name, String descriptor, boolean isInterface) {
+            supported &= isAccessibleMethod(classLoader, owner, name, descriptor);
+            if (Type.getReturnType(descriptor) == Type.VOID_TYPE) {
+                sideEffects.add(currentLabel);
+            }
+        }
+
+        @Override
+        public void visitTypeInsn(int opcode, String type) {
+            supported &= isAccessibleClass(classLoader, type);
+        }
+
+        @Override
+        public void visitMultiANewArrayInsn(String descriptor, int numDimensions) {
+            supported &= isAccessibleClass(classLoader, descriptor);
+        }
+
+        @Override
+        public void visitLdcInsn(Object value) {
+            if (value instanceof Type) {
+                supported &= isAccessibleClass(classLoader, ((Type) value).getInternalName());
+            } else if (value instanceof Handle) {
+                supported = false;
+            }
+        }
+
+        @Override
+        public void visitInvokeDynamicInsn(String name, String descriptor, Handle bootstrapMethodHandle, Object... bootstrapMethodArguments) {
+            supported = false;
+        }
+
+        @Override
+        public org.objectweb.asm.AnnotationVisitor visitLocalVariableAnnotation(int typeRef, TypePath typePath, Label[] start, Label[] end, int[] index, String descriptor, boolean visible) {
+            if (PARALLEL_ANNOTATION.equals(descriptor) && new TypeReference(typeRef).getSort() == TypeReference.LOCAL_VARIABLE) {
+                scopes.add(new ParallelScope(labels.get(start[0]), labels.get(end[0]), index[0]));
+            }
+            return null;
+        }
+
+        @Override
+        public void visitMaxs(int maxStack, int maxLocals) {
+            this.maxLocals = maxLocals;
+        }
+
+        /**
+         * @return The outermost parallel loop, or null if the method cannot be
+         *         partitioned.
+         */
+        ParallelScope getOutermostScope() {
+            ParallelScope outermost = null;
+            for (ParallelScope scope : scopes) {
+                if (scopes.stream().noneMatch(other -> other.contains(scope))) {
+                    if (outermost != null) {
+                        return null;
+                    }
+                    outermost = scope;
+                }
+            }
+            if (!supported || outermost == null || isInsideLoop(outermost) || hasSideEffectsOutside(outermost)) {
+                return null;
+            }
+            return outermost;
+        }
+
+        /**
+         * A loop that encloses the parallel loop jumps back from the parallel loop,
+         * or from the code after it, to the code before it.
+         */
+        private boolean isInsideLoop(ParallelScope scope) {
+            return backwardJumps.stream().anyMatch(jump -> jump[0] >= scope.start && jump[1] < scope.start);
+        }
+
+        private boolean hasSideEffectsOutside(ParallelScope scope) {
+            return sideEffects.stream().anyMatch(label -> label < scope.start || label >= scope.end);
+        }
+
+        /**
+         * @return The constant step of the loop index, or 0 if the index is updated
+         *         in any other way.
+         */
+        int getStep(ParallelScope scope) {
+            int step = 0;
+            for (int[] store : stores) {
+                if (store[1] == scope.index && store[0] >= scope.start && store[0] < scope.end) {
+                    if (store[2] == 0 || (step != 0 && step != store[2])) {
+                        return 0;
+                    }
+                    step = store[2];
+                }
+            }
+            return step;
+        }
+    }
+
+    /**
+     * Second pass: it emits the partitioned loop.
+     */
+    private static final class LoopPartitioner extends MethodVisitor {
+        private final ParallelScope scope;
+        private final int step;
+        private final int remainingLocal;
+        private final int jumpLocal;
+        private int numLabels;
+        private int currentLabel;
+
+        LoopPartitioner(MethodVisitor methodVisitor, ParallelScope scope, int step, int maxLocals) {
+            super(Opcodes.ASM7, methodVisitor);
+            this.scope = scope;
+            this.step = step;
+            this.remainingLocal = maxLocals;
+            this.jumpLocal = maxLocals + 1;
+        }
+
+        private void emitFallbackCall(String name) {
+            super.visitMethodInsn(Opcodes.INVOKESTATIC, FALLBACK_CLASS, name, "()I", false);
+        }
+
+        @Override
+        public void visitLabel(Label label) {
+            if (numLabels == scope.start) {
+                // The index has just been initialised: move it to the first block of the
+                // partition, before the loop header
+                super.visitVarInsn(Opcodes.ILOAD, scope.index);
+                emitFallbackCall("getPartitionIndex");
+                emitFallbackCall("getChunkSize");
+                super.visitInsn(Opcodes.IMUL);
+                super.visitLdcInsn(step);
+                super.visitInsn(Opcodes.IMUL);
+                super.visitInsn(Opcodes.IADD);
+                super.visitVarInsn(Opcodes.ISTORE, scope.index);
+                emitFallbackCall("getNumPartitions");
+                super.visitInsn(Opcodes.ICONST_1);
+                super.visitInsn(Opcodes.ISUB);
+                emitFallbackCall("getChunkSize");
+                super.visitInsn(Opcodes.IMUL);
+                super.visitLdcInsn(step);
+                super.visitInsn(Opcodes.IMUL);
+                super.visitVarInsn(Opcodes.ISTORE, jumpLocal);
+                emitFallbackCall("getChunkSize");
+                super.visitVarInsn(Opcodes.ISTORE, remainingLocal);
+            }
+            currentLabel = numLabels++;
+            super.visitLabel(label);
+        }
+
+        @Override
+        public void visitIincInsn(int var, int increment) {
+            super.visitIincInsn(var, increment);
+            if (var == scope.index && currentLabel >= scope.start && currentLabel < scope.end) {
+                // At the end of a block, skip the blocks of the other partitions
+                Label sameBlock = new Label();
+                super.visitIincInsn(remainingLocal, -1);
+                super.visitVarInsn(Opcodes.ILOAD, remainingLocal);
+                super.visitJumpInsn(Opcodes.IFNE, sameBlock);
+                super.visitVarInsn(Opcodes.ILOAD, scope.index);
+                super.visitVarInsn(Opcodes.ILOAD, jumpLocal);
+                super.visitInsn(Opcodes.IADD);
+                super.visitVarInsn(Opcodes.ISTORE, scope.index);
+                emitFallbackCall("getChunkSize");
+                super.visitVarInsn(Opcodes.ISTORE, remainingLocal);
+                super.visitLabel(sameBlock);
+            }
+        }
+    }
+
+    private static final class PartitionedClassLoader extends ClassLoader {
+        PartitionedClassLoader(ClassLoader parent) {
+            super(parent);
+        }
+
+        Class<?> define(String name, byte[] bytes) {
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+
+    @Override
+    public Method partitionParallelLoop(Method method) {
+        final Class<?> declaringClass = method.getDeclaringClass();
+        final ClassLoader classLoader = declaringClass.getClassLoader();
+        if (!Modifier.isStatic(method.getModifiers()) || classLoader == null) {
+            return null;
+        }
+        final String methodDescriptor = Type.getMethodDescriptor(method);
+        final byte[] classFile = readClassFile(declaringClass);
+        if (classFile == null) {
+            return null;
+        }
+
+        // 1. Find the outermost parallel loop
+        final LoopAnalyzer analyzer = new LoopAnalyzer(classLoader);
+        new ClassReader(classFile).accept(new ClassVisitor(Opcodes.ASM7) {
+            @Override
+            public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+                return (name.equals(method.getName()) && descriptor.equals(methodDescriptor)) ? analyzer : null;
+            }
+        }, ClassReader.SKIP_FRAMES);
+
+        final ParallelScope scope = analyzer.getOutermostScope();
+        if (scope == null) {
+            return null;
+        }
+        final int step = analyzer.getStep(scope);
+        if (step == 0) {
+            return null;
+        }
+
+        // 2. Copy the method into a new class with the partitioned loop
+        final String className = GENERATED_PACKAGE + declaringClass.getSimpleName() + "$" + method.getName() + "$" + classId.getAndIncrement();
+        final ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS) {
+            @Override
+            protected ClassLoader getClassLoader() {
+                return classLoader;
+            }
+        };
+        new ClassReader(classFile).accept(new ClassVisitor(Opcodes.ASM7) {
+            @Override
+            public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+                writer.visit(version, Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SUPER, className, null, "java/lang/Object", null);
+            }
+
+            @Override
+            public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+                if (name.equals(method.getName()) && descriptor.equals(methodDescriptor)) {
+                    final int newAccess = (access & ~(Opcodes.ACC_PRIVATE | Opcodes.ACC_PROTECTED | Opcodes.ACC_SYNCHRONIZED)) | Opcodes.ACC_PUBLIC;
+                    return new LoopPartitioner(writer.visitMethod(newAccess, name, descriptor, signature, exceptions), scope, step, analyzer.maxLocals);
+                }
+                return null;
+            }
+
+            @Override
+            public void visitEnd() {
+                writer.visitEnd();
+            }
+        }, ClassReader.SKIP_FRAMES);
+
+        try {
+            final Class<?> partitionedClass = new PartitionedClassLoader(classLoader).define(className.replace('/', '.'), writer.toByteArray());
+            return partitionedClass.getMethod(method.getName(), method.getParameterTypes());
+        } catch (LinkageError | NoSuchMethodException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static byte[] readClassFile(Class<?> klass) {
+        try (InputStream input = klass.getResourceAsStream("/" + klass.getName().replace('.', '/') + ".class")) {
+            return (input == null) ? null : input.readAllBytes();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static Class<?> loadClass(ClassLoader classLoader, String internalName) {
+        try {
+            final Type type = internalName.startsWith("[") ? Type.getType(internalName) : Type.getObjectType(internalName);
+            final Type elementType = (type.getSort() == Type.ARRAY) ? type.getElementType() : type;
+            if (elementType.getSort() != Type.OBJECT) {
+                return int.class;
+            }
+            return Class.forName(elementType.getClassName(), false, classLoader);
+        } catch (ClassNotFoundException | LinkageError e) {
+            return null;
+        }
+    }
+
+    /**
+     * The new class is in a different package and module than the task. Thus,
+     * the classes it uses must be public and exported.
+     */
+    private static boolean isAccessibleClass(ClassLoader classLoader, String internalName) {
+        final Class<?> klass = loadClass(classLoader, internalName);
+        if (klass == null) {
+            return false;
+        }
+        if (klass.isPrimitive()) {
+            return true;
+        }
+        return Modifier.isPublic(klass.getModifiers()) && klass.getModule().isExported(klass.getPackageName());
+    }
+
+    private static boolean isAccessibleField(ClassLoader classLoader, String owner, String name) {
+        if (!isAccessibleClass(classLoader, owner)) {
+            return false;
+        }
+        for (Class<?> klass = loadClass(classLoader, owner); klass != null; klass = klass.getSuperclass()) {
+            for (Field field : klass.getDeclaredFields()) {
+                if (field.getName().equals(name)) {
+                    return Modifier.isPublic(field.getModifiers());
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isAccessibleMethod(ClassLoader classLoader, String owner, String name, String descriptor) {
+        if (owner.startsWith("[")) {
+            // Methods of arrays, such as clone
+            return true;
+        }
+        if (!isAccessibleClass(classLoader, owner)) {
+            return false;
+        }
+        final Class<?> ownerClass = loadClass(classLoader, owner);
+        if (name.equals("<init>")) {
+            for (Constructor<?> constructor : ownerClass.getDeclaredConstructors()) {
+                if (Type.getConstructorDescriptor(constructor).equals(descriptor)) {
+                    return isPublic(constructor);
+                }
+            }
+            return false;
+        }
+        final List<Class<?>> hierarchy = new ArrayList<>();
+        for (Class<?> klass = ownerClass; klass != null; klass = klass.getSuperclass()) {
+            hierarchy.add(klass);
+        }
+        hierarchy.addAll(List.of(ownerClass.getInterfaces()));
+        for (Class<?> klass : hierarchy) {
+            for (Method candidate : klass.getDeclaredMethods()) {
+                if (candidate.getName().equals(name) && Type.getMethodDescriptor(candidate).equals(descriptor)) {
+                    return isPublic(candidate);
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isPublic(Executable executable) {
+        return Modifier.isPublic(executable.getModifiers());
+    }
+}
@@ -40,12 +40,15 @@
  *
  */
 module tornado.api {
+    requires jdk.unsupported;
+
     exports uk.ac.manchester.tornado.api;
     exports uk.ac.manchester.tornado.api.annotations;
     exports uk.ac.manchester.tornado.api.collections.graphics;
     exports uk.ac.manchester.tornado.api.collections.math;
     exports uk.ac.manchester.tornado.api.collections.types;
     exports uk.ac.manchester.tornado.api.common;
+    exports uk.ac.manchester.tornado.api.data.nativetypes;
     exports uk.ac.manchester.tornado.api.enums;
     exports uk.ac.manchester.tornado.api.exceptions;
     exports uk.ac.manchester.tornado.api.memory;
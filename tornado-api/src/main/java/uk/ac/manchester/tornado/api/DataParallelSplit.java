@@ -0,0 +1,196 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2023, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * GNU Classpath is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ *
+ * GNU Classpath is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with GNU Classpath; see the file COPYING.  If not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ *
+ * Linking this library statically or dynamically with other modules is
+ * making a combined work based on this library.  Thus, the terms and
+ * conditions of the GNU General Public License cover the whole
+ * combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent
+ * modules, and to copy and distribute the resulting executable under
+ * terms of your choice, provided that you also meet, for each linked
+ * independent module, the terms and conditions of the license of that
+ * module.  An independent module is a module which is not derived from
+ * or based on this library.  If you modify this library, you may extend
+ * this exception to your version of the library, but you are not
+ * obligated to do so.  If you do not wish to do so, delete this
+ * exception statement from your version.
+ *
+ */
+package uk.ac.manchester.tornado.api;
+
+import java.util.Arrays;
+
+import uk.ac.manchester.tornado.api.common.TornadoDevice;
+import uk.ac.manchester.tornado.api.exceptions.TornadoRuntimeException;
+
+/**
+ * Describes how the iteration space of a single data-parallel task is split
+ * across several devices. Each device receives a contiguous range of the
+ * iteration space and the corresponding slices of the arrays that are indexed
+ * by the parallel loop. Arrays whose length does not match the iteration space
+ * are copied in full to every device.
+ *
+ * <p>
+ * The ratios are relative weights: {@code withRatios(3, 1)} assigns three
+ * quarters of the iteration space to the first device. When adaptive ratios are
+ * enabled, TornadoVM rebalances the weights after each execution using the
+ * measured throughput of every device.
+ * </p>
+ *
+ * <p>
+ * Stencil kernels that read neighbouring elements can request a halo: each
+ * slice is extended by {@code halo} elements at each side (clipped at the
+ * boundaries of the arrays). Only the elements owned by each device are copied
+ * back to the host.
+ * </p>
+ */
+public class DataParallelSplit {
+
+    private final TornadoDevice[] devices;
+    private float[] ratios;
+    private int halo;
+    private boolean adaptive;
+    private float[] currentRatios;
+    private long[] sliceOffsets = new long[0];
+    private long[] sliceSizes = new long[0];
+
+    public DataParallelSplit(TornadoDevice... devices) {
+        if (devices == null || devices.length == 0) {
+            throw new TornadoRuntimeException("[ERROR] A data-parallel split requires at least one device");
+        }
+        this.devices = devices.clone();
+        this.ratios = new float[devices.length];
+        Arrays.fill(ratios, 1.0f);
+    }
+
+    /**
+     * Sets the relative amount of work assigned to each device.
+     *
+     * @param ratios
+     *            One positive weight per device, in the same order as the devices.
+     * @return {@link DataParallelSplit}
+     */
+    public DataParallelSplit withRatios(float... ratios) {
+        if (ratios == null || ratios.length != devices.length) {
+            throw new TornadoRuntimeException("[ERROR] Expected " + devices.length + " split ratios");
+        }
+        for (float ratio : ratios) {
+            if (!(ratio > 0.0f) || Float.isInfinite(ratio)) {
+                throw new TornadoRuntimeException("[ERROR] Split ratios must be positive: " + Arrays.toString(ratios));
+            }
+        }
+        this.ratios = ratios.clone();
+        this.currentRatios = null;
+        return this;
+    }
+
+    /**
+     * Sets the number of neighbouring elements, at each side of a slice, that are
+     * also copied to a device.
+     *
+     * @param halo
+     *            Number of elements.
+     * @return {@link DataParallelSplit}
+     */
+    public DataParallelSplit withHalo(int halo) {
+        if (halo < 0) {
+            throw new TornadoRuntimeException("[ERROR] The halo size cannot be negative: " + halo);
+        }
+        this.halo = halo;
+        return this;
+    }
+
+    /**
+     * Rebalance the split ratios after each execution, based on the throughput
+     * measured on each device.
+     *
+     * @return {@link DataParallelSplit}
+     */
+    public DataParallelSplit withAdaptiveRatios() {
+        this.adaptive = true;
+        return this;
+    }
+
+    public TornadoDevice[] getDevices() {
+        return devices.clone();
+    }
+
+    public int getNumDevices() {
+        return devices.length;
+    }
+
+    public float[] getRatios() {
+        return ratios.clone();
+    }
+
+    public int getHalo() {
+        return halo;
+    }
+
+    public boolean isAdaptive() {
+        return adaptive;
+    }
+
+    /**
+     * @return The ratios used in the last execution. With adaptive ratios, they
+     *         include the rebalancing done after each execution.
+     */
+    public float[] getCurrentRatios() {
+        return currentRatios == null ? getRatios() : currentRatios.clone();
+    }
+
+    /**
+     * @return The index of the first element copied to each device in the last
+     *         execution, including the halo.
+     */
+    public long[] getSliceOffsets() {
+        return sliceOffsets.clone();
+    }
+
+    /**
+     * @return The number of elements copied to each device in the last execution:
+     *         the owned elements plus the halos.
+     */
+    public long[] getSliceSizes() {
+        return sliceSizes.clone();
+    }
+
+    /**
+     * It is invoked by the runtime when the adaptive rebalancing changes the
+     * ratios.
+     */
+    public void updateCurrentRatios(float[] ratios) {
+        this.currentRatios = ratios.clone();
+    }
+
+    /**
+     * It is invoked by the runtime when the slices of the devices change.
+     */
+    public void updateSlices(long[] offsets, long[] sizes) {
+        this.sliceOffsets = offsets.clone();
+        this.sliceSizes = sizes.clone();
+    }
+}
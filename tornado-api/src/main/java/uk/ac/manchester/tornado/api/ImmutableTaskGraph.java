@@ -46,6 +46,7 @@ import java.util.Objects;
 
 import uk.ac.manchester.tornado.api.common.TornadoDevice;
 import uk.ac.manchester.tornado.api.enums.ProfilerMode;
+import uk.ac.manchester.tornado.api.profiler.ProfilerHistogram;
 
 /**
  * A {@link TaskGraph} is encapsulated in this class and all actions over a task
@@ -89,6 +90,14 @@ public class ImmutableTaskGraph {
         taskGraph.warmup();
     }
 
+    void submitCompilation() {
+        taskGraph.submitCompilation();
+    }
+
+    void awaitCompilation() {
+        taskGraph.awaitCompilation();
+    }
+
     void setDevice(TornadoDevice device) {
         taskGraph.setDevice(device);
     }
@@ -145,6 +154,22 @@ public class ImmutableTaskGraph {
         return taskGraph.getProfileLog();
     }
 
+    ProfilerHistogram getTotalTimeHistogram() {
+        return taskGraph.getTotalTimeHistogram();
+    }
+
+    ProfilerHistogram getDeviceWriteTimeHistogram() {
+        return taskGraph.getDeviceWriteTimeHistogram();
+    }
+
+    ProfilerHistogram getDeviceReadTimeHistogram() {
+        return taskGraph.getDeviceReadTimeHistogram();
+    }
+
+    ProfilerHistogram getDeviceKernelTimeHistogram() {
+        return taskGraph.getDeviceKernelTimeHistogram();
+    }
+
     boolean isFinished() {
         return taskGraph.isFinished();
     }
@@ -165,8 +190,12 @@ public class ImmutableTaskGraph {
         taskGraph.useDefaultThreadScheduler(useDefaultScheduler);
     }
 
-    void withBatch(String batchSize) {
-        taskGraph.batch(batchSize);
+    void withBatch(String batchSize, Object... broadcastObjects) {
+        taskGraph.batch(batchSize, broadcastObjects);
+    }
+
+    void withDataParallelSplit(DataParallelSplit split) {
+        taskGraph.withDataParallelSplit(split);
     }
 
     TornadoDevice getDevice() {
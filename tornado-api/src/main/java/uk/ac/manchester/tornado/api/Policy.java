@@ -49,7 +49,13 @@ package uk.ac.manchester.tornado.api;
 public enum Policy {
     PERFORMANCE("Performance"), //
     END_2_END("End_2_End"), //
-    LATENCY("Latency");
+    LATENCY("Latency"), //
+    /**
+     * Online selection: it keeps a moving average of the execution time per
+     * device and input size, periodically re-probes the other devices, and
+     * migrates when another device consistently wins.
+     */
+    ADAPTIVE("Adaptive");
 
     private final String policyName;
 
@@ -66,6 +66,7 @@ import uk.ac.manchester.tornado.api.common.TornadoFunctions.Task8;
 import uk.ac.manchester.tornado.api.common.TornadoFunctions.Task9;
 import uk.ac.manchester.tornado.api.enums.ProfilerMode;
 import uk.ac.manchester.tornado.api.exceptions.TornadoTaskRuntimeException;
+import uk.ac.manchester.tornado.api.profiler.ProfilerHistogram;
 import uk.ac.manchester.tornado.api.runtime.TornadoAPIProvider;
 
 /**
@@ -773,8 +774,13 @@ public class TaskGraph implements TaskGraphInterface {
         return this;
     }
 
-    TaskGraph batch(String batchSize) {
-        taskGraphImpl.batch(batchSize);
+    TaskGraph batch(String batchSize, Object... broadcastObjects) {
+        taskGraphImpl.batch(batchSize, broadcastObjects);
+        return this;
+    }
+
+    TaskGraph withDataParallelSplit(DataParallelSplit split) {
+        taskGraphImpl.withDataParallelSplit(split);
         return this;
     }
 
@@ -798,6 +804,14 @@ public class TaskGraph implements TaskGraphInterface {
         taskGraphImpl.warmup();
     }
 
+    void submitCompilation() {
+        taskGraphImpl.submitCompilation();
+    }
+
+    void awaitCompilation() {
+        taskGraphImpl.awaitCompilation();
+    }
+
     void dumpEvents() {
         taskGraphImpl.dumpEvents();
     }
@@ -887,6 +901,22 @@ public class TaskGraph implements TaskGraphInterface {
         return taskGraphImpl.getProfileLog();
     }
 
+    ProfilerHistogram getTotalTimeHistogram() {
+        return taskGraphImpl.getTotalTimeHistogram();
+    }
+
+    ProfilerHistogram getDeviceWriteTimeHistogram() {
+        return taskGraphImpl.getDeviceWriteTimeHistogram();
+    }
+
+    ProfilerHistogram getDeviceReadTimeHistogram() {
+        return taskGraphImpl.getDeviceReadTimeHistogram();
+    }
+
+    ProfilerHistogram getDeviceKernelTimeHistogram() {
+        return taskGraphImpl.getDeviceKernelTimeHistogram();
+    }
+
     public Collection<?> getOutputs() {
         return taskGraphImpl.getOutputs();
     }
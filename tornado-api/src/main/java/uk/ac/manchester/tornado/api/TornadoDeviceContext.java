@@ -62,6 +62,8 @@ public interface TornadoDeviceContext {
 
     boolean isFP64Supported();
 
+    boolean isInt64AtomicsSupported();
+
     boolean isCached(String methodName, SchedulableTask task);
 
     int getDeviceIndex();
@@ -49,6 +49,7 @@ import java.util.stream.Collectors;
 import uk.ac.manchester.tornado.api.common.TornadoDevice;
 import uk.ac.manchester.tornado.api.enums.ProfilerMode;
 import uk.ac.manchester.tornado.api.exceptions.TornadoRuntimeException;
+import uk.ac.manchester.tornado.api.profiler.ProfilerHistogram;
 import uk.ac.manchester.tornado.api.runtime.TornadoRuntime;
 
 /**
@@ -139,7 +140,7 @@ public class TornadoExecutionPlan {
 
     /**
      * It invokes the JIT compiler for all immutable tasks-graphs associated to an
-     * executor.
+     * executor. All tasks are compiled concurrently, as in {@link #compileAll()}.
      *
      * @return {@link TornadoExecutionPlan}
      */
@@ -149,6 +150,23 @@ public class TornadoExecutionPlan {
         return this;
     }
 
+    /**
+     * It compiles all tasks of all immutable task-graphs associated to an
+     * executor before their first execution. The tasks are compiled concurrently
+     * on a bounded pool of compiler threads (option
+     * {@code -Dtornado.compiler.threads=<n>}, 4 by default). The code of each
+     * task is installed once its compilation has finished, and the compilation
+     * time of each task is reported by the profiler as
+     * {@code TASK_COMPILE_TIME}.
+     *
+     * @return {@link TornadoExecutionPlan}
+     */
+    public TornadoExecutionPlan compileAll() {
+        checkProfilerEnabled();
+        tornadoExecutor.warmup();
+        return this;
+    }
+
     /**
      * It selects a specific device for all immutable tasks graphs associated to an
      * executor.
@@ -237,12 +255,37 @@ public class TornadoExecutionPlan {
      * users want to execute big data applications that do not fit on the device's
      * global memory.
      *
+     * <p>
+     * Every array of the task-graph is streamed: it is partitioned in chunks, and
+     * all streamed arrays must have the same number of elements. Arrays that must
+     * be copied whole for every chunk (e.g., an array of coefficients) are
+     * declared as broadcast objects.
+     * </p>
+     *
      * @param batchSize
      *            String in the format a number + "MB" Example "512MB".
+     * @param broadcastObjects
+     *            Objects of the task-graph that are copied whole for every chunk.
      * @return {@link TornadoExecutionPlan}
      */
-    public TornadoExecutionPlan withBatch(String batchSize) {
-        tornadoExecutor.withBatch(batchSize);
+    public TornadoExecutionPlan withBatch(String batchSize, Object... broadcastObjects) {
+        tornadoExecutor.withBatch(batchSize, broadcastObjects);
+        return this;
+    }
+
+    /**
+     * Split the iteration space of a single-task task-graph across several
+     * devices. Each device executes its share of the parallel loop on the
+     * corresponding slices of the input and output arrays, and the results are
+     * merged back into the host arrays. This must be set before the first
+     * execution of the plan, and it cannot be combined with batch processing.
+     *
+     * @param split
+     *            {@link DataParallelSplit} with the devices, ratios and halo.
+     * @return {@link TornadoExecutionPlan}
+     */
+    public TornadoExecutionPlan withDataParallelSplit(DataParallelSplit split) {
+        tornadoExecutor.withDataParallelSplit(split);
         return this;
     }
 
@@ -316,11 +359,29 @@ public class TornadoExecutionPlan {
         }
 
         void warmup() {
-            immutableTaskGraphList.forEach(ImmutableTaskGraph::warmup);
+            // Submit the tasks of all task-graphs before waiting for any of them
+            immutableTaskGraphList.forEach(ImmutableTaskGraph::submitCompilation);
+            RuntimeException failure = null;
+            for (ImmutableTaskGraph immutableTaskGraph : immutableTaskGraphList) {
+                try {
+                    immutableTaskGraph.awaitCompilation();
+                } catch (RuntimeException e) {
+                    if (failure == null) {
+                        failure = e;
+                    }
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+
+        void withBatch(String batchSize, Object... broadcastObjects) {
+            immutableTaskGraphList.forEach(immutableTaskGraph -> immutableTaskGraph.withBatch(batchSize, broadcastObjects));
         }
 
-        void withBatch(String batchSize) {
-            immutableTaskGraphList.forEach(immutableTaskGraph -> immutableTaskGraph.withBatch(batchSize));
+        void withDataParallelSplit(DataParallelSplit split) {
+            immutableTaskGraphList.forEach(immutableTaskGraph -> immutableTaskGraph.withDataParallelSplit(split));
         }
 
         /**
@@ -397,6 +458,30 @@ public class TornadoExecutionPlan {
             return immutableTaskGraphList.stream().map(ImmutableTaskGraph::getProfileLog).collect(Collectors.joining());
         }
 
+        ProfilerHistogram getTotalTimeHistogram() {
+            ProfilerHistogram histogram = new ProfilerHistogram();
+            immutableTaskGraphList.forEach(immutableTaskGraph -> histogram.add(immutableTaskGraph.getTotalTimeHistogram()));
+            return histogram;
+        }
+
+        ProfilerHistogram getDeviceWriteTimeHistogram() {
+            ProfilerHistogram histogram = new ProfilerHistogram();
+            immutableTaskGraphList.forEach(immutableTaskGraph -> histogram.add(immutableTaskGraph.getDeviceWriteTimeHistogram()));
+            return histogram;
+        }
+
+        ProfilerHistogram getDeviceReadTimeHistogram() {
+            ProfilerHistogram histogram = new ProfilerHistogram();
+            immutableTaskGraphList.forEach(immutableTaskGraph -> histogram.add(immutableTaskGraph.getDeviceReadTimeHistogram()));
+            return histogram;
+        }
+
+        ProfilerHistogram getDeviceKernelTimeHistogram() {
+            ProfilerHistogram histogram = new ProfilerHistogram();
+            immutableTaskGraphList.forEach(immutableTaskGraph -> histogram.add(immutableTaskGraph.getDeviceKernelTimeHistogram()));
+            return histogram;
+        }
+
         void dumpProfiles() {
             immutableTaskGraphList.forEach(ImmutableTaskGraph::dumpProfiles);
         }
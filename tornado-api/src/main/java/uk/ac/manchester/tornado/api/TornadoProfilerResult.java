@@ -44,6 +44,7 @@ package uk.ac.manchester.tornado.api;
 import uk.ac.manchester.tornado.api.TornadoExecutionPlan.TornadoExecutor;
 import uk.ac.manchester.tornado.api.enums.ProfilerMode;
 import uk.ac.manchester.tornado.api.profiler.ProfileInterface;
+import uk.ac.manchester.tornado.api.profiler.ProfilerHistogram;
 
 /**
  * Object that stores all information related to profiling an executor. To be
@@ -192,6 +193,50 @@ public class TornadoProfilerResult implements ProfileInterface {
         return executor.getProfileLog();
     }
 
+    /**
+     * Returns the distribution (p50, p99, max) of the end-to-end time of each execution,
+     * across all executions of the immutable task-graphs.
+     *
+     * @return {@link ProfilerHistogram}
+     */
+    @Override
+    public ProfilerHistogram getTotalTimeHistogram() {
+        return executor.getTotalTimeHistogram();
+    }
+
+    /**
+     * Returns the distribution (p50, p99, max) of the time to send data to the device (host -> device) in each execution,
+     * across all executions of the immutable task-graphs.
+     *
+     * @return {@link ProfilerHistogram}
+     */
+    @Override
+    public ProfilerHistogram getDeviceWriteTimeHistogram() {
+        return executor.getDeviceWriteTimeHistogram();
+    }
+
+    /**
+     * Returns the distribution (p50, p99, max) of the time to receive data from the device (device -> host) in each execution,
+     * across all executions of the immutable task-graphs.
+     *
+     * @return {@link ProfilerHistogram}
+     */
+    @Override
+    public ProfilerHistogram getDeviceReadTimeHistogram() {
+        return executor.getDeviceReadTimeHistogram();
+    }
+
+    /**
+     * Returns the distribution (p50, p99, max) of the kernel time of each execution,
+     * across all executions of the immutable task-graphs.
+     *
+     * @return {@link ProfilerHistogram}
+     */
+    @Override
+    public ProfilerHistogram getDeviceKernelTimeHistogram() {
+        return executor.getDeviceKernelTimeHistogram();
+    }
+
     TornadoExecutor getExecutor() {
         return executor;
     }
@@ -69,7 +69,9 @@ public interface TornadoTaskGraphInterface extends ProfileInterface {
 
     void scheduleInner();
 
-    void batch(String batchSize);
+    void batch(String batchSize, Object... broadcastObjects);
+
+    void withDataParallelSplit(DataParallelSplit split);
 
     void apply(Consumer<SchedulableTask> consumer);
 
@@ -93,6 +95,19 @@ public interface TornadoTaskGraphInterface extends ProfileInterface {
 
     void warmup();
 
+    /**
+     * It compiles the task-graph to TornadoVM bytecodes and submits the
+     * compilation of all its tasks, without waiting for the compilations to
+     * finish.
+     */
+    void submitCompilation();
+
+    /**
+     * It waits for the compilations submitted by {@link #submitCompilation()} and
+     * installs the code of each task.
+     */
+    void awaitCompilation();
+
     void freeDeviceMemory();
 
     void syncRuntimeTransferToHost(Object... objects);
@@ -41,8 +41,32 @@
  */
 package uk.ac.manchester.tornado.api;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Atomic operations on array elements that can be used within TornadoVM
+ * kernels, either in loops annotated with
+ * {@link uk.ac.manchester.tornado.api.annotations.Parallel} or in kernels that
+ * use the {@link KernelContext}. All operations return the value stored in the
+ * array element before the update.
+ *
+ * <p>
+ * On the host, the operations are lock-free and follow the semantics of
+ * {@link VarHandle} volatile accesses. On the device, the TornadoVM JIT
+ * compiler replaces each call with the corresponding atomic instruction of the
+ * backend (e.g., {@code atomic_add} in OpenCL, {@code atom.global.add} in PTX,
+ * or {@code OpAtomicIAdd} in SPIR-V). Operations with no native instruction
+ * for a data type (e.g., atomic add for {@code float}) are emitted as a
+ * compare-and-swap loop.
+ * </p>
+ */
 public class TornadoVM_Intrinsics {
 
+    private static final VarHandle INT_ARRAY = MethodHandles.arrayElementVarHandle(int[].class);
+    private static final VarHandle LONG_ARRAY = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final VarHandle FLOAT_ARRAY = MethodHandles.arrayElementVarHandle(float[].class);
+
     /**
      * Compute (old + value) and store result at location pointed by p. The function
      * returns old.
@@ -52,9 +76,195 @@ public class TornadoVM_Intrinsics {
      * @param value
      * @return old value
      */
-    public static synchronized int atomic_add(int[] array, int index, int value) {
-        int old = array[index];
-        array[index] = array[index] + value;
+    public static int atomic_add(int[] array, int index, int value) {
+        return (int) INT_ARRAY.getAndAdd(array, index, value);
+    }
+
+    /**
+     * Compute (old + value) and store the result in array[index].
+     *
+     * @param array
+     * @param index
+     * @param value
+     * @return old value
+     */
+    public static long atomic_add(long[] array, int index, long value) {
+        return (long) LONG_ARRAY.getAndAdd(array, index, value);
+    }
+
+    /**
+     * Compute (old + value) and store the result in array[index].
+     *
+     * @param array
+     * @param index
+     * @param value
+     * @return old value
+     */
+    public static float atomic_add(float[] array, int index, float value) {
+        float old;
+        do {
+            old = (float) FLOAT_ARRAY.getVolatile(array, index);
+        } while (!FLOAT_ARRAY.compareAndSet(array, index, old, old + value));
+        return old;
+    }
+
+    /**
+     * Compute min(old, value) and store the result in array[index].
+     *
+     * @param array
+     * @param index
+     * @param value
+     * @return old value
+     */
+    public static int atomic_min(int[] array, int index, int value) {
+        int old;
+        do {
+            old = (int) INT_ARRAY.getVolatile(array, index);
+        } while (!INT_ARRAY.compareAndSet(array, index, old, Math.min(old, value)));
+        return old;
+    }
+
+    /**
+     * Compute min(old, value) and store the result in array[index].
+     *
+     * @param array
+     * @param index
+     * @param value
+     * @return old value
+     */
+    public static long atomic_min(long[] array, int index, long value) {
+        long old;
+        do {
+            old = (long) LONG_ARRAY.getVolatile(array, index);
+        } while (!LONG_ARRAY.compareAndSet(array, index, old, Math.min(old, value)));
+        return old;
+    }
+
+    /**
+     * Compute min(old, value) and store the result in array[index].
+     *
+     * @param array
+     * @param index
+     * @param value
+     * @return old value
+     */
+    public static float atomic_min(float[] array, int index, float value) {
+        float old;
+        do {
+            old = (float) FLOAT_ARRAY.getVolatile(array, index);
+        } while (!FLOAT_ARRAY.compareAndSet(array, index, old, Math.min(old, value)));
+        return old;
+    }
+
+    /**
+     * Compute max(old, value) and store the result in array[index].
+     *
+     * @param array
+     * @param index
+     * @param value
+     * @return old value
+     */
+    public static int atomic_max(int[] array, int index, int value) {
+        int old;
+        do {
+            old = (int) INT_ARRAY.getVolatile(array, index);
+        } while (!INT_ARRAY.compareAndSet(array, index, old, Math.max(old, value)));
+        return old;
+    }
+
+    /**
+     * Compute max(old, value) and store the result in array[index].
+     *
+     * @param array
+     * @param index
+     * @param value
+     * @return old value
+     */
+    public static long atomic_max(long[] array, int index, long value) {
+        long old;
+        do {
+            old = (long) LONG_ARRAY.getVolatile(array, index);
+        } while (!LONG_ARRAY.compareAndSet(array, index, old, Math.max(old, value)));
         return old;
     }
+
+    /**
+     * Compute max(old, value) and store the result in array[index].
+     *
+     * @param array
+     * @param index
+     * @param value
+     * @return old value
+     */
+    public static float atomic_max(float[] array, int index, float value) {
+        float old;
+        do {
+            old = (float) FLOAT_ARRAY.getVolatile(array, index);
+        } while (!FLOAT_ARRAY.compareAndSet(array, index, old, Math.max(old, value)));
+        return old;
+    }
+
+    /**
+     * Store value in array[index].
+     *
+     * @param array
+     * @param index
+     * @param value
+     * @return old value
+     */
+    public static int atomic_xchg(int[] array, int index, int value) {
+        return (int) INT_ARRAY.getAndSet(array, index, value);
+    }
+
+    /**
+     * Store value in array[index].
+     *
+     * @param array
+     * @param index
+     * @param value
+     * @return old value
+     */
+    public static long atomic_xchg(long[] array, int index, long value) {
+        return (long) LONG_ARRAY.getAndSet(array, index, value);
+    }
+
+    /**
+     * Store value in array[index].
+     *
+     * @param array
+     * @param index
+     * @param value
+     * @return old value
+     */
+    public static float atomic_xchg(float[] array, int index, float value) {
+        return (float) FLOAT_ARRAY.getAndSet(array, index, value);
+    }
+
+    /**
+     * Compute (old == expected) ? value : old and store the result in
+     * array[index].
+     *
+     * @param array
+     * @param index
+     * @param expected
+     * @param value
+     * @return old value
+     */
+    public static int atomic_cmpxchg(int[] array, int index, int expected, int value) {
+        return (int) INT_ARRAY.compareAndExchange(array, index, expected, value);
+    }
+
+    /**
+     * Compute (old == expected) ? value : old and store the result in
+     * array[index].
+     *
+     * @param array
+     * @param index
+     * @param expected
+     * @param value
+     * @return old value
+     */
+    public static long atomic_cmpxchg(long[] array, int index, long expected, long value) {
+        return (long) LONG_ARRAY.compareAndExchange(array, index, expected, value);
+    }
 }
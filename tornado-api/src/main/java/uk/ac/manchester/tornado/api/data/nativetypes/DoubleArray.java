@@ -0,0 +1,119 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2023, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * GNU Classpath is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ *
+ * GNU Classpath is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with GNU Classpath; see the file COPYING.  If not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ *
+ * Linking this library statically or dynamically with other modules is
+ * making a combined work based on this library.  Thus, the terms and
+ * conditions of the GNU General Public License cover the whole
+ * combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent
+ * modules, and to copy and distribute the resulting executable under
+ * terms of your choice, provided that you also meet, for each linked
+ * independent module, the terms and conditions of the license of that
+ * module.  An independent module is a module which is not derived from
+ * or based on this library.  If you modify this library, you may extend
+ * this exception to your version of the library, but you are not
+ * obligated to do so.  If you do not wish to do so, delete this
+ * exception statement from your version.
+ *
+ */
+package uk.ac.manchester.tornado.api.data.nativetypes;
+
+/**
+ * Off-heap array of {@code double} values. See {@link TornadoNativeArray} for the
+ * memory layout.
+ */
+public final class DoubleArray extends TornadoNativeArray {
+
+    private static final int ELEMENT_SIZE = Double.BYTES;
+    private static final int HEADER_SIZE = UNSAFE.arrayBaseOffset(double[].class);
+
+    /**
+     * Creates a new array with all elements set to zero.
+     *
+     * @param numberOfElements
+     *            Number of elements. It can be larger than
+     *            {@link Integer#MAX_VALUE}.
+     */
+    public DoubleArray(long numberOfElements) {
+        super(numberOfElements, ELEMENT_SIZE, HEADER_SIZE);
+    }
+
+    /**
+     * Creates a new array with a copy of the given Java array.
+     *
+     * @param values
+     *            Values to copy.
+     * @return A new {@link DoubleArray}.
+     */
+    public static DoubleArray fromArray(double[] values) {
+        DoubleArray array = new DoubleArray(values.length);
+        array.copyFrom(values, HEADER_SIZE, (long) values.length * ELEMENT_SIZE);
+        return array;
+    }
+
+    public static DoubleArray fromElements(double... values) {
+        return fromArray(values);
+    }
+
+    /**
+     * Copies the elements into a new Java array.
+     *
+     * @return A new {@code double[]}.
+     */
+    public double[] toHeapArray() {
+        double[] values = new double[checkHeapArraySize()];
+        copyTo(values, HEADER_SIZE, (long) values.length * ELEMENT_SIZE);
+        return values;
+    }
+
+    public double get(int index) {
+        return UNSAFE.getDouble(addressOf(index));
+    }
+
+    public double get(long index) {
+        return UNSAFE.getDouble(addressOf(index));
+    }
+
+    public void set(int index, double value) {
+        UNSAFE.putDouble(addressOf(index), value);
+    }
+
+    public void set(long index, double value) {
+        UNSAFE.putDouble(addressOf(index), value);
+    }
+
+    /**
+     * Sets all elements to the given value.
+     *
+     * @param value
+     *            Value for all elements.
+     */
+    public void init(double value) {
+        for (long i = 0; i < getNumberOfElements(); i++) {
+            set(i, value);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2023, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * GNU Classpath is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ *
+ * GNU Classpath is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with GNU Classpath; see the file COPYING.  If not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ *
+ * Linking this library statically or dynamically with other modules is
+ * making a combined work based on this library.  Thus, the terms and
+ * conditions of the GNU General Public License cover the whole
+ * combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent
+ * modules, and to copy and distribute the resulting executable under
+ * terms of your choice, provided that you also meet, for each linked
+ * independent module, the terms and conditions of the license of that
+ * module.  An independent module is a module which is not derived from
+ * or based on this library.  If you modify this library, you may extend
+ * this exception to your version of the library, but you are not
+ * obligated to do so.  If you do not wish to do so, delete this
+ * exception statement from your version.
+ *
+ */
+package uk.ac.manchester.tornado.api.data.nativetypes;
+
+/**
+ * IEEE 754 half-precision (binary16) floating point value. The value is
+ * stored in a {@code short}. Arithmetic is performed in single precision and
+ * rounded back to half precision (round to nearest even).
+ */
+public final class HalfFloat {
+
+    private final short halfFloatValue;
+
+    public HalfFloat(float value) {
+        this.halfFloatValue = floatToHalf(value);
+    }
+
+    public HalfFloat(short halfFloatValue) {
+        this.halfFloatValue = halfFloatValue;
+    }
+
+    /**
+     * @return The raw binary16 representation.
+     */
+    public short getHalfFloatValue() {
+        return halfFloatValue;
+    }
+
+    /**
+     * @return The value converted to single precision.
+     */
+    public float getFloat32() {
+        return halfToFloat(halfFloatValue);
+    }
+
+    public static HalfFloat add(HalfFloat a, HalfFloat b) {
+        return new HalfFloat(a.getFloat32() + b.getFloat32());
+    }
+
+    public static HalfFloat sub(HalfFloat a, HalfFloat b) {
+        return new HalfFloat(a.getFloat32() - b.getFloat32());
+    }
+
+    public static HalfFloat mult(HalfFloat a, HalfFloat b) {
+        return new HalfFloat(a.getFloat32() * b.getFloat32());
+    }
+
+    public static HalfFloat div(HalfFloat a, HalfFloat b) {
+        return new HalfFloat(a.getFloat32() / b.getFloat32());
+    }
+
+    /**
+     * Converts a single precision value to binary16, rounding to nearest even.
+     *
+     * @param value
+     *            Single precision value.
+     * @return The binary16 representation.
+     */
+    public static short floatToHalf(float value) {
+        final int bits = Float.floatToRawIntBits(value);
+        final int sign = (bits >>> 16) & 0x8000;
+        final int exponent = (bits >>> 23) & 0xff;
+        int mantissa = bits & 0x7fffff;
+
+        if (exponent == 0xff) {
+            // Infinity or NaN (keep NaNs quiet)
+            return (short) (sign | 0x7c00 | (mantissa != 0 ? 0x200 | (mantissa >>> 13) : 0));
+        }
+
+        final int halfExponent = exponent - 127 + 15;
+        if (halfExponent >= 0x1f) {
+            // Overflow
+            return (short) (sign | 0x7c00);
+        }
+
+        if (halfExponent <= 0) {
+            if (halfExponent < -10) {
+                // Too small even for a sub-normal value
+                return (short) sign;
+            }
+            // Sub-normal value: make the implicit bit explicit
+            mantissa |= 0x800000;
+            final int shift = 14 - halfExponent;
+            int half = mantissa >>> shift;
+            final int roundBit = 1 << (shift - 1);
+            if ((mantissa & roundBit) != 0 && (mantissa & (3 * roundBit - 1)) != 0) {
+                half++;
+            }
+            return (short) (sign | half);
+        }
+
+        int half = sign | (halfExponent << 10) | (mantissa >>> 13);
+        final int roundBit = 0x1000;
+        if ((mantissa & roundBit) != 0 && (mantissa & (3 * roundBit - 1)) != 0) {
+            // A carry into the exponent gives the right result, up to infinity
+            half++;
+        }
+        return (short) half;
+    }
+
+    /**
+     * Converts a binary16 value to single precision. The conversion is exact.
+     *
+     * @param halfFloatValue
+     *            The binary16 representation.
+     * @return The single precision value.
+     */
+    public static float halfToFloat(short halfFloatValue) {
+        final int half = halfFloatValue & 0xffff;
+        final int sign = (half & 0x8000) << 16;
+        final int exponent = (half >>> 10) & 0x1f;
+        final int mantissa = half & 0x3ff;
+
+        if (exponent == 0x1f) {
+            return Float.intBitsToFloat(sign | 0x7f800000 | (mantissa << 13));
+        }
+        if (exponent == 0) {
+            final float value = mantissa * 0x1p-24f;
+            return sign != 0 ? -value : value;
+        }
+        return Float.intBitsToFloat(sign | ((exponent + 112) << 23) | (mantissa << 13));
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof HalfFloat && ((HalfFloat) obj).halfFloatValue == halfFloatValue;
+    }
+
+    @Override
+    public int hashCode() {
+        return Short.hashCode(halfFloatValue);
+    }
+
+    @Override
+    public String toString() {
+        return Float.toString(getFloat32());
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2023, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * GNU Classpath is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ *
+ * GNU Classpath is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with GNU Classpath; see the file COPYING.  If not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ *
+ * Linking this library statically or dynamically with other modules is
+ * making a combined work based on this library.  Thus, the terms and
+ * conditions of the GNU General Public License cover the whole
+ * combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent
+ * modules, and to copy and distribute the resulting executable under
+ * terms of your choice, provided that you also meet, for each linked
+ * independent module, the terms and conditions of the license of that
+ * module.  An independent module is a module which is not derived from
+ * or based on this library.  If you modify this library, you may extend
+ * this exception to your version of the library, but you are not
+ * obligated to do so.  If you do not wish to do so, delete this
+ * exception statement from your version.
+ *
+ */
+package uk.ac.manchester.tornado.api.data.nativetypes;
+
+/**
+ * Off-heap array of {@link HalfFloat} values. Each element is stored in two
+ * bytes, using the binary16 format. See {@link TornadoNativeArray} for the
+ * memory layout.
+ */
+public final class HalfFloatArray extends TornadoNativeArray {
+
+    private static final int ELEMENT_SIZE = Short.BYTES;
+    private static final int HEADER_SIZE = UNSAFE.arrayBaseOffset(short[].class);
+
+    /**
+     * Creates a new array with all elements set to zero.
+     *
+     * @param numberOfElements
+     *            Number of elements. It can be larger than
+     *            {@link Integer#MAX_VALUE}.
+     */
+    public HalfFloatArray(long numberOfElements) {
+        super(numberOfElements, ELEMENT_SIZE, HEADER_SIZE);
+    }
+
+    /**
+     * Creates a new array from single precision values. Each value is rounded to
+     * half precision.
+     *
+     * @param values
+     *            Values to copy.
+     * @return A new {@link HalfFloatArray}.
+     */
+    public static HalfFloatArray fromArray(float[] values) {
+        HalfFloatArray array = new HalfFloatArray(values.length);
+        for (int i = 0; i < values.length; i++) {
+            array.setFloat32(i, values[i]);
+        }
+        return array;
+    }
+
+    public static HalfFloatArray fromElements(HalfFloat... values) {
+        HalfFloatArray array = new HalfFloatArray(values.length);
+        for (int i = 0; i < values.length; i++) {
+            array.set(i, values[i]);
+        }
+        return array;
+    }
+
+    /**
+     * Copies the elements, converted to single precision, into a new Java
+     * array.
+     *
+     * @return A new {@code float[]}.
+     */
+    public float[] toHeapArray() {
+        float[] values = new float[checkHeapArraySize()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = getFloat32(i);
+        }
+        return values;
+    }
+
+    public HalfFloat get(int index) {
+        return new HalfFloat(UNSAFE.getShort(addressOf(index)));
+    }
+
+    public HalfFloat get(long index) {
+        return new HalfFloat(UNSAFE.getShort(addressOf(index)));
+    }
+
+    public void set(int index, HalfFloat value) {
+        UNSAFE.putShort(addressOf(index), value.getHalfFloatValue());
+    }
+
+    public void set(long index, HalfFloat value) {
+        UNSAFE.putShort(addressOf(index), value.getHalfFloatValue());
+    }
+
+    public float getFloat32(long index) {
+        return HalfFloat.halfToFloat(UNSAFE.getShort(addressOf(index)));
+    }
+
+    public void setFloat32(long index, float value) {
+        UNSAFE.putShort(addressOf(index), HalfFloat.floatToHalf(value));
+    }
+
+    /**
+     * Sets all elements to the given value.
+     *
+     * @param value
+     *            Value for all elements.
+     */
+    public void init(HalfFloat value) {
+        final short halfFloatValue = value.getHalfFloatValue();
+        for (long i = 0; i < getNumberOfElements(); i++) {
+            UNSAFE.putShort(addressOf(i), halfFloatValue);
+        }
+    }
+}
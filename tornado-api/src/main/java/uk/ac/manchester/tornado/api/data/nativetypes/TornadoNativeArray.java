@@ -0,0 +1,236 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2023, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * GNU Classpath is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ *
+ * GNU Classpath is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with GNU Classpath; see the file COPYING.  If not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ *
+ * Linking this library statically or dynamically with other modules is
+ * making a combined work based on this library.  Thus, the terms and
+ * conditions of the GNU General Public License cover the whole
+ * combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent
+ * modules, and to copy and distribute the resulting executable under
+ * terms of your choice, provided that you also meet, for each linked
+ * independent module, the terms and conditions of the license of that
+ * module.  An independent module is a module which is not derived from
+ * or based on this library.  If you modify this library, you may extend
+ * this exception to your version of the library, but you are not
+ * obligated to do so.  If you do not wish to do so, delete this
+ * exception statement from your version.
+ *
+ */
+package uk.ac.manchester.tornado.api.data.nativetypes;
+
+import java.lang.ref.Cleaner;
+import java.lang.reflect.Field;
+
+import sun.misc.Unsafe;
+import uk.ac.manchester.tornado.api.exceptions.TornadoRuntimeException;
+
+/**
+ * Base class for arrays whose storage lives outside the Java heap. The native
+ * segment of an array has the same layout as a Java array of the same
+ * primitive type: a header of {@link #getHeaderSize()} bytes, which holds the
+ * number of elements at the same offset the JVM uses for the array length,
+ * followed by the elements.
+ *
+ * <p>
+ * The segment is allocated once and released when the array object becomes
+ * unreachable. Because the layout matches the one of Java arrays, the drivers
+ * copy the whole segment from its native address in a single transfer, without
+ * pinning or copying any Java array, and compiled kernels access the elements
+ * with the same code as for primitive arrays.
+ * </p>
+ *
+ * <p>
+ * Native arrays can hold more than {@link Integer#MAX_VALUE} elements. The
+ * {@code long} accessors can be used for those from the host; within kernels,
+ * elements are accessed through the {@code int} accessors.
+ * </p>
+ */
+public abstract class TornadoNativeArray {
+
+    /**
+     * Alignment, in bytes, of the native segment.
+     */
+    public static final int ALIGNMENT = 64;
+
+    static final Unsafe UNSAFE = getUnsafe();
+
+    /**
+     * Offset of the length field within the header. It is the same as for Java
+     * arrays.
+     */
+    static final int ARRAY_LENGTH_OFFSET = UNSAFE.arrayBaseOffset(int[].class) - Integer.BYTES;
+
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private final long numberOfElements;
+    private final int elementSize;
+    private final int headerSize;
+    private final long segmentAddress;
+    private final long numBytesOfSegment;
+
+    protected TornadoNativeArray(long numberOfElements, int elementSize, int headerSize) {
+        if (numberOfElements < 0) {
+            throw new TornadoRuntimeException("[ERROR] Negative number of elements for a native array: " + numberOfElements);
+        }
+        this.numberOfElements = numberOfElements;
+        this.elementSize = elementSize;
+        this.headerSize = headerSize;
+        this.numBytesOfSegment = headerSize + numberOfElements * elementSize;
+
+        final long rawAddress = UNSAFE.allocateMemory(numBytesOfSegment + ALIGNMENT);
+        UNSAFE.setMemory(rawAddress, numBytesOfSegment + ALIGNMENT, (byte) 0);
+        this.segmentAddress = (rawAddress + ALIGNMENT - 1) & -ALIGNMENT;
+        UNSAFE.putInt(segmentAddress + ARRAY_LENGTH_OFFSET, (int) Math.min(numberOfElements, Integer.MAX_VALUE));
+        CLEANER.register(this, new Deallocator(rawAddress));
+    }
+
+    private static Unsafe getUnsafe() {
+        try {
+            Field field = Unsafe.class.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            return (Unsafe) field.get(null);
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            throw new TornadoRuntimeException("[ERROR] Unsafe is not available to allocate native arrays: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Number of elements of the array. Within kernels, this is the equivalent
+     * of the {@code length} field of a Java array.
+     *
+     * @return Number of elements.
+     * @throws TornadoRuntimeException
+     *             if the array holds more than {@link Integer#MAX_VALUE}
+     *             elements. Use {@link #getNumberOfElements()} instead.
+     */
+    public final int getSize() {
+        if (numberOfElements > Integer.MAX_VALUE) {
+            throw new TornadoRuntimeException("[ERROR] The native array has more than Integer.MAX_VALUE elements. Use getNumberOfElements()");
+        }
+        return (int) numberOfElements;
+    }
+
+    public final long getNumberOfElements() {
+        return numberOfElements;
+    }
+
+    public final int getElementSize() {
+        return elementSize;
+    }
+
+    public final int getHeaderSize() {
+        return headerSize;
+    }
+
+    /**
+     * @return Address of the native segment, including the header.
+     */
+    public final long getSegmentAddress() {
+        return segmentAddress;
+    }
+
+    /**
+     * @return Size, in bytes, of the native segment, including the header.
+     */
+    public final long getNumBytesOfSegment() {
+        return numBytesOfSegment;
+    }
+
+    /**
+     * @return Size, in bytes, of the elements of the array.
+     */
+    public final long getNumBytesWithoutHeader() {
+        return numBytesOfSegment - headerSize;
+    }
+
+    /**
+     * Sets all elements of the array to zero.
+     */
+    public void clear() {
+        UNSAFE.setMemory(segmentAddress + headerSize, getNumBytesWithoutHeader(), (byte) 0);
+    }
+
+    /**
+     * Copies a range of elements into another native array with the same element
+     * size.
+     *
+     * @param fromIndex
+     *            Index of the first element to copy from this array.
+     * @param destination
+     *            Destination array.
+     * @param toIndex
+     *            Index of the first element to write in the destination array.
+     * @param length
+     *            Number of elements to copy.
+     */
+    public final void copyElementsTo(long fromIndex, TornadoNativeArray destination, long toIndex, long length) {
+        if (destination.elementSize != elementSize) {
+            throw new TornadoRuntimeException("[ERROR] Native arrays with different element sizes: " + elementSize + " and " + destination.elementSize);
+        }
+        if (fromIndex < 0 || toIndex < 0 || length < 0 || fromIndex + length > numberOfElements || toIndex + length > destination.numberOfElements) {
+            throw new ArrayIndexOutOfBoundsException("Range [" + fromIndex + ", " + (fromIndex + length) + ") copied to [" + toIndex + ", " + (toIndex + length) + ") out of bounds for lengths "
+                    + numberOfElements + " and " + destination.numberOfElements);
+        }
+        final long source = segmentAddress + headerSize + fromIndex * elementSize;
+        final long target = destination.segmentAddress + destination.headerSize + toIndex * elementSize;
+        UNSAFE.copyMemory(source, target, length * elementSize);
+    }
+
+    protected final long addressOf(long index) {
+        if (index < 0 || index >= numberOfElements) {
+            throw new ArrayIndexOutOfBoundsException("Index " + index + " out of bounds for length " + numberOfElements);
+        }
+        return segmentAddress + headerSize + index * elementSize;
+    }
+
+    protected final void copyFrom(Object heapArray, long heapBaseOffset, long numBytes) {
+        UNSAFE.copyMemory(heapArray, heapBaseOffset, null, segmentAddress + headerSize, numBytes);
+    }
+
+    protected final void copyTo(Object heapArray, long heapBaseOffset, long numBytes) {
+        UNSAFE.copyMemory(null, segmentAddress + headerSize, heapArray, heapBaseOffset, numBytes);
+    }
+
+    protected final int checkHeapArraySize() {
+        if (numberOfElements > Integer.MAX_VALUE) {
+            throw new TornadoRuntimeException("[ERROR] The native array is too large to be copied into a Java array: " + numberOfElements);
+        }
+        return (int) numberOfElements;
+    }
+
+    private static final class Deallocator implements Runnable {
+        private final long address;
+
+        private Deallocator(long address) {
+            this.address = address;
+        }
+
+        @Override
+        public void run() {
+            UNSAFE.freeMemory(address);
+        }
+    }
+}
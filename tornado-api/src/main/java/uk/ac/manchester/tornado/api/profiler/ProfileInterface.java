@@ -65,4 +65,12 @@ public interface ProfileInterface {
 
     String getProfileLog();
 
+    ProfilerHistogram getTotalTimeHistogram();
+
+    ProfilerHistogram getDeviceWriteTimeHistogram();
+
+    ProfilerHistogram getDeviceReadTimeHistogram();
+
+    ProfilerHistogram getDeviceKernelTimeHistogram();
+
 }
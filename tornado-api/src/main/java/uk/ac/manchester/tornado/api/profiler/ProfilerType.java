@@ -43,6 +43,7 @@ public enum ProfilerType {
     TOTAL_COPY_OUT_SIZE_BYTES("CopyOut-Size-(Bytes)"),
     TASK_COMPILE_DRIVER_TIME("Task-Compile-Driver"),
     TASK_COMPILE_GRAAL_TIME("Task-Compile-Graal"),
+    TASK_COMPILE_TIME("Task-Compile-Time"),
 
     TASK_CODE_GENERATION_TIME("Task-Code-Generation"),
     TASK_KERNEL_TIME("Task-Kernel"),
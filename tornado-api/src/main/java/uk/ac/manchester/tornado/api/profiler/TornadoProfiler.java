@@ -27,6 +27,30 @@ public interface TornadoProfiler {
 
     void addValueToMetric(ProfilerType type, String taskName, long value);
 
+    /**
+     * Adds a value to a metric of the task registered in a slot (see
+     * {@link #registerTask}).
+     *
+     * @param type
+     *            {@link ProfilerType}
+     * @param taskSlot
+     *            Slot returned by {@link #registerTask}.
+     * @param value
+     *            Value to add.
+     */
+    void addValueToMetric(ProfilerType type, int taskSlot, long value);
+
+    /**
+     * Registers a task and returns the slot that holds its timers and metrics.
+     * The slot of a task does not change, so it can be resolved once, when the
+     * task is compiled, and used for every execution.
+     *
+     * @param taskName
+     *            Id of the task.
+     * @return The slot of the task.
+     */
+    int registerTask(String taskName);
+
     void start(ProfilerType type);
 
     void start(ProfilerType type, String taskName);
@@ -59,5 +83,31 @@ public interface TornadoProfiler {
 
     void setTaskTimer(ProfilerType totalKernelTime, String taskId, long timer);
 
+    /**
+     * Sets a timer of the task registered in a slot (see {@link #registerTask}).
+     *
+     * @param type
+     *            {@link ProfilerType}
+     * @param taskSlot
+     *            Slot returned by {@link #registerTask}.
+     * @param timer
+     *            Time in nanoseconds.
+     */
+    void setTaskTimer(ProfilerType type, int taskSlot, long timer);
+
     void sum(ProfilerType type, long timer);
+
+    /**
+     * Adds the timers of the last execution to the latency histograms.
+     */
+    void recordExecution();
+
+    /**
+     * Returns the latency histogram, across executions, of a profiler type.
+     *
+     * @param type
+     *            {@link ProfilerType}
+     * @return {@link ProfilerHistogram}
+     */
+    ProfilerHistogram getHistogram(ProfilerType type);
 }
@@ -65,6 +65,7 @@ __VALIDATE__      				= " -Dtornado.benchmarks.validate=True "
 __ENABLE_PROFILER_SILENT_MODE__ = " --enableProfiler silent "
 __DISABLE_LEVEL_ZERO_DEFAULT_SCHEDULER__ = " -Dtornado.spirv.levelzero.thread.dispatcher=False "
 __ENABLE_SPIRV_OPTIMIZER__      = " -Dtornado.spirv.loadstore=True "
+__RESULTS_FILE__                = " -Dtornado.benchmarks.results="
 ## ========================================================================================
 
 ## ========================================================================================
@@ -138,8 +139,17 @@ def composeAllOptions(args):
 		options = options + __DISABLE_LEVEL_ZERO_DEFAULT_SCHEDULER__ 
 	if (args.spirvOptimizer):
 		options = options + __ENABLE_SPIRV_OPTIMIZER__
+	if (args.results != None):
+		options = options + __RESULTS_FILE__ + args.results + " "
 	return options
 
+def compareWithBaseline(args):
+	command = __TORNADO_COMMAND__ + __RUNNER__ + "--params=\"--compare " + args.baseline + " " + args.results + "\""
+	print(command)
+	status = os.system(command)
+	if (status != 0):
+		sys.exit(1)
+
 def printBenchmarks(indent=""):
 	print(Colors.GREEN + indent + "List of benchmarks: " + Colors.RESET)
 	for b in __BENCHMARKS__:
@@ -201,6 +211,8 @@ def parseArguments():
 	parser.add_argument('--jvm', "-J", dest="jvmFlags", required=False, default=None, help="Pass options to the JVM e.g. -J=\"-Ds0.t0.device=0:1\"")
 	parser.add_argument('--tornadoThreadScheduler', action="store_true", dest="tornadoThreadScheduler", required=False, default=False, help="Use the thread scheduler provided with TornadoVM when running SPIRV")
 	parser.add_argument('--spirvOptimizer', action="store_true", dest="spirvOptimizer", default=False, help="Enable the SPIRV optimizer")
+	parser.add_argument('--results', action="store", dest="results", default=None, help="Append the results to a file (CSV if the file name ends with .csv, JSON lines otherwise)")
+	parser.add_argument('--baseline', action="store", dest="baseline", default=None, help="Compare the results with a baseline file and fail on regressions. It requires --results")
 	args = parser.parse_args()
 	return args
 
@@ -225,5 +237,8 @@ def main():
 		print(Colors.CYAN + "[INFO] This process takes between 30-60 minutes" + Colors.RESET)
 		runDefaultSizePerBenchmark(args)
 
+	if (args.baseline != None and args.results != None):
+		compareWithBaseline(args)
+
 if __name__ == '__main__':
 	main()
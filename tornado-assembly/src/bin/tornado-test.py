@@ -56,6 +56,7 @@ __TEST_THE_WORLD__ = [
     ## TornadoVM standard test-suite
     TestEntry("uk.ac.manchester.tornado.unittests.TestHello"),
     TestEntry("uk.ac.manchester.tornado.unittests.arrays.TestArrays"),
+    TestEntry("uk.ac.manchester.tornado.unittests.arrays.TestNativeArrays"),
     TestEntry("uk.ac.manchester.tornado.unittests.functional.TestLambdas"),
     TestEntry("uk.ac.manchester.tornado.unittests.vectortypes.TestFloats"),
     TestEntry("uk.ac.manchester.tornado.unittests.vectortypes.TestDoubles"),
@@ -80,9 +81,13 @@ __TEST_THE_WORLD__ = [
     TestEntry("uk.ac.manchester.tornado.unittests.reductions.TestReductionsAutomatic"),
     TestEntry("uk.ac.manchester.tornado.unittests.instances.TestInstances"),
     TestEntry("uk.ac.manchester.tornado.unittests.matrices.TestMatrixTypes"),
+    TestEntry("uk.ac.manchester.tornado.unittests.matrices.TestMatrixMarketLoader"),
+    TestEntry("uk.ac.manchester.tornado.unittests.matrices.TestSparseMatrixFormats"),
+    TestEntry("uk.ac.manchester.tornado.unittests.matrices.TestSpmvSparseFormats"),
     TestEntry("uk.ac.manchester.tornado.unittests.api.TestAPI"),
     TestEntry("uk.ac.manchester.tornado.unittests.api.TestIO"),
     TestEntry("uk.ac.manchester.tornado.unittests.executor.TestExecutor"),
+    TestEntry("uk.ac.manchester.tornado.unittests.executor.TestCompileAll"),
     TestEntry("uk.ac.manchester.tornado.unittests.grid.TestGrid"),
     TestEntry("uk.ac.manchester.tornado.unittests.grid.TestGridScheduler"),
     TestEntry("uk.ac.manchester.tornado.unittests.kernelcontext.api.TestCombinedTaskGraph"),
@@ -95,6 +100,7 @@ __TEST_THE_WORLD__ = [
     TestEntry("uk.ac.manchester.tornado.unittests.kernelcontext.reductions.TestReductionsLongKernelContext"),
     TestEntry("uk.ac.manchester.tornado.unittests.math.TestMath"),
     TestEntry("uk.ac.manchester.tornado.unittests.batches.TestBatches"),
+    TestEntry("uk.ac.manchester.tornado.unittests.batches.TestBatchPipelineSchedule"),
     TestEntry("uk.ac.manchester.tornado.unittests.lambdas.TestLambdas"),
     TestEntry("uk.ac.manchester.tornado.unittests.flatmap.TestFlatMap"),
     TestEntry("uk.ac.manchester.tornado.unittests.logic.TestLogic"),
@@ -107,24 +113,52 @@ __TEST_THE_WORLD__ = [
     TestEntry("uk.ac.manchester.tornado.unittests.arrays.TestNewArrays"),
     TestEntry("uk.ac.manchester.tornado.unittests.dynsize.Resize"),
     TestEntry("uk.ac.manchester.tornado.unittests.loops.TestLoopTransformations"),
+    TestEntry("uk.ac.manchester.tornado.unittests.loops.TestArrayDependenceAnalysis"),
     TestEntry("uk.ac.manchester.tornado.unittests.numpromotion.TestNumericPromotion"),
     TestEntry("uk.ac.manchester.tornado.unittests.numpromotion.Types"),
     TestEntry("uk.ac.manchester.tornado.unittests.numpromotion.Inlining"),
     TestEntry("uk.ac.manchester.tornado.unittests.fails.CodeFail"),
     TestEntry("uk.ac.manchester.tornado.unittests.parameters.ParameterTests"),
     TestEntry("uk.ac.manchester.tornado.unittests.codegen.CodeGen"),
+    TestEntry("uk.ac.manchester.tornado.unittests.codegen.TestPersistentKernelCache"),
     TestEntry("uk.ac.manchester.tornado.unittests.atomics.TestAtomics"),
+    TestEntry("uk.ac.manchester.tornado.unittests.atomics.TestAtomicArrays"),
     TestEntry("uk.ac.manchester.tornado.unittests.compute.ComputeTests"),
     TestEntry("uk.ac.manchester.tornado.unittests.dynamic.TestDynamic"),
+    TestEntry("uk.ac.manchester.tornado.unittests.dynamic.TestAdaptivePolicy"),
+    TestEntry("uk.ac.manchester.tornado.unittests.dynamic.TestExecutionHistory"),
+    TestEntry("uk.ac.manchester.tornado.unittests.dynamic.TestReconfigurationTargets"),
     TestEntry("uk.ac.manchester.tornado.unittests.tasks.TestMultipleFunctions"),
     TestEntry("uk.ac.manchester.tornado.unittests.tasks.TestMultipleTasksMultipleDevices"),
+    TestEntry("uk.ac.manchester.tornado.unittests.tasks.TestDataParallelSplit"),
+    TestEntry("uk.ac.manchester.tornado.unittests.tasks.TestDevicePartition"),
+    TestEntry("uk.ac.manchester.tornado.unittests.tasks.TestParallelJavaFallback"),
+    TestEntry("uk.ac.manchester.tornado.unittests.tasks.TestTaskFusion"),
     TestEntry("uk.ac.manchester.tornado.unittests.vm.concurrency.TestConcurrentBackends"),
+    TestEntry("uk.ac.manchester.tornado.unittests.memory.TestBufferProvider"),
+    TestEntry("uk.ac.manchester.tornado.unittests.memory.TestObjectSerialiser"),
+    TestEntry("uk.ac.manchester.tornado.unittests.memory.TestKernelArgumentCache"),
+    TestEntry("uk.ac.manchester.tornado.unittests.memory.TestGlobalObjectStateTable"),
+    TestEntry("uk.ac.manchester.tornado.unittests.benchmarks.TestBenchmarkStatistics"),
 
     ## Test for function calls - We force not to inline methods
     TestEntry(testName="uk.ac.manchester.tornado.unittests.tasks.TestMultipleFunctions",
               testParameters=[
                   "-XX:CompileCommand=dontinline,uk/ac/manchester/tornado/unittests/tasks/TestMultipleFunctions.*"]),
 
+    ## Tests for the auto-paralleliser on sequential kernels
+    TestEntry(testName="uk.ac.manchester.tornado.unittests.loops.TestArrayDependenceAnalysis",
+              testMethods=["testAutoParalleliseLessEqual",
+                           "testAutoParalleliseLessEqualConstant",
+                           "testAutoParalleliseNotEqual",
+                           "testAutoParalleliseReverse",
+                           "testAutoParalleliseShiftedSubscripts",
+                           "testAutoParalleliseMatrixMultiplication",
+                           "testAutoParalleliseRejectsPrefixSum",
+                           "testAutoParalleliseRejectsAntiDependence",
+                           "testAutoParalleliseRejectsReduction"],
+              testParameters=["-Dtornado.parallelise.auto=True", "-Dtornado.recover.bailout=False"]),
+
     ## Tests for Virtual Devices
     TestEntry(testName="uk.ac.manchester.tornado.unittests.virtual.TestVirtualDeviceKernel",
               testMethods=["testVirtualDeviceKernelGPU"],
@@ -138,6 +172,13 @@ __TEST_THE_WORLD__ = [
                   "-Dtornado.device.desc=" + os.environ["TORNADO_SDK"] + "/examples/virtual-device-CPU.json",
                   "-Dtornado.print.kernel=True", "-Dtornado.virtual.device=True",
                   "-Dtornado.print.kernel.dir=" + os.environ["TORNADO_SDK"] + "/virtualKernelOut.out"]),
+    TestEntry(testName="uk.ac.manchester.tornado.unittests.virtual.TestVirtualDevicePartialUnroll",
+              testMethods=["testVirtualDevicePartialUnrollGPU"],
+              testParameters=[
+                  "-Dtornado.device.desc=" + os.environ["TORNADO_SDK"] + "/examples/virtual-device-GPU.json",
+                  "-Dtornado.print.kernel=True", "-Dtornado.virtual.device=True",
+                  "-Dtornado.experimental.partial.unroll=True", "-Dtornado.unroll.factor=4",
+                  "-Dtornado.print.kernel.dir=" + os.environ["TORNADO_SDK"] + "/virtualKernelOut.out"]),
     TestEntry(testName="uk.ac.manchester.tornado.unittests.virtual.TestVirtualDeviceFeatureExtraction",
               testMethods=["testVirtualDeviceFeaturesGPU"],
               testParameters=[
@@ -149,7 +190,32 @@ __TEST_THE_WORLD__ = [
               testParameters=[
                   "-Dtornado.device.desc=" + os.environ["TORNADO_SDK"] + "/examples/virtual-device-CPU.json",
                   "-Dtornado.virtual.device=True", "-Dtornado.feature.extraction=True",
-                  "-Dtornado.features.dump.dir=" + os.environ["TORNADO_SDK"] + "/virtualFeaturesOut.out"])
+                  "-Dtornado.features.dump.dir=" + os.environ["TORNADO_SDK"] + "/virtualFeaturesOut.out"]),
+    TestEntry(testName="uk.ac.manchester.tornado.unittests.virtual.TestVirtualDeviceDataParallelSplit",
+              testMethods=["testVirtualDeviceDataParallelSplit"],
+              testParameters=[
+                  "-Dtornado.device.desc=" + os.environ["TORNADO_SDK"] + "/examples/virtual-device-GPU.json," + os.environ["TORNADO_SDK"] + "/examples/virtual-device-CPU.json",
+                  "-Dtornado.print.kernel=True", "-Dtornado.virtual.device=True",
+                  "-Dtornado.print.kernel.dir=" + os.environ["TORNADO_SDK"] + "/virtualKernelOut.out"]),
+    TestEntry(testName="uk.ac.manchester.tornado.unittests.virtual.TestVirtualDeviceDataParallelSplit",
+              testMethods=["testVirtualDeviceDataParallelSplitHalo"],
+              testParameters=[
+                  "-Dtornado.device.desc=" + os.environ["TORNADO_SDK"] + "/examples/virtual-device-GPU.json," + os.environ["TORNADO_SDK"] + "/examples/virtual-device-CPU.json",
+                  "-Dtornado.print.kernel=True", "-Dtornado.virtual.device=True",
+                  "-Dtornado.print.kernel.dir=" + os.environ["TORNADO_SDK"] + "/virtualKernelOut.out"]),
+    TestEntry(testName="uk.ac.manchester.tornado.unittests.virtual.TestVirtualDeviceTaskFusion",
+              testMethods=["testVirtualDeviceTaskFusion"],
+              testParameters=[
+                  "-Dtornado.device.desc=" + os.environ["TORNADO_SDK"] + "/examples/virtual-device-GPU.json",
+                  "-Dtornado.print.kernel=True", "-Dtornado.virtual.device=True",
+                  "-Dtornado.experimental.fusion=True",
+                  "-Dtornado.print.kernel.dir=" + os.environ["TORNADO_SDK"] + "/virtualKernelOut.out"]),
+    TestEntry(testName="uk.ac.manchester.tornado.unittests.virtual.TestVirtualDeviceAtomics",
+              testMethods=["testVirtualDeviceAtomics"],
+              testParameters=[
+                  "-Dtornado.device.desc=" + os.environ["TORNADO_SDK"] + "/examples/virtual-device-GPU.json",
+                  "-Dtornado.print.kernel=True", "-Dtornado.virtual.device=True",
+                  "-Dtornado.print.kernel.dir=" + os.environ["TORNADO_SDK"] + "/virtualKernelOut.out"])
 ]
 
 ## List of tests that can be ignored. The following either fail (we know it is a precision error), or they are not supported
@@ -164,8 +230,13 @@ __TORNADO_TESTS_WHITE_LIST__ = [
     ## Virtual devices are only available for OpenCL. 
     "uk.ac.manchester.tornado.unittests.virtual.TestVirtualDeviceKernel#testVirtualDeviceKernelGPU",
     "uk.ac.manchester.tornado.unittests.virtual.TestVirtualDeviceKernel#testVirtualDeviceKernelCPU",
+    "uk.ac.manchester.tornado.unittests.virtual.TestVirtualDevicePartialUnroll#testVirtualDevicePartialUnrollGPU",
     "uk.ac.manchester.tornado.unittests.virtual.TestVirtualDeviceFeatureExtraction#testVirtualDeviceFeaturesCPU",
     "uk.ac.manchester.tornado.unittests.virtual.TestVirtualDeviceFeatureExtraction#testVirtualDeviceFeaturesGPU",
+    "uk.ac.manchester.tornado.unittests.virtual.TestVirtualDeviceDataParallelSplit#testVirtualDeviceDataParallelSplit",
+    "uk.ac.manchester.tornado.unittests.virtual.TestVirtualDeviceDataParallelSplit#testVirtualDeviceDataParallelSplitHalo",
+    "uk.ac.manchester.tornado.unittests.virtual.TestVirtualDeviceTaskFusion#testVirtualDeviceTaskFusion",
+    "uk.ac.manchester.tornado.unittests.virtual.TestVirtualDeviceAtomics#testVirtualDeviceAtomics",
 
     ## Atomics are only available for OpenCL
     "uk.ac.manchester.tornado.unittests.atomics.TestAtomics#testAtomic12",
@@ -1,7 +1,9 @@
 module tornado.benchmarks {
     requires org.apache.commons.lang3;
     requires java.logging;
+    requires jdk.management;
     requires jmh.core;
+    requires tornado.drivers.common;
 
     requires transitive tornado.api;
     requires transitive tornado.matrices;
@@ -24,6 +26,7 @@ module tornado.benchmarks {
     exports uk.ac.manchester.tornado.benchmarks.rotateimage;
     exports uk.ac.manchester.tornado.benchmarks.rotatevector;
     exports uk.ac.manchester.tornado.benchmarks.saxpy;
+    exports uk.ac.manchester.tornado.benchmarks.serialiser;
     exports uk.ac.manchester.tornado.benchmarks.sgemm;
     exports uk.ac.manchester.tornado.benchmarks.sgemv;
     exports uk.ac.manchester.tornado.benchmarks.spmv;
@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2023, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.benchmarks;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Comparison of benchmark results against a baseline. A result is a
+ * regression when its mean time is slower than the baseline by more than a
+ * relative threshold, and the difference is statistically significant under a
+ * one-sided Welch's t-test. The host-side allocations per iteration are also
+ * compared with the same threshold.
+ *
+ * <p>
+ * Results are matched by benchmark configuration, variant and device. Thus, a
+ * baseline that was recorded without GPUs (Java variants and the virtual
+ * device) gates the host-side overhead.
+ * </p>
+ */
+public class BenchmarkComparison {
+
+    /**
+     * Allocations below this difference (in bytes per iteration) are noise.
+     */
+    private static final double MIN_ALLOCATION_DIFFERENCE = 1024;
+
+    private final double threshold;
+    private final double significance;
+
+    /**
+     * @param threshold
+     *            Relative slowdown that is tolerated (e.g., 0.05 for 5%).
+     * @param significance
+     *            Significance level of the t-test (e.g., 0.01).
+     */
+    public BenchmarkComparison(double threshold, double significance) {
+        this.threshold = threshold;
+        this.significance = significance;
+    }
+
+    /**
+     * It compares each current result with the baseline result of the same key.
+     * Results without a baseline are ignored.
+     *
+     * @return A description of each regression. The list is empty if there is
+     *         none.
+     */
+    public List<String> compare(List<BenchmarkResult> baseline, List<BenchmarkResult> current) {
+        Map<String, BenchmarkResult> baselineByKey = new LinkedHashMap<>();
+        for (BenchmarkResult result : baseline) {
+            baselineByKey.put(result.getKey(), result);
+        }
+
+        List<String> regressions = new ArrayList<>();
+        for (BenchmarkResult result : current) {
+            BenchmarkResult reference = baselineByKey.get(result.getKey());
+            if (reference == null) {
+                continue;
+            }
+
+            double slowdown = result.getMean() / reference.getMean() - 1;
+            double pValue = welchTTest(reference, result);
+            if (slowdown > threshold && pValue < significance) {
+                regressions.add(String.format("bm=%s, time: baseline=%6e, current=%6e, slowdown=%.2f%%, p=%.2e", //
+                        result.getKey(), reference.getMean(), result.getMean(), slowdown * 100, pValue));
+            }
+
+            double referenceAllocation = reference.getDouble("allocatedBytesPerIteration");
+            double allocation = result.getDouble("allocatedBytesPerIteration");
+            if (referenceAllocation >= 0 && allocation >= 0 && allocation - referenceAllocation > MIN_ALLOCATION_DIFFERENCE
+                    && allocation > referenceAllocation * (1 + threshold)) {
+                regressions.add(String.format("bm=%s, allocation: baseline=%.0f bytes/iteration, current=%.0f bytes/iteration", //
+                        result.getKey(), referenceAllocation, allocation));
+            }
+        }
+        return regressions;
+    }
+
+    /**
+     * One-sided Welch's t-test for the hypothesis that the current mean is
+     * greater than the baseline mean.
+     *
+     * @return The p-value.
+     */
+    public static double welchTTest(BenchmarkResult baseline, BenchmarkResult current) {
+        final int n0 = baseline.getSamples();
+        final int n1 = current.getSamples();
+        if (n0 < 2 || n1 < 2) {
+            return 1.0;
+        }
+        final double v0 = baseline.getVariance() / n0;
+        final double v1 = current.getVariance() / n1;
+        final double difference = current.getMean() - baseline.getMean();
+        if (v0 + v1 == 0) {
+            return (difference > 0) ? 0.0 : 1.0;
+        }
+
+        final double t = difference / Math.sqrt(v0 + v1);
+        final double df = (v0 + v1) * (v0 + v1) / (v0 * v0 / (n0 - 1) + v1 * v1 / (n1 - 1));
+        // Tail probability of the Student's t distribution: P(T > t)
+        final double tail = 0.5 * regularizedIncompleteBeta(df / (df + t * t), df / 2, 0.5);
+        return (t > 0) ? tail : 1 - tail;
+    }
+
+    private static double logGamma(double x) {
+        // Lanczos approximation
+        final double[] coefficients = { 76.18009172947146, -86.50532032941677, 24.01409824083091, -1.231739572450155, 0.1208650973866179e-2, -0.5395239384953e-5 };
+        double y = x;
+        double tmp = x + 5.5;
+        tmp -= (x + 0.5) * Math.log(tmp);
+        double series = 1.000000000190015;
+        for (double coefficient : coefficients) {
+            series += coefficient / ++y;
+        }
+        return -tmp + Math.log(2.5066282746310005 * series / x);
+    }
+
+    /**
+     * Regularized incomplete beta function I_x(a, b).
+     */
+    public static double regularizedIncompleteBeta(double x, double a, double b) {
+        if (x <= 0) {
+            return 0;
+        } else if (x >= 1) {
+            return 1;
+        }
+        final double front = Math.exp(logGamma(a + b) - logGamma(a) - logGamma(b) + a * Math.log(x) + b * Math.log(1 - x));
+        if (x < (a + 1) / (a + b + 2)) {
+            return front * betaContinuedFraction(x, a, b) / a;
+        } else {
+            return 1 - front * betaContinuedFraction(1 - x, b, a) / b;
+        }
+    }
+
+    /**
+     * Continued fraction of the incomplete beta function, evaluated with the
+     * modified Lentz's method.
+     */
+    private static double betaContinuedFraction(double x, double a, double b) {
+        final int maxIterations = 300;
+        final double epsilon = 1e-14;
+        final double tiny = 1e-300;
+
+        double c = 1;
+        double d = 1 - (a + b) * x / (a + 1);
+        d = (Math.abs(d) < tiny) ? 1 / tiny : 1 / d;
+        double h = d;
+        for (int m = 1; m <= maxIterations; m++) {
+            int m2 = 2 * m;
+            double numerator = m * (b - m) * x / ((a + m2 - 1) * (a + m2));
+            d = 1 + numerator * d;
+            d = (Math.abs(d) < tiny) ? 1 / tiny : 1 / d;
+            c = 1 + numerator / c;
+            c = (Math.abs(c) < tiny) ? tiny : c;
+            h *= d * c;
+
+            numerator = -(a + m) * (a + b + m) * x / ((a + m2) * (a + m2 + 1));
+            d = 1 + numerator * d;
+            d = (Math.abs(d) < tiny) ? 1 / tiny : 1 / d;
+            c = 1 + numerator / c;
+            c = (Math.abs(c) < tiny) ? tiny : c;
+            double delta = d * c;
+            h *= delta;
+            if (Math.abs(delta - 1) < epsilon) {
+                break;
+            }
+        }
+        return h;
+    }
+}
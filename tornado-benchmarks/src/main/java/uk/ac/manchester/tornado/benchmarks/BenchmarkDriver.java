@@ -21,7 +21,10 @@ import static java.lang.Math.toIntExact;
 import static java.util.Arrays.sort;
 import static uk.ac.manchester.tornado.api.utils.TornadoUtilities.humanReadableByteCount;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import uk.ac.manchester.tornado.api.ImmutableTaskGraph;
@@ -49,6 +52,8 @@ public abstract class BenchmarkDriver {
     private List<Long> deviceCopyIn;
     private List<Long> deviceCopyOut;
 
+    private long allocatedBytes = -1;
+
     private int startingIndex = 30;
 
     protected TaskGraph taskGraph;
@@ -118,6 +123,7 @@ public abstract class BenchmarkDriver {
         }
 
         if (validResult) {
+            final long allocatedBefore = getAllocatedBytes();
             for (long i = 0; i < iterations; i++) {
                 if (!skipGC()) {
                     System.gc();
@@ -142,11 +148,30 @@ public abstract class BenchmarkDriver {
 
                 timers[toIntExact(i)] = (end - start);
             }
+            final long allocatedAfter = getAllocatedBytes();
+            if (allocatedBefore >= 0 && allocatedAfter >= 0) {
+                allocatedBytes = allocatedAfter - allocatedBefore;
+            }
             barrier();
         }
         tearDown();
     }
 
+    /**
+     * Bytes allocated on the Java heap by the current thread, or -1 if the JVM
+     * cannot measure it.
+     */
+    private static long getAllocatedBytes() {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean allocationMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+            if (allocationMXBean.isThreadAllocatedMemorySupported() && allocationMXBean.isThreadAllocatedMemoryEnabled()) {
+                return allocationMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
     public double getMin(double[] arr) {
         double minValue = arr[0];
         for (int i = 1; i < arr.length; i++) {
@@ -244,6 +269,108 @@ public abstract class BenchmarkDriver {
         return (getStdDev() / getAverage()) * 100;
     }
 
+    /**
+     * Timers of the iterations used for the statistics. As in
+     * {@link #getAverage()}, the first iterations are discarded as warm-up
+     * when there are enough of them.
+     */
+    private double[] getMeasuredTimers() {
+        int start = (timers.length <= startingIndex) ? 0 : startingIndex;
+        return Arrays.copyOfRange(timers, start, timers.length);
+    }
+
+    public int getNumSamples() {
+        return getMeasuredTimers().length;
+    }
+
+    /**
+     * Unbiased variance of the measured iterations.
+     */
+    public double getSampleVariance() {
+        return getSampleVariance(getMeasuredTimers());
+    }
+
+    /**
+     * Unbiased variance of a sample.
+     */
+    public double getSampleVariance(double[] arr) {
+        if (arr.length < 2) {
+            return 0;
+        }
+        double mean = Arrays.stream(arr).average().orElse(0);
+        double sum = 0;
+        for (double sample : arr) {
+            sum += (sample - mean) * (sample - mean);
+        }
+        return sum / (arr.length - 1);
+    }
+
+    /**
+     * Percentile of the measured iterations, with linear interpolation between
+     * the closest ranks.
+     *
+     * @param percentile
+     *            Value between 0 and 100.
+     */
+    public double getPercentile(double percentile) {
+        return getPercentile(getMeasuredTimers(), percentile);
+    }
+
+    /**
+     * Percentile of a sample, with linear interpolation between the closest
+     * ranks.
+     *
+     * @param percentile
+     *            Value between 0 and 100.
+     */
+    public double getPercentile(double[] arr, double percentile) {
+        double[] samples = arr.clone();
+        sort(samples);
+        double rank = (percentile / 100.0) * (samples.length - 1);
+        int lower = (int) Math.floor(rank);
+        int upper = (int) Math.ceil(rank);
+        return samples[lower] + (rank - lower) * (samples[upper] - samples[lower]);
+    }
+
+    public double getWorstExecution() {
+        return getPercentile(100);
+    }
+
+    public boolean hasKernelTimers() {
+        return deviceKernelTimers != null && !deviceKernelTimers.isEmpty();
+    }
+
+    public boolean hasCopyInTimers() {
+        return deviceCopyIn != null && !deviceCopyIn.isEmpty();
+    }
+
+    public boolean hasCopyOutTimers() {
+        return deviceCopyOut != null && !deviceCopyOut.isEmpty();
+    }
+
+    /**
+     * Bytes allocated on the Java heap by the benchmark thread per iteration, or
+     * -1 if the JVM cannot measure it.
+     */
+    public double getAllocatedBytesPerIteration() {
+        return (allocatedBytes < 0) ? -1 : (double) allocatedBytes / iterations;
+    }
+
+    /**
+     * Host-side allocation rate during the timed iterations, in bytes per
+     * second, or -1 if the JVM cannot measure it.
+     */
+    public double getAllocationRate() {
+        if (allocatedBytes < 0) {
+            return -1;
+        }
+        double totalTime = 0;
+        for (double timer : timers) {
+            totalTime += timer;
+        }
+        return (totalTime == 0) ? 0 : allocatedBytes / (totalTime * 1e-9);
+    }
+
     public double getElapsed() {
         return elapsed;
     }
@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2023, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.benchmarks;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Statistics of one benchmark, for one variant (Java reference, Java streams or
+ * TornadoVM) and one device. Times are in nanoseconds. Values that were not
+ * measured, such as the kernel time without the profiler, are -1.
+ *
+ * <p>
+ * A result is stored as one CSV line or as one JSON object per line, so
+ * results of several runs can be appended to the same file.
+ * </p>
+ */
+public class BenchmarkResult {
+
+    public static final String JAVA_REFERENCE = "java-reference";
+    public static final String JAVA_STREAMS = "java-streams";
+    public static final String TORNADO = "tornado";
+
+    static final String[] COLUMNS = { "benchmark", "id", "config", "variant", "device", "deviceName", //
+            "samples", "mean", "stdDev", "min", "median", "p90", "p95", "p99", "max", "firstIteration", //
+            "kernelAvg", "copyInAvg", "copyOutAvg", "allocatedBytesPerIteration", "allocationRate" };
+
+    private static final int NUM_TEXT_COLUMNS = 6;
+
+    private static final Pattern JSON_FIELD = Pattern.compile("\"(\\w+)\"\\s*:\\s*(\"((?:[^\"\\\\]|\\\\.)*)\"|[^,}\\s]+)");
+
+    private final Map<String, String> values;
+
+    private BenchmarkResult(Map<String, String> values) {
+        this.values = values;
+    }
+
+    public BenchmarkResult(String benchmark, String id, String config, String variant, String device, String deviceName, BenchmarkDriver driver) {
+        values = new LinkedHashMap<>();
+        values.put("benchmark", benchmark);
+        values.put("id", id);
+        values.put("config", config);
+        values.put("variant", variant);
+        values.put("device", device);
+        values.put("deviceName", deviceName);
+        values.put("samples", Integer.toString(driver.getNumSamples()));
+        putNumber("mean", driver.getAverage());
+        putNumber("stdDev", Math.sqrt(driver.getSampleVariance()));
+        putNumber("min", driver.getBestExecution());
+        putNumber("median", driver.getMedian());
+        putNumber("p90", driver.getPercentile(90));
+        putNumber("p95", driver.getPercentile(95));
+        putNumber("p99", driver.getPercentile(99));
+        putNumber("max", driver.getWorstExecution());
+        putNumber("firstIteration", driver.getFirstIteration());
+        putNumber("kernelAvg", driver.hasKernelTimers() ? driver.getAverageKernelTime() : -1);
+        putNumber("copyInAvg", driver.hasCopyInTimers() ? driver.getAverageCopyInTime() : -1);
+        putNumber("copyOutAvg", driver.hasCopyOutTimers() ? driver.getAverageCopyOutTime() : -1);
+        putNumber("allocatedBytesPerIteration", driver.getAllocatedBytesPerIteration());
+        putNumber("allocationRate", driver.getAllocationRate());
+    }
+
+    private void putNumber(String key, double value) {
+        values.put(key, String.format(Locale.ROOT, "%.6e", value));
+    }
+
+    /**
+     * Key that identifies the same measurement across runs: benchmark
+     * configuration, variant and device.
+     */
+    public String getKey() {
+        return String.format("%s/%s/%s", getString("id"), getString("variant"), getString("device"));
+    }
+
+    public String getString(String column) {
+        return values.get(column);
+    }
+
+    public double getDouble(String column) {
+        String value = values.get(column);
+        return (value == null || value.isEmpty()) ? -1 : Double.parseDouble(value);
+    }
+
+    public double getMean() {
+        return getDouble("mean");
+    }
+
+    public double getVariance() {
+        double stdDev = getDouble("stdDev");
+        return stdDev * stdDev;
+    }
+
+    public int getSamples() {
+        return (int) getDouble("samples");
+    }
+
+    public static String getCSVHeader() {
+        return String.join(",", COLUMNS);
+    }
+
+    public String toCSV() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < COLUMNS.length; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            String value = values.get(COLUMNS[i]);
+            if (i < NUM_TEXT_COLUMNS) {
+                builder.append('"').append(value.replace("\"", "\"\"")).append('"');
+            } else {
+                builder.append(value);
+            }
+        }
+        return builder.toString();
+    }
+
+    public String toJSON() {
+        StringBuilder builder = new StringBuilder("{");
+        for (int i = 0; i < COLUMNS.length; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            String value = values.get(COLUMNS[i]);
+            builder.append('"').append(COLUMNS[i]).append("\": ");
+            if (i < NUM_TEXT_COLUMNS) {
+                builder.append('"').append(value.replace("\\", "\\\\").replace("\"", "\\\"")).append('"');
+            } else {
+                builder.append(value);
+            }
+        }
+        return builder.append('}').toString();
+    }
+
+    /**
+     * It parses a line written by {@link #toCSV()}.
+     */
+    public static BenchmarkResult fromCSV(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+
+        if (fields.size() != COLUMNS.length) {
+            throw new IllegalArgumentException("Malformed benchmark result: " + line);
+        }
+        Map<String, String> values = new LinkedHashMap<>();
+        for (int i = 0; i < COLUMNS.length; i++) {
+            values.put(COLUMNS[i], fields.get(i));
+        }
+        return new BenchmarkResult(values);
+    }
+
+    /**
+     * It parses a line written by {@link #toJSON()}.
+     */
+    public static BenchmarkResult fromJSON(String line) {
+        Map<String, String> values = new LinkedHashMap<>();
+        Matcher matcher = JSON_FIELD.matcher(line);
+        while (matcher.find()) {
+            String value = (matcher.group(3) != null) ? matcher.group(3).replaceAll("\\\\(.)", "$1") : matcher.group(2);
+            values.put(matcher.group(1), value);
+        }
+        if (!values.containsKey("id") || !values.containsKey("mean")) {
+            throw new IllegalArgumentException("Malformed benchmark result: " + line);
+        }
+        return new BenchmarkResult(values);
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2023, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.benchmarks;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Files with {@link BenchmarkResult}s. The format is given by the file
+ * extension: CSV for {@code .csv} files, and one JSON object per line
+ * otherwise.
+ */
+public final class BenchmarkResultsFile {
+
+    private BenchmarkResultsFile() {
+    }
+
+    private static boolean isCSV(Path path) {
+        return path.getFileName().toString().toLowerCase().endsWith(".csv");
+    }
+
+    /**
+     * It appends a result to the file. The CSV header is written when the file
+     * is created.
+     */
+    public static synchronized void append(String fileName, BenchmarkResult result) {
+        Path path = Paths.get(fileName);
+        List<String> lines = new ArrayList<>();
+        try {
+            if (isCSV(path)) {
+                if (!Files.exists(path) || Files.size(path) == 0) {
+                    lines.add(BenchmarkResult.getCSVHeader());
+                }
+                lines.add(result.toCSV());
+            } else {
+                lines.add(result.toJSON());
+            }
+            Files.write(path, lines, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to write benchmark results to " + fileName, e);
+        }
+    }
+
+    public static List<BenchmarkResult> read(String fileName) {
+        Path path = Paths.get(fileName);
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read benchmark results from " + fileName, e);
+        }
+        if (lines.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        final boolean csv = isCSV(path);
+        List<BenchmarkResult> results = new ArrayList<>();
+        for (String line : lines) {
+            line = line.trim();
+            if (line.isEmpty() || (csv && line.equals(BenchmarkResult.getCSVHeader()))) {
+                continue;
+            }
+            results.add(csv ? BenchmarkResult.fromCSV(line) : BenchmarkResult.fromJSON(line));
+        }
+        return results;
+    }
+}
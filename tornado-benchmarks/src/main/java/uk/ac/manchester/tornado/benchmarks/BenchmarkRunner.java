@@ -20,6 +20,7 @@ package uk.ac.manchester.tornado.benchmarks;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -37,6 +38,16 @@ public abstract class BenchmarkRunner {
 
     private static final boolean TORNADO_PROFILER = TornadoRuntime.isProfilerEnabled();
 
+    /**
+     * File to append the results to: CSV for {@code .csv} files, and one JSON
+     * object per line otherwise.
+     */
+    private static final String RESULTS_FILE = System.getProperty("tornado.benchmarks.results");
+
+    private static final double REGRESSION_THRESHOLD = Double.parseDouble(System.getProperty("tornado.benchmarks.regression.threshold", "0.05"));
+
+    private static final double REGRESSION_SIGNIFICANCE = Double.parseDouble(System.getProperty("tornado.benchmarks.regression.significance", "0.01"));
+
     protected abstract String getName();
 
     protected abstract String getIdString();
@@ -65,7 +76,8 @@ public abstract class BenchmarkRunner {
             final BenchmarkDriver referenceTest = getJavaDriver();
             referenceTest.benchmark(null, false);
 
-            System.out.printf("bm=%-15s, id=%-20s, %s\n", id, "java-reference", referenceTest.getPreciseSummary());
+            System.out.printf("bm=%-15s, id=%-20s, %s\n", id, BenchmarkResult.JAVA_REFERENCE, referenceTest.getPreciseSummary());
+            saveResult(BenchmarkResult.JAVA_REFERENCE, "java", "java", referenceTest);
 
             refElapsed = referenceTest.getAverage();
             refElapsedMedian = referenceTest.getMedian();
@@ -74,7 +86,8 @@ public abstract class BenchmarkRunner {
             final BenchmarkDriver streamsTest = getStreamsDriver();
             if (streamsTest != null && !SKIP_STREAMS) {
                 streamsTest.benchmark(null, false);
-                System.out.printf("bm=%-15s, id=%-20s, %s\n", id, "java-streams", streamsTest.getSummary());
+                System.out.printf("bm=%-15s, id=%-20s, %s\n", id, BenchmarkResult.JAVA_STREAMS, streamsTest.getSummary());
+                saveResult(BenchmarkResult.JAVA_STREAMS, "java", "java", streamsTest);
             }
         } else {
             refElapsed = -1;
@@ -120,6 +133,7 @@ public abstract class BenchmarkRunner {
                 boolean isProfilerEnabled = TORNADO_PROFILER;
                 try {
                     benchmarkDriver.benchmark(tornadoDevice, isProfilerEnabled);
+                    saveResult(BenchmarkResult.TORNADO, driverIndex + ":" + deviceIndex, tornadoDevice.getDeviceName(), benchmarkDriver);
                 } catch (Exception e) {
                     e.printStackTrace();
                 }
@@ -162,6 +176,7 @@ public abstract class BenchmarkRunner {
             final TornadoDriver driver = TornadoRuntime.getTornadoRuntime().getDriver(driverIndex);
             final TornadoDevice tornadoDevice = driver.getDevice(deviceIndex);
             deviceTest.benchmark(tornadoDevice, TORNADO_PROFILER);
+            saveResult(BenchmarkResult.TORNADO, driverIndex + ":" + deviceIndex, tornadoDevice.getDeviceName(), deviceTest);
 
             System.out.printf("bm=%-15s, device=%-5s, %s, speedupAvg=%.4f, speedupMedian=%.4f, speedupFirstIteration=%.4f, CV=%.4f, deviceName=%s\n", id, driverIndex + ":" + deviceIndex,
                     deviceTest.getPreciseSummary(), refElapsed / deviceTest.getAverage(), refElapsedMedian / deviceTest.getMedian(), refFirstIteration / deviceTest.getFirstIteration(),
@@ -169,8 +184,32 @@ public abstract class BenchmarkRunner {
         }
     }
 
+    private void saveResult(String variant, String device, String deviceName, BenchmarkDriver benchmarkDriver) {
+        if (RESULTS_FILE != null && benchmarkDriver.isValid()) {
+            BenchmarkResultsFile.append(RESULTS_FILE, new BenchmarkResult(getName(), getIdString(), getConfigString(), variant, device, deviceName, benchmarkDriver));
+        }
+    }
+
     public abstract void parseArgs(String[] args);
 
+    /**
+     * It compares two result files and prints the regressions.
+     *
+     * @return The exit status of {@code --compare}: 1 if there are regressions,
+     *         and 0 otherwise.
+     */
+    public static int compareResults(String baselineFile, String currentFile) {
+        List<BenchmarkResult> baseline = BenchmarkResultsFile.read(baselineFile);
+        List<BenchmarkResult> current = BenchmarkResultsFile.read(currentFile);
+        List<String> regressions = new BenchmarkComparison(REGRESSION_THRESHOLD, REGRESSION_SIGNIFICANCE).compare(baseline, current);
+        for (String regression : regressions) {
+            System.out.println("[REGRESSION] " + regression);
+        }
+        System.out.printf("Compared %d results against %s: %d regressions (threshold=%.2f%%, significance=%.3f)\n", current.size(), baselineFile, regressions.size(), REGRESSION_THRESHOLD * 100,
+                REGRESSION_SIGNIFICANCE);
+        return regressions.isEmpty() ? 0 : 1;
+    }
+
     public static void main(String[] args) {
 
         if (args.length < 1) {
@@ -179,6 +218,14 @@ public abstract class BenchmarkRunner {
             System.exit(0);
         }
 
+        if (args[0].equals("--compare")) {
+            if (args.length != 3) {
+                System.out.println("[ERROR] Usage: $ tornado uk.ac.manchester.tornado.benchmarks.BenchmarkRunner --compare <baseline> <results>");
+                System.exit(1);
+            }
+            System.exit(compareResults(args[1], args[2]));
+        }
+
         try {
             final String canonicalName = String.format("%s.%s.Benchmark", BenchmarkRunner.class.getPackage().getName(), args[0]);
             final BenchmarkRunner benchmarkRunner = (BenchmarkRunner) Class.forName(canonicalName).newInstance();
@@ -18,6 +18,7 @@
 package uk.ac.manchester.tornado.benchmarks;
 
 import uk.ac.manchester.tornado.api.annotations.Parallel;
+import uk.ac.manchester.tornado.api.data.nativetypes.FloatArray;
 
 public class LinearAlgebraArrays {
 
@@ -27,6 +28,12 @@ public class LinearAlgebraArrays {
         }
     }
 
+    public static void saxpy(float alpha, FloatArray x, FloatArray y) {
+        for (@Parallel int i = 0; i < y.getSize(); i++) {
+            y.set(i, y.get(i) + alpha * x.get(i));
+        }
+    }
+
     public static void sgemv(int M, int N, float[] A, float[] X, float[] Y) {
         for (@Parallel int i = 0; i < M; i++) {
             float y0 = 0f;
@@ -50,6 +57,18 @@ public class LinearAlgebraArrays {
 
     }
 
+    public static void sgemm(final int M, final int N, final int K, final FloatArray A, final FloatArray B, final FloatArray C) {
+        for (@Parallel int i = 0; i < N; i++) {
+            for (@Parallel int j = 0; j < N; j++) {
+                float sum = 0.0f;
+                for (int k = 0; k < K; k++) {
+                    sum += A.get((i * N) + k) * B.get((k * N) + j);
+                }
+                C.set((i * N) + j, sum);
+            }
+        }
+    }
+
     public static void dgemm(final int M, final int N, final int K, final double A[], final double B[], final double C[]) {
         for (@Parallel int i = 0; i < N; i++) {
             for (@Parallel int j = 0; j < N; j++) {
@@ -74,4 +93,36 @@ public class LinearAlgebraArrays {
         }
     }
 
+    /**
+     * SpMV with a matrix in the ELLPACK format. Entries are stored in
+     * column-major order, so consecutive threads read consecutive entries.
+     */
+    public static void spmvEllpack(final float[] val, final int[] cols, final int[] rowLengths, final float[] vec, final int dim, final float[] out) {
+        for (@Parallel int i = 0; i < dim; i++) {
+            float t = 0.0f;
+            for (int k = 0; k < rowLengths[i]; k++) {
+                final int index = k * dim + i;
+                t += val[index] * vec[cols[index]];
+            }
+            out[i] = t;
+        }
+    }
+
+    /**
+     * SpMV with a matrix in the SELL-C-sigma format. Each thread processes one
+     * row of the sorted matrix and writes the result to its original row.
+     */
+    public static void spmvSellCSigma(final float[] val, final int[] cols, final int[] sliceOffsets, final int[] rowLengths, final int[] permutation, final float[] vec, final int dim,
+            final int chunkHeight, final float[] out) {
+        for (@Parallel int i = 0; i < dim; i++) {
+            final int base = sliceOffsets[i / chunkHeight] + (i % chunkHeight);
+            float t = 0.0f;
+            for (int k = 0; k < rowLengths[i]; k++) {
+                final int index = base + k * chunkHeight;
+                t += val[index] * vec[cols[index]];
+            }
+            out[permutation[i]] = t;
+        }
+    }
+
 }
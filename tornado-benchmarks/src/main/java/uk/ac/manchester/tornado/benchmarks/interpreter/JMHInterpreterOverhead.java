@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2023, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.benchmarks.interpreter;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import uk.ac.manchester.tornado.api.ImmutableTaskGraph;
+import uk.ac.manchester.tornado.api.TaskGraph;
+import uk.ac.manchester.tornado.api.TornadoExecutionPlan;
+import uk.ac.manchester.tornado.api.enums.DataTransferMode;
+import uk.ac.manchester.tornado.benchmarks.LinearAlgebraArrays;
+
+/**
+ * <p>
+ * Measures the host-side cost of one {@link TornadoExecutionPlan#execute()}
+ * for a task-graph with several small tasks. The benchmark is meant to be
+ * executed with the virtual OpenCL device, in which kernels are compiled but
+ * never dispatched. Thus, the measured time is the overhead of the TornadoVM
+ * interpreter and the execution plan.
+ * </p>
+ * <p>
+ * How to run in isolation?
+ * </p>
+ * <code>
+ *    tornado -jar tornado-benchmarks/target/jmhbenchmarks.jar uk.ac.manchester.tornado.benchmarks.interpreter.JMHInterpreterOverhead
+ * </code>
+ */
+public class JMHInterpreterOverhead {
+
+    private static final String VIRTUAL_DEVICE_FILE = System.getProperty("tornado.device.desc", "etc/virtual-device-template.json");
+
+    @State(Scope.Thread)
+    public static class BenchmarkSetup {
+
+        private int numElements = Integer.parseInt(System.getProperty("x", "1024"));
+        private int numTasks = Integer.parseInt(System.getProperty("tasks", "4"));
+        private float[] x;
+        private float[] y;
+        private final float alpha = 2f;
+
+        private TornadoExecutionPlan executor;
+
+        @Setup(Level.Trial)
+        public void doSetup() {
+            x = new float[numElements];
+            y = new float[numElements];
+
+            for (int i = 0; i < numElements; i++) {
+                x[i] = i;
+            }
+
+            TaskGraph taskGraph = new TaskGraph("benchmark") //
+                    .transferToDevice(DataTransferMode.EVERY_EXECUTION, x);
+            for (int i = 0; i < numTasks; i++) {
+                taskGraph.task("saxpy" + i, LinearAlgebraArrays::saxpy, alpha, x, y);
+            }
+            taskGraph.transferToHost(DataTransferMode.EVERY_EXECUTION, y);
+
+            ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
+            executor = new TornadoExecutionPlan(immutableTaskGraph);
+            executor.withWarmUp();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 2, time = 10, timeUnit = TimeUnit.SECONDS)
+    @Measurement(iterations = 5, time = 10, timeUnit = TimeUnit.SECONDS)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Fork(1)
+    public void interpreterExecute(BenchmarkSetup state, Blackhole blackhole) {
+        TornadoExecutionPlan executor = state.executor;
+        executor.execute();
+        blackhole.consume(executor);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder() //
+                .include(JMHInterpreterOverhead.class.getName() + ".*") //
+                .mode(Mode.AverageTime) //
+                .timeUnit(TimeUnit.NANOSECONDS) //
+                .warmupTime(TimeValue.seconds(10)) //
+                .warmupIterations(2) //
+                .measurementTime(TimeValue.seconds(10)) //
+                .measurementIterations(5) //
+                .jvmArgsAppend("-Dtornado.virtual.device=True", "-Dtornado.device.desc=" + VIRTUAL_DEVICE_FILE) //
+                .forks(1) //
+                .build();
+        new Runner(opt).run();
+    }
+}
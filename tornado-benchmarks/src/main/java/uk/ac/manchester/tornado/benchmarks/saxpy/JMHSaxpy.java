@@ -42,10 +42,14 @@ import org.openjdk.jmh.runner.options.TimeValue;
 import uk.ac.manchester.tornado.api.ImmutableTaskGraph;
 import uk.ac.manchester.tornado.api.TaskGraph;
 import uk.ac.manchester.tornado.api.TornadoExecutionPlan;
+import uk.ac.manchester.tornado.api.data.nativetypes.FloatArray;
 import uk.ac.manchester.tornado.api.enums.DataTransferMode;
 import uk.ac.manchester.tornado.benchmarks.LinearAlgebraArrays;
 
 /**
+ * <p>
+ * Saxpy with Java arrays and with off-heap {@link FloatArray}s.
+ * </p>
  * <p>
  * How to run in isolation?
  * </p>
@@ -60,9 +64,12 @@ public class JMHSaxpy {
         private int numElements = Integer.parseInt(System.getProperty("x", "16777216"));
         private float[] x;
         private float[] y;
+        private FloatArray xNative;
+        private FloatArray yNative;
         private final float alpha = 2f;
 
         private TornadoExecutionPlan executor;
+        private TornadoExecutionPlan executorNative;
 
         @Setup(Level.Trial)
         public void doSetup() {
@@ -81,6 +88,17 @@ public class JMHSaxpy {
             ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
             executor = new TornadoExecutionPlan(immutableTaskGraph);
             executor.withWarmUp();
+
+            xNative = FloatArray.fromArray(x);
+            yNative = new FloatArray(numElements);
+
+            TaskGraph taskGraphNative = new TaskGraph("benchmarkNative") //
+                    .transferToDevice(DataTransferMode.EVERY_EXECUTION, xNative) //
+                    .task("saxpy", LinearAlgebraArrays::saxpy, alpha, xNative, yNative) //
+                    .transferToHost(DataTransferMode.EVERY_EXECUTION, yNative);
+
+            executorNative = new TornadoExecutionPlan(taskGraphNative.snapshot());
+            executorNative.withWarmUp();
         }
     }
 
@@ -106,6 +124,28 @@ public class JMHSaxpy {
         blackhole.consume(executor);
     }
 
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 2, time = 60, timeUnit = TimeUnit.SECONDS)
+    @Measurement(iterations = 5, time = 30, timeUnit = TimeUnit.SECONDS)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Fork(1)
+    public void saxpyJavaNativeArray(BenchmarkSetup state) {
+        saxpy(state.alpha, state.xNative, state.yNative);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 2, time = 30, timeUnit = TimeUnit.SECONDS)
+    @Measurement(iterations = 5, time = 30, timeUnit = TimeUnit.SECONDS)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Fork(1)
+    public void saxpyTornadoNativeArray(BenchmarkSetup state, Blackhole blackhole) {
+        TornadoExecutionPlan executor = state.executorNative;
+        executor.execute();
+        blackhole.consume(executor);
+    }
+
     public static void main(String[] args) throws RunnerException {
         Options opt = new OptionsBuilder() //
                 .include(JMHSaxpy.class.getName() + ".*") //
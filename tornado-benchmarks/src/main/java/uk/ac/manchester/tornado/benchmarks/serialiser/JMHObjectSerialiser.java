@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2023, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.benchmarks.serialiser;
+
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import uk.ac.manchester.tornado.drivers.common.mm.ObjectSerialiser;
+import uk.ac.manchester.tornado.drivers.common.mm.PrimitiveSerialiser;
+
+/**
+ * <p>
+ * Serialisation of a small parameter object into the buffer that is copied to
+ * the device. It compares the reflective copy of each field, as the object
+ * wrappers used to do, with the {@link ObjectSerialiser}.
+ * </p>
+ * <p>
+ * How to run in isolation?
+ * </p>
+ * <code>
+ *    tornado -jar tornado-benchmarks/target/jmhbenchmarks.jar uk.ac.manchester.tornado.benchmarks.serialiser.JMHObjectSerialiser
+ * </code>
+ */
+public class JMHObjectSerialiser {
+
+    public static class Parameters {
+        private int width = 1920;
+        private int height = 1080;
+        private long seed = 42L;
+        private float alpha = 0.5f;
+        private float beta = 1.5f;
+        private double scale = 2.0;
+        private double offset = -1.0;
+        private short iterations = 16;
+    }
+
+    private static final String[] FIELD_NAMES = { "width", "height", "seed", "alpha", "beta", "scale", "offset", "iterations" };
+    private static final int HEADER_SIZE = 16;
+
+    @State(Scope.Thread)
+    public static class BenchmarkSetup {
+
+        private Parameters parameters;
+        private ByteBuffer buffer;
+        private int[] offsets;
+        private ObjectSerialiser serialiser;
+
+        @Setup(Level.Trial)
+        public void doSetup() throws NoSuchFieldException {
+            parameters = new Parameters();
+            buffer = ByteBuffer.allocate(HEADER_SIZE + 8 * FIELD_NAMES.length).order(ByteOrder.LITTLE_ENDIAN);
+
+            Field[] fields = new Field[FIELD_NAMES.length];
+            offsets = new int[FIELD_NAMES.length];
+            for (int i = 0; i < fields.length; i++) {
+                fields[i] = getField(FIELD_NAMES[i]);
+                offsets[i] = HEADER_SIZE + 8 * i;
+            }
+            serialiser = ObjectSerialiser.forClass(Parameters.class, fields, offsets);
+        }
+    }
+
+    private static Field getField(String name) throws NoSuchFieldException {
+        Field field = Parameters.class.getDeclaredField(name);
+        field.setAccessible(true);
+        return field;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 2, time = 10, timeUnit = TimeUnit.SECONDS)
+    @Measurement(iterations = 5, time = 10, timeUnit = TimeUnit.SECONDS)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Fork(1)
+    public void serialiseReflection(BenchmarkSetup state, Blackhole blackhole) throws NoSuchFieldException, IllegalAccessException {
+        ByteBuffer buffer = state.buffer;
+        buffer.rewind();
+        for (int i = 0; i < FIELD_NAMES.length; i++) {
+            // The field is looked up and read through reflection on every transfer
+            Field field = getField(FIELD_NAMES[i]);
+            buffer.position(state.offsets[i]);
+            PrimitiveSerialiser.put(buffer, field.get(state.parameters));
+        }
+        blackhole.consume(buffer);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 2, time = 10, timeUnit = TimeUnit.SECONDS)
+    @Measurement(iterations = 5, time = 10, timeUnit = TimeUnit.SECONDS)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Fork(1)
+    public void serialiseMethodHandles(BenchmarkSetup state, Blackhole blackhole) {
+        state.serialiser.serialise(state.buffer, state.parameters);
+        blackhole.consume(state.buffer);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 2, time = 10, timeUnit = TimeUnit.SECONDS)
+    @Measurement(iterations = 5, time = 10, timeUnit = TimeUnit.SECONDS)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Fork(1)
+    public void deserialiseReflection(BenchmarkSetup state, Blackhole blackhole) throws NoSuchFieldException, IllegalAccessException {
+        ByteBuffer buffer = state.buffer;
+        Parameters parameters = state.parameters;
+        for (int i = 0; i < FIELD_NAMES.length; i++) {
+            Field field = getField(FIELD_NAMES[i]);
+            int offset = state.offsets[i];
+            Class<?> type = field.getType();
+            if (type == int.class) {
+                field.setInt(parameters, buffer.getInt(offset));
+            } else if (type == long.class) {
+                field.setLong(parameters, buffer.getLong(offset));
+            } else if (type == float.class) {
+                field.setFloat(parameters, buffer.getFloat(offset));
+            } else if (type == double.class) {
+                field.setDouble(parameters, buffer.getDouble(offset));
+            } else if (type == short.class) {
+                field.setShort(parameters, buffer.getShort(offset));
+            }
+        }
+        blackhole.consume(parameters);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 2, time = 10, timeUnit = TimeUnit.SECONDS)
+    @Measurement(iterations = 5, time = 10, timeUnit = TimeUnit.SECONDS)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Fork(1)
+    public void deserialiseMethodHandles(BenchmarkSetup state, Blackhole blackhole) {
+        state.serialiser.deserialise(state.buffer, state.parameters);
+        blackhole.consume(state.parameters);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder() //
+                .include(JMHObjectSerialiser.class.getName() + ".*") //
+                .mode(Mode.AverageTime) //
+                .timeUnit(TimeUnit.NANOSECONDS) //
+                .warmupTime(TimeValue.seconds(10)) //
+                .warmupIterations(2) //
+                .measurementTime(TimeValue.seconds(10)) //
+                .measurementIterations(5) //
+                .forks(1) //
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -43,10 +43,14 @@ import org.openjdk.jmh.runner.options.TimeValue;
 import uk.ac.manchester.tornado.api.ImmutableTaskGraph;
 import uk.ac.manchester.tornado.api.TaskGraph;
 import uk.ac.manchester.tornado.api.TornadoExecutionPlan;
+import uk.ac.manchester.tornado.api.data.nativetypes.FloatArray;
 import uk.ac.manchester.tornado.api.enums.DataTransferMode;
 import uk.ac.manchester.tornado.benchmarks.LinearAlgebraArrays;
 
 /**
+ * <p>
+ * Sgemm with Java arrays and with off-heap {@link FloatArray}s.
+ * </p>
  * <p>
  * How to run in isolation?
  * </p>
@@ -63,7 +67,11 @@ public class JMHSgemm {
         private float[] a;
         private float[] b;
         private float[] c;
+        private FloatArray aNative;
+        private FloatArray bNative;
+        private FloatArray cNative;
         TornadoExecutionPlan executor;
+        TornadoExecutionPlan executorNative;
 
         @Setup(Level.Trial)
         public void doSetup() {
@@ -91,6 +99,18 @@ public class JMHSgemm {
             executor = new TornadoExecutionPlan(immutableTaskGraph);
             executor.withWarmUp();
 
+            aNative = FloatArray.fromArray(a);
+            bNative = FloatArray.fromArray(b);
+            cNative = new FloatArray((long) m * n);
+
+            TaskGraph taskGraphNative = new TaskGraph("benchmarkNative") //
+                    .transferToDevice(DataTransferMode.EVERY_EXECUTION, aNative, bNative) //
+                    .task("sgemm", LinearAlgebraArrays::sgemm, m, n, n, aNative, bNative, cNative) //
+                    .transferToHost(DataTransferMode.EVERY_EXECUTION, cNative);
+
+            executorNative = new TornadoExecutionPlan(taskGraphNative.snapshot());
+            executorNative.withWarmUp();
+
         }
     }
 
@@ -116,6 +136,28 @@ public class JMHSgemm {
         blackhole.consume(executor);
     }
 
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 2, time = 60, timeUnit = TimeUnit.SECONDS)
+    @Measurement(iterations = 5, time = 30, timeUnit = TimeUnit.SECONDS)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Fork(1)
+    public void sgemmJavaNativeArray(BenchmarkSetup state) {
+        sgemm(state.m, state.n, state.m, state.aNative, state.bNative, state.cNative);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 2, time = 30, timeUnit = TimeUnit.SECONDS)
+    @Measurement(iterations = 5, time = 30, timeUnit = TimeUnit.SECONDS)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Fork(1)
+    public void sgemmTornadoNativeArray(BenchmarkSetup state, Blackhole blackhole) {
+        TornadoExecutionPlan executor = state.executorNative;
+        executor.execute();
+        blackhole.consume(executor);
+    }
+
     public static void main(String[] args) throws RunnerException {
         Options opt = new OptionsBuilder() //
                 .include(JMHSgemm.class.getName() + ".*") //
@@ -17,17 +17,33 @@
  */
 package uk.ac.manchester.tornado.benchmarks.spmv;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Random;
 
 import uk.ac.manchester.tornado.benchmarks.BenchmarkDriver;
 import uk.ac.manchester.tornado.benchmarks.BenchmarkRunner;
+import uk.ac.manchester.tornado.matrix.EllpackMatrix;
+import uk.ac.manchester.tornado.matrix.MatrixMarketLoader;
+import uk.ac.manchester.tornado.matrix.SellCSigmaMatrix;
 import uk.ac.manchester.tornado.matrix.SparseMatrixUtils;
 import uk.ac.manchester.tornado.matrix.SparseMatrixUtils.CSRMatrix;
 
+/**
+ * <p>
+ * The sparse format is selected with {@code -Dspmv.format=csr|ellpack|sell}.
+ * The height of the slices and the size of the sorting window of the
+ * SELL-C-sigma format are set with {@code -Dspmv.sell.c} and
+ * {@code -Dspmv.sell.sigma}.
+ * </p>
+ */
 public class Benchmark extends BenchmarkRunner {
 
     private CSRMatrix<float[]> matrix;
     private String path;
+    private SparseFormat format;
+    private EllpackMatrix ellpackMatrix;
+    private SellCSigmaMatrix sellMatrix;
 
     public static void initData(final float[] v) {
         final Random rand = new Random();
@@ -43,12 +59,26 @@ public class Benchmark extends BenchmarkRunner {
             iterations = Integer.parseInt(args[0]);
             final String fullPath = args[1];
             path = fullPath.substring(fullPath.lastIndexOf("/") + 1);
-            matrix = SparseMatrixUtils.loadMatrixF(fullPath);
+            try {
+                // Large matrices are parsed once and then read from the binary cache
+                matrix = MatrixMarketLoader.loadCachedMatrixF(fullPath);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
         } else {
             path = System.getProperty("spmv.matrix", "/bcsstk32.mtx");
             matrix = SparseMatrixUtils.loadMatrixF(Benchmark.class.getResourceAsStream(path));
             iterations = Integer.parseInt(System.getProperty("spmv.iterations", "1400"));
         }
+
+        format = SparseFormat.fromName(System.getProperty("spmv.format", "csr"));
+        if (format == SparseFormat.ELLPACK) {
+            ellpackMatrix = EllpackMatrix.fromCSR(matrix);
+        } else if (format == SparseFormat.SELL_C_SIGMA) {
+            final int chunkHeight = Integer.parseInt(System.getProperty("spmv.sell.c", "32"));
+            final int sigma = Integer.parseInt(System.getProperty("spmv.sell.sigma", "256"));
+            sellMatrix = SellCSigmaMatrix.fromCSR(matrix, chunkHeight, sigma);
+        }
     }
 
     @Override
@@ -58,22 +88,29 @@ public class Benchmark extends BenchmarkRunner {
 
     @Override
     protected String getIdString() {
-        return String.format("%s-%d-%d-%s", getName(), iterations, matrix.size, path);
+        return String.format("%s-%d-%d-%s-%s", getName(), iterations, matrix.size, path, format.name().toLowerCase());
     }
 
     @Override
     protected String getConfigString() {
-        return String.format("matrix=%s", path);
+        switch (format) {
+            case ELLPACK:
+                return String.format("matrix=%s, format=ellpack, width=%d, storage=%d", path, ellpackMatrix.width, ellpackMatrix.getStorageSize());
+            case SELL_C_SIGMA:
+                return String.format("matrix=%s, format=sell-%d-%d, storage=%d", path, sellMatrix.chunkHeight, sellMatrix.sigma, sellMatrix.getStorageSize());
+            default:
+                return String.format("matrix=%s, format=csr", path);
+        }
     }
 
     @Override
     protected BenchmarkDriver getJavaDriver() {
-        return new SpmvJava(iterations, matrix);
+        return new SpmvJava(iterations, matrix, format, ellpackMatrix, sellMatrix);
     }
 
     @Override
     protected BenchmarkDriver getTornadoDriver() {
-        return new SpmvTornado(iterations, matrix);
+        return new SpmvTornado(iterations, matrix, format, ellpackMatrix, sellMatrix);
     }
 
 }
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2023, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.benchmarks.spmv;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import uk.ac.manchester.tornado.matrix.MatrixMarketLoader;
+import uk.ac.manchester.tornado.matrix.SparseMatrixUtils;
+
+/**
+ * <p>
+ * Loading of a Matrix Market file into a CSR matrix with the
+ * {@link SparseMatrixUtils} loader, with the memory-mapped
+ * {@link MatrixMarketLoader}, and from the binary cache. The matrix file can be
+ * passed with {@code -Dspmv.matrix.file=<path>}. Otherwise, the matrix used by
+ * the spmv benchmark is used.
+ * </p>
+ * <p>
+ * How to run in isolation?
+ * </p>
+ * <code>
+ *    tornado -jar tornado-benchmarks/target/jmhbenchmarks.jar uk.ac.manchester.tornado.benchmarks.spmv.JMHMatrixMarketLoader
+ * </code>
+ */
+public class JMHMatrixMarketLoader {
+
+    @State(Scope.Thread)
+    public static class BenchmarkSetup {
+        private Path matrixFile;
+        private Path cacheFile;
+        private boolean temporaryMatrixFile;
+
+        @Setup(Level.Trial)
+        public void doSetup() throws IOException {
+            String file = System.getProperty("spmv.matrix.file");
+            if (file != null) {
+                matrixFile = Paths.get(file);
+            } else {
+                String resource = System.getProperty("spmv.matrix", "/bcsstk32.mtx");
+                matrixFile = Files.createTempFile("matrix", ".mtx");
+                temporaryMatrixFile = true;
+                try (InputStream inputStream = Benchmark.class.getResourceAsStream(resource)) {
+                    Files.copy(inputStream, matrixFile, StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            cacheFile = Files.createTempFile("matrix", MatrixMarketLoader.CACHE_SUFFIX);
+            MatrixMarketLoader.writeBinary(MatrixMarketLoader.loadMatrixF(matrixFile.toString()), cacheFile);
+        }
+
+        @TearDown(Level.Trial)
+        public void doTearDown() throws IOException {
+            Files.deleteIfExists(cacheFile);
+            if (temporaryMatrixFile) {
+                Files.deleteIfExists(matrixFile);
+            }
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 2, time = 30, timeUnit = TimeUnit.SECONDS)
+    @Measurement(iterations = 5, time = 30, timeUnit = TimeUnit.SECONDS)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Fork(1)
+    public SparseMatrixUtils.CSRMatrix<float[]> loadBufferedReader(BenchmarkSetup state) {
+        return SparseMatrixUtils.loadMatrixF(state.matrixFile.toString());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 2, time = 30, timeUnit = TimeUnit.SECONDS)
+    @Measurement(iterations = 5, time = 30, timeUnit = TimeUnit.SECONDS)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Fork(1)
+    public SparseMatrixUtils.CSRMatrix<float[]> loadMemoryMapped(BenchmarkSetup state) throws IOException {
+        return MatrixMarketLoader.loadMatrixF(state.matrixFile.toString());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 2, time = 30, timeUnit = TimeUnit.SECONDS)
+    @Measurement(iterations = 5, time = 30, timeUnit = TimeUnit.SECONDS)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Fork(1)
+    public SparseMatrixUtils.CSRMatrix<float[]> loadBinaryCache(BenchmarkSetup state) throws IOException {
+        return MatrixMarketLoader.readBinaryF(state.cacheFile);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder() //
+                .include(JMHMatrixMarketLoader.class.getName() + ".*") //
+                .mode(Mode.AverageTime) //
+                .timeUnit(TimeUnit.MILLISECONDS) //
+                .warmupTime(TimeValue.seconds(30)) //
+                .warmupIterations(2) //
+                .measurementTime(TimeValue.seconds(30)) //
+                .measurementIterations(5) //
+                .forks(1) //
+                .build();
+        new Runner(opt).run();
+    }
+}
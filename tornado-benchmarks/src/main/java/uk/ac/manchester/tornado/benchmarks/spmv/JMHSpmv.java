@@ -45,9 +45,14 @@ import uk.ac.manchester.tornado.api.TaskGraph;
 import uk.ac.manchester.tornado.api.TornadoExecutionPlan;
 import uk.ac.manchester.tornado.api.enums.DataTransferMode;
 import uk.ac.manchester.tornado.benchmarks.LinearAlgebraArrays;
+import uk.ac.manchester.tornado.matrix.EllpackMatrix;
+import uk.ac.manchester.tornado.matrix.SellCSigmaMatrix;
 import uk.ac.manchester.tornado.matrix.SparseMatrixUtils;
 
 /**
+ * <p>
+ * SpMV with the CSR, ELLPACK and SELL-C-sigma formats.
+ * </p>
  * <p>
  * How to run in isolation?
  * </p>
@@ -63,6 +68,8 @@ public class JMHSpmv {
         private float[] v;
         private float[] y;
         private TornadoExecutionPlan executor;
+        private TornadoExecutionPlan executorEllpack;
+        private TornadoExecutionPlan executorSellCSigma;
 
         @Setup(Level.Trial)
         public void doSetup() {
@@ -78,6 +85,24 @@ public class JMHSpmv {
             ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
             executor = new TornadoExecutionPlan(immutableTaskGraph);
             executor.withWarmUp();
+
+            EllpackMatrix ellpack = EllpackMatrix.fromCSR(matrix);
+            TaskGraph taskGraphEllpack = new TaskGraph("benchmarkEllpack") //
+                    .transferToDevice(DataTransferMode.EVERY_EXECUTION, ellpack.vals, ellpack.cols, ellpack.rowLengths, v, y) //
+                    .task("spmv", LinearAlgebraArrays::spmvEllpack, ellpack.vals, ellpack.cols, ellpack.rowLengths, v, ellpack.size, y) //
+                    .transferToHost(DataTransferMode.EVERY_EXECUTION, y);
+            executorEllpack = new TornadoExecutionPlan(taskGraphEllpack.snapshot());
+            executorEllpack.withWarmUp();
+
+            final int chunkHeight = Integer.parseInt(System.getProperty("spmv.sell.c", "32"));
+            final int sigma = Integer.parseInt(System.getProperty("spmv.sell.sigma", "256"));
+            SellCSigmaMatrix sell = SellCSigmaMatrix.fromCSR(matrix, chunkHeight, sigma);
+            TaskGraph taskGraphSell = new TaskGraph("benchmarkSell") //
+                    .transferToDevice(DataTransferMode.EVERY_EXECUTION, sell.vals, sell.cols, sell.sliceOffsets, sell.rowLengths, sell.permutation, v, y) //
+                    .task("spmv", LinearAlgebraArrays::spmvSellCSigma, sell.vals, sell.cols, sell.sliceOffsets, sell.rowLengths, sell.permutation, v, sell.size, sell.chunkHeight, y) //
+                    .transferToHost(DataTransferMode.EVERY_EXECUTION, y);
+            executorSellCSigma = new TornadoExecutionPlan(taskGraphSell.snapshot());
+            executorSellCSigma.withWarmUp();
         }
     }
 
@@ -104,6 +129,30 @@ public class JMHSpmv {
         blackhole.consume(executor);
     }
 
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 2, time = 30, timeUnit = TimeUnit.SECONDS)
+    @Measurement(iterations = 5, time = 30, timeUnit = TimeUnit.SECONDS)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Fork(1)
+    public void spmvTornadoEllpack(BenchmarkSetup state, Blackhole blackhole) {
+        TornadoExecutionPlan executor = state.executorEllpack;
+        executor.execute();
+        blackhole.consume(executor);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 2, time = 30, timeUnit = TimeUnit.SECONDS)
+    @Measurement(iterations = 5, time = 30, timeUnit = TimeUnit.SECONDS)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Fork(1)
+    public void spmvTornadoSellCSigma(BenchmarkSetup state, Blackhole blackhole) {
+        TornadoExecutionPlan executor = state.executorSellCSigma;
+        executor.execute();
+        blackhole.consume(executor);
+    }
+
     public static void main(String[] args) throws RunnerException {
         Options opt = new OptionsBuilder() //
                 .include(JMHSpmv.class.getName() + ".*") //
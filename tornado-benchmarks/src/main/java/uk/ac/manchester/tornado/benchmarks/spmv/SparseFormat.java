@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2023, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.benchmarks.spmv;
+
+/**
+ * Sparse matrix formats of the spmv benchmark. The format is selected with
+ * {@code -Dspmv.format=csr|ellpack|sell}.
+ */
+public enum SparseFormat {
+    CSR, //
+    ELLPACK, //
+    SELL_C_SIGMA;
+
+    public static SparseFormat fromName(String name) {
+        switch (name.toLowerCase()) {
+            case "csr":
+                return CSR;
+            case "ell":
+            case "ellpack":
+                return ELLPACK;
+            case "sell":
+            case "sell-c-sigma":
+                return SELL_C_SIGMA;
+            default:
+                throw new IllegalArgumentException("Unknown sparse format: " + name);
+        }
+    }
+}
@@ -18,20 +18,30 @@
 package uk.ac.manchester.tornado.benchmarks.spmv;
 
 import static uk.ac.manchester.tornado.benchmarks.LinearAlgebraArrays.spmv;
+import static uk.ac.manchester.tornado.benchmarks.LinearAlgebraArrays.spmvEllpack;
+import static uk.ac.manchester.tornado.benchmarks.LinearAlgebraArrays.spmvSellCSigma;
 
 import uk.ac.manchester.tornado.api.common.TornadoDevice;
 import uk.ac.manchester.tornado.benchmarks.BenchmarkDriver;
+import uk.ac.manchester.tornado.matrix.EllpackMatrix;
+import uk.ac.manchester.tornado.matrix.SellCSigmaMatrix;
 import uk.ac.manchester.tornado.matrix.SparseMatrixUtils.CSRMatrix;
 
 public class SpmvJava extends BenchmarkDriver {
 
     private final CSRMatrix<float[]> matrix;
+    private final SparseFormat format;
+    private final EllpackMatrix ellpackMatrix;
+    private final SellCSigmaMatrix sellMatrix;
     private float[] v;
     private float[] y;
 
-    public SpmvJava(int iterations, CSRMatrix<float[]> matrix) {
+    public SpmvJava(int iterations, CSRMatrix<float[]> matrix, SparseFormat format, EllpackMatrix ellpackMatrix, SellCSigmaMatrix sellMatrix) {
         super(iterations);
         this.matrix = matrix;
+        this.format = format;
+        this.ellpackMatrix = ellpackMatrix;
+        this.sellMatrix = sellMatrix;
     }
 
     @Override
@@ -50,7 +60,17 @@ public class SpmvJava extends BenchmarkDriver {
 
     @Override
     public void benchmarkMethod(TornadoDevice device) {
-        spmv(matrix.vals, matrix.cols, matrix.rows, v, matrix.size, y);
+        switch (format) {
+            case ELLPACK:
+                spmvEllpack(ellpackMatrix.vals, ellpackMatrix.cols, ellpackMatrix.rowLengths, v, ellpackMatrix.size, y);
+                break;
+            case SELL_C_SIGMA:
+                spmvSellCSigma(sellMatrix.vals, sellMatrix.cols, sellMatrix.sliceOffsets, sellMatrix.rowLengths, sellMatrix.permutation, v, sellMatrix.size, sellMatrix.chunkHeight, y);
+                break;
+            default:
+                spmv(matrix.vals, matrix.cols, matrix.rows, v, matrix.size, y);
+                break;
+        }
     }
 
     @Override
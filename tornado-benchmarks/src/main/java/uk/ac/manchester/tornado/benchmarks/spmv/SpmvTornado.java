@@ -27,6 +27,8 @@ import uk.ac.manchester.tornado.api.common.TornadoDevice;
 import uk.ac.manchester.tornado.api.enums.DataTransferMode;
 import uk.ac.manchester.tornado.benchmarks.BenchmarkDriver;
 import uk.ac.manchester.tornado.benchmarks.LinearAlgebraArrays;
+import uk.ac.manchester.tornado.matrix.EllpackMatrix;
+import uk.ac.manchester.tornado.matrix.SellCSigmaMatrix;
 import uk.ac.manchester.tornado.matrix.SparseMatrixUtils.CSRMatrix;
 
 /**
@@ -40,13 +42,19 @@ import uk.ac.manchester.tornado.matrix.SparseMatrixUtils.CSRMatrix;
 public class SpmvTornado extends BenchmarkDriver {
 
     private final CSRMatrix<float[]> matrix;
+    private final SparseFormat format;
+    private final EllpackMatrix ellpackMatrix;
+    private final SellCSigmaMatrix sellMatrix;
 
     private float[] v;
     private float[] y;
 
-    public SpmvTornado(int iterations, CSRMatrix<float[]> matrix) {
+    public SpmvTornado(int iterations, CSRMatrix<float[]> matrix, SparseFormat format, EllpackMatrix ellpackMatrix, SellCSigmaMatrix sellMatrix) {
         super(iterations);
         this.matrix = matrix;
+        this.format = format;
+        this.ellpackMatrix = ellpackMatrix;
+        this.sellMatrix = sellMatrix;
     }
 
     @Override
@@ -54,10 +62,23 @@ public class SpmvTornado extends BenchmarkDriver {
         v = new float[matrix.size];
         y = new float[matrix.size];
         initData(v);
-        taskGraph = new TaskGraph("benchmark") //
-                .transferToDevice(DataTransferMode.EVERY_EXECUTION, matrix.vals, matrix.cols, matrix.rows, v, y) //
-                .task("spmv", LinearAlgebraArrays::spmv, matrix.vals, matrix.cols, matrix.rows, v, matrix.size, y) //
-                .transferToHost(DataTransferMode.EVERY_EXECUTION, y);
+        taskGraph = new TaskGraph("benchmark");
+        switch (format) {
+            case ELLPACK:
+                taskGraph.transferToDevice(DataTransferMode.EVERY_EXECUTION, ellpackMatrix.vals, ellpackMatrix.cols, ellpackMatrix.rowLengths, v, y) //
+                        .task("spmv", LinearAlgebraArrays::spmvEllpack, ellpackMatrix.vals, ellpackMatrix.cols, ellpackMatrix.rowLengths, v, ellpackMatrix.size, y);
+                break;
+            case SELL_C_SIGMA:
+                taskGraph.transferToDevice(DataTransferMode.EVERY_EXECUTION, sellMatrix.vals, sellMatrix.cols, sellMatrix.sliceOffsets, sellMatrix.rowLengths, sellMatrix.permutation, v, y) //
+                        .task("spmv", LinearAlgebraArrays::spmvSellCSigma, sellMatrix.vals, sellMatrix.cols, sellMatrix.sliceOffsets, sellMatrix.rowLengths, sellMatrix.permutation, v, sellMatrix.size,
+                                sellMatrix.chunkHeight, y);
+                break;
+            default:
+                taskGraph.transferToDevice(DataTransferMode.EVERY_EXECUTION, matrix.vals, matrix.cols, matrix.rows, v, y) //
+                        .task("spmv", LinearAlgebraArrays::spmv, matrix.vals, matrix.cols, matrix.rows, v, matrix.size, y);
+                break;
+        }
+        taskGraph.transferToHost(DataTransferMode.EVERY_EXECUTION, y);
 
         immutableTaskGraph = taskGraph.snapshot();
         executionPlan = new TornadoExecutionPlan(immutableTaskGraph);
@@ -0,0 +1,179 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2023, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.drivers.common;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Snapshot of the arguments that are bound to a native kernel. Kernel
+ * arguments keep their values between launches, so a slot is only re-bound
+ * when its value differs from the value of the previous launch.
+ *
+ * <p>
+ * A value is compared with the bytes that the kernel receives, which are the
+ * bytes of the buffer from 0 to its position. Thus, buffers, constants and
+ * grid values that did not change from one launch to the next are not set
+ * again.
+ * </p>
+ *
+ * <p>
+ * Native buffers can be released and their handles reused by new buffers.
+ * Therefore, the snapshot is invalidated when the generation of released
+ * buffers of the context changes (see {@link #validate(long)}).
+ * </p>
+ */
+public class KernelArgumentCache implements KernelArgumentSetter {
+
+    private enum Kind {
+        VALUE, LOCAL_REGION, UNUSED
+    }
+
+    private static final int INITIAL_SLOTS = 16;
+
+    private final KernelArgumentSetter kernel;
+
+    private Kind[] kinds;
+    private byte[][] values;
+    private int[] lengths;
+    private long[] localSizes;
+    private long generation;
+
+    private long numBinds;
+    private long numSkipped;
+
+    public KernelArgumentCache(KernelArgumentSetter kernel) {
+        this.kernel = kernel;
+        this.kinds = new Kind[INITIAL_SLOTS];
+        this.values = new byte[INITIAL_SLOTS][];
+        this.lengths = new int[INITIAL_SLOTS];
+        this.localSizes = new long[INITIAL_SLOTS];
+        this.generation = -1;
+    }
+
+    private void ensureCapacity(int index) {
+        if (index >= kinds.length) {
+            int newLength = Math.max(kinds.length * 2, index + 1);
+            kinds = Arrays.copyOf(kinds, newLength);
+            values = Arrays.copyOf(values, newLength);
+            lengths = Arrays.copyOf(lengths, newLength);
+            localSizes = Arrays.copyOf(localSizes, newLength);
+        }
+    }
+
+    /**
+     * It wraps a value, such as the constant data of a kernel, in a buffer
+     * positioned at the end of the data. Kernels receive, and the snapshot
+     * compares, the bytes up to the position of the buffer.
+     *
+     * @param value
+     *            Bytes of the argument.
+     * @return A {@link ByteBuffer} backed by {@code value}.
+     */
+    public static ByteBuffer wrap(byte[] value) {
+        ByteBuffer buffer = ByteBuffer.wrap(value);
+        buffer.position(value.length);
+        return buffer;
+    }
+
+    /**
+     * It invalidates the snapshot if native buffers have been released since the
+     * last launch.
+     *
+     * @param releaseGeneration
+     *            Counter of released buffers of the context.
+     */
+    public void validate(long releaseGeneration) {
+        if (releaseGeneration != generation) {
+            invalidate();
+            generation = releaseGeneration;
+        }
+    }
+
+    /**
+     * It forgets all the bound values, so all slots are set in the next launch.
+     */
+    public void invalidate() {
+        Arrays.fill(kinds, null);
+    }
+
+    @Override
+    public void setArg(int index, ByteBuffer buffer) {
+        ensureCapacity(index);
+        final int length = buffer.position();
+        final byte[] array = buffer.array();
+        if (kinds[index] == Kind.VALUE && lengths[index] == length && Arrays.equals(values[index], 0, length, array, 0, length)) {
+            numSkipped++;
+            return;
+        }
+
+        kernel.setArg(index, buffer);
+        if (values[index] == null || values[index].length < length) {
+            values[index] = new byte[Math.max(length, Long.BYTES)];
+        }
+        System.arraycopy(array, 0, values[index], 0, length);
+        lengths[index] = length;
+        kinds[index] = Kind.VALUE;
+        numBinds++;
+    }
+
+    @Override
+    public void setLocalRegion(int index, long size) {
+        ensureCapacity(index);
+        if (kinds[index] == Kind.LOCAL_REGION && localSizes[index] == size) {
+            numSkipped++;
+            return;
+        }
+        kernel.setLocalRegion(index, size);
+        localSizes[index] = size;
+        kinds[index] = Kind.LOCAL_REGION;
+        numBinds++;
+    }
+
+    @Override
+    public void setArgUnused(int index) {
+        ensureCapacity(index);
+        if (kinds[index] == Kind.UNUSED) {
+            numSkipped++;
+            return;
+        }
+        kernel.setArgUnused(index);
+        kinds[index] = Kind.UNUSED;
+        numBinds++;
+    }
+
+    /**
+     * Number of arguments that have been set on the kernel.
+     */
+    public long getNumBinds() {
+        return numBinds;
+    }
+
+    /**
+     * Number of arguments that were not set because their value did not change.
+     */
+    public long getNumSkipped() {
+        return numSkipped;
+    }
+}
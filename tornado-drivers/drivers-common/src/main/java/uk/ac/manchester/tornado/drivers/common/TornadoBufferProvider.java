@@ -22,26 +22,49 @@
  */
 package uk.ac.manchester.tornado.drivers.common;
 
-import static uk.ac.manchester.tornado.runtime.common.TornadoOptions.DEVICE_AVAILABLE_MEMORY;
-
-import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.TreeMap;
 
 import uk.ac.manchester.tornado.api.TornadoDeviceContext;
-import uk.ac.manchester.tornado.api.TornadoTargetDevice;
 import uk.ac.manchester.tornado.api.exceptions.TornadoInternalError;
 import uk.ac.manchester.tornado.api.exceptions.TornadoOutOfMemoryException;
 import uk.ac.manchester.tornado.runtime.common.TornadoOptions;
 
 /**
- * This class implements a cache of allocated buffers on the device and also
+ * This class implements a pool of allocated buffers on the device and also
  * handles the logic to allocate and free buffers. This class is extended for
- * each backend. The logic is as follows: it maintains a list of used buffers
- * and another list of free buffers. When performing an allocation, it first
- * checks if memory is available on the device. If it is not, then it will try
- * to reuse a buffer from the free list of buffers.
+ * each backend (OpenCL, PTX and SPIR-V), which only provide the native
+ * allocation and release of a buffer.
+ * <p>
+ * The logic is as follows: buffers that are released by the runtime are not
+ * freed on the device, but kept in size-class bins. When performing an
+ * allocation, it first looks for the smallest free buffer that fits the
+ * requested size (best-fit). If there is none, a new buffer, rounded up to its
+ * size class, is allocated on the device. If the device memory (see
+ * {@link TornadoOptions#DEVICE_AVAILABLE_MEMORY}) is exhausted, free buffers
+ * are evicted in least-recently-released order until the allocation fits.
+ * </p>
+ * All public methods are thread-safe.
  */
 public abstract class TornadoBufferProvider {
 
+    /**
+     * Number of size classes between two consecutive powers of two.
+     */
+    private static final int SIZE_CLASSES_PER_POWER_OF_TWO = 4;
+
+    private static final long MIN_SIZE_CLASS = 256;
+
+    /**
+     * While there is device memory available, a free buffer is only reused if
+     * its size is not larger than this factor times the requested size.
+     */
+    private static final int MAX_REUSE_FACTOR = 2;
+
     public static class BufferInfo {
         public final long buffer;
         public final long size;
@@ -67,95 +90,241 @@ public abstract class TornadoBufferProvider {
         }
     }
 
+    /**
+     * Snapshot of the counters of a {@link TornadoBufferProvider}.
+     */
+    public static class BufferPoolStatistics {
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final long bytesInUse;
+        private final long requestedBytesInUse;
+        private final long pooledBytes;
+        private final long highWaterMark;
+
+        BufferPoolStatistics(long hits, long misses, long evictions, long bytesInUse, long requestedBytesInUse, long pooledBytes, long highWaterMark) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.bytesInUse = bytesInUse;
+            this.requestedBytesInUse = requestedBytesInUse;
+            this.pooledBytes = pooledBytes;
+            this.highWaterMark = highWaterMark;
+        }
+
+        /**
+         * @return Number of requests served with a pooled buffer.
+         */
+        public long getHits() {
+            return hits;
+        }
+
+        /**
+         * @return Number of requests that needed a new native allocation.
+         */
+        public long getMisses() {
+            return misses;
+        }
+
+        /**
+         * @return Number of free buffers released on the device to make room
+         *         for new allocations.
+         */
+        public long getEvictions() {
+            return evictions;
+        }
+
+        /**
+         * @return Device memory, in bytes, held by buffers in use.
+         */
+        public long getBytesInUse() {
+            return bytesInUse;
+        }
+
+        /**
+         * @return Device memory, in bytes, held by free buffers in the pool.
+         */
+        public long getPooledBytes() {
+            return pooledBytes;
+        }
+
+        /**
+         * @return Maximum device memory, in bytes, held by the provider at any
+         *         time (buffers in use plus pooled buffers).
+         */
+        public long getHighWaterMark() {
+            return highWaterMark;
+        }
+
+        /**
+         * Internal fragmentation of the buffers in use: the fraction of the
+         * memory of the buffers in use that was not requested.
+         *
+         * @return A value in the range [0, 1).
+         */
+        public double getFragmentation() {
+            return (bytesInUse == 0) ? 0.0 : 1.0 - ((double) requestedBytesInUse / bytesInUse);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("hits=%d, misses=%d, evictions=%d, inUse=%d bytes, pooled=%d bytes, highWaterMark=%d bytes, fragmentation=%.2f", hits, misses, evictions, bytesInUse, pooledBytes,
+                    highWaterMark, getFragmentation());
+        }
+    }
+
     protected final TornadoDeviceContext deviceContext;
-    protected final ArrayList<BufferInfo> freeBuffers;
-    protected final ArrayList<BufferInfo> usedBuffers;
+
+    /**
+     * Free buffers binned by size.
+     */
+    private final TreeMap<Long, LinkedHashSet<BufferInfo>> freeBuffers;
+
+    /**
+     * Free buffers in the order they were released, used for LRU eviction.
+     */
+    private final LinkedHashMap<Long, BufferInfo> freeBuffersByAge;
+
+    private final HashMap<Long, BufferInfo> usedBuffers;
     protected long currentMemoryAvailable;
 
-    protected TornadoBufferProvider(TornadoDeviceContext deviceContext) {
-        this.deviceContext = deviceContext;
-        this.usedBuffers = new ArrayList<>();
-        this.freeBuffers = new ArrayList<>();
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long bytesInUse;
+    private long requestedBytesInUse;
+    private long pooledBytes;
+    private long highWaterMark;
 
+    protected TornadoBufferProvider(TornadoDeviceContext deviceContext) {
         // There is no way of querying the available memory on the device.
         // Instead, use a flag similar to -Xmx.
-        currentMemoryAvailable = TornadoOptions.DEVICE_AVAILABLE_MEMORY;
+        this(deviceContext, TornadoOptions.DEVICE_AVAILABLE_MEMORY);
+    }
+
+    protected TornadoBufferProvider(TornadoDeviceContext deviceContext, long deviceAvailableMemory) {
+        this.deviceContext = deviceContext;
+        this.usedBuffers = new HashMap<>();
+        this.freeBuffers = new TreeMap<>();
+        this.freeBuffersByAge = new LinkedHashMap<>();
+        this.currentMemoryAvailable = deviceAvailableMemory;
     }
 
     protected abstract long allocateBuffer(long size);
 
     protected abstract void releaseBuffer(long buffer);
 
-    private long allocate(long size) {
+    protected long getDeviceMaxAllocationSize() {
+        return deviceContext.getDevice().getDeviceMaxAllocationSize();
+    }
+
+    /**
+     * It rounds up a size to its size class. Size classes are spaced
+     * {@link #SIZE_CLASSES_PER_POWER_OF_TWO} per power of two, so rounding
+     * wastes at most 25% of a buffer.
+     *
+     * @param sizeInBytes
+     *            Size in bytes.
+     * @return The size of the size class that contains sizeInBytes.
+     */
+    static long sizeClassOf(long sizeInBytes) {
+        if (sizeInBytes <= MIN_SIZE_CLASS) {
+            return MIN_SIZE_CLASS;
+        }
+        final long powerOfTwo = Long.highestOneBit(sizeInBytes - 1);
+        final long step = powerOfTwo / SIZE_CLASSES_PER_POWER_OF_TWO;
+        return ((sizeInBytes + step - 1) / step) * step;
+    }
+
+    private long allocate(long size, long requestedSize) {
         long buffer = allocateBuffer(size);
         currentMemoryAvailable -= size;
         BufferInfo bufferInfo = new BufferInfo(buffer, size);
-        usedBuffers.add(bufferInfo);
+        markBufferUsed(bufferInfo, requestedSize);
+        misses++;
+        highWaterMark = Math.max(highWaterMark, bytesInUse + pooledBytes);
         return bufferInfo.buffer;
     }
 
-    private void freeBuffers(long size) {
-        // Attempts to free buffers of given size.
-        long remainingSize = size;
-        while (!freeBuffers.isEmpty() && remainingSize > 0) {
-            BufferInfo bufferInfo = freeBuffers.remove(0);
-            TornadoInternalError.guarantee(!usedBuffers.contains(bufferInfo), "This buffer should not be used");
-            remainingSize -= bufferInfo.size;
-            currentMemoryAvailable += bufferInfo.size;
-            releaseBuffer(bufferInfo.buffer);
-        }
+    private void markBufferUsed(BufferInfo bufferInfo, long requestedSize) {
+        usedBuffers.put(bufferInfo.buffer, bufferInfo);
+        bytesInUse += bufferInfo.size;
+        requestedBytesInUse += requestedSize;
     }
 
-    private BufferInfo markBufferUsed(int freeBufferIndex) {
-        BufferInfo buffer = freeBuffers.get(freeBufferIndex);
-        usedBuffers.add(buffer);
-        freeBuffers.remove(buffer);
-        return buffer;
+    private void addFreeBuffer(BufferInfo bufferInfo) {
+        freeBuffers.computeIfAbsent(bufferInfo.size, size -> new LinkedHashSet<>()).add(bufferInfo);
+        freeBuffersByAge.put(bufferInfo.buffer, bufferInfo);
+        pooledBytes += bufferInfo.size;
+    }
+
+    private void removeFreeBuffer(BufferInfo bufferInfo) {
+        LinkedHashSet<BufferInfo> bin = freeBuffers.get(bufferInfo.size);
+        bin.remove(bufferInfo);
+        if (bin.isEmpty()) {
+            freeBuffers.remove(bufferInfo.size);
+        }
+        freeBuffersByAge.remove(bufferInfo.buffer);
+        pooledBytes -= bufferInfo.size;
     }
 
     /**
-     * First check if there is an available buffer of a given size. Perform a
-     * sequential search through the freeBuffers to get the buffer with the smaller
-     * size than can fulfill the allocation. The number of allocated buffers is
-     * usually low, so searching sequentially should not take a lot of time.
+     * It looks for the smallest free buffer that fulfills the requested size
+     * (best-fit).
      *
      * @param sizeInBytes
      *            Size in bytes for the requested buffer.
-     * @return returns the index position of a free buffer within the free buffer
-     *         list. It returns -1 if a free buffer slot is not found.
+     * @param maxSizeInBytes
+     *            Maximum size in bytes of the buffer to reuse.
+     * @return The buffer, or null if no free buffer fits.
      */
-    private int bufferIndexOfAFreeSpace(long sizeInBytes) {
-        int minBufferIndex = -1;
-        for (int i = 0; i < freeBuffers.size(); i++) {
-            BufferInfo bufferInfo = freeBuffers.get(i);
-            if (bufferInfo.size >= sizeInBytes && (minBufferIndex == -1 || bufferInfo.size < freeBuffers.get(minBufferIndex).size)) {
-                minBufferIndex = i;
-            }
+    private BufferInfo findFreeBuffer(long sizeInBytes, long maxSizeInBytes) {
+        Map.Entry<Long, LinkedHashSet<BufferInfo>> bin = freeBuffers.ceilingEntry(sizeInBytes);
+        if (bin == null || bin.getKey() > maxSizeInBytes) {
+            return null;
         }
-        return minBufferIndex;
+        return bin.getValue().iterator().next();
+    }
+
+    private long reuse(BufferInfo bufferInfo, long requestedSize) {
+        removeFreeBuffer(bufferInfo);
+        markBufferUsed(bufferInfo, requestedSize);
+        hits++;
+        return bufferInfo.buffer;
     }
 
     /**
-     * There is no buffer to fulfill the size. Start freeing unused buffers and try
-     * to allocate.
+     * It releases free buffers on the device, starting with the least recently
+     * released buffer, until the requested amount of memory has been returned.
      *
-     * @param sizeInBytes
-     *            Size in bytes for the requested buffer.
-     * @return It returns a buffer native pointer.
+     * @param size
+     *            Size in bytes to release.
      */
-    private long freeUnusedNativeBufferAndAssignRegion(long sizeInBytes) {
-        freeBuffers(sizeInBytes);
-        if (sizeInBytes <= currentMemoryAvailable) {
-            return allocate(sizeInBytes);
-        } else {
-            throw new TornadoOutOfMemoryException("Unable to allocate " + sizeInBytes + " bytes of memory.");
+    private void evictFreeBuffers(long size) {
+        long remainingSize = size;
+        Iterator<BufferInfo> iterator = freeBuffersByAge.values().iterator();
+        while (iterator.hasNext() && remainingSize > 0) {
+            BufferInfo bufferInfo = iterator.next();
+            TornadoInternalError.guarantee(!usedBuffers.containsKey(bufferInfo.buffer), "This buffer should not be used");
+            iterator.remove();
+            LinkedHashSet<BufferInfo> bin = freeBuffers.get(bufferInfo.size);
+            bin.remove(bufferInfo);
+            if (bin.isEmpty()) {
+                freeBuffers.remove(bufferInfo.size);
+            }
+            pooledBytes -= bufferInfo.size;
+            remainingSize -= bufferInfo.size;
+            currentMemoryAvailable += bufferInfo.size;
+            evictions++;
+            releaseBuffer(bufferInfo.buffer);
         }
     }
 
     /**
-     * Method that finds a suitable buffer for a requested buffer size. If a free
-     * memory buffer is found, it performs the native buffer allocation on the
-     * target device. Otherwise, it throws an exception.
+     * Method that finds a suitable buffer for a requested buffer size. Free
+     * buffers are reused before allocating new device memory. If there is not
+     * enough device memory, the least recently released buffers are freed on the
+     * device until the allocation fits. Otherwise, it throws an exception.
      *
      * @param sizeInBytes
      *            Size in bytes for the requested buffer.
@@ -164,46 +333,69 @@ public abstract class TornadoBufferProvider {
      * @throws {@link
      *             TornadoOutOfMemoryException}
      */
-    public long getBufferWithSize(long sizeInBytes) {
-        TornadoTargetDevice targetDevice = deviceContext.getDevice();
-        if (sizeInBytes <= currentMemoryAvailable && sizeInBytes < targetDevice.getDeviceMaxAllocationSize()) {
-            // Allocate if there is enough device memory.
-            return allocate(sizeInBytes);
-        } else if (sizeInBytes < targetDevice.getDeviceMaxAllocationSize()) {
-            int minBufferIndex = bufferIndexOfAFreeSpace(sizeInBytes);
-            // If a buffer was found, mark it as used and return it.
-            if (minBufferIndex != -1) {
-                return markBufferUsed(minBufferIndex).buffer;
-            } else {
-                return freeUnusedNativeBufferAndAssignRegion(sizeInBytes);
-            }
+    public synchronized long getBufferWithSize(long sizeInBytes) {
+        final long maxAllocationSize = getDeviceMaxAllocationSize();
+        if (sizeInBytes >= maxAllocationSize) {
+            throw new TornadoOutOfMemoryException("Unable to allocate " + sizeInBytes + " bytes of memory.");
+        }
+
+        // 1. Reuse a free buffer of a similar size
+        BufferInfo freeBuffer = findFreeBuffer(sizeInBytes, sizeInBytes * MAX_REUSE_FACTOR);
+        if (freeBuffer != null) {
+            return reuse(freeBuffer, sizeInBytes);
+        }
+
+        // 2. Allocate a new buffer rounded up to its size class, if there is memory
+        long sizeClass = sizeClassOf(sizeInBytes);
+        if (sizeClass >= maxAllocationSize) {
+            sizeClass = sizeInBytes;
+        }
+        if (sizeClass <= currentMemoryAvailable) {
+            return allocate(sizeClass, sizeInBytes);
+        } else if (sizeInBytes <= currentMemoryAvailable) {
+            return allocate(sizeInBytes, sizeInBytes);
+        }
+
+        // 3. Under memory pressure, reuse any free buffer that fits
+        freeBuffer = findFreeBuffer(sizeInBytes, Long.MAX_VALUE);
+        if (freeBuffer != null) {
+            return reuse(freeBuffer, sizeInBytes);
+        }
+
+        // 4. Evict free buffers and allocate
+        evictFreeBuffers(sizeInBytes - currentMemoryAvailable);
+        if (sizeInBytes <= currentMemoryAvailable) {
+            return allocate(sizeInBytes, sizeInBytes);
         } else {
             throw new TornadoOutOfMemoryException("Unable to allocate " + sizeInBytes + " bytes of memory.");
         }
     }
 
     /**
-     * Removes the buffer from the {@link #usedBuffers} list and add it to
-     * the @{@link #freeBuffers} list.
+     * Moves the buffer from the used buffers to the pool of free buffers.
+     *
+     * @param buffer
+     *            Pointer to the native buffer.
+     * @param size
+     *            Size in bytes that was requested for the buffer in
+     *            {@link #getBufferWithSize}.
      */
-    public void markBufferReleased(long buffer, long size) {
-        int foundIndex = -1;
-        for (int i = 0; i < usedBuffers.size(); i++) {
-            if (usedBuffers.get(i).buffer == buffer) {
-                foundIndex = i;
-                break;
-            }
-        }
-        TornadoInternalError.guarantee(foundIndex != -1, "Expected the buffer to be allocated and used at this point.");
-        BufferInfo removedBuffer = usedBuffers.remove(foundIndex);
-        freeBuffers.add(removedBuffer);
+    public synchronized void markBufferReleased(long buffer, long size) {
+        BufferInfo removedBuffer = usedBuffers.remove(buffer);
+        TornadoInternalError.guarantee(removedBuffer != null, "Expected the buffer to be allocated and used at this point.");
+        bytesInUse -= removedBuffer.size;
+        requestedBytesInUse -= Math.min(size, removedBuffer.size);
+        addFreeBuffer(removedBuffer);
     }
 
-    public boolean checkBufferAvailability(int numBuffersRequired) {
-        return freeBuffers.size() >= numBuffersRequired;
+    /**
+     * It releases all free buffers of the pool on the device.
+     */
+    public synchronized void resetBuffers() {
+        evictFreeBuffers(pooledBytes);
     }
 
-    public void resetBuffers() {
-        freeBuffers(DEVICE_AVAILABLE_MEMORY);
+    public synchronized BufferPoolStatistics getStatistics() {
+        return new BufferPoolStatistics(hits, misses, evictions, bytesInUse, requestedBytesInUse, pooledBytes, highWaterMark);
     }
 }
@@ -0,0 +1,336 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2023, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.drivers.common.mm;
+
+import static uk.ac.manchester.tornado.api.exceptions.TornadoInternalError.guarantee;
+import static uk.ac.manchester.tornado.api.exceptions.TornadoInternalError.shouldNotReachHere;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Copies the primitive fields of an object to and from a {@link ByteBuffer}
+ * that holds the device image of the object.
+ *
+ * <p>
+ * A serialiser is built once per class: each field gets a getter and a setter
+ * {@link MethodHandle}, adapted to its primitive type, so values are not boxed
+ * and no reflective access checks are done on each transfer. Fields are copied
+ * with absolute puts and gets at their offsets. Reference fields are skipped:
+ * the object wrappers of each backend write the device addresses of the
+ * referenced buffers.
+ * </p>
+ *
+ * <p>
+ * Serialisers are cached by class and field offsets, so backends that compute
+ * the same layout of the device image share a serialiser, and a different
+ * layout gets its own.
+ * </p>
+ */
+public final class ObjectSerialiser {
+
+    private static final ConcurrentHashMap<SerialiserKey, ObjectSerialiser> SERIALISERS = new ConcurrentHashMap<>();
+
+    private final FieldSerialiser[] fieldSerialisers;
+
+    private ObjectSerialiser(FieldSerialiser[] fieldSerialisers) {
+        this.fieldSerialisers = fieldSerialisers;
+    }
+
+    /**
+     * It returns the serialiser of a class for the given field offsets, and
+     * builds it on the first call with those offsets.
+     *
+     * @param type
+     *            Class of the objects to serialise.
+     * @param fields
+     *            Instance fields of the class, including the inherited ones.
+     *            They must be accessible.
+     * @param offsets
+     *            Offset of each field in the device image of the object.
+     * @return The {@link ObjectSerialiser} for the class and offsets.
+     */
+    public static ObjectSerialiser forClass(Class<?> type, Field[] fields, int[] offsets) {
+        guarantee(fields.length == offsets.length, "number of fields (%d) and offsets (%d) differ for class %s", fields.length, offsets.length, type.getName());
+        return SERIALISERS.computeIfAbsent(new SerialiserKey(type, offsets), key -> create(fields, key.offsets));
+    }
+
+    private static ObjectSerialiser create(Field[] fields, int[] offsets) {
+        List<FieldSerialiser> serialisers = new ArrayList<>();
+        for (int i = 0; i < fields.length; i++) {
+            if (fields[i].getType().isPrimitive()) {
+                serialisers.add(createFieldSerialiser(fields[i], offsets[i]));
+            }
+        }
+        return new ObjectSerialiser(serialisers.toArray(new FieldSerialiser[0]));
+    }
+
+    private static FieldSerialiser createFieldSerialiser(Field field, int offset) {
+        final Class<?> type = field.getType();
+        final MethodHandle getter;
+        final MethodHandle setter;
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            getter = lookup.unreflectGetter(field).asType(MethodType.methodType(type, Object.class));
+            setter = lookup.unreflectSetter(field).asType(MethodType.methodType(void.class, Object.class, type));
+        } catch (IllegalAccessException e) {
+            throw shouldNotReachHere("unable to access field: class=%s, field=%s", field.getDeclaringClass().getName(), field.getName());
+        }
+
+        if (type == int.class) {
+            return new IntFieldSerialiser(offset, getter, setter);
+        } else if (type == long.class) {
+            return new LongFieldSerialiser(offset, getter, setter);
+        } else if (type == float.class) {
+            return new FloatFieldSerialiser(offset, getter, setter);
+        } else if (type == double.class) {
+            return new DoubleFieldSerialiser(offset, getter, setter);
+        } else if (type == short.class) {
+            return new ShortFieldSerialiser(offset, getter, setter);
+        } else if (type == char.class) {
+            return new CharFieldSerialiser(offset, getter, setter);
+        } else if (type == byte.class) {
+            return new ByteFieldSerialiser(offset, getter, setter);
+        } else if (type == boolean.class) {
+            return new BooleanFieldSerialiser(offset, getter, setter);
+        }
+        throw shouldNotReachHere("unsupported field type: %s", type.getName());
+    }
+
+    /**
+     * It writes all primitive fields of the object into the buffer.
+     *
+     * @param buffer
+     *            Buffer with the device image of the object.
+     * @param object
+     *            Object to read the fields from.
+     */
+    public void serialise(ByteBuffer buffer, Object object) {
+        try {
+            for (FieldSerialiser fieldSerialiser : fieldSerialisers) {
+                fieldSerialiser.write(buffer, object);
+            }
+        } catch (Throwable e) {
+            throw shouldNotReachHere("unable to serialise object: %s", e.getMessage());
+        }
+    }
+
+    /**
+     * It reads all primitive fields of the object from the buffer.
+     *
+     * @param buffer
+     *            Buffer with the device image of the object.
+     * @param object
+     *            Object to update.
+     */
+    public void deserialise(ByteBuffer buffer, Object object) {
+        try {
+            for (FieldSerialiser fieldSerialiser : fieldSerialisers) {
+                fieldSerialiser.read(buffer, object);
+            }
+        } catch (Throwable e) {
+            throw shouldNotReachHere("unable to deserialise object: %s", e.getMessage());
+        }
+    }
+
+    private static final class SerialiserKey {
+        private final Class<?> type;
+        private final int[] offsets;
+        private final int hash;
+
+        SerialiserKey(Class<?> type, int[] offsets) {
+            this.type = type;
+            this.offsets = offsets.clone();
+            this.hash = 31 * type.hashCode() + Arrays.hashCode(offsets);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof SerialiserKey)) {
+                return false;
+            }
+            SerialiserKey key = (SerialiserKey) other;
+            return type == key.type && Arrays.equals(offsets, key.offsets);
+        }
+    }
+
+    private abstract static class FieldSerialiser {
+        protected final int offset;
+        protected final MethodHandle getter;
+        protected final MethodHandle setter;
+
+        FieldSerialiser(int offset, MethodHandle getter, MethodHandle setter) {
+            this.offset = offset;
+            this.getter = getter;
+            this.setter = setter;
+        }
+
+        abstract void write(ByteBuffer buffer, Object object) throws Throwable;
+
+        abstract void read(ByteBuffer buffer, Object object) throws Throwable;
+    }
+
+    private static final class IntFieldSerialiser extends FieldSerialiser {
+        IntFieldSerialiser(int offset, MethodHandle getter, MethodHandle setter) {
+            super(offset, getter, setter);
+        }
+
+        @Override
+        void write(ByteBuffer buffer, Object object) throws Throwable {
+            buffer.putInt(offset, (int) getter.invokeExact(object));
+        }
+
+        @Override
+        void read(ByteBuffer buffer, Object object) throws Throwable {
+            setter.invokeExact(object, buffer.getInt(offset));
+        }
+    }
+
+    private static final class LongFieldSerialiser extends FieldSerialiser {
+        LongFieldSerialiser(int offset, MethodHandle getter, MethodHandle setter) {
+            super(offset, getter, setter);
+        }
+
+        @Override
+        void write(ByteBuffer buffer, Object object) throws Throwable {
+            buffer.putLong(offset, (long) getter.invokeExact(object));
+        }
+
+        @Override
+        void read(ByteBuffer buffer, Object object) throws Throwable {
+            setter.invokeExact(object, buffer.getLong(offset));
+        }
+    }
+
+    private static final class FloatFieldSerialiser extends FieldSerialiser {
+        FloatFieldSerialiser(int offset, MethodHandle getter, MethodHandle setter) {
+            super(offset, getter, setter);
+        }
+
+        @Override
+        void write(ByteBuffer buffer, Object object) throws Throwable {
+            buffer.putFloat(offset, (float) getter.invokeExact(object));
+        }
+
+        @Override
+        void read(ByteBuffer buffer, Object object) throws Throwable {
+            setter.invokeExact(object, buffer.getFloat(offset));
+        }
+    }
+
+    private static final class DoubleFieldSerialiser extends FieldSerialiser {
+        DoubleFieldSerialiser(int offset, MethodHandle getter, MethodHandle setter) {
+            super(offset, getter, setter);
+        }
+
+        @Override
+        void write(ByteBuffer buffer, Object object) throws Throwable {
+            buffer.putDouble(offset, (double) getter.invokeExact(object));
+        }
+
+        @Override
+        void read(ByteBuffer buffer, Object object) throws Throwable {
+            setter.invokeExact(object, buffer.getDouble(offset));
+        }
+    }
+
+    private static final class ShortFieldSerialiser extends FieldSerialiser {
+        ShortFieldSerialiser(int offset, MethodHandle getter, MethodHandle setter) {
+            super(offset, getter, setter);
+        }
+
+        @Override
+        void write(ByteBuffer buffer, Object object) throws Throwable {
+            buffer.putShort(offset, (short) getter.invokeExact(object));
+        }
+
+        @Override
+        void read(ByteBuffer buffer, Object object) throws Throwable {
+            setter.invokeExact(object, buffer.getShort(offset));
+        }
+    }
+
+    private static final class CharFieldSerialiser extends FieldSerialiser {
+        CharFieldSerialiser(int offset, MethodHandle getter, MethodHandle setter) {
+            super(offset, getter, setter);
+        }
+
+        @Override
+        void write(ByteBuffer buffer, Object object) throws Throwable {
+            buffer.putChar(offset, (char) getter.invokeExact(object));
+        }
+
+        @Override
+        void read(ByteBuffer buffer, Object object) throws Throwable {
+            setter.invokeExact(object, buffer.getChar(offset));
+        }
+    }
+
+    private static final class ByteFieldSerialiser extends FieldSerialiser {
+        ByteFieldSerialiser(int offset, MethodHandle getter, MethodHandle setter) {
+            super(offset, getter, setter);
+        }
+
+        @Override
+        void write(ByteBuffer buffer, Object object) throws Throwable {
+            buffer.put(offset, (byte) getter.invokeExact(object));
+        }
+
+        @Override
+        void read(ByteBuffer buffer, Object object) throws Throwable {
+            setter.invokeExact(object, buffer.get(offset));
+        }
+    }
+
+    private static final class BooleanFieldSerialiser extends FieldSerialiser {
+        BooleanFieldSerialiser(int offset, MethodHandle getter, MethodHandle setter) {
+            super(offset, getter, setter);
+        }
+
+        @Override
+        void write(ByteBuffer buffer, Object object) throws Throwable {
+            buffer.put(offset, (boolean) getter.invokeExact(object) ? (byte) 1 : (byte) 0);
+        }
+
+        @Override
+        void read(ByteBuffer buffer, Object object) throws Throwable {
+            setter.invokeExact(object, buffer.get(offset) != 0);
+        }
+    }
+}
@@ -420,3 +420,65 @@ JNIEXPORT jlong JNICALL Java_uk_ac_manchester_tornado_drivers_opencl_OCLCommandQ
          jlong offset, jlong numBytes, jlong devicePtr, jlongArray javaArrayEvents) {
     return transferFromDeviceToHost(env, clazz, commandQueue, reinterpret_cast<jbyteArray>(hostArray), hostOffset, blocking, offset, numBytes, devicePtr, javaArrayEvents);
 }
+
+/*
+ * Class:     uk_ac_manchester_tornado_drivers_opencl_OCLCommandQueue
+ * Method:    writeArrayToDeviceOffHeap
+ * Signature: (JJJZJJJ[J)J
+ */
+JNIEXPORT jlong JNICALL Java_uk_ac_manchester_tornado_drivers_opencl_OCLCommandQueue_writeArrayToDeviceOffHeap
+        (JNIEnv *env, jclass clazz, jlong commandQueue, jlong hostPointer, jlong hostOffset, jboolean blocking,
+         jlong offset, jlong numBytes, jlong devicePtr, jlongArray javaArrayEvents) {
+    jlong *arrayEvents = static_cast<jlong *>((javaArrayEvents != NULL) ? env->GetPrimitiveArrayCritical(javaArrayEvents, NULL) : NULL);
+    jlong *events = (javaArrayEvents != NULL) ? &arrayEvents[1] : NULL;
+    jsize numberOfEvents = (javaArrayEvents != NULL) ? arrayEvents[0] : 0;
+    char *buffer = reinterpret_cast<char *>(hostPointer);
+    if (PRINT_DATA_SIZES) {
+        std::cout << "[TornadoVM JNI] transferFromHostToDevice (off-heap) from " << offset << " (" << numBytes << ") from buffer: " << (void *) buffer << std::endl;
+    }
+    cl_event event;
+    /* Native memory is not moved by the Java GC, so the write can be asynchronous */
+    cl_int status = clEnqueueWriteBuffer((cl_command_queue) commandQueue, (cl_mem) devicePtr, blocking ? CL_TRUE : CL_FALSE,
+                                         (size_t) offset, (size_t) numBytes, (void *) &buffer[hostOffset], (cl_uint) numberOfEvents,
+                                         (cl_event *) events, &event);
+    LOG_OCL_AND_VALIDATE("clEnqueueWriteBuffer", status);
+    if (PRINT_DATA_TIMES) {
+        long writeTime = getElapsedTimeEvent(event);
+        std::cout << "[TornadoVM-JNI] H2D time: " << writeTime << " (ns)" << std::endl;
+    }
+    if (javaArrayEvents != NULL) {
+        env->ReleasePrimitiveArrayCritical(javaArrayEvents, arrayEvents, JNI_ABORT);
+    }
+    return (jlong) event;
+}
+
+/*
+ * Class:     uk_ac_manchester_tornado_drivers_opencl_OCLCommandQueue
+ * Method:    readArrayFromDeviceOffHeap
+ * Signature: (JJJZJJJ[J)J
+ */
+JNIEXPORT jlong JNICALL Java_uk_ac_manchester_tornado_drivers_opencl_OCLCommandQueue_readArrayFromDeviceOffHeap
+        (JNIEnv *env, jclass clazz, jlong commandQueue, jlong hostPointer, jlong hostOffset, jboolean blocking,
+         jlong offset, jlong numBytes, jlong devicePtr, jlongArray javaArrayEvents) {
+    jlong *eventsArray = static_cast<jlong *>((javaArrayEvents != NULL) ? env->GetPrimitiveArrayCritical(javaArrayEvents, NULL) : NULL);
+    jlong *events = (javaArrayEvents != NULL) ? &eventsArray[1] : NULL;
+    jsize num_events = (javaArrayEvents != NULL) ? eventsArray[0] : 0;
+    char *buffer = reinterpret_cast<char *>(hostPointer);
+    if (PRINT_DATA_SIZES) {
+        std::cout << "[TornadoVM JNI] transferFromDeviceToHost (off-heap) from " << offset << " (" << numBytes << ") from buffer: " << (void *) buffer << std::endl;
+    }
+    cl_event readEvent;
+    /* Reads are kept blocking: the data must be visible to the host when the execution plan returns */
+    cl_int status = clEnqueueReadBuffer((cl_command_queue) commandQueue, (cl_mem) devicePtr, CL_TRUE,
+                                        (size_t) offset, (size_t) numBytes, (void *) &buffer[hostOffset],
+                                        (cl_uint) num_events, (cl_event *) events, &readEvent);
+    LOG_OCL_AND_VALIDATE("clEnqueueReadBuffer", status);
+    if (PRINT_DATA_TIMES) {
+        long readTime = getElapsedTimeEvent(readEvent);
+        std::cout << "[TornadoVM-JNI] D2H time: " << readTime << " (ns)" << std::endl;
+    }
+    if (javaArrayEvents != NULL) {
+        env->ReleasePrimitiveArrayCritical(javaArrayEvents, eventsArray, JNI_ABORT);
+    }
+    return (jlong) readEvent;
+}
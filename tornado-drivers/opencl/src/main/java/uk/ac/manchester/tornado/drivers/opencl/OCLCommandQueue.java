@@ -110,6 +110,10 @@ public class OCLCommandQueue extends TornadoLogger {
 
     static native long readArrayFromDevice(long queueId, double[] buffer, long hostOffset, boolean blocking, long offset, long bytes, long ptr, long[] events) throws OCLException;
 
+    static native long writeArrayToDeviceOffHeap(long queueId, long hostPointer, long hostOffset, boolean blocking, long offset, long bytes, long ptr, long[] events) throws OCLException;
+
+    static native long readArrayFromDeviceOffHeap(long queueId, long hostPointer, long hostOffset, boolean blocking, long offset, long bytes, long ptr, long[] events) throws OCLException;
+
     static native void clEnqueueWaitForEvents(long queueId, long[] events) throws OCLException;
 
     /*
@@ -339,6 +343,34 @@ public class OCLCommandQueue extends TornadoLogger {
         return -1;
     }
 
+    /**
+     * Copies data to the device directly from native (off-heap) host memory.
+     * Offsets and sizes are given in bytes.
+     */
+    public long enqueueWriteOffHeap(long devicePtr, boolean blocking, long offset, long bytes, long hostPointer, long hostOffset, long[] waitEvents) {
+        guarantee(hostPointer != 0, "null host pointer");
+        try {
+            return writeArrayToDeviceOffHeap(commandQueue, hostPointer, hostOffset, blocking, offset, bytes, devicePtr, waitEvents);
+        } catch (OCLException e) {
+            error(e.getMessage());
+        }
+        return -1;
+    }
+
+    /**
+     * Copies data from the device directly into native (off-heap) host memory.
+     * Offsets and sizes are given in bytes.
+     */
+    public long enqueueReadOffHeap(long devicePtr, boolean blocking, long offset, long bytes, long hostPointer, long hostOffset, long[] waitEvents) {
+        guarantee(hostPointer != 0, "null host pointer");
+        try {
+            return readArrayFromDeviceOffHeap(commandQueue, hostPointer, hostOffset, blocking, offset, bytes, devicePtr, waitEvents);
+        } catch (OCLException e) {
+            error(e.getMessage());
+        }
+        return -1;
+    }
+
     public void finish() {
         try {
             clFinish(commandQueue);
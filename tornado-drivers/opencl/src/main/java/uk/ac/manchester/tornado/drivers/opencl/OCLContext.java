@@ -35,7 +35,9 @@ import static uk.ac.manchester.tornado.runtime.common.TornadoOptions.DUMP_EVENTS
 
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 import uk.ac.manchester.tornado.api.exceptions.TornadoInternalError;
 import uk.ac.manchester.tornado.api.exceptions.TornadoNoOpenCLPlatformException;
@@ -53,6 +55,7 @@ public class OCLContext implements OCLExecutionEnvironment {
     private final OCLCommandQueue[] queues;
     private final List<OCLProgram> programs;
     private final OCLPlatform platform;
+    private final AtomicLong releaseGeneration;
 
     public OCLContext(OCLPlatform platform, long id, List<OCLTargetDevice> devices) {
         this.platform = platform;
@@ -60,7 +63,8 @@ public class OCLContext implements OCLExecutionEnvironment {
         this.devices = devices;
         this.deviceContexts = new ArrayList<>(devices.size());
         this.queues = new OCLCommandQueue[devices.size()];
-        this.programs = new ArrayList<>();
+        this.programs = Collections.synchronizedList(new ArrayList<>());
+        this.releaseGeneration = new AtomicLong();
     }
 
     static native void clReleaseContext(long id) throws OCLException;
@@ -278,12 +282,24 @@ public class OCLContext implements OCLExecutionEnvironment {
     public void releaseBuffer(long bufferId) {
         try {
             clReleaseMemObject(bufferId);
+            releaseGeneration.incrementAndGet();
             TornadoLogger.info("buffer released 0x%x", bufferId);
         } catch (OCLException e) {
             TornadoLogger.error(e.getMessage());
         }
     }
 
+    /**
+     * Number of native buffers released in this context. A released buffer
+     * handle can be returned again by a new allocation, so the kernel arguments
+     * that have been bound before a release cannot be reused.
+     *
+     * @return The generation of released buffers.
+     */
+    public long getReleaseGeneration() {
+        return releaseGeneration.get();
+    }
+
     public int getPlatformIndex() {
         return platform.getIndex();
     }
@@ -374,6 +374,33 @@ public class OCLDeviceContext extends TornadoLogger implements OCLDeviceContextI
                 EventDescriptor.DESC_READ_SHORT, queue);
     }
 
+    /*
+     * Transfers from and to native (off-heap) host memory
+     */
+    public int enqueueWriteBufferOffHeap(long bufferId, long offset, long bytes, long hostPointer, long hostOffset, int[] waitEvents) {
+        return oclEventPool.registerEvent(
+                queue.enqueueWriteOffHeap(bufferId, OpenCLBlocking.FALSE, offset, bytes, hostPointer, hostOffset, oclEventPool.serialiseEvents(waitEvents, queue) ? oclEventPool.waitEventsBuffer : null),
+                EventDescriptor.DESC_WRITE_BYTE, queue);
+    }
+
+    public void writeBufferOffHeap(long bufferId, long offset, long bytes, long hostPointer, long hostOffset, int[] waitEvents) {
+        oclEventPool.registerEvent(
+                queue.enqueueWriteOffHeap(bufferId, OpenCLBlocking.TRUE, offset, bytes, hostPointer, hostOffset, oclEventPool.serialiseEvents(waitEvents, queue) ? oclEventPool.waitEventsBuffer : null),
+                EventDescriptor.DESC_WRITE_BYTE, queue);
+    }
+
+    public int enqueueReadBufferOffHeap(long bufferId, long offset, long bytes, long hostPointer, long hostOffset, int[] waitEvents) {
+        return oclEventPool.registerEvent(
+                queue.enqueueReadOffHeap(bufferId, OpenCLBlocking.FALSE, offset, bytes, hostPointer, hostOffset, oclEventPool.serialiseEvents(waitEvents, queue) ? oclEventPool.waitEventsBuffer : null),
+                EventDescriptor.DESC_READ_BYTE, queue);
+    }
+
+    public int readBufferOffHeap(long bufferId, long offset, long bytes, long hostPointer, long hostOffset, int[] waitEvents) {
+        return oclEventPool.registerEvent(
+                queue.enqueueReadOffHeap(bufferId, OpenCLBlocking.TRUE, offset, bytes, hostPointer, hostOffset, oclEventPool.serialiseEvents(waitEvents, queue) ? oclEventPool.waitEventsBuffer : null),
+                EventDescriptor.DESC_READ_BYTE, queue);
+    }
+
     public int enqueueBarrier(int[] events) {
         long oclEvent = queue.enqueueBarrier(oclEventPool.serialiseEvents(events, queue) ? oclEventPool.waitEventsBuffer : null);
         return queue.getOpenclVersion() < 120 ? -1 : oclEventPool.registerEvent(oclEvent, EventDescriptor.DESC_SYNC_BARRIER, queue);
@@ -445,6 +472,11 @@ public class OCLDeviceContext extends TornadoLogger implements OCLDeviceContextI
         return device.isDeviceDoubleFPSupported();
     }
 
+    @Override
+    public boolean isInt64AtomicsSupported() {
+        return device.getDeviceExtensions().contains("cl_khr_int64_base_atomics");
+    }
+
     @Override
     public int getDeviceIndex() {
         return device.getIndex();
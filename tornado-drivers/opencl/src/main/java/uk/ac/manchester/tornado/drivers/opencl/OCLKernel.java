@@ -31,11 +31,12 @@ import java.io.UnsupportedEncodingException;
 import java.nio.ByteBuffer;
 import java.util.Arrays;
 
+import uk.ac.manchester.tornado.drivers.common.KernelArgumentSetter;
 import uk.ac.manchester.tornado.drivers.opencl.enums.OCLKernelInfo;
 import uk.ac.manchester.tornado.drivers.opencl.exceptions.OCLException;
 import uk.ac.manchester.tornado.runtime.common.TornadoLogger;
 
-public class OCLKernel extends TornadoLogger {
+public class OCLKernel extends TornadoLogger implements KernelArgumentSetter {
 
     private final long oclKernelID;
     private final OCLDeviceContext deviceContext;
@@ -61,6 +62,7 @@ public class OCLKernel extends TornadoLogger {
 
     native static void clGetKernelInfo(long kernelId, int info, byte[] buffer) throws OCLException;
 
+    @Override
     public void setArg(int index, ByteBuffer buffer) {
         try {
             clSetKernelArg(oclKernelID, index, buffer.position(), buffer.array());
@@ -78,6 +80,7 @@ public class OCLKernel extends TornadoLogger {
         }
     }
 
+    @Override
     public void setArgUnused(int index) {
         try {
             clSetKernelArg(oclKernelID, index, 8, null);
@@ -92,6 +95,7 @@ public class OCLKernel extends TornadoLogger {
         setArg(index, buffer);
     }
 
+    @Override
     public void setLocalRegion(int index, long size) {
         long maxSize = deviceContext.getDevice().getDeviceLocalMemorySize();
         guarantee(size <= maxSize, "local allocation is too large for device");
@@ -109,9 +109,9 @@ public class OpenCL {
 
     private static void initializeVirtual() {
         if (!initialised) {
-            VirtualDeviceDescriptor info = VirtualJSONParser.getDeviceDescriptor();
+            List<VirtualDeviceDescriptor> descriptors = VirtualJSONParser.getDeviceDescriptors();
 
-            VirtualOCLPlatform platform = new VirtualOCLPlatform(info);
+            VirtualOCLPlatform platform = new VirtualOCLPlatform(descriptors);
             platforms.add(platform);
 
             initialised = true;
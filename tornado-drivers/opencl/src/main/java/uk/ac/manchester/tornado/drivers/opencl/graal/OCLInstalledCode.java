@@ -39,6 +39,8 @@ import uk.ac.manchester.tornado.api.exceptions.TornadoRuntimeException;
 import uk.ac.manchester.tornado.api.memory.ObjectBuffer;
 import uk.ac.manchester.tornado.api.profiler.ProfilerType;
 import uk.ac.manchester.tornado.api.profiler.TornadoProfiler;
+import uk.ac.manchester.tornado.drivers.common.KernelArgumentCache;
+import uk.ac.manchester.tornado.drivers.common.KernelArgumentSetter;
 import uk.ac.manchester.tornado.drivers.common.mm.PrimitiveSerialiser;
 import uk.ac.manchester.tornado.drivers.opencl.OCLDeviceContext;
 import uk.ac.manchester.tornado.drivers.opencl.OCLGPUScheduler;
@@ -69,6 +71,8 @@ public class OCLInstalledCode extends InstalledCode implements TornadoInstalledC
     private final long[] singleThreadGlobalWorkSize = new long[] { 1 };
     private final long[] singleThreadLocalWorkSize = new long[] { 1 };
     private final boolean isSPIRVBinary;
+    private final KernelArgumentSetter argumentSetter;
+    private final KernelArgumentCache argumentCache;
     private boolean valid;
 
     public OCLInstalledCode(final String entryPoint, final byte[] code, final OCLDeviceContext deviceContext, final OCLProgram program, final OCLKernel kernel, boolean isSPIRVBinary) {
@@ -82,12 +86,22 @@ public class OCLInstalledCode extends InstalledCode implements TornadoInstalledC
         valid = kernel != null;
         buffer.order(deviceContext.getByteOrder());
         this.isSPIRVBinary = isSPIRVBinary;
+        if (TornadoOptions.CACHE_KERNEL_ARGUMENTS && kernel != null) {
+            this.argumentCache = new KernelArgumentCache(kernel);
+            this.argumentSetter = argumentCache;
+        } else {
+            this.argumentCache = null;
+            this.argumentSetter = kernel;
+        }
     }
 
     @Override
     public void invalidate() {
         if (valid) {
             kernel.cleanup();
+            if (argumentCache != null) {
+                argumentCache.invalidate();
+            }
             valid = false;
         }
     }
@@ -105,6 +119,14 @@ public class OCLInstalledCode extends InstalledCode implements TornadoInstalledC
         return kernel;
     }
 
+    /**
+     * @return The snapshot of the kernel arguments, or null if the kernel
+     *         arguments are not cached.
+     */
+    public KernelArgumentCache getArgumentCache() {
+        return argumentCache;
+    }
+
     /**
      * stack needs to be read so that the return value is transferred back to the
      * host.- As this is blocking then no clFinish() is needed
@@ -141,7 +163,9 @@ public class OCLInstalledCode extends InstalledCode implements TornadoInstalledC
     }
 
     /**
-     * Set arguments into the OpenCL device Kernel.
+     * Set arguments into the OpenCL device Kernel. When the kernel arguments
+     * are cached, only the arguments that changed since the previous launch are
+     * set.
      *
      * @param kernelArgs
      *            OpenCL kernel parameters {@link OCLByteBuffer}
@@ -151,17 +175,21 @@ public class OCLInstalledCode extends InstalledCode implements TornadoInstalledC
     private void setKernelArgs(final OCLKernelArgs kernelArgs, final ObjectBuffer atomicSpace, TaskMetaData meta) {
         int index = 0;
 
+        if (argumentCache != null) {
+            argumentCache.validate(deviceContext.getPlatformContext().getReleaseGeneration());
+        }
+
         if (deviceContext.needsBump()) {
             buffer.clear();
             buffer.putLong(deviceContext.getBumpBuffer());
-            kernel.setArg(index, buffer);
+            argumentSetter.setArg(index, buffer);
             index++;
         }
 
         // kernel context
         buffer.clear();
         buffer.putLong(kernelArgs.toBuffer());
-        kernel.setArg(index, buffer);
+        argumentSetter.setArg(index, buffer);
         index++;
 
         if (isSPIRVBinary) {
@@ -172,14 +200,14 @@ public class OCLInstalledCode extends InstalledCode implements TornadoInstalledC
                 if (arg.getValue() instanceof KernelArgs.KernelContextArgument) {
                     buffer.clear();
                     buffer.putLong(kernelArgs.toBuffer());
-                    kernel.setArg(index + argIndex, buffer);
+                    argumentSetter.setArg(index + argIndex, buffer);
                     argIndex++;
                     continue;
                 }
                 if (isBoxedPrimitive(arg.getValue()) || arg.getValue().getClass().isPrimitive()) {
                     buffer.clear();
                     PrimitiveSerialiser.put(buffer, arg.getValue());
-                    kernel.setArg(index + argIndex, buffer);
+                    argumentSetter.setArg(index + argIndex, buffer);
                 } else {
                     shouldNotReachHere();
                 }
@@ -190,27 +218,27 @@ public class OCLInstalledCode extends InstalledCode implements TornadoInstalledC
 
         // constant memory
         if (meta != null && meta.getConstantSize() > 0) {
-            kernel.setArg(index, ByteBuffer.wrap(meta.getConstantData()));
+            argumentSetter.setArg(index, KernelArgumentCache.wrap(meta.getConstantData()));
         } else {
             buffer.clear();
             buffer.putLong(kernelArgs.toConstantAddress());
-            kernel.setArg(index, buffer);
+            argumentSetter.setArg(index, buffer);
         }
         index++;
 
         // local memory
         if (meta != null && meta.getLocalSize() > 0) {
             info("\tallocating %s of local memory", RuntimeUtilities.humanReadableByteCount(meta.getLocalSize(), true));
-            kernel.setLocalRegion(index, meta.getLocalSize());
+            argumentSetter.setLocalRegion(index, meta.getLocalSize());
         } else {
-            kernel.setArgUnused(index);
+            argumentSetter.setArgUnused(index);
         }
         index++;
 
         // Atomics in Global Memory
         buffer.clear();
         buffer.putLong(kernelArgs.toAtomicAddress());
-        kernel.setArg(index, buffer);
+        argumentSetter.setArg(index, buffer);
         index++;
 
         // Parameters
@@ -222,7 +250,7 @@ public class OCLInstalledCode extends InstalledCode implements TornadoInstalledC
             if (isBoxedPrimitive(arg.getValue()) || arg.getValue().getClass().isPrimitive()) {
                 buffer.clear();
                 PrimitiveSerialiser.put(buffer, arg.getValue());
-                kernel.setArg(index + argIndex, buffer);
+                argumentSetter.setArg(index + argIndex, buffer);
             } else {
                 shouldNotReachHere();
             }
@@ -237,9 +265,6 @@ public class OCLInstalledCode extends InstalledCode implements TornadoInstalledC
             info("kernel submitted: id=0x%x, method = %s, device =%s", kernel.getOclKernelID(), kernel.getName(), deviceContext.getDevice().getDeviceName());
         }
 
-        /*
-         * Only set the kernel arguments if they are either: - not set or - have changed
-         */
         final int[] waitEvents;
         setKernelArgs(kernelArgs, atomicSpace, meta);
         internalEvents[0] = kernelArgs.enqueueWrite(events);
@@ -313,11 +338,10 @@ public class OCLInstalledCode extends InstalledCode implements TornadoInstalledC
         if (TornadoOptions.isProfilerEnabled()) {
             Event tornadoKernelEvent = deviceContext.resolveEvent(task);
             tornadoKernelEvent.waitForEvents();
-            long timer = meta.getProfiler().getTimer(ProfilerType.TOTAL_KERNEL_TIME);
             // Register globalTime
-            meta.getProfiler().setTimer(ProfilerType.TOTAL_KERNEL_TIME, timer + tornadoKernelEvent.getElapsedTime());
+            meta.getProfiler().sum(ProfilerType.TOTAL_KERNEL_TIME, tornadoKernelEvent.getElapsedTime());
             // Register the time for the task
-            meta.getProfiler().setTaskTimer(ProfilerType.TASK_KERNEL_TIME, meta.getId(), tornadoKernelEvent.getElapsedTime());
+            meta.getProfiler().setTaskTimer(ProfilerType.TASK_KERNEL_TIME, meta.getProfilerSlot(), tornadoKernelEvent.getElapsedTime());
             // Register the dispatch time of the kernel
             long dispatchValue = meta.getProfiler().getTimer(ProfilerType.TOTAL_DISPATCH_KERNEL_TIME);
             dispatchValue += tornadoKernelEvent.getDriverDispatchTime();
@@ -388,7 +412,7 @@ public class OCLInstalledCode extends InstalledCode implements TornadoInstalledC
             long copyInTimer = meta.getProfiler().getTimer(ProfilerType.COPY_IN_TIME);
             copyInTimer += event.getElapsedTime();
             profiler.setTimer(ProfilerType.COPY_IN_TIME, copyInTimer);
-            profiler.addValueToMetric(ProfilerType.TOTAL_COPY_IN_SIZE_BYTES, meta.getId(), callWrapper.getSize());
+            profiler.addValueToMetric(ProfilerType.TOTAL_COPY_IN_SIZE_BYTES, meta.getProfilerSlot(), callWrapper.getSize());
 
             long dispatchValue = profiler.getTimer(ProfilerType.TOTAL_DISPATCH_DATA_TRANSFERS_TIME);
             dispatchValue += event.getDriverDispatchTime();
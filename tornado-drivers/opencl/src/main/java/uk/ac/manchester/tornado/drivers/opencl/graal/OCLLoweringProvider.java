@@ -93,6 +93,7 @@ import jdk.vm.ci.meta.ResolvedJavaField;
 import jdk.vm.ci.meta.ResolvedJavaType;
 import uk.ac.manchester.tornado.api.exceptions.Debug;
 import uk.ac.manchester.tornado.drivers.opencl.OCLTargetDescription;
+import uk.ac.manchester.tornado.drivers.opencl.graal.lir.OCLAtomicArrayNode;
 import uk.ac.manchester.tornado.drivers.opencl.graal.lir.OCLKind;
 import uk.ac.manchester.tornado.drivers.opencl.graal.lir.OCLWriteAtomicNode;
 import uk.ac.manchester.tornado.drivers.opencl.graal.lir.OCLWriteAtomicNode.ATOMIC_OPERATION;
@@ -109,6 +110,7 @@ import uk.ac.manchester.tornado.drivers.opencl.graal.nodes.calc.DivNode;
 import uk.ac.manchester.tornado.drivers.opencl.graal.snippets.ReduceCPUSnippets;
 import uk.ac.manchester.tornado.drivers.opencl.graal.snippets.ReduceGPUSnippets;
 import uk.ac.manchester.tornado.runtime.TornadoVMConfig;
+import uk.ac.manchester.tornado.runtime.graal.nodes.AtomicArrayNode;
 import uk.ac.manchester.tornado.runtime.graal.nodes.GetGroupIdFixedWithNextNode;
 import uk.ac.manchester.tornado.runtime.graal.nodes.GlobalGroupSizeFixedWithNextNode;
 import uk.ac.manchester.tornado.runtime.graal.nodes.LocalGroupSizeFixedWithNextNode;
@@ -184,6 +186,8 @@ public class OCLLoweringProvider extends DefaultJavaLoweringProvider {
             lowerStoreIndexedNode((StoreIndexedNode) node, tool);
         } else if (node instanceof StoreAtomicIndexedNode) {
             lowerStoreAtomicsReduction(node, tool);
+        } else if (node instanceof AtomicArrayNode) {
+            lowerAtomicArrayNode((AtomicArrayNode) node);
         } else if (node instanceof LoadFieldNode) {
             lowerLoadFieldNode((LoadFieldNode) node, tool);
         } else if (node instanceof StoreFieldNode) {
@@ -392,6 +396,16 @@ public class OCLLoweringProvider extends DefaultJavaLoweringProvider {
         graph.replaceFixedWithFixed(storeIndexed, memoryWrite);
     }
 
+    private void lowerAtomicArrayNode(AtomicArrayNode atomicArray) {
+        StructuredGraph graph = atomicArray.graph();
+        JavaKind elementKind = atomicArray.elementKind();
+        AddressNode address = createArrayAddress(graph, atomicArray.array(), elementKind, atomicArray.index());
+        OCLAtomicArrayNode atomicNode = graph.add(new OCLAtomicArrayNode(address, atomicArray.getKilledLocationIdentity(), elementKind, atomicArray.getOperation(), atomicArray.expected(),
+                atomicArray.value()));
+        atomicNode.setStateAfter(atomicArray.stateAfter());
+        graph.replaceFixedWithFixed(atomicArray, atomicNode);
+    }
+
     @Override
     public void lowerStoreIndexedNode(StoreIndexedNode storeIndexed, LoweringTool tool) {
         StructuredGraph graph = storeIndexed.graph();
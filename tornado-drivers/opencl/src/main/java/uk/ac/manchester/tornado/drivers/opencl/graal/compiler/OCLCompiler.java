@@ -82,6 +82,7 @@ import jdk.vm.ci.meta.DefaultProfilingInfo;
 import jdk.vm.ci.meta.ProfilingInfo;
 import jdk.vm.ci.meta.ResolvedJavaMethod;
 import jdk.vm.ci.meta.TriState;
+import uk.ac.manchester.tornado.api.common.Access;
 import uk.ac.manchester.tornado.api.exceptions.TornadoInternalError;
 import uk.ac.manchester.tornado.api.profiler.TornadoProfiler;
 import uk.ac.manchester.tornado.drivers.opencl.OCLDeviceContext;
@@ -101,6 +102,7 @@ import uk.ac.manchester.tornado.runtime.graal.phases.TornadoMidTierContext;
 import uk.ac.manchester.tornado.runtime.sketcher.Sketch;
 import uk.ac.manchester.tornado.runtime.sketcher.TornadoSketcher;
 import uk.ac.manchester.tornado.runtime.tasks.CompilableTask;
+import uk.ac.manchester.tornado.runtime.tasks.FusedTask;
 import uk.ac.manchester.tornado.runtime.tasks.meta.TaskMetaData;
 
 /**
@@ -461,6 +463,37 @@ public class OCLCompiler {
         return kernelCompResult;
     }
 
+    /**
+     * It compiles each task of a {@link FusedTask} and composes the generated
+     * kernels into a single OpenCL kernel. The fused task takes the domain of its
+     * first task, since all tasks of a chain share the same iteration space.
+     */
+    public static OCLCompilationResult compileFusedTaskForDevice(FusedTask task, OCLProviders providers, OCLBackend backend) {
+        final List<CompilableTask> tasks = task.getTasks();
+        final byte[][] kernels = new byte[tasks.size()][];
+        for (int i = 0; i < tasks.size(); i++) {
+            final CompilableTask component = tasks.get(i);
+            final ResolvedJavaMethod resolvedMethod = TornadoCoreRuntime.getTornadoRuntime().resolveMethod(component.getMethod());
+            final Sketch sketch = TornadoSketcher.lookupOrBuild(resolvedMethod, component.meta().getDriverIndex(), component.meta().getDeviceIndex());
+            final Access[] sketchAccess = sketch.getArgumentsAccess();
+            System.arraycopy(sketchAccess, 0, component.meta().getArgumentsAccess(), 0, sketchAccess.length);
+            kernels[i] = compileSketchForDevice(sketch, component, providers, backend, component.getProfiler()).getTargetCode();
+        }
+
+        final TaskMetaData taskMeta = task.meta();
+        final TaskMetaData firstMeta = tasks.get(0).meta();
+        if (firstMeta.getDomain() != null) {
+            taskMeta.setDomain(firstMeta.getDomain());
+        }
+        taskMeta.setCompiledGraph(firstMeta.getCompiledResolvedJavaMethod());
+
+        info("Fusing %d kernels into %s on %s", tasks.size(), task.getTaskName(), backend.getDeviceContext().getDevice().getDeviceName());
+        final byte[] source = OCLFusedKernelBuilder.build(task, kernels);
+        final OCLCompilationResult kernelCompResult = new OCLCompilationResult(task.getId(), task.getTaskName(), taskMeta, backend);
+        kernelCompResult.setTargetCode(source, source.length);
+        return kernelCompResult;
+    }
+
     // FIXME <REFACTOR> Remove the inheritance (See SPIRV and PTX)
     public static class Request<T extends OCLCompilationResult> {
 
@@ -66,8 +66,8 @@ public class OCLCompilerConfiguration implements TornadoCompilerConfiguration {
     }
 
     @Override
-    public TornadoMidTier createMidTier(OptionValues options) {
-        return new OCLMidTier(options);
+    public TornadoMidTier createMidTier(OptionValues options, TornadoDeviceContext deviceContext) {
+        return new OCLMidTier(options, deviceContext);
     }
 
     @Override
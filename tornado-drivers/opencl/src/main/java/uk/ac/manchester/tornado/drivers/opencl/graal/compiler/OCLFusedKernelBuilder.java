@@ -0,0 +1,183 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2023, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.drivers.opencl.graal.compiler;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import uk.ac.manchester.tornado.api.exceptions.TornadoBailoutRuntimeException;
+import uk.ac.manchester.tornado.drivers.opencl.graal.asm.OCLAssemblerConstants;
+import uk.ac.manchester.tornado.runtime.tasks.FusedTask;
+
+/**
+ * It composes the OpenCL kernels of the tasks of a {@link FusedTask} into a
+ * single kernel. Each kernel becomes a function that is called, in the order of
+ * the task-graph, from the fused kernel. All kernels of a chain iterate over the
+ * same index space, so each work-item runs the same iterations of every task
+ * and the values of the intermediate arrays are visible to the next task
+ * without a barrier.
+ *
+ * <p>
+ * The fused kernel receives the ABI parameters of the first kernel (kernel
+ * context, constant, local and atomic regions) followed by the arguments of the
+ * fused task.
+ * </p>
+ */
+public final class OCLFusedKernelBuilder {
+
+    private static final Pattern KERNEL_SIGNATURE = Pattern.compile(OCLAssemblerConstants.KERNEL_MODIFIER + "\\s+void\\s+(\\w+)\\((.*)\\)");
+    private static final Pattern PARAMETER_NAME = Pattern.compile("(\\w+)\\s*$");
+
+    private OCLFusedKernelBuilder() {
+    }
+
+    /**
+     * It builds the source of the fused kernel.
+     *
+     * @param task
+     *            The {@link FusedTask} to build.
+     * @param kernels
+     *            The OpenCL source of each task of the chain.
+     * @return The OpenCL source of the fused kernel.
+     */
+    public static byte[] build(FusedTask task, byte[][] kernels) {
+        final Set<String> directives = new LinkedHashSet<>();
+        final Set<String> definitions = new LinkedHashSet<>();
+        final StringBuilder functions = new StringBuilder();
+        final StringBuilder calls = new StringBuilder();
+        final String[] parameters = new String[task.getArguments().length];
+        final Set<String> parameterNames = new HashSet<>();
+        List<String> abiParameters = null;
+
+        for (int i = 0; i < kernels.length; i++) {
+            final String source = new String(kernels[i], StandardCharsets.UTF_8);
+            final Matcher signature = KERNEL_SIGNATURE.matcher(source);
+            if (!signature.find()) {
+                throw new TornadoBailoutRuntimeException("[ERROR] Kernel signature not found when fusing " + task.getFullName());
+            }
+
+            collectPreamble(source.substring(0, signature.start()), directives, definitions);
+
+            final String functionName = signature.group(1) + "_" + i;
+            functions.append("void ").append(functionName).append("(").append(signature.group(2)).append(")");
+            functions.append(source.substring(signature.end())).append("\n");
+
+            final List<String> kernelParameters = Arrays.asList(signature.group(2).split(",\\s*"));
+            final int[] argumentIndexes = task.getArgumentIndexes(i);
+            final int numABIParameters = kernelParameters.size() - argumentIndexes.length;
+            if (abiParameters == null) {
+                abiParameters = kernelParameters.subList(0, numABIParameters);
+                abiParameters.forEach(parameter -> parameterNames.add(getParameterName(parameter)));
+            }
+
+            final List<String> callArguments = new ArrayList<>();
+            abiParameters.forEach(parameter -> callArguments.add(getParameterName(parameter)));
+            for (int j = 0; j < argumentIndexes.length; j++) {
+                final int index = argumentIndexes[j];
+                if (parameters[index] == null) {
+                    parameters[index] = declareParameter(kernelParameters.get(numABIParameters + j), index, parameterNames);
+                }
+                callArguments.add(getParameterName(parameters[index]));
+            }
+            calls.append("  ").append(functionName).append("(").append(String.join(", ", callArguments)).append(");\n");
+        }
+
+        final StringBuilder fusedKernel = new StringBuilder();
+        directives.forEach(line -> fusedKernel.append(line).append("\n"));
+        definitions.forEach(fusedKernel::append);
+        fusedKernel.append(functions);
+        fusedKernel.append(OCLAssemblerConstants.KERNEL_MODIFIER).append(" void ").append(task.getTaskName()).append("(");
+        fusedKernel.append(String.join(", ", abiParameters)).append(", ").append(String.join(", ", parameters)).append(")\n");
+        fusedKernel.append("{\n").append(calls).append("}\n");
+        return fusedKernel.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * It splits the code that precedes a kernel into top-level {@code #pragma}
+     * directives and definitions (e.g., atomic intrinsics or non-inlined
+     * methods). Extensions are enabled once for the fused kernel, and a function
+     * that precedes several kernels is defined once. Directives within the body
+     * of a function, such as {@code #pragma unroll}, stay in the function.
+     */
+    private static void collectPreamble(String preamble, Set<String> directives, Set<String> definitions) {
+        final StringBuilder definition = new StringBuilder();
+        int depth = 0;
+        for (String line : preamble.split("\n")) {
+            final String trimmed = line.trim();
+            if (depth == 0 && definition.length() == 0) {
+                if (trimmed.startsWith(OCLAssemblerConstants.PRAGMA)) {
+                    directives.add(trimmed);
+                    continue;
+                } else if (trimmed.isEmpty()) {
+                    continue;
+                }
+            }
+            definition.append(line).append("\n");
+            depth += countOf(line, '{') - countOf(line, '}');
+            if (depth == 0 && (trimmed.endsWith("}") || trimmed.endsWith(";"))) {
+                definitions.add(definition.toString());
+                definition.setLength(0);
+            }
+        }
+        if (definition.length() > 0) {
+            definitions.add(definition.toString());
+        }
+    }
+
+    private static int countOf(String line, char character) {
+        int count = 0;
+        for (int i = 0; i < line.length(); i++) {
+            if (line.charAt(i) == character) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static String getParameterName(String declaration) {
+        final Matcher matcher = PARAMETER_NAME.matcher(declaration);
+        return matcher.find() ? matcher.group(1) : declaration;
+    }
+
+    /**
+     * Arguments of different tasks can share a parameter name, so the name is
+     * made unique with the index of the argument.
+     */
+    private static String declareParameter(String declaration, int index, Set<String> parameterNames) {
+        final String name = getParameterName(declaration);
+        if (parameterNames.add(name)) {
+            return declaration;
+        }
+        final String uniqueName = name + "_" + index;
+        parameterNames.add(uniqueName);
+        return declaration.substring(0, declaration.length() - name.length()) + uniqueName;
+    }
+}
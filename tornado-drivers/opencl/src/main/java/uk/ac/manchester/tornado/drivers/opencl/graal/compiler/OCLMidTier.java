@@ -38,6 +38,9 @@ import org.graalvm.compiler.phases.common.MidTierLoweringPhase;
 import org.graalvm.compiler.phases.common.ReassociationPhase;
 import org.graalvm.compiler.phases.common.RemoveValueProxyPhase;
 
+import uk.ac.manchester.tornado.api.TornadoDeviceContext;
+import uk.ac.manchester.tornado.api.enums.TornadoDeviceType;
+import uk.ac.manchester.tornado.drivers.opencl.OCLDeviceContextInterface;
 import uk.ac.manchester.tornado.drivers.opencl.graal.phases.BoundCheckEliminationPhase;
 import uk.ac.manchester.tornado.drivers.opencl.graal.phases.TornadoFloatingReadReplacement;
 import uk.ac.manchester.tornado.drivers.opencl.graal.phases.TornadoPartialLoopUnroll;
@@ -47,7 +50,7 @@ import uk.ac.manchester.tornado.runtime.graal.phases.ExceptionCheckingEliminatio
 
 public class OCLMidTier extends TornadoMidTier {
 
-    public OCLMidTier(OptionValues options) {
+    public OCLMidTier(OptionValues options, TornadoDeviceContext deviceContext) {
 
         appendPhase(new ExceptionCheckingElimination());
 
@@ -75,7 +78,7 @@ public class OCLMidTier extends TornadoMidTier {
         appendPhase(canonicalizer);
 
         if (TornadoOptions.isPartialUnrollEnabled()) {
-            appendPhase(new TornadoPartialLoopUnroll());
+            appendPhase(new TornadoPartialLoopUnroll(getDeviceType(deviceContext)));
         }
 
         appendPhase(new MidTierLoweringPhase(canonicalizer));
@@ -88,4 +91,20 @@ public class OCLMidTier extends TornadoMidTier {
 
         appendPhase(canonicalizer);
     }
+
+    private static TornadoDeviceType getDeviceType(TornadoDeviceContext deviceContext) {
+        if (deviceContext.isPlatformFPGA()) {
+            return TornadoDeviceType.FPGA;
+        }
+        switch (((OCLDeviceContextInterface) deviceContext).getDevice().getDeviceType()) {
+            case CL_DEVICE_TYPE_CPU:
+                return TornadoDeviceType.CPU;
+            case CL_DEVICE_TYPE_GPU:
+                return TornadoDeviceType.GPU;
+            case CL_DEVICE_TYPE_ACCELERATOR:
+                return TornadoDeviceType.ACCELERATOR;
+            default:
+                return TornadoDeviceType.DEFAULT;
+        }
+    }
 }
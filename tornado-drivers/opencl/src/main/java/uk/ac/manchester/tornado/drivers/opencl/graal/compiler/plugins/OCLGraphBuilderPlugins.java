@@ -66,11 +66,9 @@ import jdk.vm.ci.meta.JavaConstant;
 import jdk.vm.ci.meta.JavaKind;
 import jdk.vm.ci.meta.ResolvedJavaMethod;
 import uk.ac.manchester.tornado.api.KernelContext;
-import uk.ac.manchester.tornado.api.TornadoVM_Intrinsics;
 import uk.ac.manchester.tornado.api.exceptions.Debug;
 import uk.ac.manchester.tornado.drivers.opencl.graal.OCLArchitecture;
 import uk.ac.manchester.tornado.drivers.opencl.graal.lir.OCLKind;
-import uk.ac.manchester.tornado.drivers.opencl.graal.nodes.AtomicAddNodeTemplate;
 import uk.ac.manchester.tornado.drivers.opencl.graal.nodes.DecAtomicNode;
 import uk.ac.manchester.tornado.drivers.opencl.graal.nodes.GetAtomicNode;
 import uk.ac.manchester.tornado.drivers.opencl.graal.nodes.IncAtomicNode;
@@ -84,6 +82,8 @@ import uk.ac.manchester.tornado.drivers.opencl.graal.nodes.PrintfNode;
 import uk.ac.manchester.tornado.drivers.opencl.graal.nodes.TPrintfNode;
 import uk.ac.manchester.tornado.drivers.opencl.graal.nodes.TornadoAtomicIntegerNode;
 import uk.ac.manchester.tornado.runtime.common.TornadoOptions;
+import uk.ac.manchester.tornado.runtime.graal.compiler.TornadoAtomicPlugins;
+import uk.ac.manchester.tornado.runtime.graal.compiler.TornadoNativeArrayPlugins;
 
 public class OCLGraphBuilderPlugins {
 
@@ -96,33 +96,18 @@ public class OCLGraphBuilderPlugins {
         registerOpenCLBuiltinPlugins(plugins);
 
         // Register Atomics
-        registerTornadoVMAtomicsPlugins(plugins);
+        TornadoAtomicPlugins.registerPlugins(plugins);
         // Register KernelContext Plugins
         registerKernelContextPlugins(plugins);
 
         OCLMathPlugins.registerTornadoMathPlugins(plugins);
         VectorPlugins.registerPlugins(ps, plugins);
+        TornadoNativeArrayPlugins.registerPlugins(plugins);
 
         // Register TornadoAtomicInteger
         registerTornadoAtomicInteger(ps, plugins);
     }
 
-    private static void registerTornadoVMAtomicsPlugins(Registration r) {
-        r.register(new InvocationPlugin("atomic_add", int[].class, Integer.TYPE, Integer.TYPE) {
-            @Override
-            public boolean apply(GraphBuilderContext b, ResolvedJavaMethod targetMethod, Receiver receiver, ValueNode array, ValueNode index, ValueNode inc) {
-                AtomicAddNodeTemplate atomicIncNode = new AtomicAddNodeTemplate(array, index, inc);
-                b.addPush(JavaKind.Int, b.append(atomicIncNode));
-                return true;
-            }
-        });
-    }
-
-    private static void registerTornadoVMAtomicsPlugins(InvocationPlugins plugins) {
-        Registration r = new Registration(plugins, TornadoVM_Intrinsics.class);
-        registerTornadoVMAtomicsPlugins(r);
-    }
-
     private static boolean isMethodFromAtomicClass(ResolvedJavaMethod method) {
         return method.getDeclaringClass().toJavaName().equals("uk.ac.manchester.tornado.api.atomics.TornadoAtomicInteger")
                 || method.getDeclaringClass().toJavaName().equals("java.util.concurrent.atomic.AtomicInteger");
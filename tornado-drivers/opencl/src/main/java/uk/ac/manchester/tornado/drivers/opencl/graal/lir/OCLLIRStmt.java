@@ -23,6 +23,10 @@
  */
 package uk.ac.manchester.tornado.drivers.opencl.graal.lir;
 
+import static org.graalvm.compiler.lir.LIRInstruction.OperandFlag.ILLEGAL;
+import static org.graalvm.compiler.lir.LIRInstruction.OperandFlag.REG;
+import static uk.ac.manchester.tornado.api.exceptions.TornadoInternalError.shouldNotReachHere;
+
 import org.graalvm.compiler.lir.LIRInstruction;
 import org.graalvm.compiler.lir.LIRInstructionClass;
 import org.graalvm.compiler.lir.Opcode;
@@ -37,6 +41,7 @@ import uk.ac.manchester.tornado.drivers.opencl.graal.compiler.OCLCompilationResu
 import uk.ac.manchester.tornado.drivers.opencl.graal.lir.OCLUnary.MemoryAccess;
 import uk.ac.manchester.tornado.drivers.opencl.graal.lir.OCLUnary.OCLAddressCast;
 import uk.ac.manchester.tornado.drivers.opencl.graal.meta.OCLMemorySpace;
+import uk.ac.manchester.tornado.runtime.graal.nodes.AtomicArrayNode.Operation;
 
 public class OCLLIRStmt {
 
@@ -955,4 +960,193 @@ public class OCLLIRStmt {
 
         }
     }
+
+    /**
+     * Atomic read-modify-write of an array element. The result is the value of
+     * the element before the update. The operations that OpenCL does not provide
+     * as built-ins (add, min and max for floats, and min and max for longs, which
+     * would require the cl_khr_int64_extended_atomics extension) are emitted as a
+     * compare-and-swap loop.
+     */
+    @Opcode("ATOMIC_ARRAY")
+    public static class AtomicArrayStmt extends AbstractInstruction {
+
+        public static final LIRInstructionClass<AtomicArrayStmt> TYPE = LIRInstructionClass.create(AtomicArrayStmt.class);
+
+        @Def
+        protected AllocatableValue result;
+        @Use
+        protected OCLAddressCast cast;
+        @Use
+        protected MemoryAccess address;
+        /**
+         * Value.ILLEGAL unless the operation is a compare-and-swap.
+         */
+        @Use({ REG, ILLEGAL })
+        protected Value expected;
+        @Use
+        protected Value value;
+
+        private final Operation operation;
+
+        public AtomicArrayStmt(AllocatableValue result, Operation operation, OCLAddressCast cast, MemoryAccess address, Value expected, Value value) {
+            super(TYPE);
+            this.result = result;
+            this.operation = operation;
+            this.cast = cast;
+            this.address = address;
+            this.expected = expected;
+            this.value = value;
+        }
+
+        private OCLKind getElementKind() {
+            return (OCLKind) result.getPlatformKind();
+        }
+
+        private boolean isLocalOrPrivateAccess() {
+            return cast.getMemorySpace() == OCLMemorySpace.LOCAL || cast.getMemorySpace() == OCLMemorySpace.PRIVATE;
+        }
+
+        private boolean needsCompareAndSwapLoop() {
+            switch (getElementKind()) {
+                case FLOAT:
+                    return operation != Operation.EXCHANGE;
+                case LONG:
+                    return operation == Operation.MIN || operation == Operation.MAX;
+                default:
+                    return false;
+            }
+        }
+
+        private String getBuiltinName() {
+            String prefix = (getElementKind() == OCLKind.LONG) ? "atom_" : "atomic_";
+            switch (operation) {
+                case ADD:
+                    return prefix + "add";
+                case MIN:
+                    return prefix + "min";
+                case MAX:
+                    return prefix + "max";
+                case EXCHANGE:
+                    return prefix + "xchg";
+                case COMPARE_AND_SWAP:
+                    return prefix + "cmpxchg";
+                default:
+                    throw shouldNotReachHere("Atomic operation not supported: %s", operation);
+            }
+        }
+
+        private void emitPointer(OCLCompilationResultBuilder crb, OCLAssembler asm) {
+            if (isLocalOrPrivateAccess()) {
+                asm.emit("&");
+                address.emit(crb, asm);
+                asm.emit("[");
+                asm.emitValue(crb, address.getIndex());
+                asm.emit("]");
+            } else {
+                asm.emit("&(*(");
+                cast.emit(crb, asm);
+                asm.space();
+                address.emit(crb, asm);
+                asm.emit("))");
+            }
+        }
+
+        private void emitBuiltin(OCLCompilationResultBuilder crb, OCLAssembler asm) {
+            asm.indent();
+            asm.emitValue(crb, result);
+            asm.space();
+            asm.assign();
+            asm.space();
+            asm.emit(getBuiltinName() + "(");
+            emitPointer(crb, asm);
+            asm.emit(", ");
+            if (operation == Operation.COMPARE_AND_SWAP) {
+                asm.emitValue(crb, expected);
+                asm.emit(", ");
+            }
+            asm.emitValue(crb, value);
+            asm.emit(")");
+            asm.delimiter();
+            asm.eol();
+        }
+
+        private void emitNewValue(OCLCompilationResultBuilder crb, OCLAssembler asm, String current) {
+            switch (operation) {
+                case ADD:
+                    asm.emit(current + " + ");
+                    asm.emitValue(crb, value);
+                    break;
+                case MIN:
+                    asm.emit(((getElementKind() == OCLKind.FLOAT) ? "fmin(" : "min(") + current + ", ");
+                    asm.emitValue(crb, value);
+                    asm.emit(")");
+                    break;
+                case MAX:
+                    asm.emit(((getElementKind() == OCLKind.FLOAT) ? "fmax(" : "max(") + current + ", ");
+                    asm.emitValue(crb, value);
+                    asm.emit(")");
+                    break;
+                default:
+                    throw shouldNotReachHere("Atomic operation not supported: %s", operation);
+            }
+        }
+
+        private void emitCompareAndSwapLoop(OCLCompilationResultBuilder crb, OCLAssembler asm) {
+            final boolean isFloat = getElementKind() == OCLKind.FLOAT;
+            final String type = isFloat ? "uint" : getElementKind().toString();
+            final String pointerType = "volatile " + cast.getMemorySpace().name() + " " + type + " *";
+
+            asm.beginScope();
+            asm.indent();
+            asm.emit(pointerType + "_ptr = (" + pointerType + ") ");
+            emitPointer(crb, asm);
+            asm.delimiter();
+            asm.eol();
+            asm.emitLine(type + " _expected, _current = *_ptr;");
+            asm.emitLine("do {");
+            asm.pushIndent();
+            asm.emitLine("_expected = _current;");
+            asm.indent();
+            asm.emit("_current = " + (isFloat ? "atomic_cmpxchg" : "atom_cmpxchg") + "(_ptr, _expected, ");
+            if (isFloat) {
+                asm.emit("as_uint(");
+                emitNewValue(crb, asm, "as_float(_expected)");
+                asm.emit(")");
+            } else {
+                emitNewValue(crb, asm, "_expected");
+            }
+            asm.emit(")");
+            asm.delimiter();
+            asm.eol();
+            asm.popIndent();
+            asm.emitLine("} while (_current != _expected);");
+            asm.indent();
+            asm.emitValue(crb, result);
+            asm.space();
+            asm.assign();
+            asm.space();
+            asm.emit(isFloat ? "as_float(_current)" : "_current");
+            asm.delimiter();
+            asm.eol();
+            asm.endScope();
+        }
+
+        @Override
+        public void emitCode(OCLCompilationResultBuilder crb, OCLAssembler asm) {
+            if (needsCompareAndSwapLoop()) {
+                emitCompareAndSwapLoop(crb, asm);
+            } else {
+                emitBuiltin(crb, asm);
+            }
+        }
+
+        public AllocatableValue getResult() {
+            return result;
+        }
+
+        public Operation getOperation() {
+            return operation;
+        }
+    }
 }
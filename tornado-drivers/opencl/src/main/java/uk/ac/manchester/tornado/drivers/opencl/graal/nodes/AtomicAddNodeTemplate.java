@@ -1,65 +0,0 @@
-/*
- * Copyright (c) 2020, APT Group, Department of Computer Science,
- * The University of Manchester. All rights reserved.
- * Copyright (c) 2009, 2017, Oracle and/or its affiliates. All rights reserved.
- * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
- *
- * This code is free software; you can redistribute it and/or modify it
- * under the terms of the GNU General Public License version 2 only, as
- * published by the Free Software Foundation.
- *
- * This code is distributed in the hope that it will be useful, but WITHOUT
- * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
- * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
- * version 2 for more details (a copy is included in the LICENSE file that
- * accompanied this code).
- *
- * You should have received a copy of the GNU General Public License version
- * 2 along with this work; if not, write to the Free Software Foundation,
- * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
- *
- */
-package uk.ac.manchester.tornado.drivers.opencl.graal.nodes;
-
-import org.graalvm.compiler.core.common.type.StampFactory;
-import org.graalvm.compiler.graph.NodeClass;
-import org.graalvm.compiler.lir.Variable;
-import org.graalvm.compiler.lir.gen.LIRGeneratorTool;
-import org.graalvm.compiler.nodeinfo.NodeInfo;
-import org.graalvm.compiler.nodes.ValueNode;
-import org.graalvm.compiler.nodes.calc.FloatingNode;
-import org.graalvm.compiler.nodes.spi.LIRLowerable;
-import org.graalvm.compiler.nodes.spi.NodeLIRBuilderTool;
-
-import jdk.vm.ci.meta.JavaKind;
-import uk.ac.manchester.tornado.drivers.opencl.graal.asm.OCLAssembler;
-import uk.ac.manchester.tornado.drivers.opencl.graal.lir.OCLLIRStmt;
-import uk.ac.manchester.tornado.drivers.opencl.graal.lir.OCLUnary;
-
-@NodeInfo(shortName = "AtomicAdd")
-public class AtomicAddNodeTemplate extends FloatingNode implements LIRLowerable {
-
-    public static final NodeClass<AtomicAddNodeTemplate> TYPE = NodeClass.create(AtomicAddNodeTemplate.class);
-
-    @Input
-    ValueNode array;
-    @Input
-    ValueNode index;
-    @Input
-    ValueNode inc;
-
-    public AtomicAddNodeTemplate(ValueNode array, ValueNode index, ValueNode inc) {
-        super(TYPE, StampFactory.forKind(JavaKind.Int));
-        this.array = array;
-        this.index = index;
-        this.inc = inc;
-    }
-
-    @Override
-    public void generate(NodeLIRBuilderTool gen) {
-        LIRGeneratorTool tool = gen.getLIRGeneratorTool();
-        Variable result = tool.newVariable(tool.getLIRKind(stamp));
-        tool.append(new OCLLIRStmt.AssignStmt(result, new OCLUnary.Intrinsic(OCLAssembler.OCLUnaryIntrinsic.ATOMIC_INC, tool.getLIRKind(stamp), gen.operand(inc))));
-        gen.setResult(this, result);
-    }
-}
\ No newline at end of file
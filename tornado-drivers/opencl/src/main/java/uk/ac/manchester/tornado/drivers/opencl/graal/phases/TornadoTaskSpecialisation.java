@@ -57,6 +57,7 @@ import org.graalvm.compiler.phases.common.DeadCodeEliminationPhase;
 import jdk.vm.ci.meta.JavaKind;
 import jdk.vm.ci.meta.ResolvedJavaField;
 import uk.ac.manchester.tornado.api.GridScheduler;
+import uk.ac.manchester.tornado.api.data.nativetypes.TornadoNativeArray;
 import uk.ac.manchester.tornado.api.exceptions.TornadoBailoutRuntimeException;
 import uk.ac.manchester.tornado.drivers.opencl.graal.nodes.OCLKernelContextAccessNode;
 import uk.ac.manchester.tornado.runtime.common.RuntimeUtilities;
@@ -187,7 +188,7 @@ public class TornadoTaskSpecialisation extends BasePhase<TornadoHighTierContext>
     private void evaluate(final StructuredGraph graph, final Node node, final Object value) {
         if (node instanceof ArrayLengthNode) {
             ArrayLengthNode arrayLength = (ArrayLengthNode) node;
-            int length = Array.getLength(value);
+            int length = (value instanceof TornadoNativeArray) ? ((TornadoNativeArray) value).getSize() : Array.getLength(value);
 
             /**
              * This condition covers the case that loop bounds should be taken based on the
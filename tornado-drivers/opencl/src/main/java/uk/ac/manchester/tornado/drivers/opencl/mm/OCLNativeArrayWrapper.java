@@ -0,0 +1,185 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2023, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.drivers.opencl.mm;
+
+import static uk.ac.manchester.tornado.runtime.common.RuntimeUtilities.humanReadableByteCount;
+import static uk.ac.manchester.tornado.runtime.common.Tornado.info;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import uk.ac.manchester.tornado.api.data.nativetypes.TornadoNativeArray;
+import uk.ac.manchester.tornado.api.exceptions.TornadoInternalError;
+import uk.ac.manchester.tornado.api.exceptions.TornadoMemoryException;
+import uk.ac.manchester.tornado.api.exceptions.TornadoRuntimeException;
+import uk.ac.manchester.tornado.api.memory.ObjectBuffer;
+import uk.ac.manchester.tornado.drivers.opencl.OCLDeviceContext;
+import uk.ac.manchester.tornado.runtime.common.Tornado;
+
+/**
+ * Device buffer for a {@link TornadoNativeArray}. The native segment already
+ * contains the array header, so the whole segment is copied from its native
+ * address with a single transfer. When processing in batches, the header and
+ * the chunk of elements are copied separately.
+ */
+public class OCLNativeArrayWrapper implements ObjectBuffer {
+
+    private static final int INIT_VALUE = -1;
+
+    private final OCLDeviceContext deviceContext;
+    private final long batchSize;
+
+    private long bufferId;
+    private long bufferOffset;
+    private long bufferSize;
+    private long setSubRegionSize;
+
+    public OCLNativeArrayWrapper(OCLDeviceContext deviceContext, long batchSize) {
+        this.deviceContext = deviceContext;
+        this.batchSize = batchSize;
+        this.bufferId = INIT_VALUE;
+        this.bufferSize = INIT_VALUE;
+        this.bufferOffset = 0;
+    }
+
+    private static TornadoNativeArray cast(Object value) {
+        if (!(value instanceof TornadoNativeArray)) {
+            throw new TornadoRuntimeException("[ERROR] Expected a native array, but got: " + (value == null ? "null" : value.getClass().getName()));
+        }
+        return (TornadoNativeArray) value;
+    }
+
+    public long getBatchSize() {
+        return batchSize;
+    }
+
+    @Override
+    public void allocate(Object value, long batchSize) {
+        final TornadoNativeArray nativeArray = cast(value);
+        if (batchSize <= 0) {
+            bufferSize = nativeArray.getNumBytesOfSegment();
+        } else {
+            bufferSize = nativeArray.getHeaderSize() + batchSize;
+        }
+
+        if (bufferSize <= 0) {
+            throw new TornadoMemoryException("[ERROR] Bytes Allocated <= 0: " + bufferSize);
+        }
+
+        this.bufferId = deviceContext.getBufferProvider().getBufferWithSize(bufferSize);
+
+        if (Tornado.FULL_DEBUG) {
+            info("allocated: native array %s, size=%s, header size=%d", nativeArray.getClass().getSimpleName(), humanReadableByteCount(bufferSize, true), nativeArray.getHeaderSize());
+        }
+    }
+
+    @Override
+    public void deallocate() {
+        TornadoInternalError.guarantee(bufferId != INIT_VALUE, "Fatal error: trying to deallocate an invalid buffer");
+        deviceContext.getBufferProvider().markBufferReleased(bufferId, bufferSize);
+        bufferId = INIT_VALUE;
+        bufferSize = INIT_VALUE;
+    }
+
+    @Override
+    public long size() {
+        return bufferSize;
+    }
+
+    @Override
+    public List<Integer> enqueueWrite(Object value, long batchSize, long hostOffset, int[] events, boolean useDeps) {
+        final TornadoNativeArray nativeArray = cast(value);
+        final int[] waitEvents = useDeps ? events : null;
+        ArrayList<Integer> listEvents = new ArrayList<>();
+        if (batchSize <= 0) {
+            // Header and elements are copied with a single transfer
+            listEvents.add(deviceContext.enqueueWriteBufferOffHeap(toBuffer(), bufferOffset, bufferSize, nativeArray.getSegmentAddress(), hostOffset, waitEvents));
+        } else {
+            final int headerSize = nativeArray.getHeaderSize();
+            listEvents.add(deviceContext.enqueueWriteBufferOffHeap(toBuffer(), bufferOffset, headerSize, nativeArray.getSegmentAddress(), 0, waitEvents));
+            listEvents.add(deviceContext.enqueueWriteBufferOffHeap(toBuffer(), bufferOffset + headerSize, bufferSize - headerSize, nativeArray.getSegmentAddress(), headerSize + hostOffset, waitEvents));
+        }
+        return useDeps ? listEvents : null;
+    }
+
+    @Override
+    public void write(Object value) {
+        final TornadoNativeArray nativeArray = cast(value);
+        deviceContext.writeBufferOffHeap(toBuffer(), bufferOffset, bufferSize, nativeArray.getSegmentAddress(), 0, null);
+    }
+
+    @Override
+    public int enqueueRead(Object value, long hostOffset, int[] events, boolean useDeps) {
+        final TornadoNativeArray nativeArray = cast(value);
+        final int headerSize = nativeArray.getHeaderSize();
+        final int returnEvent = deviceContext.enqueueReadBufferOffHeap(toBuffer(), bufferOffset + headerSize, bufferSize - headerSize, nativeArray.getSegmentAddress(), headerSize + hostOffset,
+                useDeps ? events : null);
+        return useDeps ? returnEvent : -1;
+    }
+
+    @Override
+    public void read(Object value) {
+        read(value, 0, null, false);
+    }
+
+    @Override
+    public int read(Object value, long hostOffset, int[] events, boolean useDeps) {
+        final TornadoNativeArray nativeArray = cast(value);
+        final int headerSize = nativeArray.getHeaderSize();
+        final long numBytes = getSizeSubRegion() > 0 ? getSizeSubRegion() : (bufferSize - headerSize);
+        return deviceContext.readBufferOffHeap(toBuffer(), bufferOffset + headerSize, numBytes, nativeArray.getSegmentAddress(), headerSize + hostOffset, useDeps ? events : null);
+    }
+
+    @Override
+    public long toBuffer() {
+        return bufferId;
+    }
+
+    @Override
+    public void setBuffer(ObjectBufferWrapper bufferWrapper) {
+        this.bufferId = bufferWrapper.buffer;
+        this.bufferOffset = bufferWrapper.bufferOffset;
+        bufferWrapper.bufferOffset += size();
+    }
+
+    @Override
+    public long getBufferOffset() {
+        return bufferOffset;
+    }
+
+    @Override
+    public void setSizeSubRegion(long batchSize) {
+        this.setSubRegionSize = batchSize;
+    }
+
+    @Override
+    public long getSizeSubRegion() {
+        return setSubRegionSize;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("buffer<native> %s", humanReadableByteCount(bufferSize, true));
+    }
+}
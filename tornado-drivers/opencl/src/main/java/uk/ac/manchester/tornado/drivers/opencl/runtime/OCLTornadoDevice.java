@@ -41,6 +41,7 @@ import jdk.vm.ci.meta.ResolvedJavaMethod;
 import uk.ac.manchester.tornado.api.common.Access;
 import uk.ac.manchester.tornado.api.common.Event;
 import uk.ac.manchester.tornado.api.common.SchedulableTask;
+import uk.ac.manchester.tornado.api.data.nativetypes.TornadoNativeArray;
 import uk.ac.manchester.tornado.api.enums.TornadoDeviceType;
 import uk.ac.manchester.tornado.api.enums.TornadoVMBackendType;
 import uk.ac.manchester.tornado.api.exceptions.TornadoBailoutRuntimeException;
@@ -54,7 +55,6 @@ import uk.ac.manchester.tornado.api.memory.TornadoMemoryProvider;
 import uk.ac.manchester.tornado.api.profiler.ProfilerType;
 import uk.ac.manchester.tornado.api.profiler.TornadoProfiler;
 import uk.ac.manchester.tornado.api.type.annotations.Vector;
-import uk.ac.manchester.tornado.drivers.common.TornadoBufferProvider;
 import uk.ac.manchester.tornado.drivers.opencl.OCLCodeCache;
 import uk.ac.manchester.tornado.drivers.opencl.OCLDeviceContext;
 import uk.ac.manchester.tornado.drivers.opencl.OCLDeviceContextInterface;
@@ -75,12 +75,14 @@ import uk.ac.manchester.tornado.drivers.opencl.mm.OCLFloatArrayWrapper;
 import uk.ac.manchester.tornado.drivers.opencl.mm.OCLIntArrayWrapper;
 import uk.ac.manchester.tornado.drivers.opencl.mm.OCLLongArrayWrapper;
 import uk.ac.manchester.tornado.drivers.opencl.mm.OCLMultiDimArrayWrapper;
+import uk.ac.manchester.tornado.drivers.opencl.mm.OCLNativeArrayWrapper;
 import uk.ac.manchester.tornado.drivers.opencl.mm.OCLObjectWrapper;
 import uk.ac.manchester.tornado.drivers.opencl.mm.OCLShortArrayWrapper;
 import uk.ac.manchester.tornado.drivers.opencl.mm.OCLVectorWrapper;
 import uk.ac.manchester.tornado.runtime.TornadoCoreRuntime;
 import uk.ac.manchester.tornado.runtime.common.DeviceObjectState;
 import uk.ac.manchester.tornado.runtime.common.KernelArgs;
+import uk.ac.manchester.tornado.runtime.common.PersistentKernelCache;
 import uk.ac.manchester.tornado.runtime.common.RuntimeUtilities;
 import uk.ac.manchester.tornado.runtime.common.Tornado;
 import uk.ac.manchester.tornado.runtime.common.TornadoAcceleratorDevice;
@@ -90,6 +92,7 @@ import uk.ac.manchester.tornado.runtime.common.TornadoSchedulingStrategy;
 import uk.ac.manchester.tornado.runtime.sketcher.Sketch;
 import uk.ac.manchester.tornado.runtime.sketcher.TornadoSketcher;
 import uk.ac.manchester.tornado.runtime.tasks.CompilableTask;
+import uk.ac.manchester.tornado.runtime.tasks.FusedTask;
 import uk.ac.manchester.tornado.runtime.tasks.PrebuiltTask;
 import uk.ac.manchester.tornado.runtime.tasks.meta.TaskMetaData;
 
@@ -229,15 +232,27 @@ public class OCLTornadoDevice implements TornadoAcceleratorDevice {
         final OCLDeviceContextInterface deviceContext = getDeviceContext();
         final CompilableTask executable = (CompilableTask) task;
         final ResolvedJavaMethod resolvedMethod = TornadoCoreRuntime.getTornadoRuntime().resolveMethod(executable.getMethod());
-        final Sketch sketch = TornadoSketcher.lookup(resolvedMethod, task.meta().getDriverIndex(), task.meta().getDeviceIndex());
 
         // Return the code from the cache
         if (!task.shouldCompile() && deviceContext.isCached(task.getId(), resolvedMethod.getName())) {
             return deviceContext.getInstalledCode(task.getId(), resolvedMethod.getName());
         }
 
-        // copy meta data into task
         final TaskMetaData taskMeta = executable.meta();
+
+        // Return the code from the persistent kernel cache. FPGA bitstreams are
+        // handled by the OCLCodeCache
+        final PersistentKernelCache kernelCache = PersistentKernelCache.getInstance();
+        final String kernelKey = OCLBackend.isDeviceAnFPGAAccelerator(deviceContext) ? null : kernelCache.buildKernelKey(executable, resolvedMethod, this);
+        final PersistentKernelCache.Entry cachedKernel = kernelCache.lookup(kernelKey);
+        if (cachedKernel != null) {
+            cachedKernel.copyArgumentsAccess(taskMeta);
+            return deviceContext.installCode(taskMeta, task.getId(), cachedKernel.getEntryPoint(), cachedKernel.getCode());
+        }
+
+        final Sketch sketch = TornadoSketcher.lookupOrBuild(resolvedMethod, task.meta().getDriverIndex(), task.meta().getDeviceIndex());
+
+        // copy meta data into task
         final Access[] sketchAccess = sketch.getArgumentsAccess();
         final Access[] taskAccess = taskMeta.getArgumentsAccess();
         System.arraycopy(sketchAccess, 0, taskAccess, 0, sketchAccess.length);
@@ -254,6 +269,10 @@ public class OCLTornadoDevice implements TornadoAcceleratorDevice {
 
             // Update atomics buffer for inner methods that are not inlined
             ResolvedJavaMethod[] methods = result.getMethods();
+            boolean usesAtomics = false;
+            for (ResolvedJavaMethod m : methods) {
+                usesAtomics |= TornadoAtomicIntegerNode.globalAtomicsParameters.containsKey(m);
+            }
             if (methods.length > 1) {
                 HashMap<Integer, Integer> mapping;
                 for (ResolvedJavaMethod m : methods) {
@@ -279,6 +298,10 @@ public class OCLTornadoDevice implements TornadoAcceleratorDevice {
             } else {
                 // B) for CPU multi-core or GPU
                 installedCode = deviceContext.installCode(result);
+                // Kernels with atomics need the atomics mapping built during the compilation
+                if (!usesAtomics) {
+                    kernelCache.store(kernelKey, result.getName(), taskAccess, result.getMethods(), result.getTargetCode());
+                }
             }
             profiler.stop(ProfilerType.TASK_COMPILE_DRIVER_TIME, taskMeta.getId());
             profiler.sum(ProfilerType.TOTAL_DRIVER_COMPILE_TIME, profiler.getTaskTimer(ProfilerType.TASK_COMPILE_DRIVER_TIME, taskMeta.getId()));
@@ -322,9 +345,48 @@ public class OCLTornadoDevice implements TornadoAcceleratorDevice {
         return null;
     }
 
+    private TornadoInstalledCode compileFusedTask(SchedulableTask task) {
+        final OCLDeviceContextInterface deviceContext = getDeviceContext();
+        final FusedTask executable = (FusedTask) task;
+
+        // Return the code from the cache
+        if (!task.shouldCompile() && deviceContext.isCached(task.getId(), executable.getTaskName())) {
+            return deviceContext.getInstalledCode(task.getId(), executable.getTaskName());
+        }
+
+        final TaskMetaData taskMeta = executable.meta();
+        try {
+            OCLProviders providers = (OCLProviders) getBackend().getProviders();
+            TornadoProfiler profiler = task.getProfiler();
+            profiler.registerBackend(taskMeta.getId(), taskMeta.getLogicDevice().getTornadoVMBackend().name());
+            profiler.registerDeviceID(taskMeta.getId(), taskMeta.getLogicDevice().getDriverIndex() + ":" + taskMeta.getDeviceIndex());
+            profiler.registerDeviceName(taskMeta.getId(), taskMeta.getLogicDevice().getPhysicalDevice().getDeviceName());
+            profiler.start(ProfilerType.TASK_COMPILE_GRAAL_TIME, taskMeta.getId());
+            final OCLCompilationResult result = OCLCompiler.compileFusedTaskForDevice(executable, providers, getBackend());
+            profiler.stop(ProfilerType.TASK_COMPILE_GRAAL_TIME, taskMeta.getId());
+            profiler.sum(ProfilerType.TOTAL_GRAAL_COMPILE_TIME, profiler.getTaskTimer(ProfilerType.TASK_COMPILE_GRAAL_TIME, taskMeta.getId()));
+
+            profiler.start(ProfilerType.TASK_COMPILE_DRIVER_TIME, taskMeta.getId());
+            OCLInstalledCode installedCode = deviceContext.installCode(result);
+            profiler.stop(ProfilerType.TASK_COMPILE_DRIVER_TIME, taskMeta.getId());
+            profiler.sum(ProfilerType.TOTAL_DRIVER_COMPILE_TIME, profiler.getTaskTimer(ProfilerType.TASK_COMPILE_DRIVER_TIME, taskMeta.getId()));
+            return installedCode;
+        } catch (Exception e) {
+            driver.fatal("Unable to compile %s for device %s\n", task.getId(), getDeviceName());
+            driver.fatal("Exception occurred when compiling %s\n", executable.getTaskName());
+            if (TornadoOptions.RECOVER_BAILOUT) {
+                throw new TornadoBailoutRuntimeException("[Error during the Task Compilation]: " + e.getMessage());
+            } else {
+                throw e;
+            }
+        }
+    }
+
     private TornadoInstalledCode compileJavaToAccelerator(SchedulableTask task) {
         if (task instanceof CompilableTask) {
             return compileTask(task);
+        } else if (task instanceof FusedTask) {
+            return compileFusedTask(task);
         } else if (task instanceof PrebuiltTask) {
             return compilePreBuiltTask(task);
         }
@@ -514,6 +576,8 @@ public class OCLTornadoDevice implements TornadoAcceleratorDevice {
                     TornadoInternalError.unimplemented("multi-dimensional array of type %s", type.getName());
                 }
             }
+        } else if (object instanceof TornadoNativeArray) {
+            result = new OCLNativeArrayWrapper(deviceContext, batchSize);
         } else if (!type.isPrimitive()) {
             if (object instanceof AtomicInteger) {
                 result = new AtomicsBuffer(new int[] {}, deviceContext);
@@ -536,10 +600,6 @@ public class OCLTornadoDevice implements TornadoAcceleratorDevice {
 
     @Override
     public int allocateObjects(Object[] objects, long batchSize, TornadoDeviceObjectState[] states) {
-        TornadoBufferProvider bufferProvider = getDeviceContext().getBufferProvider();
-        if (!bufferProvider.checkBufferAvailability(objects.length)) {
-            bufferProvider.resetBuffers();
-        }
         for (int i = 0; i < objects.length; i++) {
             allocate(objects[i], batchSize, states[i]);
         }
@@ -572,7 +632,7 @@ public class OCLTornadoDevice implements TornadoAcceleratorDevice {
         }
 
         final Class<?> type = object.getClass();
-        if (!type.isArray()) {
+        if (!type.isArray() && !(object instanceof TornadoNativeArray)) {
             checkBatchSize(batchSize);
         }
         return -1;
@@ -31,7 +31,9 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -52,8 +54,21 @@ public class VirtualJSONParser {
         availableProcessors;
     }
 
-    public static VirtualDeviceDescriptor getDeviceDescriptor() {
-        String json = readVirtualDeviceJson();
+    /**
+     * It parses the descriptor of each virtual device. The property
+     * {@code tornado.device.desc} accepts a comma-separated list of JSON files,
+     * one per virtual device.
+     */
+    public static List<VirtualDeviceDescriptor> getDeviceDescriptors() {
+        List<VirtualDeviceDescriptor> descriptors = new ArrayList<>();
+        for (String file : VIRTUAL_DEVICE_FILE.split(",")) {
+            descriptors.add(getDeviceDescriptor(file.trim()));
+        }
+        return descriptors;
+    }
+
+    private static VirtualDeviceDescriptor getDeviceDescriptor(String file) {
+        String json = readVirtualDeviceJson(file);
         HashMap<JsonKey, String> jsonEntries = new HashMap<>();
         for (String line : json.split("\n")) {
             Matcher matcher = pattern.matcher(line);
@@ -100,15 +115,15 @@ public class VirtualJSONParser {
         throw new RuntimeException("Virtual device JSON parser failed ! Unknown json key: " + jsonKey.name());
     }
 
-    private static String readVirtualDeviceJson() {
-        Path path = Paths.get(VIRTUAL_DEVICE_FILE);
-        TornadoInternalError.guarantee(path.toFile().exists(), "Virtual device file does not exist: %s", VIRTUAL_DEVICE_FILE);
+    private static String readVirtualDeviceJson(String file) {
+        Path path = Paths.get(file);
+        TornadoInternalError.guarantee(path.toFile().exists(), "Virtual device file does not exist: %s", file);
 
         try {
             byte[] bytes = Files.readAllBytes(path);
             return new String(bytes);
         } catch (IOException e) {
-            throw new RuntimeException(String.format("Failed to read from %s", VIRTUAL_DEVICE_FILE), e);
+            throw new RuntimeException(String.format("Failed to read from %s", file), e);
         }
     }
 }
@@ -35,14 +35,13 @@ public class VirtualOCLContext extends TornadoLogger implements OCLExecutionEnvi
     private final List<OCLTargetDevice> devices;
     private final VirtualOCLPlatform platform;
 
-    public VirtualOCLContext(VirtualOCLPlatform platform, OCLTargetDevice device) {
+    public VirtualOCLContext(VirtualOCLPlatform platform, List<OCLTargetDevice> devices) {
         this.platform = platform;
-        this.devices = new ArrayList<>();
-        devices.add(device);
+        this.devices = new ArrayList<>(devices);
     }
 
     public int getNumDevices() {
-        return 1;
+        return devices.size();
     }
 
     public List<OCLTargetDevice> devices() {
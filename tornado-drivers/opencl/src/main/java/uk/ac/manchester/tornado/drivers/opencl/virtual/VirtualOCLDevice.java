@@ -57,9 +57,9 @@ public class VirtualOCLDevice extends TornadoLogger implements OCLTargetDevice {
     private static final int INIT_VALUE = -1;
     private OCLDeviceContextInterface deviceContex;
 
-    public VirtualOCLDevice(VirtualDeviceDescriptor info) {
+    public VirtualOCLDevice(VirtualDeviceDescriptor info, int index) {
         this.name = info.getDeviceName();
-        this.index = 0;
+        this.index = index;
         this.deviceEndianLittle = true;
         this.maxComputeUnits = INIT_VALUE;
         this.maxAllocationSize = INIT_VALUE;
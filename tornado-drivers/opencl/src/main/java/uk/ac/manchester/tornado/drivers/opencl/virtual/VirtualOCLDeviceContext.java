@@ -202,6 +202,11 @@ public class VirtualOCLDeviceContext extends TornadoLogger implements OCLDeviceC
         return device.isDeviceDoubleFPSupported();
     }
 
+    @Override
+    public boolean isInt64AtomicsSupported() {
+        return device.getDeviceExtensions().contains("cl_khr_int64_base_atomics");
+    }
+
     @Override
     public int getDeviceIndex() {
         return device.getIndex();
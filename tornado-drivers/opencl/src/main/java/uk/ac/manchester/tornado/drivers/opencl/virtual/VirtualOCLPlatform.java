@@ -23,6 +23,9 @@
  */
 package uk.ac.manchester.tornado.drivers.opencl.virtual;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import uk.ac.manchester.tornado.drivers.opencl.OCLExecutionEnvironment;
 import uk.ac.manchester.tornado.drivers.opencl.OCLTargetDevice;
 import uk.ac.manchester.tornado.drivers.opencl.TornadoPlatform;
@@ -31,16 +34,19 @@ import uk.ac.manchester.tornado.runtime.common.TornadoLogger;
 public class VirtualOCLPlatform extends TornadoLogger implements TornadoPlatform {
 
     private final int index;
-    private final OCLTargetDevice device;
+    private final List<OCLTargetDevice> devices;
     private VirtualOCLContext context;
 
-    public VirtualOCLPlatform(VirtualDeviceDescriptor info) {
+    public VirtualOCLPlatform(List<VirtualDeviceDescriptor> descriptors) {
         this.index = 0;
-        this.device = new VirtualOCLDevice(info);
+        this.devices = new ArrayList<>();
+        for (VirtualDeviceDescriptor info : descriptors) {
+            devices.add(new VirtualOCLDevice(info, devices.size()));
+        }
     }
 
     public OCLExecutionEnvironment createContext() {
-        context = new VirtualOCLContext(this, device);
+        context = new VirtualOCLContext(this, devices);
         return context;
     }
 
@@ -64,6 +64,7 @@ import uk.ac.manchester.tornado.runtime.common.TornadoSchedulingStrategy;
 import uk.ac.manchester.tornado.runtime.sketcher.Sketch;
 import uk.ac.manchester.tornado.runtime.sketcher.TornadoSketcher;
 import uk.ac.manchester.tornado.runtime.tasks.CompilableTask;
+import uk.ac.manchester.tornado.runtime.tasks.FusedTask;
 import uk.ac.manchester.tornado.runtime.tasks.PrebuiltTask;
 import uk.ac.manchester.tornado.runtime.tasks.meta.TaskMetaData;
 
@@ -174,7 +175,7 @@ public class VirtualOCLTornadoDevice implements TornadoAcceleratorDevice {
     private TornadoInstalledCode compileTask(SchedulableTask task) {
         final CompilableTask executable = (CompilableTask) task;
         final ResolvedJavaMethod resolvedMethod = TornadoCoreRuntime.getTornadoRuntime().resolveMethod(executable.getMethod());
-        final Sketch sketch = TornadoSketcher.lookup(resolvedMethod, task.meta().getDriverIndex(), task.meta().getDeviceIndex());
+        final Sketch sketch = TornadoSketcher.lookupOrBuild(resolvedMethod, task.meta().getDriverIndex(), task.meta().getDeviceIndex());
 
         // copy meta data into task
         final TaskMetaData taskMeta = executable.meta();
@@ -216,9 +217,33 @@ public class VirtualOCLTornadoDevice implements TornadoAcceleratorDevice {
         return null;
     }
 
+    private TornadoInstalledCode compileFusedTask(SchedulableTask task) {
+        final FusedTask executable = (FusedTask) task;
+        final TaskMetaData taskMeta = executable.meta();
+        try {
+            OCLProviders providers = (OCLProviders) getBackend().getProviders();
+            TornadoProfiler profiler = task.getProfiler();
+            profiler.start(ProfilerType.TASK_COMPILE_GRAAL_TIME, taskMeta.getId());
+            final OCLCompilationResult result = OCLCompiler.compileFusedTaskForDevice(executable, providers, getBackend());
+            profiler.stop(ProfilerType.TASK_COMPILE_GRAAL_TIME, taskMeta.getId());
+            profiler.sum(ProfilerType.TOTAL_GRAAL_COMPILE_TIME, profiler.getTaskTimer(ProfilerType.TASK_COMPILE_GRAAL_TIME, taskMeta.getId()));
+
+            RuntimeUtilities.maybePrintSource(result.getTargetCode());
+
+            return null;
+        } catch (Exception e) {
+            driver.fatal("unable to compile %s for device %s", task.getId(), getDeviceName());
+            driver.fatal("exception occurred when compiling %s", executable.getTaskName());
+            driver.fatal("exception: %s", e.toString());
+            throw new TornadoBailoutRuntimeException("[Error During the Task Compilation] ", e);
+        }
+    }
+
     private TornadoInstalledCode compileJavaToAccelerator(SchedulableTask task) {
         if (task instanceof CompilableTask) {
             return compileTask(task);
+        } else if (task instanceof FusedTask) {
+            return compileFusedTask(task);
         } else if (task instanceof PrebuiltTask) {
             return compilePreBuiltTask(task);
         }
@@ -551,6 +551,78 @@ JNIEXPORT jobjectArray JNICALL Java_uk_ac_manchester_tornado_drivers_ptx_PTXStre
     TRANSFER_FROM_HOST_TO_DEVICE_ASYNC(Double, jdouble);
 }
 
+/*
+ * Transfers from and to native (off-heap) host memory. The host memory is not
+ * moved by the Java GC, so it is used directly without a staging area.
+ */
+#define TRANSFER_DEVICE_TO_HOST_OFF_HEAP(BLOCKING)                      \
+    CUevent beforeEvent, afterEvent;                                    \
+    CUstream stream;                                                    \
+    stream_from_array(env, &stream, stream_wrapper);                    \
+    record_events_create(&beforeEvent, &afterEvent);                    \
+    record_event(&beforeEvent, &stream);                                \
+    CUresult result = cuMemcpyDtoHAsync(reinterpret_cast<char *>(host_pointer) + host_offset, device_ptr, (size_t) length, stream); \
+    LOG_PTX_AND_VALIDATE("cuMemcpyDtoHAsync", result);                  \
+    record_event(&afterEvent, &stream);                                 \
+    if (BLOCKING && cuEventQuery(afterEvent) != CUDA_SUCCESS) {         \
+        cuEventSynchronize(afterEvent);                                 \
+    }                                                                   \
+    return wrapper_from_events(env, &beforeEvent, &afterEvent)
+
+#define TRANSFER_HOST_TO_DEVICE_OFF_HEAP(BLOCKING)                      \
+    CUevent beforeEvent, afterEvent;                                    \
+    CUstream stream;                                                    \
+    stream_from_array(env, &stream, stream_wrapper);                    \
+    record_events_create(&beforeEvent, &afterEvent);                    \
+    record_event(&beforeEvent, &stream);                                \
+    CUresult result = cuMemcpyHtoDAsync(device_ptr, reinterpret_cast<char *>(host_pointer) + host_offset, (size_t) length, stream); \
+    LOG_PTX_AND_VALIDATE("cuMemcpyHtoDAsync", result);                  \
+    record_event(&afterEvent, &stream);                                 \
+    if (BLOCKING && cuEventQuery(afterEvent) != CUDA_SUCCESS) {         \
+        cuEventSynchronize(afterEvent);                                 \
+    }                                                                   \
+    return wrapper_from_events(env, &beforeEvent, &afterEvent)
+
+/*
+ * Class:     uk_ac_manchester_tornado_drivers_ptx_PTXStream
+ * Method:    writeArrayDtoHOffHeap
+ * Signature: (JJJJ[B)[[B
+ */
+JNIEXPORT jobjectArray JNICALL Java_uk_ac_manchester_tornado_drivers_ptx_PTXStream_writeArrayDtoHOffHeap
+        (JNIEnv *env, jclass klass, jlong device_ptr, jlong length, jlong host_pointer, jlong host_offset, jbyteArray stream_wrapper) {
+    TRANSFER_DEVICE_TO_HOST_OFF_HEAP(true);
+}
+
+/*
+ * Class:     uk_ac_manchester_tornado_drivers_ptx_PTXStream
+ * Method:    writeArrayDtoHOffHeapAsync
+ * Signature: (JJJJ[B)[[B
+ */
+JNIEXPORT jobjectArray JNICALL Java_uk_ac_manchester_tornado_drivers_ptx_PTXStream_writeArrayDtoHOffHeapAsync
+        (JNIEnv *env, jclass klass, jlong device_ptr, jlong length, jlong host_pointer, jlong host_offset, jbyteArray stream_wrapper) {
+    TRANSFER_DEVICE_TO_HOST_OFF_HEAP(false);
+}
+
+/*
+ * Class:     uk_ac_manchester_tornado_drivers_ptx_PTXStream
+ * Method:    writeArrayHtoDOffHeap
+ * Signature: (JJJJ[B)[[B
+ */
+JNIEXPORT jobjectArray JNICALL Java_uk_ac_manchester_tornado_drivers_ptx_PTXStream_writeArrayHtoDOffHeap
+        (JNIEnv *env, jclass klass, jlong device_ptr, jlong length, jlong host_pointer, jlong host_offset, jbyteArray stream_wrapper) {
+    TRANSFER_HOST_TO_DEVICE_OFF_HEAP(true);
+}
+
+/*
+ * Class:     uk_ac_manchester_tornado_drivers_ptx_PTXStream
+ * Method:    writeArrayHtoDOffHeapAsync
+ * Signature: (JJJJ[B)[[B
+ */
+JNIEXPORT jobjectArray JNICALL Java_uk_ac_manchester_tornado_drivers_ptx_PTXStream_writeArrayHtoDOffHeapAsync
+        (JNIEnv *env, jclass klass, jlong device_ptr, jlong length, jlong host_pointer, jlong host_offset, jbyteArray stream_wrapper) {
+    TRANSFER_HOST_TO_DEVICE_OFF_HEAP(false);
+}
+
 /*
  * Class:     uk_ac_manchester_tornado_drivers_ptx_PTXStream
  * Method:    cuLaunchKernel
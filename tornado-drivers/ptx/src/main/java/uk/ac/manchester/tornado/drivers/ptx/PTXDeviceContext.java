@@ -112,6 +112,11 @@ public class PTXDeviceContext extends TornadoLogger implements TornadoDeviceCont
         return true;
     }
 
+    @Override
+    public boolean isInt64AtomicsSupported() {
+        return true;
+    }
+
     public PTXTornadoDevice asMapping() {
         return new PTXTornadoDevice(device.getDeviceIndex());
     }
@@ -269,7 +274,7 @@ public class PTXDeviceContext extends TornadoLogger implements TornadoDeviceCont
             long copyInTimer = meta.getProfiler().getTimer(ProfilerType.COPY_IN_TIME);
             copyInTimer += event.getElapsedTime();
             profiler.setTimer(ProfilerType.COPY_IN_TIME, copyInTimer);
-            profiler.addValueToMetric(ProfilerType.TOTAL_COPY_IN_SIZE_BYTES, meta.getId(), callWrapper.getSize());
+            profiler.addValueToMetric(ProfilerType.TOTAL_COPY_IN_SIZE_BYTES, meta.getProfilerSlot(), callWrapper.getSize());
 
             long dispatchValue = profiler.getTimer(ProfilerType.TOTAL_DISPATCH_DATA_TRANSFERS_TIME);
             dispatchValue += event.getDriverDispatchTime();
@@ -281,11 +286,10 @@ public class PTXDeviceContext extends TornadoLogger implements TornadoDeviceCont
         if (TornadoOptions.isProfilerEnabled()) {
             Event tornadoKernelEvent = resolveEvent(taskEvent);
             tornadoKernelEvent.waitForEvents();
-            long timer = meta.getProfiler().getTimer(ProfilerType.TOTAL_KERNEL_TIME);
             // Register globalTime
-            meta.getProfiler().setTimer(ProfilerType.TOTAL_KERNEL_TIME, timer + tornadoKernelEvent.getElapsedTime());
+            meta.getProfiler().sum(ProfilerType.TOTAL_KERNEL_TIME, tornadoKernelEvent.getElapsedTime());
             // Register the time for the task
-            meta.getProfiler().setTaskTimer(ProfilerType.TASK_KERNEL_TIME, meta.getId(), tornadoKernelEvent.getElapsedTime());
+            meta.getProfiler().setTaskTimer(ProfilerType.TASK_KERNEL_TIME, meta.getProfilerSlot(), tornadoKernelEvent.getElapsedTime());
             // Register the dispatch time of the kernel
             long dispatchValue = meta.getProfiler().getTimer(ProfilerType.TOTAL_DISPATCH_KERNEL_TIME);
             dispatchValue += tornadoKernelEvent.getDriverDispatchTime();
@@ -426,6 +430,26 @@ public class PTXDeviceContext extends TornadoLogger implements TornadoDeviceCont
         return stream.enqueueAsyncWrite(address, length, array, hostOffset, waitEvents);
     }
 
+    /*
+     * OFF-HEAP TRANSFERS. The host memory of native arrays is not moved by the
+     * GC, so the device copies directly from/to the native host pointer.
+     */
+    public int readBufferOffHeap(long address, long length, long hostPointer, long hostOffset, int[] waitEvents) {
+        return stream.enqueueReadOffHeap(address, length, hostPointer, hostOffset, waitEvents);
+    }
+
+    public int enqueueReadBufferOffHeap(long address, long length, long hostPointer, long hostOffset, int[] waitEvents) {
+        return stream.enqueueAsyncReadOffHeap(address, length, hostPointer, hostOffset, waitEvents);
+    }
+
+    public void writeBufferOffHeap(long address, long length, long hostPointer, long hostOffset, int[] waitEvents) {
+        stream.enqueueWriteOffHeap(address, length, hostPointer, hostOffset, waitEvents);
+    }
+
+    public int enqueueWriteBufferOffHeap(long address, long length, long hostPointer, long hostOffset, int[] waitEvents) {
+        return stream.enqueueAsyncWriteOffHeap(address, length, hostPointer, hostOffset, waitEvents);
+    }
+
     public void dumpEvents() {
         List<PTXEvent> events = stream.getEventPool().getEvents();
 
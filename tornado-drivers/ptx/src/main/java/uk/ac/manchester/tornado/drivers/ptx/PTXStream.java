@@ -105,6 +105,14 @@ public class PTXStream extends TornadoLogger {
     private static native byte[][] writeArrayHtoDAsync(long address, long length, float[] array, long hostOffset, byte[] streamWrapper);
 
     private static native byte[][] writeArrayHtoDAsync(long address, long length, double[] array, long hostOffset, byte[] streamWrapper);
+
+    private static native byte[][] writeArrayDtoHOffHeap(long address, long length, long hostPointer, long hostOffset, byte[] streamWrapper);
+
+    private static native byte[][] writeArrayDtoHOffHeapAsync(long address, long length, long hostPointer, long hostOffset, byte[] streamWrapper);
+
+    private static native byte[][] writeArrayHtoDOffHeap(long address, long length, long hostPointer, long hostOffset, byte[] streamWrapper);
+
+    private static native byte[][] writeArrayHtoDOffHeapAsync(long address, long length, long hostPointer, long hostOffset, byte[] streamWrapper);
     //@formatter:on
 
     private static native byte[][] cuLaunchKernel(byte[] module, String name, int gridDimX, int gridDimY, int gridDimZ, int blockDimX, int blockDimY, int blockDimZ, long sharedMemBytes, byte[] stream,
@@ -333,6 +341,29 @@ public class PTXStream extends TornadoLogger {
         return registerEvent(writeArrayHtoDAsync(address, length, array, hostOffset, streamPool), EventDescriptor.DESC_WRITE_DOUBLE);
     }
 
+    /**
+     * Blocking read from the device into native (off-heap) host memory.
+     */
+    public int enqueueReadOffHeap(long address, long length, long hostPointer, long hostOffset, int[] waitEvents) {
+        waitForEvents(waitEvents);
+        return registerEvent(writeArrayDtoHOffHeap(address, length, hostPointer, hostOffset, streamPool), EventDescriptor.DESC_READ_BYTE);
+    }
+
+    public int enqueueAsyncReadOffHeap(long address, long length, long hostPointer, long hostOffset, int[] waitEvents) {
+        waitForEvents(waitEvents);
+        return registerEvent(writeArrayDtoHOffHeapAsync(address, length, hostPointer, hostOffset, streamPool), EventDescriptor.DESC_READ_BYTE);
+    }
+
+    public void enqueueWriteOffHeap(long address, long length, long hostPointer, long hostOffset, int[] waitEvents) {
+        waitForEvents(waitEvents);
+        registerEvent(writeArrayHtoDOffHeap(address, length, hostPointer, hostOffset, streamPool), EventDescriptor.DESC_WRITE_BYTE);
+    }
+
+    public int enqueueAsyncWriteOffHeap(long address, long length, long hostPointer, long hostOffset, int[] waitEvents) {
+        waitForEvents(waitEvents);
+        return registerEvent(writeArrayHtoDOffHeapAsync(address, length, hostPointer, hostOffset, streamPool), EventDescriptor.DESC_WRITE_BYTE);
+    }
+
     public PTXEventPool getEventPool() {
         return this.ptxEventPool;
     }
@@ -93,10 +93,12 @@ import uk.ac.manchester.tornado.drivers.ptx.graal.nodes.GroupIdNode;
 import uk.ac.manchester.tornado.drivers.ptx.graal.nodes.LocalArrayNode;
 import uk.ac.manchester.tornado.drivers.ptx.graal.nodes.LocalThreadIdNode;
 import uk.ac.manchester.tornado.drivers.ptx.graal.nodes.LocalThreadSizeNode;
+import uk.ac.manchester.tornado.drivers.ptx.graal.nodes.PTXAtomicArrayNode;
 import uk.ac.manchester.tornado.drivers.ptx.graal.nodes.calc.DivNode;
 import uk.ac.manchester.tornado.drivers.ptx.graal.nodes.vector.LoadIndexedVectorNode;
 import uk.ac.manchester.tornado.drivers.ptx.graal.snippets.PTXGPUReduceSnippets;
 import uk.ac.manchester.tornado.runtime.TornadoVMConfig;
+import uk.ac.manchester.tornado.runtime.graal.nodes.AtomicArrayNode;
 import uk.ac.manchester.tornado.runtime.graal.nodes.GetGroupIdFixedWithNextNode;
 import uk.ac.manchester.tornado.runtime.graal.nodes.GlobalGroupSizeFixedWithNextNode;
 import uk.ac.manchester.tornado.runtime.graal.nodes.LocalGroupSizeFixedWithNextNode;
@@ -242,6 +244,8 @@ public class PTXLoweringProvider extends DefaultJavaLoweringProvider {
             lowerStoreIndexedNode((StoreIndexedNode) node, tool);
         } else if (node instanceof StoreAtomicIndexedNode) {
             lowerStoreAtomicsReduction(node, tool);
+        } else if (node instanceof AtomicArrayNode) {
+            lowerAtomicArrayNode((AtomicArrayNode) node);
         } else if (node instanceof LoadFieldNode) {
             lowerLoadFieldNode((LoadFieldNode) node, tool);
         } else if (node instanceof StoreFieldNode) {
@@ -368,6 +372,16 @@ public class PTXLoweringProvider extends DefaultJavaLoweringProvider {
         unimplemented();
     }
 
+    private void lowerAtomicArrayNode(AtomicArrayNode atomicArray) {
+        StructuredGraph graph = atomicArray.graph();
+        JavaKind elementKind = atomicArray.elementKind();
+        AddressNode address = createArrayAddress(graph, atomicArray.array(), elementKind, atomicArray.index());
+        PTXAtomicArrayNode atomicNode = graph.add(new PTXAtomicArrayNode(address, atomicArray.getKilledLocationIdentity(), elementKind, atomicArray.getOperation(), atomicArray.expected(),
+                atomicArray.value()));
+        atomicNode.setStateAfter(atomicArray.stateAfter());
+        graph.replaceFixedWithFixed(atomicArray, atomicNode);
+    }
+
     private void lowerIntegerDivRemNode(IntegerDivRemNode integerDivRemNode) {
         StructuredGraph graph = integerDivRemNode.graph();
         switch (integerDivRemNode.getOp()) {
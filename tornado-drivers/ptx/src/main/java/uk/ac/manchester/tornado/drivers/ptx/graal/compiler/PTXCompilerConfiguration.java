@@ -60,8 +60,8 @@ public class PTXCompilerConfiguration implements TornadoCompilerConfiguration {
     }
 
     @Override
-    public TornadoMidTier createMidTier(OptionValues options) {
-        return new PTXMidTier(options);
+    public TornadoMidTier createMidTier(OptionValues options, TornadoDeviceContext deviceContext) {
+        return new PTXMidTier(options, deviceContext);
     }
 
     @Override
@@ -37,13 +37,14 @@ import org.graalvm.compiler.phases.common.MidTierLoweringPhase;
 import org.graalvm.compiler.phases.common.ReassociationPhase;
 import org.graalvm.compiler.phases.common.RemoveValueProxyPhase;
 
+import uk.ac.manchester.tornado.api.TornadoDeviceContext;
 import uk.ac.manchester.tornado.drivers.ptx.graal.phases.BoundCheckEliminationPhase;
 import uk.ac.manchester.tornado.drivers.ptx.graal.phases.TornadoFloatingReadReplacement;
 import uk.ac.manchester.tornado.runtime.graal.compiler.TornadoMidTier;
 import uk.ac.manchester.tornado.runtime.graal.phases.ExceptionCheckingElimination;
 
 public class PTXMidTier extends TornadoMidTier {
-    public PTXMidTier(OptionValues options) {
+    public PTXMidTier(OptionValues options, TornadoDeviceContext deviceContext) {
         appendPhase(new ExceptionCheckingElimination());
 
         CanonicalizerPhase canonicalizer = CanonicalizerPhase.create();
@@ -70,6 +70,8 @@ import uk.ac.manchester.tornado.drivers.ptx.graal.nodes.PTXIntBinaryIntrinsicNod
 import uk.ac.manchester.tornado.drivers.ptx.graal.nodes.PTXIntUnaryIntrinsicNode;
 import uk.ac.manchester.tornado.drivers.ptx.graal.nodes.PrintfNode;
 import uk.ac.manchester.tornado.runtime.common.TornadoOptions;
+import uk.ac.manchester.tornado.runtime.graal.compiler.TornadoAtomicPlugins;
+import uk.ac.manchester.tornado.runtime.graal.compiler.TornadoNativeArrayPlugins;
 
 public class PTXGraphBuilderPlugins {
 
@@ -82,6 +84,8 @@ public class PTXGraphBuilderPlugins {
         registerPTXBuiltinPlugins(plugins);
         PTXMathPlugins.registerTornadoMathPlugins(plugins);
         PTXVectorPlugins.registerPlugins(ps, plugins);
+        TornadoNativeArrayPlugins.registerPlugins(plugins);
+        TornadoAtomicPlugins.registerPlugins(plugins);
 
         registerKernelContextPlugins(plugins);
     }
@@ -35,9 +35,13 @@ import uk.ac.manchester.tornado.drivers.ptx.graal.asm.PTXAssembler;
 import uk.ac.manchester.tornado.drivers.ptx.graal.asm.PTXAssembler.PTXNullaryOp;
 import uk.ac.manchester.tornado.drivers.ptx.graal.compiler.PTXCompilationResultBuilder;
 import uk.ac.manchester.tornado.drivers.ptx.graal.meta.PTXMemorySpace;
+import uk.ac.manchester.tornado.runtime.graal.nodes.AtomicArrayNode.Operation;
 
 import java.nio.charset.StandardCharsets;
 
+import static org.graalvm.compiler.lir.LIRInstruction.OperandFlag.ILLEGAL;
+import static org.graalvm.compiler.lir.LIRInstruction.OperandFlag.REG;
+import static uk.ac.manchester.tornado.api.exceptions.TornadoInternalError.shouldNotReachHere;
 import static uk.ac.manchester.tornado.drivers.ptx.graal.PTXCodeUtil.getFPURoundingMode;
 import static uk.ac.manchester.tornado.drivers.ptx.graal.asm.PTXAssemblerConstants.*;
 
@@ -452,4 +456,118 @@ public class PTXLIRStmt {
             asm.eol();
         }
     }
+
+    /**
+     * Atomic read-modify-write of an array element: {@code atom.space.op.type d,
+     * [a], b}. PTX (before sm_90) has no atomic min and max for floats. They are
+     * emitted with the signed integer min/max when the value is not negative, and
+     * with the unsigned integer max/min otherwise, which preserves the order of the
+     * IEEE-754 bit patterns.
+     */
+    @Opcode("ATOMIC_ARRAY")
+    public static class AtomicArrayStmt extends AbstractInstruction {
+
+        public static final LIRInstructionClass<AtomicArrayStmt> TYPE = LIRInstructionClass.create(AtomicArrayStmt.class);
+
+        @Def
+        protected Variable result;
+        @Use
+        protected PTXUnary.MemoryAccess address;
+        /**
+         * Value.ILLEGAL unless the operation is a compare-and-swap.
+         */
+        @Use({ REG, ILLEGAL })
+        protected Value expected;
+        @Use
+        protected Value value;
+
+        private final Operation operation;
+
+        public AtomicArrayStmt(Variable result, Operation operation, PTXUnary.MemoryAccess address, Value expected, Value value) {
+            super(TYPE);
+            this.result = result;
+            this.operation = operation;
+            this.address = address;
+            this.expected = expected;
+            this.value = value;
+        }
+
+        private String getOpcode() {
+            switch (operation) {
+                case ADD:
+                    return "add";
+                case MIN:
+                    return "min";
+                case MAX:
+                    return "max";
+                case EXCHANGE:
+                    return "exch";
+                case COMPARE_AND_SWAP:
+                    return "cas";
+                default:
+                    throw shouldNotReachHere("Atomic operation not supported: %s", operation);
+            }
+        }
+
+        private String getType() {
+            PTXKind kind = (PTXKind) result.getPlatformKind();
+            if (operation == Operation.EXCHANGE || operation == Operation.COMPARE_AND_SWAP) {
+                return kind.is64Bit() ? PTXKind.B64.toString() : PTXKind.B32.toString();
+            } else if (kind == PTXKind.S64 && operation == Operation.ADD) {
+                return PTXKind.U64.toString();
+            }
+            return kind.toString();
+        }
+
+        private void emitAtom(PTXCompilationResultBuilder crb, PTXAssembler asm, String predicate, String opcode, String type, String dest, String operand) {
+            asm.emitSymbol(TAB);
+            if (predicate != null) {
+                asm.emit(predicate + SPACE);
+            }
+            asm.emit("atom" + DOT + address.getBase().memorySpace.getName() + DOT + opcode + DOT + type);
+            asm.emitSymbol(TAB);
+            asm.emit(dest);
+            asm.emitSymbol(COMMA + SPACE);
+            address.emit(crb, asm, null);
+            asm.emitSymbol(COMMA + SPACE);
+            if (operation == Operation.COMPARE_AND_SWAP) {
+                asm.emitValue(expected);
+                asm.emitSymbol(COMMA + SPACE);
+            }
+            asm.emit(operand);
+            asm.delimiter();
+            asm.eol();
+        }
+
+        private void emitFloatMinMax(PTXCompilationResultBuilder crb, PTXAssembler asm) {
+            final boolean isMax = operation == Operation.MAX;
+            asm.emitSymbol(TAB);
+            asm.emitSymbol(CURLY_BRACKETS_OPEN);
+            asm.eol();
+            asm.emitLine("\t.reg .pred\tatomPred;");
+            asm.emitLine("\t.reg .b32\tatomBits;");
+            asm.emitLine("\t.reg .b32\tatomOld;");
+            asm.emitLine("\tmov.b32\tatomBits, %s;", PTXAssembler.toString(value));
+            asm.emitLine("\tsetp.ge.f32\tatomPred, %s, 0F00000000;", PTXAssembler.toString(value));
+            emitAtom(crb, asm, "@atomPred", isMax ? "max" : "min", PTXKind.S32.toString(), "atomOld", "atomBits");
+            emitAtom(crb, asm, "@!atomPred", isMax ? "min" : "max", PTXKind.U32.toString(), "atomOld", "atomBits");
+            asm.emitLine("\tmov.b32\t%s, atomOld;", PTXAssembler.toString(result));
+            asm.emitSymbol(TAB);
+            asm.emitSymbol(CURLY_BRACKETS_CLOSE);
+            asm.eol();
+        }
+
+        @Override
+        public void emitCode(PTXCompilationResultBuilder crb, PTXAssembler asm) {
+            if (result.getPlatformKind() == PTXKind.F32 && (operation == Operation.MIN || operation == Operation.MAX)) {
+                emitFloatMinMax(crb, asm);
+            } else {
+                emitAtom(crb, asm, null, getOpcode(), getType(), PTXAssembler.toString(result), PTXAssembler.toString(value));
+            }
+        }
+
+        public Variable getResult() {
+            return result;
+        }
+    }
 }
@@ -44,6 +44,7 @@ import uk.ac.manchester.tornado.api.exceptions.TornadoInternalError;
 import uk.ac.manchester.tornado.api.exceptions.TornadoMemoryException;
 import uk.ac.manchester.tornado.api.memory.ObjectBuffer;
 import uk.ac.manchester.tornado.api.type.annotations.Vector;
+import uk.ac.manchester.tornado.drivers.common.mm.ObjectSerialiser;
 import uk.ac.manchester.tornado.drivers.ptx.PTXDeviceContext;
 import uk.ac.manchester.tornado.runtime.common.RuntimeUtilities;
 import uk.ac.manchester.tornado.runtime.utils.TornadoUtils;
@@ -54,7 +55,9 @@ public class PTXObjectWrapper implements ObjectBuffer {
     private ByteBuffer buffer;
     private HotSpotResolvedJavaType resolvedType;
     private HotSpotResolvedJavaField[] fields;
+    private Field[] reflectedFields;
     private FieldBuffer[] wrappedFields;
+    private ObjectSerialiser serialiser;
 
     private final Class<?> type;
 
@@ -78,12 +81,16 @@ public class PTXObjectWrapper implements ObjectBuffer {
         fields = (HotSpotResolvedJavaField[]) resolvedType.getInstanceFields(false);
         sortFieldsByOffset();
 
+        reflectedFields = new Field[fields.length];
         wrappedFields = new FieldBuffer[fields.length];
+        final int[] offsets = new int[fields.length];
 
         for (int index = 0; index < fields.length; index++) {
             HotSpotResolvedJavaField field = fields[index];
             final Field reflectedField = getField(type, field.getName());
             final Class<?> type = reflectedField.getType();
+            reflectedFields[index] = reflectedField;
+            offsets[index] = field.getOffset();
 
             if (DEBUG) {
                 trace("field: name=%s, kind=%s, offset=%d", field.getName(), type.getName(), field.getOffset());
@@ -118,6 +125,7 @@ public class PTXObjectWrapper implements ObjectBuffer {
                 wrappedFields[index] = new FieldBuffer(reflectedField, wrappedField);
             }
         }
+        serialiser = ObjectSerialiser.forClass(type, reflectedFields, offsets);
 
         if (buffer == null) {
             buffer = ByteBuffer.allocate((int) getObjectSize());
@@ -173,48 +181,6 @@ public class PTXObjectWrapper implements ObjectBuffer {
         return result;
     }
 
-    private void writeFieldToBuffer(int index, Field field, Object obj) {
-        Class<?> fieldType = field.getType();
-        if (fieldType.isPrimitive()) {
-            try {
-                PrimitiveSerialiser.put(buffer, field.get(obj));
-            } catch (IllegalArgumentException | IllegalAccessException e) {
-                shouldNotReachHere("unable to write primitive to buffer: ", e.getMessage());
-            }
-        } else if (wrappedFields[index] != null) {
-            buffer.putLong(wrappedFields[index].toBuffer());
-        } else {
-            unimplemented("field type %s", fieldType.getName());
-        }
-    }
-
-    private void readFieldFromBuffer(int index, Field field, Object obj) {
-        Class<?> fieldType = field.getType();
-        if (fieldType.isPrimitive()) {
-            try {
-                if (fieldType == int.class) {
-                    field.setInt(obj, buffer.getInt());
-                } else if (fieldType == long.class) {
-                    field.setLong(obj, buffer.getLong());
-                } else if (fieldType == short.class) {
-                    field.setShort(obj, buffer.getShort());
-                } else if (fieldType == byte.class) {
-                    field.set(obj, buffer.get());
-                } else if (fieldType == float.class) {
-                    field.setFloat(obj, buffer.getFloat());
-                } else if (fieldType == double.class) {
-                    field.setDouble(obj, buffer.getDouble());
-                }
-            } catch (IllegalAccessException e) {
-                shouldNotReachHere("unable to read field: ", e.getMessage());
-            }
-        } else if (wrappedFields[index] != null) {
-            buffer.getLong();
-        } else {
-            unimplemented("field type %s", fieldType.getName());
-        }
-    }
-
     private void sortFieldsByOffset() {
         for (int i = 0; i < fields.length; i++) {
             for (int j = 0; j < fields.length; j++) {
@@ -229,40 +195,26 @@ public class PTXObjectWrapper implements ObjectBuffer {
 
     private void serialise(Object object) {
         buffer.rewind();
-        buffer.position(hubOffset);
-        buffer.putLong(0);
-
-        if (fields.length > 0) {
-            buffer.position(fields[0].getOffset());
-            for (int i = 0; i < fields.length; i++) {
-                HotSpotResolvedJavaField field = fields[i];
-                Field f = getField(type, field.getName());
-                if (DEBUG) {
-                    trace("writing field: name=%s, offset=%d", field.getName(), field.getOffset());
-                }
-
-                buffer.position(field.getOffset());
-                writeFieldToBuffer(i, f, object);
+        buffer.putLong(hubOffset, 0);
+        serialiser.serialise(buffer, object);
+        for (int i = 0; i < fields.length; i++) {
+            if (reflectedFields[i].getType().isPrimitive()) {
+                continue;
+            }
+            if (DEBUG) {
+                trace("writing field: name=%s, offset=%d", fields[i].getName(), fields[i].getOffset());
+            }
+            if (wrappedFields[i] != null) {
+                buffer.putLong(fields[i].getOffset(), wrappedFields[i].toBuffer());
+            } else {
+                unimplemented("field type %s", reflectedFields[i].getType().getName());
             }
         }
     }
 
     private void deserialise(Object object) {
         buffer.rewind();
-
-        if (fields.length > 0) {
-            buffer.position(fields[0].getOffset());
-
-            for (int i = 0; i < fields.length; i++) {
-                HotSpotResolvedJavaField field = fields[i];
-                Field f = getField(type, field.getName());
-                f.setAccessible(true);
-                if (DEBUG) {
-                    trace("reading field: name=%s, offset=%d", field.getName(), field.getOffset());
-                }
-                readFieldFromBuffer(i, f, object);
-            }
-        }
+        serialiser.deserialise(buffer, object);
     }
 
     @Override
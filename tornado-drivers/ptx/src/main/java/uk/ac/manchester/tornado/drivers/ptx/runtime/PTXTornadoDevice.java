@@ -37,6 +37,7 @@ import uk.ac.manchester.tornado.api.TornadoTargetDevice;
 import uk.ac.manchester.tornado.api.common.Access;
 import uk.ac.manchester.tornado.api.common.Event;
 import uk.ac.manchester.tornado.api.common.SchedulableTask;
+import uk.ac.manchester.tornado.api.data.nativetypes.TornadoNativeArray;
 import uk.ac.manchester.tornado.api.enums.TornadoDeviceType;
 import uk.ac.manchester.tornado.api.enums.TornadoVMBackendType;
 import uk.ac.manchester.tornado.api.exceptions.TornadoBailoutRuntimeException;
@@ -48,7 +49,6 @@ import uk.ac.manchester.tornado.api.memory.TornadoMemoryProvider;
 import uk.ac.manchester.tornado.api.profiler.ProfilerType;
 import uk.ac.manchester.tornado.api.profiler.TornadoProfiler;
 import uk.ac.manchester.tornado.api.type.annotations.Vector;
-import uk.ac.manchester.tornado.drivers.common.TornadoBufferProvider;
 import uk.ac.manchester.tornado.drivers.ptx.PTX;
 import uk.ac.manchester.tornado.drivers.ptx.PTXDevice;
 import uk.ac.manchester.tornado.drivers.ptx.PTXDeviceContext;
@@ -65,12 +65,14 @@ import uk.ac.manchester.tornado.drivers.ptx.mm.PTXFloatArrayWrapper;
 import uk.ac.manchester.tornado.drivers.ptx.mm.PTXIntArrayWrapper;
 import uk.ac.manchester.tornado.drivers.ptx.mm.PTXLongArrayWrapper;
 import uk.ac.manchester.tornado.drivers.ptx.mm.PTXMultiDimArrayWrapper;
+import uk.ac.manchester.tornado.drivers.ptx.mm.PTXNativeArrayWrapper;
 import uk.ac.manchester.tornado.drivers.ptx.mm.PTXObjectWrapper;
 import uk.ac.manchester.tornado.drivers.ptx.mm.PTXShortArrayWrapper;
 import uk.ac.manchester.tornado.drivers.ptx.mm.PTXVectorWrapper;
 import uk.ac.manchester.tornado.runtime.TornadoCoreRuntime;
 import uk.ac.manchester.tornado.runtime.common.DeviceObjectState;
 import uk.ac.manchester.tornado.runtime.common.KernelArgs;
+import uk.ac.manchester.tornado.runtime.common.PersistentKernelCache;
 import uk.ac.manchester.tornado.runtime.common.RuntimeUtilities;
 import uk.ac.manchester.tornado.runtime.common.Tornado;
 import uk.ac.manchester.tornado.runtime.common.TornadoAcceleratorDevice;
@@ -156,10 +158,22 @@ public class PTXTornadoDevice implements TornadoAcceleratorDevice {
 
         final CompilableTask executable = (CompilableTask) task;
         final ResolvedJavaMethod resolvedMethod = TornadoCoreRuntime.getTornadoRuntime().resolveMethod(executable.getMethod());
-        final Sketch sketch = TornadoSketcher.lookup(resolvedMethod, task.meta().getDriverIndex(), task.meta().getDeviceIndex());
+        final TaskMetaData taskMeta = executable.meta();
+
+        final PersistentKernelCache kernelCache = PersistentKernelCache.getInstance();
+        final String kernelKey = deviceContext.isCached(resolvedMethod.getName(), executable) ? null : kernelCache.buildKernelKey(executable, resolvedMethod, this);
+        final PersistentKernelCache.Entry cachedKernel = kernelCache.lookup(kernelKey);
+        if (cachedKernel != null) {
+            // The PTX code is taken from the persistent kernel cache
+            cachedKernel.copyArgumentsAccess(taskMeta);
+            PTXCompilationResult result = new PTXCompilationResult(cachedKernel.getEntryPoint(), taskMeta);
+            result.setTargetCode(cachedKernel.getCode(), cachedKernel.getCode().length);
+            return deviceContext.installCode(result, resolvedMethod.getName());
+        }
+
+        final Sketch sketch = TornadoSketcher.lookupOrBuild(resolvedMethod, task.meta().getDriverIndex(), task.meta().getDeviceIndex());
 
         // copy meta data into task
-        final TaskMetaData taskMeta = executable.meta();
         final Access[] sketchAccess = sketch.getArgumentsAccess();
         final Access[] taskAccess = taskMeta.getArgumentsAccess();
         System.arraycopy(sketchAccess, 0, taskAccess, 0, sketchAccess.length);
@@ -176,6 +190,7 @@ public class PTXTornadoDevice implements TornadoAcceleratorDevice {
                 result = PTXCompiler.compileSketchForDevice(sketch, executable, providers, getBackend(), executable.getProfiler());
                 profiler.stop(ProfilerType.TASK_COMPILE_GRAAL_TIME, taskMeta.getId());
                 profiler.sum(ProfilerType.TOTAL_GRAAL_COMPILE_TIME, profiler.getTaskTimer(ProfilerType.TASK_COMPILE_GRAAL_TIME, taskMeta.getId()));
+                kernelCache.store(kernelKey, result.getName(), taskAccess, result.getMethods(), result.getTargetCode());
             } else {
                 result = new PTXCompilationResult(buildKernelName(resolvedMethod.getName(), executable), taskMeta);
             }
@@ -253,6 +268,8 @@ public class PTXTornadoDevice implements TornadoAcceleratorDevice {
                     TornadoInternalError.unimplemented("multi-dimensional array of type %s", type.getName());
                 }
             }
+        } else if (arg instanceof TornadoNativeArray) {
+            result = new PTXNativeArrayWrapper(getDeviceContext(), batchSize);
         } else if (!type.isPrimitive()) {
             if (arg.getClass().getAnnotation(Vector.class) != null) {
                 result = new PTXVectorWrapper(getDeviceContext(), arg, batchSize);
@@ -267,10 +284,6 @@ public class PTXTornadoDevice implements TornadoAcceleratorDevice {
 
     @Override
     public int allocateObjects(Object[] objects, long batchSize, TornadoDeviceObjectState[] states) {
-        TornadoBufferProvider bufferProvider = getDeviceContext().getBufferProvider();
-        if (!bufferProvider.checkBufferAvailability(objects.length)) {
-            bufferProvider.resetBuffers();
-        }
         for (int i = 0; i < objects.length; i++) {
             allocate(objects[i], batchSize, states[i]);
         }
@@ -293,7 +306,7 @@ public class PTXTornadoDevice implements TornadoAcceleratorDevice {
         }
 
         final Class<?> type = object.getClass();
-        if (!type.isArray()) {
+        if (!type.isArray() && !(object instanceof TornadoNativeArray)) {
             checkBatchSize(batchSize);
         }
         return -1;
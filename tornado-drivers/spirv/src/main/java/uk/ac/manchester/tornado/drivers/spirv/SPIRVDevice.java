@@ -49,6 +49,8 @@ public abstract class SPIRVDevice implements TornadoTargetDevice {
 
     public abstract boolean isDeviceDoubleFPSupported();
 
+    public abstract boolean isDeviceInt64AtomicsSupported();
+
     public abstract String getDeviceExtensions();
 
     public abstract ByteOrder getByteOrder();
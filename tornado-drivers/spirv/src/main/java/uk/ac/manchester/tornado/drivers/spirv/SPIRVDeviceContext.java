@@ -126,6 +126,11 @@ public abstract class SPIRVDeviceContext implements TornadoDeviceContext {
     @Override
     public boolean isFP64Supported() { return device.isDeviceDoubleFPSupported(); }
 
+    @Override
+    public boolean isInt64AtomicsSupported() {
+        return device.isDeviceInt64AtomicsSupported();
+    }
+
     private String buildKernelName(String methodName, SchedulableTask task) {
         StringBuilder sb = new StringBuilder(methodName);
 
@@ -117,18 +117,28 @@ public class SPIRVLevelZeroDevice extends SPIRVDevice {
         return "SPIRV LevelZero - " + deviceName;
     }
 
-    @Override
-    public boolean isDeviceDoubleFPSupported() {
+    private int getModuleFlags() {
         if (!queriedSupportFP64) {
             moduleProperties = new ZeDeviceModuleProperties();
             int result = device.zeDeviceGetModuleProperties(device.getDeviceHandlerPtr(), moduleProperties);
             errorLog("zeDeviceGetModuleProperties", result);
             queriedSupportFP64 = true;
         }
-        int flags = moduleProperties.getFlags();
+        return moduleProperties.getFlags();
+    }
+
+    @Override
+    public boolean isDeviceDoubleFPSupported() {
+        int flags = getModuleFlags();
         return (ZeDeviceModuleFlags.ZE_DEVICE_MODULE_FLAG_FP64 & flags) == ZeDeviceModuleFlags.ZE_DEVICE_MODULE_FLAG_FP64;
     }
 
+    @Override
+    public boolean isDeviceInt64AtomicsSupported() {
+        int flags = getModuleFlags();
+        return (ZeDeviceModuleFlags.ZE_DEVICE_MODULE_FLAG_INT64_ATOMICS & flags) == ZeDeviceModuleFlags.ZE_DEVICE_MODULE_FLAG_INT64_ATOMICS;
+    }
+
     @Override
     public String getDeviceExtensions() {
         return device.getDeviceExtensions();
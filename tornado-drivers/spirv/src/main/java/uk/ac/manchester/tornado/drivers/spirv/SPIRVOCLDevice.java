@@ -46,6 +46,11 @@ public class SPIRVOCLDevice extends SPIRVDevice {
         return device.isDeviceDoubleFPSupported();
     }
 
+    @Override
+    public boolean isDeviceInt64AtomicsSupported() {
+        return getDeviceExtensions().contains("cl_khr_int64_base_atomics");
+    }
+
     @Override
     public String getDeviceExtensions() {
         return device.getDeviceExtensions();
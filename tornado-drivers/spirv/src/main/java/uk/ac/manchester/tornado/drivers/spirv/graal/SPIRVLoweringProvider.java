@@ -88,6 +88,7 @@ import jdk.vm.ci.meta.MetaAccessProvider;
 import jdk.vm.ci.meta.PrimitiveConstant;
 import jdk.vm.ci.meta.ResolvedJavaField;
 import jdk.vm.ci.meta.ResolvedJavaType;
+import uk.ac.manchester.tornado.api.exceptions.TornadoBailoutRuntimeException;
 import uk.ac.manchester.tornado.drivers.graal.TornadoMemoryOrder;
 import uk.ac.manchester.tornado.drivers.spirv.SPIRVTargetDescription;
 import uk.ac.manchester.tornado.drivers.spirv.graal.lir.SPIRVKind;
@@ -99,8 +100,10 @@ import uk.ac.manchester.tornado.drivers.spirv.graal.nodes.GroupIdNode;
 import uk.ac.manchester.tornado.drivers.spirv.graal.nodes.LocalArrayNode;
 import uk.ac.manchester.tornado.drivers.spirv.graal.nodes.LocalThreadIdNode;
 import uk.ac.manchester.tornado.drivers.spirv.graal.nodes.LocalThreadSizeNode;
+import uk.ac.manchester.tornado.drivers.spirv.graal.nodes.SPIRVAtomicArrayNode;
 import uk.ac.manchester.tornado.drivers.spirv.graal.snippets.ReduceGPUSnippets;
 import uk.ac.manchester.tornado.runtime.TornadoVMConfig;
+import uk.ac.manchester.tornado.runtime.graal.nodes.AtomicArrayNode;
 import uk.ac.manchester.tornado.runtime.graal.nodes.GetGroupIdFixedWithNextNode;
 import uk.ac.manchester.tornado.runtime.graal.nodes.GlobalGroupSizeFixedWithNextNode;
 import uk.ac.manchester.tornado.runtime.graal.nodes.LocalGroupSizeFixedWithNextNode;
@@ -174,6 +177,8 @@ public class SPIRVLoweringProvider extends DefaultJavaLoweringProvider {
             lowerStoreIndexedNode((StoreIndexedNode) node, tool);
         } else if (node instanceof StoreAtomicIndexedNode) {
             lowerStoreAtomicsReduction(node, tool);
+        } else if (node instanceof AtomicArrayNode) {
+            lowerAtomicArrayNode((AtomicArrayNode) node);
         } else if (node instanceof FloatConvertNode) {
             lowerFloatConvertNode((FloatConvertNode) node);
         } else if (node instanceof LoadFieldNode) {
@@ -245,6 +250,20 @@ public class SPIRVLoweringProvider extends DefaultJavaLoweringProvider {
         lowerReduceSnippets(storeAtomicNode, tool);
     }
 
+    private void lowerAtomicArrayNode(AtomicArrayNode atomicArray) {
+        StructuredGraph graph = atomicArray.graph();
+        JavaKind elementKind = atomicArray.elementKind();
+        if (elementKind == JavaKind.Float && atomicArray.getOperation() != AtomicArrayNode.Operation.EXCHANGE) {
+            // SPIR-V only provides floating-point atomic add, min and max through extensions
+            throw new TornadoBailoutRuntimeException("Atomic " + atomicArray.getOperation() + " on float arrays is not supported by the SPIR-V backend");
+        }
+        AddressNode address = createArrayAddress(graph, atomicArray.array(), elementKind, atomicArray.index());
+        SPIRVAtomicArrayNode atomicNode = graph.add(new SPIRVAtomicArrayNode(address, atomicArray.getKilledLocationIdentity(), elementKind, atomicArray.getOperation(), atomicArray.expected(),
+                atomicArray.value()));
+        atomicNode.setStateAfter(atomicArray.stateAfter());
+        graph.replaceFixedWithFixed(atomicArray, atomicNode);
+    }
+
     private void lowerLocalNewArray(StructuredGraph graph, int length, NewArrayNonVirtualizableNode newArray) {
         LocalArrayNode localArrayNode;
         ConstantNode newLengthNode = ConstantNode.forInt(length, graph);
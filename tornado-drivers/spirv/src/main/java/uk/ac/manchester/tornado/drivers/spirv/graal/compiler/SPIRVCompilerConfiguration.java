@@ -59,10 +59,10 @@ public class SPIRVCompilerConfiguration implements TornadoCompilerConfiguration
     }
 
     @Override
-    public TornadoMidTier createMidTier(OptionValues options) {
+    public TornadoMidTier createMidTier(OptionValues options, TornadoDeviceContext deviceContext) {
         // FIXME: <REFACTOR> PTX can reuse some of the phases in MIDtier from OCL and
         // SPIRV
-        return new SPIRVMidTier(options);
+        return new SPIRVMidTier(options, deviceContext);
     }
 
     @Override
@@ -37,6 +37,8 @@ import org.graalvm.compiler.phases.common.MidTierLoweringPhase;
 import org.graalvm.compiler.phases.common.ReassociationPhase;
 import org.graalvm.compiler.phases.common.RemoveValueProxyPhase;
 
+import uk.ac.manchester.tornado.api.TornadoDeviceContext;
+import uk.ac.manchester.tornado.drivers.spirv.SPIRVDeviceContext;
 import uk.ac.manchester.tornado.drivers.spirv.graal.phases.BoundCheckEliminationPhase;
 import uk.ac.manchester.tornado.drivers.spirv.graal.phases.TornadoFloatingReadReplacement;
 import uk.ac.manchester.tornado.drivers.spirv.graal.phases.TornadoPartialLoopUnroll;
@@ -55,7 +57,7 @@ import uk.ac.manchester.tornado.runtime.graal.phases.ExceptionCheckingEliminatio
  */
 public class SPIRVMidTier extends TornadoMidTier {
 
-    public SPIRVMidTier(OptionValues options) {
+    public SPIRVMidTier(OptionValues options, TornadoDeviceContext deviceContext) {
         appendPhase(new ExceptionCheckingElimination());
 
         CanonicalizerPhase canonicalizer = CanonicalizerPhase.create();
@@ -82,7 +84,7 @@ public class SPIRVMidTier extends TornadoMidTier {
         appendPhase(canonicalizer);
 
         if (TornadoOptions.isPartialUnrollEnabled()) {
-            appendPhase(new TornadoPartialLoopUnroll());
+            appendPhase(new TornadoPartialLoopUnroll(((SPIRVDeviceContext) deviceContext).getDevice().getTornadoDeviceType()));
         }
 
         appendPhase(new MidTierLoweringPhase(canonicalizer));
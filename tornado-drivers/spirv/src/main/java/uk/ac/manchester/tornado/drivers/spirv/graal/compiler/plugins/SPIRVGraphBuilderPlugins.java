@@ -69,6 +69,8 @@ import uk.ac.manchester.tornado.drivers.spirv.graal.nodes.SlotsBaseAddressNode;
 import uk.ac.manchester.tornado.runtime.common.Tornado;
 import uk.ac.manchester.tornado.runtime.common.TornadoOptions;
 import uk.ac.manchester.tornado.runtime.directives.CompilerInternals;
+import uk.ac.manchester.tornado.runtime.graal.compiler.TornadoAtomicPlugins;
+import uk.ac.manchester.tornado.runtime.graal.compiler.TornadoNativeArrayPlugins;
 
 public class SPIRVGraphBuilderPlugins {
 
@@ -96,6 +98,8 @@ public class SPIRVGraphBuilderPlugins {
 
         SPIRVMathPlugins.registerTornadoMathPlugins(invocationPlugins);
         SPIRVVectorPlugins.registerPlugins(plugins, invocationPlugins);
+        TornadoNativeArrayPlugins.registerPlugins(invocationPlugins);
+        TornadoAtomicPlugins.registerPlugins(invocationPlugins);
     }
 
     private static void registerOpenCLBuiltinPlugins(InvocationPlugins plugins) {
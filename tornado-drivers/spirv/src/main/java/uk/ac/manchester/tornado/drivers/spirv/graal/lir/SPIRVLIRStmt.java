@@ -24,6 +24,10 @@
  */
 package uk.ac.manchester.tornado.drivers.spirv.graal.lir;
 
+import static org.graalvm.compiler.lir.LIRInstruction.OperandFlag.ILLEGAL;
+import static org.graalvm.compiler.lir.LIRInstruction.OperandFlag.REG;
+import static uk.ac.manchester.tornado.api.exceptions.TornadoInternalError.shouldNotReachHere;
+
 import java.util.List;
 import java.util.Map;
 
@@ -36,6 +40,11 @@ import org.graalvm.compiler.lir.asm.CompilationResultBuilder;
 
 import jdk.vm.ci.meta.AllocatableValue;
 import jdk.vm.ci.meta.Value;
+import uk.ac.manchester.beehivespirvtoolkit.lib.instructions.SPIRVOpAtomicCompareExchange;
+import uk.ac.manchester.beehivespirvtoolkit.lib.instructions.SPIRVOpAtomicExchange;
+import uk.ac.manchester.beehivespirvtoolkit.lib.instructions.SPIRVOpAtomicIAdd;
+import uk.ac.manchester.beehivespirvtoolkit.lib.instructions.SPIRVOpAtomicSMax;
+import uk.ac.manchester.beehivespirvtoolkit.lib.instructions.SPIRVOpAtomicSMin;
 import uk.ac.manchester.beehivespirvtoolkit.lib.instructions.SPIRVOpConvertUToPtr;
 import uk.ac.manchester.beehivespirvtoolkit.lib.instructions.SPIRVOpExtInst;
 import uk.ac.manchester.beehivespirvtoolkit.lib.instructions.SPIRVOpInBoundsPtrAccessChain;
@@ -59,6 +68,7 @@ import uk.ac.manchester.tornado.drivers.spirv.graal.compiler.SPIRVNodeLIRBuilder
 import uk.ac.manchester.tornado.drivers.spirv.graal.lir.SPIRVUnary.MemoryAccess;
 import uk.ac.manchester.tornado.drivers.spirv.graal.lir.SPIRVUnary.SPIRVAddressCast;
 import uk.ac.manchester.tornado.runtime.common.TornadoOptions;
+import uk.ac.manchester.tornado.runtime.graal.nodes.AtomicArrayNode.Operation;
 
 public class SPIRVLIRStmt {
 
@@ -1579,4 +1589,122 @@ public class SPIRVLIRStmt {
         }
     }
 
+    @Opcode("ATOMIC_ARRAY")
+    public static class AtomicArrayStmt extends AbstractInstruction {
+
+        public static final LIRInstructionClass<AtomicArrayStmt> TYPE = LIRInstructionClass.create(AtomicArrayStmt.class);
+
+        // Scope Device and relaxed memory semantics, as the OpenCL C atomic_* built-ins
+        private static final String SCOPE_DEVICE = "1";
+        private static final String SEMANTICS_RELAXED = "0";
+
+        @Def
+        protected AllocatableValue result;
+
+        @Use
+        protected SPIRVAddressCast cast;
+
+        @Use
+        protected MemoryAccess address;
+
+        /**
+         * Value.ILLEGAL unless the operation is a compare-and-swap.
+         */
+        @Use({ REG, ILLEGAL })
+        protected Value expected;
+
+        @Use
+        protected Value value;
+
+        private final Operation operation;
+
+        public AtomicArrayStmt(AllocatableValue result, Operation operation, SPIRVAddressCast cast, MemoryAccess address, Value expected, Value value) {
+            super(TYPE);
+            this.result = result;
+            this.operation = operation;
+            this.cast = cast;
+            this.address = address;
+            this.expected = expected;
+            this.value = value;
+        }
+
+        private SPIRVId getOperandId(SPIRVAssembler asm, Value operand) {
+            if (operand instanceof ConstantValue) {
+                return asm.lookUpConstant(((ConstantValue) operand).getConstant().toValueString(), (SPIRVKind) operand.getPlatformKind());
+            }
+            SPIRVId operandId = asm.lookUpLIRInstructions(operand);
+            if (TornadoOptions.OPTIMIZE_LOAD_STORE_SPIRV) {
+                if (asm.isPhiAcrossBlocksPresent((AllocatableValue) operand)) {
+                    operandId = asm.getPhiIdAcrossBlock((AllocatableValue) operand);
+                }
+                return operandId;
+            }
+            SPIRVId loadID = asm.module.getNextId();
+            asm.currentBlockScope().add(new SPIRVOpLoad( //
+                    asm.primitives.getTypePrimitive((SPIRVKind) operand.getPlatformKind()), //
+                    loadID, //
+                    operandId, //
+                    new SPIRVOptionalOperand<>(SPIRVMemoryAccess.Aligned(new SPIRVLiteralInteger(operand.getPlatformKind().getSizeInBytes()))) //
+            ));
+            return loadID;
+        }
+
+        /**
+         * It emits, for example for an atomic add on an int array:
+         *
+         * <code>
+         *     %34 = OpConvertUToPtr %_ptr_CrossWorkgroup_uint %32
+         *     %35 = OpAtomicIAdd %uint %34 %uint_1 %uint_0 %value
+         * </code>
+         *
+         * @param crb
+         *            {@link SPIRVCompilationResultBuilder}
+         * @param asm
+         *            {@link SPIRVAssembler}
+         */
+        @Override
+        protected void emitCode(SPIRVCompilationResultBuilder crb, SPIRVAssembler asm) {
+            asm.emitValue(crb, result);
+            cast.emit(crb, asm);
+
+            final SPIRVId pointer = asm.lookUpLIRInstructions(cast);
+            final SPIRVId type = asm.primitives.getTypePrimitive((SPIRVKind) result.getPlatformKind());
+            final SPIRVId scope = asm.lookUpConstant(SCOPE_DEVICE, SPIRVKind.OP_TYPE_INT_32);
+            final SPIRVId semantics = asm.lookUpConstant(SEMANTICS_RELAXED, SPIRVKind.OP_TYPE_INT_32);
+            final SPIRVId valueId = getOperandId(asm, value);
+            final SPIRVId atomicId = asm.module.getNextId();
+
+            Logger.traceCodeGen(Logger.BACKEND.SPIRV, "emit AtomicArrayStmt " + operation + " in address: " + cast + " with " + value);
+
+            switch (operation) {
+                case ADD:
+                    asm.currentBlockScope().add(new SPIRVOpAtomicIAdd(type, atomicId, pointer, scope, semantics, valueId));
+                    break;
+                case MIN:
+                    asm.currentBlockScope().add(new SPIRVOpAtomicSMin(type, atomicId, pointer, scope, semantics, valueId));
+                    break;
+                case MAX:
+                    asm.currentBlockScope().add(new SPIRVOpAtomicSMax(type, atomicId, pointer, scope, semantics, valueId));
+                    break;
+                case EXCHANGE:
+                    asm.currentBlockScope().add(new SPIRVOpAtomicExchange(type, atomicId, pointer, scope, semantics, valueId));
+                    break;
+                case COMPARE_AND_SWAP:
+                    asm.currentBlockScope().add(new SPIRVOpAtomicCompareExchange(type, atomicId, pointer, scope, semantics, semantics, valueId, getOperandId(asm, expected)));
+                    break;
+                default:
+                    throw shouldNotReachHere("Atomic operation not supported: %s", operation);
+            }
+
+            if (TornadoOptions.OPTIMIZE_LOAD_STORE_SPIRV) {
+                asm.registerLIRInstructionValue(result, atomicId);
+            } else {
+                asm.currentBlockScope().add(new SPIRVOpStore( //
+                        asm.lookUpLIRInstructions(result), //
+                        atomicId, //
+                        new SPIRVOptionalOperand<>(SPIRVMemoryAccess.Aligned(new SPIRVLiteralInteger(result.getPlatformKind().getSizeInBytes()))) //
+                ));
+            }
+        }
+    }
 }
@@ -0,0 +1,94 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2023, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.drivers.spirv.graal.nodes;
+
+import org.graalvm.compiler.core.common.LIRKind;
+import org.graalvm.compiler.core.common.type.StampFactory;
+import org.graalvm.compiler.graph.NodeClass;
+import org.graalvm.compiler.lir.Variable;
+import org.graalvm.compiler.lir.gen.LIRGeneratorTool;
+import org.graalvm.compiler.nodeinfo.InputType;
+import org.graalvm.compiler.nodeinfo.NodeInfo;
+import org.graalvm.compiler.nodes.AbstractStateSplit;
+import org.graalvm.compiler.nodes.NodeView;
+import org.graalvm.compiler.nodes.ValueNode;
+import org.graalvm.compiler.nodes.memory.SingleMemoryKill;
+import org.graalvm.compiler.nodes.memory.address.AddressNode;
+import org.graalvm.compiler.nodes.spi.LIRLowerable;
+import org.graalvm.compiler.nodes.spi.NodeLIRBuilderTool;
+import org.graalvm.word.LocationIdentity;
+
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.Value;
+import uk.ac.manchester.tornado.drivers.spirv.graal.lir.SPIRVLIRStmt;
+import uk.ac.manchester.tornado.drivers.spirv.graal.lir.SPIRVUnary.MemoryAccess;
+import uk.ac.manchester.tornado.drivers.spirv.graal.lir.SPIRVUnary.SPIRVAddressCast;
+import uk.ac.manchester.tornado.runtime.graal.nodes.AtomicArrayNode;
+import uk.ac.manchester.tornado.runtime.graal.nodes.AtomicArrayNode.Operation;
+
+/**
+ * Lowered form of an {@link AtomicArrayNode}: an atomic read-modify-write on
+ * the address of an array element.
+ */
+@NodeInfo(nameTemplate = "SPIRVAtomicArray#{p#operation/s}")
+public class SPIRVAtomicArrayNode extends AbstractStateSplit implements LIRLowerable, SingleMemoryKill {
+
+    public static final NodeClass<SPIRVAtomicArrayNode> TYPE = NodeClass.create(SPIRVAtomicArrayNode.class);
+
+    @Input(InputType.Association)
+    private AddressNode address;
+    @OptionalInput
+    private ValueNode expected;
+    @Input
+    private ValueNode value;
+
+    private final LocationIdentity location;
+    private final Operation operation;
+
+    public SPIRVAtomicArrayNode(AddressNode address, LocationIdentity location, JavaKind elementKind, Operation operation, ValueNode expected, ValueNode value) {
+        super(TYPE, StampFactory.forKind(elementKind));
+        this.address = address;
+        this.location = location;
+        this.operation = operation;
+        this.expected = expected;
+        this.value = value;
+    }
+
+    @Override
+    public LocationIdentity getKilledLocationIdentity() {
+        return location;
+    }
+
+    @Override
+    public void generate(NodeLIRBuilderTool gen) {
+        LIRGeneratorTool tool = gen.getLIRGeneratorTool();
+        LIRKind lirKind = tool.getLIRKind(stamp(NodeView.DEFAULT));
+        Variable result = tool.newVariable(lirKind);
+        MemoryAccess memoryAccess = (MemoryAccess) gen.operand(address);
+        SPIRVAddressCast cast = new SPIRVAddressCast(memoryAccess.getValue(), memoryAccess.getMemoryRegion(), lirKind);
+        Value expectedValue = (expected != null) ? gen.operand(expected) : Value.ILLEGAL;
+        tool.append(new SPIRVLIRStmt.AtomicArrayStmt(result, operation, cast, memoryAccess, expectedValue, gen.operand(value)));
+        gen.setResult(this, result);
+    }
+}
@@ -33,6 +33,7 @@ import jdk.vm.ci.meta.ResolvedJavaMethod;
 import uk.ac.manchester.tornado.api.common.Access;
 import uk.ac.manchester.tornado.api.common.Event;
 import uk.ac.manchester.tornado.api.common.SchedulableTask;
+import uk.ac.manchester.tornado.api.data.nativetypes.TornadoNativeArray;
 import uk.ac.manchester.tornado.api.enums.TornadoDeviceType;
 import uk.ac.manchester.tornado.api.enums.TornadoVMBackendType;
 import uk.ac.manchester.tornado.api.exceptions.TornadoBailoutRuntimeException;
@@ -44,7 +45,6 @@ import uk.ac.manchester.tornado.api.memory.TornadoMemoryProvider;
 import uk.ac.manchester.tornado.api.profiler.ProfilerType;
 import uk.ac.manchester.tornado.api.profiler.TornadoProfiler;
 import uk.ac.manchester.tornado.api.type.annotations.Vector;
-import uk.ac.manchester.tornado.drivers.common.TornadoBufferProvider;
 import uk.ac.manchester.tornado.drivers.opencl.mm.AtomicsBuffer;
 import uk.ac.manchester.tornado.drivers.spirv.SPIRVBackend;
 import uk.ac.manchester.tornado.drivers.spirv.SPIRVDevice;
@@ -67,6 +67,7 @@ import uk.ac.manchester.tornado.drivers.spirv.mm.SPIRVVectorWrapper;
 import uk.ac.manchester.tornado.runtime.TornadoCoreRuntime;
 import uk.ac.manchester.tornado.runtime.common.DeviceObjectState;
 import uk.ac.manchester.tornado.runtime.common.KernelArgs;
+import uk.ac.manchester.tornado.runtime.common.PersistentKernelCache;
 import uk.ac.manchester.tornado.runtime.common.RuntimeUtilities;
 import uk.ac.manchester.tornado.runtime.common.TornadoAcceleratorDevice;
 import uk.ac.manchester.tornado.runtime.common.TornadoInstalledCode;
@@ -155,7 +156,6 @@ public class SPIRVTornadoDevice implements TornadoAcceleratorDevice {
 
         final CompilableTask executable = task;
         final ResolvedJavaMethod resolvedMethod = TornadoCoreRuntime.getTornadoRuntime().resolveMethod(executable.getMethod());
-        final Sketch sketch = TornadoSketcher.lookup(resolvedMethod, task.meta().getDriverIndex(), task.meta().getDeviceIndex());
 
         // copy meta data into task
         final TaskMetaData taskMeta = executable.meta();
@@ -165,6 +165,16 @@ public class SPIRVTornadoDevice implements TornadoAcceleratorDevice {
             return deviceContext.getInstalledCode(task.getId(), resolvedMethod.getName());
         }
 
+        // Return the SPIR-V binary from the persistent kernel cache
+        final PersistentKernelCache kernelCache = PersistentKernelCache.getInstance();
+        final String kernelKey = kernelCache.buildKernelKey(executable, resolvedMethod, this);
+        final PersistentKernelCache.Entry cachedKernel = kernelCache.lookup(kernelKey);
+        if (cachedKernel != null) {
+            cachedKernel.copyArgumentsAccess(taskMeta);
+            return deviceContext.installBinary(taskMeta, task.getId(), cachedKernel.getEntryPoint(), cachedKernel.getCode());
+        }
+
+        final Sketch sketch = TornadoSketcher.lookupOrBuild(resolvedMethod, task.meta().getDriverIndex(), task.meta().getDeviceIndex());
         final Access[] sketchAccess = sketch.getArgumentsAccess();
         final Access[] taskAccess = taskMeta.getArgumentsAccess();
 
@@ -186,6 +196,7 @@ public class SPIRVTornadoDevice implements TornadoAcceleratorDevice {
 
             profiler.start(ProfilerType.TASK_COMPILE_DRIVER_TIME, taskMeta.getId());
             TornadoInstalledCode installedCode = deviceContext.installBinary(result);
+            kernelCache.store(kernelKey, result.getName(), taskAccess, result.getMethods(), result.getSPIRVBinary());
             profiler.stop(ProfilerType.TASK_COMPILE_DRIVER_TIME, taskMeta.getId());
             profiler.sum(ProfilerType.TOTAL_DRIVER_COMPILE_TIME, profiler.getTaskTimer(ProfilerType.TASK_COMPILE_DRIVER_TIME, taskMeta.getId()));
             return installedCode;
@@ -299,6 +310,8 @@ public class SPIRVTornadoDevice implements TornadoAcceleratorDevice {
                     throw new RuntimeException("Multi-dimensional array of type " + type.getName() + " not implemented");
                 }
             }
+        } else if (object instanceof TornadoNativeArray) {
+            throw new TornadoRuntimeException("[ERROR] Native arrays (" + type.getSimpleName() + ") not supported yet for the SPIR-V backend");
         } else if (!type.isPrimitive()) {
             if (object instanceof AtomicInteger) {
                 throw new RuntimeException("Atomic Integers not supported yet");
@@ -320,10 +333,6 @@ public class SPIRVTornadoDevice implements TornadoAcceleratorDevice {
 
     @Override
     public int allocateObjects(Object[] objects, long batchSize, TornadoDeviceObjectState[] states) {
-        TornadoBufferProvider bufferProvider = getDeviceContext().getBufferProvider();
-        if (!bufferProvider.checkBufferAvailability(objects.length)) {
-            bufferProvider.resetBuffers();
-        }
         for (int i = 0; i < objects.length; i++) {
             allocate(objects[i], batchSize, states[i]);
         }
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2023, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.matrix;
+
+import uk.ac.manchester.tornado.matrix.SparseMatrixUtils.CSRMatrix;
+
+/**
+ * Sparse matrix in the ELLPACK format. Every row is padded to the length of
+ * the longest row, and the entries are stored in column-major order: the k-th
+ * entry of row i is at index {@code k * size + i}. Thus, consecutive threads
+ * that process consecutive rows access consecutive memory locations.
+ *
+ * <p>
+ * The length of each row is also stored, so kernels do not process the
+ * padding. ELLPACK is suitable for matrices with similar row lengths. For
+ * matrices with a few long rows, see {@link SellCSigmaMatrix}.
+ * </p>
+ */
+public class EllpackMatrix {
+
+    /**
+     * Number of rows.
+     */
+    public final int size;
+
+    /**
+     * Number of non-zeros.
+     */
+    public final int n;
+
+    /**
+     * Length of the longest row.
+     */
+    public final int width;
+
+    public final int[] rowLengths;
+    public final int[] cols;
+    public final float[] vals;
+
+    private EllpackMatrix(int size, int n, int width, int[] rowLengths, int[] cols, float[] vals) {
+        this.size = size;
+        this.n = n;
+        this.width = width;
+        this.rowLengths = rowLengths;
+        this.cols = cols;
+        this.vals = vals;
+    }
+
+    public static EllpackMatrix fromCSR(CSRMatrix<float[]> csr) {
+        final int size = csr.size;
+        final int[] rowLengths = new int[size];
+        int width = 0;
+        for (int i = 0; i < size; i++) {
+            rowLengths[i] = csr.rows[i + 1] - csr.rows[i];
+            width = Math.max(width, rowLengths[i]);
+        }
+
+        final long storageSize = (long) width * size;
+        if (storageSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(String.format("ELLPACK storage of %d elements is too large, use the SELL-C-sigma format", storageSize));
+        }
+
+        // Padding entries point to column 0 with value 0
+        final int[] cols = new int[(int) storageSize];
+        final float[] vals = new float[(int) storageSize];
+        for (int i = 0; i < size; i++) {
+            final int start = csr.rows[i];
+            for (int k = 0; k < rowLengths[i]; k++) {
+                cols[k * size + i] = csr.cols[start + k];
+                vals[k * size + i] = csr.vals[start + k];
+            }
+        }
+        return new EllpackMatrix(size, csr.n, width, rowLengths, cols, vals);
+    }
+
+    /**
+     * @return Number of stored elements, including padding.
+     */
+    public int getStorageSize() {
+        return cols.length;
+    }
+}
@@ -0,0 +1,840 @@
+/*
+ * Copyright (c) 2023, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.matrix;
+
+import static java.lang.System.err;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import uk.ac.manchester.tornado.matrix.SparseMatrixUtils.CSRMatrix;
+
+/**
+ * Loader for sparse matrices in the Matrix Market coordinate format
+ * (https://math.nist.gov/MatrixMarket/formats.html).
+ *
+ * <p>
+ * The file is memory-mapped and split into chunks that start at line
+ * boundaries. Chunks are parsed in parallel straight into primitive arrays
+ * (one row index, one column index and one value per entry), and the CSR
+ * matrix is built with a counting sort over the rows. Symmetric matrices are
+ * expanded while building the CSR matrix. Entries of pattern matrices get a
+ * value in [0, 256) derived from their coordinates, so loads are
+ * deterministic.
+ * </p>
+ *
+ * <p>
+ * The CSR matrix can also be stored in a binary cache file. The
+ * {@code loadCached*} methods read the cache file if it is newer than the
+ * Matrix Market file, and create it otherwise. A cache file that cannot be
+ * read or written is reported, and the Matrix Market file is used instead.
+ * </p>
+ */
+public final class MatrixMarketLoader {
+
+    /**
+     * Suffix of the binary cache files created next to the Matrix Market files.
+     */
+    public static final String CACHE_SUFFIX = ".csr";
+
+    private static final int CACHE_MAGIC = 0x54435352; // "TCSR"
+    private static final int CACHE_VERSION = 1;
+    private static final byte FLOAT_VALUES = 4;
+    private static final byte DOUBLE_VALUES = 8;
+    private static final int CACHE_HEADER_SIZE = 4 + 4 + 1 + 4 + 4;
+
+    private static final long CHUNK_SIZE = 64L * 1024 * 1024;
+    private static final int IO_BLOCK_SIZE = 16 * 1024 * 1024;
+    private static final int SMALL_ROW = 32;
+
+    private MatrixMarketLoader() {
+    }
+
+    public static CSRMatrix<float[]> loadMatrixF(String path) throws IOException {
+        return buildCSR(parse(Paths.get(path), false)).toFloatMatrix();
+    }
+
+    public static CSRMatrix<double[]> loadMatrixD(String path) throws IOException {
+        return buildCSR(parse(Paths.get(path), true)).toDoubleMatrix();
+    }
+
+    public static CSRMatrix<float[]> loadCachedMatrixF(String path) throws IOException {
+        Path source = Paths.get(path);
+        Path cache = Paths.get(path + CACHE_SUFFIX);
+        if (isCacheValid(source, cache, FLOAT_VALUES)) {
+            try {
+                return readBinaryF(cache);
+            } catch (IOException e) {
+                err.printf("unable to read the matrix cache file: %s (%s)\n", cache, e.getMessage());
+            }
+        }
+        CSRMatrix<float[]> matrix = loadMatrixF(path);
+        writeCache(matrix, cache);
+        return matrix;
+    }
+
+    public static CSRMatrix<double[]> loadCachedMatrixD(String path) throws IOException {
+        Path source = Paths.get(path);
+        Path cache = Paths.get(path + CACHE_SUFFIX);
+        if (isCacheValid(source, cache, DOUBLE_VALUES)) {
+            try {
+                return readBinaryD(cache);
+            } catch (IOException e) {
+                err.printf("unable to read the matrix cache file: %s (%s)\n", cache, e.getMessage());
+            }
+        }
+        CSRMatrix<double[]> matrix = loadMatrixD(path);
+        writeCache(matrix, cache);
+        return matrix;
+    }
+
+    /**
+     * The cache only saves the parsing of later loads, so a failure to write it
+     * (e.g., a read-only directory or a full disk) is reported and the matrix
+     * is still returned.
+     */
+    private static void writeCache(CSRMatrix<?> matrix, Path cache) {
+        try {
+            writeBinary(matrix, cache);
+        } catch (IOException e) {
+            err.printf("unable to write the matrix cache file: %s (%s)\n", cache, e.getMessage());
+            try {
+                Files.deleteIfExists(Paths.get(cache + ".tmp"));
+            } catch (IOException ignored) {
+                // The temporary file is overwritten by the next attempt
+            }
+        }
+    }
+
+    /**
+     * Stores a CSR matrix in the binary cache format. The header contains a
+     * magic number, the format version, the size in bytes of the values, the
+     * number of rows and the number of non-zeros. It is followed by the row
+     * offsets, the column indexes and the values, in little-endian order.
+     *
+     * @param matrix
+     *            CSR matrix with float[] or double[] values.
+     * @param path
+     *            Output file.
+     * @throws IOException
+     *             If the file cannot be written.
+     */
+    public static void writeBinary(CSRMatrix<?> matrix, Path path) throws IOException {
+        byte valueType;
+        if (matrix.vals instanceof float[]) {
+            valueType = FLOAT_VALUES;
+        } else if (matrix.vals instanceof double[]) {
+            valueType = DOUBLE_VALUES;
+        } else {
+            throw new IllegalArgumentException("Unsupported type of values: " + matrix.vals.getClass());
+        }
+        Path tmp = Paths.get(path + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(CACHE_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(CACHE_MAGIC).putInt(CACHE_VERSION).put(valueType).putInt(matrix.size).putInt(matrix.n);
+            header.flip();
+            writeFully(channel, header);
+
+            ByteBuffer block = ByteBuffer.allocateDirect(IO_BLOCK_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            writeInts(channel, block, matrix.rows, matrix.size + 1);
+            writeInts(channel, block, matrix.cols, matrix.n);
+            if (valueType == FLOAT_VALUES) {
+                float[] vals = (float[]) matrix.vals;
+                for (int offset = 0; offset < matrix.n;) {
+                    int length = Math.min(matrix.n - offset, IO_BLOCK_SIZE / Float.BYTES);
+                    block.clear();
+                    block.asFloatBuffer().put(vals, offset, length);
+                    block.limit(length * Float.BYTES);
+                    writeFully(channel, block);
+                    offset += length;
+                }
+            } else {
+                double[] vals = (double[]) matrix.vals;
+                for (int offset = 0; offset < matrix.n;) {
+                    int length = Math.min(matrix.n - offset, IO_BLOCK_SIZE / Double.BYTES);
+                    block.clear();
+                    block.asDoubleBuffer().put(vals, offset, length);
+                    block.limit(length * Double.BYTES);
+                    writeFully(channel, block);
+                    offset += length;
+                }
+            }
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    public static CSRMatrix<float[]> readBinaryF(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            CSRMatrix<float[]> matrix = new CSRMatrix<>();
+            ByteBuffer block = readHeader(channel, path, FLOAT_VALUES, matrix);
+            matrix.vals = new float[matrix.n];
+            for (int offset = 0; offset < matrix.n;) {
+                int length = Math.min(matrix.n - offset, IO_BLOCK_SIZE / Float.BYTES);
+                readFully(channel, block, length * Float.BYTES);
+                block.asFloatBuffer().get(matrix.vals, offset, length);
+                offset += length;
+            }
+            return matrix;
+        }
+    }
+
+    public static CSRMatrix<double[]> readBinaryD(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            CSRMatrix<double[]> matrix = new CSRMatrix<>();
+            ByteBuffer block = readHeader(channel, path, DOUBLE_VALUES, matrix);
+            matrix.vals = new double[matrix.n];
+            for (int offset = 0; offset < matrix.n;) {
+                int length = Math.min(matrix.n - offset, IO_BLOCK_SIZE / Double.BYTES);
+                readFully(channel, block, length * Double.BYTES);
+                block.asDoubleBuffer().get(matrix.vals, offset, length);
+                offset += length;
+            }
+            return matrix;
+        }
+    }
+
+    private static ByteBuffer readHeader(FileChannel channel, Path path, byte valueType, CSRMatrix<?> matrix) throws IOException {
+        ByteBuffer block = ByteBuffer.allocateDirect(IO_BLOCK_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(channel, block, CACHE_HEADER_SIZE);
+        if (block.getInt() != CACHE_MAGIC || block.getInt() != CACHE_VERSION) {
+            throw new IOException("Not a CSR cache file: " + path);
+        }
+        if (block.get() != valueType) {
+            throw new IOException("Unexpected type of values in CSR cache file: " + path);
+        }
+        matrix.size = block.getInt();
+        matrix.n = block.getInt();
+        matrix.rows = readInts(channel, block, matrix.size + 1);
+        matrix.cols = readInts(channel, block, matrix.n);
+        return block;
+    }
+
+    private static boolean isCacheValid(Path source, Path cache, byte valueType) throws IOException {
+        if (!Files.isRegularFile(cache) || Files.getLastModifiedTime(cache).compareTo(Files.getLastModifiedTime(source)) < 0) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(cache, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(CACHE_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // Read until the header is complete
+            }
+            header.flip();
+            return header.remaining() == CACHE_HEADER_SIZE && header.getInt() == CACHE_MAGIC && header.getInt() == CACHE_VERSION && header.get() == valueType;
+        }
+    }
+
+    private static void writeInts(FileChannel channel, ByteBuffer block, int[] values, int size) throws IOException {
+        for (int offset = 0; offset < size;) {
+            int length = Math.min(size - offset, IO_BLOCK_SIZE / Integer.BYTES);
+            block.clear();
+            block.asIntBuffer().put(values, offset, length);
+            block.limit(length * Integer.BYTES);
+            writeFully(channel, block);
+            offset += length;
+        }
+    }
+
+    private static int[] readInts(FileChannel channel, ByteBuffer block, int size) throws IOException {
+        int[] values = new int[size];
+        for (int offset = 0; offset < size;) {
+            int length = Math.min(size - offset, IO_BLOCK_SIZE / Integer.BYTES);
+            readFully(channel, block, length * Integer.BYTES);
+            block.asIntBuffer().get(values, offset, length);
+            offset += length;
+        }
+        return values;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer block, int numBytes) throws IOException {
+        block.clear();
+        block.limit(numBytes);
+        while (block.hasRemaining()) {
+            if (channel.read(block) < 0) {
+                throw new IOException("Unexpected end of CSR cache file");
+            }
+        }
+        block.flip();
+    }
+
+    /**
+     * Entries of the matrix in coordinate format, in the order of the file.
+     */
+    private static final class Coordinates {
+        final int nRows;
+        final boolean symmetric;
+        final int[] rowIndexes;
+        final int[] colIndexes;
+        final float[] floatValues;
+        final double[] doubleValues;
+
+        Coordinates(int nRows, int nEntries, boolean symmetric, boolean doublePrecision) {
+            this.nRows = nRows;
+            this.symmetric = symmetric;
+            this.rowIndexes = new int[nEntries];
+            this.colIndexes = new int[nEntries];
+            this.floatValues = doublePrecision ? null : new float[nEntries];
+            this.doubleValues = doublePrecision ? new double[nEntries] : null;
+        }
+
+        int size() {
+            return rowIndexes.length;
+        }
+    }
+
+    /**
+     * CSR arrays before they are wrapped in a {@link CSRMatrix}.
+     */
+    private static final class CSRArrays {
+        final int nRows;
+        final int[] rows;
+        final int[] cols;
+        final float[] floatValues;
+        final double[] doubleValues;
+
+        CSRArrays(int nRows, int[] rows, int[] cols, float[] floatValues, double[] doubleValues) {
+            this.nRows = nRows;
+            this.rows = rows;
+            this.cols = cols;
+            this.floatValues = floatValues;
+            this.doubleValues = doubleValues;
+        }
+
+        CSRMatrix<float[]> toFloatMatrix() {
+            CSRMatrix<float[]> matrix = new CSRMatrix<>();
+            fill(matrix);
+            matrix.vals = floatValues;
+            return matrix;
+        }
+
+        CSRMatrix<double[]> toDoubleMatrix() {
+            CSRMatrix<double[]> matrix = new CSRMatrix<>();
+            fill(matrix);
+            matrix.vals = doubleValues;
+            return matrix;
+        }
+
+        private void fill(CSRMatrix<?> matrix) {
+            matrix.size = nRows;
+            matrix.n = cols.length;
+            matrix.rows = rows;
+            matrix.cols = cols;
+        }
+    }
+
+    private static Coordinates parse(Path path, boolean doublePrecision) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final long fileSize = channel.size();
+            final Header header = Header.read(channel, path);
+
+            // Split the entries into chunks that start at the beginning of a line
+            List<Long> boundaries = new ArrayList<>();
+            boundaries.add(header.dataOffset);
+            for (long position = header.dataOffset + CHUNK_SIZE; position < fileSize; position += CHUNK_SIZE) {
+                long lineStart = findNextLine(channel, position, fileSize);
+                if (lineStart > boundaries.get(boundaries.size() - 1) && lineStart < fileSize) {
+                    boundaries.add(lineStart);
+                }
+            }
+            boundaries.add(fileSize);
+            final int numChunks = boundaries.size() - 1;
+
+            // First pass: count the entries of each chunk to get their offsets
+            final int[] entriesPerChunk = new int[numChunks];
+            IntStream.range(0, numChunks).parallel().forEach(chunk -> {
+                entriesPerChunk[chunk] = scanChunk(map(channel, boundaries.get(chunk), boundaries.get(chunk + 1)), null, 0, null);
+            });
+            final int[] chunkOffsets = new int[numChunks];
+            long numEntries = 0;
+            for (int chunk = 0; chunk < numChunks; chunk++) {
+                chunkOffsets[chunk] = (int) numEntries;
+                numEntries += entriesPerChunk[chunk];
+            }
+            if (numEntries != header.nEntries) {
+                throw new IOException(String.format("Matrix %s declares %d entries but contains %d", path, header.nEntries, numEntries));
+            }
+
+            // Second pass: parse the entries straight into the coordinate arrays
+            final Coordinates coordinates = new Coordinates(header.nRows, (int) numEntries, header.symmetric, doublePrecision);
+            IntStream.range(0, numChunks).parallel().forEach(chunk -> {
+                scanChunk(map(channel, boundaries.get(chunk), boundaries.get(chunk + 1)), coordinates, chunkOffsets[chunk], header);
+            });
+            return coordinates;
+        }
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, long start, long end) {
+        try {
+            return channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static long findNextLine(FileChannel channel, long position, long fileSize) throws IOException {
+        ByteBuffer window = ByteBuffer.allocate(4096);
+        long current = position - 1;
+        while (current < fileSize) {
+            window.clear();
+            int read = channel.read(window, current);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (window.get(i) == '\n') {
+                    return current + i + 1;
+                }
+            }
+            current += read;
+        }
+        return fileSize;
+    }
+
+    /**
+     * It scans the entry lines of a chunk. If {@code coordinates} is null, the
+     * lines are only counted. Blank lines and comment lines are skipped.
+     *
+     * @return Number of entries in the chunk.
+     */
+    private static int scanChunk(MappedByteBuffer buffer, Coordinates coordinates, int offset, Header header) {
+        final int limit = buffer.limit();
+        final NumberParser parser = new NumberParser(buffer);
+        int entries = 0;
+        int position = 0;
+        while (position < limit) {
+            // Skip leading whitespace and empty lines
+            byte c = buffer.get(position);
+            if (c == ' ' || c == '\t' || c == '\r' || c == '\n') {
+                position++;
+                continue;
+            }
+            if (c == '%') {
+                position = skipLine(buffer, position, limit);
+                continue;
+            }
+            if (coordinates != null) {
+                final int index = offset + entries;
+                parser.position = position;
+                final int row = (int) parser.nextLong() - 1;
+                final int col = (int) parser.nextLong() - 1;
+                if (row < 0 || row >= header.nRows || col < 0 || col >= header.nCols) {
+                    throw new IllegalArgumentException(String.format("Entry (%d, %d) is out of the bounds of the matrix", row + 1, col + 1));
+                }
+                coordinates.rowIndexes[index] = row;
+                coordinates.colIndexes[index] = col;
+                if (header.pattern) {
+                    double value = patternValue(row, col);
+                    if (coordinates.floatValues != null) {
+                        coordinates.floatValues[index] = (float) value;
+                    } else {
+                        coordinates.doubleValues[index] = value;
+                    }
+                } else if (coordinates.floatValues != null) {
+                    coordinates.floatValues[index] = parser.nextFloat();
+                } else {
+                    coordinates.doubleValues[index] = parser.nextDouble();
+                }
+                position = parser.position;
+            }
+            entries++;
+            position = skipLine(buffer, position, limit);
+        }
+        return entries;
+    }
+
+    private static int skipLine(MappedByteBuffer buffer, int position, int limit) {
+        while (position < limit && buffer.get(position) != '\n') {
+            position++;
+        }
+        return position + 1;
+    }
+
+    /**
+     * Deterministic value in [0, 256) for entries of pattern matrices.
+     */
+    private static double patternValue(int row, int col) {
+        long hash = (row * 0x9E3779B97F4A7C15L) ^ (col * 0xC2B2AE3D27D4EB4FL);
+        hash ^= (hash >>> 29);
+        hash *= 0xBF58476D1CE4E5B9L;
+        hash ^= (hash >>> 32);
+        return ((hash >>> 40) / (double) (1L << 24)) * 256.0;
+    }
+
+    /**
+     * It builds the CSR matrix with a counting sort of the entries by row.
+     * Columns within each row are sorted afterwards, in parallel.
+     */
+    private static CSRArrays buildCSR(Coordinates coordinates) {
+        final int nRows = coordinates.nRows;
+        final int nEntries = coordinates.size();
+        final int[] rowIndexes = coordinates.rowIndexes;
+        final int[] colIndexes = coordinates.colIndexes;
+
+        final int[] rows = new int[nRows + 1];
+        for (int i = 0; i < nEntries; i++) {
+            rows[rowIndexes[i] + 1]++;
+            if (coordinates.symmetric && rowIndexes[i] != colIndexes[i]) {
+                rows[colIndexes[i] + 1]++;
+            }
+        }
+        long nonZeros = 0;
+        for (int r = 1; r <= nRows; r++) {
+            nonZeros += rows[r];
+            if (nonZeros > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("The matrix has more non-zeros than a CSR matrix can index");
+            }
+            rows[r] = (int) nonZeros;
+        }
+
+        final int[] cols = new int[(int) nonZeros];
+        final float[] floatValues = (coordinates.floatValues != null) ? new float[(int) nonZeros] : null;
+        final double[] doubleValues = (coordinates.doubleValues != null) ? new double[(int) nonZeros] : null;
+        final int[] cursors = Arrays.copyOf(rows, nRows);
+        for (int i = 0; i < nEntries; i++) {
+            final int row = rowIndexes[i];
+            final int col = colIndexes[i];
+            int target = cursors[row]++;
+            cols[target] = col;
+            if (floatValues != null) {
+                floatValues[target] = coordinates.floatValues[i];
+            } else {
+                doubleValues[target] = coordinates.doubleValues[i];
+            }
+            if (coordinates.symmetric && row != col) {
+                target = cursors[col]++;
+                cols[target] = row;
+                if (floatValues != null) {
+                    floatValues[target] = coordinates.floatValues[i];
+                } else {
+                    doubleValues[target] = coordinates.doubleValues[i];
+                }
+            }
+        }
+
+        IntStream.range(0, nRows).parallel().forEach(row -> sortRow(cols, floatValues, doubleValues, rows[row], rows[row + 1]));
+        return new CSRArrays(nRows, rows, cols, floatValues, doubleValues);
+    }
+
+    /**
+     * It sorts the entries of one row by column. The sort is stable, so
+     * duplicated entries keep the order of the file.
+     */
+    private static void sortRow(int[] cols, float[] floatValues, double[] doubleValues, int start, int end) {
+        final int length = end - start;
+        if (length <= SMALL_ROW) {
+            for (int i = start + 1; i < end; i++) {
+                final int col = cols[i];
+                final float floatValue = (floatValues != null) ? floatValues[i] : 0;
+                final double doubleValue = (doubleValues != null) ? doubleValues[i] : 0;
+                int j = i - 1;
+                while (j >= start && cols[j] > col) {
+                    cols[j + 1] = cols[j];
+                    if (floatValues != null) {
+                        floatValues[j + 1] = floatValues[j];
+                    } else {
+                        doubleValues[j + 1] = doubleValues[j];
+                    }
+                    j--;
+                }
+                cols[j + 1] = col;
+                if (floatValues != null) {
+                    floatValues[j + 1] = floatValue;
+                } else {
+                    doubleValues[j + 1] = doubleValue;
+                }
+            }
+            return;
+        }
+
+        // The column is in the upper bits, so sorting the keys sorts by column
+        // and then by position within the row
+        final long[] keys = new long[length];
+        boolean sorted = true;
+        for (int i = 0; i < length; i++) {
+            keys[i] = ((long) cols[start + i] << 32) | i;
+            sorted &= (i == 0) || cols[start + i - 1] <= cols[start + i];
+        }
+        if (sorted) {
+            return;
+        }
+        Arrays.sort(keys);
+        if (floatValues != null) {
+            final float[] values = Arrays.copyOfRange(floatValues, start, end);
+            for (int i = 0; i < length; i++) {
+                cols[start + i] = (int) (keys[i] >>> 32);
+                floatValues[start + i] = values[(int) keys[i]];
+            }
+        } else {
+            final double[] values = Arrays.copyOfRange(doubleValues, start, end);
+            for (int i = 0; i < length; i++) {
+                cols[start + i] = (int) (keys[i] >>> 32);
+                doubleValues[start + i] = values[(int) keys[i]];
+            }
+        }
+    }
+
+    /**
+     * Banner and size line of a Matrix Market file.
+     */
+    private static final class Header {
+        int nRows;
+        int nCols;
+        long nEntries;
+        boolean pattern;
+        boolean symmetric;
+        long dataOffset;
+
+        static Header read(FileChannel channel, Path path) throws IOException {
+            Header header = new Header();
+            long position = 0;
+            final long fileSize = channel.size();
+            String line = null;
+            boolean banner = true;
+            while (position < fileSize) {
+                final long lineEnd = findNextLine(channel, position + 1, fileSize);
+                ByteBuffer bytes = ByteBuffer.allocate((int) (lineEnd - position));
+                channel.read(bytes, position);
+                line = new String(bytes.array(), StandardCharsets.US_ASCII).trim();
+                position = lineEnd;
+                if (banner) {
+                    String[] opts = line.split("\\s+");
+                    if (opts.length < 5 || !opts[0].equalsIgnoreCase("%%MatrixMarket") || !opts[1].equalsIgnoreCase("matrix")) {
+                        throw new IOException("File does not contain a Matrix Market matrix: " + path);
+                    }
+                    if (!opts[2].equalsIgnoreCase("coordinate")) {
+                        throw new IOException("Matrix representation is dense: " + path);
+                    }
+                    if (opts[3].equalsIgnoreCase("complex")) {
+                        throw new IOException("Complex matrices are not supported: " + path);
+                    }
+                    header.pattern = opts[3].equalsIgnoreCase("pattern");
+                    header.symmetric = opts[4].equalsIgnoreCase("symmetric");
+                    banner = false;
+                } else if (!line.isEmpty() && !line.startsWith("%")) {
+                    String[] opts = line.split("\\s+");
+                    header.nRows = Integer.parseInt(opts[0]);
+                    header.nCols = Integer.parseInt(opts[1]);
+                    header.nEntries = Long.parseLong(opts[2]);
+                    header.dataOffset = position;
+                    if (header.nEntries > Integer.MAX_VALUE) {
+                        throw new IOException("Matrix has more entries than can be indexed: " + path);
+                    }
+                    return header;
+                }
+            }
+            throw new IOException("Missing size line in Matrix Market file: " + path);
+        }
+    }
+
+    /**
+     * Parser of decimal numbers from a mapped buffer, without intermediate
+     * strings. Values with up to 15 significant digits and small exponents are
+     * computed exactly from the decimal digits; other values fall back to
+     * {@link Double#parseDouble} and {@link Float#parseFloat}.
+     */
+    static final class NumberParser {
+        private static final double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+        private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+        private final ByteBuffer buffer;
+        private final int limit;
+        int position;
+
+        // Components of the last parsed number
+        private long mantissa;
+        private int exponent;
+        private boolean negative;
+        private boolean exact;
+        private int start;
+
+        NumberParser(ByteBuffer buffer) {
+            this.buffer = buffer;
+            this.limit = buffer.limit();
+        }
+
+        private void skipWhitespace() {
+            while (position < limit) {
+                byte c = buffer.get(position);
+                if (c != ' ' && c != '\t') {
+                    break;
+                }
+                position++;
+            }
+        }
+
+        long nextLong() {
+            skipWhitespace();
+            boolean isNegative = false;
+            if (position < limit && (buffer.get(position) == '-' || buffer.get(position) == '+')) {
+                isNegative = buffer.get(position) == '-';
+                position++;
+            }
+            final int digitsStart = position;
+            long value = 0;
+            while (position < limit) {
+                final int digit = buffer.get(position) - '0';
+                if (digit < 0 || digit > 9) {
+                    break;
+                }
+                value = value * 10 + digit;
+                position++;
+            }
+            if (position == digitsStart) {
+                throw new NumberFormatException("Expected an integer at byte " + digitsStart);
+            }
+            return isNegative ? -value : value;
+        }
+
+        /**
+         * It reads the sign, the significant digits (up to 18) and the exponent
+         * of the next number. {@code exact} is false if the number is not a
+         * plain decimal number (e.g. "inf" or "nan").
+         */
+        private void scanDecimal() {
+            skipWhitespace();
+            start = position;
+            negative = false;
+            mantissa = 0;
+            exponent = 0;
+            exact = true;
+            if (position < limit && (buffer.get(position) == '-' || buffer.get(position) == '+')) {
+                negative = buffer.get(position) == '-';
+                position++;
+            }
+            int significantDigits = 0;
+            boolean anyDigit = false;
+            boolean afterPoint = false;
+            while (position < limit) {
+                final byte c = buffer.get(position);
+                if (c >= '0' && c <= '9') {
+                    anyDigit = true;
+                    if (mantissa == 0 && c == '0') {
+                        // Leading zeros are not significant
+                        if (afterPoint) {
+                            exponent--;
+                        }
+                    } else if (significantDigits < 18) {
+                        mantissa = mantissa * 10 + (c - '0');
+                        significantDigits++;
+                        if (afterPoint) {
+                            exponent--;
+                        }
+                    } else {
+                        // Digits that do not fit in the mantissa
+                        if (c != '0') {
+                            exact = false;
+                        }
+                        if (!afterPoint) {
+                            exponent++;
+                        }
+                    }
+                } else if (c == '.' && !afterPoint) {
+                    afterPoint = true;
+                } else {
+                    break;
+                }
+                position++;
+            }
+            if (position < limit && (buffer.get(position) == 'e' || buffer.get(position) == 'E' || buffer.get(position) == 'd' || buffer.get(position) == 'D')) {
+                position++;
+                exponent += (int) nextLong();
+            }
+            if (!anyDigit) {
+                exact = false;
+                // Consume the token, e.g. "inf" or "nan"
+                while (position < limit) {
+                    final byte c = buffer.get(position);
+                    if (c == ' ' || c == '\t' || c == '\r' || c == '\n') {
+                        break;
+                    }
+                    position++;
+                }
+            }
+        }
+
+        double nextDouble() {
+            scanDecimal();
+            if (exact) {
+                if (mantissa == 0) {
+                    return negative ? -0.0 : 0.0;
+                }
+                if (mantissa <= MAX_EXACT_MANTISSA && Math.abs(exponent) <= 22) {
+                    // Both operands are exact, so the result is correctly rounded
+                    double value = (exponent >= 0) ? mantissa * POWERS_OF_TEN[exponent] : mantissa / POWERS_OF_TEN[-exponent];
+                    return negative ? -value : value;
+                }
+            }
+            return Double.parseDouble(token());
+        }
+
+        float nextFloat() {
+            scanDecimal();
+            if (exact) {
+                if (mantissa == 0) {
+                    return negative ? -0.0f : 0.0f;
+                }
+                if (mantissa <= MAX_EXACT_MANTISSA && Math.abs(exponent) <= 22) {
+                    double value = (exponent >= 0) ? mantissa * POWERS_OF_TEN[exponent] : mantissa / POWERS_OF_TEN[-exponent];
+                    float result = (float) value;
+                    // Rounding the correctly rounded double to float gives the
+                    // correctly rounded float, unless the double is exactly
+                    // half way between two floats
+                    if (!isHalfWay(value, result)) {
+                        return negative ? -result : result;
+                    }
+                }
+            }
+            return Float.parseFloat(token());
+        }
+
+        private static boolean isHalfWay(double value, float rounded) {
+            if (value == rounded) {
+                return false;
+            }
+            float neighbour = (value > rounded) ? Math.nextUp(rounded) : Math.nextDown(rounded);
+            return value == ((double) rounded + (double) neighbour) / 2.0;
+        }
+
+        private String token() {
+            final byte[] bytes = new byte[position - start];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = buffer.get(start + i);
+            }
+            return new String(bytes, StandardCharsets.US_ASCII).trim().replace('d', 'e').replace('D', 'e');
+        }
+    }
+}
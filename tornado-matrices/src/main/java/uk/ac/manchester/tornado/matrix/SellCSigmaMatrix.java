@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2023, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.matrix;
+
+import java.util.Arrays;
+
+import uk.ac.manchester.tornado.matrix.SparseMatrixUtils.CSRMatrix;
+
+/**
+ * Sparse matrix in the SELL-C-sigma format (Kreutzer et al., "A unified sparse
+ * matrix data format for efficient general sparse matrix-vector multiplication
+ * on modern processors with wide SIMD units", SIAM J. Sci. Comput. 2014).
+ *
+ * <p>
+ * Rows are sorted by decreasing length within windows of {@code sigma} rows,
+ * and the sorted rows are grouped into slices of {@code chunkHeight} (C) rows.
+ * Each slice is padded to the length of its longest row only and stored in
+ * column-major order: the k-th entry of the row at position p is at index
+ * {@code sliceOffsets[p / C] + k * C + p % C}. Sorting reduces the padding, and
+ * neighbouring rows of similar length balance the work of threads that run
+ * together.
+ * </p>
+ *
+ * <p>
+ * Rows are stored in the sorted order. {@link #permutation} gives, for each
+ * position, the original row.
+ * </p>
+ */
+public class SellCSigmaMatrix {
+
+    /**
+     * Number of rows.
+     */
+    public final int size;
+
+    /**
+     * Number of non-zeros.
+     */
+    public final int n;
+
+    /**
+     * Number of rows of each slice (C).
+     */
+    public final int chunkHeight;
+
+    /**
+     * Number of rows of each sorting window (sigma).
+     */
+    public final int sigma;
+
+    public final int numSlices;
+    public final int[] sliceOffsets;
+    public final int[] rowLengths;
+    public final int[] permutation;
+    public final int[] cols;
+    public final float[] vals;
+
+    private SellCSigmaMatrix(int size, int n, int chunkHeight, int sigma, int[] sliceOffsets, int[] rowLengths, int[] permutation, int[] cols, float[] vals) {
+        this.size = size;
+        this.n = n;
+        this.chunkHeight = chunkHeight;
+        this.sigma = sigma;
+        this.numSlices = sliceOffsets.length - 1;
+        this.sliceOffsets = sliceOffsets;
+        this.rowLengths = rowLengths;
+        this.permutation = permutation;
+        this.cols = cols;
+        this.vals = vals;
+    }
+
+    /**
+     * It converts a CSR matrix into the SELL-C-sigma format.
+     *
+     * @param csr
+     *            CSR matrix.
+     * @param chunkHeight
+     *            Number of rows of each slice. It usually matches the number of
+     *            threads that run together (e.g. the warp size).
+     * @param sigma
+     *            Number of rows of each sorting window. A value of 1 does not
+     *            sort rows. A value equal to the number of rows sorts the whole
+     *            matrix.
+     * @return A new {@link SellCSigmaMatrix}.
+     */
+    public static SellCSigmaMatrix fromCSR(CSRMatrix<float[]> csr, int chunkHeight, int sigma) {
+        if (chunkHeight <= 0 || sigma <= 0) {
+            throw new IllegalArgumentException(String.format("Invalid SELL-C-sigma parameters: C=%d, sigma=%d", chunkHeight, sigma));
+        }
+        final int size = csr.size;
+
+        // Sort the rows of each window by decreasing length. The row is in the
+        // lower bits of the key, so rows of the same length keep their order.
+        final int[] permutation = new int[size];
+        final int[] rowLengths = new int[size];
+        for (int windowStart = 0; windowStart < size; windowStart += sigma) {
+            final int windowEnd = (int) Math.min((long) windowStart + sigma, size);
+            final long[] keys = new long[windowEnd - windowStart];
+            for (int row = windowStart; row < windowEnd; row++) {
+                final int length = csr.rows[row + 1] - csr.rows[row];
+                keys[row - windowStart] = ((long) (Integer.MAX_VALUE - length) << 32) | row;
+            }
+            if (sigma > 1) {
+                Arrays.sort(keys);
+            }
+            for (int i = 0; i < keys.length; i++) {
+                final int row = (int) keys[i];
+                permutation[windowStart + i] = row;
+                rowLengths[windowStart + i] = csr.rows[row + 1] - csr.rows[row];
+            }
+        }
+
+        final int numSlices = (size + chunkHeight - 1) / chunkHeight;
+        final int[] sliceOffsets = new int[numSlices + 1];
+        long storageSize = 0;
+        for (int slice = 0; slice < numSlices; slice++) {
+            int sliceWidth = 0;
+            for (int position = slice * chunkHeight; position < Math.min((slice + 1) * chunkHeight, size); position++) {
+                sliceWidth = Math.max(sliceWidth, rowLengths[position]);
+            }
+            storageSize += (long) sliceWidth * chunkHeight;
+            if (storageSize > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("SELL-C-sigma storage is too large: " + storageSize);
+            }
+            sliceOffsets[slice + 1] = (int) storageSize;
+        }
+
+        // Padding entries point to column 0 with value 0
+        final int[] cols = new int[(int) storageSize];
+        final float[] vals = new float[(int) storageSize];
+        for (int position = 0; position < size; position++) {
+            final int start = csr.rows[permutation[position]];
+            final int base = sliceOffsets[position / chunkHeight] + position % chunkHeight;
+            for (int k = 0; k < rowLengths[position]; k++) {
+                cols[base + k * chunkHeight] = csr.cols[start + k];
+                vals[base + k * chunkHeight] = csr.vals[start + k];
+            }
+        }
+        return new SellCSigmaMatrix(size, csr.n, chunkHeight, sigma, sliceOffsets, rowLengths, permutation, cols, vals);
+    }
+
+    /**
+     * @return Number of stored elements, including padding.
+     */
+    public int getStorageSize() {
+        return cols.length;
+    }
+}
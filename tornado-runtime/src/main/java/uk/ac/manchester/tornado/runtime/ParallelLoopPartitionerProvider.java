@@ -0,0 +1,50 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2023, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.runtime;
+
+import java.lang.reflect.Method;
+
+/**
+ * It rewrites a task method so that the outermost loop annotated with
+ * {@link uk.ac.manchester.tornado.api.annotations.Parallel} only runs a
+ * partition of its iteration space. It is used to execute tasks on the host
+ * with several threads when a task bails out.
+ */
+public interface ParallelLoopPartitionerProvider {
+
+    /**
+     * It returns a static method with the same signature as {@code method}.
+     * Iterations of the outermost parallel loop are distributed across
+     * partitions in blocks of
+     * {@link uk.ac.manchester.tornado.runtime.tasks.ParallelJavaFallback#getChunkSize()}
+     * iterations, and each call runs the partition given by
+     * {@link uk.ac.manchester.tornado.runtime.tasks.ParallelJavaFallback#getPartitionIndex()}.
+     *
+     * @param method
+     *            Static task method.
+     * @return The partitioned method, or null if the method cannot be
+     *         partitioned.
+     */
+    Method partitionParallelLoop(Method method);
+}
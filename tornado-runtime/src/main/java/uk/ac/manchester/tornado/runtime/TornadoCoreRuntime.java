@@ -31,12 +31,11 @@ import static uk.ac.manchester.tornado.runtime.common.Tornado.SHOULD_LOAD_RMI;
 
 import java.lang.reflect.Method;
 import java.util.List;
-import java.util.Map;
 import java.util.ServiceLoader;
-import java.util.WeakHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
@@ -65,6 +64,7 @@ import uk.ac.manchester.tornado.runtime.common.TornadoOptions;
 import uk.ac.manchester.tornado.runtime.common.enums.TornadoDrivers;
 import uk.ac.manchester.tornado.runtime.graal.compiler.TornadoSnippetReflectionProvider;
 import uk.ac.manchester.tornado.runtime.tasks.GlobalObjectState;
+import uk.ac.manchester.tornado.runtime.tasks.GlobalObjectStateTable;
 
 public class TornadoCoreRuntime extends TornadoLogger implements TornadoRuntimeInterface {
 
@@ -80,12 +80,24 @@ public class TornadoCoreRuntime extends TornadoLogger implements TornadoRuntimeI
         }
     };
     private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(TornadoOptions.TORNADO_SKETCHER_THREADS, executorThreadFactory);
+    private static final ThreadFactory compilerThreadFactory = new ThreadFactory() {
+        private final AtomicInteger threadId = new AtomicInteger(0);
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, String.format("TornadoCompilerThread - %d", threadId.getAndIncrement()));
+            thread.setDaemon(true);
+            return thread;
+        }
+    };
+    // Compilations wait for the sketches built on the EXECUTOR, so they run on their own pool
+    private static final ExecutorService COMPILER_EXECUTOR = Executors.newFixedThreadPool(TornadoOptions.TORNADO_COMPILER_THREADS, compilerThreadFactory);
     private static final TornadoCoreRuntime runtime = new TornadoCoreRuntime();
     private static final JVMMapping JVM = new JVMMapping();
     private static final int DEFAULT_DRIVER = 0;
     private static DebugContext debugContext = null;
     private static OptionValues options;
-    private final Map<Object, GlobalObjectState> objectMappings;
+    private final GlobalObjectStateTable objectMappings;
     private final JVMCIBackend vmBackend;
     private final HotSpotJVMCIRuntime vmRuntime;
     private final TornadoVMConfig vmConfig;
@@ -93,7 +105,7 @@ public class TornadoCoreRuntime extends TornadoLogger implements TornadoRuntimeI
     private int driverCount;
 
     private TornadoCoreRuntime() {
-        objectMappings = new WeakHashMap<>();
+        objectMappings = new GlobalObjectStateTable();
 
         initOptions();
         guarantee(!GraalOptions.OmitHotExceptionStacktrace.getValue(options), "error");
@@ -122,6 +134,10 @@ public class TornadoCoreRuntime extends TornadoLogger implements TornadoRuntimeI
         return EXECUTOR;
     }
 
+    public static ExecutorService getTornadoCompilerExecutor() {
+        return COMPILER_EXECUTOR;
+    }
+
     public static JVMCIBackend getVMBackend() {
         return runtime.vmBackend;
     }
@@ -153,9 +169,6 @@ public class TornadoCoreRuntime extends TornadoLogger implements TornadoRuntimeI
     }
 
     public void clearObjectState() {
-        for (GlobalObjectState gs : objectMappings.values()) {
-            gs.clear();
-        }
         objectMappings.clear();
     }
 
@@ -182,11 +195,7 @@ public class TornadoCoreRuntime extends TornadoLogger implements TornadoRuntimeI
     }
 
     public GlobalObjectState resolveObject(Object object) {
-        if (!objectMappings.containsKey(object)) {
-            final GlobalObjectState state = new GlobalObjectState();
-            objectMappings.put(object, state);
-        }
-        return objectMappings.get(object);
+        return objectMappings.resolve(object);
     }
 
     @Override
@@ -23,23 +23,27 @@
  */
 package uk.ac.manchester.tornado.runtime;
 
-import java.util.ArrayList;
 import java.util.Deque;
-import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.stream.IntStream;
 
+import uk.ac.manchester.tornado.api.DataParallelSplit;
 import uk.ac.manchester.tornado.api.GridScheduler;
 import uk.ac.manchester.tornado.api.common.Event;
+import uk.ac.manchester.tornado.api.common.TornadoDevice;
 import uk.ac.manchester.tornado.api.exceptions.TornadoBailoutRuntimeException;
 import uk.ac.manchester.tornado.api.exceptions.TornadoDeviceFP64NotSupported;
 import uk.ac.manchester.tornado.api.exceptions.TornadoFailureException;
 import uk.ac.manchester.tornado.api.exceptions.TornadoRuntimeException;
 import uk.ac.manchester.tornado.api.profiler.TornadoProfiler;
+import uk.ac.manchester.tornado.runtime.common.DevicePartition;
+import uk.ac.manchester.tornado.runtime.common.TornadoAcceleratorDevice;
 import uk.ac.manchester.tornado.runtime.common.TornadoLogger;
 import uk.ac.manchester.tornado.runtime.common.TornadoOptions;
 import uk.ac.manchester.tornado.runtime.graph.TornadoExecutionContext;
@@ -55,6 +59,14 @@ import uk.ac.manchester.tornado.runtime.tasks.TornadoTaskGraph;
  * parallel device (e.g., a GPU).
  */
 public class TornadoVM extends TornadoLogger {
+    private static final AtomicInteger INTERPRETER_THREAD_ID = new AtomicInteger(0);
+
+    private static final ThreadFactory INTERPRETER_THREAD_FACTORY = runnable -> {
+        Thread thread = new Thread(runnable, String.format("TornadoVMInterpreterThread - %d", INTERPRETER_THREAD_ID.getAndIncrement()));
+        thread.setDaemon(true);
+        return thread;
+    };
+
     private final TornadoExecutionContext executionContext;
 
     private final TornadoProfiler timeProfiler;
@@ -63,6 +75,14 @@ public class TornadoVM extends TornadoLogger {
 
     private final TornadoVMInterpreter[] tornadoVMInterpreters;
 
+    private final Future<?>[] pendingInterpreters;
+
+    private ExecutorService interpreterExecutor;
+
+    // Current ratios and slices of a data-parallel split
+    private float[] splitRatios;
+    private DevicePartition devicePartition;
+
     /**
      * It constructs a new TornadoVM instance.
      *
@@ -78,15 +98,27 @@ public class TornadoVM extends TornadoLogger {
         this.executionContext = executionContext;
         this.timeProfiler = timeProfiler;
         tornadoVMBytecodes = TornadoVMGraphCompiler.compile(tornadoGraph, executionContext);
-        tornadoVMInterpreters = new TornadoVMInterpreter[executionContext.getValidContextSize()];
+        tornadoVMInterpreters = new TornadoVMInterpreter[getNumInterpreters()];
+        pendingInterpreters = new Future<?>[tornadoVMInterpreters.length];
         bindBytecodesToInterpreters();
     }
 
+    private int getNumInterpreters() {
+        return executionContext.isDataParallelSplit() ? executionContext.getDataParallelSplit().getNumDevices() : executionContext.getValidContextSize();
+    }
+
     /**
      * It binds bytecodes to interpreters for each valid context. One valid context
-     * per assigned device.
+     * per assigned device. With a data-parallel split, there is one interpreter per
+     * device of the split instead.
      */
     private void bindBytecodesToInterpreters() {
+        if (executionContext.isDataParallelSplit()) {
+            final TornadoDevice[] devices = executionContext.getDataParallelSplit().getDevices();
+            IntStream.range(0, devices.length)
+                    .forEach(i -> tornadoVMInterpreters[i] = new TornadoVMInterpreter(executionContext, tornadoVMBytecodes[i], timeProfiler, (TornadoAcceleratorDevice) devices[i], i));
+            return;
+        }
         assert tornadoVMInterpreters.length == executionContext.getValidContextSize();
         final Deque<Integer> activeDevices = executionContext.getActiveDeviceIndexes();
         IntStream.range(0, executionContext.getValidContextSize())
@@ -100,15 +132,63 @@ public class TornadoVM extends TornadoLogger {
      * @return An {@link Event} indicating the completion of execution.
      */
     public Event execute() {
+        updateDevicePartition();
+        final Event event;
         if (calculateNumberOfJavaThreads() != 1) {
-            return executeInterpreterThreadManager();
+            event = executeInterpreterThreadManager();
         } else {
-            return executeSingleThreaded();
+            event = executeSingleThreaded();
         }
+        rebalanceDevicePartition();
+        return event;
     }
 
     private int calculateNumberOfJavaThreads() {
-        return shouldRunConcurrently() ? executionContext.getValidContextSize() : 1;
+        return shouldRunConcurrently() ? tornadoVMInterpreters.length : 1;
+    }
+
+    /**
+     * It computes the slices of each device of a data-parallel split, for the
+     * current ratios and sizes of the objects. The interpreters are only updated
+     * when the slices change, since a new partition requires new device buffers
+     * and kernels.
+     */
+    private void updateDevicePartition() {
+        if (!executionContext.isDataParallelSplit()) {
+            return;
+        }
+        final DataParallelSplit split = executionContext.getDataParallelSplit();
+        if (splitRatios == null) {
+            splitRatios = split.getRatios();
+        }
+        final DevicePartition partition = DevicePartition.computePartition(executionContext, splitRatios, split.getHalo());
+        if (!partition.hasSameSlices(devicePartition)) {
+            devicePartition = partition;
+            for (TornadoVMInterpreter tornadoVMInterpreter : tornadoVMInterpreters) {
+                tornadoVMInterpreter.setDevicePartition(partition);
+            }
+            split.updateSlices(partition.getSliceOffsets(), partition.getSliceSizes());
+        }
+    }
+
+    /**
+     * With adaptive ratios, it updates the ratios of the data-parallel split from
+     * the throughput of each device in the last execution. The new ratios are
+     * applied in the next execution.
+     */
+    private void rebalanceDevicePartition() {
+        if (devicePartition == null || !executionContext.getDataParallelSplit().isAdaptive()) {
+            return;
+        }
+        final double[] elapsedTimes = new double[tornadoVMInterpreters.length];
+        for (int i = 0; i < tornadoVMInterpreters.length; i++) {
+            elapsedTimes[i] = tornadoVMInterpreters[i].getLastExecutionTime();
+        }
+        final float[] newRatios = devicePartition.rebalance(splitRatios, elapsedTimes, TornadoOptions.getDataParallelSplitRebalanceThreshold());
+        if (newRatios != splitRatios) {
+            splitRatios = newRatios;
+            executionContext.getDataParallelSplit().updateCurrentRatios(newRatios);
+        }
     }
 
     private Event executeSingleThreaded() {
@@ -121,52 +201,109 @@ public class TornadoVM extends TornadoLogger {
     }
 
     /**
-     * It executes the interpreter manager either in concurrently in multiple
-     * threads or in single-threaded mode.
+     * It executes the interpreters concurrently, one interpreter per device. All
+     * interpreters but one are submitted to the interpreter thread pool of this
+     * {@link TornadoVM}, and the calling thread runs the remaining interpreter.
      *
      * @return An {@link Event} indicating the completion of execution.
      */
     private Event executeInterpreterThreadManager() {
-        // Create a thread pool with a fixed number of threads
-        int numberOfJavaThreads = calculateNumberOfJavaThreads();
-        ExecutorService executor = Executors.newFixedThreadPool(numberOfJavaThreads);
+        ExecutorService executor = getInterpreterExecutor();
 
-        // Create a list to hold the futures of each execution
-        List<Future<?>> futures = new ArrayList<>();
-
-        // Submit each task to the thread pool
-        for (TornadoVMInterpreter tornadoVMInterpreter : tornadoVMInterpreters) {
-            Future<?> future = executor.submit(() -> tornadoVMInterpreter.execute(false));
-            futures.add(future);
+        // Submit all interpreters but the last one to the thread pool
+        final int lastInterpreter = tornadoVMInterpreters.length - 1;
+        for (int i = 0; i < lastInterpreter; i++) {
+            final TornadoVMInterpreter tornadoVMInterpreter = tornadoVMInterpreters[i];
+            pendingInterpreters[i] = executor.submit(() -> tornadoVMInterpreter.execute(false));
         }
-        // Wait for all tasks to complete
+
+        // Fast path: the calling thread runs the last interpreter
+        RuntimeException callerException = null;
         try {
-            for (Future<?> future : futures) {
-                future.get();
-            }
-        } catch (ExecutionException | InterruptedException e) {
-            Throwable cause = e.getCause();
-            if (cause instanceof TornadoBailoutRuntimeException) {
-                throw new TornadoBailoutRuntimeException(e.getMessage());
-            } else if (cause instanceof TornadoFailureException) {
-                throw new TornadoFailureException(e);
-            } else if (cause instanceof TornadoRuntimeException) {
-                throw new TornadoRuntimeException(e);
-            } else if (cause instanceof TornadoDeviceFP64NotSupported) {
-                throw new TornadoDeviceFP64NotSupported(e.getMessage());
-            } else {
-                throw new RuntimeException(e);
+            tornadoVMInterpreters[lastInterpreter].execute(false);
+        } catch (RuntimeException e) {
+            callerException = e;
+        }
+
+        // Wait for all interpreters to complete, even if one of them failed
+        ExecutionException interpreterException = null;
+        InterruptedException interruptedException = null;
+        for (int i = 0; i < lastInterpreter; i++) {
+            try {
+                pendingInterpreters[i].get();
+            } catch (ExecutionException e) {
+                if (interpreterException == null) {
+                    interpreterException = e;
+                }
+            } catch (InterruptedException e) {
+                interruptedException = e;
+            } finally {
+                pendingInterpreters[i] = null;
             }
-        } finally {
-            // Shutdown the executor after all tasks have completed
-            executor.shutdown();
+        }
+
+        if (callerException != null) {
+            throw callerException;
+        } else if (interpreterException != null) {
+            throw rethrowInterpreterException(interpreterException);
+        } else if (interruptedException != null) {
+            Thread.currentThread().interrupt();
+            throw new TornadoRuntimeException(interruptedException);
         }
 
         return new EmptyEvent();
     }
 
+    private RuntimeException rethrowInterpreterException(ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof TornadoBailoutRuntimeException) {
+            return new TornadoBailoutRuntimeException(e.getMessage());
+        } else if (cause instanceof TornadoFailureException) {
+            return new TornadoFailureException(e);
+        } else if (cause instanceof TornadoRuntimeException) {
+            return new TornadoRuntimeException(e);
+        } else if (cause instanceof TornadoDeviceFP64NotSupported) {
+            return new TornadoDeviceFP64NotSupported(e.getMessage());
+        } else {
+            return new RuntimeException(e);
+        }
+    }
+
+    /**
+     * It returns the thread pool used to run the interpreters concurrently. The
+     * pool is created the first time that the task-graph runs on multiple
+     * devices concurrently, and it is reused for all subsequent executions until
+     * {@link #shutdownInterpreterThreads()} is invoked. The calling thread always
+     * runs one of the interpreters, so the pool has one thread less than the
+     * number of interpreters.
+     *
+     * @return {@link ExecutorService}
+     */
+    private ExecutorService getInterpreterExecutor() {
+        if (interpreterExecutor == null || interpreterExecutor.isShutdown()) {
+            interpreterExecutor = Executors.newFixedThreadPool(tornadoVMInterpreters.length - 1, INTERPRETER_THREAD_FACTORY);
+        }
+        return interpreterExecutor;
+    }
+
+    /**
+     * It releases the threads used to run the interpreters concurrently. If the
+     * task-graph is executed again, a new thread pool is created.
+     */
+    public void shutdownInterpreterThreads() {
+        if (interpreterExecutor != null) {
+            interpreterExecutor.shutdown();
+            interpreterExecutor = null;
+        }
+    }
+
+    /**
+     * The interpreters of a data-parallel split always run concurrently, since
+     * each device works on its own slice. Otherwise, multiple devices run
+     * concurrently only with {@link TornadoOptions#CONCURRENT_INTERPRETERS}.
+     */
     private boolean shouldRunConcurrently() {
-        return TornadoOptions.CONCURRENT_INTERPRETERS && (executionContext.getValidContextSize() > 1);
+        return (TornadoOptions.CONCURRENT_INTERPRETERS || executionContext.isDataParallelSplit()) && (tornadoVMInterpreters.length > 1);
     }
 
     public void executeActionOnInterpreters(Consumer<TornadoVMInterpreter> action) {
@@ -200,7 +337,17 @@ public class TornadoVM extends TornadoLogger {
     }
 
     public void warmup() {
-        executeActionOnInterpreters(TornadoVMInterpreter::warmup);
+        submitCompilations();
+        awaitCompilations();
+    }
+
+    public void submitCompilations() {
+        updateDevicePartition();
+        executeActionOnInterpreters(TornadoVMInterpreter::submitCompilations);
+    }
+
+    public void awaitCompilations() {
+        executeActionOnInterpreters(TornadoVMInterpreter::awaitCompilations);
     }
 
     public void fetchGlobalStates() {
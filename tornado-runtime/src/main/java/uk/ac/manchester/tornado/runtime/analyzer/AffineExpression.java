@@ -0,0 +1,322 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2023, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.runtime.analyzer;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * An integer expression that is affine in the induction variables of a loop
+ * nest: {@code c0 + c1 * i1 + ... + cn * in}. Each term can also be scaled by
+ * a loop-invariant symbol (e.g., the size of a row in {@code a[i * n + j]}),
+ * which allows the dependence analysis to delinearise flattened array indices.
+ *
+ * <p>
+ * Loop levels are identified by their nesting depth (0 for the outermost
+ * loop), and symbols by any object with identity semantics (the Graal nodes of
+ * loop-invariant values).
+ * </p>
+ */
+public final class AffineExpression {
+
+    private static final int NO_LEVEL = -1;
+
+    private final long constant;
+    private final Map<Term, Long> terms;
+
+    private AffineExpression(long constant, Map<Term, Long> terms) {
+        this.constant = constant;
+        this.terms = terms;
+    }
+
+    public static AffineExpression constant(long value) {
+        return new AffineExpression(value, Collections.emptyMap());
+    }
+
+    public static AffineExpression variable(int level) {
+        return new AffineExpression(0, Collections.singletonMap(new Term(null, level), 1L));
+    }
+
+    public static AffineExpression symbol(Object symbol) {
+        Objects.requireNonNull(symbol);
+        return new AffineExpression(0, Collections.singletonMap(new Term(symbol, NO_LEVEL), 1L));
+    }
+
+    public AffineExpression add(AffineExpression other) {
+        return combine(other, 1);
+    }
+
+    public AffineExpression subtract(AffineExpression other) {
+        return combine(other, -1);
+    }
+
+    public AffineExpression negate() {
+        return scale(-1);
+    }
+
+    public AffineExpression scale(long factor) {
+        Map<Term, Long> scaled = new LinkedHashMap<>();
+        if (factor != 0) {
+            terms.forEach((term, coefficient) -> scaled.put(term, coefficient * factor));
+        }
+        return new AffineExpression(constant * factor, scaled);
+    }
+
+    /**
+     * It multiplies two expressions. The result is affine when one of the
+     * operands is a constant, or when one of them is a single symbol and the
+     * other one does not contain symbols.
+     *
+     * @param other
+     *            The other operand.
+     * @return The product, or null if the product is not affine.
+     */
+    public AffineExpression multiply(AffineExpression other) {
+        if (other.isConstant()) {
+            return scale(other.constant);
+        } else if (isConstant()) {
+            return other.scale(constant);
+        }
+        Object symbol = getSingleSymbol();
+        if (symbol != null && !other.hasSymbols()) {
+            return other.scaleBySymbol(symbol, terms.values().iterator().next());
+        }
+        symbol = other.getSingleSymbol();
+        if (symbol != null && !hasSymbols()) {
+            return scaleBySymbol(symbol, other.terms.values().iterator().next());
+        }
+        return null;
+    }
+
+    private AffineExpression scaleBySymbol(Object symbol, long factor) {
+        Map<Term, Long> scaled = new LinkedHashMap<>();
+        if (constant != 0) {
+            scaled.put(new Term(symbol, NO_LEVEL), constant * factor);
+        }
+        terms.forEach((term, coefficient) -> scaled.put(new Term(symbol, term.level), coefficient * factor));
+        return new AffineExpression(0, scaled);
+    }
+
+    private AffineExpression combine(AffineExpression other, long sign) {
+        Map<Term, Long> result = new LinkedHashMap<>(terms);
+        other.terms.forEach((term, coefficient) -> {
+            long value = result.getOrDefault(term, 0L) + sign * coefficient;
+            if (value == 0) {
+                result.remove(term);
+            } else {
+                result.put(term, value);
+            }
+        });
+        return new AffineExpression(constant + sign * other.constant, result);
+    }
+
+    private Object getSingleSymbol() {
+        if (constant == 0 && terms.size() == 1) {
+            Term term = terms.keySet().iterator().next();
+            if (term.symbol != null && term.level == NO_LEVEL) {
+                return term.symbol;
+            }
+        }
+        return null;
+    }
+
+    public boolean isConstant() {
+        return terms.isEmpty();
+    }
+
+    public long getConstant() {
+        return constant;
+    }
+
+    /**
+     * @param level
+     *            Loop level.
+     * @return The coefficient of the induction variable of the given loop level
+     *         in the symbol-free part of the expression.
+     */
+    public long getCoefficient(int level) {
+        return terms.getOrDefault(new Term(null, level), 0L);
+    }
+
+    /**
+     * @return The deepest loop level referenced by the expression, or -1 if the
+     *         expression does not depend on any induction variable.
+     */
+    public int getMaxLevel() {
+        int max = NO_LEVEL;
+        for (Term term : terms.keySet()) {
+            max = Math.max(max, term.level);
+        }
+        return max;
+    }
+
+    public boolean hasSymbols() {
+        for (Term term : terms.keySet()) {
+            if (term.symbol != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public Set<Object> getSymbols() {
+        Set<Object> symbols = new HashSet<>();
+        for (Term term : terms.keySet()) {
+            if (term.symbol != null) {
+                symbols.add(term.symbol);
+            }
+        }
+        return symbols;
+    }
+
+    /**
+     * @return True if the symbols only appear as loop-invariant offsets (i.e.,
+     *         they are not scaling any induction variable).
+     */
+    public boolean hasOnlySymbolicOffsets() {
+        for (Term term : terms.keySet()) {
+            if (term.symbol != null && term.level != NO_LEVEL) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param symbol
+     *            A symbol of the expression.
+     * @return The factor of the expression that is multiplied by the symbol.
+     */
+    public AffineExpression getSymbolFactor(Object symbol) {
+        long factorConstant = 0;
+        Map<Term, Long> factorTerms = new LinkedHashMap<>();
+        for (Map.Entry<Term, Long> entry : terms.entrySet()) {
+            Term term = entry.getKey();
+            if (term.symbol == symbol) {
+                if (term.level == NO_LEVEL) {
+                    factorConstant = entry.getValue();
+                } else {
+                    factorTerms.put(new Term(null, term.level), entry.getValue());
+                }
+            }
+        }
+        return new AffineExpression(factorConstant, factorTerms);
+    }
+
+    /**
+     * @return The expression without any of its symbolic terms.
+     */
+    public AffineExpression withoutSymbols() {
+        Map<Term, Long> numeric = new LinkedHashMap<>();
+        terms.forEach((term, coefficient) -> {
+            if (term.symbol == null) {
+                numeric.put(term, coefficient);
+            }
+        });
+        return new AffineExpression(constant, numeric);
+    }
+
+    /**
+     * @param other
+     *            Another expression.
+     * @return True if both expressions have the same symbolic offsets.
+     */
+    public boolean hasSameSymbolicOffsets(AffineExpression other) {
+        return symbolicTerms().equals(other.symbolicTerms());
+    }
+
+    private Map<Term, Long> symbolicTerms() {
+        Map<Term, Long> symbolic = new LinkedHashMap<>();
+        terms.forEach((term, coefficient) -> {
+            if (term.symbol != null) {
+                symbolic.put(term, coefficient);
+            }
+        });
+        return symbolic;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof AffineExpression)) {
+            return false;
+        }
+        AffineExpression other = (AffineExpression) obj;
+        return constant == other.constant && terms.equals(other.terms);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(constant, terms);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        terms.forEach((term, coefficient) -> {
+            sb.append(coefficient).append("*");
+            if (term.symbol != null) {
+                sb.append(term.symbol);
+                if (term.level != NO_LEVEL) {
+                    sb.append("*");
+                }
+            }
+            if (term.level != NO_LEVEL) {
+                sb.append("i").append(term.level);
+            }
+            sb.append(" + ");
+        });
+        return sb.append(constant).toString();
+    }
+
+    private static final class Term {
+        private final Object symbol;
+        private final int level;
+
+        private Term(Object symbol, int level) {
+            this.symbol = symbol;
+            this.level = level;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Term)) {
+                return false;
+            }
+            Term other = (Term) obj;
+            return symbol == other.symbol && level == other.level;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(symbol) + level;
+        }
+    }
+}
@@ -0,0 +1,415 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2023, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.runtime.analyzer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Dependence analysis of the array accesses of a single loop nest. It decides
+ * how many of the outer loops of the nest can run in parallel without
+ * reordering any two accesses to the same array element, where at least one of
+ * them is a write.
+ *
+ * <p>
+ * Each array subscript is described with an {@link AffineExpression} over the
+ * induction variables of the nest. For each pair of accesses the analysis
+ * applies the GCD test and the Banerjee inequalities under the direction
+ * vector {@code (=, ..., =, <>, *, ..., *)} of the loop level to parallelise.
+ * Flattened subscripts such as {@code i * n + j}, where {@code j} runs from 0
+ * to {@code n - 1}, are delinearised into two subscripts. Any access that is
+ * not affine is assumed to depend on every other access to the same array.
+ * </p>
+ *
+ * <p>
+ * As in the rest of TornadoVM, arrays passed as different parameters are
+ * considered different objects, and the rows of multi-dimensional arrays are
+ * considered distinct.
+ * </p>
+ */
+public class ArrayDependenceAnalysis {
+
+    private enum Direction {
+        EQUAL, //
+        LESS, //
+        GREATER, //
+        ANY
+    }
+
+    private final List<LoopLevel> levels;
+    private final List<ArrayAccess> accesses;
+    private final List<String> unanalysableAccesses;
+    private String rejectionReason;
+
+    /**
+     * @param levels
+     *            The loops of the nest, from the outermost to the innermost.
+     */
+    public ArrayDependenceAnalysis(List<LoopLevel> levels) {
+        this.levels = levels;
+        this.accesses = new ArrayList<>();
+        this.unanalysableAccesses = new ArrayList<>();
+    }
+
+    public void addAccess(ArrayAccess access) {
+        accesses.add(access);
+    }
+
+    /**
+     * It registers a memory write that cannot be analysed (e.g., a call, a
+     * field store or an atomic update). This prevents the parallelisation of
+     * the whole nest.
+     *
+     * @param description
+     *            Description of the access for the rejection report.
+     */
+    public void addUnanalysableAccess(String description) {
+        unanalysableAccesses.add(description);
+    }
+
+    /**
+     * It computes how many of the outer loops of the nest can be executed in
+     * parallel. The analysis stops at the first loop that cannot be
+     * parallelised, and the reason is kept in {@link #getRejectionReason()}.
+     *
+     * @param maxDepth
+     *            Maximum number of loops to parallelise.
+     * @return Number of outer loops that are provably parallel.
+     */
+    public int getParallelDepth(int maxDepth) {
+        rejectionReason = null;
+        if (!unanalysableAccesses.isEmpty()) {
+            rejectionReason = "unanalysable memory access: " + unanalysableAccesses.get(0);
+            return 0;
+        }
+        int depth = Math.min(maxDepth, levels.size());
+        for (int level = 0; level < depth; level++) {
+            String reason = checkLevel(level);
+            if (reason != null) {
+                rejectionReason = String.format("loop %d: %s", level, reason);
+                return level;
+            }
+        }
+        return depth;
+    }
+
+    /**
+     * @return The reason why the first non-parallel loop was rejected by the
+     *         last call to {@link #getParallelDepth(int)}, or null if all
+     *         loops were parallelised.
+     */
+    public String getRejectionReason() {
+        return rejectionReason;
+    }
+
+    private String checkLevel(int level) {
+        LoopLevel loop = levels.get(level);
+        if (loop.rejectionReason != null) {
+            return loop.rejectionReason;
+        }
+
+        List<ArrayAccess> candidates = new ArrayList<>();
+        for (ArrayAccess access : accesses) {
+            if (access.allocationDepth <= level) {
+                candidates.add(access);
+            }
+        }
+
+        for (int i = 0; i < candidates.size(); i++) {
+            ArrayAccess write = candidates.get(i);
+            if (!write.isWrite) {
+                continue;
+            }
+            if (write.depth <= level) {
+                return "write " + write + " is outside the loop";
+            }
+            for (int j = 0; j < candidates.size(); j++) {
+                ArrayAccess other = candidates.get(j);
+                if ((other.isWrite && j < i) || !mayAlias(write, other)) {
+                    // Pairs of writes are tested once
+                    continue;
+                }
+                if (other.depth <= level) {
+                    return "access " + other + " to a written array is outside the loop";
+                }
+                if (mayDepend(write, other, level, Direction.LESS) || mayDepend(write, other, level, Direction.GREATER)) {
+                    return "loop-carried dependence between " + write + " and " + other;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static boolean mayAlias(ArrayAccess a, ArrayAccess b) {
+        return a.array == b.array || !(a.isDistinctObject && b.isDistinctObject);
+    }
+
+    private boolean mayDepend(ArrayAccess a, ArrayAccess b, int level, Direction direction) {
+        if (a.subscripts.size() != b.subscripts.size()) {
+            return true;
+        }
+        Direction[] directions = new Direction[levels.size()];
+        for (int i = 0; i < directions.length; i++) {
+            directions[i] = (i < level) ? Direction.EQUAL : (i == level) ? direction : Direction.ANY;
+        }
+        for (int i = 0; i < a.subscripts.size(); i++) {
+            List<AffineExpression[]> pairs = toNumericSubscripts(a.subscripts.get(i), b.subscripts.get(i));
+            if (pairs == null) {
+                continue;
+            }
+            for (AffineExpression[] pair : pairs) {
+                if (isIndependent(pair[0], pair[1], directions)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * It removes the symbols of a pair of subscripts. Symbolic offsets that are
+     * common to both subscripts cancel out, and subscripts of the form
+     * {@code e1 * n + j}, where {@code 0 <= j < n}, are split into the
+     * subscripts {@code e1} and {@code j}.
+     *
+     * @return The pairs of symbol-free subscripts, or null if the symbols cannot
+     *         be removed.
+     */
+    private List<AffineExpression[]> toNumericSubscripts(AffineExpression a, AffineExpression b) {
+        if (a == null || b == null) {
+            return null;
+        }
+        if (a.hasOnlySymbolicOffsets() && b.hasOnlySymbolicOffsets() && a.hasSameSymbolicOffsets(b)) {
+            return Collections.singletonList(new AffineExpression[] { a.withoutSymbols(), b.withoutSymbols() });
+        }
+        Set<Object> symbols = a.getSymbols();
+        if (symbols.size() != 1 || !symbols.equals(b.getSymbols())) {
+            return null;
+        }
+        Object symbol = symbols.iterator().next();
+        AffineExpression lowA = a.withoutSymbols();
+        AffineExpression lowB = b.withoutSymbols();
+        if (!isBelowSymbol(lowA, symbol) || !isBelowSymbol(lowB, symbol)) {
+            return null;
+        }
+        List<AffineExpression[]> pairs = new ArrayList<>();
+        pairs.add(new AffineExpression[] { a.getSymbolFactor(symbol), b.getSymbolFactor(symbol) });
+        pairs.add(new AffineExpression[] { lowA, lowB });
+        return pairs;
+    }
+
+    /**
+     * @return True if the expression is an induction variable that runs from 0
+     *         to {@code symbol - 1}.
+     */
+    private boolean isBelowSymbol(AffineExpression expression, Object symbol) {
+        int level = expression.getMaxLevel();
+        if (level < 0 || level >= levels.size() || expression.getConstant() != 0 || !expression.equals(AffineExpression.variable(level))) {
+            return false;
+        }
+        LoopLevel loop = levels.get(level);
+        return loop.lowerBound != null && loop.lowerBound == 0 && loop.exclusiveLimit == symbol;
+    }
+
+    private boolean isIndependent(AffineExpression a, AffineExpression b, Direction[] directions) {
+        return !satisfiesGCDTest(a, b, directions) || !satisfiesBanerjeeTest(a, b, directions);
+    }
+
+    /**
+     * GCD test: the dependence equation
+     * {@code sum(a_k * i_k) - sum(b_k * j_k) = b_0 - a_0} has integer solutions
+     * only if the GCD of the coefficients divides {@code b_0 - a_0}.
+     *
+     * @return False if the accesses are independent.
+     */
+    private boolean satisfiesGCDTest(AffineExpression a, AffineExpression b, Direction[] directions) {
+        long gcd = 0;
+        for (int level = 0; level < directions.length; level++) {
+            long coefficientA = a.getCoefficient(level);
+            long coefficientB = b.getCoefficient(level);
+            if (directions[level] == Direction.EQUAL) {
+                gcd = gcd(gcd, coefficientA - coefficientB);
+            } else {
+                gcd = gcd(gcd(gcd, coefficientA), coefficientB);
+            }
+        }
+        long difference = b.getConstant() - a.getConstant();
+        if (gcd == 0) {
+            return difference == 0;
+        }
+        return difference % gcd == 0;
+    }
+
+    /**
+     * Banerjee test: the dependence equation has real solutions within the loop
+     * bounds only if {@code b_0 - a_0} is between the minimum and the maximum
+     * of {@code sum(a_k * i_k - b_k * j_k)} under the direction vector.
+     *
+     * @return False if the accesses are independent.
+     */
+    private boolean satisfiesBanerjeeTest(AffineExpression a, AffineExpression b, Direction[] directions) {
+        double min = 0;
+        double max = 0;
+        for (int level = 0; level < directions.length; level++) {
+            LoopLevel loop = levels.get(level);
+            double lower = (loop.lowerBound != null) ? loop.lowerBound : Double.NEGATIVE_INFINITY;
+            double upper = (loop.upperBound != null) ? loop.upperBound : Double.POSITIVE_INFINITY;
+            long coefficientA = a.getCoefficient(level);
+            long coefficientB = b.getCoefficient(level);
+            double[] range;
+            switch (directions[level]) {
+                case EQUAL:
+                    range = scale(coefficientA - coefficientB, lower, upper);
+                    break;
+                case LESS:
+                    // j = i + d, with L <= i <= U - 1 and 1 <= d <= U - L
+                    if (upper - lower < 1) {
+                        return false;
+                    }
+                    range = add(scale(coefficientA - coefficientB, lower, upper - 1), scale(-coefficientB, 1, upper - lower));
+                    break;
+                case GREATER:
+                    // i = j + d, with L <= j <= U - 1 and 1 <= d <= U - L
+                    if (upper - lower < 1) {
+                        return false;
+                    }
+                    range = add(scale(coefficientA - coefficientB, lower, upper - 1), scale(coefficientA, 1, upper - lower));
+                    break;
+                default:
+                    range = add(scale(coefficientA, lower, upper), scale(-coefficientB, lower, upper));
+                    break;
+            }
+            min += range[0];
+            max += range[1];
+        }
+        double difference = b.getConstant() - a.getConstant();
+        return min <= difference && difference <= max;
+    }
+
+    private static double[] scale(long coefficient, double lower, double upper) {
+        if (coefficient == 0) {
+            return new double[] { 0, 0 };
+        }
+        double x = coefficient * lower;
+        double y = coefficient * upper;
+        return new double[] { Math.min(x, y), Math.max(x, y) };
+    }
+
+    private static double[] add(double[] a, double[] b) {
+        return new double[] { a[0] + b[0], a[1] + b[1] };
+    }
+
+    private static long gcd(long a, long b) {
+        a = Math.abs(a);
+        b = Math.abs(b);
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
+    /**
+     * Description of one loop of the nest.
+     */
+    public static class LoopLevel {
+        private final Long lowerBound;
+        private final Long upperBound;
+        private final Object exclusiveLimit;
+        private final String rejectionReason;
+
+        /**
+         * @param lowerBound
+         *            First value of the induction variable, or null if it is
+         *            not a constant.
+         * @param upperBound
+         *            Last value (inclusive) that the induction variable can
+         *            take, or null if it is not a constant.
+         * @param exclusiveLimit
+         *            Symbol of the loop-invariant value that the induction
+         *            variable does not reach (the {@code n} of
+         *            {@code i < n}), or null.
+         * @param rejectionReason
+         *            Reason why the loop cannot be parallelised regardless of
+         *            its array accesses (e.g., a loop-carried scalar), or null.
+         */
+        public LoopLevel(Long lowerBound, Long upperBound, Object exclusiveLimit, String rejectionReason) {
+            this.lowerBound = lowerBound;
+            this.upperBound = upperBound;
+            this.exclusiveLimit = exclusiveLimit;
+            this.rejectionReason = rejectionReason;
+        }
+    }
+
+    /**
+     * Description of an array load or store within the nest.
+     */
+    public static class ArrayAccess {
+        private final Object array;
+        private final boolean isDistinctObject;
+        private final List<AffineExpression> subscripts;
+        private final boolean isWrite;
+        private final int depth;
+        private final int allocationDepth;
+        private final String description;
+
+        /**
+         * @param array
+         *            The accessed array (the outermost array for
+         *            multi-dimensional accesses).
+         * @param isDistinctObject
+         *            True if the array cannot alias any other array with a
+         *            different identity (e.g., a parameter of the task).
+         * @param subscripts
+         *            One subscript per dimension, from the outermost one. A null
+         *            subscript is not affine.
+         * @param isWrite
+         *            True for stores.
+         * @param depth
+         *            Number of loops of the nest that enclose the access.
+         * @param allocationDepth
+         *            Number of loops of the nest that enclose the allocation of
+         *            the array (0 if it is allocated outside the nest).
+         * @param description
+         *            Description of the access for the rejection report.
+         */
+        public ArrayAccess(Object array, boolean isDistinctObject, List<AffineExpression> subscripts, boolean isWrite, int depth, int allocationDepth, String description) {
+            this.array = array;
+            this.isDistinctObject = isDistinctObject;
+            this.subscripts = subscripts;
+            this.isWrite = isWrite;
+            this.depth = depth;
+            this.allocationDepth = allocationDepth;
+            this.description = description;
+        }
+
+        @Override
+        public String toString() {
+            return description;
+        }
+    }
+}
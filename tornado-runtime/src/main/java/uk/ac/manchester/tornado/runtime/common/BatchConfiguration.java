@@ -25,79 +25,156 @@ package uk.ac.manchester.tornado.runtime.common;
 
 import java.lang.reflect.Array;
 import java.util.Arrays;
-import java.util.HashSet;
 import java.util.List;
 
+import uk.ac.manchester.tornado.api.data.nativetypes.TornadoNativeArray;
 import uk.ac.manchester.tornado.api.exceptions.TornadoRuntimeException;
 import uk.ac.manchester.tornado.runtime.graph.TornadoExecutionContext;
+import uk.ac.manchester.tornado.runtime.tasks.GlobalObjectState;
 
 /**
  * It presents the configuration for processing data in batches. This class
  * provides methods to compute chunk sizes based on the batch size and input
  * objects.
+ *
+ * <p>
+ * Every array of a batched task-graph is <i>streamed</i>, unless the user
+ * declares it as <i>broadcast</i> with
+ * {@code withBatch(batchSize, broadcastObjects...)}. A streamed array is
+ * partitioned in chunks, and each chunk is copied with its own stride, derived
+ * from the size of its element type. Thus, a {@code float[]} and a
+ * {@code long[]} with the same length can be processed in the same batch. All
+ * streamed arrays must have the same number of elements, which gives the
+ * iteration space. Broadcast objects (e.g., a small array of coefficients) and
+ * objects that are not arrays are copied whole for every chunk.
+ * </p>
+ *
+ * <p>
+ * The number of elements per chunk is computed such that the largest streamed
+ * element type fits in the batch size. Therefore, no device buffer is larger
+ * than the batch size requested by the user.
+ * </p>
+ *
+ * <p>
+ * When the batches are pipelined, each streamed object has several device
+ * buffers (slots), and chunk {@code i} uses the slot {@code i % numBuffers}.
+ * Broadcast objects always use the default buffer (slot 0).
+ * </p>
  */
 public class BatchConfiguration {
+
+    private static final int BROADCAST = 0;
+
     private final int totalChunks;
-    private final int remainingChunkSize;
-    private final short numBytesType;
+    private final long elementsPerChunk;
+    private final long remainingElements;
+    private final int[] elementSizes;
+    private final int numBuffers;
 
     /**
      * Constructs a BatchConfiguration object with the specified parameters.
      *
      * @param totalChunks
-     *            The total number of chunks.
-     * @param remainingChunkSize
-     *            The size of the remaining chunk.
-     * @param numBytesType
-     *            The number of bytes for the data type.
+     *            The total number of full chunks.
+     * @param elementsPerChunk
+     *            The number of elements (threads) of each full chunk.
+     * @param remainingElements
+     *            The number of elements (threads) of the last chunk.
+     * @param elementSizes
+     *            The size of the element type of each object in the execution
+     *            context, or {@code 0} if the object is broadcast.
+     * @param numBuffers
+     *            The number of device buffers per streamed object.
      */
-    public BatchConfiguration(int totalChunks, int remainingChunkSize, short numBytesType) {
+    public BatchConfiguration(int totalChunks, long elementsPerChunk, long remainingElements, int[] elementSizes, int numBuffers) {
         this.totalChunks = totalChunks;
-        this.remainingChunkSize = remainingChunkSize;
-        this.numBytesType = numBytesType;
+        this.elementsPerChunk = elementsPerChunk;
+        this.remainingElements = remainingElements;
+        this.elementSizes = elementSizes;
+        this.numBuffers = numBuffers;
     }
 
-    public static BatchConfiguration computeChunkSizes(TornadoExecutionContext context, long batchSize) {
-        // Get the size of the batch
+    public static BatchConfiguration computeChunkSizes(TornadoExecutionContext context, long batchSize, int numBuffers) {
+        if (numBuffers < 1 || numBuffers > GlobalObjectState.MAX_BUFFER_SLOTS) {
+            throw new TornadoRuntimeException("[ERROR] The number of buffers for batches must be between 1 and " + GlobalObjectState.MAX_BUFFER_SLOTS + ". Found: " + numBuffers);
+        }
+
         List<Object> inputObjects = context.getObjects();
-        long totalSize = 0;
-        DataTypeSize dataTypeSize = null;
-
-        HashSet<Class<?>> classObjects = new HashSet<>();
-        HashSet<Long> inputSizes = new HashSet<>();
-
-        for (Object o : inputObjects) {
-            if (o.getClass().isArray()) {
-                Class<?> componentType = o.getClass().getComponentType();
-                dataTypeSize = findDataTypeSize(componentType);
-                if (dataTypeSize == null) {
-                    throw new TornadoRuntimeException("[UNSUPPORTED] Data type not supported for processing in batches");
-                }
-                long size = Array.getLength(o);
-                totalSize = size * dataTypeSize.getSize();
-
-                classObjects.add(componentType);
-                inputSizes.add(totalSize);
-                if (classObjects.size() > 1) {
-                    throw new TornadoRuntimeException("[UNSUPPORTED] Input objects with different data types not currently supported");
-                }
-                if (inputSizes.size() > 1) {
-                    throw new TornadoRuntimeException("[UNSUPPORTED] Input objects with different sizes not currently supported");
-                }
+        int[] elementSizes = new int[inputObjects.size()];
+
+        // Get the number of elements and the element size of each streamed array
+        long iterationSpace = -1;
+        int maxElementSize = 0;
+        for (int i = 0; i < inputObjects.size(); i++) {
+            Object o = inputObjects.get(i);
+            if (context.isBatchBroadcast(o)) {
+                elementSizes[i] = BROADCAST;
+                continue;
+            }
+            elementSizes[i] = getElementSize(o);
+            if (elementSizes[i] < 0) {
+                throw new TornadoRuntimeException("[UNSUPPORTED] Data type not supported for processing in batches");
+            } else if (elementSizes[i] == BROADCAST) {
+                continue;
             }
+            long numElements = getNumElements(o);
+            if (iterationSpace == -1) {
+                iterationSpace = numElements;
+            } else if (numElements != iterationSpace) {
+                throw new TornadoRuntimeException("[ERROR] The arrays processed in batches must have the same number of elements (" + iterationSpace + " and " + numElements
+                        + "). Declare the arrays that are copied whole for every batch with withBatch(batchSize, broadcastObjects...)");
+            }
+            maxElementSize = Math.max(maxElementSize, elementSizes[i]);
         }
 
-        assert dataTypeSize != null;
+        if (maxElementSize == 0) {
+            throw new TornadoRuntimeException("[UNSUPPORTED] No arrays found for processing in batches");
+        }
 
-        int totalChunks = (int) (totalSize / batchSize);
-        int remainingChunkSize = (int) (totalSize % batchSize);
+        long elementsPerChunk = batchSize / maxElementSize;
+        if (elementsPerChunk == 0) {
+            throw new TornadoRuntimeException("[ERROR] Batch size (" + batchSize + " bytes) is smaller than the element size (" + maxElementSize + " bytes)");
+        }
+        int totalChunks = (int) (iterationSpace / elementsPerChunk);
+        long remainingElements = iterationSpace % elementsPerChunk;
 
         if (Tornado.DEBUG) {
             System.out.println("Batch Size: " + batchSize);
+            System.out.println("Elements per chunk: " + elementsPerChunk);
             System.out.println("Total chunks: " + totalChunks);
-            System.out.println("remainingChunkSize: " + remainingChunkSize);
+            System.out.println("Remaining elements: " + remainingElements);
+            System.out.println("Element sizes (0 = broadcast): " + Arrays.toString(elementSizes));
+            System.out.println("Buffers per streamed object: " + numBuffers);
         }
-        return new BatchConfiguration(totalChunks, remainingChunkSize, dataTypeSize.getSize());
+        return new BatchConfiguration(totalChunks, elementsPerChunk, remainingElements, elementSizes, numBuffers);
+    }
+
+    /**
+     * @param o
+     *            An object of the execution context.
+     * @return The size, in bytes, of the elements of a Java or native array,
+     *         {@code 0} if the object is not an array, or {@code -1} if the
+     *         element type is not supported.
+     */
+    static int getElementSize(Object o) {
+        if (o == null) {
+            return 0;
+        } else if (o.getClass().isArray()) {
+            DataTypeSize dataTypeSize = findDataTypeSize(o.getClass().getComponentType());
+            return dataTypeSize != null ? dataTypeSize.getSize() : -1;
+        } else if (o instanceof TornadoNativeArray) {
+            return ((TornadoNativeArray) o).getElementSize();
+        }
+        return 0;
+    }
+
+    /**
+     * @param o
+     *            A Java or native array.
+     * @return The number of elements of the array.
+     */
+    static long getNumElements(Object o) {
+        return o instanceof TornadoNativeArray ? ((TornadoNativeArray) o).getNumberOfElements() : Array.getLength(o);
     }
 
     private static DataTypeSize findDataTypeSize(Class<?> dataType) {
@@ -108,12 +185,92 @@ public class BatchConfiguration {
         return totalChunks;
     }
 
-    public int getRemainingChunkSize() {
-        return remainingChunkSize;
+    /**
+     * @return The number of chunks to schedule, including the last (partial)
+     *         chunk if there is one.
+     */
+    public int getNumChunksToSchedule() {
+        return remainingElements != 0 ? totalChunks + 1 : totalChunks;
+    }
+
+    public long getElementsPerChunk() {
+        return elementsPerChunk;
+    }
+
+    public long getRemainingElements() {
+        return remainingElements;
     }
 
-    public short getNumBytesType() {
-        return numBytesType;
+    public int getNumBuffers() {
+        return numBuffers;
+    }
+
+    /**
+     * @return True if the copy-in, compute and copy-out of consecutive chunks
+     *         overlap.
+     */
+    public boolean isPipelined() {
+        return numBuffers > 1 && getNumChunksToSchedule() > 1;
+    }
+
+    /**
+     * @param objectIndex
+     *            The index of the object in the execution context.
+     * @param chunk
+     *            The chunk index.
+     * @return The device buffer slot that holds the given chunk of an object.
+     */
+    public int getBufferSlot(int objectIndex, int chunk) {
+        return isStreamed(objectIndex) ? chunk % numBuffers : 0;
+    }
+
+    public boolean isStreamed(int objectIndex) {
+        return objectIndex < elementSizes.length && elementSizes[objectIndex] != BROADCAST;
+    }
+
+    /**
+     * @param chunk
+     *            The chunk index.
+     * @return The number of threads to launch for the given chunk.
+     */
+    public long getNumThreads(int chunk) {
+        return chunk < totalChunks ? elementsPerChunk : remainingElements;
+    }
+
+    /**
+     * It returns the host offset, in bytes, of a chunk of an object. Broadcast
+     * objects are always copied from the start.
+     *
+     * @param objectIndex
+     *            The index of the object in the execution context.
+     * @param chunk
+     *            The chunk index.
+     * @return The offset in bytes.
+     */
+    public long getOffset(int objectIndex, int chunk) {
+        if (!isStreamed(objectIndex) || totalChunks == 0) {
+            return 0;
+        }
+        return chunk * elementsPerChunk * elementSizes[objectIndex];
+    }
+
+    /**
+     * It returns the size, in bytes, of a chunk of an object. A size of
+     * {@code 0} means that the whole object is allocated and copied, which is
+     * the case for broadcast objects, and for streamed objects when the whole
+     * iteration space fits in a single chunk.
+     *
+     * @param objectIndex
+     *            The index of the object in the execution context.
+     * @param chunk
+     *            The chunk index.
+     * @return The size in bytes.
+     */
+    public long getChunkSize(int objectIndex, int chunk) {
+        if (!isStreamed(objectIndex) || totalChunks == 0) {
+            return 0;
+        }
+        return getNumThreads(chunk) * elementSizes[objectIndex];
     }
 
     private enum DataTypeSize {
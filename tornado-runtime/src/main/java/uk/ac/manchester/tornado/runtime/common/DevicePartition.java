@@ -0,0 +1,320 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2023, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.runtime.common;
+
+import java.util.Arrays;
+import java.util.List;
+
+import uk.ac.manchester.tornado.api.exceptions.TornadoRuntimeException;
+import uk.ac.manchester.tornado.runtime.graph.TornadoExecutionContext;
+
+/**
+ * It describes how the iteration space of a task is split across the devices
+ * of a data-parallel split.
+ *
+ * <p>
+ * As for batches, the iteration space is given by the largest array (in number
+ * of elements). Every array with that number of elements is <i>partitioned</i>:
+ * each device receives the contiguous slice of elements that it owns. Any other
+ * object is <i>broadcast</i>: it is copied whole to every device.
+ * </p>
+ *
+ * <p>
+ * With a halo, the slice of a device is extended with the neighbouring
+ * elements at each side, clipped at the boundaries of the arrays. The kernel of
+ * each device runs over the whole slice (owned elements plus halos), but only
+ * the owned elements are copied back to the host.
+ * </p>
+ */
+public class DevicePartition {
+
+    private static final int BROADCAST = 0;
+
+    private final long[] firstElements;
+    private final long[] ownedElements;
+    private final long[] leftHalos;
+    private final long[] rightHalos;
+    private final int[] elementSizes;
+
+    /**
+     * Constructs a DevicePartition object with the specified parameters.
+     *
+     * @param firstElements
+     *            The index of the first element owned by each device.
+     * @param ownedElements
+     *            The number of elements owned by each device.
+     * @param halo
+     *            The number of neighbouring elements at each side of a slice.
+     * @param elementSizes
+     *            The size of the element type of each object in the execution
+     *            context, or {@code 0} if the object is broadcast.
+     */
+    public DevicePartition(long[] firstElements, long[] ownedElements, int halo, int[] elementSizes) {
+        this.firstElements = firstElements;
+        this.ownedElements = ownedElements;
+        this.elementSizes = elementSizes;
+        final long numElements = firstElements[firstElements.length - 1] + ownedElements[ownedElements.length - 1];
+        leftHalos = new long[firstElements.length];
+        rightHalos = new long[firstElements.length];
+        for (int i = 0; i < firstElements.length; i++) {
+            leftHalos[i] = Math.min(halo, firstElements[i]);
+            rightHalos[i] = Math.min(halo, numElements - firstElements[i] - ownedElements[i]);
+        }
+    }
+
+    public static DevicePartition computePartition(TornadoExecutionContext context, float[] ratios, int halo) {
+        List<Object> inputObjects = context.getObjects();
+        int[] elementSizes = new int[inputObjects.size()];
+        long[] numElements = new long[inputObjects.size()];
+
+        long iterationSpace = 0;
+        for (int i = 0; i < inputObjects.size(); i++) {
+            Object o = inputObjects.get(i);
+            elementSizes[i] = BatchConfiguration.getElementSize(o);
+            if (elementSizes[i] < 0) {
+                throw new TornadoRuntimeException("[UNSUPPORTED] Data type not supported for a data-parallel split");
+            } else if (elementSizes[i] == 0) {
+                continue;
+            }
+            numElements[i] = BatchConfiguration.getNumElements(o);
+            iterationSpace = Math.max(iterationSpace, numElements[i]);
+        }
+
+        // Partitioned objects span the whole iteration space. The rest are broadcast
+        for (int i = 0; i < elementSizes.length; i++) {
+            if (numElements[i] != iterationSpace) {
+                elementSizes[i] = BROADCAST;
+            }
+        }
+
+        if (iterationSpace < ratios.length) {
+            throw new TornadoRuntimeException("[ERROR] The iteration space (" + iterationSpace + " elements) is smaller than the number of devices of the split (" + ratios.length + ")");
+        }
+
+        long[] ownedElements = splitIterationSpace(iterationSpace, ratios);
+        long[] firstElements = new long[ownedElements.length];
+        for (int i = 1; i < ownedElements.length; i++) {
+            firstElements[i] = firstElements[i - 1] + ownedElements[i - 1];
+        }
+
+        DevicePartition partition = new DevicePartition(firstElements, ownedElements, halo, elementSizes);
+        if (Tornado.DEBUG) {
+            System.out.println("Split ratios: " + Arrays.toString(ratios));
+            System.out.println(partition);
+        }
+        return partition;
+    }
+
+    /**
+     * It splits the iteration space proportionally to the ratios, using the
+     * largest remainder method. Every device receives at least one element.
+     *
+     * @param numElements
+     *            The number of elements of the iteration space.
+     * @param ratios
+     *            The relative weight of each device.
+     * @return The number of elements of each device.
+     */
+    public static long[] splitIterationSpace(long numElements, float[] ratios) {
+        final long[] elements = new long[ratios.length];
+        final double[] remainders = new double[ratios.length];
+        double totalRatio = 0;
+        for (float ratio : ratios) {
+            totalRatio += ratio;
+        }
+
+        final long distributed = numElements - ratios.length;
+        long assigned = 0;
+        for (int i = 0; i < ratios.length; i++) {
+            double share = distributed * (ratios[i] / totalRatio);
+            elements[i] = 1 + (long) share;
+            remainders[i] = share - Math.floor(share);
+            assigned += elements[i];
+        }
+
+        // Hand out the elements lost by rounding, largest remainders first
+        while (assigned < numElements) {
+            int largest = 0;
+            for (int i = 1; i < remainders.length; i++) {
+                if (remainders[i] > remainders[largest]) {
+                    largest = i;
+                }
+            }
+            elements[largest]++;
+            remainders[largest] = -1;
+            assigned++;
+        }
+        return elements;
+    }
+
+    /**
+     * It computes new ratios from the throughput (elements per second) measured
+     * on each device in the last execution. The new ratios move halfway towards
+     * the measured throughput, to avoid oscillations. If the share of every
+     * device changes less than the threshold, the current ratios are kept.
+     *
+     * @param ratios
+     *            The current ratios.
+     * @param elapsedTimes
+     *            The elapsed time of each device, in seconds.
+     * @param threshold
+     *            The minimum change in the share of a device, as a fraction of
+     *            the iteration space.
+     * @return The new ratios, or the same array if the split is not changed.
+     */
+    public float[] rebalance(float[] ratios, double[] elapsedTimes, double threshold) {
+        final double[] throughputs = new double[ratios.length];
+        double totalRatio = 0;
+        double totalThroughput = 0;
+        for (int i = 0; i < ratios.length; i++) {
+            if (!(elapsedTimes[i] > 0)) {
+                return ratios;
+            }
+            throughputs[i] = ownedElements[i] / elapsedTimes[i];
+            totalRatio += ratios[i];
+            totalThroughput += throughputs[i];
+        }
+
+        final float[] newRatios = new float[ratios.length];
+        double maxChange = 0;
+        for (int i = 0; i < ratios.length; i++) {
+            double share = ratios[i] / totalRatio;
+            double measuredShare = throughputs[i] / totalThroughput;
+            maxChange = Math.max(maxChange, Math.abs(measuredShare - share));
+            newRatios[i] = (float) ((share + measuredShare) / 2);
+        }
+        return maxChange > threshold ? newRatios : ratios;
+    }
+
+    public int getNumDevices() {
+        return ownedElements.length;
+    }
+
+    public boolean isPartitioned(int objectIndex) {
+        return objectIndex < elementSizes.length && elementSizes[objectIndex] != BROADCAST;
+    }
+
+    /**
+     * @param device
+     *            The index of the device in the split.
+     * @return True if the slice of the device includes neighbouring elements.
+     */
+    public boolean hasHalo(int device) {
+        return leftHalos[device] > 0 || rightHalos[device] > 0;
+    }
+
+    public long getLeftHalo(int device) {
+        return leftHalos[device];
+    }
+
+    public long getFirstElement(int device) {
+        return firstElements[device];
+    }
+
+    public long getOwnedElements(int device) {
+        return ownedElements[device];
+    }
+
+    /**
+     * @param device
+     *            The index of the device in the split.
+     * @return The number of threads to launch on the device: the owned elements
+     *         plus the halos.
+     */
+    public long getNumThreads(int device) {
+        return leftHalos[device] + ownedElements[device] + rightHalos[device];
+    }
+
+    /**
+     * @return The index of the first element copied to each device, including the
+     *         left halo.
+     */
+    public long[] getSliceOffsets() {
+        final long[] offsets = new long[getNumDevices()];
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = firstElements[i] - leftHalos[i];
+        }
+        return offsets;
+    }
+
+    /**
+     * @return The number of elements copied to each device, including the halos.
+     */
+    public long[] getSliceSizes() {
+        final long[] sizes = new long[getNumDevices()];
+        for (int i = 0; i < sizes.length; i++) {
+            sizes[i] = getNumThreads(i);
+        }
+        return sizes;
+    }
+
+    /**
+     * It returns the host offset, in bytes, of the slice of an object for a
+     * device. Broadcast objects are always copied from the start.
+     *
+     * @param objectIndex
+     *            The index of the object in the execution context.
+     * @param device
+     *            The index of the device in the split.
+     * @return The offset in bytes.
+     */
+    public long getOffset(int objectIndex, int device) {
+        if (!isPartitioned(objectIndex)) {
+            return 0;
+        }
+        return (firstElements[device] - leftHalos[device]) * elementSizes[objectIndex];
+    }
+
+    /**
+     * It returns the size, in bytes, of the slice of an object for a device. A
+     * size of {@code 0} means that the whole object is allocated and copied,
+     * which is the case for broadcast objects.
+     *
+     * @param objectIndex
+     *            The index of the object in the execution context.
+     * @param device
+     *            The index of the device in the split.
+     * @return The size in bytes.
+     */
+    public long getSliceSize(int objectIndex, int device) {
+        if (!isPartitioned(objectIndex)) {
+            return 0;
+        }
+        return getNumThreads(device) * elementSizes[objectIndex];
+    }
+
+    /**
+     * @return True if both partitions assign the same elements to each device.
+     */
+    public boolean hasSameSlices(DevicePartition other) {
+        return other != null && Arrays.equals(firstElements, other.firstElements) && Arrays.equals(ownedElements, other.ownedElements) && Arrays.equals(leftHalos, other.leftHalos)
+                && Arrays.equals(rightHalos, other.rightHalos) && Arrays.equals(elementSizes, other.elementSizes);
+    }
+
+    @Override
+    public String toString() {
+        return "DevicePartition[first elements=" + Arrays.toString(firstElements) + ", owned elements=" + Arrays.toString(ownedElements) + ", left halos=" + Arrays.toString(leftHalos)
+                + ", right halos=" + Arrays.toString(rightHalos) + ", element sizes (0 = broadcast)=" + Arrays.toString(elementSizes) + "]";
+    }
+}
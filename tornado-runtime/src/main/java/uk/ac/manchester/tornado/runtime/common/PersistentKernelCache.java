@@ -0,0 +1,681 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2023, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.runtime.common;
+
+import static uk.ac.manchester.tornado.runtime.common.Tornado.info;
+import static uk.ac.manchester.tornado.runtime.common.Tornado.warn;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Executable;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+import uk.ac.manchester.tornado.api.annotations.Reduce;
+import uk.ac.manchester.tornado.api.common.Access;
+import uk.ac.manchester.tornado.api.data.nativetypes.TornadoNativeArray;
+import uk.ac.manchester.tornado.api.exceptions.TornadoRuntimeException;
+import uk.ac.manchester.tornado.runtime.TornadoCoreRuntime;
+import uk.ac.manchester.tornado.runtime.tasks.CompilableTask;
+import uk.ac.manchester.tornado.runtime.tasks.meta.TaskMetaData;
+
+/**
+ * Content-addressed cache on disk for the code generated by the backends
+ * (OpenCL C, PTX and SPIR-V). It allows a new JVM to install the kernels of a
+ * task-graph without running Graal.
+ *
+ * <p>
+ * There are two kinds of entries, both stored as a file named after the SHA-256
+ * of their key:
+ * <ul>
+ * <li>Kernel entries: the generated code, the entry point and the accesses of
+ * the kernel arguments. The key contains the class file of the task method and
+ * its bytecode, the types of the task parameters, the values that the task
+ * specialisation folds into the kernel (scalar arguments, array lengths and the
+ * primitive fields of object arguments), the batch size, the scheduler
+ * configuration, the device descriptor and all {@code tornado.*}
+ * options.</li>
+ * <li>Access entries: only the accesses of the arguments, which are needed to
+ * build the TornadoVM graph before the kernels are compiled. The key contains
+ * the method and the backend. With an access entry, the sketch of the method is
+ * built only if the kernel entry is missing.</li>
+ * </ul>
+ * </p>
+ *
+ * <p>
+ * The methods inlined into a kernel are only known after its compilation, so
+ * each entry also records the bytecode digest of every method of the compiled
+ * graph. An entry is discarded when read if any of these methods changed.
+ * </p>
+ *
+ * <p>
+ * Entries are never updated in place. Any change of the Java code, the TornadoVM
+ * build, the JVM version, the options or the device produces a different key.
+ * Corrupted entries and entries written by a different cache format are
+ * deleted when read. When the cache grows over
+ * {@link TornadoOptions#getPersistentKernelCacheMaxSize()} MB, the least
+ * recently used entries are removed.
+ * </p>
+ *
+ * <p>
+ * The cache is enabled with {@code -Dtornado.kernel.cache.enable=True}.
+ * </p>
+ */
+public class PersistentKernelCache {
+
+    private static final int MAGIC = 0x544B4331;
+    private static final int FORMAT_VERSION = 2;
+    private static final String SUFFIX = ".tkc";
+    private static final String CACHE_OPTIONS_PREFIX = "tornado.kernel.cache.";
+    private static final String CONSTRUCTOR_NAME = "<init>";
+    private static final int MAX_SPECIALISED_FIELD_DEPTH = 3;
+
+    private static PersistentKernelCache instance;
+
+    private final Path directory;
+    private final long maxSizeInBytes;
+    private final String buildIdentifier;
+    private final Map<Class<?>, byte[]> classFileDigests = new ConcurrentHashMap<>();
+    private final Map<String, String> methodDigests = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong stores = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * A cache entry read from disk.
+     */
+    public static final class Entry {
+        private final String entryPoint;
+        private final Access[] argumentsAccess;
+        private final byte[] code;
+
+        Entry(String entryPoint, Access[] argumentsAccess, byte[] code) {
+            this.entryPoint = entryPoint;
+            this.argumentsAccess = argumentsAccess;
+            this.code = code;
+        }
+
+        public String getEntryPoint() {
+            return entryPoint;
+        }
+
+        public Access[] getArgumentsAccess() {
+            return argumentsAccess;
+        }
+
+        public byte[] getCode() {
+            return code;
+        }
+
+        /**
+         * It copies the accesses of the kernel arguments into the meta-data of a
+         * task, as done with the accesses of a sketch.
+         */
+        public void copyArgumentsAccess(TaskMetaData taskMetaData) {
+            final Access[] taskAccess = taskMetaData.getArgumentsAccess();
+            System.arraycopy(argumentsAccess, 0, taskAccess, 0, Math.min(argumentsAccess.length, taskAccess.length));
+        }
+    }
+
+    public PersistentKernelCache(Path directory, long maxSizeInBytes) {
+        this.directory = directory;
+        this.maxSizeInBytes = maxSizeInBytes;
+        this.buildIdentifier = computeBuildIdentifier();
+    }
+
+    public static synchronized PersistentKernelCache getInstance() {
+        if (instance == null) {
+            instance = new PersistentKernelCache(Paths.get(TornadoOptions.getPersistentKernelCacheDirectory()), TornadoOptions.getPersistentKernelCacheMaxSize() * 1024 * 1024);
+        }
+        return instance;
+    }
+
+    public boolean isEnabled() {
+        return TornadoOptions.isPersistentKernelCacheEnabled();
+    }
+
+    /**
+     * It builds the key of the kernel generated for a task on a device.
+     *
+     * @return The key, or null if the cache is disabled or if the values that the
+     *         task specialisation folds into the kernel cannot be read.
+     */
+    public String buildKernelKey(CompilableTask task, ResolvedJavaMethod resolvedMethod, TornadoAcceleratorDevice device) {
+        if (!isEnabled()) {
+            return null;
+        }
+        final KeyBuilder key = new KeyBuilder("kernel");
+        addMethod(key, task.getMethod(), resolvedMethod);
+        for (Object argument : task.getArguments()) {
+            key.add(argument == null ? "null" : argument.getClass().getName());
+            if (!addSpecialisedValues(key, argument, 0)) {
+                info("Kernel cache disabled for %s: the arguments cannot be inspected", task.getFullName());
+                return null;
+            }
+        }
+        key.add(task.getBatchThreads());
+        key.add(task.meta().isGridSchedulerEnabled());
+        key.add(task.meta().shouldUseOpenCLDriverScheduling());
+        key.add(device.getTornadoVMBackend().name());
+        key.add(device.getPlatformName());
+        key.add(device.getDeviceName());
+        key.add(device.getPhysicalDevice().getDeviceInfo());
+        addOptions(key);
+        return key.build();
+    }
+
+    /**
+     * It builds the key of the argument accesses of a method for a backend.
+     *
+     * @return The key, or null if the cache is disabled.
+     */
+    public String buildAccessKey(Method method, ResolvedJavaMethod resolvedMethod, String backend) {
+        if (!isEnabled()) {
+            return null;
+        }
+        final KeyBuilder key = new KeyBuilder("access");
+        addMethod(key, method, resolvedMethod);
+        key.add(backend);
+        addOptions(key);
+        return key.build();
+    }
+
+    /**
+     * A sketch is needed before compilation to analyse the reductions. Thus, the
+     * sketch tier can only be skipped for methods without reductions.
+     */
+    public static boolean hasReduceParameters(Method method) {
+        for (Annotation[] annotations : method.getParameterAnnotations()) {
+            for (Annotation annotation : annotations) {
+                if (annotation instanceof Reduce) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * It reads the entry for a key.
+     *
+     * @param key
+     *            Key built by {@link #buildKernelKey} or {@link #buildAccessKey}.
+     *            A null key is always a miss.
+     * @return The {@link Entry}, or null if it is not in the cache.
+     */
+    public Entry lookup(String key) {
+        if (key == null) {
+            return null;
+        }
+        final Path file = directory.resolve(key + SUFFIX);
+        if (!Files.isRegularFile(file)) {
+            misses.incrementAndGet();
+            return null;
+        }
+        final Entry entry;
+        final List<MethodDigest> dependencies = new ArrayList<>();
+        try (DataInputStream input = new DataInputStream(Files.newInputStream(file))) {
+            if (input.readInt() != MAGIC || input.readInt() != FORMAT_VERSION || !key.equals(input.readUTF())) {
+                throw new IOException("invalid header");
+            }
+            final String entryPoint = input.readUTF();
+            final Access[] accesses = new Access[input.readInt()];
+            for (int i = 0; i < accesses.length; i++) {
+                accesses[i] = Access.valueOf(input.readUTF());
+            }
+            final int numDependencies = input.readInt();
+            for (int i = 0; i < numDependencies; i++) {
+                dependencies.add(new MethodDigest(input.readUTF(), input.readUTF(), input.readUTF(), input.readUTF()));
+            }
+            final byte[] code = new byte[input.readInt()];
+            input.readFully(code);
+            if (input.readLong() != checksum(code)) {
+                throw new IOException("checksum mismatch");
+            }
+            entry = new Entry(entryPoint, accesses, code);
+        } catch (IOException | IllegalArgumentException e) {
+            warn("Removing invalid kernel cache entry %s: %s", file, e.getMessage());
+            invalidate(file);
+            misses.incrementAndGet();
+            return null;
+        }
+
+        // The entry is stale if any method inlined into the kernel was modified
+        for (MethodDigest dependency : dependencies) {
+            if (!dependency.digest.equals(digestOf(dependency.className, dependency.name, dependency.descriptor))) {
+                info("Removing stale kernel cache entry %s: %s.%s%s has changed", file, dependency.className, dependency.name, dependency.descriptor);
+                invalidate(file);
+                misses.incrementAndGet();
+                return null;
+            }
+        }
+
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            warn("Unable to update kernel cache entry %s: %s", file, e.getMessage());
+        }
+        hits.incrementAndGet();
+        info("Kernel cache hit: %s", entry.getEntryPoint());
+        return entry;
+    }
+
+    /**
+     * It checks if there is an entry for a key without reading it. It does not
+     * update the counters.
+     */
+    public boolean contains(String key) {
+        return key != null && Files.isRegularFile(directory.resolve(key + SUFFIX));
+    }
+
+    /**
+     * It writes an entry that does not depend on any method.
+     */
+    public void store(String key, String entryPoint, Access[] argumentsAccess, byte[] code) {
+        store(key, entryPoint, argumentsAccess, new ResolvedJavaMethod[0], code);
+    }
+
+    /**
+     * It writes an entry. The entry is written into a temporary file and then
+     * moved, so other JVMs never read a partial entry. I/O errors are reported
+     * but they do not stop the execution.
+     *
+     * @param methods
+     *            Methods of the compiled graph: the task method and all the methods
+     *            inlined into it. The entry is discarded when any of them changes.
+     *            If one of them cannot be looked up again by name (e.g., a lambda),
+     *            the entry is not written.
+     */
+    public void store(String key, String entryPoint, Access[] argumentsAccess, ResolvedJavaMethod[] methods, byte[] code) {
+        if (key == null) {
+            return;
+        }
+        final List<MethodDigest> dependencies = new ArrayList<>();
+        for (ResolvedJavaMethod method : methods) {
+            final String className = method.getDeclaringClass().toJavaName();
+            final String descriptor = method.getSignature().toMethodDescriptor();
+            final String digest = digestOf(className, method.getName(), descriptor);
+            if (digest == null) {
+                info("Kernel cache entry for %s not stored: %s.%s cannot be resolved", entryPoint, className, method.getName());
+                return;
+            }
+            dependencies.add(new MethodDigest(className, method.getName(), descriptor, digest));
+        }
+        try {
+            Files.createDirectories(directory);
+            final Path temporary = Files.createTempFile(directory, key, ".tmp");
+            try (DataOutputStream output = new DataOutputStream(Files.newOutputStream(temporary))) {
+                output.writeInt(MAGIC);
+                output.writeInt(FORMAT_VERSION);
+                output.writeUTF(key);
+                output.writeUTF(entryPoint);
+                output.writeInt(argumentsAccess.length);
+                for (Access access : argumentsAccess) {
+                    output.writeUTF(access.name());
+                }
+                output.writeInt(dependencies.size());
+                for (MethodDigest dependency : dependencies) {
+                    output.writeUTF(dependency.className);
+                    output.writeUTF(dependency.name);
+                    output.writeUTF(dependency.descriptor);
+                    output.writeUTF(dependency.digest);
+                }
+                output.writeInt(code.length);
+                output.write(code);
+                output.writeLong(checksum(code));
+            }
+            Files.move(temporary, directory.resolve(key + SUFFIX), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            stores.incrementAndGet();
+            evictIfNeeded();
+        } catch (IOException e) {
+            warn("Unable to store kernel cache entry for %s: %s", entryPoint, e.getMessage());
+        }
+    }
+
+    /**
+     * It removes all entries from the cache directory.
+     */
+    public void clear() {
+        for (Path file : listEntries()) {
+            invalidate(file);
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getStores() {
+        return stores.get();
+    }
+
+    /**
+     * @return Number of entries removed because they were corrupted, written by a
+     *         different cache format, evicted or cleared.
+     */
+    public long getInvalidations() {
+        return invalidations.get();
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PersistentKernelCache[dir=%s, hits=%d, misses=%d, stores=%d, invalidations=%d]", directory, getHits(), getMisses(), getStores(), getInvalidations());
+    }
+
+    private void evictIfNeeded() throws IOException {
+        final List<Path> entries = listEntries();
+        long totalSize = 0;
+        for (Path file : entries) {
+            totalSize += Files.size(file);
+        }
+        if (totalSize <= maxSizeInBytes) {
+            return;
+        }
+        entries.sort(Comparator.comparing(PersistentKernelCache::lastModified));
+        for (Path file : entries) {
+            if (totalSize <= maxSizeInBytes) {
+                break;
+            }
+            totalSize -= Files.size(file);
+            invalidate(file);
+        }
+    }
+
+    private List<Path> listEntries() {
+        if (!Files.isDirectory(directory)) {
+            return new ArrayList<>();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(SUFFIX)).collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new TornadoRuntimeException("[ERROR] Unable to read the kernel cache directory " + directory + ": " + e.getMessage());
+        }
+    }
+
+    private void invalidate(Path file) {
+        try {
+            if (Files.deleteIfExists(file)) {
+                invalidations.incrementAndGet();
+            }
+        } catch (IOException e) {
+            warn("Unable to remove kernel cache entry %s: %s", file, e.getMessage());
+        }
+    }
+
+    private static FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static long checksum(byte[] code) {
+        final CRC32 crc = new CRC32();
+        crc.update(code);
+        return crc.getValue();
+    }
+
+    private void addMethod(KeyBuilder key, Method method, ResolvedJavaMethod resolvedMethod) {
+        key.add(buildIdentifier);
+        key.add(method.toGenericString());
+        key.add(classFileDigests.computeIfAbsent(method.getDeclaringClass(), PersistentKernelCache::readClassFile));
+        final byte[] bytecode = resolvedMethod.getCode();
+        key.add(bytecode == null ? new byte[0] : bytecode);
+    }
+
+    private static void addOptions(KeyBuilder key) {
+        final Properties properties = System.getProperties();
+        final TreeMap<String, String> options = new TreeMap<>();
+        for (String name : properties.stringPropertyNames()) {
+            if (name.startsWith("tornado.") && !name.startsWith(CACHE_OPTIONS_PREFIX)) {
+                options.put(name, properties.getProperty(name));
+            }
+        }
+        options.forEach((name, value) -> key.add(name + "=" + value));
+    }
+
+    /**
+     * It adds the values that the task specialisation folds into the kernel as
+     * constants: the value of scalar arguments, the length of arrays and native
+     * arrays, and the primitive fields of the objects reachable from an argument.
+     *
+     * @return False if a field cannot be read, so the kernel cannot be cached.
+     */
+    private static boolean addSpecialisedValues(KeyBuilder key, Object value, int depth) {
+        if (value == null) {
+            key.add("null");
+            return true;
+        }
+        final Class<?> klass = value.getClass();
+        if (RuntimeUtilities.isBoxedPrimitiveClass(klass)) {
+            key.add(value.toString());
+        } else if (klass.isArray()) {
+            key.add(Array.getLength(value));
+        } else if (value instanceof TornadoNativeArray) {
+            key.add(((TornadoNativeArray) value).getNumberOfElements());
+        } else if (depth < MAX_SPECIALISED_FIELD_DEPTH) {
+            for (Class<?> current = klass; current != null && current != Object.class; current = current.getSuperclass()) {
+                for (Field field : current.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers())) {
+                        continue;
+                    }
+                    final Object fieldValue;
+                    try {
+                        field.setAccessible(true);
+                        fieldValue = field.get(value);
+                    } catch (IllegalAccessException | RuntimeException e) {
+                        return false;
+                    }
+                    key.add(field.getName());
+                    if (field.getType().isPrimitive()) {
+                        key.add(String.valueOf(fieldValue));
+                    } else if (!addSpecialisedValues(key, fieldValue, depth + 1)) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * It returns the SHA-256 of the bytecode of a method, looking up the method by
+     * name in the current JVM.
+     *
+     * @return The digest in hexadecimal, or null if the method cannot be found.
+     */
+    private String digestOf(String className, String name, String descriptor) {
+        final String signature = className + "." + name + descriptor;
+        final String digest = methodDigests.get(signature);
+        if (digest != null) {
+            return digest;
+        }
+        final Executable method = findMethod(className, name, descriptor);
+        if (method == null) {
+            return null;
+        }
+        final byte[] bytecode = TornadoCoreRuntime.getTornadoRuntime().getMetaAccess().lookupJavaMethod(method).getCode();
+        final KeyBuilder builder = new KeyBuilder("bytecode");
+        builder.add(bytecode == null ? new byte[0] : bytecode);
+        final String newDigest = builder.build();
+        methodDigests.put(signature, newDigest);
+        return newDigest;
+    }
+
+    private static Executable findMethod(String className, String name, String descriptor) {
+        final ClassLoader contextLoader = Thread.currentThread().getContextClassLoader();
+        final Class<?> klass;
+        try {
+            klass = Class.forName(className, false, contextLoader != null ? contextLoader : PersistentKernelCache.class.getClassLoader());
+        } catch (ClassNotFoundException | LinkageError e) {
+            return null;
+        }
+        final Executable[] candidates = CONSTRUCTOR_NAME.equals(name) ? klass.getDeclaredConstructors() : klass.getDeclaredMethods();
+        return Arrays.stream(candidates) //
+                .filter(candidate -> CONSTRUCTOR_NAME.equals(name) || candidate.getName().equals(name)) //
+                .filter(candidate -> descriptor.equals(descriptorOf(candidate))) //
+                .findFirst() //
+                .orElse(null);
+    }
+
+    private static String descriptorOf(Executable executable) {
+        final Class<?> returnType = (executable instanceof Method) ? ((Method) executable).getReturnType() : void.class;
+        return MethodType.methodType(returnType, executable.getParameterTypes()).toMethodDescriptorString();
+    }
+
+    /**
+     * The class file covers the callees declared in the same class. Callees in
+     * other classes are checked with the bytecode digests stored in each entry.
+     */
+    private static byte[] readClassFile(Class<?> klass) {
+        final String resource = "/" + klass.getName().replace('.', '/') + ".class";
+        try (InputStream input = klass.getResourceAsStream(resource)) {
+            if (input == null) {
+                return new byte[0];
+            }
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            input.transferTo(bytes);
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            return new byte[0];
+        }
+    }
+
+    /**
+     * The TornadoVM build is identified by the location and modification time of
+     * the runtime classes, so a new build invalidates all entries.
+     */
+    private static String computeBuildIdentifier() {
+        final StringBuilder identifier = new StringBuilder(System.getProperty("java.vm.version", ""));
+        final CodeSource codeSource = PersistentKernelCache.class.getProtectionDomain().getCodeSource();
+        if (codeSource != null && codeSource.getLocation() != null) {
+            try {
+                final Path location = Paths.get(codeSource.getLocation().toURI());
+                identifier.append(':').append(location).append(':').append(Files.getLastModifiedTime(location).toMillis());
+            } catch (URISyntaxException | IOException | IllegalArgumentException e) {
+                identifier.append(':').append(codeSource.getLocation());
+            }
+        }
+        return identifier.toString();
+    }
+
+    /**
+     * A method the cached code depends on, and the digest of its bytecode.
+     */
+    private static final class MethodDigest {
+        private final String className;
+        private final String name;
+        private final String descriptor;
+        private final String digest;
+
+        MethodDigest(String className, String name, String descriptor, String digest) {
+            this.className = className;
+            this.name = name;
+            this.descriptor = descriptor;
+            this.digest = digest;
+        }
+    }
+
+    private static final class KeyBuilder {
+        private final MessageDigest digest;
+
+        KeyBuilder(String kind) {
+            try {
+                digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new TornadoRuntimeException("[ERROR] SHA-256 is not available: " + e.getMessage());
+            }
+            add(kind);
+            add(FORMAT_VERSION);
+        }
+
+        void add(String value) {
+            add(value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        void add(long value) {
+            add(Long.toString(value));
+        }
+
+        void add(boolean value) {
+            add(Boolean.toString(value));
+        }
+
+        void add(byte[] value) {
+            // The length separates consecutive fields
+            digest.update(Integer.toString(value.length).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) ':');
+            digest.update(value);
+        }
+
+        String build() {
+            final StringBuilder hex = new StringBuilder();
+            for (byte b : digest.digest()) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        }
+    }
+}
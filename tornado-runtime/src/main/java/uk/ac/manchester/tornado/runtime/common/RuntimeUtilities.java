@@ -384,7 +384,7 @@ public class RuntimeUtilities {
         return fileName.exists();
     }
 
-    public static void maybePrintSource(byte[] source) {
+    public static synchronized void maybePrintSource(byte[] source) {
         if (PRINT_SOURCE) {
             String sourceCode = new String(source);
             if (PRINT_SOURCE_DIRECTORY.isEmpty()) {
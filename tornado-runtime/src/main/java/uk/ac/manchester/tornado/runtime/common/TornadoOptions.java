@@ -126,7 +126,8 @@ public class TornadoOptions {
     public static final boolean VIRTUAL_DEVICE_ENABLED = getBooleanValue("tornado.virtual.device", FALSE);
     /**
      * Specifies the virtual device properties file. Default value is
-     * virtual-device.json.
+     * virtual-device.json. A comma-separated list of files creates one virtual
+     * device per file.
      */
     public static final String VIRTUAL_DEVICE_FILE = Tornado.getProperty("tornado.device.desc", "etc/virtual-device-template.json");
     /**
@@ -158,6 +159,11 @@ public class TornadoOptions {
      * Sets the number of threads for the Tornado Sketcher. Default is 4.
      */
     public static final int TORNADO_SKETCHER_THREADS = Integer.parseInt(getProperty("tornado.sketcher.threads", "4"));
+    /**
+     * Sets the number of threads that compile the tasks of a task-graph during
+     * the warm-up. Default is 4.
+     */
+    public static final int TORNADO_COMPILER_THREADS = Integer.parseInt(getProperty("tornado.compiler.threads", "4"));
     /**
      * It enables automatic discovery and parallelization of loops. Please note that
      * this option is experimental and may cause issues if enabled.
@@ -179,6 +185,11 @@ public class TornadoOptions {
      * Check I/O parameters for every task within a task-graph.
      */
     public static final boolean FORCE_CHECK_PARAMETERS = getBooleanValue("tornado.check.parameters", TRUE);
+    /**
+     * Only set the OpenCL kernel arguments that changed since the previous launch.
+     * Default is True.
+     */
+    public static final boolean CACHE_KERNEL_ARGUMENTS = getBooleanValue("tornado.opencl.kernel.args.cache", TRUE);
     /**
      * Select Shared Memory allocator for SPIRV-Level Zero implementation.
      */
@@ -265,6 +276,145 @@ public class TornadoOptions {
         return getBooleanValue("tornado.reuse.device.buffers", TRUE);
     }
 
+    /**
+     * Number of device buffers per streamed object when processing in batches. With
+     * 2 or 3 buffers, the copy-in of the next chunk and the copy-out of the previous
+     * chunk overlap with the kernels of the current chunk. 1 by default (chunks are
+     * processed one after another).
+     *
+     * @return int.
+     */
+    public static int getBatchPipelineBuffers() {
+        return getIntValue("tornado.batch.buffers", "1");
+    }
+
+    /**
+     * Minimum change in the share of the iteration space of a device, as a
+     * fraction of the whole iteration space, for which a data-parallel split with
+     * adaptive ratios is rebalanced. Smaller changes are ignored, since
+     * rebalancing recompiles the kernels for the new slice sizes. 0.05 by default.
+     *
+     * @return double.
+     */
+    public static double getDataParallelSplitRebalanceThreshold() {
+        return Double.parseDouble(System.getProperty("tornado.split.rebalance.threshold", "0.05"));
+    }
+
+    /**
+     * Option to enable the persistent kernel cache. When enabled, the generated
+     * OpenCL C, PTX and SPIR-V code is stored on disk and reused across JVM runs.
+     * False by default.
+     *
+     * @return boolean.
+     */
+    public static boolean isPersistentKernelCacheEnabled() {
+        return getBooleanValue("tornado.kernel.cache.enable", FALSE);
+    }
+
+    /**
+     * Directory of the persistent kernel cache. By default,
+     * ~/.tornadovm/kernel-cache.
+     *
+     * @return String.
+     */
+    public static String getPersistentKernelCacheDirectory() {
+        return System.getProperty("tornado.kernel.cache.dir", System.getProperty("user.home") + "/.tornadovm/kernel-cache");
+    }
+
+    /**
+     * Maximum size in MB of the persistent kernel cache. The least recently used
+     * entries are removed when the cache grows over this size. 256 MB by default.
+     *
+     * @return long.
+     */
+    public static long getPersistentKernelCacheMaxSize() {
+        return Long.parseLong(System.getProperty("tornado.kernel.cache.maxsize", "256"));
+    }
+
+    /**
+     * File to load and save the execution history of the dynamic reconfiguration.
+     * When set, the timings measured by the profilers are kept across runs, and
+     * task-graphs with a history are not profiled again. Empty by default (the
+     * history is kept in memory).
+     *
+     * @return String.
+     */
+    public static String getExecutionHistoryFile() {
+        return System.getProperty("tornado.dynamic.history.file", "");
+    }
+
+    /**
+     * Weight of a new measurement in the moving average of the execution time per
+     * device, used by the adaptive policy of the dynamic reconfiguration. 0.25 by
+     * default.
+     *
+     * @return double.
+     */
+    public static double getAdaptivePolicySmoothing() {
+        return Double.parseDouble(System.getProperty("tornado.dynamic.adaptive.smoothing", "0.25"));
+    }
+
+    /**
+     * Number of executions between two probes of a losing device in the adaptive
+     * policy. 16 by default.
+     *
+     * @return int.
+     */
+    public static int getAdaptivePolicyProbePeriod() {
+        return getIntValue("tornado.dynamic.adaptive.probe", "16");
+    }
+
+    /**
+     * Maximum fraction of the total execution time that the adaptive policy can
+     * spend running on losing devices. 0.05 by default.
+     *
+     * @return double.
+     */
+    public static double getAdaptivePolicyExplorationBudget() {
+        return Double.parseDouble(System.getProperty("tornado.dynamic.adaptive.budget", "0.05"));
+    }
+
+    /**
+     * Number of consecutive probes that a losing device must win before the
+     * adaptive policy migrates to it. 3 by default.
+     *
+     * @return int.
+     */
+    public static int getAdaptivePolicyMigrationThreshold() {
+        return getIntValue("tornado.dynamic.adaptive.migration", "3");
+    }
+
+    /**
+     * Option to run bailed-out tasks with multiple Java threads. The outermost
+     * parallel loop of each task is partitioned across threads. Tasks that cannot
+     * be partitioned run sequentially. True by default.
+     *
+     * @return boolean.
+     */
+    public static boolean isParallelJavaFallbackEnabled() {
+        return getBooleanValue("tornado.recover.bailout.parallel", TRUE);
+    }
+
+    /**
+     * Number of Java threads used to run bailed-out tasks. By default, the number
+     * of available processors.
+     *
+     * @return int.
+     */
+    public static int getParallelJavaFallbackThreads() {
+        return getIntValue("tornado.recover.bailout.threads", Integer.toString(Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * Number of consecutive loop iterations assigned to a thread when running
+     * bailed-out tasks in parallel. 32 by default.
+     *
+     * @return int.
+     */
+    public static int getParallelJavaFallbackChunkSize() {
+        return getIntValue("tornado.recover.bailout.chunk", "32");
+    }
+
     /**
      * Option to enable profiler. It can be disabled at any point during runtime.
      *
@@ -275,8 +425,9 @@ public class TornadoOptions {
     }
 
     /**
-     * Option for enabling partial loop unrolling. The unroll factor can be
-     * configured to take any integer value of power of 2 and less than 32.
+     * Option for enabling partial loop unrolling of counted loops, with
+     * remainder loops for trip counts that are not a multiple of the unroll
+     * factor.
      *
      * @return boolean.
      */
@@ -284,6 +435,29 @@ public class TornadoOptions {
         return getBooleanValue("tornado.experimental.partial.unroll", FALSE);
     }
 
+    /**
+     * Unroll factor for partial loop unrolling. It can take any power of 2 up
+     * to 32. If it is not set, the factor of each loop is selected with a cost
+     * model that considers the size of the loop body, an estimation of the
+     * register pressure and the type of the target device.
+     *
+     * @return int.
+     */
+    public static int getPartialUnrollFactor() {
+        return getIntValue("tornado.unroll.factor", "0");
+    }
+
+    /**
+     * Option for fusing chains of element-wise tasks with the same iteration
+     * space into a single kernel. Only the OpenCL backend fuses tasks. False by
+     * default.
+     *
+     * @return boolean.
+     */
+    public static boolean isTaskFusionEnabled() {
+        return getBooleanValue("tornado.experimental.fusion", FALSE);
+    }
+
     private static boolean getBooleanValue(String property, String defaultValue) {
         return Boolean.parseBoolean(System.getProperty(property, defaultValue));
     }
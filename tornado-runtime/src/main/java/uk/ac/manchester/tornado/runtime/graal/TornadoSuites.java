@@ -56,7 +56,7 @@ public class TornadoSuites {
             CanonicalizerPhase.CustomSimplification canonicalizer, AddressLowering addressLowering) {
         sketchTier = config.createSketchTier(options, canonicalizer);
         highTier = config.createHighTier(options, deviceContext, canonicalizer, metaAccessProvider);
-        midTier = config.createMidTier(options);
+        midTier = config.createMidTier(options, deviceContext);
         lowTier = config.createLowTier(options, deviceContext, addressLowering);
         allocStage = config.createAllocationStage(options);
         preAllocStage = config.createPreAllocationOptimizationStage(options);
@@ -0,0 +1,81 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2023, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.runtime.graal.compiler;
+
+import org.graalvm.compiler.nodes.ValueNode;
+import org.graalvm.compiler.nodes.graphbuilderconf.GraphBuilderContext;
+import org.graalvm.compiler.nodes.graphbuilderconf.InvocationPlugin;
+import org.graalvm.compiler.nodes.graphbuilderconf.InvocationPlugin.Receiver;
+import org.graalvm.compiler.nodes.graphbuilderconf.InvocationPlugins;
+import org.graalvm.compiler.nodes.graphbuilderconf.InvocationPlugins.Registration;
+
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+import uk.ac.manchester.tornado.api.TornadoVM_Intrinsics;
+import uk.ac.manchester.tornado.runtime.graal.nodes.AtomicArrayNode;
+import uk.ac.manchester.tornado.runtime.graal.nodes.AtomicArrayNode.Operation;
+
+/**
+ * Graph builder plugins for the atomic operations on array elements of
+ * {@link TornadoVM_Intrinsics}. Each call is replaced with an
+ * {@link AtomicArrayNode}, which is lowered by each backend.
+ */
+public class TornadoAtomicPlugins {
+
+    public static void registerPlugins(InvocationPlugins plugins) {
+        Registration r = new Registration(plugins, TornadoVM_Intrinsics.class);
+        registerAtomicPlugins(r, int[].class, int.class, JavaKind.Int);
+        registerAtomicPlugins(r, long[].class, long.class, JavaKind.Long);
+        registerAtomicPlugins(r, float[].class, float.class, JavaKind.Float);
+        registerCompareAndSwapPlugin(r, int[].class, int.class, JavaKind.Int);
+        registerCompareAndSwapPlugin(r, long[].class, long.class, JavaKind.Long);
+    }
+
+    private static void registerAtomicPlugins(Registration r, Class<?> arrayType, Class<?> elementType, JavaKind elementKind) {
+        registerAtomicPlugin(r, "atomic_add", Operation.ADD, arrayType, elementType, elementKind);
+        registerAtomicPlugin(r, "atomic_min", Operation.MIN, arrayType, elementType, elementKind);
+        registerAtomicPlugin(r, "atomic_max", Operation.MAX, arrayType, elementType, elementKind);
+        registerAtomicPlugin(r, "atomic_xchg", Operation.EXCHANGE, arrayType, elementType, elementKind);
+    }
+
+    private static void registerAtomicPlugin(Registration r, String name, Operation operation, Class<?> arrayType, Class<?> elementType, JavaKind elementKind) {
+        r.register(new InvocationPlugin(name, arrayType, int.class, elementType) {
+            @Override
+            public boolean apply(GraphBuilderContext b, ResolvedJavaMethod targetMethod, Receiver receiver, ValueNode array, ValueNode index, ValueNode value) {
+                b.addPush(elementKind, new AtomicArrayNode(array, index, elementKind, operation, value));
+                return true;
+            }
+        });
+    }
+
+    private static void registerCompareAndSwapPlugin(Registration r, Class<?> arrayType, Class<?> elementType, JavaKind elementKind) {
+        r.register(new InvocationPlugin("atomic_cmpxchg", arrayType, int.class, elementType, elementType) {
+            @Override
+            public boolean apply(GraphBuilderContext b, ResolvedJavaMethod targetMethod, Receiver receiver, ValueNode array, ValueNode index, ValueNode expected, ValueNode value) {
+                b.addPush(elementKind, new AtomicArrayNode(array, index, elementKind, Operation.COMPARE_AND_SWAP, expected, value));
+                return true;
+            }
+        });
+    }
+}
@@ -48,7 +48,7 @@ public interface TornadoCompilerConfiguration {
 
     TornadoLowTier createLowTier(OptionValues options, TornadoDeviceContext deviceContext, AddressLowering addressLowering);
 
-    TornadoMidTier createMidTier(OptionValues options);
+    TornadoMidTier createMidTier(OptionValues options, TornadoDeviceContext deviceContext);
 
     LIRPhaseSuite<PostAllocationOptimizationContext> createPostAllocationOptimizationStage(OptionValues options);
 
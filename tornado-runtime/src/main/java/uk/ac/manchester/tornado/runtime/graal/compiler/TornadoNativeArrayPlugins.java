@@ -0,0 +1,101 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2023, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.runtime.graal.compiler;
+
+import org.graalvm.compiler.nodes.ValueNode;
+import org.graalvm.compiler.nodes.graphbuilderconf.GraphBuilderContext;
+import org.graalvm.compiler.nodes.graphbuilderconf.InvocationPlugin;
+import org.graalvm.compiler.nodes.graphbuilderconf.InvocationPlugin.Receiver;
+import org.graalvm.compiler.nodes.graphbuilderconf.InvocationPlugins;
+import org.graalvm.compiler.nodes.graphbuilderconf.InvocationPlugins.Registration;
+import org.graalvm.compiler.nodes.java.ArrayLengthNode;
+import org.graalvm.compiler.nodes.java.LoadIndexedNode;
+import org.graalvm.compiler.nodes.java.StoreIndexedNode;
+
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+import uk.ac.manchester.tornado.api.data.nativetypes.DoubleArray;
+import uk.ac.manchester.tornado.api.data.nativetypes.FloatArray;
+import uk.ac.manchester.tornado.api.data.nativetypes.IntArray;
+import uk.ac.manchester.tornado.api.data.nativetypes.LongArray;
+import uk.ac.manchester.tornado.api.data.nativetypes.ShortArray;
+import uk.ac.manchester.tornado.api.data.nativetypes.TornadoNativeArray;
+
+/**
+ * Graph builder plugins for the off-heap arrays. The native segment of a
+ * {@link TornadoNativeArray} has the same layout as a Java array of the same
+ * primitive type, and it is copied as a whole to the device. Thus, the
+ * accessors are replaced with the indexed load and store nodes (and the size
+ * with the array length node) of the corresponding Java array, and each backend
+ * lowers them as it does for primitive arrays.
+ */
+public class TornadoNativeArrayPlugins {
+
+    public static void registerPlugins(InvocationPlugins plugins) {
+        registerAccessPlugins(plugins, FloatArray.class, float.class, JavaKind.Float);
+        registerAccessPlugins(plugins, DoubleArray.class, double.class, JavaKind.Double);
+        registerAccessPlugins(plugins, IntArray.class, int.class, JavaKind.Int);
+        registerAccessPlugins(plugins, LongArray.class, long.class, JavaKind.Long);
+        registerAccessPlugins(plugins, ShortArray.class, short.class, JavaKind.Short);
+        registerSizePlugin(plugins);
+    }
+
+    /**
+     * Both the int and the long overloads of the accessors are replaced. The
+     * lowering of the indexed nodes sign-extends the index to a word, so a long
+     * index addresses arrays with more than {@link Integer#MAX_VALUE} elements.
+     */
+    private static void registerAccessPlugins(InvocationPlugins plugins, Class<?> declaringClass, Class<?> elementType, JavaKind elementKind) {
+        Registration r = new Registration(plugins, declaringClass);
+
+        for (Class<?> indexType : new Class<?>[] { int.class, long.class }) {
+            r.register(new InvocationPlugin("get", Receiver.class, indexType) {
+                @Override
+                public boolean apply(GraphBuilderContext b, ResolvedJavaMethod targetMethod, Receiver receiver, ValueNode index) {
+                    b.addPush(elementKind.getStackKind(), new LoadIndexedNode(null, receiver.get(), index, null, elementKind));
+                    return true;
+                }
+            });
+
+            r.register(new InvocationPlugin("set", Receiver.class, indexType, elementType) {
+                @Override
+                public boolean apply(GraphBuilderContext b, ResolvedJavaMethod targetMethod, Receiver receiver, ValueNode index, ValueNode value) {
+                    b.add(new StoreIndexedNode(receiver.get(), index, null, null, elementKind, value));
+                    return true;
+                }
+            });
+        }
+    }
+
+    private static void registerSizePlugin(InvocationPlugins plugins) {
+        Registration r = new Registration(plugins, TornadoNativeArray.class);
+        r.register(new InvocationPlugin("getSize", Receiver.class) {
+            @Override
+            public boolean apply(GraphBuilderContext b, ResolvedJavaMethod targetMethod, Receiver receiver) {
+                b.addPush(JavaKind.Int, new ArrayLengthNode(receiver.get()));
+                return true;
+            }
+        });
+    }
+}
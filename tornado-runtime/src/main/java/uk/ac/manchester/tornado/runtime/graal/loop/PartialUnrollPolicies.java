@@ -0,0 +1,195 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2023, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.runtime.graal.loop;
+
+import org.graalvm.compiler.graph.Node;
+import org.graalvm.compiler.nodes.ConstantNode;
+import org.graalvm.compiler.nodes.ValueNode;
+import org.graalvm.compiler.nodes.loop.CountedLoopInfo;
+import org.graalvm.compiler.nodes.loop.DefaultLoopPolicies;
+import org.graalvm.compiler.nodes.loop.LoopEx;
+import org.graalvm.compiler.nodes.memory.MemoryAccess;
+import org.graalvm.compiler.nodes.memory.MemoryKill;
+import org.graalvm.compiler.nodes.spi.CoreProviders;
+
+import jdk.vm.ci.meta.JavaKind;
+import uk.ac.manchester.tornado.api.enums.TornadoDeviceType;
+import uk.ac.manchester.tornado.runtime.common.TornadoOptions;
+
+/**
+ * Loop policies for partial unrolling. The unroll factor of each counted loop
+ * is the factor given with {@code -Dtornado.unroll.factor}, or it is selected
+ * with a cost model that considers:
+ *
+ * <ul>
+ * <li>The size of the loop body, to limit code growth.</li>
+ * <li>An estimation of the register pressure of one iteration (loop phis,
+ * memory reads and values with multiple usages), since every unrolled copy
+ * keeps its values alive at the same time. On GPUs, this also limits the loss
+ * of occupancy.</li>
+ * <li>The type of the device. GPUs benefit the most from the additional
+ * instruction-level parallelism, while OpenCL CPU compilers already unroll and
+ * vectorise. FPGAs are not unrolled, since unrolling is expressed with pragmas
+ * and each copy of the body consumes area.</li>
+ * <li>The trip count, if it is a constant.</li>
+ * </ul>
+ *
+ * <p>
+ * Unrolling is performed by Graal's {@code LoopPartialUnrollPhase}, which
+ * inserts a pre-loop and a post-loop around the unrolled main loop. Thus, it
+ * applies to loops with trip counts that are only known at runtime.
+ * </p>
+ */
+public class PartialUnrollPolicies extends DefaultLoopPolicies {
+
+    public static final int MAX_UNROLL_FACTOR = 32;
+
+    private static final int GPU_MAX_UNROLL_FACTOR = 8;
+    private static final int GPU_NODE_BUDGET = 512;
+    private static final int GPU_REGISTER_BUDGET = 64;
+
+    private static final int CPU_MAX_UNROLL_FACTOR = 4;
+    private static final int CPU_NODE_BUDGET = 256;
+    private static final int CPU_REGISTER_BUDGET = 16;
+
+    private static final int DEFAULT_MAX_UNROLL_FACTOR = 4;
+    private static final int DEFAULT_NODE_BUDGET = 256;
+    private static final int DEFAULT_REGISTER_BUDGET = 32;
+
+    private final TornadoDeviceType deviceType;
+    private final int unrollFactor;
+
+    public PartialUnrollPolicies(TornadoDeviceType deviceType) {
+        this(deviceType, TornadoOptions.getPartialUnrollFactor());
+    }
+
+    /**
+     * @param deviceType
+     *            Type of the target device.
+     * @param unrollFactor
+     *            Fixed unroll factor. If it is not a power of two up to
+     *            {@link #MAX_UNROLL_FACTOR}, the cost model is used.
+     */
+    public PartialUnrollPolicies(TornadoDeviceType deviceType, int unrollFactor) {
+        this.deviceType = deviceType;
+        this.unrollFactor = unrollFactor;
+    }
+
+    /**
+     * Each call doubles the unroll factor of the main loop, so this is called
+     * until the factor selected for the loop is reached.
+     */
+    @Override
+    public boolean shouldPartiallyUnroll(LoopEx loop, CoreProviders providers) {
+        if (!loop.isCounted()) {
+            return false;
+        }
+        return loop.loopBegin().getUnrollFactor() < getUnrollFactor(loop);
+    }
+
+    public int getUnrollFactor(LoopEx loop) {
+        if (isPowerOfTwo(unrollFactor) && unrollFactor <= MAX_UNROLL_FACTOR) {
+            return unrollFactor;
+        }
+        // The loop could have been unrolled already: estimate the original body
+        int currentFactor = Math.max(1, loop.loopBegin().getUnrollFactor());
+        int bodySize = loop.size() / currentFactor;
+        int registerPressure = estimateRegisterPressure(loop) / currentFactor;
+        CountedLoopInfo counted = loop.counted();
+        long maxTripCount = counted.isConstantMaxTripCount() ? counted.constantMaxTripCount().asLong() * currentFactor : -1;
+        return selectUnrollFactor(bodySize, registerPressure, deviceType, maxTripCount);
+    }
+
+    /**
+     * It estimates the number of values that are alive at the same time in one
+     * iteration of the loop.
+     *
+     * @param loop
+     *            Loop to analyse.
+     * @return Estimated number of registers.
+     */
+    public static int estimateRegisterPressure(LoopEx loop) {
+        int pressure = loop.loopBegin().phis().count();
+        for (Node node : loop.inside().nodes()) {
+            if (node instanceof MemoryAccess && !(node instanceof MemoryKill)) {
+                pressure++;
+            } else if (node instanceof ValueNode && !(node instanceof ConstantNode) && ((ValueNode) node).getStackKind() != JavaKind.Void && node.getUsageCount() > 1) {
+                pressure++;
+            }
+        }
+        return pressure;
+    }
+
+    /**
+     * Cost model for the unroll factor.
+     *
+     * @param bodySize
+     *            Number of nodes of the loop body.
+     * @param registerPressure
+     *            Estimated number of registers of one iteration.
+     * @param deviceType
+     *            Type of the target device.
+     * @param maxTripCount
+     *            Maximum trip count of the loop, or a negative value if it is
+     *            unknown at compile time.
+     * @return A power of two. A factor of 1 means that the loop is not
+     *         unrolled.
+     */
+    public static int selectUnrollFactor(int bodySize, int registerPressure, TornadoDeviceType deviceType, long maxTripCount) {
+        int maxFactor;
+        int nodeBudget;
+        int registerBudget;
+        switch (deviceType) {
+            case GPU:
+                maxFactor = GPU_MAX_UNROLL_FACTOR;
+                nodeBudget = GPU_NODE_BUDGET;
+                registerBudget = GPU_REGISTER_BUDGET;
+                break;
+            case CPU:
+                maxFactor = CPU_MAX_UNROLL_FACTOR;
+                nodeBudget = CPU_NODE_BUDGET;
+                registerBudget = CPU_REGISTER_BUDGET;
+                break;
+            case FPGA:
+                return 1;
+            default:
+                maxFactor = DEFAULT_MAX_UNROLL_FACTOR;
+                nodeBudget = DEFAULT_NODE_BUDGET;
+                registerBudget = DEFAULT_REGISTER_BUDGET;
+                break;
+        }
+        long factor = maxFactor;
+        factor = Math.min(factor, nodeBudget / Math.max(1, bodySize));
+        factor = Math.min(factor, registerBudget / Math.max(1, registerPressure));
+        if (maxTripCount >= 0) {
+            // Keep at least two iterations of the unrolled loop
+            factor = Math.min(factor, maxTripCount / 2);
+        }
+        return (factor <= 1) ? 1 : Integer.highestOneBit((int) factor);
+    }
+
+    private static boolean isPowerOfTwo(int number) {
+        return number > 0 && ((number & (number - 1)) == 0);
+    }
+}
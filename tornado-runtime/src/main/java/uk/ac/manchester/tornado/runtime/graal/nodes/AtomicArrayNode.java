@@ -0,0 +1,120 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2023, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.runtime.graal.nodes;
+
+import org.graalvm.compiler.core.common.type.StampFactory;
+import org.graalvm.compiler.graph.NodeClass;
+import org.graalvm.compiler.nodeinfo.InputType;
+import org.graalvm.compiler.nodeinfo.NodeInfo;
+import org.graalvm.compiler.nodes.FrameState;
+import org.graalvm.compiler.nodes.NamedLocationIdentity;
+import org.graalvm.compiler.nodes.StateSplit;
+import org.graalvm.compiler.nodes.ValueNode;
+import org.graalvm.compiler.nodes.java.AccessIndexedNode;
+import org.graalvm.compiler.nodes.memory.SingleMemoryKill;
+import org.graalvm.word.LocationIdentity;
+
+import jdk.vm.ci.meta.JavaKind;
+
+/**
+ * Atomic read-modify-write of an array element. The node returns the value of
+ * the element before the update. It is created by the invocation plugins of the
+ * atomic operations exposed in
+ * {@link uk.ac.manchester.tornado.api.TornadoVM_Intrinsics}, and each backend
+ * lowers it to its own atomic instructions.
+ */
+@NodeInfo(nameTemplate = "AtomicArray#{p#operation/s}")
+public final class AtomicArrayNode extends AccessIndexedNode implements StateSplit, SingleMemoryKill {
+
+    public static final NodeClass<AtomicArrayNode> TYPE = NodeClass.create(AtomicArrayNode.class);
+
+    //@formatter:off
+    public enum Operation {
+        ADD,
+        MIN,
+        MAX,
+        EXCHANGE,
+        COMPARE_AND_SWAP
+    }
+    //@formatter:on
+
+    @Input
+    ValueNode value;
+    @OptionalInput
+    ValueNode expected;
+    @OptionalInput(InputType.State)
+    FrameState stateAfter;
+
+    private final Operation operation;
+
+    public AtomicArrayNode(ValueNode array, ValueNode index, JavaKind elementKind, Operation operation, ValueNode value) {
+        this(array, index, elementKind, operation, null, value);
+    }
+
+    public AtomicArrayNode(ValueNode array, ValueNode index, JavaKind elementKind, Operation operation, ValueNode expected, ValueNode value) {
+        super(TYPE, StampFactory.forKind(elementKind), array, index, null, elementKind);
+        assert (operation == Operation.COMPARE_AND_SWAP) == (expected != null) : "only compare-and-swap takes an expected value";
+        this.operation = operation;
+        this.expected = expected;
+        this.value = value;
+    }
+
+    public Operation getOperation() {
+        return operation;
+    }
+
+    public ValueNode value() {
+        return value;
+    }
+
+    /**
+     * @return the expected value of a {@link Operation#COMPARE_AND_SWAP}, or null
+     *         for any other operation.
+     */
+    public ValueNode expected() {
+        return expected;
+    }
+
+    @Override
+    public FrameState stateAfter() {
+        return stateAfter;
+    }
+
+    @Override
+    public void setStateAfter(FrameState x) {
+        assert x == null || x.isAlive() : "frame state must be in a graph";
+        updateUsages(stateAfter, x);
+        stateAfter = x;
+    }
+
+    @Override
+    public boolean hasSideEffect() {
+        return true;
+    }
+
+    @Override
+    public LocationIdentity getKilledLocationIdentity() {
+        return NamedLocationIdentity.getArrayLocation(elementKind());
+    }
+}
@@ -25,38 +25,95 @@
  */
 package uk.ac.manchester.tornado.runtime.graal.phases;
 
-import static uk.ac.manchester.tornado.runtime.common.Tornado.debug;
 import static uk.ac.manchester.tornado.runtime.common.Tornado.info;
 
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.HashMap;
+import java.util.LinkedList;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
 
 import org.graalvm.collections.EconomicMap;
 import org.graalvm.compiler.graph.Node;
+import org.graalvm.compiler.graph.NodeBitMap;
 import org.graalvm.compiler.nodes.ConstantNode;
-import org.graalvm.compiler.nodes.LoopBeginNode;
+import org.graalvm.compiler.nodes.IfNode;
+import org.graalvm.compiler.nodes.Invoke;
+import org.graalvm.compiler.nodes.LogicNode;
+import org.graalvm.compiler.nodes.ParameterNode;
 import org.graalvm.compiler.nodes.PhiNode;
 import org.graalvm.compiler.nodes.StructuredGraph;
 import org.graalvm.compiler.nodes.ValueNode;
 import org.graalvm.compiler.nodes.ValuePhiNode;
+import org.graalvm.compiler.nodes.calc.AddNode;
+import org.graalvm.compiler.nodes.calc.BinaryNode;
+import org.graalvm.compiler.nodes.calc.IntegerEqualsNode;
 import org.graalvm.compiler.nodes.calc.IntegerLessThanNode;
+import org.graalvm.compiler.nodes.calc.LeftShiftNode;
+import org.graalvm.compiler.nodes.calc.MulNode;
+import org.graalvm.compiler.nodes.calc.NegateNode;
+import org.graalvm.compiler.nodes.calc.SignExtendNode;
+import org.graalvm.compiler.nodes.calc.SubNode;
+import org.graalvm.compiler.nodes.java.AbstractNewArrayNode;
+import org.graalvm.compiler.nodes.java.AccessIndexedNode;
+import org.graalvm.compiler.nodes.java.ArrayLengthNode;
+import org.graalvm.compiler.nodes.java.LoadIndexedNode;
+import org.graalvm.compiler.nodes.java.StoreFieldNode;
+import org.graalvm.compiler.nodes.java.StoreIndexedNode;
 import org.graalvm.compiler.nodes.loop.InductionVariable;
 import org.graalvm.compiler.nodes.loop.LoopEx;
 import org.graalvm.compiler.nodes.loop.LoopsData;
 import org.graalvm.compiler.phases.BasePhase;
 
+import jdk.vm.ci.meta.JavaConstant;
+import jdk.vm.ci.meta.JavaKind;
 import uk.ac.manchester.tornado.api.exceptions.TornadoBailoutRuntimeException;
 import uk.ac.manchester.tornado.api.exceptions.TornadoCompilationException;
+import uk.ac.manchester.tornado.runtime.analyzer.AffineExpression;
+import uk.ac.manchester.tornado.runtime.analyzer.ArrayDependenceAnalysis;
+import uk.ac.manchester.tornado.runtime.analyzer.ArrayDependenceAnalysis.ArrayAccess;
+import uk.ac.manchester.tornado.runtime.analyzer.ArrayDependenceAnalysis.LoopLevel;
 import uk.ac.manchester.tornado.runtime.common.TornadoOptions;
 import uk.ac.manchester.tornado.runtime.graal.nodes.ParallelOffsetNode;
 import uk.ac.manchester.tornado.runtime.graal.nodes.ParallelRangeNode;
 import uk.ac.manchester.tornado.runtime.graal.nodes.ParallelStrideNode;
+import uk.ac.manchester.tornado.runtime.graal.nodes.StoreAtomicIndexedNode;
 import uk.ac.manchester.tornado.runtime.graal.nodes.TornadoLoopsData;
 
+/**
+ * It parallelises the outer loops of a single loop nest when the
+ * {@link ArrayDependenceAnalysis} proves that their iterations are independent
+ * (i.e., the loops neither carry scalar values nor array dependences). Loops
+ * bounded with {@code <}, {@code <=} and {@code !=} are supported.
+ */
 public class TornadoAutoParalleliser extends BasePhase<TornadoSketchTierContext> {
 
+    private static final int MAX_PARALLEL_DIMENSIONS = 3;
+
+    private enum LoopCondition {
+        LESS_THAN, //
+        LESS_EQUAL, //
+        NOT_EQUAL
+    }
+
+    /**
+     * Shape of a counted loop: {@code for (i = init; i < limit; i += stride)},
+     * where the comparison can also be {@code <=} or {@code !=}.
+     */
+    private static class LoopShape {
+        private InductionVariable iv;
+        private IfNode limitTest;
+        private ValueNode limit;
+        private LoopCondition condition;
+        private Long lowerBound;
+        private Long upperBound;
+        private String rejectionReason;
+
+        private ValuePhiNode phi() {
+            return (ValuePhiNode) iv.valueNode();
+        }
+    }
+
     @Override
     protected void run(StructuredGraph graph, TornadoSketchTierContext context) {
         if (!TornadoOptions.AUTO_PARALLELISATION || graph.getNodes().filter(ParallelRangeNode.class).isNotEmpty()) {
@@ -74,100 +131,265 @@ public class TornadoAutoParalleliser extends BasePhase<TornadoSketchTierContext>
             final List<LoopEx> loops = data.outerFirst();
 
             // is single loop nest?
-            for (int i = loops.size() - 1; i > 1; i--) {
+            for (int i = loops.size() - 1; i > 0; i--) {
                 if (loops.get(i).parent() != loops.get(i - 1)) {
                     info("method %s does not have a single loop-nest", graph.method().getName());
                     return;
                 }
             }
 
-            int parallelDepth = 0;
-            for (int i = 0; i < loops.size() && parallelDepth < 3; i++) {
-                final LoopEx current = loops.get(0);
-                final LoopBeginNode loopBegin = current.loopBegin();
-                final EconomicMap<Node, InductionVariable> ivMap = current.getInductionVariables();
-
-                info("%s loop info:\n", loopBegin);
-                final Set<Node> phis = new HashSet<>();
-                for (PhiNode phi : loopBegin.phis()) {
-                    info("\tphi: %s\n", phi);
-                    phis.add(phi);
+            final List<LoopShape> shapes = new ArrayList<>();
+            final List<LoopLevel> levels = new ArrayList<>();
+            final Map<Node, Integer> counters = new HashMap<>();
+            for (int i = 0; i < loops.size(); i++) {
+                LoopShape shape = analyseLoop(loops.get(i));
+                shapes.add(shape);
+                if (shape.iv != null) {
+                    counters.put(shape.phi(), i);
                 }
+                Object exclusiveLimit = (shape.limit != null && shape.condition != LoopCondition.LESS_EQUAL) ? getSymbol(shape.limit) : null;
+                levels.add(new LoopLevel(shape.lowerBound, shape.upperBound, exclusiveLimit, shape.rejectionReason));
+            }
+
+            final ArrayDependenceAnalysis analysis = new ArrayDependenceAnalysis(levels);
+            collectArrayAccesses(loops, counters, analysis);
+
+            final int parallelDepth = analysis.getParallelDepth(MAX_PARALLEL_DIMENSIONS);
+            if (parallelDepth == 0) {
+                info("unable to parallelise %s: %s", graph.method().getName(), analysis.getRejectionReason());
+                throw new TornadoBailoutRuntimeException("unable to parallelise because of " + analysis.getRejectionReason());
+            } else if (analysis.getRejectionReason() != null) {
+                info("%s: %s", graph.method().getName(), analysis.getRejectionReason());
+            }
+
+            for (int i = 0; i < parallelDepth; i++) {
+                parallelizationReplacement(graph, shapes.get(i), i);
+            }
+            info("automatically parallelised %s (%dD kernel)\n", graph.method().getName(), parallelDepth);
+        }
+    }
+
+    private LoopShape analyseLoop(LoopEx loop) {
+        final LoopShape shape = new LoopShape();
+        if (!loop.isCounted()) {
+            shape.rejectionReason = "not a counted loop";
+            return shape;
+        }
+
+        shape.limitTest = loop.counted().getLimitTest();
+        final LogicNode condition = shape.limitTest.condition();
+        final EconomicMap<Node, InductionVariable> ivMap = loop.getInductionVariables();
+        for (PhiNode phi : loop.loopBegin().phis()) {
+            if (ivMap.containsKey(phi) && condition.inputs().contains(phi)) {
+                shape.iv = ivMap.get(phi);
+            }
+        }
+        if (shape.iv == null) {
+            shape.rejectionReason = "unsupported loop condition " + condition;
+            return shape;
+        }
+
+        final ValuePhiNode phi = shape.phi();
+        if (condition instanceof IntegerLessThanNode && ((IntegerLessThanNode) condition).getX() == phi) {
+            shape.condition = LoopCondition.LESS_THAN;
+            shape.limit = ((IntegerLessThanNode) condition).getY();
+        } else if (condition instanceof IntegerLessThanNode) {
+            // i <= limit is expressed as: exit if (limit < i)
+            shape.condition = LoopCondition.LESS_EQUAL;
+            shape.limit = ((IntegerLessThanNode) condition).getX();
+        } else if (condition instanceof IntegerEqualsNode) {
+            IntegerEqualsNode equals = (IntegerEqualsNode) condition;
+            shape.condition = LoopCondition.NOT_EQUAL;
+            shape.limit = (equals.getX() == phi) ? equals.getY() : equals.getX();
+        } else {
+            shape.rejectionReason = "unsupported loop condition " + condition;
+            shape.iv = null;
+            return shape;
+        }
+
+        final InductionVariable iv = shape.iv;
+        if (iv.isConstantInit()) {
+            shape.lowerBound = iv.constantInit();
+        }
+        if (shape.limit instanceof ConstantNode) {
+            long limit = shape.limit.asJavaConstant().asLong();
+            shape.upperBound = (shape.condition == LoopCondition.LESS_EQUAL) ? limit : limit - 1;
+        }
 
-                List<InductionVariable> ivs = new ArrayList<>();
-                for (Node n : ivMap.getKeys()) {
-                    info("\tiv: node=%s iv=%s\n", n, ivMap.get(n));
-                    phis.remove(n);
-                    ivs.add(ivMap.get(n));
+        if (!iv.isConstantStride() || iv.constantStride() <= 0) {
+            shape.rejectionReason = "non-constant or negative stride";
+        } else if (shape.condition == LoopCondition.NOT_EQUAL && iv.constantStride() != 1) {
+            shape.rejectionReason = "!= condition with a stride different from 1";
+        } else if (!iv.isConstantInit()) {
+            shape.rejectionReason = "non-constant loop start";
+        } else {
+            for (PhiNode other : loop.loopBegin().phis()) {
+                if (other != phi) {
+                    shape.rejectionReason = "loop-carried value " + describeUpdates(other);
+                    break;
                 }
+            }
+        }
+        return shape;
+    }
+
+    private static String describeUpdates(PhiNode phi) {
+        StringBuilder sb = new StringBuilder(phi.toString());
+        for (ValueNode value : phi.values()) {
+            if (value.getNodeSourcePosition() != null) {
+                sb.append(" ").append(value.getNodeSourcePosition().toString().trim());
+            }
+        }
+        return sb.toString();
+    }
+
+    private static void collectArrayAccesses(List<LoopEx> loops, Map<Node, Integer> counters, ArrayDependenceAnalysis analysis) {
+        final NodeBitMap[] nodesPerLevel = new NodeBitMap[loops.size()];
+        for (int i = 0; i < loops.size(); i++) {
+            nodesPerLevel[i] = loops.get(i).whole().nodes();
+        }
 
-                if (!phis.isEmpty()) {
-                    info("unable to parallelise because of loop-dependencies:\n");
-                    for (Node n : phis) {
-                        PhiNode phi = (PhiNode) n;
-                        StringBuilder sb = new StringBuilder();
-                        for (ValueNode value : phi.values()) {
-                            if (value.getNodeSourcePosition() != null) {
-                                sb.append(value.getNodeSourcePosition().toString());
-                            }
-                            sb.append("\n");
-                        }
-                        info("\tnode %s updated:\n", n);
-                        info(sb.toString().trim());
+        for (Node node : nodesPerLevel[0]) {
+            if (node instanceof StoreAtomicIndexedNode) {
+                analysis.addUnanalysableAccess("atomic update " + node);
+            } else if (node instanceof AccessIndexedNode) {
+                AccessIndexedNode access = (AccessIndexedNode) node;
+                boolean isWrite = access instanceof StoreIndexedNode;
+                if (access.elementKind() == JavaKind.Object) {
+                    // Loads of references are part of multi-dimensional accesses
+                    if (isWrite) {
+                        analysis.addUnanalysableAccess("store of a reference " + node);
                     }
-                    throw new TornadoBailoutRuntimeException("unable to parallelise because of loop-dependencies.");
+                    continue;
                 }
 
-                if (ivs.size() > 1) {
-                    debug("Too many ivs");
-                    return;
+                LinkedList<AffineExpression> subscripts = new LinkedList<>();
+                subscripts.add(toAffineExpression(access.index(), counters, nodesPerLevel[0]));
+                ValueNode array = access.array();
+                while (array instanceof LoadIndexedNode) {
+                    subscripts.addFirst(toAffineExpression(((LoadIndexedNode) array).index(), counters, nodesPerLevel[0]));
+                    array = ((LoadIndexedNode) array).array();
                 }
+                int allocationDepth = (array instanceof AbstractNewArrayNode) ? getDepth(array, nodesPerLevel) : 0;
+                String description = String.format("%s[%s]", array, subscripts);
+                if (node.getNodeSourcePosition() != null) {
+                    description += " at " + node.getNodeSourcePosition().toString().trim();
+                }
+                analysis.addAccess(new ArrayAccess(array, array instanceof ParameterNode, subscripts, isWrite, getDepth(node, nodesPerLevel), allocationDepth, description));
+            } else if (node instanceof Invoke) {
+                analysis.addUnanalysableAccess("call " + node);
+            } else if (node instanceof StoreFieldNode) {
+                analysis.addUnanalysableAccess("field store " + node);
+            }
+        }
+    }
 
-                final InductionVariable iv = ivs.get(0);
-                ValueNode maxIterations;
-
-                List<IntegerLessThanNode> conditions = iv.valueNode().usages().filter(IntegerLessThanNode.class).snapshot();
-                final IntegerLessThanNode lessThan = conditions.get(0);
-                maxIterations = lessThan.getY();
+    private static int getDepth(Node node, NodeBitMap[] nodesPerLevel) {
+        int depth = 0;
+        while (depth < nodesPerLevel.length && nodesPerLevel[depth].isMarked(node)) {
+            depth++;
+        }
+        return depth;
+    }
 
-                parallelizationReplacement(graph, iv, parallelDepth, maxIterations, conditions);
+    /**
+     * @return The identity of a loop-invariant value. The length of an array is
+     *         identified by the array itself, so that all length nodes of the
+     *         same array are the same symbol.
+     */
+    private static Object getSymbol(ValueNode value) {
+        return (value instanceof ArrayLengthNode) ? ((ArrayLengthNode) value).array() : value;
+    }
 
-                parallelDepth++;
+    private static AffineExpression toAffineExpression(ValueNode value, Map<Node, Integer> counters, NodeBitMap nestNodes) {
+        if (value instanceof ConstantNode) {
+            JavaConstant constant = value.asJavaConstant();
+            return (constant != null && constant.getJavaKind().isNumericInteger()) ? AffineExpression.constant(constant.asLong()) : null;
+        } else if (counters.containsKey(value)) {
+            return AffineExpression.variable(counters.get(value));
+        } else if (!nestNodes.isMarked(value)) {
+            return AffineExpression.symbol(getSymbol(value));
+        } else if (value instanceof ArrayLengthNode && !nestNodes.isMarked(((ArrayLengthNode) value).array())) {
+            return AffineExpression.symbol(getSymbol(value));
+        } else if (value instanceof SignExtendNode) {
+            return toAffineExpression(((SignExtendNode) value).getValue(), counters, nestNodes);
+        } else if (value instanceof NegateNode) {
+            AffineExpression x = toAffineExpression(((NegateNode) value).getValue(), counters, nestNodes);
+            return (x != null) ? x.negate() : null;
+        } else if (value instanceof AddNode || value instanceof SubNode || value instanceof MulNode || value instanceof LeftShiftNode) {
+            BinaryNode binary = (BinaryNode) value;
+            AffineExpression x = toAffineExpression(binary.getX(), counters, nestNodes);
+            AffineExpression y = toAffineExpression(binary.getY(), counters, nestNodes);
+            if (x == null || y == null) {
+                return null;
+            } else if (value instanceof AddNode) {
+                return x.add(y);
+            } else if (value instanceof SubNode) {
+                return x.subtract(y);
+            } else if (value instanceof MulNode) {
+                return x.multiply(y);
+            } else if (y.isConstant() && y.getConstant() >= 0 && y.getConstant() < 32) {
+                return x.scale(1L << y.getConstant());
             }
-            info("automatically parallelised %s (%dD kernel)\n", graph.method().getName(), parallelDepth);
         }
+        return null;
     }
 
-    private void parallelizationReplacement(StructuredGraph graph, InductionVariable iv, int parallelDepth, ValueNode maxIterations, List<IntegerLessThanNode> conditions)
-            throws TornadoCompilationException {
-        if (iv.isConstantInit() && iv.isConstantStride()) {
-            final ConstantNode newInit = graph.addWithoutUnique(ConstantNode.forInt((int) iv.constantInit()));
+    private void parallelizationReplacement(StructuredGraph graph, LoopShape shape, int parallelDepth) throws TornadoCompilationException {
+        final InductionVariable iv = shape.iv;
+        final ConstantNode newInit = graph.addWithoutUnique(ConstantNode.forInt((int) iv.constantInit()));
 
-            final ConstantNode newStride = graph.addWithoutUnique(ConstantNode.forInt((int) iv.constantStride()));
+        final ConstantNode newStride = graph.addWithoutUnique(ConstantNode.forInt((int) iv.constantStride()));
 
-            final ParallelOffsetNode offset = graph.addWithoutUnique(new ParallelOffsetNode(parallelDepth, newInit));
+        final ParallelOffsetNode offset = graph.addWithoutUnique(new ParallelOffsetNode(parallelDepth, newInit));
 
-            final ParallelStrideNode stride = graph.addWithoutUnique(new ParallelStrideNode(parallelDepth, newStride));
+        final ParallelStrideNode stride = graph.addWithoutUnique(new ParallelStrideNode(parallelDepth, newStride));
 
-            final ParallelRangeNode range = graph.addWithoutUnique(new ParallelRangeNode(parallelDepth, maxIterations, offset, stride));
+        // The range is always exclusive: i <= limit iterates up to limit + 1
+        ValueNode maxIterations = shape.limit;
+        if (shape.condition == LoopCondition.LESS_EQUAL) {
+            if (shape.limit instanceof ConstantNode) {
+                maxIterations = ConstantNode.forInt(shape.limit.asJavaConstant().asInt() + 1, graph);
+            } else {
+                maxIterations = graph.addOrUnique(new AddNode(shape.limit, ConstantNode.forInt(1, graph)));
+            }
+        }
 
-            final ValuePhiNode phi = (ValuePhiNode) iv.valueNode();
+        final ParallelRangeNode range = graph.addWithoutUnique(new ParallelRangeNode(parallelDepth, maxIterations, offset, stride));
 
-            final ValueNode oldStride = phi.singleBackValueOrThis(); // was singleBackValue()
+        final ValuePhiNode phi = shape.phi();
 
-            if (oldStride.usages().count() > 1) {
-                final ValueNode duplicateStride = (ValueNode) oldStride.copyWithInputs(true);
-                oldStride.replaceAtMatchingUsages(duplicateStride, usage -> !usage.equals(phi));
-            }
+        final ValueNode oldStride = phi.singleBackValueOrThis(); // was singleBackValue()
 
-            iv.initNode().replaceAtMatchingUsages(offset, node -> node.equals(phi));
-            iv.strideNode().replaceAtMatchingUsages(stride, node -> node.equals(oldStride));
+        if (oldStride.usages().count() > 1) {
+            final ValueNode duplicateStride = (ValueNode) oldStride.copyWithInputs(true);
+            oldStride.replaceAtMatchingUsages(duplicateStride, usage -> !usage.equals(phi));
+        }
 
-            // only replace this node in the loop condition
-            maxIterations.replaceAtMatchingUsages(range, node -> node.equals(conditions.get(0)));
+        iv.initNode().replaceAtMatchingUsages(offset, node -> node.equals(phi));
+        iv.strideNode().replaceAtMatchingUsages(stride, node -> node.equals(oldStride));
 
-        } else {
-            throw new TornadoBailoutRuntimeException("Failed to parallelize because of non-constant loop strides. \nSequential code will run on the device.");
+        // only replace the limit in the loop condition
+        final LogicNode condition = shape.limitTest.condition();
+        switch (shape.condition) {
+            case LESS_THAN:
+                shape.limit.replaceAtMatchingUsages(range, node -> node.equals(condition));
+                break;
+            case LESS_EQUAL: {
+                // exit if (range - 1 < i)
+                final SubNode last = graph.addOrUnique(new SubNode(range, ConstantNode.forInt(1, graph)));
+                shape.limit.replaceAtMatchingUsages(last, node -> node.equals(condition));
+                break;
+            }
+            case NOT_EQUAL: {
+                // exit if (i == limit) becomes exit if (range - 1 < i)
+                final SubNode last = graph.addOrUnique(new SubNode(range, ConstantNode.forInt(1, graph)));
+                final IntegerLessThanNode exit = graph.addOrUnique(new IntegerLessThanNode(last, phi));
+                condition.replaceAtMatchingUsages(exit, node -> node.equals(shape.limitTest));
+                break;
+            }
+            default:
+                throw new TornadoCompilationException("unsupported loop condition " + shape.condition);
         }
     }
 }
@@ -0,0 +1,230 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2023, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.runtime.graph;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import uk.ac.manchester.tornado.api.exceptions.TornadoRuntimeException;
+
+/**
+ * Schedule of a pipelined batch execution. Each chunk goes through three
+ * stages: copy-in ({@link Stage#TRANSFER_IN}), kernels ({@link Stage#COMPUTE})
+ * and copy-out ({@link Stage#TRANSFER_OUT}). The stages of consecutive chunks
+ * are emitted in a software-pipelined order:
+ *
+ * <pre>
+ * step 0: IN(0)
+ * step 1: COMPUTE(0), IN(1)
+ * step i: COMPUTE(i - 1), OUT(i - 2), IN(i)
+ * </pre>
+ *
+ * <p>
+ * The copy-out is blocking for the host. Thus, the kernels of chunk
+ * {@code i - 1} run while the host waits for the copy-out of chunk
+ * {@code i - 2}, and the copy-in of chunk {@code i} is enqueued while the
+ * kernels of chunk {@code i - 1} are still running. Chunk {@code i} uses the
+ * device buffer slot {@code i % numBuffers}. When the copy-in of chunk
+ * {@code i} is emitted, the copy-out of the previous chunk in that slot has
+ * completed.
+ * </p>
+ *
+ * <p>
+ * Events are passed between stages through three event lists per slot:
+ * <ul>
+ * <li>The copy-in list: the copy-in of chunk {@code i} waits for the kernels
+ * of chunk {@code i - numBuffers}, which read the same buffers.</li>
+ * <li>The compute list: the kernels of chunk {@code i} wait for its copy-in
+ * and for the kernels of chunk {@code i - 1}.</li>
+ * <li>The copy-out list: the copy-out of chunk {@code i} waits for its
+ * kernels.</li>
+ * </ul>
+ * Operations of the same stage and chunk are chained through the list of their
+ * stage. The last operation of the pipeline, the copy-out of the last chunk (or
+ * its kernels when there is nothing to copy out), also registers its event in a
+ * final event list, which the barrier at the end of the execution waits on.
+ * </p>
+ */
+public class BatchPipelineSchedule {
+
+    public enum Stage {
+        TRANSFER_IN, COMPUTE, TRANSFER_OUT
+    }
+
+    private static final int EVENT_LISTS_PER_SLOT = Stage.values().length;
+
+    private final int numChunks;
+    private final int numBuffers;
+    private final int firstEventList;
+    private final List<Step> steps;
+
+    /**
+     * @param numChunks
+     *            The number of chunks, including the last (partial) chunk.
+     * @param numBuffers
+     *            The number of device buffers per streamed object.
+     * @param firstEventList
+     *            The index of the first event list that the pipeline can use.
+     */
+    public BatchPipelineSchedule(int numChunks, int numBuffers, int firstEventList) {
+        this.numChunks = numChunks;
+        this.numBuffers = numBuffers;
+        this.firstEventList = firstEventList;
+        this.steps = Collections.unmodifiableList(buildSteps());
+    }
+
+    private List<Step> buildSteps() {
+        List<Step> result = new ArrayList<>();
+        for (int i = 0; i < numChunks + 2; i++) {
+            if (i >= 1 && i - 1 < numChunks) {
+                result.add(new Step(Stage.COMPUTE, i - 1, (i - 1) % numBuffers));
+            }
+            if (i >= 2) {
+                result.add(new Step(Stage.TRANSFER_OUT, i - 2, (i - 2) % numBuffers));
+            }
+            if (i < numChunks) {
+                result.add(new Step(Stage.TRANSFER_IN, i, i % numBuffers));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return The number of event lists required by the pipeline.
+     */
+    public static int getNumEventLists(int numBuffers) {
+        return EVENT_LISTS_PER_SLOT * numBuffers + 1;
+    }
+
+    public List<Step> getSteps() {
+        return steps;
+    }
+
+    public int getNumChunks() {
+        return numChunks;
+    }
+
+    public int getNumBuffers() {
+        return numBuffers;
+    }
+
+    /**
+     * @param stage
+     *            The stage that waits on the event list.
+     * @param slot
+     *            The buffer slot.
+     * @return The event list that a stage waits on for a buffer slot.
+     */
+    public int getEventList(Stage stage, int slot) {
+        return firstEventList + slot * EVENT_LISTS_PER_SLOT + stage.ordinal();
+    }
+
+    /**
+     * @return The event list that holds the event of the last operation of the
+     *         pipeline.
+     */
+    public int getFinalEventList() {
+        return firstEventList + EVENT_LISTS_PER_SLOT * numBuffers;
+    }
+
+    /**
+     * It returns the event lists in which the last operation of a step registers
+     * its event, i.e., the lists of the steps that depend on it.
+     *
+     * @param step
+     *            The step.
+     * @param transferInEvents
+     *            Whether the copy-in stage produces events.
+     * @param transferOutEvents
+     *            Whether the copy-out stage produces events.
+     * @return List of event lists.
+     */
+    public List<Integer> getSignalEventLists(Step step, boolean transferInEvents, boolean transferOutEvents) {
+        final int chunk = step.getChunk();
+        final int slot = step.getSlot();
+        final boolean isLastChunk = chunk == numChunks - 1;
+        final List<Integer> eventLists = new ArrayList<>();
+        switch (step.getStage()) {
+            case TRANSFER_IN:
+                eventLists.add(getEventList(Stage.COMPUTE, slot));
+                break;
+            case COMPUTE:
+                if (transferOutEvents) {
+                    eventLists.add(getEventList(Stage.TRANSFER_OUT, slot));
+                } else if (isLastChunk) {
+                    eventLists.add(getFinalEventList());
+                }
+                // The next chunk in this slot overwrites the buffers read by these kernels
+                if (chunk + numBuffers < numChunks && transferInEvents) {
+                    eventLists.add(getEventList(Stage.TRANSFER_IN, slot));
+                }
+                // Kernels of consecutive chunks are not reordered
+                if (!isLastChunk) {
+                    eventLists.add(getEventList(Stage.COMPUTE, (chunk + 1) % numBuffers));
+                }
+                break;
+            case TRANSFER_OUT:
+                if (isLastChunk) {
+                    eventLists.add(getFinalEventList());
+                }
+                break;
+            default:
+                throw new TornadoRuntimeException("[ERROR] Unknown batch pipeline stage: " + step.getStage());
+        }
+        return eventLists;
+    }
+
+    /**
+     * A stage of a chunk.
+     */
+    public static final class Step {
+        private final Stage stage;
+        private final int chunk;
+        private final int slot;
+
+        Step(Stage stage, int chunk, int slot) {
+            this.stage = stage;
+            this.chunk = chunk;
+            this.slot = slot;
+        }
+
+        public Stage getStage() {
+            return stage;
+        }
+
+        public int getChunk() {
+            return chunk;
+        }
+
+        public int getSlot() {
+            return slot;
+        }
+
+        @Override
+        public String toString() {
+            return stage + "(" + chunk + ")@" + slot;
+        }
+    }
+}
@@ -34,12 +34,14 @@ import java.util.Collections;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
+import uk.ac.manchester.tornado.api.DataParallelSplit;
 import uk.ac.manchester.tornado.api.TornadoDeviceContext;
 import uk.ac.manchester.tornado.api.common.Access;
 import uk.ac.manchester.tornado.api.common.Event;
@@ -74,6 +76,8 @@ public class TornadoExecutionContext {
     private int nextTask;
 
     private long batchSize;
+    private Set<Object> batchBroadcastObjects;
+    private DataParallelSplit dataParallelSplit;
     private Set<TornadoAcceleratorDevice> lastDevices;
 
     private boolean redeployOnDevice;
@@ -97,6 +101,7 @@ public class TornadoExecutionContext {
         Arrays.fill(taskToDeviceMapTable, -1);
         nextTask = 0;
         batchSize = -1;
+        batchBroadcastObjects = Collections.newSetFromMap(new IdentityHashMap<>());
         lastDevices = new HashSet<>();
         this.profiler = profiler;
         this.isDataDependencyDetected = isDataDependencyInTaskGraph();
@@ -133,6 +138,39 @@ public class TornadoExecutionContext {
         this.batchSize = size;
     }
 
+    /**
+     * It sets the objects that are copied whole for every chunk of a batched
+     * execution. The rest of the arrays are streamed.
+     *
+     * @param broadcastObjects
+     *            Objects of this execution context.
+     */
+    public void setBatchBroadcastObjects(Object... broadcastObjects) {
+        batchBroadcastObjects.clear();
+        for (Object object : broadcastObjects) {
+            if (objects.stream().noneMatch(o -> o == object)) {
+                throw new TornadoRuntimeException("[ERROR] The broadcast object " + object + " is not a parameter of the task-graph " + name);
+            }
+            batchBroadcastObjects.add(object);
+        }
+    }
+
+    public boolean isBatchBroadcast(Object object) {
+        return batchBroadcastObjects.contains(object);
+    }
+
+    public DataParallelSplit getDataParallelSplit() {
+        return dataParallelSplit;
+    }
+
+    public void setDataParallelSplit(DataParallelSplit split) {
+        this.dataParallelSplit = split;
+    }
+
+    public boolean isDataParallelSplit() {
+        return dataParallelSplit != null;
+    }
+
     public int replaceVariable(Object oldObj, Object newObj) {
         /*
          * Use the same index the oldObj was assigned. The argument indices are
@@ -154,6 +192,9 @@ public class TornadoExecutionContext {
             newLocalObjectState.setStreamIn(oldLocalObjectState.isStreamIn());
             newLocalObjectState.setForceStreamIn(oldLocalObjectState.isForcedStreamIn());
             newLocalObjectState.setStreamOut(oldLocalObjectState.isStreamOut());
+            if (batchBroadcastObjects.remove(oldObj)) {
+                batchBroadcastObjects.add(newObj);
+            }
 
             index = oldIndex;
             objects.add(index, newObj);
@@ -499,7 +540,7 @@ public class TornadoExecutionContext {
                     value += event.getElapsedTime();
                     profiler.setTimer(ProfilerType.COPY_OUT_TIME_SYNC, value);
                     DeviceObjectState deviceObjectState = localState.getGlobalState().getDeviceState(meta().getLogicDevice());
-                    profiler.addValueToMetric(ProfilerType.COPY_OUT_SIZE_BYTES_SYNC, TimeProfiler.NO_TASK_NAME, deviceObjectState.getObjectBuffer().size());
+                    profiler.addValueToMetric(ProfilerType.COPY_OUT_SIZE_BYTES_SYNC, TimeProfiler.NO_TASK_SLOT, deviceObjectState.getObjectBuffer().size());
                 }
             }
         }
@@ -554,6 +595,10 @@ public class TornadoExecutionContext {
         Set<TornadoAcceleratorDevice> lastDeviceCopy = new HashSet<>(lastDevices);
         executionContext.lastDevices = lastDeviceCopy;
 
+        Set<Object> batchBroadcastObjectsCopy = Collections.newSetFromMap(new IdentityHashMap<>());
+        batchBroadcastObjectsCopy.addAll(batchBroadcastObjects);
+        executionContext.batchBroadcastObjects = batchBroadcastObjectsCopy;
+
         executionContext.profiler = this.profiler;
         executionContext.nextTask = this.nextTask;
     }
@@ -25,6 +25,7 @@
  */
 package uk.ac.manchester.tornado.runtime.graph;
 
+import java.lang.reflect.Method;
 import java.nio.ByteBuffer;
 import java.util.BitSet;
 import java.util.List;
@@ -47,7 +48,6 @@ import uk.ac.manchester.tornado.runtime.graph.nodes.DependentReadNode;
 import uk.ac.manchester.tornado.runtime.graph.nodes.ObjectNode;
 import uk.ac.manchester.tornado.runtime.graph.nodes.StreamInNode;
 import uk.ac.manchester.tornado.runtime.graph.nodes.TaskNode;
-import uk.ac.manchester.tornado.runtime.sketcher.Sketch;
 import uk.ac.manchester.tornado.runtime.sketcher.TornadoSketcher;
 import uk.ac.manchester.tornado.runtime.tasks.CompilableTask;
 import uk.ac.manchester.tornado.runtime.tasks.LocalObjectState;
@@ -207,9 +207,9 @@ public class TornadoGraphBuilder {
                 context.addUse(persist);
 
                 if (task instanceof CompilableTask) {
-                    final ResolvedJavaMethod resolvedMethod = TornadoCoreRuntime.getTornadoRuntime().resolveMethod(((CompilableTask) task).getMethod());
-                    Sketch sketch = TornadoSketcher.lookup(resolvedMethod, task.meta().getDriverIndex(), task.meta().getDeviceIndex());
-                    accesses = sketch.getArgumentsAccess();
+                    final Method method = ((CompilableTask) task).getMethod();
+                    final ResolvedJavaMethod resolvedMethod = TornadoCoreRuntime.getTornadoRuntime().resolveMethod(method);
+                    accesses = TornadoSketcher.lookupArgumentsAccess(method, resolvedMethod, task.meta().getDriverIndex(), task.meta().getDeviceIndex());
                 } else {
                     accesses = task.getArgumentsAccess();
                 }
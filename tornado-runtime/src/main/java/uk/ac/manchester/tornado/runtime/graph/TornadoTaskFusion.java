@@ -0,0 +1,422 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2023, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.runtime.graph;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.graalvm.compiler.graph.Node;
+import org.graalvm.compiler.nodes.ConstantNode;
+import org.graalvm.compiler.nodes.FrameState;
+import org.graalvm.compiler.nodes.ParameterNode;
+import org.graalvm.compiler.nodes.PiNode;
+import org.graalvm.compiler.nodes.StructuredGraph;
+import org.graalvm.compiler.nodes.ValueNode;
+import org.graalvm.compiler.nodes.ValuePhiNode;
+import org.graalvm.compiler.nodes.calc.IsNullNode;
+import org.graalvm.compiler.nodes.java.AccessIndexedNode;
+import org.graalvm.compiler.nodes.java.ArrayLengthNode;
+
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+import uk.ac.manchester.tornado.api.KernelContext;
+import uk.ac.manchester.tornado.api.common.Access;
+import uk.ac.manchester.tornado.api.common.SchedulableTask;
+import uk.ac.manchester.tornado.api.data.nativetypes.TornadoNativeArray;
+import uk.ac.manchester.tornado.api.enums.TornadoVMBackendType;
+import uk.ac.manchester.tornado.runtime.TornadoCoreRuntime;
+import uk.ac.manchester.tornado.runtime.common.PersistentKernelCache;
+import uk.ac.manchester.tornado.runtime.common.TornadoAcceleratorDevice;
+import uk.ac.manchester.tornado.runtime.common.TornadoLogger;
+import uk.ac.manchester.tornado.runtime.graal.nodes.ParallelRangeNode;
+import uk.ac.manchester.tornado.runtime.sketcher.Sketch;
+import uk.ac.manchester.tornado.runtime.sketcher.TornadoSketcher;
+import uk.ac.manchester.tornado.runtime.tasks.CompilableTask;
+import uk.ac.manchester.tornado.runtime.tasks.FusedTask;
+import uk.ac.manchester.tornado.runtime.tasks.TornadoGraphBitcodes;
+
+/**
+ * Graph-level pass that fuses chains of element-wise tasks into a single
+ * {@link FusedTask}. It runs over the high-level bitcodes of a task-graph,
+ * before the {@link TornadoGraph} is built, and it merges consecutive tasks
+ * when:
+ *
+ * <ul>
+ * <li>Both tasks are compiled by the OpenCL backend for the same device.</li>
+ * <li>Both tasks have a single parallel loop with the same offset, stride and
+ * range.</li>
+ * <li>The consumer shares an object with the chain that at least one of them
+ * writes, and both tasks access the shared objects only at the index of the
+ * parallel loop, so there is no dependence across iterations.</li>
+ * </ul>
+ *
+ * The arguments of a chain are merged into a single launch. An intermediate
+ * array that is first written by the chain is only allocated on the device, and
+ * it is only copied back if it is transferred to the host.
+ */
+public final class TornadoTaskFusion {
+
+    private TornadoTaskFusion() {
+    }
+
+    private static final class TaskBlock {
+        private final int globalTaskId;
+        private final int taskIndex;
+        private final byte[] operations;
+        private final int[] variables;
+
+        private CompilableTask task;
+        private Access[] accesses;
+        private StructuredGraph graph;
+        private ValueNode inductionVariable;
+        private int[] iterationSpace;
+
+        private TaskBlock(int globalTaskId, int taskIndex, byte[] operations, int[] variables) {
+            this.globalTaskId = globalTaskId;
+            this.taskIndex = taskIndex;
+            this.operations = operations;
+            this.variables = variables;
+        }
+
+        private boolean isElementWise() {
+            return task != null;
+        }
+
+        private boolean isReference(int argIndex) {
+            return operations[argIndex] == TornadoGraphBitcodes.LOAD_REF.index();
+        }
+
+        private boolean writes(int argIndex) {
+            return (accesses[argIndex].position & Access.WRITE_ONLY.position) != 0;
+        }
+
+        private boolean isAccessedAtInductionVariable(int argIndex) {
+            ParameterNode parameter = graph.getParameter(argIndex);
+            return parameter == null || TornadoTaskFusion.isAccessedAtInductionVariable(parameter, inductionVariable);
+        }
+    }
+
+    /**
+     * It puts back the first task of each {@link FusedTask} into the execution
+     * context, so the task-graph can be fused again when it is recompiled.
+     *
+     * @param executionContext
+     *            The {@link TornadoExecutionContext} of the task-graph.
+     */
+    public static void restoreFusedTasks(TornadoExecutionContext executionContext) {
+        List<SchedulableTask> tasks = executionContext.getTasks();
+        for (int i = 0; i < tasks.size(); i++) {
+            if (tasks.get(i) instanceof FusedTask) {
+                FusedTask fusedTask = (FusedTask) tasks.get(i);
+                executionContext.setTask(i, fusedTask.getTasks().get(0).mapTo(fusedTask.getDevice()));
+            }
+        }
+    }
+
+    /**
+     * It fuses the chains of element-wise tasks of a task-graph. Each chain is
+     * replaced in the execution context by a {@link FusedTask} at the index of its
+     * first task, and the bitcodes of the chain are replaced by a single launch.
+     *
+     * @param executionContext
+     *            The {@link TornadoExecutionContext} of the task-graph.
+     * @param buffer
+     *            High-level bitcodes of the task-graph.
+     * @return The bitcodes of the fused task-graph, or the input buffer if no
+     *         tasks can be fused.
+     */
+    public static ByteBuffer fuseTasks(TornadoExecutionContext executionContext, ByteBuffer buffer) {
+        if (executionContext.getBatchSize() != -1 || executionContext.isDataParallelSplit()) {
+            return buffer;
+        }
+
+        final List<TaskBlock> blocks = readTaskBlocks(buffer);
+        if (blocks == null || blocks.size() < 2) {
+            return buffer;
+        }
+
+        blocks.forEach(block -> analyseTask(executionContext, block));
+
+        final List<List<TaskBlock>> chains = new ArrayList<>();
+        List<TaskBlock> chain = new ArrayList<>();
+        for (TaskBlock block : blocks) {
+            if (!chain.isEmpty() && !canFuse(executionContext, chain, block)) {
+                chains.add(chain);
+                chain = new ArrayList<>();
+            }
+            chain.add(block);
+        }
+        chains.add(chain);
+
+        if (chains.size() == blocks.size()) {
+            return buffer;
+        }
+
+        final ByteBuffer fusedBuffer = ByteBuffer.allocate(buffer.limit());
+        fusedBuffer.order(ByteOrder.LITTLE_ENDIAN);
+        for (List<TaskBlock> taskChain : chains) {
+            if (taskChain.size() == 1) {
+                TaskBlock block = taskChain.get(0);
+                writeTaskBlock(fusedBuffer, block.globalTaskId, block.taskIndex, block.operations, block.variables);
+            } else {
+                fuseChain(executionContext, fusedBuffer, taskChain);
+            }
+        }
+        fusedBuffer.flip();
+        return fusedBuffer;
+    }
+
+    private static void fuseChain(TornadoExecutionContext executionContext, ByteBuffer fusedBuffer, List<TaskBlock> chain) {
+        final List<Byte> operations = new ArrayList<>();
+        final List<Integer> variables = new ArrayList<>();
+        final List<Object> args = new ArrayList<>();
+        final List<Access> accesses = new ArrayList<>();
+        final int[][] argumentIndexes = new int[chain.size()][];
+
+        for (int k = 0; k < chain.size(); k++) {
+            final TaskBlock block = chain.get(k);
+            final Object[] taskArgs = block.task.getArguments();
+            argumentIndexes[k] = new int[block.operations.length];
+            for (int i = 0; i < block.operations.length; i++) {
+                int index = indexOfArgument(operations, variables, block.operations[i], block.variables[i]);
+                if (index == -1) {
+                    index = args.size();
+                    operations.add(block.operations[i]);
+                    variables.add(block.variables[i]);
+                    args.add(taskArgs[i]);
+                    accesses.add(block.accesses[i]);
+                } else if (accesses.get(index) != Access.WRITE_ONLY) {
+                    // An object written by a previous task of the chain is not copied in
+                    accesses.set(index, Access.asArray()[accesses.get(index).position | block.accesses[i].position]);
+                }
+                argumentIndexes[k][i] = index;
+            }
+        }
+
+        final TaskBlock first = chain.get(0);
+        final List<CompilableTask> tasks = chain.stream().map(block -> block.task).collect(Collectors.toList());
+        final FusedTask fusedTask = new FusedTask(tasks, args.toArray(), accesses.toArray(new Access[0]), argumentIndexes);
+        executionContext.setTask(first.taskIndex, fusedTask);
+        TornadoLogger.info("[%s]: tasks %s fused into %s", TornadoTaskFusion.class.getSimpleName(), tasks.stream().map(CompilableTask::getId).collect(Collectors.joining(", ")), fusedTask.getTaskName());
+
+        final byte[] fusedOperations = new byte[operations.size()];
+        final int[] fusedVariables = new int[variables.size()];
+        for (int i = 0; i < fusedOperations.length; i++) {
+            fusedOperations[i] = operations.get(i);
+            fusedVariables[i] = variables.get(i);
+        }
+        writeTaskBlock(fusedBuffer, first.globalTaskId, first.taskIndex, fusedOperations, fusedVariables);
+    }
+
+    private static int indexOfArgument(List<Byte> operations, List<Integer> variables, byte operation, int variable) {
+        for (int i = 0; i < operations.size(); i++) {
+            if (operations.get(i) == operation && variables.get(i) == variable) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean canFuse(TornadoExecutionContext executionContext, List<TaskBlock> chain, TaskBlock block) {
+        final TaskBlock first = chain.get(0);
+        if (!first.isElementWise() || !block.isElementWise()) {
+            return false;
+        }
+        if (executionContext.getDeviceIndexForTask(first.globalTaskId) != executionContext.getDeviceIndexForTask(block.globalTaskId)) {
+            return false;
+        }
+        if (!Arrays.equals(first.iterationSpace, block.iterationSpace) || chain.stream().anyMatch(b -> b.taskIndex == block.taskIndex)) {
+            return false;
+        }
+
+        boolean isConsumer = false;
+        for (int i = 0; i < block.operations.length; i++) {
+            if (!block.isReference(i)) {
+                continue;
+            }
+            for (TaskBlock producer : chain) {
+                for (int j = 0; j < producer.operations.length; j++) {
+                    if (producer.isReference(j) && producer.variables[j] == block.variables[i] && (producer.writes(j) || block.writes(i))) {
+                        if (!producer.isAccessedAtInductionVariable(j) || !block.isAccessedAtInductionVariable(i)) {
+                            return false;
+                        }
+                        isConsumer = true;
+                    }
+                }
+            }
+        }
+        return isConsumer;
+    }
+
+    private static void analyseTask(TornadoExecutionContext executionContext, TaskBlock block) {
+        final SchedulableTask schedulableTask = executionContext.getTask(block.taskIndex);
+        if (!(schedulableTask instanceof CompilableTask)) {
+            return;
+        }
+        final CompilableTask task = (CompilableTask) schedulableTask;
+        final Method method = task.getMethod();
+        final Object[] args = task.getArguments();
+        if (!Modifier.isStatic(method.getModifiers()) || PersistentKernelCache.hasReduceParameters(method) || args.length != block.operations.length) {
+            return;
+        }
+        for (Object arg : args) {
+            if (arg instanceof KernelContext || arg instanceof AtomicInteger) {
+                return;
+            }
+        }
+
+        final TornadoAcceleratorDevice device = task.getDevice();
+        final TornadoVMBackendType backend = device.getTornadoVMBackend();
+        if ((backend != TornadoVMBackendType.OPENCL && backend != TornadoVMBackendType.VIRTUAL) || device.getDeviceContext().isPlatformFPGA()) {
+            return;
+        }
+
+        final ResolvedJavaMethod resolvedMethod = TornadoCoreRuntime.getTornadoRuntime().resolveMethod(method);
+        final Sketch sketch = TornadoSketcher.lookupOrBuild(resolvedMethod, task.meta().getDriverIndex(), task.meta().getDeviceIndex());
+        final StructuredGraph graph = (StructuredGraph) sketch.getGraph().getReadonlyCopy();
+
+        // Calls that are not inlined are compiled as separate functions
+        if (graph.getInvokes().iterator().hasNext()) {
+            return;
+        }
+
+        final List<ParallelRangeNode> ranges = graph.getNodes().filter(ParallelRangeNode.class).snapshot();
+        if (ranges.size() != 1) {
+            return;
+        }
+        final ParallelRangeNode range = ranges.get(0);
+        final ValuePhiNode inductionVariable = range.offset().usages().filter(ValuePhiNode.class).first();
+        final int[] iterationSpace = new int[] { resolveInt(range.offset().value(), args), resolveInt(range.stride().value(), args), resolveInt(range.value(), args) };
+        if (inductionVariable == null || Arrays.stream(iterationSpace).anyMatch(value -> value == Integer.MIN_VALUE)) {
+            return;
+        }
+
+        block.task = task;
+        block.accesses = sketch.getArgumentsAccess();
+        block.graph = graph;
+        block.inductionVariable = inductionVariable;
+        block.iterationSpace = iterationSpace;
+    }
+
+    /**
+     * It resolves a bound of a parallel loop with the arguments of the task. The
+     * bound can be a constant, a scalar parameter or the length of an array
+     * parameter.
+     */
+    private static int resolveInt(ValueNode value, Object[] args) {
+        final ValueNode node = unproxify(value);
+        if (node instanceof ConstantNode) {
+            return node.asJavaConstant().asInt();
+        } else if (node instanceof ParameterNode) {
+            Object arg = args[((ParameterNode) node).index()];
+            return (arg instanceof Integer) ? (Integer) arg : Integer.MIN_VALUE;
+        } else if (node instanceof ArrayLengthNode) {
+            ValueNode array = unproxify(((ArrayLengthNode) node).array());
+            if (array instanceof ParameterNode) {
+                Object arg = args[((ParameterNode) array).index()];
+                if (arg instanceof TornadoNativeArray) {
+                    final long numElements = ((TornadoNativeArray) arg).getNumberOfElements();
+                    return (numElements <= Integer.MAX_VALUE) ? (int) numElements : Integer.MIN_VALUE;
+                } else if (arg != null && arg.getClass().isArray()) {
+                    return Array.getLength(arg);
+                }
+            }
+        }
+        return Integer.MIN_VALUE;
+    }
+
+    private static ValueNode unproxify(ValueNode value) {
+        ValueNode node = value;
+        while (node instanceof PiNode) {
+            node = ((PiNode) node).object();
+        }
+        return node;
+    }
+
+    private static boolean isAccessedAtInductionVariable(ValueNode node, ValueNode inductionVariable) {
+        for (Node usage : node.usages()) {
+            if (usage instanceof PiNode) {
+                if (!isAccessedAtInductionVariable((PiNode) usage, inductionVariable)) {
+                    return false;
+                }
+            } else if (usage instanceof AccessIndexedNode) {
+                AccessIndexedNode access = (AccessIndexedNode) usage;
+                if (access.array() != node || access.index() != inductionVariable) {
+                    return false;
+                }
+            } else if (!(usage instanceof ArrayLengthNode || usage instanceof IsNullNode || usage instanceof FrameState)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<TaskBlock> readTaskBlocks(ByteBuffer buffer) {
+        final ByteBuffer reader = buffer.duplicate();
+        reader.order(ByteOrder.LITTLE_ENDIAN);
+        final List<TaskBlock> blocks = new ArrayList<>();
+        while (reader.hasRemaining()) {
+            if (reader.get() != TornadoGraphBitcodes.CONTEXT.index()) {
+                return null;
+            }
+            final int globalTaskId = reader.getInt();
+            final int taskIndex = reader.getInt();
+            if (reader.get() != TornadoGraphBitcodes.ARG_LIST.index()) {
+                return null;
+            }
+            final int numArgs = reader.getInt();
+            final byte[] operations = new byte[numArgs];
+            final int[] variables = new int[numArgs];
+            for (int i = 0; i < numArgs; i++) {
+                operations[i] = reader.get();
+                variables[i] = reader.getInt();
+            }
+            if (reader.get() != TornadoGraphBitcodes.LAUNCH.index()) {
+                return null;
+            }
+            blocks.add(new TaskBlock(globalTaskId, taskIndex, operations, variables));
+        }
+        return blocks;
+    }
+
+    private static void writeTaskBlock(ByteBuffer buffer, int globalTaskId, int taskIndex, byte[] operations, int[] variables) {
+        buffer.put(TornadoGraphBitcodes.CONTEXT.index());
+        buffer.putInt(globalTaskId);
+        buffer.putInt(taskIndex);
+        buffer.put(TornadoGraphBitcodes.ARG_LIST.index());
+        buffer.putInt(operations.length);
+        for (int i = 0; i < operations.length; i++) {
+            buffer.put(operations[i]);
+            buffer.putInt(variables[i]);
+        }
+        buffer.put(TornadoGraphBitcodes.LAUNCH.index());
+    }
+}
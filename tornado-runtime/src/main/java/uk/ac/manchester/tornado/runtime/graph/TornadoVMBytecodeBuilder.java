@@ -27,8 +27,12 @@ import static uk.ac.manchester.tornado.runtime.common.Tornado.getProperty;
 
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
+import uk.ac.manchester.tornado.runtime.common.BatchConfiguration;
 import uk.ac.manchester.tornado.runtime.common.RuntimeUtilities;
 import uk.ac.manchester.tornado.runtime.common.TornadoLogger;
 import uk.ac.manchester.tornado.runtime.graph.nodes.AbstractNode;
@@ -82,6 +86,21 @@ public class TornadoVMBytecodeBuilder {
         bitcodeASM.barrier(dep);
     }
 
+    /**
+     * It opens a loop over the chunks of a batched execution. The bytecodes
+     * emitted until {@link #batchEnd()} are executed once per chunk.
+     *
+     * @param batchSize
+     *            Batch size in bytes.
+     */
+    public void batchBegin(long batchSize) {
+        bitcodeASM.batchBegin(batchSize);
+    }
+
+    public void batchEnd() {
+        bitcodeASM.batchEnd();
+    }
+
     public void end() {
         bitcodeASM.end();
     }
@@ -90,46 +109,93 @@ public class TornadoVMBytecodeBuilder {
         globalTaskID++;
     }
 
-    void emitAsyncNode(AbstractNode node, int contextID, int dependencyBC, long offset, long batchSize, long nThreads) {
+    /**
+     * It emits the bytecode for an async node. When batches are enabled, each
+     * object is transferred with its own offset and size for the given chunk.
+     *
+     * @param batchConfiguration
+     *            The {@link BatchConfiguration}, or {@code null} if batches are
+     *            not enabled.
+     * @param chunk
+     *            The index of the chunk to emit.
+     */
+    void emitAsyncNode(AbstractNode node, int contextID, int dependencyBC, BatchConfiguration batchConfiguration, int chunk) {
         if (node instanceof AllocateMultipleBuffersNode) {
-            bitcodeASM.allocate(((AllocateMultipleBuffersNode) node).getValues(), contextID, batchSize);
+            emitAllocations(((AllocateMultipleBuffersNode) node).getValues(), contextID, batchConfiguration, chunk);
         } else if (node instanceof CopyInNode) {
-            bitcodeASM.transferToDeviceOnce(((CopyInNode) node).getValue().getIndex(), contextID, dependencyBC, offset, batchSize);
+            final int objectIndex = ((CopyInNode) node).getValue().getIndex();
+            bitcodeASM.transferToDeviceOnce(getObjectOperand(batchConfiguration, objectIndex, chunk), contextID, dependencyBC, getOffset(batchConfiguration, objectIndex, chunk), getChunkSize(batchConfiguration, objectIndex, chunk));
         } else if (node instanceof AllocateNode) {
             TornadoLogger.info("[%s]: Skipping deprecated node %s", getClass().getSimpleName(), AllocateNode.class.getSimpleName());
         } else if (node instanceof CopyOutNode) {
             ObjectNode value = ((CopyOutNode) node).getValue().getValue();
             if (value != null) {
-                bitcodeASM.transferToHost(value.getIndex(), contextID, dependencyBC, offset, batchSize);
+                final int objectIndex = value.getIndex();
+                bitcodeASM.transferToHost(getObjectOperand(batchConfiguration, objectIndex, chunk), contextID, dependencyBC, getOffset(batchConfiguration, objectIndex, chunk), getChunkSize(batchConfiguration, objectIndex, chunk));
             }
         } else if (node instanceof StreamInNode) {
-            bitcodeASM.transferToDeviceAlways(((StreamInNode) node).getValue().getIndex(), contextID, dependencyBC, offset, batchSize);
+            final int objectIndex = ((StreamInNode) node).getValue().getIndex();
+            bitcodeASM.transferToDeviceAlways(getObjectOperand(batchConfiguration, objectIndex, chunk), contextID, dependencyBC, getOffset(batchConfiguration, objectIndex, chunk), getChunkSize(batchConfiguration, objectIndex, chunk));
         } else if (node instanceof DeallocateNode) {
-            bitcodeASM.deallocate(((DeallocateNode) node).getValue().getIndex(), contextID);
+            final int objectIndex = ((DeallocateNode) node).getValue().getIndex();
+            bitcodeASM.deallocate(getObjectOperand(batchConfiguration, objectIndex, chunk), contextID);
         } else if (node instanceof TaskNode) {
             final TaskNode taskNode = (TaskNode) node;
-            bitcodeASM.launch(globalTaskID, taskNode.getContext().getDeviceIndex(), taskNode.getTaskIndex(), taskNode.getNumArgs(), dependencyBC, offset, nThreads);
-            emitArgList(taskNode);
+            final long threadOffset = batchConfiguration == null ? 0 : chunk * batchConfiguration.getElementsPerChunk();
+            final long nThreads = batchConfiguration == null ? 0 : batchConfiguration.getNumThreads(chunk);
+            bitcodeASM.launch(globalTaskID, taskNode.getContext().getDeviceIndex(), taskNode.getTaskIndex(), taskNode.getNumArgs(), dependencyBC, threadOffset, nThreads);
+            emitArgList(taskNode, batchConfiguration, chunk);
             incrementGlobalTaskIndex();
         }
     }
 
-    private void emitArgList(TaskNode taskNode) {
+    /**
+     * Objects with different chunk sizes (e.g., streamed arrays with different
+     * element types, or broadcast objects) are allocated by separate ALLOC
+     * bytecodes, one per chunk size.
+     */
+    private void emitAllocations(List<AbstractNode> values, int contextID, BatchConfiguration batchConfiguration, int chunk) {
+        Map<Long, List<Integer>> operandsPerChunkSize = new LinkedHashMap<>();
+        for (AbstractNode value : values) {
+            long chunkSize = getChunkSize(batchConfiguration, value.getIndex(), chunk);
+            operandsPerChunkSize.computeIfAbsent(chunkSize, size -> new ArrayList<>()).add(getObjectOperand(batchConfiguration, value.getIndex(), chunk));
+        }
+        operandsPerChunkSize.forEach((chunkSize, operands) -> bitcodeASM.allocate(operands, contextID, chunkSize));
+    }
+
+    /**
+     * Object operands also encode the device buffer slot used for the chunk (see
+     * {@link TornadoVMBytecodes#encodeObjectOperand}).
+     */
+    private static int getObjectOperand(BatchConfiguration batchConfiguration, int objectIndex, int chunk) {
+        final int bufferSlot = batchConfiguration == null ? 0 : batchConfiguration.getBufferSlot(objectIndex, chunk);
+        return TornadoVMBytecodes.encodeObjectOperand(objectIndex, bufferSlot);
+    }
+
+    private static long getOffset(BatchConfiguration batchConfiguration, int objectIndex, int chunk) {
+        return batchConfiguration == null ? 0 : batchConfiguration.getOffset(objectIndex, chunk);
+    }
+
+    private static long getChunkSize(BatchConfiguration batchConfiguration, int objectIndex, int chunk) {
+        return batchConfiguration == null ? 0 : batchConfiguration.getChunkSize(objectIndex, chunk);
+    }
+
+    private void emitArgList(TaskNode taskNode, BatchConfiguration batchConfiguration, int chunk) {
         final int numArgs = taskNode.getNumArgs();
         for (int i = 0; i < numArgs; i++) {
             final AbstractNode argNode = taskNode.getArg(i);
             if (argNode instanceof ConstantNode) {
                 bitcodeASM.constantArg(argNode.getIndex());
             } else if (argNode instanceof CopyInNode) {
-                bitcodeASM.referenceArg(((CopyInNode) argNode).getValue().getIndex());
+                bitcodeASM.referenceArg(getObjectOperand(batchConfiguration, ((CopyInNode) argNode).getValue().getIndex(), chunk));
             } else if (argNode instanceof StreamInNode) {
-                bitcodeASM.referenceArg(((StreamInNode) argNode).getValue().getIndex());
+                bitcodeASM.referenceArg(getObjectOperand(batchConfiguration, ((StreamInNode) argNode).getValue().getIndex(), chunk));
             } else if (argNode instanceof CopyOutNode) {
-                bitcodeASM.referenceArg(((CopyOutNode) argNode).getValue().getValue().getIndex());
+                bitcodeASM.referenceArg(getObjectOperand(batchConfiguration, ((CopyOutNode) argNode).getValue().getValue().getIndex(), chunk));
             } else if (argNode instanceof AllocateNode) {
-                bitcodeASM.referenceArg(((AllocateNode) argNode).getValue().getIndex());
+                bitcodeASM.referenceArg(getObjectOperand(batchConfiguration, ((AllocateNode) argNode).getValue().getIndex(), chunk));
             } else if (argNode instanceof DependentReadNode) {
-                bitcodeASM.referenceArg(((DependentReadNode) argNode).getValue().getIndex());
+                bitcodeASM.referenceArg(getObjectOperand(batchConfiguration, ((DependentReadNode) argNode).getValue().getIndex(), chunk));
             }
         }
     }
@@ -193,13 +259,13 @@ public class TornadoVMBytecodeBuilder {
             buffer.putInt(index);
         }
 
-        public void allocate(List<AbstractNode> values, int ctx, long batchSize) {
+        public void allocate(List<Integer> objectOperands, int ctx, long batchSize) {
             buffer.put(TornadoVMBytecodes.ALLOC.value);
             buffer.putInt(ctx);
             buffer.putLong(batchSize);
-            buffer.putInt(values.size());
-            for (AbstractNode node : values) {
-                buffer.putInt(node.getIndex());
+            buffer.putInt(objectOperands.size());
+            for (int objectOperand : objectOperands) {
+                buffer.putInt(objectOperand);
             }
         }
 
@@ -252,6 +318,15 @@ public class TornadoVMBytecodeBuilder {
             buffer.putInt(dep);
         }
 
+        void batchBegin(long batchSize) {
+            buffer.put(TornadoVMBytecodes.BATCH_BEGIN.value);
+            buffer.putLong(batchSize);
+        }
+
+        void batchEnd() {
+            buffer.put(TornadoVMBytecodes.BATCH_END.value);
+        }
+
         void constantArg(int index) {
             buffer.put(TornadoVMBytecodes.PUSH_CONSTANT_ARGUMENT.value);
             buffer.putInt(index);
@@ -191,7 +191,52 @@ public enum TornadoVMBytecodes {
      * DEALLOC(obj,dest)
      * </code>
      */
-    DEALLOC((byte) 24);
+    DEALLOC((byte) 24),
+
+    /**
+     * Beginning of a loop over the chunks of a batched execution. The interpreter
+     * computes the number of chunks from the batch size and the current size of
+     * the objects of the task-graph. The ALLOC, TRANSFER_* and LAUNCH bytecodes
+     * between BATCH_BEGIN and BATCH_END take their offset and size from the
+     * current chunk, and not from their operands.
+     * <p>
+     * Format:
+     *
+     * <code>
+     * BATCH_BEGIN(batch size in bytes)
+     * </code>
+     */
+    BATCH_BEGIN((byte) 25),
+
+    /**
+     * End of a loop over the chunks of a batched execution. If there are chunks
+     * left, the interpreter moves to the next chunk and continues after the
+     * matching BATCH_BEGIN.
+     * <p>
+     * Format:
+     *
+     * <code>
+     * BATCH_END
+     * </code>
+     */
+    BATCH_END((byte) 26);
+
+    /**
+     * Object operands (of ALLOC, DEALLOC, TRANSFER_* and PUSH_REFERENCE_ARGUMENT)
+     * keep the device buffer slot in the upper bits. Slot 0 is the default buffer
+     * of an object. Other slots are only used by pipelined batches, in which each
+     * streamed object has several device buffers.
+     */
+    private static final int BUFFER_SLOT_SHIFT = 24;
+    private static final int OBJECT_INDEX_MASK = (1 << BUFFER_SLOT_SHIFT) - 1;
+
+    private static final TornadoVMBytecodes[] BYTECODES_BY_VALUE = new TornadoVMBytecodes[Byte.MAX_VALUE + 1];
+
+    static {
+        for (TornadoVMBytecodes bytecode : values()) {
+            BYTECODES_BY_VALUE[bytecode.value] = bytecode;
+        }
+    }
 
     final byte value;
 
@@ -202,4 +247,28 @@ public enum TornadoVMBytecodes {
     public byte value() {
         return value;
     }
+
+    /**
+     * It returns the bytecode that corresponds to an encoded value.
+     *
+     * @param value
+     *            Encoded value of the bytecode.
+     * @return The {@link TornadoVMBytecodes}, or null if the value does not
+     *         correspond to any bytecode.
+     */
+    public static TornadoVMBytecodes fromValue(byte value) {
+        return (value < 0) ? null : BYTECODES_BY_VALUE[value];
+    }
+
+    public static int encodeObjectOperand(int objectIndex, int bufferSlot) {
+        return (bufferSlot << BUFFER_SLOT_SHIFT) | objectIndex;
+    }
+
+    public static int decodeObjectIndex(int operand) {
+        return operand & OBJECT_INDEX_MASK;
+    }
+
+    public static int decodeBufferSlot(int operand) {
+        return operand >>> BUFFER_SLOT_SHIFT;
+    }
 }
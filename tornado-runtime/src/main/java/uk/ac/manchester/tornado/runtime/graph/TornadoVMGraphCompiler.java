@@ -25,8 +25,10 @@
 package uk.ac.manchester.tornado.runtime.graph;
 
 import java.nio.BufferOverflowException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.BitSet;
+import java.util.List;
 
 import uk.ac.manchester.tornado.api.exceptions.TornadoRuntimeException;
 import uk.ac.manchester.tornado.runtime.common.BatchConfiguration;
@@ -34,7 +36,12 @@ import uk.ac.manchester.tornado.runtime.common.Tornado;
 import uk.ac.manchester.tornado.runtime.common.TornadoOptions;
 import uk.ac.manchester.tornado.runtime.graph.nodes.AbstractNode;
 import uk.ac.manchester.tornado.runtime.graph.nodes.ContextOpNode;
+import uk.ac.manchester.tornado.runtime.graph.nodes.CopyInNode;
+import uk.ac.manchester.tornado.runtime.graph.nodes.CopyOutNode;
+import uk.ac.manchester.tornado.runtime.graph.nodes.DeallocateNode;
 import uk.ac.manchester.tornado.runtime.graph.nodes.DependentReadNode;
+import uk.ac.manchester.tornado.runtime.graph.nodes.StreamInNode;
+import uk.ac.manchester.tornado.runtime.graph.nodes.TaskNode;
 
 public class TornadoVMGraphCompiler {
     /**
@@ -53,7 +60,14 @@ public class TornadoVMGraphCompiler {
     private static TornadoVMBytecodeResult[] compileTornadoGraphToTornadoBytecodes(TornadoGraph graph, TornadoExecutionContext executionContext) {
         final boolean isSingleContextCompilation = shouldGenerateSingleBytecode(executionContext);
 
-        final int numContexts = isSingleContextCompilation ? 1 : executionContext.getValidContextSize();
+        final int numContexts;
+        if (executionContext.isDataParallelSplit()) {
+            // One bytecode per device of the split. The interpreter of each device
+            // applies the slices of its partition
+            numContexts = executionContext.getDataParallelSplit().getNumDevices();
+        } else {
+            numContexts = isSingleContextCompilation ? 1 : executionContext.getValidContextSize();
+        }
 
         final BitSet asyncNodes = graph.filter(ContextOpNode.class::isInstance);
 
@@ -65,24 +79,40 @@ public class TornadoVMGraphCompiler {
 
         Tornado.debug("Compiling bytecodes...");
 
+        final BatchConfiguration batchConfiguration = (executionContext.getBatchSize() == -1) ? null
+                : BatchConfiguration.computeChunkSizes(executionContext, executionContext.getBatchSize(), TornadoOptions.getBatchPipelineBuffers());
+
+        // Pipelined batches use additional event lists to pass events between stages
+        final int numEventLists = intermediateTornadoGraph.getNumberOfDependencies() + 1;
+        final BatchPipelineSchedule schedule = (batchConfiguration != null && batchConfiguration.isPipelined())
+                ? new BatchPipelineSchedule(batchConfiguration.getNumChunksToSchedule(), batchConfiguration.getNumBuffers(), numEventLists)
+                : null;
+        final int numPipelineEventLists = (schedule != null) ? BatchPipelineSchedule.getNumEventLists(schedule.getNumBuffers()) : 0;
+
         for (int i = 0; i < tornadoVMBytecodeResults.length; i++) {
 
             TornadoVMBytecodeBuilder tornadoVMBytecodeBuilder = new TornadoVMBytecodeBuilder(isSingleContextCompilation);
 
             // Generate Context + BEGIN bytecode
-            tornadoVMBytecodeBuilder.begin(1, 1, intermediateTornadoGraph.getNumberOfDependencies() + 1);
+            tornadoVMBytecodeBuilder.begin(1, 1, numEventLists + numPipelineEventLists);
 
             // Generate bytecodes with no batches
-            if (executionContext.getBatchSize() == -1) {
-                scheduleAndEmitTornadoVMBytecodes(tornadoVMBytecodeBuilder, graph, intermediateTornadoGraph, 0, 0, 0, i);
+            if (batchConfiguration == null) {
+                scheduleAndEmitTornadoVMBytecodes(tornadoVMBytecodeBuilder, graph, intermediateTornadoGraph, null, 0, i);
+            } else if (schedule != null) {
+                // Generate bytecodes with overlapped batches
+                schedulePipelinedBatchBytecodes(batchConfiguration, schedule, tornadoVMBytecodeBuilder, graph, intermediateTornadoGraph);
             } else {
                 // Generate bytecodes with batches
-                scheduleBatchDependentBytecodes(executionContext, tornadoVMBytecodeBuilder, graph, intermediateTornadoGraph);
+                scheduleBatchDependentBytecodes(executionContext.getBatchSize(), tornadoVMBytecodeBuilder, graph, intermediateTornadoGraph);
             }
 
             // Last operation -> perform synchronisation
-            if (TornadoOptions.ENABLE_STREAM_OUT_BLOCKING) {
-                synchronizeOperationLastByteCode(tornadoVMBytecodeBuilder, intermediateTornadoGraph.getNumberOfDependencies());
+            if (schedule != null) {
+                // The copy-outs of the pipeline already block: wait for the last operation
+                tornadoVMBytecodeBuilder.barrier(schedule.getFinalEventList());
+            } else if (TornadoOptions.ENABLE_STREAM_OUT_BLOCKING) {
+                synchronizeOperationLastByteCode(tornadoVMBytecodeBuilder, intermediateTornadoGraph.getNumberOfDependencies(), batchConfiguration != null);
             } else {
                 tornadoVMBytecodeBuilder.barrier(intermediateTornadoGraph.getNumberOfDependencies());
             }
@@ -101,6 +131,13 @@ public class TornadoVMGraphCompiler {
     }
 
     private static boolean shouldGenerateSingleBytecode(TornadoExecutionContext executionContext) {
+        if (executionContext.isDataParallelSplit()) {
+            if (executionContext.getBatchSize() != -1) {
+                throw new TornadoRuntimeException("[UNSUPPORTED] Batches cannot be combined with a data-parallel split");
+            }
+            return true;
+        }
+
         boolean isSingleDeviceExecution = executionContext.getValidContextSize() == 1;
         boolean isBatchEnabled = executionContext.getBatchSize() != -1;
 
@@ -111,33 +148,131 @@ public class TornadoVMGraphCompiler {
         return isSingleDeviceExecution;
     }
 
-    private static void scheduleBatchDependentBytecodes(TornadoExecutionContext executionContext, TornadoVMBytecodeBuilder tornadoVMBytecodeBuilder, TornadoGraph graph,
-            IntermediateTornadoGraph intermediateTornadoGraph) {
-        final long batchSize = executionContext.getBatchSize();
+    /**
+     * It emits the bytecodes of a single chunk within a BATCH_BEGIN/BATCH_END
+     * loop. The interpreter computes the offset and size of each chunk when it
+     * runs the loop, so the size of the bytecodes does not depend on the number
+     * of chunks, and a different input size only changes the number of
+     * iterations.
+     */
+    private static void scheduleBatchDependentBytecodes(long batchSize, TornadoVMBytecodeBuilder tornadoVMBytecodeBuilder, TornadoGraph graph, IntermediateTornadoGraph intermediateTornadoGraph) {
+        tornadoVMBytecodeBuilder.batchBegin(batchSize);
+        scheduleAndEmitTornadoVMBytecodes(tornadoVMBytecodeBuilder, graph, intermediateTornadoGraph, null, 0, 1);
+        tornadoVMBytecodeBuilder.batchEnd();
+    }
+
+    /**
+     * It emits the bytecodes of all chunks following a {@link BatchPipelineSchedule}.
+     * The nodes of the task-graph are split into the copy-in, compute and copy-out
+     * stages, keeping the order of the sequential schedule within each stage. The
+     * dependencies between stages are given by the schedule.
+     */
+    private static void schedulePipelinedBatchBytecodes(BatchConfiguration batchConfiguration, BatchPipelineSchedule schedule, TornadoVMBytecodeBuilder tornadoVMBytecodeBuilder,
+            TornadoGraph graph, IntermediateTornadoGraph intermediateTornadoGraph) {
+        final List<ContextOpNode> transferInNodes = new ArrayList<>();
+        final List<ContextOpNode> computeNodes = new ArrayList<>();
+        final List<ContextOpNode> transferOutNodes = new ArrayList<>();
+        for (int nodeId : computeScheduleOrder(graph, intermediateTornadoGraph)) {
+            final ContextOpNode node = (ContextOpNode) graph.getNode(nodeId);
+            if (node instanceof TaskNode) {
+                computeNodes.add(node);
+            } else if (node instanceof CopyOutNode || node instanceof DeallocateNode) {
+                transferOutNodes.add(node);
+            } else if (!(node instanceof DependentReadNode)) {
+                transferInNodes.add(node);
+            }
+        }
+
+        final boolean transferInEvents = transferInNodes.stream().anyMatch(TornadoVMGraphCompiler::producesEvent);
+        final boolean transferOutEvents = transferOutNodes.stream().anyMatch(TornadoVMGraphCompiler::producesEvent);
+        for (BatchPipelineSchedule.Step step : schedule.getSteps()) {
+            final List<ContextOpNode> nodes;
+            switch (step.getStage()) {
+                case TRANSFER_IN:
+                    nodes = transferInNodes;
+                    break;
+                case COMPUTE:
+                    nodes = computeNodes;
+                    break;
+                case TRANSFER_OUT:
+                    nodes = transferOutNodes;
+                    break;
+                default:
+                    throw new TornadoRuntimeException("[ERROR] Unknown batch pipeline stage: " + step.getStage());
+            }
+            emitPipelineStage(tornadoVMBytecodeBuilder, nodes, batchConfiguration, step.getChunk(), schedule.getEventList(step.getStage(), step.getSlot()),
+                    schedule.getSignalEventLists(step, transferInEvents, transferOutEvents));
+        }
+    }
 
-        BatchConfiguration batchConfiguration = BatchConfiguration.computeChunkSizes(executionContext, batchSize);
+    /**
+     * It emits the nodes of a stage for a chunk. The operations of the stage are
+     * chained through the event list of the stage, and the event of the last
+     * operation is registered in the event lists of the stages that depend on it.
+     */
+    private static void emitPipelineStage(TornadoVMBytecodeBuilder tornadoVMBytecodeBuilder, List<ContextOpNode> nodes, BatchConfiguration batchConfiguration, int chunk, int stageEventList,
+            List<Integer> signalEventLists) {
+        int lastEventNode = -1;
+        for (int i = 0; i < nodes.size(); i++) {
+            if (producesEvent(nodes.get(i))) {
+                lastEventNode = i;
+            }
+        }
+        for (int i = 0; i < nodes.size(); i++) {
+            final ContextOpNode node = nodes.get(i);
+            emitAsyncNode(tornadoVMBytecodeBuilder, node, stageEventList, batchConfiguration, chunk);
+            if (i == lastEventNode) {
+                signalEventLists.forEach(tornadoVMBytecodeBuilder::emitAddDependency);
+            } else if (producesEvent(node)) {
+                tornadoVMBytecodeBuilder.emitAddDependency(stageEventList);
+            }
+        }
+    }
 
-        assert batchConfiguration != null;
+    private static boolean producesEvent(ContextOpNode node) {
+        return node instanceof TaskNode || node instanceof CopyInNode || node instanceof StreamInNode || node instanceof CopyOutNode;
+    }
 
-        long offset = 0;
-        long nthreads = batchSize / batchConfiguration.getNumBytesType();
-        for (int i = 0; i < batchConfiguration.getTotalChunks(); i++) {
-            offset = (batchSize * i);
-            scheduleAndEmitTornadoVMBytecodes(tornadoVMBytecodeBuilder, graph, intermediateTornadoGraph, offset, batchSize, nthreads, 1);
+    private static void emitAsyncNode(TornadoVMBytecodeBuilder tornadoVMBytecodeBuilder, ContextOpNode asyncNode, int dependencyBC, BatchConfiguration batchConfiguration, int chunk) {
+        try {
+            tornadoVMBytecodeBuilder.emitAsyncNode(asyncNode, asyncNode.getContext().getDeviceIndex(), dependencyBC, batchConfiguration, chunk);
+        } catch (BufferOverflowException e) {
+            throw new TornadoRuntimeException("[ERROR] Buffer Overflow exception. Use -Dtornado.tvm.maxbytecodesize=<value> with value > " + TornadoVMBytecodeBuilder.MAX_TORNADO_VM_BYTECODE_SIZE
+                    + " to increase the buffer code size");
         }
-        // Last chunk
-        if (batchConfiguration.getRemainingChunkSize() != 0) {
-            offset += (batchSize);
-            nthreads = batchConfiguration.getRemainingChunkSize() / batchConfiguration.getNumBytesType();
-            long realBatchSize = batchConfiguration.getTotalChunks() == 0 ? 0 : batchConfiguration.getRemainingChunkSize();
-            long realOffsetSize = batchConfiguration.getTotalChunks() == 0 ? 0 : offset;
-            scheduleAndEmitTornadoVMBytecodes(tornadoVMBytecodeBuilder, graph, intermediateTornadoGraph, realOffsetSize, realBatchSize, nthreads, 1);
+    }
+
+    /**
+     * It returns the ids of the async nodes in the order in which they are
+     * scheduled for a sequential execution.
+     */
+    private static List<Integer> computeScheduleOrder(TornadoGraph graph, IntermediateTornadoGraph intermediateTornadoGraph) {
+        final int[] nodeIds = intermediateTornadoGraph.getNodeIds();
+        final BitSet[] dependencies = intermediateTornadoGraph.getDependencies();
+        final BitSet scheduled = new BitSet(dependencies.length);
+        final BitSet nodes = new BitSet(graph.getValid().length());
+        final List<Integer> order = new ArrayList<>();
+        while (scheduled.cardinality() < dependencies.length) {
+            for (int i = 0; i < dependencies.length; i++) {
+                if (!scheduled.get(i)) {
+                    final BitSet outstandingDeps = new BitSet(nodes.length());
+                    outstandingDeps.or(dependencies[i]);
+                    outstandingDeps.andNot(nodes);
+                    if (outstandingDeps.isEmpty()) {
+                        order.add(nodeIds[i]);
+                        scheduled.set(i);
+                        nodes.set(nodeIds[i]);
+                    }
+                }
+            }
         }
+        return order;
     }
 
-    private static void synchronizeOperationLastByteCode(TornadoVMBytecodeBuilder result, int numDepLists) {
+    private static void synchronizeOperationLastByteCode(TornadoVMBytecodeBuilder result, int numDepLists, boolean endsWithBatchLoop) {
         final byte[] code = result.getCode();
-        final int codeSize = result.getCodeSize();
+        // In a batch loop, the last transfer is the one before the BATCH_END bytecode
+        final int codeSize = endsWithBatchLoop ? result.getCodeSize() - 1 : result.getCodeSize();
         if (code[codeSize - 13] == TornadoVMBytecodes.TRANSFER_DEVICE_TO_HOST_ALWAYS.value()) {
             code[codeSize - 13] = TornadoVMBytecodes.TRANSFER_DEVICE_TO_HOST_ALWAYS_BLOCKING.value();
         } else if (code[codeSize - 29] == TornadoVMBytecodes.TRANSFER_DEVICE_TO_HOST_ALWAYS.value()) {
@@ -147,8 +282,8 @@ public class TornadoVMGraphCompiler {
         }
     }
 
-    private static void scheduleAndEmitTornadoVMBytecodes(TornadoVMBytecodeBuilder tornadoVMBytecodeBuilder, TornadoGraph graph, IntermediateTornadoGraph intermediateTornadoGraph, long offset,
-            long bufferBatchSize, long nThreads, int id) {
+    private static void scheduleAndEmitTornadoVMBytecodes(TornadoVMBytecodeBuilder tornadoVMBytecodeBuilder, TornadoGraph graph, IntermediateTornadoGraph intermediateTornadoGraph,
+            BatchConfiguration batchConfiguration, int chunk, int id) {
         final int[] nodeIds = intermediateTornadoGraph.getNodeIds();
         final BitSet[] dependencies = intermediateTornadoGraph.getDependencies();
 
@@ -180,13 +315,7 @@ public class TornadoVMGraphCompiler {
                         final ContextOpNode asyncNode = (ContextOpNode) graph.getNode(nodeIds[i]);
 
                         if (shouldEmitAsyncNodeForTheCurrentContext(id, asyncNode, tornadoVMBytecodeBuilder.isSingleContextBytecodeBuilder())) {
-                            try {
-                                tornadoVMBytecodeBuilder.emitAsyncNode(asyncNode, asyncNode.getContext().getDeviceIndex(), (dependencies[i].isEmpty()) ? -1 : depLists[i], offset, bufferBatchSize,
-                                        nThreads);
-                            } catch (BufferOverflowException e) {
-                                throw new TornadoRuntimeException("[ERROR] Buffer Overflow exception. Use -Dtornado.tvm.maxbytecodesize=<value> with value > "
-                                        + TornadoVMBytecodeBuilder.MAX_TORNADO_VM_BYTECODE_SIZE + " to increase the buffer code size");
-                            }
+                            emitAsyncNode(tornadoVMBytecodeBuilder, asyncNode, (dependencies[i].isEmpty()) ? -1 : depLists[i], batchConfiguration, chunk);
                         }
 
                         for (int j = 0; j < dependencies.length; j++) {
@@ -0,0 +1,364 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2023, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.runtime.interpreter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import uk.ac.manchester.tornado.api.exceptions.TornadoRuntimeException;
+import uk.ac.manchester.tornado.runtime.common.DeviceObjectState;
+import uk.ac.manchester.tornado.runtime.graph.TornadoVMBytecodeResult;
+import uk.ac.manchester.tornado.runtime.graph.TornadoVMBytecodes;
+
+/**
+ * A TornadoVM bytecode region (from BEGIN to END) decoded into an array of
+ * typed instructions. The {@link TornadoVMInterpreter} decodes its bytecodes
+ * once, when it is constructed, and replays the instruction array on every
+ * execution. Thus, the operands of each bytecode are not re-read from the
+ * {@link TornadoVMBytecodeResult} buffer for every call, and no temporary
+ * arrays are allocated per execution.
+ *
+ * <p>
+ * The ALLOC, TRANSFER and LAUNCH bytecodes found between BATCH_BEGIN and
+ * BATCH_END are marked as batched: their offsets and sizes are taken from the
+ * current chunk of the batch loop at execution time, rather than from their
+ * operands.
+ * </p>
+ */
+public final class TornadoVMBytecodeProgram {
+
+    private final Instruction[] instructions;
+
+    private TornadoVMBytecodeProgram(Instruction[] instructions) {
+        this.instructions = instructions;
+    }
+
+    /**
+     * It decodes all bytecodes from the current position of the buffer until
+     * the END bytecode. After decoding, the buffer is reset to its marked
+     * position.
+     *
+     * @param bytecodeResult
+     *            The {@link TornadoVMBytecodeResult} positioned after the BEGIN
+     *            bytecode.
+     * @return A new {@link TornadoVMBytecodeProgram}.
+     */
+    public static TornadoVMBytecodeProgram decode(TornadoVMBytecodeResult bytecodeResult) {
+        List<Instruction> decoded = new ArrayList<>();
+        BatchBegin batchBegin = null;
+        boolean endFound = false;
+        while (bytecodeResult.hasRemaining() && !endFound) {
+            final byte op = bytecodeResult.get();
+            final TornadoVMBytecodes bytecode = TornadoVMBytecodes.fromValue(op);
+            if (bytecode == null) {
+                throw new TornadoRuntimeException(String.format("[ERROR] TornadoVM Bytecode not recognized: 0x%x", op));
+            }
+            switch (bytecode) {
+                case ALLOC:
+                    decoded.add(decodeAlloc(bytecodeResult, batchBegin != null));
+                    break;
+                case DEALLOC: {
+                    final int objectOperand = bytecodeResult.getInt();
+                    decoded.add(new Dealloc(TornadoVMBytecodes.decodeObjectIndex(objectOperand), TornadoVMBytecodes.decodeBufferSlot(objectOperand), bytecodeResult.getInt()));
+                    break;
+                }
+                case TRANSFER_HOST_TO_DEVICE_ONCE:
+                case TRANSFER_HOST_TO_DEVICE_ALWAYS:
+                case TRANSFER_DEVICE_TO_HOST_ALWAYS:
+                case TRANSFER_DEVICE_TO_HOST_ALWAYS_BLOCKING:
+                    decoded.add(decodeTransfer(bytecode, bytecodeResult, batchBegin != null));
+                    break;
+                case LAUNCH:
+                    decoded.add(decodeLaunch(bytecodeResult, batchBegin != null));
+                    break;
+                case ADD_DEPENDENCY:
+                    decoded.add(new AddDependency(bytecodeResult.getInt()));
+                    break;
+                case BARRIER:
+                    decoded.add(new Barrier(bytecodeResult.getInt()));
+                    break;
+                case BATCH_BEGIN:
+                    if (batchBegin != null) {
+                        throw new TornadoRuntimeException("[ERROR] Nested BATCH_BEGIN bytecodes are not supported");
+                    }
+                    batchBegin = new BatchBegin(bytecodeResult.getLong());
+                    decoded.add(batchBegin);
+                    break;
+                case BATCH_END:
+                    if (batchBegin == null) {
+                        throw new TornadoRuntimeException("[ERROR] BATCH_END bytecode without a BATCH_BEGIN");
+                    }
+                    batchBegin.endIndex = decoded.size();
+                    decoded.add(new BatchEnd(decoded.indexOf(batchBegin)));
+                    batchBegin = null;
+                    break;
+                case END:
+                    if (batchBegin != null) {
+                        throw new TornadoRuntimeException("[ERROR] BATCH_BEGIN bytecode without a BATCH_END");
+                    }
+                    decoded.add(new End());
+                    endFound = true;
+                    break;
+                default:
+                    throw new TornadoRuntimeException("[ERROR] TornadoVM Bytecode not expected within an execution region: " + bytecode);
+            }
+        }
+        bytecodeResult.reset();
+        return new TornadoVMBytecodeProgram(decoded.toArray(new Instruction[0]));
+    }
+
+    private static Alloc decodeAlloc(TornadoVMBytecodeResult bytecodeResult, boolean batched) {
+        final int contextIndex = bytecodeResult.getInt();
+        final long sizeBatch = bytecodeResult.getLong();
+        final int argSize = bytecodeResult.getInt();
+        final int[] args = new int[argSize];
+        final int[] bufferSlots = new int[argSize];
+        for (int i = 0; i < argSize; i++) {
+            final int objectOperand = bytecodeResult.getInt();
+            args[i] = TornadoVMBytecodes.decodeObjectIndex(objectOperand);
+            bufferSlots[i] = TornadoVMBytecodes.decodeBufferSlot(objectOperand);
+        }
+        return new Alloc(contextIndex, sizeBatch, args, bufferSlots, batched);
+    }
+
+    private static Transfer decodeTransfer(TornadoVMBytecodes bytecode, TornadoVMBytecodeResult bytecodeResult, boolean batched) {
+        final int objectOperand = bytecodeResult.getInt();
+        final int contextIndex = bytecodeResult.getInt();
+        final int eventList = bytecodeResult.getInt();
+        final long offset = bytecodeResult.getLong();
+        final long sizeBatch = bytecodeResult.getLong();
+        return new Transfer(bytecode, TornadoVMBytecodes.decodeObjectIndex(objectOperand), TornadoVMBytecodes.decodeBufferSlot(objectOperand), contextIndex, eventList, offset, sizeBatch,
+                batched);
+    }
+
+    private static Launch decodeLaunch(TornadoVMBytecodeResult bytecodeResult, boolean batched) {
+        final int callWrapperIndex = bytecodeResult.getInt();
+        bytecodeResult.getInt(); // Skips deprecated value
+        final int taskIndex = bytecodeResult.getInt();
+        final int numArgs = bytecodeResult.getInt();
+        final int eventList = bytecodeResult.getInt();
+        final long offset = bytecodeResult.getLong();
+        final long batchThreads = bytecodeResult.getLong();
+        final byte[] argTypes = new byte[numArgs];
+        final int[] argIndexes = new int[numArgs];
+        final int[] argBufferSlots = new int[numArgs];
+        for (int i = 0; i < numArgs; i++) {
+            argTypes[i] = bytecodeResult.get();
+            final int operand = bytecodeResult.getInt();
+            if (argTypes[i] == TornadoVMBytecodes.PUSH_REFERENCE_ARGUMENT.value()) {
+                argIndexes[i] = TornadoVMBytecodes.decodeObjectIndex(operand);
+                argBufferSlots[i] = TornadoVMBytecodes.decodeBufferSlot(operand);
+            } else {
+                argIndexes[i] = operand;
+            }
+        }
+        return new Launch(callWrapperIndex, taskIndex, eventList, offset, batchThreads, argTypes, argIndexes, argBufferSlots, batched);
+    }
+
+    public Instruction[] getInstructions() {
+        return instructions;
+    }
+
+    public int size() {
+        return instructions.length;
+    }
+
+    /**
+     * Base class for all decoded TornadoVM bytecodes.
+     */
+    public abstract static class Instruction {
+        public final TornadoVMBytecodes bytecode;
+
+        Instruction(TornadoVMBytecodes bytecode) {
+            this.bytecode = bytecode;
+        }
+    }
+
+    /**
+     * ALLOC: allocation of a set of objects on the device. It keeps scratch
+     * arrays that are filled in on every execution to avoid allocations.
+     */
+    public static final class Alloc extends Instruction {
+        public final int contextIndex;
+        public final long sizeBatch;
+        public final int[] objectIndexes;
+        public final int[] bufferSlots;
+        public final boolean batched;
+        final Object[] objects;
+        final DeviceObjectState[] objectStates;
+
+        Alloc(int contextIndex, long sizeBatch, int[] objectIndexes, int[] bufferSlots, boolean batched) {
+            super(TornadoVMBytecodes.ALLOC);
+            this.contextIndex = contextIndex;
+            this.sizeBatch = sizeBatch;
+            this.objectIndexes = objectIndexes;
+            this.bufferSlots = bufferSlots;
+            this.batched = batched;
+            this.objects = new Object[objectIndexes.length];
+            this.objectStates = new DeviceObjectState[objectIndexes.length];
+        }
+    }
+
+    /**
+     * DEALLOC: de-allocation of an object from the device.
+     */
+    public static final class Dealloc extends Instruction {
+        public final int objectIndex;
+        public final int bufferSlot;
+        public final int contextIndex;
+
+        Dealloc(int objectIndex, int bufferSlot, int contextIndex) {
+            super(TornadoVMBytecodes.DEALLOC);
+            this.objectIndex = objectIndex;
+            this.bufferSlot = bufferSlot;
+            this.contextIndex = contextIndex;
+        }
+    }
+
+    /**
+     * Any of the TRANSFER_* bytecodes. The kind of transfer is given by the
+     * {@link #bytecode} field.
+     */
+    public static final class Transfer extends Instruction {
+        public final int objectIndex;
+        public final int bufferSlot;
+        public final int contextIndex;
+        public final int eventList;
+        public final long offset;
+        public final long sizeBatch;
+        public final boolean batched;
+
+        Transfer(TornadoVMBytecodes bytecode, int objectIndex, int bufferSlot, int contextIndex, int eventList, long offset, long sizeBatch, boolean batched) {
+            super(bytecode);
+            this.objectIndex = objectIndex;
+            this.bufferSlot = bufferSlot;
+            this.contextIndex = contextIndex;
+            this.eventList = eventList;
+            this.offset = offset;
+            this.sizeBatch = sizeBatch;
+            this.batched = batched;
+        }
+    }
+
+    /**
+     * LAUNCH: compilation (if needed) and launch of a task. The PUSH_*_ARGUMENT
+     * bytecodes that follow the LAUNCH in the bytecode buffer are folded into
+     * the argument arrays of this instruction.
+     */
+    public static final class Launch extends Instruction {
+        public final int callWrapperIndex;
+        public final int taskIndex;
+        public final int eventList;
+        public final long offset;
+        public final long batchThreads;
+        public final byte[] argTypes;
+        public final int[] argIndexes;
+        public final int[] argBufferSlots;
+        public final boolean batched;
+
+        Launch(int callWrapperIndex, int taskIndex, int eventList, long offset, long batchThreads, byte[] argTypes, int[] argIndexes, int[] argBufferSlots, boolean batched) {
+            super(TornadoVMBytecodes.LAUNCH);
+            this.callWrapperIndex = callWrapperIndex;
+            this.taskIndex = taskIndex;
+            this.eventList = eventList;
+            this.offset = offset;
+            this.batchThreads = batchThreads;
+            this.argTypes = argTypes;
+            this.argIndexes = argIndexes;
+            this.argBufferSlots = argBufferSlots;
+            this.batched = batched;
+        }
+
+        public int getNumArgs() {
+            return argTypes.length;
+        }
+    }
+
+    /**
+     * ADD_DEPENDENCY: registers the last event in an event list.
+     */
+    public static final class AddDependency extends Instruction {
+        public final int eventList;
+
+        AddDependency(int eventList) {
+            super(TornadoVMBytecodes.ADD_DEPENDENCY);
+            this.eventList = eventList;
+        }
+    }
+
+    /**
+     * BARRIER: sync point on an event list.
+     */
+    public static final class Barrier extends Instruction {
+        public final int eventList;
+
+        Barrier(int eventList) {
+            super(TornadoVMBytecodes.BARRIER);
+            this.eventList = eventList;
+        }
+    }
+
+    /**
+     * BATCH_BEGIN: start of the batch loop. The body of the loop is executed
+     * once per chunk of the input data.
+     */
+    public static final class BatchBegin extends Instruction {
+        public final long batchSize;
+        int endIndex;
+
+        BatchBegin(long batchSize) {
+            super(TornadoVMBytecodes.BATCH_BEGIN);
+            this.batchSize = batchSize;
+        }
+
+        /**
+         * @return Index of the matching {@link BatchEnd} instruction.
+         */
+        public int getEndIndex() {
+            return endIndex;
+        }
+    }
+
+    /**
+     * BATCH_END: end of the batch loop. It jumps back to the matching
+     * {@link BatchBegin} while chunks remain.
+     */
+    public static final class BatchEnd extends Instruction {
+        public final int beginIndex;
+
+        BatchEnd(int beginIndex) {
+            super(TornadoVMBytecodes.BATCH_END);
+            this.beginIndex = beginIndex;
+        }
+    }
+
+    /**
+     * END: end of the execution region.
+     */
+    public static final class End extends Instruction {
+        End() {
+            super(TornadoVMBytecodes.END);
+        }
+    }
+}
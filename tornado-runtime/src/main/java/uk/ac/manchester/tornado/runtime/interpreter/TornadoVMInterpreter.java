@@ -29,11 +29,16 @@ import static uk.ac.manchester.tornado.runtime.common.Tornado.USE_VM_FLUSH;
 import static uk.ac.manchester.tornado.runtime.common.Tornado.VM_USE_DEPS;
 import static uk.ac.manchester.tornado.runtime.common.TornadoOptions.VIRTUAL_DEVICE_ENABLED;
 
+import java.lang.reflect.Array;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.BitSet;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 import uk.ac.manchester.tornado.api.GridScheduler;
 import uk.ac.manchester.tornado.api.KernelContext;
@@ -41,6 +46,7 @@ import uk.ac.manchester.tornado.api.WorkerGrid;
 import uk.ac.manchester.tornado.api.common.Event;
 import uk.ac.manchester.tornado.api.common.SchedulableTask;
 import uk.ac.manchester.tornado.api.common.TornadoEvents;
+import uk.ac.manchester.tornado.api.data.nativetypes.TornadoNativeArray;
 import uk.ac.manchester.tornado.api.exceptions.TornadoBailoutRuntimeException;
 import uk.ac.manchester.tornado.api.exceptions.TornadoDeviceFP64NotSupported;
 import uk.ac.manchester.tornado.api.exceptions.TornadoFailureException;
@@ -51,7 +57,9 @@ import uk.ac.manchester.tornado.api.profiler.ProfilerType;
 import uk.ac.manchester.tornado.api.profiler.TornadoProfiler;
 import uk.ac.manchester.tornado.runtime.EmptyEvent;
 import uk.ac.manchester.tornado.runtime.TornadoCoreRuntime;
+import uk.ac.manchester.tornado.runtime.common.BatchConfiguration;
 import uk.ac.manchester.tornado.runtime.common.DeviceObjectState;
+import uk.ac.manchester.tornado.runtime.common.DevicePartition;
 import uk.ac.manchester.tornado.runtime.common.KernelArgs;
 import uk.ac.manchester.tornado.runtime.common.Tornado;
 import uk.ac.manchester.tornado.runtime.common.TornadoAcceleratorDevice;
@@ -62,6 +70,7 @@ import uk.ac.manchester.tornado.runtime.graph.TornadoExecutionContext;
 import uk.ac.manchester.tornado.runtime.graph.TornadoVMBytecodeResult;
 import uk.ac.manchester.tornado.runtime.graph.TornadoVMBytecodes;
 import uk.ac.manchester.tornado.runtime.profiler.TimeProfiler;
+import uk.ac.manchester.tornado.runtime.tasks.CompilableTask;
 import uk.ac.manchester.tornado.runtime.tasks.GlobalObjectState;
 import uk.ac.manchester.tornado.runtime.tasks.PrebuiltTask;
 import uk.ac.manchester.tornado.runtime.tasks.meta.TaskMetaData;
@@ -77,6 +86,12 @@ public class TornadoVMInterpreter extends TornadoLogger {
     private static final Event EMPTY_EVENT = new EmptyEvent();
 
     private static final int MAX_EVENTS = 32;
+
+    /**
+     * Partition index of an interpreter that runs the whole iteration space.
+     */
+    public static final int NO_PARTITION = -1;
+
     private final boolean useDependencies;
 
     private final List<Object> objects;
@@ -95,12 +110,25 @@ public class TornadoVMInterpreter extends TornadoLogger {
     private final TornadoProfiler timeProfiler;
     private final TornadoExecutionContext executionContext;
     private final TornadoVMBytecodeResult bytecodeResult;
+    private final TornadoVMBytecodeProgram program;
+    private final HashMap<Integer, Integer> kernelContextGrid = new HashMap<>();
+    private final List<PendingCompilation> pendingCompilations = new ArrayList<>();
     private double totalTime;
+    private double lastExecutionTime;
     private long invocations;
     private boolean finishedWarmup;
     private boolean doUpdate;
     private GridScheduler gridScheduler;
 
+    // Registers of the batch loop (BATCH_BEGIN/BATCH_END)
+    private BatchConfiguration batchConfiguration;
+    private int batchChunk;
+
+    // Slice of a data-parallel split processed by this interpreter
+    private final int partitionIndex;
+    private DevicePartition devicePartition;
+    private final HashMap<Integer, Object> stagingObjects = new HashMap<>();
+
     /**
      * It constructs a new TornadoVMInterpreter object.
      *
@@ -114,7 +142,29 @@ public class TornadoVMInterpreter extends TornadoLogger {
      *            The {@link TornadoAcceleratorDevice} device.
      */
     public TornadoVMInterpreter(TornadoExecutionContext executionContext, TornadoVMBytecodeResult bytecodeResult, TornadoProfiler timeProfiler, TornadoAcceleratorDevice device) {
+        this(executionContext, bytecodeResult, timeProfiler, device, NO_PARTITION);
+    }
+
+    /**
+     * It constructs a new TornadoVMInterpreter object for a device of a
+     * data-parallel split. The interpreter compiles its own copy of the tasks for
+     * the device, and processes the slices given by
+     * {@link #setDevicePartition(DevicePartition)}.
+     *
+     * @param executionContext
+     *            The {@link TornadoExecutionContext}
+     * @param bytecodeResult
+     *            The {@link TornadoVMBytecodeResult}.
+     * @param timeProfiler
+     *            The {@link TornadoProfiler} for time measurements.
+     * @param device
+     *            The {@link TornadoAcceleratorDevice} device.
+     * @param partitionIndex
+     *            The index of the device in the split, or {@link #NO_PARTITION}.
+     */
+    public TornadoVMInterpreter(TornadoExecutionContext executionContext, TornadoVMBytecodeResult bytecodeResult, TornadoProfiler timeProfiler, TornadoAcceleratorDevice device, int partitionIndex) {
         this.executionContext = executionContext;
+        this.partitionIndex = partitionIndex;
         this.timeProfiler = timeProfiler;
         this.bytecodeResult = bytecodeResult;
 
@@ -133,7 +183,13 @@ public class TornadoVMInterpreter extends TornadoLogger {
         events = new int[this.bytecodeResult.getInt()][MAX_EVENTS];
         eventsIndexes = new int[events.length];
 
-        localTaskList = executionContext.getTasksForDevice(deviceForInterpreter.getDeviceContext(), deviceForInterpreter.getDriverIndex());
+        if (partitionIndex == NO_PARTITION) {
+            tasks = executionContext.getTasks();
+            localTaskList = executionContext.getTasksForDevice(deviceForInterpreter.getDeviceContext(), deviceForInterpreter.getDriverIndex());
+        } else {
+            tasks = executionContext.getTasks().stream().map(task -> (SchedulableTask) ((CompilableTask) task).copyTo(deviceForInterpreter)).collect(Collectors.toList());
+            localTaskList = tasks;
+        }
 
         installedCodes = new TornadoInstalledCode[localTaskList.size()];
 
@@ -152,11 +208,14 @@ public class TornadoVMInterpreter extends TornadoLogger {
         rewindBufferToBegin();
 
         constants = executionContext.getConstants();
-        tasks = executionContext.getTasks();
 
         debug("interpreter for device %s is ready to go", device.toString());
 
         this.bytecodeResult.mark();
+
+        // Decode the bytecodes once. Every execution replays the decoded program.
+        program = TornadoVMBytecodeProgram.decode(this.bytecodeResult);
+        debug("decoded %d instructions", program.size());
     }
 
     public void fetchGlobalStates() {
@@ -188,6 +247,44 @@ public class TornadoVMInterpreter extends TornadoLogger {
         this.gridScheduler = gridScheduler;
     }
 
+    /**
+     * It sets the slices processed by this interpreter. The device buffers of the
+     * partitioned objects are released, because their size and contents belong to
+     * the previous partition.
+     *
+     * @param partition
+     *            The {@link DevicePartition} of the data-parallel split.
+     */
+    public void setDevicePartition(DevicePartition partition) {
+        for (int i = 0; i < objects.size(); i++) {
+            if (partition.isPartitioned(i) || (devicePartition != null && devicePartition.isPartitioned(i))) {
+                releaseDeviceBuffer(i);
+            }
+        }
+        stagingObjects.clear();
+        devicePartition = partition;
+    }
+
+    private void releaseDeviceBuffer(int objectIndex) {
+        final DeviceObjectState objectState = resolveObjectState(objectIndex, 0);
+        if (objectState.hasObjectBuffer()) {
+            // Reused buffers are locked to the task-graph, so we unlock them to release them
+            final boolean lockedBuffer = objectState.isLockedBuffer();
+            objectState.setLockBuffer(false);
+            deviceForInterpreter.deallocate(objectState);
+            objectState.setLockBuffer(lockedBuffer);
+        }
+        objectState.setContents(false);
+    }
+
+    /**
+     * @return The elapsed time, in seconds, of the last execution (not counting
+     *         the warmup).
+     */
+    public double getLastExecutionTime() {
+        return lastExecutionTime;
+    }
+
     public void printTimes() {
         System.out.printf("bc: complete %d iterations - %.9f s mean and %.9f s total%n", invocations, (totalTime / invocations), totalTime);
     }
@@ -239,11 +336,92 @@ public class TornadoVMInterpreter extends TornadoLogger {
     }
 
     public void warmup() {
-        execute(true);
+        submitCompilations();
+        awaitCompilations();
+    }
+
+    /**
+     * It submits the compilation of all tasks of the interpreter to the compiler
+     * thread pool, without waiting for the compilations to finish. Each compiled
+     * task is installed by {@link #awaitCompilations()}, or before the next
+     * execution.
+     *
+     * <p>
+     * FPGA kernels of a task-graph are built as a single source. Therefore, they
+     * are compiled sequentially, in the calling thread.
+     * </p>
+     */
+    public void submitCompilations() {
+        if (deviceForInterpreter.getDeviceContext().isPlatformFPGA()) {
+            execute(true);
+            return;
+        }
+        for (TornadoVMBytecodeProgram.Instruction instruction : program.getInstructions()) {
+            if (instruction.bytecode == TornadoVMBytecodes.BATCH_BEGIN) {
+                // Tasks within the batch loop are compiled for the first chunk
+                beginBatchLoop((TornadoVMBytecodeProgram.BatchBegin) instruction);
+                continue;
+            }
+            if (instruction.bytecode != TornadoVMBytecodes.LAUNCH) {
+                continue;
+            }
+            TornadoVMBytecodeProgram.Launch launch = (TornadoVMBytecodeProgram.Launch) instruction;
+            prepareTaskForCompilation(launch.callWrapperIndex, launch.getNumArgs(), launch.taskIndex, getLaunchThreads(launch));
+            final int localTaskIndex = globalToLocalTaskIndex(launch.taskIndex);
+            if (shouldCompile(installedCodes[localTaskIndex]) && !isCompilationPending(localTaskIndex)) {
+                final SchedulableTask task = prepareCompilation(launch.taskIndex);
+                Future<TornadoInstalledCode> installedCode = TornadoCoreRuntime.getTornadoCompilerExecutor().submit(() -> {
+                    deviceForInterpreter.enableThreadSharing();
+                    return installCode(task);
+                });
+                pendingCompilations.add(new PendingCompilation(localTaskIndex, task, installedCode));
+                doUpdate = false;
+            }
+        }
+    }
+
+    /**
+     * It waits for all submitted compilations and installs the code of each task.
+     * A task is only installed if its compilation succeeded. If any compilation
+     * failed, the first error is thrown after all compilations finished.
+     */
+    public void awaitCompilations() {
+        RuntimeException failure = null;
+        for (PendingCompilation pending : pendingCompilations) {
+            try {
+                installedCodes[pending.localTaskIndex] = pending.installedCode.get();
+                profilerUpdateForPreCompiledTask(pending.task);
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = (e.getCause() instanceof RuntimeException) ? (RuntimeException) e.getCause() : new TornadoRuntimeException(e);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if (failure == null) {
+                    failure = new TornadoRuntimeException(e);
+                }
+            }
+        }
+        pendingCompilations.clear();
+        if (failure != null) {
+            throw failure;
+        }
         finishedWarmup = true;
     }
 
+    private boolean isCompilationPending(int localTaskIndex) {
+        for (PendingCompilation pending : pendingCompilations) {
+            if (pending.localTaskIndex == localTaskIndex) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     public Event execute(boolean isWarmup) {
+        if (!pendingCompilations.isEmpty()) {
+            awaitCompilations();
+        }
         isWarmup = isWarmup || VIRTUAL_DEVICE_ENABLED;
         deviceForInterpreter.enableThreadSharing();
         final long t0 = System.nanoTime();
@@ -257,106 +435,128 @@ public class TornadoVMInterpreter extends TornadoLogger {
                     .append(InterpreterUtilities.debugHighLightHelper(" Running in thread: ")).append(Thread.currentThread().getName()).append("\n");
         }
 
-        while (bytecodeResult.hasRemaining()) {
-            final byte op = bytecodeResult.get();
-            if (op == TornadoVMBytecodes.ALLOC.value()) {
-                final int contextIndex = bytecodeResult.getInt();
-                final long sizeBatch = bytecodeResult.getLong();
-                final int argSize = bytecodeResult.getInt();
-                final int[] args = new int[argSize];
-                for (int i = 0; i < argSize; i++) {
-                    args[i] = bytecodeResult.getInt();
+        final TornadoVMBytecodeProgram.Instruction[] instructions = program.getInstructions();
+        for (int pc = 0; pc < instructions.length; pc++) {
+            final TornadoVMBytecodeProgram.Instruction instruction = instructions[pc];
+            switch (instruction.bytecode) {
+                case ALLOC: {
+                    if (isWarmup) {
+                        continue;
+                    }
+                    lastEvent = executeAlloc(tornadoVMBytecodeList, (TornadoVMBytecodeProgram.Alloc) instruction);
+                    break;
                 }
-                if (isWarmup) {
-                    continue;
+                case DEALLOC: {
+                    if (isWarmup) {
+                        continue;
+                    }
+                    TornadoVMBytecodeProgram.Dealloc dealloc = (TornadoVMBytecodeProgram.Dealloc) instruction;
+                    lastEvent = executeDeAlloc(tornadoVMBytecodeList, dealloc.objectIndex, dealloc.bufferSlot);
+                    break;
                 }
-                lastEvent = executeAlloc(tornadoVMBytecodeList, args, contextIndex, sizeBatch);
-            } else if (op == TornadoVMBytecodes.DEALLOC.value()) {
-                final int objectIndex = bytecodeResult.getInt();
-                final int contextIndex = bytecodeResult.getInt();
-                if (isWarmup) {
-                    continue;
+                case TRANSFER_HOST_TO_DEVICE_ONCE: {
+                    if (isWarmup) {
+                        continue;
+                    }
+                    TornadoVMBytecodeProgram.Transfer transfer = (TornadoVMBytecodeProgram.Transfer) instruction;
+                    final int[] waitList = (useDependencies && transfer.eventList != -1) ? events[transfer.eventList] : null;
+                    lastEvent = transferHostToDeviceOnce(tornadoVMBytecodeList, transfer.objectIndex, transfer.bufferSlot, getTransferOffset(transfer), transfer.eventList, getTransferSize(transfer),
+                            waitList);
+                    break;
                 }
-                lastEvent = executeDeAlloc(tornadoVMBytecodeList, objectIndex, contextIndex);
-            } else if (op == TornadoVMBytecodes.TRANSFER_HOST_TO_DEVICE_ONCE.value()) {
-                final int objectIndex = bytecodeResult.getInt();
-                final int contextIndex = bytecodeResult.getInt();
-                final int eventList = bytecodeResult.getInt();
-                final long offset = bytecodeResult.getLong();
-                final long sizeBatch = bytecodeResult.getLong();
-                final int[] waitList = (useDependencies && eventList != -1) ? events[eventList] : null;
-                if (isWarmup) {
-                    continue;
+                case TRANSFER_HOST_TO_DEVICE_ALWAYS: {
+                    if (isWarmup) {
+                        continue;
+                    }
+                    TornadoVMBytecodeProgram.Transfer transfer = (TornadoVMBytecodeProgram.Transfer) instruction;
+                    final int[] waitList = (useDependencies && transfer.eventList != -1) ? events[transfer.eventList] : null;
+                    lastEvent = transferHostToDeviceAlways(tornadoVMBytecodeList, transfer.objectIndex, transfer.bufferSlot, getTransferOffset(transfer), transfer.eventList, getTransferSize(transfer),
+                            waitList);
+                    break;
                 }
-                transferHostToDeviceOnce(tornadoVMBytecodeList, objectIndex, contextIndex, offset, eventList, sizeBatch, waitList);
-            } else if (op == TornadoVMBytecodes.TRANSFER_HOST_TO_DEVICE_ALWAYS.value()) {
-                final int objectIndex = bytecodeResult.getInt();
-                final int contextIndex = bytecodeResult.getInt();
-                final int eventList = bytecodeResult.getInt();
-                final long offset = bytecodeResult.getLong();
-                final long sizeBatch = bytecodeResult.getLong();
-                final int[] waitList = (useDependencies && eventList != -1) ? events[eventList] : null;
-                if (isWarmup) {
-                    continue;
+                case TRANSFER_DEVICE_TO_HOST_ALWAYS: {
+                    if (isWarmup) {
+                        continue;
+                    }
+                    TornadoVMBytecodeProgram.Transfer transfer = (TornadoVMBytecodeProgram.Transfer) instruction;
+                    final int[] waitList = (useDependencies) ? events[transfer.eventList] : null;
+                    if (isSliceWithHalo(transfer.objectIndex)) {
+                        lastEvent = transferOwnedElementsToHost(tornadoVMBytecodeList, transfer, waitList);
+                        break;
+                    }
+                    lastEvent = transferDeviceToHost(tornadoVMBytecodeList, transfer.objectIndex, transfer.bufferSlot, getTransferOffset(transfer), transfer.eventList, getTransferSize(transfer),
+                            waitList);
+                    break;
                 }
-                transferHostToDeviceAlways(tornadoVMBytecodeList, objectIndex, contextIndex, offset, eventList, sizeBatch, waitList);
-            } else if (op == TornadoVMBytecodes.TRANSFER_DEVICE_TO_HOST_ALWAYS.value()) {
-                final int objectIndex = bytecodeResult.getInt();
-                final int contextIndex = bytecodeResult.getInt();
-                final int eventList = bytecodeResult.getInt();
-                final long offset = bytecodeResult.getLong();
-                final long sizeBatch = bytecodeResult.getLong();
-                final int[] waitList = (useDependencies) ? events[eventList] : null;
-                if (isWarmup) {
-                    continue;
+                case TRANSFER_DEVICE_TO_HOST_ALWAYS_BLOCKING: {
+                    if (isWarmup) {
+                        continue;
+                    }
+                    TornadoVMBytecodeProgram.Transfer transfer = (TornadoVMBytecodeProgram.Transfer) instruction;
+                    final int[] waitList = (useDependencies) ? events[transfer.eventList] : null;
+                    if (isSliceWithHalo(transfer.objectIndex)) {
+                        transferOwnedElementsToHost(tornadoVMBytecodeList, transfer, waitList);
+                        break;
+                    }
+                    transferDeviceToHostBlocking(tornadoVMBytecodeList, transfer.objectIndex, transfer.bufferSlot, getTransferOffset(transfer), transfer.eventList, getTransferSize(transfer), waitList);
+                    break;
                 }
-                lastEvent = transferDeviceToHost(tornadoVMBytecodeList, objectIndex, contextIndex, offset, eventList, sizeBatch, waitList);
-            } else if (op == TornadoVMBytecodes.TRANSFER_DEVICE_TO_HOST_ALWAYS_BLOCKING.value()) {
-                final int objectIndex = bytecodeResult.getInt();
-                final int contextIndex = bytecodeResult.getInt();
-                final int eventList = bytecodeResult.getInt();
-                final long offset = bytecodeResult.getLong();
-                final long sizeBatch = bytecodeResult.getLong();
-
-                final int[] waitList = (useDependencies) ? events[eventList] : null;
-                if (isWarmup) {
-                    continue;
+                case LAUNCH: {
+                    TornadoVMBytecodeProgram.Launch launch = (TornadoVMBytecodeProgram.Launch) instruction;
+                    KernelArgs callWrapper = compileTaskFromBytecodeToBinary(launch.callWrapperIndex, launch.getNumArgs(), launch.taskIndex, getLaunchThreads(launch));
+                    if (isWarmup) {
+                        continue;
+                    }
+                    final int[] waitList = (useDependencies && launch.eventList != -1) ? events[launch.eventList] : null;
+                    lastEvent = executeLaunch(tornadoVMBytecodeList, launch, callWrapper, waitList);
+                    break;
                 }
-                transferDeviceToHostBlocking(tornadoVMBytecodeList, objectIndex, contextIndex, offset, eventList, sizeBatch, waitList);
-            } else if (op == TornadoVMBytecodes.LAUNCH.value()) {
-                final int callWrapperIndex = bytecodeResult.getInt();
-                this.bytecodeResult.getInt(); // Skips deprecated value
-                final int taskIndex = bytecodeResult.getInt();
-                final int numArgs = bytecodeResult.getInt();
-                final int eventList = bytecodeResult.getInt();
-                final long offset = bytecodeResult.getLong();
-                final long batchThreads = bytecodeResult.getLong();
-                ExecutionInfo info = compileTaskFromBytecodeToBinary(callWrapperIndex, numArgs, eventList, taskIndex, batchThreads);
-                if (isWarmup) {
-                    popArgumentsFromCall(numArgs);
-                    continue;
+                case ADD_DEPENDENCY: {
+                    if (isWarmup) {
+                        continue;
+                    }
+                    executeDependency(tornadoVMBytecodeList, lastEvent, ((TornadoVMBytecodeProgram.AddDependency) instruction).eventList);
+                    break;
                 }
-                lastEvent = executeLaunch(tornadoVMBytecodeList, numArgs, eventList, taskIndex, batchThreads, offset, info);
-            } else if (op == TornadoVMBytecodes.ADD_DEPENDENCY.value()) {
-                final int eventList = bytecodeResult.getInt();
-                if (isWarmup) {
-                    continue;
+                case BARRIER: {
+                    if (isWarmup) {
+                        continue;
+                    }
+                    final int eventList = ((TornadoVMBytecodeProgram.Barrier) instruction).eventList;
+                    final int[] waitList = (useDependencies && eventList != -1) ? events[eventList] : null;
+                    lastEvent = executeBarrier(tornadoVMBytecodeList, eventList, waitList);
+                    break;
                 }
-                executeDependency(tornadoVMBytecodeList, lastEvent, eventList);
-            } else if (op == TornadoVMBytecodes.BARRIER.value()) {
-                final int eventList = bytecodeResult.getInt();
-                final int[] waitList = (useDependencies && eventList != -1) ? events[eventList] : null;
-                if (isWarmup) {
-                    continue;
+                case BATCH_BEGIN: {
+                    TornadoVMBytecodeProgram.BatchBegin batchBegin = (TornadoVMBytecodeProgram.BatchBegin) instruction;
+                    beginBatchLoop(batchBegin);
+                    if (!isWarmup && TornadoOptions.PRINT_BYTECODES) {
+                        String verbose = String.format("bc: " + InterpreterUtilities.debugHighLightBC("BATCH_BEGIN") + " batchSize=%d, chunks=%d", batchBegin.batchSize,
+                                batchConfiguration.getNumChunksToSchedule());
+                        tornadoVMBytecodeList.append(verbose).append("\n");
+                    }
+                    if (batchConfiguration.getNumChunksToSchedule() == 0) {
+                        // Nothing to process: skip the body of the loop
+                        pc = batchBegin.getEndIndex();
+                    }
+                    break;
                 }
-                lastEvent = executeBarrier(tornadoVMBytecodeList, eventList, waitList);
-            } else if (op == TornadoVMBytecodes.END.value()) {
-                if (!isWarmup && TornadoOptions.PRINT_BYTECODES) {
-                    tornadoVMBytecodeList.append("bc: ").append(InterpreterUtilities.debugHighLightBC("END\n")).append("\n");
+                case BATCH_END: {
+                    batchChunk++;
+                    // The warmup only compiles the tasks, so the body is visited once
+                    if (!isWarmup && batchChunk < batchConfiguration.getNumChunksToSchedule()) {
+                        pc = ((TornadoVMBytecodeProgram.BatchEnd) instruction).beginIndex;
+                    }
+                    break;
                 }
-                break;
-            } else {
-                throwError(op);
+                case END: {
+                    if (!isWarmup && TornadoOptions.PRINT_BYTECODES) {
+                        tornadoVMBytecodeList.append("bc: ").append(InterpreterUtilities.debugHighLightBC("END\n")).append("\n");
+                    }
+                    break;
+                }
+                default:
+                    throwError(instruction.bytecode.value());
             }
         }
 
@@ -376,6 +576,7 @@ public class TornadoVMInterpreter extends TornadoLogger {
         final double elapsed = (t1 - t0) * 1e-9;
         if (!isWarmup) {
             totalTime += elapsed;
+            lastExecutionTime = elapsed;
             invocations++;
         }
 
@@ -383,8 +584,6 @@ public class TornadoVMInterpreter extends TornadoLogger {
             debug("bc: complete elapsed=%.9f s (%d iterations, %.9f s mean)", elapsed, invocations, (totalTime / invocations));
         }
 
-        bytecodeResult.reset();
-
         if (TornadoOptions.PRINT_BYTECODES) {
             System.out.println(tornadoVMBytecodeList);
         }
@@ -396,28 +595,38 @@ public class TornadoVMInterpreter extends TornadoLogger {
         for (int[] waitList : events) {
             Arrays.fill(waitList, -1);
         }
+        Arrays.fill(eventsIndexes, 0);
     }
 
-    private int executeAlloc(StringBuilder tornadoVMBytecodeList, int[] args, int contextIndex, long sizeBatch) {
-
-        Object[] objects = new Object[args.length];
-        DeviceObjectState[] objectStates = new DeviceObjectState[args.length];
-        for (int i = 0; i < objects.length; i++) {
-            objects[i] = this.objects.get(args[i]);
-            objectStates[i] = resolveObjectState(args[i], contextIndex);
+    private int executeAlloc(StringBuilder tornadoVMBytecodeList, TornadoVMBytecodeProgram.Alloc alloc) {
+        // The scratch arrays are owned by the instruction, so we avoid allocating
+        // them in every execution.
+        final Object[] allocObjects = alloc.objects;
+        final DeviceObjectState[] objectStates = alloc.objectStates;
+        for (int i = 0; i < allocObjects.length; i++) {
+            allocObjects[i] = this.objects.get(alloc.objectIndexes[i]);
+            objectStates[i] = resolveObjectState(alloc.objectIndexes[i], alloc.bufferSlots[i]);
 
             if (TornadoOptions.PRINT_BYTECODES) {
-                String verbose = String.format("bc: " + InterpreterUtilities.debugHighLightBC("ALLOC") + "%s on %s, size=%d", objects[i], InterpreterUtilities.debugDeviceBC(deviceForInterpreter),
-                        sizeBatch);
+                String verbose = String.format("bc: " + InterpreterUtilities.debugHighLightBC("ALLOC") + "%s on %s, size=%d", allocObjects[i], InterpreterUtilities.debugDeviceBC(deviceForInterpreter),
+                        getAllocSize(alloc, i));
                 tornadoVMBytecodeList.append(verbose).append("\n");
 
             }
         }
 
-        return deviceForInterpreter.allocateObjects(objects, sizeBatch, objectStates);
+        if (alloc.batched || devicePartition != null) {
+            // Streamed (or partitioned) and broadcast objects have different sizes
+            int lastEvent = -1;
+            for (int i = 0; i < allocObjects.length; i++) {
+                lastEvent = deviceForInterpreter.allocate(allocObjects[i], getAllocSize(alloc, i), objectStates[i]);
+            }
+            return lastEvent;
+        }
+        return deviceForInterpreter.allocateObjects(allocObjects, alloc.sizeBatch, objectStates);
     }
 
-    private int executeDeAlloc(StringBuilder tornadoVMBytecodeList, final int objectIndex, final int contextIndex) {
+    private int executeDeAlloc(StringBuilder tornadoVMBytecodeList, final int objectIndex, final int bufferSlot) {
         Object object = objects.get(objectIndex);
 
         if (isObjectKernelContext(object)) {
@@ -431,19 +640,19 @@ public class TornadoVMInterpreter extends TornadoLogger {
 
         }
 
-        final DeviceObjectState objectState = resolveObjectState(objectIndex, contextIndex);
+        final DeviceObjectState objectState = resolveObjectState(objectIndex, bufferSlot);
         return deviceForInterpreter.deallocate(objectState);
     }
 
-    private int transferHostToDeviceOnce(StringBuilder tornadoVMBytecodeList, final int objectIndex, final int contextIndex, final long offset, final int eventList, final long sizeBatch,
+    private int transferHostToDeviceOnce(StringBuilder tornadoVMBytecodeList, final int objectIndex, final int bufferSlot, final long offset, final int eventList, final long sizeBatch,
             final int[] waitList) {
         Object object = objects.get(objectIndex);
 
         if (isObjectKernelContext(object)) {
-            return 0;
+            return -1;
         }
 
-        final DeviceObjectState objectState = resolveObjectState(objectIndex, contextIndex);
+        final DeviceObjectState objectState = resolveObjectState(objectIndex, bufferSlot);
 
         if (TornadoOptions.PRINT_BYTECODES && isObjectAtomic(object)) {
             String verbose = String.format("bc: " + InterpreterUtilities.debugHighLightBC("TRANSFER_HOST_TO_DEVICE_ONCE") + " [Object Hash Code=0x%x] %s on %s, size=%d, offset=%d [event list=%d]",
@@ -451,9 +660,11 @@ public class TornadoVMInterpreter extends TornadoLogger {
             tornadoVMBytecodeList.append(verbose).append("\n");
         }
 
-        // We need to stream-in when using batches, because the whole data is not copied
-        List<Integer> allEvents = (sizeBatch > 0) ? deviceForInterpreter.streamIn(object, sizeBatch, offset, objectState, waitList)
+        // We need to stream-in when using batches, because the whole data is not copied.
+        // The slices of a data-parallel split are copied once, until the split changes
+        List<Integer> allEvents = (sizeBatch > 0 && devicePartition == null) ? deviceForInterpreter.streamIn(object, sizeBatch, offset, objectState, waitList)
                 : deviceForInterpreter.ensurePresent(object, objectState, waitList, sizeBatch, offset);
+        final int lastEvent = lastEventOf(allEvents, waitList);
 
         resetEventIndexes(eventList);
 
@@ -461,26 +672,22 @@ public class TornadoVMInterpreter extends TornadoLogger {
             for (Integer e : allEvents) {
                 Event event = deviceForInterpreter.resolveEvent(e);
                 event.waitForEvents();
-                long copyInTimer = timeProfiler.getTimer(ProfilerType.COPY_IN_TIME);
-                copyInTimer += event.getElapsedTime();
-                timeProfiler.setTimer(ProfilerType.COPY_IN_TIME, copyInTimer);
+                timeProfiler.sum(ProfilerType.COPY_IN_TIME, event.getElapsedTime());
 
-                timeProfiler.addValueToMetric(ProfilerType.TOTAL_COPY_IN_SIZE_BYTES, TimeProfiler.NO_TASK_NAME, objectState.getObjectBuffer().size());
+                timeProfiler.addValueToMetric(ProfilerType.TOTAL_COPY_IN_SIZE_BYTES, TimeProfiler.NO_TASK_SLOT, objectState.getObjectBuffer().size());
 
-                long dispatchValue = timeProfiler.getTimer(ProfilerType.TOTAL_DISPATCH_DATA_TRANSFERS_TIME);
-                dispatchValue += event.getDriverDispatchTime();
-                timeProfiler.setTimer(ProfilerType.TOTAL_DISPATCH_DATA_TRANSFERS_TIME, dispatchValue);
+                timeProfiler.sum(ProfilerType.TOTAL_DISPATCH_DATA_TRANSFERS_TIME, event.getDriverDispatchTime());
             }
         }
-        return 0;
+        return lastEvent;
     }
 
-    private int transferHostToDeviceAlways(StringBuilder tornadoVMBytecodeList, final int objectIndex, final int contextIndex, final long offset, final int eventList, final long sizeBatch,
+    private int transferHostToDeviceAlways(StringBuilder tornadoVMBytecodeList, final int objectIndex, final int bufferSlot, final long offset, final int eventList, final long sizeBatch,
             final int[] waitList) {
         Object object = objects.get(objectIndex);
 
         if (isObjectKernelContext(object)) {
-            return 0;
+            return -1;
         }
 
         if (TornadoOptions.PRINT_BYTECODES && isObjectAtomic(object)) {
@@ -490,8 +697,9 @@ public class TornadoVMInterpreter extends TornadoLogger {
 
         }
 
-        final DeviceObjectState objectState = resolveObjectState(objectIndex, contextIndex);
+        final DeviceObjectState objectState = resolveObjectState(objectIndex, bufferSlot);
         List<Integer> allEvents = deviceForInterpreter.streamIn(object, sizeBatch, offset, objectState, waitList);
+        final int lastEvent = lastEventOf(allEvents, waitList);
 
         resetEventIndexes(eventList);
 
@@ -499,21 +707,17 @@ public class TornadoVMInterpreter extends TornadoLogger {
             for (Integer e : allEvents) {
                 Event event = deviceForInterpreter.resolveEvent(e);
                 event.waitForEvents();
-                long copyInTimer = timeProfiler.getTimer(ProfilerType.COPY_IN_TIME);
-                copyInTimer += event.getElapsedTime();
-                timeProfiler.setTimer(ProfilerType.COPY_IN_TIME, copyInTimer);
+                timeProfiler.sum(ProfilerType.COPY_IN_TIME, event.getElapsedTime());
 
-                timeProfiler.addValueToMetric(ProfilerType.TOTAL_COPY_IN_SIZE_BYTES, TimeProfiler.NO_TASK_NAME, objectState.getObjectBuffer().size());
+                timeProfiler.addValueToMetric(ProfilerType.TOTAL_COPY_IN_SIZE_BYTES, TimeProfiler.NO_TASK_SLOT, objectState.getObjectBuffer().size());
 
-                long dispatchValue = timeProfiler.getTimer(ProfilerType.TOTAL_DISPATCH_DATA_TRANSFERS_TIME);
-                dispatchValue += event.getDriverDispatchTime();
-                timeProfiler.setTimer(ProfilerType.TOTAL_DISPATCH_DATA_TRANSFERS_TIME, dispatchValue);
+                timeProfiler.sum(ProfilerType.TOTAL_DISPATCH_DATA_TRANSFERS_TIME, event.getDriverDispatchTime());
             }
         }
-        return 0;
+        return lastEvent;
     }
 
-    private int transferDeviceToHost(StringBuilder tornadoVMBytecodeList, final int objectIndex, final int contextIndex, final long offset, final int eventList, final long sizeBatch,
+    private int transferDeviceToHost(StringBuilder tornadoVMBytecodeList, final int objectIndex, final int bufferSlot, final long offset, final int eventList, final long sizeBatch,
             final int[] waitList) {
         Object object = objects.get(objectIndex);
 
@@ -528,7 +732,7 @@ public class TornadoVMInterpreter extends TornadoLogger {
 
         }
 
-        final DeviceObjectState objectState = resolveObjectState(objectIndex, contextIndex);
+        final DeviceObjectState objectState = resolveObjectState(objectIndex, bufferSlot);
         int lastEvent = deviceForInterpreter.streamOutBlocking(object, offset, objectState, waitList);
 
         resetEventIndexes(eventList);
@@ -536,20 +740,16 @@ public class TornadoVMInterpreter extends TornadoLogger {
         if (TornadoOptions.isProfilerEnabled() && lastEvent != -1) {
             Event event = deviceForInterpreter.resolveEvent(lastEvent);
             event.waitForEvents();
-            long value = timeProfiler.getTimer(ProfilerType.COPY_OUT_TIME);
-            value += event.getElapsedTime();
-            timeProfiler.setTimer(ProfilerType.COPY_OUT_TIME, value);
+            timeProfiler.sum(ProfilerType.COPY_OUT_TIME, event.getElapsedTime());
 
-            timeProfiler.addValueToMetric(ProfilerType.TOTAL_COPY_OUT_SIZE_BYTES, TimeProfiler.NO_TASK_NAME, objectState.getObjectBuffer().size());
+            timeProfiler.addValueToMetric(ProfilerType.TOTAL_COPY_OUT_SIZE_BYTES, TimeProfiler.NO_TASK_SLOT, objectState.getObjectBuffer().size());
 
-            long dispatchValue = timeProfiler.getTimer(ProfilerType.TOTAL_DISPATCH_DATA_TRANSFERS_TIME);
-            dispatchValue += event.getDriverDispatchTime();
-            timeProfiler.setTimer(ProfilerType.TOTAL_DISPATCH_DATA_TRANSFERS_TIME, dispatchValue);
+            timeProfiler.sum(ProfilerType.TOTAL_DISPATCH_DATA_TRANSFERS_TIME, event.getDriverDispatchTime());
         }
         return lastEvent;
     }
 
-    private void transferDeviceToHostBlocking(StringBuilder tornadoVMBytecodeList, final int objectIndex, final int contextIndex, final long offset, final int eventList, final long sizeBatch,
+    private void transferDeviceToHostBlocking(StringBuilder tornadoVMBytecodeList, final int objectIndex, final int bufferSlot, final long offset, final int eventList, final long sizeBatch,
             final int[] waitList) {
 
         Object object = objects.get(objectIndex);
@@ -565,27 +765,35 @@ public class TornadoVMInterpreter extends TornadoLogger {
 
         }
 
-        final DeviceObjectState objectState = resolveObjectState(objectIndex, contextIndex);
+        final DeviceObjectState objectState = resolveObjectState(objectIndex, bufferSlot);
 
         final int tornadoEventID = deviceForInterpreter.streamOutBlocking(object, offset, objectState, waitList);
 
         if (TornadoOptions.isProfilerEnabled() && tornadoEventID != -1) {
             Event event = deviceForInterpreter.resolveEvent(tornadoEventID);
             event.waitForEvents();
-            long value = timeProfiler.getTimer(ProfilerType.COPY_OUT_TIME);
-            value += event.getElapsedTime();
-            timeProfiler.setTimer(ProfilerType.COPY_OUT_TIME, value);
+            timeProfiler.sum(ProfilerType.COPY_OUT_TIME, event.getElapsedTime());
 
-            timeProfiler.addValueToMetric(ProfilerType.TOTAL_COPY_OUT_SIZE_BYTES, TimeProfiler.NO_TASK_NAME, objectState.getObjectBuffer().size());
+            timeProfiler.addValueToMetric(ProfilerType.TOTAL_COPY_OUT_SIZE_BYTES, TimeProfiler.NO_TASK_SLOT, objectState.getObjectBuffer().size());
 
-            long dispatchValue = timeProfiler.getTimer(ProfilerType.TOTAL_DISPATCH_DATA_TRANSFERS_TIME);
-            dispatchValue += event.getDriverDispatchTime();
-            timeProfiler.setTimer(ProfilerType.TOTAL_DISPATCH_DATA_TRANSFERS_TIME, dispatchValue);
+            timeProfiler.sum(ProfilerType.TOTAL_DISPATCH_DATA_TRANSFERS_TIME, event.getDriverDispatchTime());
         }
         resetEventIndexes(eventList);
     }
 
-    private ExecutionInfo compileTaskFromBytecodeToBinary(final int callWrapperIndex, final int numArgs, final int eventList, final int taskIndex, final long batchThreads) {
+    private KernelArgs compileTaskFromBytecodeToBinary(final int callWrapperIndex, final int numArgs, final int taskIndex, final long batchThreads) {
+        final KernelArgs callWrapper = prepareTaskForCompilation(callWrapperIndex, numArgs, taskIndex, batchThreads);
+        final int localTaskIndex = globalToLocalTaskIndex(taskIndex);
+        if (shouldCompile(installedCodes[localTaskIndex])) {
+            final SchedulableTask task = prepareCompilation(taskIndex);
+            installedCodes[localTaskIndex] = installCode(task);
+            profilerUpdateForPreCompiledTask(task);
+            doUpdate = false;
+        }
+        return callWrapper;
+    }
+
+    private KernelArgs prepareTaskForCompilation(final int callWrapperIndex, final int numArgs, final int taskIndex, final long batchThreads) {
 
         if (deviceForInterpreter.getDeviceContext().wasReset() && finishedWarmup) {
             throw new TornadoFailureException("[ERROR] reset() was called after warmup() on device: " + deviceForInterpreter + "!");
@@ -595,7 +803,6 @@ public class TornadoVMInterpreter extends TornadoLogger {
 
         final KernelArgs callWrapper = resolveCallWrapper(callWrapperIndex, numArgs, callWrappers, deviceForInterpreter, redeployOnDevice);
 
-        final int[] waitList = (useDependencies && eventList != -1) ? events[eventList] : null;
         final SchedulableTask task = tasks.get(taskIndex);
 
         // Check if a different batch size was used for the same kernel. If true, then
@@ -612,44 +819,58 @@ public class TornadoVMInterpreter extends TornadoLogger {
             task.setUseGridScheduler(true);
             task.setGridScheduler(gridScheduler);
         }
+        return callWrapper;
+    }
 
-        if (shouldCompile(installedCodes[globalToLocalTaskIndex(taskIndex)])) {
-            task.mapTo(deviceForInterpreter);
-            try {
-                task.attachProfiler(timeProfiler);
-                if (taskIndex == (tasks.size() - 1) || doUpdate) {
-                    // If it is the last task within the task-schedule or doUpdate is true -> we
-                    // force compilation. This is useful when compiling code for Xilinx/Altera
-                    // FPGAs, that has to be a single source.
-                    task.forceCompilation();
-                }
-                installedCodes[globalToLocalTaskIndex(taskIndex)] = deviceForInterpreter.installCode(task);
-                profilerUpdateForPreCompiledTask(task);
-                doUpdate = false;
-            } catch (TornadoBailoutRuntimeException e) {
-                throw new TornadoBailoutRuntimeException(
-                        "Unable to compile " + task.getFullName() + "\n" + "The internal error is: " + e.getMessage() + "\n" + "Stacktrace: " + Arrays.toString(e.getStackTrace()), e);
-            } catch (TornadoDeviceFP64NotSupported e) {
-                throw e;
-            } catch (InternalError e) {
-                throw new TornadoBailoutRuntimeException("[Internal Error] Unable to compile " + task.getFullName() + "\n" + Arrays.toString(e.getStackTrace()));
-            }
+    private SchedulableTask prepareCompilation(final int taskIndex) {
+        final SchedulableTask task = tasks.get(taskIndex);
+        task.mapTo(deviceForInterpreter);
+        task.attachProfiler(timeProfiler);
+        // The slot of the task in the profiler is resolved once, before any launch
+        if (task.meta() instanceof TaskMetaData) {
+            ((TaskMetaData) task.meta()).attachProfiler(timeProfiler);
+        }
+        if (taskIndex == (tasks.size() - 1) || doUpdate) {
+            // If it is the last task within the task-schedule or doUpdate is true -> we
+            // force compilation. This is useful when compiling code for Xilinx/Altera
+            // FPGAs, that has to be a single source.
+            task.forceCompilation();
         }
-        return new ExecutionInfo(callWrapper, waitList);
+        return task;
     }
 
-    private void popArgumentsFromCall(int numArgs) {
-        for (int i = 0; i < numArgs; i++) {
-            bytecodeResult.get();
-            bytecodeResult.getInt();
+    private TornadoInstalledCode installCode(final SchedulableTask task) {
+        try {
+            final long start = System.nanoTime();
+            final TornadoInstalledCode installedCode = deviceForInterpreter.installCode(task);
+            final long compileTime = System.nanoTime() - start;
+            timeProfiler.setTaskTimer(ProfilerType.TASK_COMPILE_TIME, task.getId(), compileTime);
+            info("task %s compiled in %.3f ms (%s)", task.getFullName(), compileTime * 1e-6, Thread.currentThread().getName());
+            return installedCode;
+        } catch (TornadoBailoutRuntimeException e) {
+            throw new TornadoBailoutRuntimeException("Unable to compile " + task.getFullName() + "\n" + "The internal error is: " + e.getMessage() + "\n" + "Stacktrace: " + Arrays.toString(e.getStackTrace()),
+                    e);
+        } catch (TornadoDeviceFP64NotSupported e) {
+            throw e;
+        } catch (InternalError e) {
+            throw new TornadoBailoutRuntimeException("[Internal Error] Unable to compile " + task.getFullName() + "\n" + Arrays.toString(e.getStackTrace()));
         }
     }
 
-    private int executeLaunch(StringBuilder tornadoVMBytecodeList, final int numArgs, final int eventList, final int taskIndex, final long batchThreads, final long offset, ExecutionInfo info) {
+    private int executeLaunch(StringBuilder tornadoVMBytecodeList, TornadoVMBytecodeProgram.Launch launch, KernelArgs callWrapper, int[] waitList) {
+        final int taskIndex = launch.taskIndex;
+        final int eventList = launch.eventList;
+        final long batchThreads = getLaunchThreads(launch);
+        final long offset;
+        if (launch.batched) {
+            offset = batchChunk * batchConfiguration.getElementsPerChunk();
+        } else if (devicePartition != null) {
+            offset = devicePartition.getFirstElement(partitionIndex) - devicePartition.getLeftHalo(partitionIndex);
+        } else {
+            offset = launch.offset;
+        }
 
         final SchedulableTask task = tasks.get(taskIndex);
-        KernelArgs callWrapper = info.callWrapper;
-        int[] waitList = info.waitList;
 
         if (installedCodes[globalToLocalTaskIndex(taskIndex)] == null) {
             // After warming-up, it is possible to get a null pointer in the task-cache due
@@ -667,23 +888,23 @@ public class TornadoVMInterpreter extends TornadoLogger {
 
         atomicsArray = (task instanceof PrebuiltTask) ? ((PrebuiltTask) task).getAtomics() : deviceForInterpreter.checkAtomicsForTask(task);
 
-        HashMap<Integer, Integer> map = new HashMap<>();
+        kernelContextGrid.clear();
         if (gridScheduler != null && gridScheduler.get(task.getId()) != null) {
             WorkerGrid workerGrid = gridScheduler.get(task.getId());
             long[] global = workerGrid.getGlobalWork();
             int i = 0;
             for (long maxThread : global) {
-                map.put(i++, (int) maxThread);
+                kernelContextGrid.put(i++, (int) maxThread);
             }
         }
         callWrapper.reset();
-        callWrapper.setKernelContext(map);
+        callWrapper.setKernelContext(kernelContextGrid);
 
         ObjectBuffer bufferAtomics = null;
 
-        for (int i = 0; i < numArgs; i++) {
-            final byte argType = bytecodeResult.get();
-            final int argIndex = bytecodeResult.getInt();
+        for (int i = 0; i < launch.argTypes.length; i++) {
+            final byte argType = launch.argTypes[i];
+            final int argIndex = launch.argIndexes[i];
 
             if (argType == TornadoVMBytecodes.PUSH_CONSTANT_ARGUMENT.value()) {
                 callWrapper.addCallArgument(constants.get(argIndex), false);
@@ -694,7 +915,7 @@ public class TornadoVMInterpreter extends TornadoLogger {
                 }
 
                 final GlobalObjectState globalState = resolveGlobalObjectState(argIndex);
-                final DeviceObjectState objectState = globalState.getDeviceState(deviceForInterpreter);
+                final DeviceObjectState objectState = globalState.getDeviceState(deviceForInterpreter, launch.argBufferSlots[i]);
 
                 if (!isObjectInAtomicRegion(objectState, deviceForInterpreter, task)) {
                     callWrapper.addCallArgument(objectState.getObjectBuffer().toBuffer(), true);
@@ -713,9 +934,7 @@ public class TornadoVMInterpreter extends TornadoLogger {
                 for (Integer e : allEvents) {
                     Event event = deviceForInterpreter.resolveEvent(e);
                     event.waitForEvents();
-                    long value = timeProfiler.getTimer(ProfilerType.COPY_IN_TIME);
-                    value += event.getElapsedTime();
-                    timeProfiler.setTimer(ProfilerType.COPY_IN_TIME, value);
+                    timeProfiler.sum(ProfilerType.COPY_IN_TIME, event.getElapsedTime());
                 }
             }
             if (TornadoOptions.PRINT_BYTECODES) {
@@ -757,6 +976,106 @@ public class TornadoVMInterpreter extends TornadoLogger {
         }
     }
 
+    /**
+     * It computes the chunks of the batch loop for the current size of the
+     * objects, and moves to the first chunk.
+     */
+    private void beginBatchLoop(TornadoVMBytecodeProgram.BatchBegin batchBegin) {
+        batchConfiguration = BatchConfiguration.computeChunkSizes(executionContext, batchBegin.batchSize, 1);
+        batchChunk = 0;
+    }
+
+    private long getTransferOffset(TornadoVMBytecodeProgram.Transfer transfer) {
+        if (transfer.batched) {
+            return batchConfiguration.getOffset(transfer.objectIndex, batchChunk);
+        } else if (devicePartition != null) {
+            return devicePartition.getOffset(transfer.objectIndex, partitionIndex);
+        }
+        return transfer.offset;
+    }
+
+    private long getTransferSize(TornadoVMBytecodeProgram.Transfer transfer) {
+        if (transfer.batched) {
+            return batchConfiguration.getChunkSize(transfer.objectIndex, batchChunk);
+        } else if (devicePartition != null) {
+            return devicePartition.getSliceSize(transfer.objectIndex, partitionIndex);
+        }
+        return transfer.sizeBatch;
+    }
+
+    private long getAllocSize(TornadoVMBytecodeProgram.Alloc alloc, int i) {
+        if (alloc.batched) {
+            return batchConfiguration.getChunkSize(alloc.objectIndexes[i], batchChunk);
+        } else if (devicePartition != null) {
+            return devicePartition.getSliceSize(alloc.objectIndexes[i], partitionIndex);
+        }
+        return alloc.sizeBatch;
+    }
+
+    private long getLaunchThreads(TornadoVMBytecodeProgram.Launch launch) {
+        if (launch.batched) {
+            return batchConfiguration.getNumThreads(batchChunk);
+        } else if (devicePartition != null) {
+            return devicePartition.getNumThreads(partitionIndex);
+        }
+        return launch.batchThreads;
+    }
+
+    private boolean isSliceWithHalo(int objectIndex) {
+        return devicePartition != null && devicePartition.isPartitioned(objectIndex) && devicePartition.hasHalo(partitionIndex);
+    }
+
+    /**
+     * It copies the elements owned by this device back to the host. The slice on
+     * the device also holds the halos, which are owned by the neighbouring
+     * devices. Thus, the slice is read into a staging object, and only the owned
+     * elements are copied into the host object.
+     */
+    private int transferOwnedElementsToHost(StringBuilder tornadoVMBytecodeList, TornadoVMBytecodeProgram.Transfer transfer, int[] waitList) {
+        final Object object = objects.get(transfer.objectIndex);
+        final Object stagingObject = stagingObjects.computeIfAbsent(transfer.objectIndex, i -> createStagingObject(object, devicePartition.getNumThreads(partitionIndex)));
+        final long firstElement = devicePartition.getFirstElement(partitionIndex);
+        final long ownedElements = devicePartition.getOwnedElements(partitionIndex);
+
+        if (TornadoOptions.PRINT_BYTECODES) {
+            String verbose = String.format("bc: " + InterpreterUtilities.debugHighLightBC("STREAM_OUT_BLOCKING") + " [0x%x] %s on %s, elements=[%d, %d) [event list=%d]", object.hashCode(), object,
+                    InterpreterUtilities.debugDeviceBC(deviceForInterpreter), firstElement, firstElement + ownedElements, transfer.eventList);
+            tornadoVMBytecodeList.append(verbose).append("\n");
+        }
+
+        final DeviceObjectState objectState = resolveObjectState(transfer.objectIndex, transfer.bufferSlot);
+        final int lastEvent = deviceForInterpreter.streamOutBlocking(stagingObject, 0, objectState, waitList);
+
+        final long leftHalo = devicePartition.getLeftHalo(partitionIndex);
+        if (object instanceof TornadoNativeArray) {
+            ((TornadoNativeArray) stagingObject).copyElementsTo(leftHalo, (TornadoNativeArray) object, firstElement, ownedElements);
+        } else {
+            System.arraycopy(stagingObject, (int) leftHalo, object, (int) firstElement, (int) ownedElements);
+        }
+
+        resetEventIndexes(transfer.eventList);
+
+        if (TornadoOptions.isProfilerEnabled() && lastEvent != -1) {
+            Event event = deviceForInterpreter.resolveEvent(lastEvent);
+            event.waitForEvents();
+            timeProfiler.sum(ProfilerType.COPY_OUT_TIME, event.getElapsedTime());
+            timeProfiler.addValueToMetric(ProfilerType.TOTAL_COPY_OUT_SIZE_BYTES, TimeProfiler.NO_TASK_SLOT, objectState.getObjectBuffer().size());
+            timeProfiler.sum(ProfilerType.TOTAL_DISPATCH_DATA_TRANSFERS_TIME, event.getDriverDispatchTime());
+        }
+        return lastEvent;
+    }
+
+    private static Object createStagingObject(Object object, long numElements) {
+        if (object instanceof TornadoNativeArray) {
+            try {
+                return object.getClass().getConstructor(long.class).newInstance(numElements);
+            } catch (ReflectiveOperationException e) {
+                throw new TornadoRuntimeException("[ERROR] Unable to create a staging array of type " + object.getClass().getName() + ": " + e.getMessage());
+            }
+        }
+        return Array.newInstance(object.getClass().getComponentType(), (int) numElements);
+    }
+
     private void executeDependency(StringBuilder tornadoVMBytecodeList, int lastEvent, int eventList) {
         if (useDependencies && lastEvent != -1) {
             if (TornadoOptions.PRINT_BYTECODES) {
@@ -788,8 +1107,8 @@ public class TornadoVMInterpreter extends TornadoLogger {
         throw new TornadoRuntimeException("[ERROR] TornadoVM Bytecode not recognized");
     }
 
-    private DeviceObjectState resolveObjectState(int index, int device) {
-        return globalStates[index].getDeviceState(deviceForInterpreter);
+    private DeviceObjectState resolveObjectState(int index, int bufferSlot) {
+        return globalStates[index].getDeviceState(deviceForInterpreter, bufferSlot);
     }
 
     private boolean isObjectKernelContext(Object object) {
@@ -802,10 +1121,32 @@ public class TornadoVMInterpreter extends TornadoLogger {
 
     private void resetEventIndexes(int eventList) {
         if (eventList != -1) {
+            // Clear the consumed events, so they are not waited on again when the list
+            // is reused with fewer events
+            Arrays.fill(events[eventList], 0, eventsIndexes[eventList], -1);
             eventsIndexes[eventList] = 0;
         }
     }
 
+    /**
+     * It returns a single event that represents all events of a transfer, so it
+     * can be registered by ADD_DEPENDENCY bytecodes. If the transfer did not
+     * enqueue any command (e.g., the data is already on the device), the returned
+     * event forwards the dependencies of the transfer.
+     */
+    private int lastEventOf(List<Integer> allEvents, int[] waitList) {
+        if (allEvents == null || allEvents.isEmpty()) {
+            return (useDependencies && waitList != null && waitList[0] != -1) ? deviceForInterpreter.enqueueMarker(waitList) : -1;
+        } else if (allEvents.size() == 1 || !useDependencies) {
+            return allEvents.get(allEvents.size() - 1);
+        }
+        int[] transferEvents = new int[allEvents.size()];
+        for (int i = 0; i < transferEvents.length; i++) {
+            transferEvents[i] = allEvents.get(i);
+        }
+        return deviceForInterpreter.enqueueMarker(transferEvents);
+    }
+
     private KernelArgs resolveCallWrapper(int index, int numArgs, KernelArgs[] callWrappers, TornadoAcceleratorDevice device, boolean redeployOnDevice) {
         if (executionContext.meta().isDebug() && redeployOnDevice) {
             debug("Recompiling task on device " + device);
@@ -861,13 +1202,18 @@ public class TornadoVMInterpreter extends TornadoLogger {
         Arrays.fill(installedCodes, null);
     }
 
-    private static class ExecutionInfo {
-        KernelArgs callWrapper;
-        int[] waitList;
-
-        public ExecutionInfo(KernelArgs callWrapper, int[] waitList) {
-            this.callWrapper = callWrapper;
-            this.waitList = waitList;
+    /**
+     * Compilation of a task that runs in the compiler thread pool.
+     */
+    private static final class PendingCompilation {
+        private final int localTaskIndex;
+        private final SchedulableTask task;
+        private final Future<TornadoInstalledCode> installedCode;
+
+        PendingCompilation(int localTaskIndex, SchedulableTask task, Future<TornadoInstalledCode> installedCode) {
+            this.localTaskIndex = localTaskIndex;
+            this.task = task;
+            this.installedCode = installedCode;
         }
     }
 
@@ -23,6 +23,7 @@
  */
 package uk.ac.manchester.tornado.runtime.profiler;
 
+import uk.ac.manchester.tornado.api.profiler.ProfilerHistogram;
 import uk.ac.manchester.tornado.api.profiler.ProfilerType;
 import uk.ac.manchester.tornado.api.profiler.TornadoProfiler;
 
@@ -36,6 +37,15 @@ public class EmptyProfiler implements TornadoProfiler {
     public synchronized void addValueToMetric(ProfilerType type, String taskName, long value) {
     }
 
+    @Override
+    public void addValueToMetric(ProfilerType type, int taskSlot, long value) {
+    }
+
+    @Override
+    public int registerTask(String taskName) {
+        return 0;
+    }
+
     @Override
     public synchronized void start(ProfilerType type) {
     }
@@ -107,9 +117,22 @@ public class EmptyProfiler implements TornadoProfiler {
     public synchronized void setTaskTimer(ProfilerType totalKernelTime, String taskId, long timer) {
     }
 
+    @Override
+    public void setTaskTimer(ProfilerType type, int taskSlot, long timer) {
+    }
+
     @Override
     public synchronized void sum(ProfilerType type, long sum) {
 
     }
 
+    @Override
+    public void recordExecution() {
+    }
+
+    @Override
+    public ProfilerHistogram getHistogram(ProfilerType type) {
+        return new ProfilerHistogram();
+    }
+
 }
@@ -23,13 +23,34 @@
  */
 package uk.ac.manchester.tornado.runtime.profiler;
 
-import java.util.HashMap;
-
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import uk.ac.manchester.tornado.api.exceptions.TornadoRuntimeException;
+import uk.ac.manchester.tornado.api.profiler.ProfilerHistogram;
 import uk.ac.manchester.tornado.api.profiler.ProfilerType;
 import uk.ac.manchester.tornado.api.profiler.TornadoProfiler;
 import uk.ac.manchester.tornado.runtime.common.RuntimeUtilities;
 import uk.ac.manchester.tornado.runtime.common.TornadoOptions;
 
+/**
+ * Profiler that stores all timers in primitive slots indexed by
+ * {@link ProfilerType}. Each task has its own set of slots, created by
+ * {@link #registerTask} when the profiler is attached to the task at compile
+ * time. The drivers then address the slots of a task by index, so no lookup by
+ * task name is done when profiling kernels and data transfers. Timers and
+ * metrics are updated with atomic operations, so no lock is taken and no
+ * values are boxed.
+ *
+ * <p>
+ * At the end of each execution, {@link #recordExecution()} adds the kernel,
+ * copy-in, copy-out and total times to latency histograms. In contrast to the
+ * timers, the histograms are not reset by {@link #clean()}.
+ * </p>
+ */
 public class TimeProfiler implements TornadoProfiler {
 
     /**
@@ -39,145 +60,256 @@ public class TimeProfiler implements TornadoProfiler {
      */
     public static String NO_TASK_NAME = "noTask";
 
-    private HashMap<ProfilerType, Long> profilerTime;
-    private HashMap<String, HashMap<ProfilerType, Long>> taskTimers;
-    private HashMap<String, HashMap<ProfilerType, Long>> taskThroughputMetrics;
-    private HashMap<String, HashMap<ProfilerType, String>> taskDeviceIdentifiers;
-    private HashMap<String, HashMap<ProfilerType, String>> taskMethodNames;
+    /**
+     * Slot of {@link #NO_TASK_NAME}.
+     */
+    public static final int NO_TASK_SLOT = 0;
+
+    private static final ProfilerType[] TYPES = ProfilerType.values();
 
-    private HashMap<String, HashMap<ProfilerType, String>> taskBackends;
+    private static final ProfilerType[] HISTOGRAM_TYPES = { ProfilerType.TOTAL_KERNEL_TIME, ProfilerType.COPY_IN_TIME, ProfilerType.COPY_OUT_TIME, ProfilerType.TOTAL_TASK_GRAPH_TIME };
+
+    private final Slots globalSlots;
+    private final Map<String, Integer> taskSlotIndexes;
+    private volatile TaskSlots[] taskSlots;
+    private final ProfilerHistogram[] histograms;
 
     private StringBuffer indent;
 
+    /**
+     * Timers and metrics for every {@link ProfilerType}. A timer is only
+     * reported if it has been set since the last {@link #clean()}.
+     */
+    private static class Slots {
+        final AtomicLongArray timers = new AtomicLongArray(TYPES.length);
+        final AtomicLongArray startTimes = new AtomicLongArray(TYPES.length);
+        final AtomicLongArray timerSet = new AtomicLongArray(TYPES.length);
+        final LongAdder[] metrics = new LongAdder[TYPES.length];
+        final AtomicLongArray metricSet = new AtomicLongArray(TYPES.length);
+
+        Slots() {
+            for (int i = 0; i < TYPES.length; i++) {
+                metrics[i] = new LongAdder();
+            }
+        }
+
+        void setTimer(ProfilerType type, long value) {
+            timers.set(type.ordinal(), value);
+            timerSet.lazySet(type.ordinal(), 1);
+        }
+
+        void addToTimer(ProfilerType type, long value) {
+            timers.addAndGet(type.ordinal(), value);
+            timerSet.lazySet(type.ordinal(), 1);
+        }
+
+        long getTimer(ProfilerType type) {
+            return timers.get(type.ordinal());
+        }
+
+        boolean isTimerSet(ProfilerType type) {
+            return timerSet.get(type.ordinal()) != 0;
+        }
+
+        boolean hasTimers() {
+            for (int i = 0; i < TYPES.length; i++) {
+                if (timerSet.get(i) != 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void addToMetric(ProfilerType type, long value) {
+            metrics[type.ordinal()].add(value);
+            metricSet.lazySet(type.ordinal(), 1);
+        }
+
+        boolean isMetricSet(ProfilerType type) {
+            return metricSet.get(type.ordinal()) != 0;
+        }
+
+        long getMetric(ProfilerType type) {
+            return metrics[type.ordinal()].sum();
+        }
+
+        boolean hasMetrics() {
+            for (int i = 0; i < TYPES.length; i++) {
+                if (metricSet.get(i) != 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void clear() {
+            for (int i = 0; i < TYPES.length; i++) {
+                timers.set(i, 0);
+                startTimes.set(i, 0);
+                timerSet.set(i, 0);
+                metrics[i].reset();
+                metricSet.set(i, 0);
+            }
+        }
+    }
+
+    private static final class TaskSlots extends Slots {
+        private final String taskName;
+        private volatile String methodName;
+        private volatile String backend;
+        private volatile String deviceName;
+        private volatile String deviceID;
+
+        TaskSlots(String taskName) {
+            this.taskName = taskName;
+        }
+    }
+
     public TimeProfiler() {
-        profilerTime = new HashMap<>();
-        taskTimers = new HashMap<>();
-        taskDeviceIdentifiers = new HashMap<>();
-        taskMethodNames = new HashMap<>();
-        taskThroughputMetrics = new HashMap<>();
-        taskBackends = new HashMap<>();
+        globalSlots = new Slots();
+        taskSlotIndexes = new ConcurrentHashMap<>();
+        taskSlots = new TaskSlots[0];
+        registerTask(NO_TASK_NAME);
+        histograms = new ProfilerHistogram[TYPES.length];
+        for (ProfilerType type : HISTOGRAM_TYPES) {
+            histograms[type.ordinal()] = new ProfilerHistogram();
+        }
         indent = new StringBuffer("");
     }
 
     @Override
-    public synchronized void addValueToMetric(ProfilerType type, String taskName, long value) {
-        if (!taskThroughputMetrics.containsKey(taskName)) {
-            taskThroughputMetrics.put(taskName, new HashMap<>());
+    public int registerTask(String taskName) {
+        Integer slot = taskSlotIndexes.get(taskName);
+        return (slot != null) ? slot : addTaskSlots(taskName);
+    }
+
+    private synchronized int addTaskSlots(String taskName) {
+        Integer slot = taskSlotIndexes.get(taskName);
+        if (slot == null) {
+            slot = taskSlots.length;
+            TaskSlots[] newTaskSlots = Arrays.copyOf(taskSlots, slot + 1);
+            newTaskSlots[slot] = new TaskSlots(taskName);
+            taskSlots = newTaskSlots;
+            taskSlotIndexes.put(taskName, slot);
         }
-        HashMap<ProfilerType, Long> profilerType = taskThroughputMetrics.get(taskName);
-        profilerType.put(type, profilerType.get(type) != null ? profilerType.get(type) + value : value);
-        taskThroughputMetrics.put(taskName, profilerType);
+        return slot;
+    }
+
+    private TaskSlots getTaskSlots(String taskName) {
+        return taskSlots[registerTask(taskName)];
     }
 
     @Override
-    public synchronized void start(ProfilerType type) {
-        long start = System.nanoTime();
-        profilerTime.put(type, start);
+    public void addValueToMetric(ProfilerType type, String taskName, long value) {
+        getTaskSlots(taskName).addToMetric(type, value);
     }
 
     @Override
-    public synchronized void start(ProfilerType type, String taskName) {
-        long start = System.nanoTime();
-        if (!taskTimers.containsKey(taskName)) {
-            taskTimers.put(taskName, new HashMap<>());
-        }
-        HashMap<ProfilerType, Long> profilerType = taskTimers.get(taskName);
-        profilerType.put(type, start);
-        taskTimers.put(taskName, profilerType);
+    public void addValueToMetric(ProfilerType type, int taskSlot, long value) {
+        taskSlots[taskSlot].addToMetric(type, value);
     }
 
     @Override
-    public synchronized void registerMethodHandle(ProfilerType type, String taskName, String methodName) {
-        if (!taskMethodNames.containsKey(taskName)) {
-            taskMethodNames.put(taskName, new HashMap<>());
-        }
-        HashMap<ProfilerType, String> profilerType = taskMethodNames.get(taskName);
-        profilerType.put(type, methodName);
-        taskMethodNames.put(methodName, profilerType);
+    public void start(ProfilerType type) {
+        globalSlots.startTimes.set(type.ordinal(), System.nanoTime());
     }
 
     @Override
-    public synchronized void registerDeviceName(String taskName, String deviceInfo) {
-        if (!taskDeviceIdentifiers.containsKey(taskName)) {
-            taskDeviceIdentifiers.put(taskName, new HashMap<>());
-        }
-        HashMap<ProfilerType, String> profilerType = taskDeviceIdentifiers.get(taskName);
-        profilerType.put(ProfilerType.DEVICE, deviceInfo);
-        taskDeviceIdentifiers.put(taskName, profilerType);
+    public void start(ProfilerType type, String taskName) {
+        getTaskSlots(taskName).startTimes.set(type.ordinal(), System.nanoTime());
     }
 
     @Override
-    public synchronized void registerBackend(String taskName, String backend) {
-        if (!taskBackends.containsKey(taskName)) {
-            taskBackends.put(taskName, new HashMap<>());
-        }
-        HashMap<ProfilerType, String> profilerType = taskBackends.get(taskName);
+    public void registerMethodHandle(ProfilerType type, String taskName, String methodName) {
+        getTaskSlots(taskName).methodName = methodName;
+    }
 
-        profilerType.put(ProfilerType.BACKEND, backend);
-        taskBackends.put(taskName, profilerType);
+    @Override
+    public void registerDeviceName(String taskName, String deviceInfo) {
+        getTaskSlots(taskName).deviceName = deviceInfo;
     }
 
     @Override
-    public synchronized void registerDeviceID(String taskName, String deviceID) {
-        if (!taskDeviceIdentifiers.containsKey(taskName)) {
-            taskDeviceIdentifiers.put(taskName, new HashMap<>());
-        }
-        HashMap<ProfilerType, String> profilerType = taskDeviceIdentifiers.get(taskName);
-        profilerType.put(ProfilerType.DEVICE_ID, deviceID);
-        taskDeviceIdentifiers.put(taskName, profilerType);
+    public void registerBackend(String taskName, String backend) {
+        getTaskSlots(taskName).backend = backend;
+    }
+
+    @Override
+    public void registerDeviceID(String taskName, String deviceID) {
+        getTaskSlots(taskName).deviceID = deviceID;
     }
 
     @Override
-    public synchronized void stop(ProfilerType type) {
+    public void stop(ProfilerType type) {
         long end = System.nanoTime();
-        long start = profilerTime.get(type);
-        long total = end - start;
-        profilerTime.put(type, total);
+        globalSlots.setTimer(type, end - globalSlots.startTimes.get(type.ordinal()));
     }
 
     @Override
-    public synchronized void stop(ProfilerType type, String taskName) {
+    public void stop(ProfilerType type, String taskName) {
         long end = System.nanoTime();
-        HashMap<ProfilerType, Long> profiledType = taskTimers.get(taskName);
-        long start = profiledType.get(type);
-        long total = end - start;
-        profiledType.put(type, total);
-        taskTimers.put(taskName, profiledType);
+        TaskSlots slots = getTaskSlots(taskName);
+        slots.setTimer(type, end - slots.startTimes.get(type.ordinal()));
     }
 
     @Override
     public long getTimer(ProfilerType type) {
-        if (!profilerTime.containsKey(type)) {
-            return 0;
-        }
-        return profilerTime.get(type);
+        return globalSlots.getTimer(type);
     }
 
     @Override
     public long getTaskTimer(ProfilerType type, String taskName) {
-        if (!taskTimers.containsKey(taskName)) {
+        Integer slot = taskSlotIndexes.get(taskName);
+        if (slot == null) {
             return 0;
         }
-        if (!taskTimers.get(taskName).containsKey(type)) {
-            return 0;
-        }
-        return taskTimers.get(taskName).get(type);
+        return taskSlots[slot].getTimer(type);
     }
 
     @Override
-    public synchronized void setTimer(ProfilerType type, long time) {
-        profilerTime.put(type, time);
+    public void setTimer(ProfilerType type, long time) {
+        globalSlots.setTimer(type, time);
     }
 
     @Override
-    public synchronized void dump() {
-        for (ProfilerType p : profilerTime.keySet()) {
-            System.out.println("[PROFILER] " + p.getDescription() + ": " + profilerTime.get(p));
+    public void recordExecution() {
+        for (ProfilerType type : HISTOGRAM_TYPES) {
+            if (globalSlots.isTimerSet(type)) {
+                histograms[type.ordinal()].record(globalSlots.getTimer(type));
+            }
         }
+    }
+
+    @Override
+    public ProfilerHistogram getHistogram(ProfilerType type) {
+        ProfilerHistogram histogram = histograms[type.ordinal()];
+        if (histogram == null) {
+            throw new TornadoRuntimeException("[ERROR] No histogram is kept for the profiler type: " + type);
+        }
+        return histogram;
+    }
 
-        for (String p : taskTimers.keySet()) {
-            System.out.println("[PROFILER-TASK] " + p + ": " + taskTimers.get(p));
+    @Override
+    public void dump() {
+        for (ProfilerType p : TYPES) {
+            if (globalSlots.isTimerSet(p)) {
+                System.out.println("[PROFILER] " + p.getDescription() + ": " + globalSlots.getTimer(p));
+            }
+        }
 
+        for (TaskSlots slots : taskSlots) {
+            StringBuilder timers = new StringBuilder("{");
+            for (ProfilerType p : TYPES) {
+                if (slots.isTimerSet(p)) {
+                    timers.append(timers.length() > 1 ? ", " : "").append(p).append("=").append(slots.getTimer(p));
+                }
+            }
+            System.out.println("[PROFILER-TASK] " + slots.taskName + ": " + timers.append("}"));
+        }
+        for (ProfilerType p : HISTOGRAM_TYPES) {
+            if (histograms[p.ordinal()].getCount() > 0) {
+                System.out.println("[PROFILER-HISTOGRAM] " + p.getDescription() + ": " + histograms[p.ordinal()]);
+            }
         }
     }
 
@@ -203,43 +335,52 @@ public class TimeProfiler implements TornadoProfiler {
         increaseIndent();
         json.append(indent.toString() + "\"" + sectionName + "\": " + "{\n");
         increaseIndent();
-        for (ProfilerType p : profilerTime.keySet()) {
-            json.append(indent.toString() + "\"" + p + "\"" + ": " + "\"" + profilerTime.get(p) + "\",\n");
+        for (ProfilerType p : TYPES) {
+            if (globalSlots.isTimerSet(p)) {
+                json.append(indent.toString() + "\"" + p + "\"" + ": " + "\"" + globalSlots.getTimer(p) + "\",\n");
+            }
         }
-        if (taskThroughputMetrics.containsKey(NO_TASK_NAME)) {
-            HashMap<ProfilerType, Long> noTaskValues = taskThroughputMetrics.get(NO_TASK_NAME);
-            for (ProfilerType p : noTaskValues.keySet()) {
-                json.append(indent.toString() + "\"" + p + "\"" + ": " + "\"" + noTaskValues.get(p) + "\",\n");
+        TaskSlots noTaskSlots = taskSlots[NO_TASK_SLOT];
+        for (ProfilerType p : TYPES) {
+            if (noTaskSlots.isMetricSet(p)) {
+                json.append(indent.toString() + "\"" + p + "\"" + ": " + "\"" + noTaskSlots.getMetric(p) + "\",\n");
             }
         }
 
-        final int size = taskTimers.keySet().size();
         int counter = 0;
-        for (String p : taskTimers.keySet()) {
-            json.append(indent.toString() + "\"" + p + "\"" + ": {\n");
-            increaseIndent();
+        for (TaskSlots slots : taskSlots) {
+            if (!slots.hasTimers()) {
+                continue;
+            }
+            if (counter > 0) {
+                json.append(", ");
+                newLine(json);
+            }
             counter++;
+            json.append(indent.toString() + "\"" + slots.taskName + "\"" + ": {\n");
+            increaseIndent();
             if (TornadoOptions.LOG_IP) {
                 json.append(indent.toString() + "\"" + "IP" + "\"" + ": " + "\"" + RuntimeUtilities.getTornadoInstanceIP() + "\",\n");
             }
-            json.append(indent.toString() + "\"" + ProfilerType.BACKEND + "\"" + ": " + "\"" + taskBackends.get(p).get(ProfilerType.BACKEND) + "\",\n");
-            json.append(indent.toString() + "\"" + ProfilerType.METHOD + "\"" + ": " + "\"" + taskMethodNames.get(p).get(ProfilerType.METHOD) + "\",\n");
-            json.append(indent.toString() + "\"" + ProfilerType.DEVICE_ID + "\"" + ": " + "\"" + taskDeviceIdentifiers.get(p).get(ProfilerType.DEVICE_ID) + "\",\n");
-            json.append(indent.toString() + "\"" + ProfilerType.DEVICE + "\"" + ": " + "\"" + taskDeviceIdentifiers.get(p).get(ProfilerType.DEVICE) + "\",\n");
-            if (taskThroughputMetrics.containsKey(p)) {
-                for (ProfilerType p1 : taskThroughputMetrics.get(p).keySet()) {
-                    json.append(indent.toString() + "\"" + p1 + "\"" + ": " + "\"" + taskThroughputMetrics.get(p).get(p1) + "\",\n");
+            json.append(indent.toString() + "\"" + ProfilerType.BACKEND + "\"" + ": " + "\"" + slots.backend + "\",\n");
+            json.append(indent.toString() + "\"" + ProfilerType.METHOD + "\"" + ": " + "\"" + slots.methodName + "\",\n");
+            json.append(indent.toString() + "\"" + ProfilerType.DEVICE_ID + "\"" + ": " + "\"" + slots.deviceID + "\",\n");
+            json.append(indent.toString() + "\"" + ProfilerType.DEVICE + "\"" + ": " + "\"" + slots.deviceName + "\",\n");
+            for (ProfilerType p1 : TYPES) {
+                if (slots.isMetricSet(p1)) {
+                    json.append(indent.toString() + "\"" + p1 + "\"" + ": " + "\"" + slots.getMetric(p1) + "\",\n");
                 }
             }
-            for (ProfilerType p2 : taskTimers.get(p).keySet()) {
-                json.append(indent.toString() + "\"" + p2 + "\"" + ": " + "\"" + taskTimers.get(p).get(p2) + "\",\n");
+            for (ProfilerType p2 : TYPES) {
+                if (slots.isTimerSet(p2)) {
+                    json.append(indent.toString() + "\"" + p2 + "\"" + ": " + "\"" + slots.getTimer(p2) + "\",\n");
+                }
             }
             json.delete(json.length() - 2, json.length() - 1); // remove last comma
             decreaseIndent();
             closeScope(json);
-            if (counter != size) {
-                json.append(", ");
-            }
+        }
+        if (counter > 0) {
             newLine(json);
         }
         decreaseIndent();
@@ -259,24 +400,26 @@ public class TimeProfiler implements TornadoProfiler {
 
     @Override
     public synchronized void clean() {
-        taskThroughputMetrics.clear();
-        profilerTime.clear();
-        taskTimers.clear();
+        globalSlots.clear();
+        for (TaskSlots slots : taskSlots) {
+            slots.clear();
+        }
         indent = new StringBuffer("");
     }
 
     @Override
-    public synchronized void setTaskTimer(ProfilerType type, String taskID, long timer) {
-        if (!taskTimers.containsKey(taskID)) {
-            taskTimers.put(taskID, new HashMap<>());
-        }
-        taskTimers.get(taskID).put(type, timer);
+    public void setTaskTimer(ProfilerType type, String taskID, long timer) {
+        getTaskSlots(taskID).setTimer(type, timer);
+    }
+
+    @Override
+    public void setTaskTimer(ProfilerType type, int taskSlot, long timer) {
+        taskSlots[taskSlot].setTimer(type, timer);
     }
 
     @Override
-    public synchronized void sum(ProfilerType acc, long value) {
-        long sum = getTimer(acc) + value;
-        profilerTime.put(acc, sum);
+    public void sum(ProfilerType acc, long value) {
+        globalSlots.addToTimer(acc, value);
     }
 
 }
@@ -33,6 +33,7 @@ import static uk.ac.manchester.tornado.runtime.TornadoCoreRuntime.getTornadoExec
 import static uk.ac.manchester.tornado.runtime.common.Tornado.fatal;
 import static uk.ac.manchester.tornado.runtime.common.Tornado.info;
 
+import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -66,10 +67,14 @@ import uk.ac.manchester.tornado.api.enums.TornadoVMBackendType;
 import uk.ac.manchester.tornado.api.exceptions.TornadoBailoutRuntimeException;
 import uk.ac.manchester.tornado.api.exceptions.TornadoInternalError;
 import uk.ac.manchester.tornado.api.exceptions.TornadoRuntimeException;
+import uk.ac.manchester.tornado.runtime.TornadoAcceleratorDriver;
+import uk.ac.manchester.tornado.runtime.TornadoCoreRuntime;
 import uk.ac.manchester.tornado.runtime.common.OCLTokens;
+import uk.ac.manchester.tornado.runtime.common.PersistentKernelCache;
 import uk.ac.manchester.tornado.runtime.common.Tornado;
 import uk.ac.manchester.tornado.runtime.graal.compiler.TornadoCompilerIdentifier;
 import uk.ac.manchester.tornado.runtime.graal.compiler.TornadoSketchTier;
+import uk.ac.manchester.tornado.runtime.graal.compiler.TornadoSuitesProvider;
 import uk.ac.manchester.tornado.runtime.graal.phases.TornadoSketchTierContext;
 
 public class TornadoSketcher {
@@ -150,6 +155,62 @@ public class TornadoSketcher {
         return sketch;
     }
 
+    /**
+     * It returns the sketch of a method, and it requests the sketch first if it
+     * was not requested when the task was added to the task-graph.
+     */
+    public static Sketch lookupOrBuild(ResolvedJavaMethod resolvedMethod, int driverIndex, int deviceIndex) {
+        if (!cacheContainsSketch(resolvedMethod, driverIndex, deviceIndex)) {
+            TornadoAcceleratorDriver driver = TornadoCoreRuntime.getTornadoRuntime().getDriver(driverIndex);
+            TornadoSuitesProvider suites = driver.getSuitesProvider();
+            new SketchRequest(resolvedMethod, driver.getProviders(), suites.getGraphBuilderSuite(), suites.getSketchTier(), driverIndex, deviceIndex).run();
+        }
+        return lookup(resolvedMethod, driverIndex, deviceIndex);
+    }
+
+    /**
+     * It returns the accesses of the arguments of a method. If the sketch was not
+     * built and the {@link PersistentKernelCache} is enabled, the accesses are read
+     * from the cache.
+     */
+    public static Access[] lookupArgumentsAccess(Method method, ResolvedJavaMethod resolvedMethod, int driverIndex, int deviceIndex) {
+        final PersistentKernelCache kernelCache = PersistentKernelCache.getInstance();
+        final String key = kernelCache.buildAccessKey(method, resolvedMethod, getBackendName(driverIndex));
+        if (!cacheContainsSketch(resolvedMethod, driverIndex, deviceIndex)) {
+            PersistentKernelCache.Entry entry = kernelCache.lookup(key);
+            if (entry != null) {
+                return entry.getArgumentsAccess();
+            }
+        }
+        final Sketch sketch = lookupOrBuild(resolvedMethod, driverIndex, deviceIndex);
+        final Access[] accesses = sketch.getArgumentsAccess();
+        if (kernelCache.isEnabled() && !kernelCache.contains(key)) {
+            // The accesses depend on the methods inlined into the sketch
+            final List<ResolvedJavaMethod> methods = new ArrayList<>();
+            methods.add(resolvedMethod);
+            methods.addAll(((StructuredGraph) sketch.getGraph().getReadonlyCopy()).getMethods());
+            kernelCache.store(key, resolvedMethod.getName(), accesses, methods.toArray(new ResolvedJavaMethod[0]), new byte[0]);
+        }
+        return accesses;
+    }
+
+    /**
+     * The sketch of a method can be built on demand, by the backend, when the
+     * accesses of its arguments are stored in the {@link PersistentKernelCache}.
+     * Methods with reductions always need their sketch.
+     */
+    public static boolean canDeferSketch(Method method, ResolvedJavaMethod resolvedMethod, int driverIndex) {
+        final PersistentKernelCache kernelCache = PersistentKernelCache.getInstance();
+        if (!kernelCache.isEnabled() || PersistentKernelCache.hasReduceParameters(method)) {
+            return false;
+        }
+        return kernelCache.contains(kernelCache.buildAccessKey(method, resolvedMethod, getBackendName(driverIndex)));
+    }
+
+    private static String getBackendName(int driverIndex) {
+        return TornadoCoreRuntime.getTornadoRuntime().getDriver(driverIndex).getBackendType().name();
+    }
+
     private static class TornadoSketcherCallable implements Callable<Sketch> {
         private final SketchRequest request;
 
@@ -0,0 +1,256 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2023, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.runtime.tasks;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import uk.ac.manchester.tornado.api.exceptions.TornadoRuntimeException;
+import uk.ac.manchester.tornado.runtime.common.TornadoOptions;
+
+/**
+ * Online device selection for the {@link uk.ac.manchester.tornado.api.Policy#ADAPTIVE}
+ * policy of the dynamic reconfiguration.
+ *
+ * <p>
+ * Instead of profiling all devices once and keeping the winner forever, the
+ * selector keeps an exponentially weighted moving average of the execution
+ * time of each candidate (the accelerators and the JVM) per input-size bucket.
+ * Buckets are powers of two of the input size. Each execution:
+ * </p>
+ * <ul>
+ * <li>Runs on a candidate without measurements, until all candidates have been
+ * measured. The first execution on each candidate is a warm-up (it includes
+ * the JIT compilation) and it is discarded.</li>
+ * <li>Otherwise, it re-probes a losing candidate every {@code probePeriod}
+ * executions, or as soon as the estimate of a loser is better than the estimate
+ * of the winner. Probes are only issued while the time lost in probes stays
+ * below {@code explorationBudget} of the total execution time.</li>
+ * <li>Otherwise, it runs on the current winner.</li>
+ * </ul>
+ *
+ * <p>
+ * A loser becomes the new winner only after it beats the winner in
+ * {@code migrationThreshold} consecutive probes. Thus, a single noisy
+ * measurement does not migrate the task graph.
+ * </p>
+ */
+public final class AdaptiveDeviceSelector {
+
+    private final int numCandidates;
+    private final double smoothing;
+    private final int probePeriod;
+    private final double explorationBudget;
+    private final int migrationThreshold;
+    private final Map<Integer, Bucket> buckets = new HashMap<>();
+
+    /**
+     * Selector configured with the TornadoVM options.
+     *
+     * @param numCandidates
+     *            Number of candidates (accelerators plus the JVM).
+     */
+    public AdaptiveDeviceSelector(int numCandidates) {
+        this(numCandidates, TornadoOptions.getAdaptivePolicySmoothing(), TornadoOptions.getAdaptivePolicyProbePeriod(), TornadoOptions.getAdaptivePolicyExplorationBudget(),
+                TornadoOptions.getAdaptivePolicyMigrationThreshold());
+    }
+
+    /**
+     * @param numCandidates
+     *            Number of candidates (accelerators plus the JVM).
+     * @param smoothing
+     *            Weight of a new measurement in the moving average, in (0, 1].
+     * @param probePeriod
+     *            Number of executions between two probes of a losing candidate.
+     * @param explorationBudget
+     *            Maximum fraction of the total execution time lost in probes.
+     * @param migrationThreshold
+     *            Number of consecutive probes that a loser must win to become
+     *            the winner.
+     */
+    public AdaptiveDeviceSelector(int numCandidates, double smoothing, int probePeriod, double explorationBudget, int migrationThreshold) {
+        if (numCandidates < 1 || smoothing <= 0 || smoothing > 1 || probePeriod < 1 || explorationBudget < 0 || migrationThreshold < 1) {
+            throw new TornadoRuntimeException("[ERROR] Invalid configuration for the adaptive policy");
+        }
+        this.numCandidates = numCandidates;
+        this.smoothing = smoothing;
+        this.probePeriod = probePeriod;
+        this.explorationBudget = explorationBudget;
+        this.migrationThreshold = migrationThreshold;
+    }
+
+    private static final class Bucket {
+        private final double[] estimates;
+        private final boolean[] warmedUp;
+        private final long[] lastSample;
+        private int winner = -1;
+        private int challenger = -1;
+        private int challengerWins;
+        private long executions;
+        private double totalTime;
+        private double explorationTime;
+
+        Bucket(int numCandidates) {
+            estimates = new double[numCandidates];
+            Arrays.fill(estimates, Double.NaN);
+            warmedUp = new boolean[numCandidates];
+            lastSample = new long[numCandidates];
+        }
+    }
+
+    /**
+     * Input-size bucket used to group measurements.
+     *
+     * @param inputSize
+     *            Size of the largest input of the task graph.
+     * @return floor(log2(inputSize)).
+     */
+    public static int getSizeBucket(long inputSize) {
+        return 63 - Long.numberOfLeadingZeros(Math.max(1, inputSize));
+    }
+
+    private Bucket getBucket(long inputSize) {
+        return buckets.computeIfAbsent(getSizeBucket(inputSize), k -> new Bucket(numCandidates));
+    }
+
+    /**
+     * It selects the candidate for the next execution.
+     *
+     * @param inputSize
+     *            Size of the largest input of the task graph.
+     * @return Index of the candidate. The last index is the JVM.
+     */
+    public synchronized int selectDevice(long inputSize) {
+        Bucket bucket = getBucket(inputSize);
+        for (int i = 0; i < numCandidates; i++) {
+            if (Double.isNaN(bucket.estimates[i])) {
+                return i;
+            }
+        }
+
+        int bestLoser = -1;
+        int stalestLoser = -1;
+        for (int i = 0; i < numCandidates; i++) {
+            if (i == bucket.winner) {
+                continue;
+            }
+            if (bestLoser == -1 || bucket.estimates[i] < bucket.estimates[bestLoser]) {
+                bestLoser = i;
+            }
+            if (stalestLoser == -1 || bucket.lastSample[i] < bucket.lastSample[stalestLoser]) {
+                stalestLoser = i;
+            }
+        }
+        if (bestLoser == -1 || bucket.explorationTime > explorationBudget * bucket.totalTime) {
+            return bucket.winner;
+        }
+        if (bucket.estimates[bestLoser] < bucket.estimates[bucket.winner]) {
+            // The winner has slowed down: confirm with fresh measurements of the loser
+            return bestLoser;
+        }
+        return ((bucket.executions + 1) % probePeriod == 0) ? stalestLoser : bucket.winner;
+    }
+
+    /**
+     * It records the execution time of a candidate.
+     *
+     * @param inputSize
+     *            Size of the largest input of the task graph.
+     * @param device
+     *            Candidate that ran the task graph.
+     * @param elapsedTime
+     *            Execution time.
+     */
+    public synchronized void recordExecution(long inputSize, int device, long elapsedTime) {
+        Bucket bucket = getBucket(inputSize);
+        bucket.executions++;
+        if (!bucket.warmedUp[device]) {
+            bucket.warmedUp[device] = true;
+            return;
+        }
+
+        bucket.totalTime += elapsedTime;
+        if (bucket.winner != -1 && device != bucket.winner) {
+            bucket.explorationTime += Math.max(0, elapsedTime - bucket.estimates[bucket.winner]);
+        }
+        double estimate = bucket.estimates[device];
+        bucket.estimates[device] = Double.isNaN(estimate) ? elapsedTime : (smoothing * elapsedTime) + ((1 - smoothing) * estimate);
+        bucket.lastSample[device] = bucket.executions;
+
+        if (bucket.winner == -1) {
+            for (int i = 0; i < numCandidates; i++) {
+                if (Double.isNaN(bucket.estimates[i])) {
+                    return;
+                }
+            }
+            bucket.winner = argMin(bucket.estimates);
+        } else if (device != bucket.winner) {
+            if (bucket.estimates[device] < bucket.estimates[bucket.winner]) {
+                bucket.challengerWins = (bucket.challenger == device) ? bucket.challengerWins + 1 : 1;
+                bucket.challenger = device;
+                if (bucket.challengerWins >= migrationThreshold) {
+                    bucket.winner = device;
+                    bucket.challenger = -1;
+                    bucket.challengerWins = 0;
+                }
+            } else if (bucket.challenger == device) {
+                bucket.challenger = -1;
+                bucket.challengerWins = 0;
+            }
+        }
+    }
+
+    /**
+     * @param inputSize
+     *            Size of the largest input of the task graph.
+     * @return The current winner for the input size, or -1 if not all candidates
+     *         have been measured yet.
+     */
+    public synchronized int getWinner(long inputSize) {
+        return getBucket(inputSize).winner;
+    }
+
+    /**
+     * @param inputSize
+     *            Size of the largest input of the task graph.
+     * @param device
+     *            Candidate index.
+     * @return The moving average of the execution time, or NaN if the candidate
+     *         has not been measured yet.
+     */
+    public synchronized double getEstimate(long inputSize, int device) {
+        return getBucket(inputSize).estimates[device];
+    }
+
+    private static int argMin(double[] values) {
+        int position = 0;
+        for (int i = 1; i < values.length; i++) {
+            if (values[i] < values[position]) {
+                position = i;
+            }
+        }
+        return position;
+    }
+}
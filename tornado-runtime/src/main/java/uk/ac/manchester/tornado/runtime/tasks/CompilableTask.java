@@ -42,6 +42,8 @@ public class CompilableTask implements SchedulableTask {
     protected final Object[] args;
     protected final Method method;
     private final Object[] resolvedArgs;
+    private final ScheduleMetaData scheduleMeta;
+    private final String taskId;
     protected TaskMetaData meta;
     protected boolean shouldCompile;
     private long batchNumThreads;
@@ -54,9 +56,27 @@ public class CompilableTask implements SchedulableTask {
         this.args = args;
         this.shouldCompile = true;
         this.resolvedArgs = args;
+        this.scheduleMeta = meta;
+        this.taskId = id;
         this.meta = TaskMetaData.create(meta, id, method);
     }
 
+    /**
+     * It creates a copy of this task mapped to another device. The copy shares the
+     * arguments of this task, but it has its own meta-data and number of threads,
+     * so it can be compiled for each device of a data-parallel split.
+     *
+     * @param device
+     *            The {@link TornadoDevice} of the copy.
+     * @return {@link CompilableTask}
+     */
+    public CompilableTask copyTo(TornadoDevice device) {
+        CompilableTask copy = new CompilableTask(scheduleMeta, taskId, method, args);
+        Access[] argumentsAccess = meta.getArgumentsAccess();
+        System.arraycopy(argumentsAccess, 0, copy.meta.getArgumentsAccess(), 0, argumentsAccess.length);
+        return copy.mapTo(device);
+    }
+
     @Override
     public String toString() {
         final StringBuilder buffer = new StringBuilder();
@@ -109,6 +129,14 @@ public class CompilableTask implements SchedulableTask {
         return method;
     }
 
+    ScheduleMetaData getScheduleMeta() {
+        return scheduleMeta;
+    }
+
+    String getTaskId() {
+        return taskId;
+    }
+
     @Override
     public String getId() {
         return meta.getId();
@@ -0,0 +1,333 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2023, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.runtime.tasks;
+
+import static uk.ac.manchester.tornado.runtime.common.Tornado.warn;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import uk.ac.manchester.tornado.api.Policy;
+import uk.ac.manchester.tornado.api.exceptions.TornadoRuntimeException;
+import uk.ac.manchester.tornado.runtime.common.TornadoOptions;
+
+/**
+ * Execution times of task-graphs per device and input size, used by the
+ * dynamic reconfiguration to avoid profiling all devices again.
+ *
+ * <p>
+ * Entries are keyed by the signature of the task-graph (see
+ * {@link #getSignature(Policy, List)}) and by the identity of the device (see
+ * {@link #JVM_DEVICE} for the sequential code). For each pair, the table keeps
+ * the mean execution time per input size. For an input size that has not been
+ * measured, the time is linearly interpolated between the closest smaller and
+ * larger sizes, or taken from the closest size if the input size is outside
+ * the measured range.
+ * </p>
+ *
+ * <p>
+ * The history can be saved to and loaded from a text file with one entry per
+ * line: {@code signature<TAB>device<TAB>inputSize<TAB>timeNs<TAB>samples}.
+ * When {@code -Dtornado.dynamic.history.file=<file>} is set, the global
+ * instance is loaded from that file and saved after each profiling pass.
+ * Entries can also be seeded ahead of time with
+ * {@link #seed(String, String, long, double)}.
+ * </p>
+ */
+public final class ExecutionHistory {
+
+    /**
+     * Device identity of the sequential code running on the JVM.
+     */
+    public static final String JVM_DEVICE = "JVM";
+
+    private static final String HEADER = "# TornadoVM execution history: signature, device, input size, time (ns), samples";
+    private static final String SEPARATOR = "\t";
+
+    private static ExecutionHistory instance;
+
+    private final Path file;
+
+    /**
+     * signature -> device -> input size -> measurement.
+     */
+    private final Map<String, Map<String, TreeMap<Long, Measurement>>> table = new HashMap<>();
+
+    private static final class Measurement {
+        private double time;
+        private long samples;
+
+        Measurement(double time, long samples) {
+            this.time = time;
+            this.samples = samples;
+        }
+    }
+
+    /**
+     * In-memory history.
+     */
+    public ExecutionHistory() {
+        this(null);
+    }
+
+    /**
+     * History backed by a file. The file is loaded, if it exists.
+     *
+     * @param file
+     *            File to load from and save to, or null for an in-memory
+     *            history.
+     */
+    public ExecutionHistory(Path file) {
+        this.file = file;
+        if (file != null && Files.exists(file)) {
+            load(file);
+        }
+    }
+
+    /**
+     * @return The history shared by all task-graphs of the JVM.
+     */
+    public static synchronized ExecutionHistory getInstance() {
+        if (instance == null) {
+            String fileName = TornadoOptions.getExecutionHistoryFile();
+            instance = new ExecutionHistory(fileName.isEmpty() ? null : Paths.get(fileName));
+        }
+        return instance;
+    }
+
+    /**
+     * Signature of a task-graph for the history: the policy used to measure it
+     * and the signatures of its task methods.
+     *
+     * @param policy
+     *            Policy of the dynamic reconfiguration.
+     * @param methods
+     *            Task methods, in order.
+     * @return String.
+     */
+    public static String getSignature(Policy policy, List<Method> methods) {
+        return policy.name() + "|" + methods.stream().map(Method::toGenericString).collect(Collectors.joining(";"));
+    }
+
+    private TreeMap<Long, Measurement> getSizes(String signature, String device) {
+        return table.computeIfAbsent(signature, k -> new HashMap<>()).computeIfAbsent(device, k -> new TreeMap<>());
+    }
+
+    /**
+     * It adds a measurement. The time for the input size is the mean of all
+     * measurements.
+     *
+     * @param signature
+     *            Task-graph signature.
+     * @param device
+     *            Device identity.
+     * @param inputSize
+     *            Input size.
+     * @param time
+     *            Execution time in nanoseconds.
+     */
+    public synchronized void record(String signature, String device, long inputSize, double time) {
+        Measurement measurement = getSizes(signature, device).get(inputSize);
+        if (measurement == null) {
+            getSizes(signature, device).put(inputSize, new Measurement(time, 1));
+        } else {
+            measurement.time = ((measurement.time * measurement.samples) + time) / (measurement.samples + 1);
+            measurement.samples++;
+        }
+    }
+
+    /**
+     * It sets the time for an input size, replacing previous measurements.
+     *
+     * @param signature
+     *            Task-graph signature.
+     * @param device
+     *            Device identity.
+     * @param inputSize
+     *            Input size.
+     * @param time
+     *            Execution time in nanoseconds.
+     */
+    public synchronized void seed(String signature, String device, long inputSize, double time) {
+        getSizes(signature, device).put(inputSize, new Measurement(time, 1));
+    }
+
+    /**
+     * It estimates the execution time of a task-graph on a device.
+     *
+     * @param signature
+     *            Task-graph signature.
+     * @param device
+     *            Device identity.
+     * @param inputSize
+     *            Input size.
+     * @return Time in nanoseconds, or NaN if there are no measurements.
+     */
+    public synchronized double estimate(String signature, String device, long inputSize) {
+        Map<String, TreeMap<Long, Measurement>> devices = table.get(signature);
+        TreeMap<Long, Measurement> sizes = (devices == null) ? null : devices.get(device);
+        if (sizes == null || sizes.isEmpty()) {
+            return Double.NaN;
+        }
+        Map.Entry<Long, Measurement> floor = sizes.floorEntry(inputSize);
+        Map.Entry<Long, Measurement> ceiling = sizes.ceilingEntry(inputSize);
+        if (floor == null) {
+            return ceiling.getValue().time;
+        } else if (ceiling == null || floor.getKey().equals(ceiling.getKey())) {
+            return floor.getValue().time;
+        }
+        double ratio = (double) (inputSize - floor.getKey()) / (ceiling.getKey() - floor.getKey());
+        return floor.getValue().time + (ratio * (ceiling.getValue().time - floor.getValue().time));
+    }
+
+    /**
+     * It selects the device with the lowest estimated time. A device without
+     * measurements could be the fastest one, so a winner is only selected when
+     * every device has an estimate.
+     *
+     * @param signature
+     *            Task-graph signature.
+     * @param devices
+     *            Identities of the devices to consider.
+     * @param inputSize
+     *            Input size.
+     * @return The device identity, or null if any of the devices has no
+     *         measurements.
+     */
+    public synchronized String getBestDevice(String signature, Collection<String> devices, long inputSize) {
+        String best = null;
+        double bestTime = Double.MAX_VALUE;
+        for (String device : devices) {
+            double time = estimate(signature, device, inputSize);
+            if (Double.isNaN(time)) {
+                return null;
+            } else if (time < bestTime) {
+                bestTime = time;
+                best = device;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * It removes all entries.
+     */
+    public synchronized void clear() {
+        table.clear();
+    }
+
+    /**
+     * It saves the history to its file, if the history is backed by a file.
+     */
+    public void save() {
+        if (file != null) {
+            save(file);
+        }
+    }
+
+    /**
+     * It saves the history to a file. The file is replaced atomically. Errors
+     * are reported as warnings, because the history is only used to speed up
+     * later runs and must not abort the execution of a task graph.
+     *
+     * @param path
+     *            Output file.
+     */
+    public synchronized void save(Path path) {
+        Path temporary = null;
+        try {
+            Path directory = path.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            temporary = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+            try (BufferedWriter writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+                writer.write(HEADER);
+                writer.newLine();
+                for (Map.Entry<String, Map<String, TreeMap<Long, Measurement>>> signature : table.entrySet()) {
+                    for (Map.Entry<String, TreeMap<Long, Measurement>> device : signature.getValue().entrySet()) {
+                        for (Map.Entry<Long, Measurement> size : device.getValue().entrySet()) {
+                            writer.write(signature.getKey() + SEPARATOR + device.getKey() + SEPARATOR + size.getKey() + SEPARATOR + size.getValue().time + SEPARATOR + size.getValue().samples);
+                            writer.newLine();
+                        }
+                    }
+                }
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            warn("Execution history could not be saved to %s: %s", path, e.getMessage());
+            deleteTemporaryFile(temporary);
+        }
+    }
+
+    private static void deleteTemporaryFile(Path temporary) {
+        if (temporary != null) {
+            try {
+                Files.deleteIfExists(temporary);
+            } catch (IOException e) {
+                warn("Temporary file of the execution history could not be deleted %s: %s", temporary, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * It loads the entries of a file into the history. Entries of the file
+     * replace the entries in memory with the same key.
+     *
+     * @param path
+     *            Input file.
+     */
+    public synchronized void load(Path path) {
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new TornadoRuntimeException("[ERROR] Execution history could not be loaded from " + path + ": " + e.getMessage());
+        }
+        for (String line : lines) {
+            if (line.isBlank() || line.startsWith("#")) {
+                continue;
+            }
+            String[] fields = line.split(SEPARATOR);
+            try {
+                if (fields.length != 5) {
+                    throw new NumberFormatException();
+                }
+                getSizes(fields[0], fields[1]).put(Long.parseLong(fields[2]), new Measurement(Double.parseDouble(fields[3]), Long.parseLong(fields[4])));
+            } catch (NumberFormatException e) {
+                warn("Ignoring malformed entry of the execution history %s: %s", path, line);
+            }
+        }
+    }
+}
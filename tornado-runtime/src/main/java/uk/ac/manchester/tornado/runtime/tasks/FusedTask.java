@@ -0,0 +1,198 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2023, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.runtime.tasks;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import uk.ac.manchester.tornado.api.GridScheduler;
+import uk.ac.manchester.tornado.api.common.Access;
+import uk.ac.manchester.tornado.api.common.SchedulableTask;
+import uk.ac.manchester.tornado.api.common.TornadoDevice;
+import uk.ac.manchester.tornado.api.profiler.TornadoProfiler;
+import uk.ac.manchester.tornado.runtime.common.TornadoAcceleratorDevice;
+import uk.ac.manchester.tornado.runtime.tasks.meta.TaskMetaData;
+
+/**
+ * A chain of element-wise {@link CompilableTask}s that runs as a single kernel.
+ * The arguments of the fused task are the union of the arguments of its
+ * components, and each component keeps the position of its own parameters
+ * within that union. The fused task takes the id of its first component, so
+ * the timers and the device of the chain are those of the producer.
+ */
+public class FusedTask implements SchedulableTask {
+
+    private final List<CompilableTask> tasks;
+    private final Object[] args;
+    private final int[][] argumentIndexes;
+    private final TaskMetaData meta;
+    private final String entryPoint;
+    private long batchThreads;
+
+    private TornadoProfiler profiler;
+    private boolean forceCompiler;
+
+    public FusedTask(List<CompilableTask> tasks, Object[] args, Access[] access, int[][] argumentIndexes) {
+        this.tasks = tasks;
+        this.args = args;
+        this.argumentIndexes = argumentIndexes;
+        final CompilableTask first = tasks.get(0);
+        meta = new TaskMetaData(first.getScheduleMeta(), first.getTaskId(), access.length);
+        System.arraycopy(access, 0, meta.getArgumentsAccess(), 0, access.length);
+        meta.setDevice(first.getDevice());
+        // The kernel of the chain can be already installed from a previous compilation
+        if (first.meta().getDomain() != null) {
+            meta.setDomain(first.meta().getDomain());
+            meta.setCompiledGraph(first.meta().getCompiledResolvedJavaMethod());
+        }
+        entryPoint = "fused_" + tasks.stream().map(CompilableTask::getTaskName).collect(Collectors.joining("_")).replace('$', '_');
+    }
+
+    /**
+     * @return The tasks fused into this one, in the order of the task-graph.
+     */
+    public List<CompilableTask> getTasks() {
+        return tasks;
+    }
+
+    /**
+     * It returns, for each parameter of a component, the index of the argument of
+     * the fused task that is passed to it.
+     *
+     * @param taskIndex
+     *            Position of the component within the chain.
+     * @return int[]
+     */
+    public int[] getArgumentIndexes(int taskIndex) {
+        return argumentIndexes[taskIndex];
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder buffer = new StringBuilder();
+        buffer.append("task: ").append(meta.getId()).append(" ").append(entryPoint).append("()\n");
+        Access[] argumentsAccess = meta.getArgumentsAccess();
+        for (int i = 0; i < args.length; i++) {
+            buffer.append(String.format("arg  : [%s] %s%n", argumentsAccess[i], args[i]));
+        }
+        buffer.append("meta : ").append(meta.toString());
+        return buffer.toString();
+    }
+
+    @Override
+    public Object[] getArguments() {
+        return args;
+    }
+
+    @Override
+    public Access[] getArgumentsAccess() {
+        return meta.getArgumentsAccess();
+    }
+
+    @Override
+    public TaskMetaData meta() {
+        return meta;
+    }
+
+    @Override
+    public FusedTask mapTo(TornadoDevice mapping) {
+        meta.setDevice(mapping);
+        tasks.forEach(task -> task.mapTo(mapping));
+        return this;
+    }
+
+    @Override
+    public TornadoAcceleratorDevice getDevice() {
+        return meta.getLogicDevice();
+    }
+
+    @Override
+    public String getFullName() {
+        return "task " + meta.getId() + " - " + entryPoint;
+    }
+
+    @Override
+    public String getTaskName() {
+        return entryPoint;
+    }
+
+    @Override
+    public String getId() {
+        return meta.getId();
+    }
+
+    @Override
+    public long getBatchThreads() {
+        return batchThreads;
+    }
+
+    @Override
+    public void setBatchThreads(long batchThreads) {
+        this.batchThreads = batchThreads;
+        tasks.forEach(task -> task.setBatchThreads(batchThreads));
+    }
+
+    @Override
+    public void attachProfiler(TornadoProfiler tornadoProfiler) {
+        this.profiler = tornadoProfiler;
+        tasks.forEach(task -> task.attachProfiler(tornadoProfiler));
+    }
+
+    @Override
+    public TornadoProfiler getProfiler() {
+        return profiler;
+    }
+
+    @Override
+    public void forceCompilation() {
+        forceCompiler = true;
+    }
+
+    @Override
+    public boolean shouldCompile() {
+        return forceCompiler;
+    }
+
+    @Override
+    public void enableDefaultThreadScheduler(boolean useDefaultScheduler) {
+        meta.enableDefaultThreadScheduler(useDefaultScheduler);
+        tasks.forEach(task -> task.enableDefaultThreadScheduler(useDefaultScheduler));
+    }
+
+    @Override
+    public void setUseGridScheduler(boolean use) {
+        meta.setUseGridScheduler(use);
+    }
+
+    @Override
+    public void setGridScheduler(GridScheduler gridScheduler) {
+        meta.setGridScheduler(gridScheduler);
+    }
+
+    @Override
+    public boolean isGridSchedulerEnabled() {
+        return meta.isGridSchedulerEnabled();
+    }
+
+}
@@ -25,7 +25,10 @@
  */
 package uk.ac.manchester.tornado.runtime.tasks;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import uk.ac.manchester.tornado.api.common.TornadoDevice;
 import uk.ac.manchester.tornado.api.exceptions.TornadoRuntimeException;
@@ -35,22 +38,76 @@ import uk.ac.manchester.tornado.runtime.common.TornadoAcceleratorDevice;
 
 public class GlobalObjectState implements TornadoGlobalObjectState {
 
+    /**
+     * Maximum number of device buffers per object and device, including the
+     * default buffer (slot 0).
+     */
+    public static final int MAX_BUFFER_SLOTS = 3;
+
     private final ConcurrentHashMap<TornadoAcceleratorDevice, DeviceObjectState> deviceStates;
+    private final ConcurrentHashMap<TornadoAcceleratorDevice, AtomicReferenceArray<DeviceObjectState>> bufferSlotStates;
 
     public GlobalObjectState() {
         deviceStates = new ConcurrentHashMap<>();
+        bufferSlotStates = new ConcurrentHashMap<>();
     }
 
     public DeviceObjectState getDeviceState(TornadoDevice device) {
         if (!(device instanceof TornadoAcceleratorDevice)) {
             throw new TornadoRuntimeException("Device not compatible");
         }
-        deviceStates.computeIfAbsent((TornadoAcceleratorDevice) device, k -> new DeviceObjectState());
-        return deviceStates.get(device);
+        return deviceStates.computeIfAbsent((TornadoAcceleratorDevice) device, k -> new DeviceObjectState());
+    }
+
+    /**
+     * It returns the state of an additional device buffer of the object. Pipelined
+     * batches use one buffer slot per in-flight chunk.
+     *
+     * @param device
+     *            The target device.
+     * @param bufferSlot
+     *            The buffer slot. Slot 0 is the default device state.
+     * @return {@link DeviceObjectState}
+     */
+    public DeviceObjectState getDeviceState(TornadoDevice device, int bufferSlot) {
+        if (bufferSlot == 0) {
+            return getDeviceState(device);
+        }
+        if (!(device instanceof TornadoAcceleratorDevice)) {
+            throw new TornadoRuntimeException("Device not compatible");
+        }
+        if (bufferSlot < 0 || bufferSlot >= MAX_BUFFER_SLOTS) {
+            throw new TornadoRuntimeException("Invalid buffer slot: " + bufferSlot);
+        }
+        AtomicReferenceArray<DeviceObjectState> slots = bufferSlotStates.computeIfAbsent((TornadoAcceleratorDevice) device, k -> new AtomicReferenceArray<>(MAX_BUFFER_SLOTS));
+        DeviceObjectState state = slots.get(bufferSlot);
+        if (state == null) {
+            slots.compareAndSet(bufferSlot, null, new DeviceObjectState());
+            state = slots.get(bufferSlot);
+        }
+        return state;
+    }
+
+    /**
+     * @return The states of the additional buffer slots (slot > 0) that have been
+     *         created for a device.
+     */
+    public List<DeviceObjectState> getBufferSlotStates(TornadoDevice device) {
+        List<DeviceObjectState> states = new ArrayList<>();
+        AtomicReferenceArray<DeviceObjectState> slots = bufferSlotStates.get(device);
+        if (slots != null) {
+            for (int i = 1; i < slots.length(); i++) {
+                if (slots.get(i) != null) {
+                    states.add(slots.get(i));
+                }
+            }
+        }
+        return states;
     }
 
     public void clear() {
         deviceStates.clear();
+        bufferSlotStates.clear();
     }
 
     @Override
@@ -0,0 +1,153 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2023, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.runtime.tasks;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Table that maps user objects to their {@link GlobalObjectState}. Objects are
+ * compared by identity, not with {@code equals}, so two different objects that
+ * are equal never share device state. Keys are weakly referenced: when an
+ * object is collected, its entry is removed the next time the table is
+ * accessed. The table can be used concurrently from several threads.
+ */
+public class GlobalObjectStateTable {
+
+    private final ConcurrentHashMap<Object, GlobalObjectState> table;
+    private final ReferenceQueue<Object> staleKeys;
+
+    public GlobalObjectStateTable() {
+        table = new ConcurrentHashMap<>();
+        staleKeys = new ReferenceQueue<>();
+    }
+
+    /**
+     * It returns the global state of an object. The state is created the first
+     * time the object is resolved.
+     *
+     * @param object
+     *            User object.
+     * @return {@link GlobalObjectState}
+     */
+    public GlobalObjectState resolve(Object object) {
+        expungeStaleEntries();
+        GlobalObjectState state = table.get(new LookupKey(object));
+        if (state == null) {
+            state = table.computeIfAbsent(new WeakKey(object, staleKeys), k -> new GlobalObjectState());
+        }
+        return state;
+    }
+
+    /**
+     * It clears the device state of all objects and removes all entries.
+     */
+    public void clear() {
+        for (GlobalObjectState state : table.values()) {
+            state.clear();
+        }
+        table.clear();
+        expungeStaleEntries();
+    }
+
+    public int size() {
+        expungeStaleEntries();
+        return table.size();
+    }
+
+    private void expungeStaleEntries() {
+        Object key;
+        while ((key = staleKeys.poll()) != null) {
+            table.remove(key);
+        }
+    }
+
+    /**
+     * Key stored in the table. Once the object has been collected, the key is
+     * only equal to itself, so it can still be removed from the table.
+     */
+    private static final class WeakKey extends WeakReference<Object> {
+        private final int hash;
+
+        WeakKey(Object object, ReferenceQueue<Object> queue) {
+            super(object, queue);
+            this.hash = System.identityHashCode(object);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            Object object = get();
+            if (object == null) {
+                return false;
+            }
+            if (other instanceof WeakKey) {
+                return object == ((WeakKey) other).get();
+            } else if (other instanceof LookupKey) {
+                return object == ((LookupKey) other).object;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Short-lived key used for lookups, so the hit path does not create a weak
+     * reference.
+     */
+    private static final class LookupKey {
+        private final Object object;
+        private final int hash;
+
+        LookupKey(Object object) {
+            this.object = object;
+            this.hash = System.identityHashCode(object);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (other instanceof WeakKey) {
+                return object == ((WeakKey) other).get();
+            } else if (other instanceof LookupKey) {
+                return object == ((LookupKey) other).object;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,422 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2023, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.runtime.tasks;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+
+import uk.ac.manchester.tornado.api.annotations.Reduce;
+import uk.ac.manchester.tornado.api.common.TaskPackage;
+import uk.ac.manchester.tornado.api.exceptions.TornadoRuntimeException;
+import uk.ac.manchester.tornado.runtime.ParallelLoopPartitionerProvider;
+import uk.ac.manchester.tornado.runtime.analyzer.CodeAnalysis;
+import uk.ac.manchester.tornado.runtime.analyzer.ReduceCodeAnalysis;
+import uk.ac.manchester.tornado.runtime.analyzer.ReduceCodeAnalysis.REDUCE_OPERATION;
+import uk.ac.manchester.tornado.runtime.analyzer.TaskUtils;
+import uk.ac.manchester.tornado.runtime.common.TornadoOptions;
+
+/**
+ * It runs a task on the host with multiple Java threads. It is used when a task
+ * graph bails out: instead of running each task with a single thread, the
+ * outermost {@link uk.ac.manchester.tornado.api.annotations.Parallel} loop of
+ * the task is partitioned across the threads of a {@link ForkJoinPool}.
+ *
+ * <p>
+ * The partitioned version of the task method is generated once per method by a
+ * {@link ParallelLoopPartitionerProvider}. Each thread runs the partitioned
+ * method with its own partition index, which the generated code reads with
+ * {@link #getPartitionIndex()}, {@link #getNumPartitions()} and
+ * {@link #getChunkSize()}. Each partition runs the whole method, so methods
+ * with a parallel loop nested in another loop, or with side effects outside the
+ * parallel loop, are not partitioned and run sequentially.
+ * </p>
+ *
+ * <p>
+ * Arrays annotated with {@link Reduce} are privatised: each partition writes
+ * into its own copy, initialised with the identity of the reduction, and the
+ * copies are combined into the user array when all partitions finish.
+ * </p>
+ */
+public final class ParallelJavaFallback {
+
+    private static final String PARTITIONER_PROPERTY = "tornado.load.annotation.partitioner";
+    private static final String DEFAULT_PARTITIONER = "uk.ac.manchester.tornado.annotation.ASMParallelLoopPartitioner";
+
+    private static final ThreadLocal<int[]> PARTITION = ThreadLocal.withInitial(() -> new int[] { 0, 1, Integer.MAX_VALUE });
+    private static final int PARTITION_INDEX = 0;
+    private static final int NUM_PARTITIONS = 1;
+    private static final int CHUNK_SIZE = 2;
+
+    private static final Map<Method, ParallelMethod> PARALLEL_METHODS = new ConcurrentHashMap<>();
+    private static final ParallelMethod NOT_PARALLEL = new ParallelMethod(null, null);
+
+    private static volatile ParallelLoopPartitionerProvider partitioner;
+    private static volatile ForkJoinPool pool;
+
+    private ParallelJavaFallback() {
+    }
+
+    /**
+     * Index of the partition run by the current thread.
+     *
+     * @return int.
+     */
+    public static int getPartitionIndex() {
+        return PARTITION.get()[PARTITION_INDEX];
+    }
+
+    /**
+     * Total number of partitions of the loop run by the current thread.
+     *
+     * @return int.
+     */
+    public static int getNumPartitions() {
+        return PARTITION.get()[NUM_PARTITIONS];
+    }
+
+    /**
+     * Number of consecutive loop iterations assigned to a partition.
+     *
+     * @return int.
+     */
+    public static int getChunkSize() {
+        return PARTITION.get()[CHUNK_SIZE];
+    }
+
+    /**
+     * It runs the task with multiple threads.
+     *
+     * @param taskPackage
+     *            Task to run.
+     * @return False if the task cannot be partitioned. In that case, the task has
+     *         not been executed and it must run sequentially.
+     */
+    public static boolean execute(TaskPackage taskPackage) {
+        final Object[] parameters = taskPackage.getTaskParameters();
+        final Object code = parameters[0];
+        final Object[] args = Arrays.copyOfRange(parameters, 1, taskPackage.getTaskType() + 1);
+        final Method method;
+        try {
+            method = TaskUtils.resolveMethodHandle(code);
+        } catch (RuntimeException e) {
+            return false;
+        }
+        if (method == null || method.getParameterCount() != args.length) {
+            return false;
+        }
+        ParallelMethod parallelMethod = PARALLEL_METHODS.computeIfAbsent(method, m -> buildParallelMethod(code, m));
+        if (parallelMethod == NOT_PARALLEL) {
+            return false;
+        }
+        run(parallelMethod, args, TornadoOptions.getParallelJavaFallbackThreads(), TornadoOptions.getParallelJavaFallbackChunkSize());
+        return true;
+    }
+
+    /**
+     * It runs a static method with multiple threads.
+     *
+     * @param method
+     *            Static method with a {@code @Parallel} loop.
+     * @param reductions
+     *            The reduction operator for each parameter, or null for the
+     *            parameters that are not reductions.
+     * @param args
+     *            Arguments of the method.
+     * @param numPartitions
+     *            Number of partitions.
+     * @param chunkSize
+     *            Number of consecutive loop iterations assigned to a partition.
+     * @return False if the method cannot be partitioned. In that case, the method
+     *         has not been executed.
+     */
+    public static boolean execute(Method method, REDUCE_OPERATION[] reductions, Object[] args, int numPartitions, int chunkSize) {
+        if (!isSupportedMethod(method, reductions)) {
+            return false;
+        }
+        ParallelLoopPartitionerProvider provider = getPartitioner();
+        Method partitioned = provider == null ? null : provider.partitionParallelLoop(method);
+        if (partitioned == null) {
+            return false;
+        }
+        run(new ParallelMethod(partitioned, reductions), args, numPartitions, chunkSize);
+        return true;
+    }
+
+    private static ParallelMethod buildParallelMethod(Object code, Method method) {
+        try {
+            REDUCE_OPERATION[] reductions = getReductions(code, method);
+            if (!isSupportedMethod(method, reductions)) {
+                return NOT_PARALLEL;
+            }
+            ParallelLoopPartitionerProvider provider = getPartitioner();
+            Method partitioned = provider == null ? null : provider.partitionParallelLoop(method);
+            return partitioned == null ? NOT_PARALLEL : new ParallelMethod(partitioned, reductions);
+        } catch (RuntimeException | LinkageError e) {
+            return NOT_PARALLEL;
+        }
+    }
+
+    private static boolean isSupportedMethod(Method method, REDUCE_OPERATION[] reductions) {
+        if (!Modifier.isStatic(method.getModifiers()) || reductions == null || reductions.length != method.getParameterCount()) {
+            return false;
+        }
+        Class<?>[] types = method.getParameterTypes();
+        for (int i = 0; i < reductions.length; i++) {
+            if (reductions[i] != null && types[i] != int[].class && types[i] != long[].class && types[i] != float[].class && types[i] != double[].class) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * It returns the reduction operator of each parameter annotated with
+     * {@link Reduce}, or null if an operator cannot be identified.
+     */
+    private static REDUCE_OPERATION[] getReductions(Object code, Method method) {
+        REDUCE_OPERATION[] reductions = new REDUCE_OPERATION[method.getParameterCount()];
+        Annotation[][] annotations = method.getParameterAnnotations();
+        List<Integer> reduceIndices = new ArrayList<>();
+        for (int i = 0; i < annotations.length; i++) {
+            for (Annotation annotation : annotations[i]) {
+                if (annotation instanceof Reduce) {
+                    reduceIndices.add(i);
+                }
+            }
+        }
+        if (reduceIndices.isEmpty()) {
+            return reductions;
+        }
+        for (Integer index : reduceIndices) {
+            List<REDUCE_OPERATION> operations = ReduceCodeAnalysis.getReduceOperation(CodeAnalysis.buildHighLevelGraalGraph(code), List.of(index));
+            if (operations.size() != 1) {
+                return null;
+            }
+            reductions[index] = operations.get(0);
+        }
+        return reductions;
+    }
+
+    private static ParallelLoopPartitionerProvider getPartitioner() {
+        if (partitioner == null) {
+            synchronized (ParallelJavaFallback.class) {
+                if (partitioner == null) {
+                    try {
+                        Class<?> klass = Class.forName(System.getProperty(PARTITIONER_PROPERTY, DEFAULT_PARTITIONER));
+                        Constructor<?> constructor = klass.getConstructor();
+                        partitioner = (ParallelLoopPartitionerProvider) constructor.newInstance();
+                    } catch (ReflectiveOperationException | ClassCastException e) {
+                        return null;
+                    }
+                }
+            }
+        }
+        return partitioner;
+    }
+
+    private static ForkJoinPool getPool(int numThreads) {
+        ForkJoinPool current = pool;
+        if (current == null || current.getParallelism() != numThreads) {
+            synchronized (ParallelJavaFallback.class) {
+                current = pool;
+                if (current == null || current.getParallelism() != numThreads) {
+                    if (current != null) {
+                        current.shutdown();
+                    }
+                    current = new ForkJoinPool(numThreads, factory -> {
+                        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(factory);
+                        thread.setName("tornado-fallback-" + thread.getPoolIndex());
+                        thread.setDaemon(true);
+                        return thread;
+                    }, null, false);
+                    pool = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private static void run(ParallelMethod parallelMethod, Object[] args, int numPartitions, int chunkSize) {
+        if (numPartitions < 1 || chunkSize < 1) {
+            throw new TornadoRuntimeException("[ERROR] Invalid partitioning for the Java fallback: " + numPartitions + " partitions of " + chunkSize + " iterations");
+        }
+        final REDUCE_OPERATION[] reductions = parallelMethod.reductions;
+        final Object[][] partitionArgs = new Object[numPartitions][];
+        for (int p = 0; p < numPartitions; p++) {
+            partitionArgs[p] = args.clone();
+            for (int i = 0; i < reductions.length; i++) {
+                if (reductions[i] != null) {
+                    // The first partition starts from the user values, so they
+                    // are accumulated exactly once
+                    partitionArgs[p][i] = (p == 0) ? cloneArray(args[i]) : identityArray(args[i], reductions[i]);
+                }
+            }
+        }
+
+        ForkJoinPool forkJoinPool = getPool(numPartitions);
+        List<Future<?>> futures = new ArrayList<>(numPartitions);
+        for (int p = 0; p < numPartitions; p++) {
+            final int partition = p;
+            futures.add(forkJoinPool.submit(() -> {
+                int[] context = PARTITION.get();
+                context[PARTITION_INDEX] = partition;
+                context[NUM_PARTITIONS] = numPartitions;
+                context[CHUNK_SIZE] = chunkSize;
+                try {
+                    parallelMethod.method.invoke(null, partitionArgs[partition]);
+                } finally {
+                    PARTITION.remove();
+                }
+                return null;
+            }));
+        }
+
+        Throwable failure = null;
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof InvocationTargetException ? e.getCause().getCause() : e.getCause();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new TornadoRuntimeException("[ERROR] Interrupted while running the Java fallback");
+            }
+        }
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        } else if (failure instanceof Error) {
+            throw (Error) failure;
+        } else if (failure != null) {
+            throw new TornadoRuntimeException("[ERROR] Java fallback failed: " + failure);
+        }
+
+        for (int i = 0; i < reductions.length; i++) {
+            if (reductions[i] != null) {
+                combine(args[i], partitionArgs, i, reductions[i]);
+            }
+        }
+    }
+
+    private static Object cloneArray(Object array) {
+        if (array instanceof int[]) {
+            return ((int[]) array).clone();
+        } else if (array instanceof long[]) {
+            return ((long[]) array).clone();
+        } else if (array instanceof float[]) {
+            return ((float[]) array).clone();
+        } else {
+            return ((double[]) array).clone();
+        }
+    }
+
+    private static Object identityArray(Object array, REDUCE_OPERATION operation) {
+        if (array instanceof int[]) {
+            int[] identity = new int[((int[]) array).length];
+            Arrays.fill(identity, operation == REDUCE_OPERATION.MUL ? 1 : operation == REDUCE_OPERATION.MIN ? Integer.MAX_VALUE : operation == REDUCE_OPERATION.MAX ? Integer.MIN_VALUE : 0);
+            return identity;
+        } else if (array instanceof long[]) {
+            long[] identity = new long[((long[]) array).length];
+            Arrays.fill(identity, operation == REDUCE_OPERATION.MUL ? 1L : operation == REDUCE_OPERATION.MIN ? Long.MAX_VALUE : operation == REDUCE_OPERATION.MAX ? Long.MIN_VALUE : 0L);
+            return identity;
+        } else if (array instanceof float[]) {
+            float[] identity = new float[((float[]) array).length];
+            Arrays.fill(identity, operation == REDUCE_OPERATION.MUL ? 1.0f
+                    : operation == REDUCE_OPERATION.MIN ? Float.POSITIVE_INFINITY : operation == REDUCE_OPERATION.MAX ? Float.NEGATIVE_INFINITY : 0.0f);
+            return identity;
+        } else {
+            double[] identity = new double[((double[]) array).length];
+            Arrays.fill(identity, operation == REDUCE_OPERATION.MUL ? 1.0
+                    : operation == REDUCE_OPERATION.MIN ? Double.POSITIVE_INFINITY : operation == REDUCE_OPERATION.MAX ? Double.NEGATIVE_INFINITY : 0.0);
+            return identity;
+        }
+    }
+
+    private static void combine(Object result, Object[][] partitionArgs, int argIndex, REDUCE_OPERATION operation) {
+        if (result instanceof int[]) {
+            int[] output = (int[]) result;
+            System.arraycopy(partitionArgs[0][argIndex], 0, output, 0, output.length);
+            for (int p = 1; p < partitionArgs.length; p++) {
+                int[] partial = (int[]) partitionArgs[p][argIndex];
+                for (int j = 0; j < output.length; j++) {
+                    output[j] = operation == REDUCE_OPERATION.SUM ? output[j] + partial[j]
+                            : operation == REDUCE_OPERATION.MUL ? output[j] * partial[j] : operation == REDUCE_OPERATION.MIN ? Math.min(output[j], partial[j]) : Math.max(output[j], partial[j]);
+                }
+            }
+        } else if (result instanceof long[]) {
+            long[] output = (long[]) result;
+            System.arraycopy(partitionArgs[0][argIndex], 0, output, 0, output.length);
+            for (int p = 1; p < partitionArgs.length; p++) {
+                long[] partial = (long[]) partitionArgs[p][argIndex];
+                for (int j = 0; j < output.length; j++) {
+                    output[j] = operation == REDUCE_OPERATION.SUM ? output[j] + partial[j]
+                            : operation == REDUCE_OPERATION.MUL ? output[j] * partial[j] : operation == REDUCE_OPERATION.MIN ? Math.min(output[j], partial[j]) : Math.max(output[j], partial[j]);
+                }
+            }
+        } else if (result instanceof float[]) {
+            float[] output = (float[]) result;
+            System.arraycopy(partitionArgs[0][argIndex], 0, output, 0, output.length);
+            for (int p = 1; p < partitionArgs.length; p++) {
+                float[] partial = (float[]) partitionArgs[p][argIndex];
+                for (int j = 0; j < output.length; j++) {
+                    output[j] = operation == REDUCE_OPERATION.SUM ? output[j] + partial[j]
+                            : operation == REDUCE_OPERATION.MUL ? output[j] * partial[j] : operation == REDUCE_OPERATION.MIN ? Math.min(output[j], partial[j]) : Math.max(output[j], partial[j]);
+                }
+            }
+        } else {
+            double[] output = (double[]) result;
+            System.arraycopy(partitionArgs[0][argIndex], 0, output, 0, output.length);
+            for (int p = 1; p < partitionArgs.length; p++) {
+                double[] partial = (double[]) partitionArgs[p][argIndex];
+                for (int j = 0; j < output.length; j++) {
+                    output[j] = operation == REDUCE_OPERATION.SUM ? output[j] + partial[j]
+                            : operation == REDUCE_OPERATION.MUL ? output[j] * partial[j] : operation == REDUCE_OPERATION.MIN ? Math.min(output[j], partial[j]) : Math.max(output[j], partial[j]);
+                }
+            }
+        }
+    }
+
+    private static final class ParallelMethod {
+        private final Method method;
+        private final REDUCE_OPERATION[] reductions;
+
+        ParallelMethod(Method method, REDUCE_OPERATION[] reductions) {
+            this.method = method;
+            this.reductions = reductions;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2023, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.runtime.tasks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import uk.ac.manchester.tornado.api.TornadoDriver;
+import uk.ac.manchester.tornado.api.TornadoRuntimeInterface;
+import uk.ac.manchester.tornado.api.common.TornadoDevice;
+import uk.ac.manchester.tornado.api.runtime.TornadoRuntime;
+
+/**
+ * Candidates of the dynamic reconfiguration: every (driver, device) pair of
+ * all the drivers installed, followed by the JVM. The index of a candidate in
+ * this list is the index used by the profilers, the policy tables and the
+ * cache of profiled task-graphs.
+ */
+public final class ReconfigurationTargets {
+
+    private final List<Target> targets;
+    private final List<String> identities;
+
+    /**
+     * A (driver, device) pair, or the JVM.
+     */
+    public static final class Target {
+        private final int driverIndex;
+        private final int deviceIndex;
+        private final TornadoDevice device;
+        private final String identity;
+
+        private Target(int driverIndex, int deviceIndex, TornadoDevice device, String identity) {
+            this.driverIndex = driverIndex;
+            this.deviceIndex = deviceIndex;
+            this.device = device;
+            this.identity = identity;
+        }
+
+        public int getDriverIndex() {
+            return driverIndex;
+        }
+
+        public int getDeviceIndex() {
+            return deviceIndex;
+        }
+
+        /**
+         * @return The device, or null for the JVM.
+         */
+        public TornadoDevice getDevice() {
+            return device;
+        }
+
+        /**
+         * @return Identity of the device in the
+         *         {@link ExecutionHistory}: the driver name and the device name.
+         */
+        public String getIdentity() {
+            return identity;
+        }
+
+        public boolean isJVM() {
+            return device == null;
+        }
+
+        /**
+         * @return Value of the {@code <taskgraph>.<task>.device} property that
+         *         selects this device.
+         */
+        public String getDeviceProperty() {
+            return driverIndex + ":" + deviceIndex;
+        }
+
+        @Override
+        public String toString() {
+            return isJVM() ? identity : getDeviceProperty() + " " + identity;
+        }
+    }
+
+    /**
+     * @param drivers
+     *            Drivers in the order of the TornadoVM runtime.
+     */
+    public ReconfigurationTargets(List<? extends TornadoDriver> drivers) {
+        List<Target> list = new ArrayList<>();
+        for (int driverIndex = 0; driverIndex < drivers.size(); driverIndex++) {
+            TornadoDriver driver = drivers.get(driverIndex);
+            for (int deviceIndex = 0; deviceIndex < driver.getDeviceCount(); deviceIndex++) {
+                TornadoDevice device = driver.getDevice(deviceIndex);
+                list.add(new Target(driverIndex, deviceIndex, device, driver.getName() + ":" + device.getPhysicalDevice().getDeviceName()));
+            }
+        }
+        list.add(new Target(-1, -1, null, ExecutionHistory.JVM_DEVICE));
+        targets = Collections.unmodifiableList(list);
+        List<String> names = new ArrayList<>();
+        for (Target target : targets) {
+            names.add(target.getIdentity());
+        }
+        identities = Collections.unmodifiableList(names);
+    }
+
+    /**
+     * @return The candidates for all the drivers of the TornadoVM runtime.
+     */
+    public static ReconfigurationTargets fromRuntime() {
+        TornadoRuntimeInterface runtime = TornadoRuntime.getTornadoRuntime();
+        List<TornadoDriver> drivers = new ArrayList<>();
+        for (int i = 0; i < runtime.getNumDrivers(); i++) {
+            drivers.add(runtime.getDriver(i));
+        }
+        return new ReconfigurationTargets(drivers);
+    }
+
+    /**
+     * @return Number of candidates, including the JVM.
+     */
+    public int size() {
+        return targets.size();
+    }
+
+    /**
+     * @return Number of accelerator devices. It is also the index of the JVM.
+     */
+    public int getNumDevices() {
+        return targets.size() - 1;
+    }
+
+    public Target get(int index) {
+        return targets.get(index);
+    }
+
+    /**
+     * @return Identities of all candidates, in order.
+     */
+    public List<String> getIdentities() {
+        return identities;
+    }
+
+    /**
+     * @return Index of a (driver, device) pair, or -1 if there is no such pair.
+     */
+    public int indexOf(int driverIndex, int deviceIndex) {
+        for (int i = 0; i < getNumDevices(); i++) {
+            if (targets.get(i).driverIndex == driverIndex && targets.get(i).deviceIndex == deviceIndex) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
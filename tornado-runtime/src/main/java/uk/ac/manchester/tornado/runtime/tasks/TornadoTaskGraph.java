@@ -39,8 +39,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.regex.Matcher;
@@ -50,12 +51,12 @@ import org.graalvm.compiler.graph.CachedGraph;
 import org.graalvm.compiler.phases.util.Providers;
 
 import jdk.vm.ci.meta.ResolvedJavaMethod;
+import uk.ac.manchester.tornado.api.DataParallelSplit;
 import uk.ac.manchester.tornado.api.GridScheduler;
 import uk.ac.manchester.tornado.api.ImmutableTaskGraph;
 import uk.ac.manchester.tornado.api.KernelContext;
 import uk.ac.manchester.tornado.api.Policy;
 import uk.ac.manchester.tornado.api.TaskGraph;
-import uk.ac.manchester.tornado.api.TornadoDriver;
 import uk.ac.manchester.tornado.api.TornadoExecutionPlan;
 import uk.ac.manchester.tornado.api.TornadoTaskGraphInterface;
 import uk.ac.manchester.tornado.api.common.Access;
@@ -79,6 +80,7 @@ import uk.ac.manchester.tornado.api.common.TornadoFunctions.Task6;
 import uk.ac.manchester.tornado.api.common.TornadoFunctions.Task7;
 import uk.ac.manchester.tornado.api.common.TornadoFunctions.Task8;
 import uk.ac.manchester.tornado.api.common.TornadoFunctions.Task9;
+import uk.ac.manchester.tornado.api.data.nativetypes.TornadoNativeArray;
 import uk.ac.manchester.tornado.api.enums.DataTransferMode;
 import uk.ac.manchester.tornado.api.enums.ProfilerMode;
 import uk.ac.manchester.tornado.api.enums.TornadoDeviceType;
@@ -86,6 +88,7 @@ import uk.ac.manchester.tornado.api.exceptions.TornadoBailoutRuntimeException;
 import uk.ac.manchester.tornado.api.exceptions.TornadoDynamicReconfigurationException;
 import uk.ac.manchester.tornado.api.exceptions.TornadoRuntimeException;
 import uk.ac.manchester.tornado.api.exceptions.TornadoTaskRuntimeException;
+import uk.ac.manchester.tornado.api.profiler.ProfilerHistogram;
 import uk.ac.manchester.tornado.api.profiler.ProfilerType;
 import uk.ac.manchester.tornado.api.profiler.TornadoProfiler;
 import uk.ac.manchester.tornado.api.runtime.TornadoRuntime;
@@ -104,6 +107,7 @@ import uk.ac.manchester.tornado.runtime.graal.compiler.TornadoSuitesProvider;
 import uk.ac.manchester.tornado.runtime.graph.TornadoExecutionContext;
 import uk.ac.manchester.tornado.runtime.graph.TornadoGraph;
 import uk.ac.manchester.tornado.runtime.graph.TornadoGraphBuilder;
+import uk.ac.manchester.tornado.runtime.graph.TornadoTaskFusion;
 import uk.ac.manchester.tornado.runtime.graph.TornadoVMBytecodeBuilder;
 import uk.ac.manchester.tornado.runtime.graph.nodes.ContextNode;
 import uk.ac.manchester.tornado.runtime.profiler.EmptyProfiler;
@@ -123,11 +127,9 @@ public class TornadoTaskGraph implements TornadoTaskGraphInterface {
      * Options for Dynamic Reconfiguration
      */
     private static final boolean EXPERIMENTAL_MULTI_HOST_HEAP = false;
-    private static final int DEFAULT_DRIVER_INDEX = 0;
     private static final int PERFORMANCE_WARMUP = 3;
     private static final boolean TIME_IN_NANOSECONDS = TornadoOptions.TIME_IN_NANOSECONDS;
     private static final String TASK_GRAPH_PREFIX = "XXX";
-    private static final ConcurrentHashMap<Policy, ConcurrentHashMap<String, HistoryTable>> executionHistoryPolicy = new ConcurrentHashMap<>();
 
     private static final boolean USE_GLOBAL_TASK_CACHE = false;
 
@@ -140,7 +142,6 @@ public class TornadoTaskGraph implements TornadoTaskGraphInterface {
     private static final Pattern PATTERN_BATCH = Pattern.compile("(\\d+)(MB|mg|gb|GB)");
 
     private static ConcurrentHashMap<Integer, TaskGraph> globalTaskGraphIndex = new ConcurrentHashMap<>();
-    private static int baseGlobalIndex = 0;
     private static AtomicInteger offsetGlobalIndex = new AtomicInteger(0);
     MetaReduceCodeAnalysis analysisTaskGraph;
     private TornadoExecutionContext executionContext;
@@ -164,6 +165,8 @@ public class TornadoTaskGraph implements TornadoTaskGraphInterface {
 
     private List<StreamingObject> outputModeObjects; // List of objects with its data transfer mode (OUT)
     private ConcurrentHashMap<Policy, Integer> policyTimeTable = new ConcurrentHashMap<>();
+    private AdaptiveDeviceSelector adaptiveDeviceSelector;
+    private ReconfigurationTargets reconfigurationTargets;
     private ConcurrentHashMap<Integer, ArrayList<Object>> multiHeapManagerOutputs = new ConcurrentHashMap<>();
     private ConcurrentHashMap<Integer, ArrayList<Object>> multiHeapManagerInputs = new ConcurrentHashMap<>();
     private ConcurrentHashMap<Integer, TaskGraph> taskGraphIndex = new ConcurrentHashMap<>();
@@ -542,10 +545,12 @@ public class TornadoTaskGraph implements TornadoTaskGraphInterface {
             CompilableTask compilableTask = (CompilableTask) task;
             final ResolvedJavaMethod resolvedMethod = TornadoCoreRuntime.getTornadoRuntime().resolveMethod(compilableTask.getMethod());
             final TaskMetaData taskMetaData = compilableTask.meta();
-            new SketchRequest(resolvedMethod, providers, suites.getGraphBuilderSuite(), suites.getSketchTier(), taskMetaData.getDriverIndex(), taskMetaData.getDeviceIndex()).run();
+            if (!TornadoSketcher.canDeferSketch(compilableTask.getMethod(), resolvedMethod, taskMetaData.getDriverIndex())) {
+                new SketchRequest(resolvedMethod, providers, suites.getGraphBuilderSuite(), suites.getSketchTier(), taskMetaData.getDriverIndex(), taskMetaData.getDeviceIndex()).run();
 
-            Sketch sketchGraph = TornadoSketcher.lookup(resolvedMethod, taskMetaData.getDriverIndex(), taskMetaData.getDeviceIndex());
-            this.graph = sketchGraph.getGraph();
+                Sketch sketchGraph = TornadoSketcher.lookup(resolvedMethod, taskMetaData.getDriverIndex(), taskMetaData.getDeviceIndex());
+                this.graph = sketchGraph.getGraph();
+            }
         }
     }
 
@@ -561,10 +566,14 @@ public class TornadoTaskGraph implements TornadoTaskGraphInterface {
             CompilableTask compilableTask = (CompilableTask) task;
             final ResolvedJavaMethod resolvedMethod = TornadoCoreRuntime.getTornadoRuntime().resolveMethod(compilableTask.getMethod());
             final TaskMetaData taskMetaData = compilableTask.meta();
-            new SketchRequest(resolvedMethod, providers, suites.getGraphBuilderSuite(), suites.getSketchTier(), taskMetaData.getDriverIndex(), taskMetaData.getDeviceIndex()).run();
+            // With the persistent kernel cache, the sketch is only built if the kernel
+            // is not in the cache
+            if (!TornadoSketcher.canDeferSketch(compilableTask.getMethod(), resolvedMethod, taskMetaData.getDriverIndex())) {
+                new SketchRequest(resolvedMethod, providers, suites.getGraphBuilderSuite(), suites.getSketchTier(), taskMetaData.getDriverIndex(), taskMetaData.getDeviceIndex()).run();
 
-            Sketch lookup = TornadoSketcher.lookup(resolvedMethod, compilableTask.meta().getDriverIndex(), compilableTask.meta().getDeviceIndex());
-            this.graph = lookup.getGraph();
+                Sketch lookup = TornadoSketcher.lookup(resolvedMethod, compilableTask.meta().getDriverIndex(), compilableTask.meta().getDeviceIndex());
+                this.graph = lookup.getGraph();
+            }
         }
 
         // Prepare Initial Graph before the TornadoVM bytecode generation
@@ -615,10 +624,15 @@ public class TornadoTaskGraph implements TornadoTaskGraphInterface {
      *            boolean that specifies if set a new device or not.
      */
     private TornadoVM compile(boolean setNewDevice) {
-        final ByteBuffer buffer = ByteBuffer.wrap(highLevelCode);
+        ByteBuffer buffer = ByteBuffer.wrap(highLevelCode);
         buffer.order(ByteOrder.LITTLE_ENDIAN);
         buffer.limit(hlBuffer.position());
 
+        TornadoTaskFusion.restoreFusedTasks(executionContext);
+        if (TornadoOptions.isTaskFusionEnabled() && gridScheduler == null) {
+            buffer = TornadoTaskFusion.fuseTasks(executionContext, buffer);
+        }
+
         final TornadoGraph tornadoGraph = TornadoGraphBuilder.buildGraph(executionContext, buffer);
 
         if (setNewDevice) {
@@ -700,7 +714,10 @@ public class TornadoTaskGraph implements TornadoTaskGraphInterface {
             timeProfiler.start(ProfilerType.TOTAL_BYTE_CODE_GENERATION);
             executionContext.scheduleTaskToDevices();
             TornadoVM tornadoVM = compile(compileInfo.updateDevice);
-            vmTable.put(meta().getLogicDevice(), tornadoVM);
+            TornadoVM previousTornadoVM = vmTable.put(meta().getLogicDevice(), tornadoVM);
+            if (previousTornadoVM != null) {
+                previousTornadoVM.shutdownInterpreterThreads();
+            }
             timeProfiler.stop(ProfilerType.TOTAL_BYTE_CODE_GENERATION);
         }
         executionContext.addLastDevice(meta().getLogicDevice());
@@ -778,7 +795,7 @@ public class TornadoTaskGraph implements TornadoTaskGraphInterface {
 
     private void dumpDeoptReason(TornadoBailoutRuntimeException e) {
         if (!Tornado.DEBUG) {
-            System.err.println(RED + "[Bailout] Running the sequential implementation. Enable --debug to see the reason." + RESET);
+            System.err.println(RED + "[Bailout] Running the Java implementation. Enable --debug to see the reason." + RESET);
         } else {
             System.err.println(e.getMessage());
             for (StackTraceElement s : e.getStackTrace()) {
@@ -788,9 +805,14 @@ public class TornadoTaskGraph implements TornadoTaskGraphInterface {
     }
 
     private void deoptimizeToSequentialJava(TornadoBailoutRuntimeException e) {
-        // Execute the sequential code
+        // Execute the Java code, partitioning parallel loops across host threads
+        // when possible
         dumpDeoptReason(e);
-        runAllTasksJavaSequential();
+        if (TornadoOptions.isParallelJavaFallbackEnabled()) {
+            runAllTasksJavaParallel();
+        } else {
+            runAllTasksJavaSequential();
+        }
     }
 
     @Override
@@ -804,6 +826,7 @@ public class TornadoTaskGraph implements TornadoTaskGraphInterface {
         try {
             event = vm.execute();
             timeProfiler.stop(ProfilerType.TOTAL_TASK_GRAPH_TIME);
+            timeProfiler.recordExecution();
             updateProfiler();
         } catch (TornadoBailoutRuntimeException e) {
             if (TornadoOptions.RECOVER_BAILOUT) {
@@ -950,16 +973,26 @@ public class TornadoTaskGraph implements TornadoTaskGraphInterface {
 
     @Override
     public void warmup() {
+        submitCompilation();
+        awaitCompilation();
+    }
+
+    @Override
+    public void submitCompilation() {
         setupProfiler();
         getDevice().getDeviceContext().setResetToFalse();
         timeProfiler.clean();
 
         compileToTornadoVMBytecode();
-        vm.warmup();
+        vm.submitCompilations();
+    }
 
-        if (TornadoOptions.isProfilerEnabled() && !TornadoOptions.PROFILER_LOGS_ACCUMULATE()) {
-            timeProfiler.dumpJson(new StringBuffer(), this.getId());
-        }
+    @Override
+    public void awaitCompilation() {
+        vm.awaitCompilations();
+        // Report the compile time of each task as for an execution, so that it is
+        // also available in the profiler log when the profiler is silent
+        updateProfiler();
     }
 
     private void reuseDeviceBufferObject(Object object) {
@@ -990,6 +1023,7 @@ public class TornadoTaskGraph implements TornadoTaskGraphInterface {
         }
         inputModesObjects.stream().forEach(streamingObject -> freeDeviceMemoryObject(streamingObject.getObject()));
         outputModeObjects.stream().forEach(streamingObject -> freeDeviceMemoryObject(streamingObject.getObject()));
+        vmTable.values().forEach(TornadoVM::shutdownInterpreterThreads);
     }
 
     private void freeDeviceMemoryObject(Object object) {
@@ -999,7 +1033,14 @@ public class TornadoTaskGraph implements TornadoTaskGraphInterface {
 
     private void releaseObjectFromDeviceMemory(final LocalObjectState localState, final TornadoDevice device) {
         final GlobalObjectState globalState = localState.getGlobalState();
-        final DeviceObjectState deviceState = globalState.getDeviceState(device);
+        releaseDeviceState(globalState.getDeviceState(device), device);
+        // Buffers used by pipelined batches
+        for (DeviceObjectState bufferSlotState : globalState.getBufferSlotStates(device)) {
+            releaseDeviceState(bufferSlotState, device);
+        }
+    }
+
+    private static void releaseDeviceState(final DeviceObjectState deviceState, final TornadoDevice device) {
         deviceState.setLockBuffer(false);
         if (deviceState.hasObjectBuffer()) {
             device.deallocate(deviceState);
@@ -1064,13 +1105,11 @@ public class TornadoTaskGraph implements TornadoTaskGraphInterface {
                 if (eventParameter == null) {
                     continue;
                 }
-                long value = timeProfiler.getTimer(ProfilerType.COPY_OUT_TIME_SYNC);
                 eventParameter.waitForEvents();
-                value += eventParameter.getElapsedTime();
-                timeProfiler.setTimer(ProfilerType.COPY_OUT_TIME_SYNC, value);
+                timeProfiler.sum(ProfilerType.COPY_OUT_TIME_SYNC, eventParameter.getElapsedTime());
                 LocalObjectState localState = executionContext.getObjectState(objects[i]);
                 DeviceObjectState deviceObjectState = localState.getGlobalState().getDeviceState(meta().getLogicDevice());
-                timeProfiler.addValueToMetric(ProfilerType.COPY_OUT_SIZE_BYTES_SYNC, TimeProfiler.NO_TASK_NAME, deviceObjectState.getObjectBuffer().size());
+                timeProfiler.addValueToMetric(ProfilerType.COPY_OUT_SIZE_BYTES_SYNC, TimeProfiler.NO_TASK_SLOT, deviceObjectState.getObjectBuffer().size());
             }
             updateProfiler();
         }
@@ -1349,26 +1388,24 @@ public class TornadoTaskGraph implements TornadoTaskGraphInterface {
         return deviceWinnerIndex;
     }
 
-    private int syncWinner(Thread[] threads) {
-        int winner = 0;
-        boolean isAlive = true;
-        while (isAlive) {
-
-            for (int i = 0; i < threads.length; i++) {
-                isAlive = threads[i].isAlive();
-                if (!isAlive) {
-                    if (TornadoOptions.DEBUG_POLICY) {
-                        System.out.println("Thread " + threads[i].getName() + " finished");
-                    }
-                    winner = i;
-                    // kill the others
-                    for (int j = 0; j < threads.length; j++) {
-                        if (i != j) {
-                            threads[j].interrupt();
-                        }
-                    }
-                    break;
-                }
+    private int syncWinner(Thread[] threads, CompletableFuture<Integer> firstFinished) {
+        final int winner;
+        try {
+            // Blocks until the first thread completes
+            winner = firstFinished.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TornadoDynamicReconfigurationException(e);
+        } catch (ExecutionException e) {
+            throw new TornadoDynamicReconfigurationException("No device finished: " + e.getCause());
+        }
+        if (TornadoOptions.DEBUG_POLICY) {
+            System.out.println("Thread " + threads[winner].getName() + " finished");
+        }
+        // kill the others
+        for (int j = 0; j < threads.length; j++) {
+            if (winner != j) {
+                threads[j].interrupt();
             }
         }
         return winner;
@@ -1380,16 +1417,25 @@ public class TornadoTaskGraph implements TornadoTaskGraphInterface {
         }
     }
 
-    private void runParallelSequential(Policy policy, Thread[] threads, int indexSequential, Timer timer, long[] totalTimers) {
+    private void runAllTasksJavaParallel() {
+        for (TaskPackage taskPackage : taskPackages) {
+            if (!ParallelJavaFallback.execute(taskPackage)) {
+                runSequentialCodeInThread(taskPackage);
+            }
+        }
+    }
+
+    private void runParallelSequential(Policy policy, Thread[] threads, int indexSequential, Timer timer, long[] totalTimers, CompletableFuture<Integer> firstFinished) {
         // Last Thread runs the sequential code
         threads[indexSequential] = new Thread(() -> {
-            long start = System.currentTimeMillis();
+            long start = timer.time();
             if (policy == Policy.PERFORMANCE) {
                 for (int k = 0; k < PERFORMANCE_WARMUP; k++) {
                     runAllTasksJavaSequential();
                 }
                 start = timer.time();
             }
+            runAllTasksJavaSequential();
             final long endSequentialCode = timer.time();
             Thread.currentThread().setName("Thread-sequential");
             if (TornadoOptions.DEBUG_POLICY) {
@@ -1397,17 +1443,19 @@ public class TornadoTaskGraph implements TornadoTaskGraphInterface {
             }
 
             totalTimers[indexSequential] = (endSequentialCode - start);
+            firstFinished.complete(indexSequential);
         });
     }
 
-    private void runParallelTaskGraphs(int numDevices, Thread[] threads, Timer timer, Policy policy, long[] totalTimers) {
+    private void runParallelTaskGraphs(int numDevices, Thread[] threads, Timer timer, Policy policy, long[] totalTimers, CompletableFuture<Integer> firstFinished) {
         for (int i = 0; i < numDevices; i++) {
             final int taskScheduleNumber = i;
             threads[i] = new Thread(() -> {
                 String newTaskScheduleName = TASK_GRAPH_PREFIX + taskScheduleNumber;
                 TaskGraph task = new TaskGraph(newTaskScheduleName);
 
-                Thread.currentThread().setName("Thread-DEV: " + TornadoRuntime.getTornadoRuntime().getDriver(0).getDevice(taskScheduleNumber).getPhysicalDevice().getDeviceName());
+                ReconfigurationTargets.Target target = getReconfigurationTargets().get(taskScheduleNumber);
+                Thread.currentThread().setName("Thread-DEV: " + target.getDevice().getPhysicalDevice().getDeviceName());
 
                 long start = timer.time();
 
@@ -1417,9 +1465,9 @@ public class TornadoTaskGraph implements TornadoTaskGraphInterface {
 
                 for (TaskPackage taskPackage : taskPackages) {
                     String taskID = taskPackage.getId();
-                    TornadoRuntime.setProperty(newTaskScheduleName + "." + taskID + ".device", "0:" + taskScheduleNumber);
+                    TornadoRuntime.setProperty(newTaskScheduleName + "." + taskID + ".device", target.getDeviceProperty());
                     if (Tornado.DEBUG) {
-                        System.out.println("SET DEVICE: " + newTaskScheduleName + "." + taskID + ".device=0:" + taskScheduleNumber);
+                        System.out.println("SET DEVICE: " + newTaskScheduleName + "." + taskID + ".device=" + target.getDeviceProperty());
                     }
                     task.addTask(taskPackage);
                 }
@@ -1452,6 +1500,7 @@ public class TornadoTaskGraph implements TornadoTaskGraphInterface {
                 }
 
                 totalTimers[taskScheduleNumber] = end - start;
+                firstFinished.complete(taskScheduleNumber);
             });
         }
 
@@ -1460,8 +1509,7 @@ public class TornadoTaskGraph implements TornadoTaskGraphInterface {
     private void runScheduleWithParallelProfiler(Policy policy) {
 
         final Timer timer = (TIME_IN_NANOSECONDS) ? new NanoSecTimer() : new MilliSecTimer();
-        TornadoDriver tornadoDriver = TornadoCoreRuntime.getTornadoRuntime().getDriver(DEFAULT_DRIVER_INDEX);
-        int numDevices = tornadoDriver.getDeviceCount();
+        int numDevices = getReconfigurationTargets().getNumDevices();
         long masterThreadID = Thread.currentThread().getId();
 
         // One additional threads is reserved for sequential CPU execution
@@ -1469,21 +1517,30 @@ public class TornadoTaskGraph implements TornadoTaskGraphInterface {
         final int indexSequential = numDevices;
         Thread[] threads = new Thread[numThreads];
         long[] totalTimers = new long[numThreads];
+        CompletableFuture<Integer> firstFinished = new CompletableFuture<>();
+        AtomicInteger failedThreads = new AtomicInteger();
 
         // Last Thread runs the sequential code
-        runParallelSequential(policy, threads, indexSequential, timer, totalTimers);
+        runParallelSequential(policy, threads, indexSequential, timer, totalTimers, firstFinished);
 
         // Run all task schedules in parallel
-        runParallelTaskGraphs(numDevices, threads, timer, policy, totalTimers);
+        runParallelTaskGraphs(numDevices, threads, timer, policy, totalTimers, firstFinished);
 
         // FORK
         for (int i = 0; i < numThreads; i++) {
+            threads[i].setUncaughtExceptionHandler((thread, throwable) -> {
+                // No winner if all threads fail
+                if (failedThreads.incrementAndGet() == numThreads) {
+                    firstFinished.completeExceptionally(throwable);
+                }
+                throwable.printStackTrace();
+            });
             threads[i].start();
         }
 
         // Define the winner, based on the first thread to finish
         if (policy == Policy.LATENCY) {
-            int deviceWinnerIndex = syncWinner(threads);
+            int deviceWinnerIndex = syncWinner(threads, firstFinished);
             policyTimeTable.put(policy, deviceWinnerIndex);
         }
 
@@ -1499,6 +1556,7 @@ public class TornadoTaskGraph implements TornadoTaskGraphInterface {
         if ((policy == Policy.PERFORMANCE || policy == Policy.END_2_END) && (masterThreadID == Thread.currentThread().getId())) {
             int deviceWinnerIndex = synchronizeWithPolicy(policy, totalTimers);
             policyTimeTable.put(policy, deviceWinnerIndex);
+            updateHistoryTables(policy, totalTimers);
             if (TornadoOptions.DEBUG_POLICY) {
                 System.out.println(getListDevices());
                 System.out.println("BEST Position: #" + deviceWinnerIndex + " " + Arrays.toString(totalTimers));
@@ -1519,7 +1577,7 @@ public class TornadoTaskGraph implements TornadoTaskGraphInterface {
         performStreamInObject(taskToCompile, streamInObjects, DataTransferMode.EVERY_EXECUTION);
         for (TaskPackage taskPackage : taskPackages) {
             String taskID = taskPackage.getId();
-            TornadoRuntime.setProperty(newTaskScheduleName + "." + taskID + ".device", "0:" + deviceWinnerIndex);
+            TornadoRuntime.setProperty(newTaskScheduleName + "." + taskID + ".device", getReconfigurationTargets().get(deviceWinnerIndex).getDeviceProperty());
             taskToCompile.addTask(taskPackage);
         }
         performStreamOutThreads(DataTransferMode.EVERY_EXECUTION, taskToCompile, streamOutObjects);
@@ -1528,10 +1586,10 @@ public class TornadoTaskGraph implements TornadoTaskGraphInterface {
 
     private void runTaskGraphParallelSelected(int deviceWinnerIndex) {
         for (TaskPackage taskPackage : taskPackages) {
-            TornadoRuntime.setProperty(this.getTaskGraphName() + "." + taskPackage.getId() + ".device", "0:" + deviceWinnerIndex);
+            TornadoRuntime.setProperty(this.getTaskGraphName() + "." + taskPackage.getId() + ".device", getReconfigurationTargets().get(deviceWinnerIndex).getDeviceProperty());
         }
         if (TornadoOptions.DEBUG_POLICY) {
-            System.out.println("Running in parallel device: " + deviceWinnerIndex);
+            System.out.println("Running in parallel device: " + getReconfigurationTargets().get(deviceWinnerIndex));
         }
         TaskGraph task = taskGraphIndex.get(deviceWinnerIndex);
         if (task == null) {
@@ -1550,14 +1608,44 @@ public class TornadoTaskGraph implements TornadoTaskGraphInterface {
         executor.execute();
     }
 
+    /**
+     * Runs the task graph on the device chosen by the
+     * {@link AdaptiveDeviceSelector}, and feeds the execution time back to it.
+     */
+    private void runWithAdaptivePolicy() {
+        final int numDevices = getReconfigurationTargets().getNumDevices();
+        if (adaptiveDeviceSelector == null) {
+            // One additional candidate for the sequential code on the JVM
+            adaptiveDeviceSelector = new AdaptiveDeviceSelector(numDevices + 1);
+        }
+        final long inputSize = getMaxInputSize();
+        final int deviceIndex = adaptiveDeviceSelector.selectDevice(inputSize);
+
+        final long start = System.nanoTime();
+        if (deviceIndex >= numDevices) {
+            runSequential();
+        } else {
+            runTaskGraphParallelSelected(deviceIndex);
+        }
+        final long end = System.nanoTime();
+        adaptiveDeviceSelector.recordExecution(inputSize, deviceIndex, end - start);
+
+        if (TornadoOptions.DEBUG_POLICY) {
+            System.out.println(getListDevices());
+            System.out.println("Adaptive: ran on #" + deviceIndex + " in " + (end - start) + " ns. Current winner: #" + adaptiveDeviceSelector.getWinner(inputSize));
+        }
+    }
+
     @Override
     public TornadoTaskGraphInterface scheduleWithProfile(Policy policy) {
-        if (policyTimeTable.get(policy) == null) {
+        if (policy == Policy.ADAPTIVE) {
+            runWithAdaptivePolicy();
+        } else if (policyTimeTable.get(policy) == null && !selectWinnerFromHistory(policy)) {
             runScheduleWithParallelProfiler(policy);
         } else {
             // Run with the winner device
             int deviceWinnerIndex = policyTimeTable.get(policy);
-            if (deviceWinnerIndex >= TornadoRuntime.getTornadoRuntime().getDriver(0).getDeviceCount()) {
+            if (deviceWinnerIndex >= getReconfigurationTargets().getNumDevices()) {
                 runSequential();
             } else {
                 runTaskGraphParallelSelected(deviceWinnerIndex);
@@ -1579,8 +1667,7 @@ public class TornadoTaskGraph implements TornadoTaskGraphInterface {
     @SuppressWarnings("unused")
     private void cloneInputOutputObjects() {
         final long startSearchProfiler = (TIME_IN_NANOSECONDS) ? System.nanoTime() : System.currentTimeMillis();
-        TornadoDriver tornadoDriver = TornadoCoreRuntime.getTornadoRuntime().getDriver(DEFAULT_DRIVER_INDEX);
-        int numDevices = tornadoDriver.getDeviceCount();
+        int numDevices = getReconfigurationTargets().getNumDevices();
         // Clone objects (only outputs) for each device
         for (int deviceNumber = 0; deviceNumber < numDevices; deviceNumber++) {
             ArrayList<Object> newInObjects = new ArrayList<>();
@@ -1646,9 +1733,10 @@ public class TornadoTaskGraph implements TornadoTaskGraphInterface {
                     }
                 }
 
-                TornadoRuntime.setProperty(newTaskScheduleName + "." + taskID + ".device", "0:" + taskNumber);
+                String deviceProperty = getReconfigurationTargets().get(taskNumber).getDeviceProperty();
+                TornadoRuntime.setProperty(newTaskScheduleName + "." + taskID + ".device", deviceProperty);
                 if (Tornado.DEBUG) {
-                    System.out.println("SET DEVICE: " + newTaskScheduleName + "." + taskID + ".device=0:" + taskNumber);
+                    System.out.println("SET DEVICE: " + newTaskScheduleName + "." + taskID + ".device=" + deviceProperty);
                 }
                 task.addTask(taskPackage);
             }
@@ -1687,49 +1775,76 @@ public class TornadoTaskGraph implements TornadoTaskGraphInterface {
         }
     }
 
-    private void updateHistoryTables(Policy policy, int deviceWinnerIndex) {
-        // Matching the name
+    private String getHistorySignature(Policy policy) {
+        List<Method> methods = new ArrayList<>();
         for (TaskPackage taskPackage : taskPackages) {
-            Object code = taskPackage.getTaskParameters()[0];
-            Method m = TaskUtils.resolveMethodHandle(code);
-            ConcurrentHashMap<String, HistoryTable> tableSizes = null;
-
-            int dev = baseGlobalIndex + deviceWinnerIndex;
-
-            if (!executionHistoryPolicy.containsKey(policy)) {
-                tableSizes = new ConcurrentHashMap<>();
-                HistoryTable table = new HistoryTable();
-                int size = getMaxInputSize();
-                table.getTree().put(size, dev);
+            methods.add(TaskUtils.resolveMethodHandle(taskPackage.getTaskParameters()[0]));
+        }
+        return ExecutionHistory.getSignature(policy, methods);
+    }
 
-                tableSizes.put(m.toGenericString(), table);
+    /**
+     * Identities of the devices in the execution history, in the same order as
+     * the timers of the profilers. The last one is the JVM.
+     */
+    private List<String> getHistoryDevices() {
+        return getReconfigurationTargets().getIdentities();
+    }
 
-            } else {
-                tableSizes = executionHistoryPolicy.get(policy);
-                if (!tableSizes.containsKey(m.toGenericString())) {
-                    HistoryTable table = new HistoryTable();
-                    int size = getMaxInputSize();
-                    table.getTree().put(size, dev);
-                    tableSizes.put(m.toGenericString(), table);
-                } else {
-                    // update the size
-                    HistoryTable table = tableSizes.get(m.toGenericString());
-                    int size = getMaxInputSize();
-                    table.getTree().put(size, dev);
-                    tableSizes.put(m.toGenericString(), table);
-                }
+    /**
+     * The (driver, device) pairs of all drivers, plus the JVM. They are
+     * enumerated once per task-graph, so the indexes in the policy tables and in
+     * the cache of profiled task-graphs stay valid.
+     */
+    private ReconfigurationTargets getReconfigurationTargets() {
+        if (reconfigurationTargets == null) {
+            reconfigurationTargets = ReconfigurationTargets.fromRuntime();
+        }
+        return reconfigurationTargets;
+    }
+
+    private void updateHistoryTables(Policy policy, long[] totalTimers) {
+        ExecutionHistory history = ExecutionHistory.getInstance();
+        String signature = getHistorySignature(policy);
+        List<String> devices = getHistoryDevices();
+        long inputSize = getMaxInputSize();
+        for (int i = 0; i < totalTimers.length; i++) {
+            // Ignored tasks do not have a time
+            if (totalTimers[i] != Long.MAX_VALUE) {
+                history.record(signature, devices.get(i), inputSize, TIME_IN_NANOSECONDS ? totalTimers[i] : totalTimers[i] * 1_000_000.0);
             }
-            executionHistoryPolicy.put(policy, tableSizes);
-            baseGlobalIndex = offsetGlobalIndex.get();
         }
+        history.save();
+    }
+
+    /**
+     * It selects the winner from the execution history, without profiling.
+     *
+     * @return True if the history contains measurements of this task-graph for
+     *         all devices. Otherwise, all devices are profiled.
+     */
+    private boolean selectWinnerFromHistory(Policy policy) {
+        if (policy != Policy.PERFORMANCE && policy != Policy.END_2_END) {
+            return false;
+        }
+        List<String> devices = getHistoryDevices();
+        String device = ExecutionHistory.getInstance().getBestDevice(getHistorySignature(policy), devices, getMaxInputSize());
+        if (device == null) {
+            return false;
+        }
+        policyTimeTable.put(policy, devices.indexOf(device));
+        if (TornadoOptions.DEBUG_POLICY) {
+            System.out.println("Winner from the execution history: #" + devices.indexOf(device) + " " + device);
+        }
+        return true;
     }
 
     private String getListDevices() {
         StringBuilder str = new StringBuilder();
         str.append("                  : [");
-        int num = TornadoRuntime.getTornadoRuntime().getDriver(0).getDeviceCount();
-        for (int i = 0; i < num; i++) {
-            TornadoDeviceType deviceType = TornadoRuntime.getTornadoRuntime().getDriver(0).getDevice(i).getDeviceType();
+        ReconfigurationTargets targets = getReconfigurationTargets();
+        for (int i = 0; i < targets.getNumDevices(); i++) {
+            TornadoDeviceType deviceType = targets.get(i).getDevice().getDeviceType();
             String type;
             switch (deviceType) {
                 case CPU:
@@ -1755,7 +1870,7 @@ public class TornadoTaskGraph implements TornadoTaskGraphInterface {
 
     private void runWithSequentialProfiler(Policy policy) {
         final Timer timer = (TIME_IN_NANOSECONDS) ? new NanoSecTimer() : new MilliSecTimer();
-        int numDevices = TornadoCoreRuntime.getTornadoRuntime().getDriver(DEFAULT_DRIVER_INDEX).getDeviceCount();
+        int numDevices = getReconfigurationTargets().getNumDevices();
         final int totalTornadoDevices = numDevices + 1;
         long[] totalTimers = new long[totalTornadoDevices];
 
@@ -1769,7 +1884,7 @@ public class TornadoTaskGraph implements TornadoTaskGraphInterface {
             int deviceWinnerIndex = synchronizeWithPolicy(policy, totalTimers);
             policyTimeTable.put(policy, deviceWinnerIndex);
 
-            updateHistoryTables(policy, deviceWinnerIndex);
+            updateHistoryTables(policy, totalTimers);
 
             if (TornadoOptions.DEBUG_POLICY) {
                 System.out.println(getListDevices());
@@ -1806,16 +1921,19 @@ public class TornadoTaskGraph implements TornadoTaskGraphInterface {
     /**
      * It obtains the maximum input size for an input task.
      *
-     * @return max size of all input arrays.
+     * @return max number of elements of all input arrays. Native arrays can
+     *         have more than {@link Integer#MAX_VALUE} elements.
      */
-    private int getMaxInputSize() {
+    private long getMaxInputSize() {
         Object[] parameters = taskPackages.get(0).getTaskParameters();
-        int size = 0;
+        long size = 0;
         for (int i = 1; i < parameters.length; i++) {
             Object o = parameters[i];
             if (o.getClass().isArray()) {
                 int currentSize = Array.getLength(o);
                 size = Math.max(currentSize, size);
+            } else if (o instanceof TornadoNativeArray) {
+                size = Math.max(((TornadoNativeArray) o).getNumberOfElements(), size);
             } else {
                 size = Math.max(1, size);
             }
@@ -1825,9 +1943,12 @@ public class TornadoTaskGraph implements TornadoTaskGraphInterface {
 
     @Override
     public TornadoTaskGraphInterface scheduleWithProfileSequential(Policy policy) {
-        int numDevices = TornadoRuntime.getTornadoRuntime().getDriver(DEFAULT_DRIVER_INDEX).getDeviceCount();
+        int numDevices = getReconfigurationTargets().getNumDevices();
 
-        if (policyTimeTable.get(policy) == null) {
+        if (policy == Policy.ADAPTIVE) {
+            // The adaptive policy never profiles all devices at once
+            runWithAdaptivePolicy();
+        } else if (policyTimeTable.get(policy) == null && !selectWinnerFromHistory(policy)) {
             runWithSequentialProfiler(policy);
 
             if (EXPERIMENTAL_MULTI_HOST_HEAP) {
@@ -2049,7 +2170,11 @@ public class TornadoTaskGraph implements TornadoTaskGraphInterface {
     }
 
     @Override
-    public void batch(String batchSize) {
+    public void batch(String batchSize, Object... broadcastObjects) {
+
+        if (executionContext.isDataParallelSplit()) {
+            throw new TornadoRuntimeException("[UNSUPPORTED] Batch processing cannot be combined with a data-parallel split");
+        }
 
         // parse value and units
         Matcher matcher = PATTERN_BATCH.matcher(batchSize);
@@ -2072,6 +2197,27 @@ public class TornadoTaskGraph implements TornadoTaskGraphInterface {
                 throw new TornadoRuntimeException("Units not supported: " + units);
         }
         executionContext.setBatchSize(this.batchSizeBytes);
+        executionContext.setBatchBroadcastObjects(broadcastObjects);
+    }
+
+    @Override
+    public void withDataParallelSplit(DataParallelSplit split) {
+        if (executionContext.getTaskCount() != 1 || !(executionContext.getTask(0) instanceof CompilableTask)) {
+            throw new TornadoRuntimeException("[UNSUPPORTED] A data-parallel split requires a task-graph with a single compilable task");
+        }
+        if (executionContext.getBatchSize() != -1) {
+            throw new TornadoRuntimeException("[UNSUPPORTED] A data-parallel split cannot be combined with batch processing");
+        }
+        Set<TornadoDevice> devices = new HashSet<>();
+        for (TornadoDevice device : split.getDevices()) {
+            if (!(device instanceof TornadoAcceleratorDevice)) {
+                throw new TornadoRuntimeException("[ERROR] Device " + device + " cannot execute a data-parallel split");
+            }
+            if (!devices.add(device)) {
+                throw new TornadoRuntimeException("[ERROR] Device " + device + " appears more than once in the data-parallel split");
+            }
+        }
+        executionContext.setDataParallelSplit(split);
     }
 
     @Override
@@ -2129,6 +2275,26 @@ public class TornadoTaskGraph implements TornadoTaskGraphInterface {
         return bufferLogProfiler.toString();
     }
 
+    @Override
+    public ProfilerHistogram getTotalTimeHistogram() {
+        return timeProfiler.getHistogram(ProfilerType.TOTAL_TASK_GRAPH_TIME);
+    }
+
+    @Override
+    public ProfilerHistogram getDeviceWriteTimeHistogram() {
+        return timeProfiler.getHistogram(ProfilerType.COPY_IN_TIME);
+    }
+
+    @Override
+    public ProfilerHistogram getDeviceReadTimeHistogram() {
+        return timeProfiler.getHistogram(ProfilerType.COPY_OUT_TIME);
+    }
+
+    @Override
+    public ProfilerHistogram getDeviceKernelTimeHistogram() {
+        return timeProfiler.getHistogram(ProfilerType.TOTAL_KERNEL_TIME);
+    }
+
     // Timer implementation within the Task Schedule
     private interface Timer {
         long time();
@@ -2158,38 +2324,4 @@ public class TornadoTaskGraph implements TornadoTaskGraphInterface {
             this.updateDevice = updateDevice;
         }
     }
-
-    /**
-     * Class that keeps the history of executions based on their data sizes. It has
-     * a sorted map (TreeMap) that keeps the relationship between the input size and
-     * the actual Tornado device in which the task was executed based on the
-     * profiler for the dynamic reconfiguration.
-     */
-    private static class HistoryTable {
-        /**
-         * TreeMap between input size -> device index
-         */
-        private TreeMap<Integer, Integer> table = new TreeMap<>();
-
-        private int getClosestKey(int goal) {
-            Set<Integer> keySet = table.keySet();
-            return keySet.stream().reduce((prev, current) -> Math.abs(current - goal) < Math.abs(prev - goal) ? current : prev).get();
-        }
-
-        private TreeMap<Integer, Integer> getTree() {
-            return table;
-        }
-
-        private int getNumKeys() {
-            return table.keySet().size();
-        }
-
-        private int getDeviceNumber(int key) {
-            return table.get(key);
-        }
-
-        private boolean isKeyInTable(int key) {
-            return table.containsKey(key);
-        }
-    }
 }
@@ -103,6 +103,7 @@ public abstract class AbstractMetaData implements TaskMetaDataInterface {
     private boolean deviceManuallySet;
     private long numThreads;
     private TornadoProfiler profiler;
+    private int profilerSlot;
     private GridScheduler gridScheduler;
     private long[] ptxBlockDim;
     private long[] ptxGridDim;
@@ -439,14 +440,28 @@ public abstract class AbstractMetaData implements TaskMetaDataInterface {
         this.numThreads = threads;
     }
 
+    /**
+     * It attaches a profiler and registers the task in it. The slot of the task
+     * is only resolved when a different profiler is attached.
+     */
     public void attachProfiler(TornadoProfiler profiler) {
-        this.profiler = profiler;
+        if (profiler != this.profiler) {
+            this.profiler = profiler;
+            this.profilerSlot = (profiler != null) ? profiler.registerTask(getId()) : 0;
+        }
     }
 
     public TornadoProfiler getProfiler() {
         return this.profiler;
     }
 
+    /**
+     * @return The slot of the task in the attached profiler.
+     */
+    public int getProfilerSlot() {
+        return profilerSlot;
+    }
+
     public void enableDefaultThreadScheduler(boolean use) {
         openclUseDriverScheduling = use;
     }
@@ -1,6 +1,8 @@
 open module tornado.unittests {
     requires transitive junit;
     requires transitive tornado.api;
+    requires tornado.drivers.common;
+    requires tornado.benchmarks;
     requires lucene.core;
     requires java.desktop;
 
@@ -9,6 +11,7 @@ open module tornado.unittests {
     exports uk.ac.manchester.tornado.unittests.arrays;
     exports uk.ac.manchester.tornado.unittests.atomics;
     exports uk.ac.manchester.tornado.unittests.batches;
+    exports uk.ac.manchester.tornado.unittests.benchmarks;
     exports uk.ac.manchester.tornado.unittests.bitsets;
     exports uk.ac.manchester.tornado.unittests.branching;
     exports uk.ac.manchester.tornado.unittests.common;
@@ -26,6 +29,7 @@ open module tornado.unittests {
     exports uk.ac.manchester.tornado.unittests.loops;
     exports uk.ac.manchester.tornado.unittests.math;
     exports uk.ac.manchester.tornado.unittests.matrices;
+    exports uk.ac.manchester.tornado.unittests.memory;
     exports uk.ac.manchester.tornado.unittests.prebuilt;
     exports uk.ac.manchester.tornado.unittests.profiler;
     exports uk.ac.manchester.tornado.unittests.reductions;
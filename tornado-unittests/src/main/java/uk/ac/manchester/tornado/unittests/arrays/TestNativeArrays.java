@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2023, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.unittests.arrays;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.ImmutableTaskGraph;
+import uk.ac.manchester.tornado.api.TaskGraph;
+import uk.ac.manchester.tornado.api.TornadoExecutionPlan;
+import uk.ac.manchester.tornado.api.annotations.Parallel;
+import uk.ac.manchester.tornado.api.data.nativetypes.DoubleArray;
+import uk.ac.manchester.tornado.api.data.nativetypes.FloatArray;
+import uk.ac.manchester.tornado.api.data.nativetypes.HalfFloat;
+import uk.ac.manchester.tornado.api.data.nativetypes.HalfFloatArray;
+import uk.ac.manchester.tornado.api.data.nativetypes.IntArray;
+import uk.ac.manchester.tornado.api.enums.DataTransferMode;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+/**
+ * Tests for off-heap arrays as task parameters.
+ *
+ * <p>
+ * How to test?
+ * </p>
+ * <code>
+ *     tornado-test -V --fast uk.ac.manchester.tornado.unittests.arrays.TestNativeArrays
+ * </code>
+ */
+public class TestNativeArrays extends TornadoTestBase {
+
+    public static void vectorAddFloat(FloatArray a, FloatArray b, FloatArray c) {
+        for (@Parallel int i = 0; i < c.getSize(); i++) {
+            c.set(i, a.get(i) + b.get(i));
+        }
+    }
+
+    public static void vectorAddDouble(DoubleArray a, DoubleArray b, DoubleArray c) {
+        for (@Parallel int i = 0; i < c.getSize(); i++) {
+            c.set(i, a.get(i) + b.get(i));
+        }
+    }
+
+    public static void addAccumulator(IntArray a, int value) {
+        for (@Parallel int i = 0; i < a.getSize(); i++) {
+            a.set(i, a.get(i) + value);
+        }
+    }
+
+    public static void saxpyLongIndex(float alpha, FloatArray x, FloatArray y) {
+        for (@Parallel int i = 0; i < y.getSize(); i++) {
+            // The long overloads index arrays with more than Integer.MAX_VALUE elements
+            long index = i;
+            y.set(index, alpha * x.get(index) + y.get(index));
+        }
+    }
+
+    @Test
+    public void testHostAccess() {
+        final int N = 1024;
+        FloatArray array = new FloatArray(N);
+        for (int i = 0; i < N; i++) {
+            assertEquals(0.0f, array.get(i), 0.0f);
+            array.set(i, i);
+        }
+        float[] heapArray = array.toHeapArray();
+        for (int i = 0; i < N; i++) {
+            assertEquals(i, heapArray[i], 0.0f);
+        }
+        assertEquals(N, array.getSize());
+        assertEquals((long) N * Float.BYTES, array.getNumBytesWithoutHeader());
+    }
+
+    @Test(expected = ArrayIndexOutOfBoundsException.class)
+    public void testOutOfBounds() {
+        IntArray array = new IntArray(16);
+        array.get(16);
+    }
+
+    @Test
+    public void testHalfFloatConversion() {
+        float[] values = new float[] { 0.0f, 1.0f, -2.5f, 0.333251953125f, 65504.0f, 6.1035156E-5f };
+        HalfFloatArray array = HalfFloatArray.fromArray(values);
+        for (int i = 0; i < values.length; i++) {
+            assertEquals(values[i], array.get(i).getFloat32(), 0.0f);
+        }
+        HalfFloat sum = HalfFloat.add(new HalfFloat(1.5f), new HalfFloat(2.25f));
+        assertEquals(3.75f, sum.getFloat32(), 0.0f);
+        assertEquals(Float.POSITIVE_INFINITY, HalfFloat.halfToFloat(HalfFloat.floatToHalf(1e6f)), 0.0f);
+    }
+
+    @Test
+    public void testVectorAddFloat() {
+        final int N = 4096;
+        FloatArray a = new FloatArray(N);
+        FloatArray b = new FloatArray(N);
+        FloatArray c = new FloatArray(N);
+
+        Random r = new Random();
+        for (int i = 0; i < N; i++) {
+            a.set(i, r.nextFloat());
+            b.set(i, r.nextFloat());
+        }
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.FIRST_EXECUTION, a, b) //
+                .task("t0", TestNativeArrays::vectorAddFloat, a, b, c) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, c);
+
+        ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
+        new TornadoExecutionPlan(immutableTaskGraph).execute();
+
+        for (int i = 0; i < N; i++) {
+            assertEquals(a.get(i) + b.get(i), c.get(i), 0.01f);
+        }
+    }
+
+    @Test
+    public void testVectorAddDouble() {
+        final int N = 4096;
+        DoubleArray a = new DoubleArray(N);
+        DoubleArray b = new DoubleArray(N);
+        DoubleArray c = new DoubleArray(N);
+
+        a.init(1.0);
+        b.init(2.0);
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.FIRST_EXECUTION, a, b) //
+                .task("t0", TestNativeArrays::vectorAddDouble, a, b, c) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, c);
+
+        ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
+        new TornadoExecutionPlan(immutableTaskGraph).execute();
+
+        for (int i = 0; i < N; i++) {
+            assertEquals(3.0, c.get(i), 0.01);
+        }
+    }
+
+    @Test
+    public void testMultipleExecutions() {
+        final int N = 256;
+        final int numExecutions = 4;
+        IntArray data = new IntArray(N);
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.FIRST_EXECUTION, data) //
+                .task("t0", TestNativeArrays::addAccumulator, data, 1) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, data);
+
+        ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
+        TornadoExecutionPlan executionPlan = new TornadoExecutionPlan(immutableTaskGraph);
+        for (int i = 0; i < numExecutions; i++) {
+            executionPlan.execute();
+        }
+
+        for (int i = 0; i < N; i++) {
+            assertEquals(numExecutions, data.get(i));
+        }
+    }
+
+    @Test
+    public void testLongIndex() {
+        final int N = 2048;
+        final float alpha = 2.0f;
+        FloatArray x = new FloatArray(N);
+        FloatArray y = new FloatArray(N);
+        for (int i = 0; i < N; i++) {
+            x.set(i, i);
+            y.set(i, 1.0f);
+        }
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.FIRST_EXECUTION, x, y) //
+                .task("t0", TestNativeArrays::saxpyLongIndex, alpha, x, y) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, y);
+
+        ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
+        new TornadoExecutionPlan(immutableTaskGraph).execute();
+
+        for (int i = 0; i < N; i++) {
+            assertEquals(alpha * i + 1.0f, y.get(i), 0.01f);
+        }
+    }
+}
@@ -0,0 +1,375 @@
+/*
+ * Copyright (c) 2023, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.unittests.atomics;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.GridScheduler;
+import uk.ac.manchester.tornado.api.ImmutableTaskGraph;
+import uk.ac.manchester.tornado.api.KernelContext;
+import uk.ac.manchester.tornado.api.TaskGraph;
+import uk.ac.manchester.tornado.api.TornadoExecutionPlan;
+import uk.ac.manchester.tornado.api.TornadoVM_Intrinsics;
+import uk.ac.manchester.tornado.api.WorkerGrid;
+import uk.ac.manchester.tornado.api.WorkerGrid1D;
+import uk.ac.manchester.tornado.api.annotations.Parallel;
+import uk.ac.manchester.tornado.api.enums.DataTransferMode;
+import uk.ac.manchester.tornado.api.enums.TornadoVMBackendType;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+import uk.ac.manchester.tornado.unittests.tools.Exceptions.UnsupportedConfigurationException;
+
+/**
+ * Tests for the atomic operations on array elements of
+ * {@link TornadoVM_Intrinsics}.
+ *
+ * <p>
+ * How to run?
+ * </p>
+ * <code>
+ *     tornado-test -V --fast uk.ac.manchester.tornado.unittests.atomics.TestAtomicArrays
+ * </code>
+ */
+public class TestAtomicArrays extends TornadoTestBase {
+
+    private static final int SIZE = 8192;
+    private static final int BINS = 16;
+
+    public static void histogramInt(int[] input, int[] histogram) {
+        for (@Parallel int i = 0; i < input.length; i++) {
+            TornadoVM_Intrinsics.atomic_add(histogram, input[i] % BINS, 1);
+        }
+    }
+
+    public static void histogramLong(int[] input, long[] histogram) {
+        for (@Parallel int i = 0; i < input.length; i++) {
+            TornadoVM_Intrinsics.atomic_add(histogram, input[i] % BINS, 1L << 33);
+        }
+    }
+
+    public static void histogramFloat(int[] input, float[] histogram) {
+        for (@Parallel int i = 0; i < input.length; i++) {
+            TornadoVM_Intrinsics.atomic_add(histogram, input[i] % BINS, 0.5f);
+        }
+    }
+
+    public static void minMaxInt(int[] input, int[] minMax) {
+        for (@Parallel int i = 0; i < input.length; i++) {
+            TornadoVM_Intrinsics.atomic_min(minMax, 0, input[i]);
+            TornadoVM_Intrinsics.atomic_max(minMax, 1, input[i]);
+        }
+    }
+
+    public static void minMaxLong(long[] input, long[] minMax) {
+        for (@Parallel int i = 0; i < input.length; i++) {
+            TornadoVM_Intrinsics.atomic_min(minMax, 0, input[i]);
+            TornadoVM_Intrinsics.atomic_max(minMax, 1, input[i]);
+        }
+    }
+
+    public static void minMaxFloat(float[] input, float[] minMax) {
+        for (@Parallel int i = 0; i < input.length; i++) {
+            TornadoVM_Intrinsics.atomic_min(minMax, 0, input[i]);
+            TornadoVM_Intrinsics.atomic_max(minMax, 1, input[i]);
+        }
+    }
+
+    public static void compareAndSwap(int[] lock, int[] winners) {
+        for (@Parallel int i = 0; i < winners.length; i++) {
+            int old = TornadoVM_Intrinsics.atomic_cmpxchg(lock, 0, 0, i + 1);
+            winners[i] = (old == 0) ? 1 : 0;
+        }
+    }
+
+    public static void exchange(long[] slot, long[] values, long[] previous) {
+        for (@Parallel int i = 0; i < values.length; i++) {
+            previous[i] = TornadoVM_Intrinsics.atomic_xchg(slot, 0, values[i]);
+        }
+    }
+
+    public static void histogramKernelContext(KernelContext context, int[] input, int[] histogram) {
+        int idx = context.globalIdx;
+        TornadoVM_Intrinsics.atomic_add(histogram, input[idx] % BINS, 1);
+    }
+
+    private static int[] createInput() {
+        Random random = new Random(7);
+        int[] input = new int[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            input[i] = random.nextInt(1000);
+        }
+        return input;
+    }
+
+    private static int[] histogramJava(int[] input) {
+        int[] histogram = new int[BINS];
+        for (int value : input) {
+            histogram[value % BINS]++;
+        }
+        return histogram;
+    }
+
+    private static void assumeInt64Atomics() {
+        if (!getTornadoRuntime().getDefaultDevice().getDeviceContext().isInt64AtomicsSupported()) {
+            throw new UnsupportedConfigurationException("The device does not support 64-bit atomics");
+        }
+    }
+
+    @Test
+    public void testHostAtomics() {
+        final int iterations = 10000;
+        float[] floatSum = new float[1];
+        long[] longSum = new long[1];
+        int[] minMax = new int[] { Integer.MAX_VALUE, Integer.MIN_VALUE };
+
+        IntStream.range(0, 4).parallel().forEach(t -> {
+            for (int i = 0; i < iterations; i++) {
+                TornadoVM_Intrinsics.atomic_add(floatSum, 0, 1.0f);
+                TornadoVM_Intrinsics.atomic_add(longSum, 0, 1L << 33);
+                TornadoVM_Intrinsics.atomic_min(minMax, 0, t * iterations + i);
+                TornadoVM_Intrinsics.atomic_max(minMax, 1, t * iterations + i);
+            }
+        });
+
+        assertEquals(4.0f * iterations, floatSum[0], 0.0f);
+        assertEquals(4L * iterations << 33, longSum[0]);
+        assertEquals(0, minMax[0]);
+        assertEquals(4 * iterations - 1, minMax[1]);
+
+        int[] lock = new int[1];
+        assertEquals(0, TornadoVM_Intrinsics.atomic_cmpxchg(lock, 0, 0, 5));
+        assertEquals(5, TornadoVM_Intrinsics.atomic_cmpxchg(lock, 0, 0, 7));
+        assertEquals(5, TornadoVM_Intrinsics.atomic_xchg(lock, 0, 9));
+        assertEquals(9, lock[0]);
+    }
+
+    @Test
+    public void testAtomicAddInt() {
+        int[] input = createInput();
+        int[] histogram = new int[BINS];
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.EVERY_EXECUTION, input, histogram) //
+                .task("t0", TestAtomicArrays::histogramInt, input, histogram) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, histogram);
+
+        ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
+        new TornadoExecutionPlan(immutableTaskGraph).execute();
+
+        int[] expected = histogramJava(input);
+        for (int i = 0; i < BINS; i++) {
+            assertEquals(expected[i], histogram[i]);
+        }
+    }
+
+    @Test
+    public void testAtomicAddLong() {
+        assumeInt64Atomics();
+
+        int[] input = createInput();
+        long[] histogram = new long[BINS];
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.EVERY_EXECUTION, input, histogram) //
+                .task("t0", TestAtomicArrays::histogramLong, input, histogram) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, histogram);
+
+        ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
+        new TornadoExecutionPlan(immutableTaskGraph).execute();
+
+        int[] expected = histogramJava(input);
+        for (int i = 0; i < BINS; i++) {
+            assertEquals((long) expected[i] << 33, histogram[i]);
+        }
+    }
+
+    @Test
+    public void testAtomicAddFloat() {
+        assertNotBackend(TornadoVMBackendType.SPIRV);
+
+        int[] input = createInput();
+        float[] histogram = new float[BINS];
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.EVERY_EXECUTION, input, histogram) //
+                .task("t0", TestAtomicArrays::histogramFloat, input, histogram) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, histogram);
+
+        ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
+        new TornadoExecutionPlan(immutableTaskGraph).execute();
+
+        int[] expected = histogramJava(input);
+        for (int i = 0; i < BINS; i++) {
+            // Sums of 0.5 are exact, whatever the order of the additions
+            assertEquals(expected[i] * 0.5f, histogram[i], 0.0f);
+        }
+    }
+
+    @Test
+    public void testAtomicMinMaxInt() {
+        int[] input = createInput();
+        input[SIZE / 3] = -42;
+        input[SIZE / 2] = 5000;
+        int[] minMax = new int[] { Integer.MAX_VALUE, Integer.MIN_VALUE };
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.EVERY_EXECUTION, input, minMax) //
+                .task("t0", TestAtomicArrays::minMaxInt, input, minMax) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, minMax);
+
+        ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
+        new TornadoExecutionPlan(immutableTaskGraph).execute();
+
+        assertEquals(-42, minMax[0]);
+        assertEquals(5000, minMax[1]);
+    }
+
+    @Test
+    public void testAtomicMinMaxLong() {
+        assumeInt64Atomics();
+
+        long[] input = new long[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            input[i] = ((long) i << 32) - (SIZE / 2L << 32);
+        }
+        long[] minMax = new long[] { Long.MAX_VALUE, Long.MIN_VALUE };
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.EVERY_EXECUTION, input, minMax) //
+                .task("t0", TestAtomicArrays::minMaxLong, input, minMax) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, minMax);
+
+        ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
+        new TornadoExecutionPlan(immutableTaskGraph).execute();
+
+        assertEquals(input[0], minMax[0]);
+        assertEquals(input[SIZE - 1], minMax[1]);
+    }
+
+    @Test
+    public void testAtomicMinMaxFloat() {
+        assertNotBackend(TornadoVMBackendType.SPIRV);
+
+        Random random = new Random(7);
+        float[] input = new float[SIZE];
+        float min = Float.MAX_VALUE;
+        float max = -Float.MAX_VALUE;
+        for (int i = 0; i < SIZE; i++) {
+            input[i] = random.nextFloat() * 200.0f - 100.0f;
+            min = Math.min(min, input[i]);
+            max = Math.max(max, input[i]);
+        }
+        float[] minMax = new float[] { Float.MAX_VALUE, -Float.MAX_VALUE };
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.EVERY_EXECUTION, input, minMax) //
+                .task("t0", TestAtomicArrays::minMaxFloat, input, minMax) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, minMax);
+
+        ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
+        new TornadoExecutionPlan(immutableTaskGraph).execute();
+
+        assertEquals(min, minMax[0], 0.0f);
+        assertEquals(max, minMax[1], 0.0f);
+    }
+
+    @Test
+    public void testAtomicCompareAndSwap() {
+        int[] lock = new int[1];
+        int[] winners = new int[SIZE];
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.EVERY_EXECUTION, lock, winners) //
+                .task("t0", TestAtomicArrays::compareAndSwap, lock, winners) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, lock, winners);
+
+        ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
+        new TornadoExecutionPlan(immutableTaskGraph).execute();
+
+        // Only one thread swaps the initial value, and it stores its own id
+        int winner = -1;
+        int numWinners = 0;
+        for (int i = 0; i < SIZE; i++) {
+            if (winners[i] == 1) {
+                winner = i;
+                numWinners++;
+            }
+        }
+        assertEquals(1, numWinners);
+        assertEquals(winner + 1, lock[0]);
+    }
+
+    @Test
+    public void testAtomicExchange() {
+        assumeInt64Atomics();
+
+        long[] slot = new long[] { -1L };
+        long[] values = new long[SIZE];
+        long[] previous = new long[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            values[i] = ((long) i << 32) + 1;
+        }
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.EVERY_EXECUTION, slot, values) //
+                .task("t0", TestAtomicArrays::exchange, slot, values, previous) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, slot, previous);
+
+        ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
+        new TornadoExecutionPlan(immutableTaskGraph).execute();
+
+        // The exchanges form a chain: every value is returned once, except the last one
+        // that remains in the slot
+        long expectedSum = -1L;
+        long actualSum = slot[0];
+        for (int i = 0; i < SIZE; i++) {
+            expectedSum += values[i];
+            actualSum += previous[i];
+        }
+        assertEquals(expectedSum, actualSum);
+    }
+
+    @Test
+    public void testAtomicAddKernelContext() {
+        int[] input = createInput();
+        int[] histogram = new int[BINS];
+
+        WorkerGrid worker = new WorkerGrid1D(SIZE);
+        GridScheduler gridScheduler = new GridScheduler("s0.t0", worker);
+        KernelContext context = new KernelContext();
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.EVERY_EXECUTION, input, histogram) //
+                .task("t0", TestAtomicArrays::histogramKernelContext, context, input, histogram) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, histogram);
+
+        ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
+        TornadoExecutionPlan executionPlan = new TornadoExecutionPlan(immutableTaskGraph);
+        executionPlan.withGridScheduler(gridScheduler) //
+                .execute();
+
+        int[] expected = histogramJava(input);
+        for (int i = 0; i < BINS; i++) {
+            assertEquals(expected[i], histogram[i]);
+        }
+    }
+}
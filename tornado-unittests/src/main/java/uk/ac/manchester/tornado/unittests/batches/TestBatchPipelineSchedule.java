@@ -0,0 +1,214 @@
+/*
+ * Copyright (c) 2023, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.unittests.batches;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.runtime.graph.BatchPipelineSchedule;
+import uk.ac.manchester.tornado.runtime.graph.BatchPipelineSchedule.Stage;
+import uk.ac.manchester.tornado.runtime.graph.BatchPipelineSchedule.Step;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+/**
+ * Tests for the order of the stages and the event lists used by pipelined
+ * batches. They do not need any device.
+ *
+ * <p>
+ * How to run?
+ * </p>
+ * <code>
+ *     tornado-test -V uk.ac.manchester.tornado.unittests.batches.TestBatchPipelineSchedule
+ * </code>
+ */
+public class TestBatchPipelineSchedule extends TornadoTestBase {
+
+    private static final int FIRST_EVENT_LIST = 5;
+
+    private static final int[][] CONFIGURATIONS = { { 2, 2 }, { 3, 2 }, { 4, 2 }, { 7, 2 }, { 3, 3 }, { 4, 3 }, { 10, 3 } };
+
+    private static int indexOf(BatchPipelineSchedule schedule, Stage stage, int chunk) {
+        List<Step> steps = schedule.getSteps();
+        for (int i = 0; i < steps.size(); i++) {
+            if (steps.get(i).getStage() == stage && steps.get(i).getChunk() == chunk) {
+                return i;
+            }
+        }
+        throw new AssertionError("No step " + stage + "(" + chunk + ")");
+    }
+
+    private static Step stepOf(BatchPipelineSchedule schedule, Stage stage, int chunk) {
+        return schedule.getSteps().get(indexOf(schedule, stage, chunk));
+    }
+
+    @Test
+    public void testStepsWithTwoBuffers() {
+        BatchPipelineSchedule schedule = new BatchPipelineSchedule(4, 2, FIRST_EVENT_LIST);
+        List<String> steps = schedule.getSteps().stream().map(Step::toString).collect(Collectors.toList());
+        List<String> expected = Arrays.asList( //
+                "TRANSFER_IN(0)@0", //
+                "COMPUTE(0)@0", "TRANSFER_IN(1)@1", //
+                "COMPUTE(1)@1", "TRANSFER_OUT(0)@0", "TRANSFER_IN(2)@0", //
+                "COMPUTE(2)@0", "TRANSFER_OUT(1)@1", "TRANSFER_IN(3)@1", //
+                "COMPUTE(3)@1", "TRANSFER_OUT(2)@0", //
+                "TRANSFER_OUT(3)@1");
+        assertEquals(expected, steps);
+    }
+
+    @Test
+    public void testEveryChunkGoesThroughEachStageInOrder() {
+        for (int[] configuration : CONFIGURATIONS) {
+            final int numChunks = configuration[0];
+            final int numBuffers = configuration[1];
+            BatchPipelineSchedule schedule = new BatchPipelineSchedule(numChunks, numBuffers, FIRST_EVENT_LIST);
+            assertEquals(3 * numChunks, schedule.getSteps().size());
+            for (int chunk = 0; chunk < numChunks; chunk++) {
+                int in = indexOf(schedule, Stage.TRANSFER_IN, chunk);
+                int compute = indexOf(schedule, Stage.COMPUTE, chunk);
+                int out = indexOf(schedule, Stage.TRANSFER_OUT, chunk);
+                assertTrue(in < compute && compute < out);
+                for (Stage stage : Stage.values()) {
+                    assertEquals(chunk % numBuffers, stepOf(schedule, stage, chunk).getSlot());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testEventListsAreDisjoint() {
+        for (int[] configuration : CONFIGURATIONS) {
+            final int numBuffers = configuration[1];
+            BatchPipelineSchedule schedule = new BatchPipelineSchedule(configuration[0], numBuffers, FIRST_EVENT_LIST);
+            Set<Integer> eventLists = new HashSet<>();
+            for (int slot = 0; slot < numBuffers; slot++) {
+                for (Stage stage : Stage.values()) {
+                    eventLists.add(schedule.getEventList(stage, slot));
+                }
+            }
+            eventLists.add(schedule.getFinalEventList());
+            final int numEventLists = BatchPipelineSchedule.getNumEventLists(numBuffers);
+            assertEquals(numEventLists, eventLists.size());
+            assertTrue(eventLists.stream().allMatch(list -> list >= FIRST_EVENT_LIST && list < FIRST_EVENT_LIST + numEventLists));
+        }
+    }
+
+    /**
+     * The copy-in of chunk {@code i + 1} is enqueued next to the kernels of chunk
+     * {@code i}, before the host blocks on any copy-out of chunk {@code i}, and it
+     * does not wait for those kernels.
+     */
+    @Test
+    public void testTransferInOverlapsPreviousCompute() {
+        for (int[] configuration : CONFIGURATIONS) {
+            final int numChunks = configuration[0];
+            BatchPipelineSchedule schedule = new BatchPipelineSchedule(numChunks, configuration[1], FIRST_EVENT_LIST);
+            for (int chunk = 0; chunk + 1 < numChunks; chunk++) {
+                Step nextTransferIn = stepOf(schedule, Stage.TRANSFER_IN, chunk + 1);
+                assertTrue(indexOf(schedule, Stage.TRANSFER_IN, chunk + 1) < indexOf(schedule, Stage.TRANSFER_OUT, chunk));
+                assertTrue(indexOf(schedule, Stage.COMPUTE, chunk) < indexOf(schedule, Stage.TRANSFER_IN, chunk + 1));
+
+                List<Integer> computeSignals = schedule.getSignalEventLists(stepOf(schedule, Stage.COMPUTE, chunk), true, true);
+                assertFalse(computeSignals.contains(schedule.getEventList(Stage.TRANSFER_IN, nextTransferIn.getSlot())));
+            }
+        }
+    }
+
+    @Test
+    public void testComputeWaitsForItsTransferInAndPreviousCompute() {
+        for (int[] configuration : CONFIGURATIONS) {
+            final int numChunks = configuration[0];
+            BatchPipelineSchedule schedule = new BatchPipelineSchedule(numChunks, configuration[1], FIRST_EVENT_LIST);
+            for (int chunk = 0; chunk < numChunks; chunk++) {
+                Step compute = stepOf(schedule, Stage.COMPUTE, chunk);
+                final int computeEventList = schedule.getEventList(Stage.COMPUTE, compute.getSlot());
+                assertEquals(Arrays.asList(computeEventList), schedule.getSignalEventLists(stepOf(schedule, Stage.TRANSFER_IN, chunk), true, true));
+                if (chunk >= 1) {
+                    assertTrue(schedule.getSignalEventLists(stepOf(schedule, Stage.COMPUTE, chunk - 1), true, true).contains(computeEventList));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testTransferOutWaitsForCompute() {
+        for (int[] configuration : CONFIGURATIONS) {
+            final int numChunks = configuration[0];
+            BatchPipelineSchedule schedule = new BatchPipelineSchedule(numChunks, configuration[1], FIRST_EVENT_LIST);
+            for (int chunk = 0; chunk < numChunks; chunk++) {
+                Step compute = stepOf(schedule, Stage.COMPUTE, chunk);
+                assertTrue(schedule.getSignalEventLists(compute, true, true).contains(schedule.getEventList(Stage.TRANSFER_OUT, compute.getSlot())));
+                assertFalse(schedule.getSignalEventLists(compute, true, false).contains(schedule.getEventList(Stage.TRANSFER_OUT, compute.getSlot())));
+            }
+        }
+    }
+
+    /**
+     * The copy-in of chunk {@code i + numBuffers} overwrites the buffers read by
+     * the kernels of chunk {@code i}, so it waits for them.
+     */
+    @Test
+    public void testBufferReuseWaitsForCompute() {
+        for (int[] configuration : CONFIGURATIONS) {
+            final int numChunks = configuration[0];
+            final int numBuffers = configuration[1];
+            BatchPipelineSchedule schedule = new BatchPipelineSchedule(numChunks, numBuffers, FIRST_EVENT_LIST);
+            for (int chunk = 0; chunk < numChunks; chunk++) {
+                Step compute = stepOf(schedule, Stage.COMPUTE, chunk);
+                final int transferInEventList = schedule.getEventList(Stage.TRANSFER_IN, compute.getSlot());
+                final boolean isReused = chunk + numBuffers < numChunks;
+                assertEquals(isReused, schedule.getSignalEventLists(compute, true, true).contains(transferInEventList));
+                assertFalse(schedule.getSignalEventLists(compute, false, true).contains(transferInEventList));
+                if (isReused) {
+                    assertTrue(indexOf(schedule, Stage.COMPUTE, chunk) < indexOf(schedule, Stage.TRANSFER_IN, chunk + numBuffers));
+                    assertEquals(compute.getSlot(), stepOf(schedule, Stage.TRANSFER_IN, chunk + numBuffers).getSlot());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testFinalWait() {
+        for (int[] configuration : CONFIGURATIONS) {
+            final int numChunks = configuration[0];
+            BatchPipelineSchedule schedule = new BatchPipelineSchedule(numChunks, configuration[1], FIRST_EVENT_LIST);
+            final int finalEventList = schedule.getFinalEventList();
+            List<Step> steps = schedule.getSteps();
+
+            // The last step is the copy-out of the last chunk
+            Step last = steps.get(steps.size() - 1);
+            assertEquals(Stage.TRANSFER_OUT, last.getStage());
+            assertEquals(numChunks - 1, last.getChunk());
+
+            // Only the last operation of the pipeline signals the final event list
+            Step lastCompute = stepOf(schedule, Stage.COMPUTE, numChunks - 1);
+            for (Step step : steps) {
+                assertEquals(step == last, schedule.getSignalEventLists(step, true, true).contains(finalEventList));
+                assertEquals(step == last || step == lastCompute, schedule.getSignalEventLists(step, true, false).contains(finalEventList));
+            }
+        }
+    }
+}
@@ -30,6 +30,7 @@ import uk.ac.manchester.tornado.api.TaskGraph;
 import uk.ac.manchester.tornado.api.TornadoExecutionPlan;
 import uk.ac.manchester.tornado.api.annotations.Parallel;
 import uk.ac.manchester.tornado.api.enums.DataTransferMode;
+import uk.ac.manchester.tornado.api.exceptions.TornadoRuntimeException;
 import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
 import uk.ac.manchester.tornado.unittests.tools.Exceptions.UnsupportedConfigurationException;
 
@@ -94,6 +95,18 @@ public class TestBatches extends TornadoTestBase {
         }
     }
 
+    public static void computeMixed(float[] arrayA, int[] arrayB, double[] arrayC) {
+        for (@Parallel int i = 0; i < arrayA.length; i++) {
+            arrayC[i] = arrayA[i] + arrayB[i];
+        }
+    }
+
+    public static void computeWithCoefficients(float[] arrayA, float[] coefficients, float[] arrayB) {
+        for (@Parallel int i = 0; i < arrayA.length; i++) {
+            arrayB[i] = arrayA[i] * coefficients[0] + coefficients[1];
+        }
+    }
+
     @Test
     public void test100MB() {
 
@@ -374,6 +387,190 @@ public class TestBatches extends TornadoTestBase {
         executionPlan.freeDeviceMemory();
     }
 
+    @Test
+    public void test50MBMixedTypes() {
+
+        long maxAllocMemory = checkMaxHeapAllocation(50, MemSize.MB);
+
+        // Fill 320MB of input and output arrays
+        int size = 20000000;
+        // or as much as we can
+        if (size * 16L > maxAllocMemory) {
+            size = (int) ((maxAllocMemory / 16) * 0.9);
+        }
+        float[] arrayA = new float[size];
+        int[] arrayB = new int[size];
+        double[] arrayC = new double[size];
+
+        IntStream.range(0, arrayA.length).sequential().forEach(idx -> {
+            arrayA[idx] = idx;
+            arrayB[idx] = idx % 100;
+        });
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.FIRST_EXECUTION, arrayA, arrayB) //
+                .task("t0", TestBatches::computeMixed, arrayA, arrayB, arrayC) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, arrayC);
+
+        ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
+        TornadoExecutionPlan executionPlan = new TornadoExecutionPlan(immutableTaskGraph);
+        executionPlan.withBatch("50MB") // Slots of 50 MB for the widest type (double)
+                .execute();
+
+        for (int i = 0; i < arrayA.length; i++) {
+            assertEquals(arrayA[i] + arrayB[i], arrayC[i], 0.01);
+        }
+        executionPlan.freeDeviceMemory();
+    }
+
+    @Test
+    public void test50MBBroadcast() {
+
+        long maxAllocMemory = checkMaxHeapAllocation(50, MemSize.MB);
+
+        // Fill 160MB of input and output arrays
+        int size = 20000000;
+        // or as much as we can
+        if (size * 8L > maxAllocMemory) {
+            size = (int) ((maxAllocMemory / 8) * 0.9);
+        }
+        float[] arrayA = new float[size];
+        float[] arrayB = new float[size];
+        // Smaller array: it is copied whole for every batch
+        float[] coefficients = new float[] { 2.0f, 1.0f };
+
+        IntStream.range(0, arrayA.length).sequential().forEach(idx -> arrayA[idx] = idx % 1000);
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.FIRST_EXECUTION, arrayA, coefficients) //
+                .task("t0", TestBatches::computeWithCoefficients, arrayA, coefficients, arrayB) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, arrayB);
+
+        ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
+        TornadoExecutionPlan executionPlan = new TornadoExecutionPlan(immutableTaskGraph);
+        executionPlan.withBatch("50MB", coefficients) // Slots of 50 MB
+                .execute();
+
+        for (int i = 0; i < arrayA.length; i++) {
+            assertEquals(arrayA[i] * 2.0f + 1.0f, arrayB[i], 0.01f);
+        }
+        executionPlan.freeDeviceMemory();
+    }
+
+    @Test(expected = TornadoRuntimeException.class)
+    public void testBatchUndeclaredBroadcast() {
+        float[] arrayA = new float[1024];
+        float[] arrayB = new float[1024];
+        // Smaller array that is not declared as broadcast
+        float[] coefficients = new float[] { 2.0f, 1.0f };
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.FIRST_EXECUTION, arrayA, coefficients) //
+                .task("t0", TestBatches::computeWithCoefficients, arrayA, coefficients, arrayB) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, arrayB);
+
+        ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
+        TornadoExecutionPlan executionPlan = new TornadoExecutionPlan(immutableTaskGraph);
+        executionPlan.withBatch("1MB").execute();
+    }
+
+    @Test(expected = TornadoRuntimeException.class)
+    public void testBatchBroadcastNotInTaskGraph() {
+        float[] arrayA = new float[1024];
+        float[] arrayB = new float[1024];
+        float[] coefficients = new float[] { 2.0f, 1.0f };
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.FIRST_EXECUTION, arrayA, coefficients) //
+                .task("t0", TestBatches::computeWithCoefficients, arrayA, coefficients, arrayB) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, arrayB);
+
+        ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
+        TornadoExecutionPlan executionPlan = new TornadoExecutionPlan(immutableTaskGraph);
+        executionPlan.withBatch("1MB", new float[2]);
+    }
+
+    @Test
+    public void test50MBPipelined() {
+
+        long maxAllocMemory = checkMaxHeapAllocation(50, MemSize.MB);
+
+        // Fill 240MB of input and output arrays, with two device buffers per array
+        int size = 20000000;
+        // or as much as we can
+        if (size * 4L * 3 * 2 > maxAllocMemory) {
+            size = (int) ((maxAllocMemory / 4 / 3 / 2) * 0.9);
+        }
+        float[] arrayA = new float[size];
+        float[] arrayB = new float[size];
+        float[] arrayC = new float[size];
+
+        IntStream.range(0, arrayA.length).sequential().forEach(idx -> {
+            arrayA[idx] = idx;
+            arrayB[idx] = idx;
+        });
+
+        System.setProperty("tornado.batch.buffers", "2");
+        try {
+            TaskGraph taskGraph = new TaskGraph("s0") //
+                    .transferToDevice(DataTransferMode.EVERY_EXECUTION, arrayA, arrayB) //
+                    .task("t0", TestBatches::compute, arrayA, arrayB, arrayC) //
+                    .transferToHost(DataTransferMode.EVERY_EXECUTION, arrayC);
+
+            ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
+            TornadoExecutionPlan executionPlan = new TornadoExecutionPlan(immutableTaskGraph);
+            executionPlan.withBatch("50MB") // Slots of 50 MB, two per array
+                    .execute();
+
+            for (int i = 0; i < arrayA.length; i++) {
+                assertEquals(arrayA[i] + arrayB[i], arrayC[i], 0.1f);
+            }
+            executionPlan.freeDeviceMemory();
+        } finally {
+            System.clearProperty("tornado.batch.buffers");
+        }
+    }
+
+    /**
+     * Many small chunks run in the BATCH_BEGIN/BATCH_END loop of the bytecodes.
+     * The task-graph is executed twice to check that the loop is reset for each
+     * execution.
+     */
+    @Test
+    public void test1MBManyChunks() {
+        checkMaxHeapAllocation(1, MemSize.MB);
+
+        // 64MB per array plus a partial chunk
+        int size = 16 * 1024 * 1024 + 1234;
+        float[] arrayA = new float[size];
+        float[] arrayB = new float[size];
+        float[] arrayC = new float[size];
+
+        IntStream.range(0, arrayA.length).sequential().forEach(idx -> {
+            arrayA[idx] = idx;
+            arrayB[idx] = 2;
+        });
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.EVERY_EXECUTION, arrayA, arrayB) //
+                .task("t0", TestBatches::compute, arrayA, arrayB, arrayC) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, arrayC);
+
+        ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
+        TornadoExecutionPlan executionPlan = new TornadoExecutionPlan(immutableTaskGraph);
+        executionPlan.withBatch("1MB"); // Slots of 1 MB
+
+        for (int run = 0; run < 2; run++) {
+            executionPlan.execute();
+            for (int i = 0; i < arrayC.length; i++) {
+                assertEquals(arrayA[i] + arrayB[i], arrayC[i], 0.1f);
+            }
+            IntStream.range(0, arrayB.length).sequential().forEach(idx -> arrayB[idx] = 3);
+        }
+
+        executionPlan.freeDeviceMemory();
+    }
+
     private long checkMaxHeapAllocation(int size, MemSize memSize) throws UnsupportedConfigurationException {
         long maxAllocMemory = getTornadoRuntime().getDefaultDevice().getDeviceContext().getMemoryManager().getHeapSize();
 
@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2023, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.unittests.benchmarks;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.common.TornadoDevice;
+import uk.ac.manchester.tornado.benchmarks.BenchmarkComparison;
+import uk.ac.manchester.tornado.benchmarks.BenchmarkDriver;
+import uk.ac.manchester.tornado.benchmarks.BenchmarkResult;
+import uk.ac.manchester.tornado.benchmarks.BenchmarkResultsFile;
+import uk.ac.manchester.tornado.benchmarks.BenchmarkRunner;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+/**
+ * Tests for the statistics of the benchmark results and for the detection of
+ * regressions against a baseline. They do not need any device.
+ *
+ * <p>
+ * How to run?
+ * </p>
+ * <code>
+ *     tornado-test -V uk.ac.manchester.tornado.unittests.benchmarks.TestBenchmarkStatistics
+ * </code>
+ */
+public class TestBenchmarkStatistics extends TornadoTestBase {
+
+    private static final double THRESHOLD = 0.05;
+    private static final double SIGNIFICANCE = 0.01;
+
+    // Quantiles of the Student's t distribution with 10 degrees of freedom
+    private static final double T_975_DF10 = 2.228138851986;
+    private static final double T_95_DF10 = 1.812461122811;
+
+    private static final BenchmarkDriver DRIVER = new BenchmarkDriver(1) {
+        @Override
+        public void setUp() {
+        }
+
+        @Override
+        public boolean validate(TornadoDevice device) {
+            return true;
+        }
+
+        @Override
+        public void benchmarkMethod(TornadoDevice device) {
+        }
+    };
+
+    private static String csvLine(String id, String deviceName, int samples, double mean, double stdDev, double allocation) {
+        // The values are written in full precision so that the p-values are exact
+        return String.format(Locale.ROOT, "\"sgemm\",\"%s\",\"\",\"tornado\",\"0:0\",\"%s\",%d,%s,%s,1.000000e+02,1.000000e+02,1.000000e+02,1.000000e+02,1.000000e+02,1.000000e+02,1.000000e+03,"
+                + "-1.000000e+00,-1.000000e+00,-1.000000e+00,%s,0.000000e+00", id, deviceName, samples, Double.toString(mean), Double.toString(stdDev), Double.toString(allocation));
+    }
+
+    private static BenchmarkResult result(String id, int samples, double mean, double stdDev) {
+        return BenchmarkResult.fromCSV(csvLine(id, "device", samples, mean, stdDev, 0));
+    }
+
+    private static BenchmarkResult result(String id, int samples, double mean, double stdDev, double allocation) {
+        return BenchmarkResult.fromCSV(csvLine(id, "device", samples, mean, stdDev, allocation));
+    }
+
+    @Test
+    public void testRegularizedIncompleteBeta() {
+        // For integer parameters, I_x(a, b) is a binomial tail
+        assertEquals(11.0 / 16.0, BenchmarkComparison.regularizedIncompleteBeta(0.5, 2, 3), 1e-12);
+        assertEquals(0.3483, BenchmarkComparison.regularizedIncompleteBeta(0.3, 2, 3), 1e-12);
+        // I_x(a, 1) = x^a and I_x(1, b) = 1 - (1 - x)^b
+        assertEquals(Math.pow(0.2, 3), BenchmarkComparison.regularizedIncompleteBeta(0.2, 3, 1), 1e-12);
+        assertEquals(1 - Math.pow(0.1, 4), BenchmarkComparison.regularizedIncompleteBeta(0.9, 1, 4), 1e-12);
+        // Symmetry: I_0.5(a, a) = 0.5
+        assertEquals(0.5, BenchmarkComparison.regularizedIncompleteBeta(0.5, 7.5, 7.5), 1e-9);
+        assertEquals(0, BenchmarkComparison.regularizedIncompleteBeta(0, 2, 3), 0);
+        assertEquals(1, BenchmarkComparison.regularizedIncompleteBeta(1, 2, 3), 0);
+    }
+
+    @Test
+    public void testWelchTTestTwoDegreesOfFreedom() {
+        // Two samples of each: t = 2 with 2 degrees of freedom, and the tail of the
+        // t distribution is 0.5 - t / (2 * sqrt(2 + t^2))
+        final double expected = 0.5 - 2 / (2 * Math.sqrt(6));
+        assertEquals(expected, BenchmarkComparison.welchTTest(result("a", 2, 10, 1), result("a", 2, 12, 1)), 1e-9);
+        // The test is one-sided: a faster current result is not significant
+        assertEquals(1 - expected, BenchmarkComparison.welchTTest(result("a", 2, 12, 1), result("a", 2, 10, 1)), 1e-9);
+    }
+
+    @Test
+    public void testWelchTTestQuantiles() {
+        // Six samples of each with the same variance: 10 degrees of freedom
+        final double standardError = Math.sqrt(1.0 / 3.0);
+        assertEquals(0.025, BenchmarkComparison.welchTTest(result("a", 6, 100, 1), result("a", 6, 100 + T_975_DF10 * standardError, 1)), 1e-9);
+        assertEquals(0.05, BenchmarkComparison.welchTTest(result("a", 6, 100, 1), result("a", 6, 100 + T_95_DF10 * standardError, 1)), 1e-9);
+    }
+
+    @Test
+    public void testWelchTTestUnequalVariances() {
+        // t = 2 / sqrt(1.1) with 12.1 degrees of freedom (Welch-Satterthwaite)
+        assertEquals(0.0402742454, BenchmarkComparison.welchTTest(result("a", 5, 10, 1), result("a", 10, 12, 3)), 1e-9);
+    }
+
+    @Test
+    public void testWelchTTestDegenerateSamples() {
+        // Not enough samples to estimate the variance
+        assertEquals(1.0, BenchmarkComparison.welchTTest(result("a", 1, 10, 0), result("a", 1, 20, 0)), 0);
+        // No variance: any slowdown is significant
+        assertEquals(0.0, BenchmarkComparison.welchTTest(result("a", 10, 10, 0), result("a", 10, 11, 0)), 0);
+        assertEquals(1.0, BenchmarkComparison.welchTTest(result("a", 10, 10, 0), result("a", 10, 10, 0)), 0);
+    }
+
+    @Test
+    public void testCSVRoundTrip() {
+        String line = csvLine("sgemm-1024, \"\"large\"\"", "GPU \\ \"\"RTX\"\" \\", 30, 1.5e6, 2.5e4, 4096);
+        BenchmarkResult result = BenchmarkResult.fromCSV(line);
+
+        assertEquals("sgemm-1024, \"large\"", result.getString("id"));
+        assertEquals("GPU \\ \"RTX\" \\", result.getString("deviceName"));
+        assertEquals(30, result.getSamples());
+        assertEquals(1.5e6, result.getMean(), 0);
+        assertEquals(2.5e4 * 2.5e4, result.getVariance(), 1e-3);
+        assertEquals(4096, result.getDouble("allocatedBytesPerIteration"), 0);
+        assertEquals(-1, result.getDouble("kernelAvg"), 0);
+        assertEquals(line, result.toCSV());
+    }
+
+    @Test
+    public void testJSONRoundTrip() {
+        String line = csvLine("sgemm-1024, \"\"large\"\"", "GPU \\ \"\"RTX\"\" \\", 30, 1.5e6, 2.5e4, 4096);
+        BenchmarkResult result = BenchmarkResult.fromCSV(line);
+
+        BenchmarkResult parsed = BenchmarkResult.fromJSON(result.toJSON());
+        assertEquals("sgemm-1024, \"large\"", parsed.getString("id"));
+        assertEquals("GPU \\ \"RTX\" \\", parsed.getString("deviceName"));
+        assertEquals(result.getKey(), parsed.getKey());
+        assertEquals(result.toJSON(), parsed.toJSON());
+        assertEquals(line, parsed.toCSV());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMalformedCSV() {
+        BenchmarkResult.fromCSV("\"sgemm\",\"id\",1.0");
+    }
+
+    @Test
+    public void testPercentile() {
+        double[] samples = { 40, 15, 50, 35, 20 };
+        assertEquals(15, DRIVER.getPercentile(samples, 0), 0);
+        // Rank 0.4 * 4 = 1.6: between 20 and 35
+        assertEquals(29, DRIVER.getPercentile(samples, 40), 1e-9);
+        assertEquals(35, DRIVER.getPercentile(samples, 50), 0);
+        assertEquals(46, DRIVER.getPercentile(samples, 90), 1e-9);
+        assertEquals(50, DRIVER.getPercentile(samples, 100), 0);
+        // The samples are not reordered
+        assertArrayEquals(new double[] { 40, 15, 50, 35, 20 }, samples, 0);
+    }
+
+    @Test
+    public void testSampleVariance() {
+        // Mean 5 and sum of squared deviations 32
+        assertEquals(32.0 / 7.0, DRIVER.getSampleVariance(new double[] { 2, 4, 4, 4, 5, 5, 7, 9 }), 1e-12);
+        assertEquals(0, DRIVER.getSampleVariance(new double[] { 42 }), 0);
+    }
+
+    @Test
+    public void testComparison() {
+        BenchmarkComparison comparison = new BenchmarkComparison(THRESHOLD, SIGNIFICANCE);
+        List<BenchmarkResult> baseline = List.of(result("a", 30, 1000, 10), result("b", 30, 1000, 10), result("c", 30, 1000, 10), result("d", 30, 1000, 10, 1000));
+
+        // Same times
+        assertTrue(comparison.compare(baseline, List.of(result("a", 30, 1000, 10))).isEmpty());
+        // 20% slower and significant
+        assertEquals(1, comparison.compare(baseline, List.of(result("a", 30, 1200, 10))).size());
+        // 20% slower, but the variance is too large to be significant
+        assertTrue(comparison.compare(baseline, List.of(result("b", 30, 1200, 2000))).isEmpty());
+        // Significant, but below the threshold
+        assertTrue(comparison.compare(baseline, List.of(result("c", 30, 1020, 10))).isEmpty());
+        // Faster
+        assertTrue(comparison.compare(baseline, List.of(result("c", 30, 500, 10))).isEmpty());
+        // More allocations per iteration
+        List<String> regressions = comparison.compare(baseline, List.of(result("d", 30, 1000, 10, 100000)));
+        assertEquals(1, regressions.size());
+        assertTrue(regressions.get(0).contains("allocation"));
+        // Results without a baseline are ignored
+        assertTrue(comparison.compare(baseline, List.of(result("e", 30, 5000, 10))).isEmpty());
+    }
+
+    @Test
+    public void testCompareExitStatus() throws IOException {
+        Path directory = Files.createTempDirectory("tornado-benchmarks");
+        String baselineFile = directory.resolve("baseline.csv").toString();
+        String passFile = directory.resolve("pass.json").toString();
+        String failFile = directory.resolve("fail.json").toString();
+        try {
+            BenchmarkResultsFile.append(baselineFile, result("a", 30, 1000, 10));
+            BenchmarkResultsFile.append(baselineFile, result("b", 30, 1000, 10));
+
+            BenchmarkResultsFile.append(passFile, result("a", 30, 1001, 10));
+            BenchmarkResultsFile.append(passFile, result("b", 30, 990, 10));
+            assertEquals(0, BenchmarkRunner.compareResults(baselineFile, passFile));
+
+            BenchmarkResultsFile.append(failFile, result("a", 30, 1001, 10));
+            BenchmarkResultsFile.append(failFile, result("b", 30, 1500, 10));
+            assertEquals(1, BenchmarkRunner.compareResults(baselineFile, failFile));
+        } finally {
+            Files.deleteIfExists(Path.of(baselineFile));
+            Files.deleteIfExists(Path.of(passFile));
+            Files.deleteIfExists(Path.of(failFile));
+            Files.delete(directory);
+        }
+    }
+}
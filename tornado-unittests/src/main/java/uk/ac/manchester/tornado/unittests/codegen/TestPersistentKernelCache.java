@@ -0,0 +1,299 @@
+/*
+ * Copyright (c) 2023, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.unittests.codegen;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+import uk.ac.manchester.tornado.api.ImmutableTaskGraph;
+import uk.ac.manchester.tornado.api.TaskGraph;
+import uk.ac.manchester.tornado.api.TornadoExecutionPlan;
+import uk.ac.manchester.tornado.api.annotations.Parallel;
+import uk.ac.manchester.tornado.api.common.Access;
+import uk.ac.manchester.tornado.api.enums.DataTransferMode;
+import uk.ac.manchester.tornado.runtime.TornadoCoreRuntime;
+import uk.ac.manchester.tornado.runtime.common.PersistentKernelCache;
+import uk.ac.manchester.tornado.runtime.common.TornadoAcceleratorDevice;
+import uk.ac.manchester.tornado.runtime.tasks.CompilableTask;
+import uk.ac.manchester.tornado.runtime.tasks.meta.ScheduleMetaData;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+/**
+ * Tests for the persistent kernel cache.
+ *
+ * <p>
+ * How to run?
+ * </p>
+ * <code>
+ *     tornado-test -V uk.ac.manchester.tornado.unittests.codegen.TestPersistentKernelCache
+ * </code>
+ */
+public class TestPersistentKernelCache extends TornadoTestBase {
+
+    private static final String KEY = "0123456789abcdef";
+
+    public static void vectorAdd(int[] a, int[] b, int[] c) {
+        for (@Parallel int i = 0; i < c.length; i++) {
+            c[i] = a[i] + b[i];
+        }
+    }
+
+    public static void saxpy(float alpha, float[] x, float[] y) {
+        for (@Parallel int i = 0; i < y.length; i++) {
+            y[i] = alpha * x[i] + y[i];
+        }
+    }
+
+    private static byte[] source(String code) {
+        return code.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static Path singleEntry(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.findFirst().orElseThrow();
+        }
+    }
+
+    private static String kernelKey(Method method, Object... args) {
+        TornadoAcceleratorDevice device = TornadoCoreRuntime.getTornadoRuntime().getDefaultDevice();
+        CompilableTask task = new CompilableTask(new ScheduleMetaData("s0"), "t0", method, args);
+        ResolvedJavaMethod resolvedMethod = TornadoCoreRuntime.getTornadoRuntime().resolveMethod(method);
+        return PersistentKernelCache.getInstance().buildKernelKey(task, resolvedMethod, device);
+    }
+
+    private static void deleteDirectory(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    @Test
+    public void testStoreAndLookup() throws IOException {
+        Path directory = Files.createTempDirectory("tornado-kernel-cache");
+        try {
+            PersistentKernelCache cache = new PersistentKernelCache(directory, 1024 * 1024);
+            assertNull(cache.lookup(KEY));
+            cache.store(KEY, "vectorAdd", new Access[] { Access.READ_ONLY, Access.WRITE_ONLY }, source("__kernel void vectorAdd() {}"));
+
+            PersistentKernelCache.Entry entry = cache.lookup(KEY);
+            assertNotNull(entry);
+            assertEquals("vectorAdd", entry.getEntryPoint());
+            assertArrayEquals(new Access[] { Access.READ_ONLY, Access.WRITE_ONLY }, entry.getArgumentsAccess());
+            assertArrayEquals(source("__kernel void vectorAdd() {}"), entry.getCode());
+            assertEquals(1, cache.getHits());
+            assertEquals(1, cache.getMisses());
+            assertEquals(1, cache.getStores());
+        } finally {
+            deleteDirectory(directory);
+        }
+    }
+
+    @Test
+    public void testCorruptedEntryIsRemoved() throws IOException {
+        Path directory = Files.createTempDirectory("tornado-kernel-cache");
+        try {
+            PersistentKernelCache cache = new PersistentKernelCache(directory, 1024 * 1024);
+            cache.store(KEY, "vectorAdd", new Access[0], source("__kernel void vectorAdd() {}"));
+            Path file = singleEntry(directory);
+            // Flip the last byte of the checksum
+            try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+                raf.seek(raf.length() - 1);
+                int last = raf.read();
+                raf.seek(raf.length() - 1);
+                raf.write(last ^ 0xFF);
+            }
+
+            assertNull(cache.lookup(KEY));
+            assertEquals(1, cache.getInvalidations());
+            assertTrue(Files.notExists(file));
+        } finally {
+            deleteDirectory(directory);
+        }
+    }
+
+    @Test
+    public void testEvictionOfLeastRecentlyUsed() throws IOException {
+        Path directory = Files.createTempDirectory("tornado-kernel-cache");
+        try {
+            byte[] code = new byte[4096];
+            // Room for two entries
+            PersistentKernelCache cache = new PersistentKernelCache(directory, 2 * 4096 + 512);
+            cache.store("k0", "k0", new Access[0], code);
+            cache.store("k1", "k1", new Access[0], code);
+            Files.setLastModifiedTime(directory.resolve("k0.tkc"), FileTime.fromMillis(0));
+            cache.store("k2", "k2", new Access[0], code);
+
+            assertNull(cache.lookup("k0"));
+            assertNotNull(cache.lookup("k1"));
+            assertNotNull(cache.lookup("k2"));
+            assertEquals(1, cache.getInvalidations());
+        } finally {
+            deleteDirectory(directory);
+        }
+    }
+
+    @Test
+    public void testStaleInlinedMethodIsRemoved() throws IOException, NoSuchMethodException {
+        Path directory = Files.createTempDirectory("tornado-kernel-cache");
+        try {
+            PersistentKernelCache cache = new PersistentKernelCache(directory, 1024 * 1024);
+            Method method = TestPersistentKernelCache.class.getMethod("vectorAdd", int[].class, int[].class, int[].class);
+            ResolvedJavaMethod[] methods = { TornadoCoreRuntime.getTornadoRuntime().resolveMethod(method) };
+            cache.store(KEY, "vectorAdd", new Access[0], methods, source("__kernel void vectorAdd() {}"));
+            assertNotNull(cache.lookup(KEY));
+
+            // Replace the bytecode digest of the method, as if the method had been edited
+            // after the entry was stored
+            Path file = singleEntry(directory);
+            byte[] bytes = Files.readAllBytes(file);
+            String content = new String(bytes, StandardCharsets.ISO_8859_1);
+            Matcher digest = Pattern.compile("\\(\\[I\\[I\\[I\\)V..([0-9a-f]{64})", Pattern.DOTALL).matcher(content);
+            assertTrue(digest.find());
+            for (int i = digest.start(1); i < digest.end(1); i++) {
+                bytes[i] = '0';
+            }
+            Files.write(file, bytes);
+
+            assertNull(cache.lookup(KEY));
+            assertEquals(1, cache.getInvalidations());
+            assertTrue(Files.notExists(file));
+        } finally {
+            deleteDirectory(directory);
+        }
+    }
+
+    @Test
+    public void testKeyIncludesSpecialisedValues() throws NoSuchMethodException {
+        System.setProperty("tornado.kernel.cache.enable", "True");
+        try {
+            Method vectorAdd = TestPersistentKernelCache.class.getMethod("vectorAdd", int[].class, int[].class, int[].class);
+            Method saxpy = TestPersistentKernelCache.class.getMethod("saxpy", float.class, float[].class, float[].class);
+
+            String key = kernelKey(vectorAdd, new int[256], new int[256], new int[256]);
+            assertNotNull(key);
+            assertEquals(key, kernelKey(vectorAdd, new int[256], new int[256], new int[256]));
+            // Array lengths are folded into the kernel
+            assertNotEquals(key, kernelKey(vectorAdd, new int[512], new int[512], new int[512]));
+            // Scalar arguments are folded into the kernel
+            assertNotEquals(kernelKey(saxpy, 2.0f, new float[256], new float[256]), kernelKey(saxpy, 3.0f, new float[256], new float[256]));
+        } finally {
+            System.clearProperty("tornado.kernel.cache.enable");
+        }
+    }
+
+    @Test
+    public void testDifferentLengthMissesCache() {
+        System.setProperty("tornado.kernel.cache.enable", "True");
+        try {
+            PersistentKernelCache cache = PersistentKernelCache.getInstance();
+            // Start from an empty cache, so the entries of previous runs are not found
+            cache.clear();
+            final int[] sizes = { 256, 256, 1024 };
+            for (int run = 0; run < sizes.length; run++) {
+                final int numElements = sizes[run];
+                int[] a = IntStream.range(0, numElements).toArray();
+                int[] b = IntStream.range(0, numElements).map(i -> 2 * i).toArray();
+                int[] c = new int[numElements];
+                final long misses = cache.getMisses();
+                TaskGraph taskGraph = new TaskGraph("cacheSize" + run) //
+                        .transferToDevice(DataTransferMode.EVERY_EXECUTION, a, b) //
+                        .task("t0", TestPersistentKernelCache::vectorAdd, a, b, c) //
+                        .transferToHost(DataTransferMode.EVERY_EXECUTION, c);
+                new TornadoExecutionPlan(taskGraph.snapshot()).execute();
+
+                if (run == 1) {
+                    // Same length: the kernel of the first run is reused
+                    assertEquals(misses, cache.getMisses());
+                } else {
+                    // New length: the kernel specialised for the first length is not reused
+                    assertTrue(cache.getMisses() > misses);
+                }
+                for (int i = 0; i < numElements; i++) {
+                    assertEquals(a[i] + b[i], c[i]);
+                }
+            }
+        } finally {
+            System.clearProperty("tornado.kernel.cache.enable");
+        }
+    }
+
+    @Test
+    public void testKernelFromCache() {
+        final int numElements = 256;
+        int[] a = new int[numElements];
+        int[] b = new int[numElements];
+        int[] c = new int[numElements];
+        IntStream.range(0, numElements).forEach(i -> {
+            a[i] = i;
+            b[i] = 2 * i;
+        });
+
+        System.setProperty("tornado.kernel.cache.enable", "True");
+        try {
+            PersistentKernelCache cache = PersistentKernelCache.getInstance();
+
+            // The first task-graph stores the kernel (if it was not already in the cache)
+            TaskGraph taskGraph = new TaskGraph("cache0") //
+                    .transferToDevice(DataTransferMode.EVERY_EXECUTION, a, b) //
+                    .task("t0", TestPersistentKernelCache::vectorAdd, a, b, c) //
+                    .transferToHost(DataTransferMode.EVERY_EXECUTION, c);
+            ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
+            new TornadoExecutionPlan(immutableTaskGraph).execute();
+
+            // A second task-graph finds the kernel in the persistent cache
+            final long hits = cache.getHits();
+            int[] d = new int[numElements];
+            TaskGraph taskGraph2 = new TaskGraph("cache1") //
+                    .transferToDevice(DataTransferMode.EVERY_EXECUTION, a, b) //
+                    .task("t0", TestPersistentKernelCache::vectorAdd, a, b, d) //
+                    .transferToHost(DataTransferMode.EVERY_EXECUTION, d);
+            ImmutableTaskGraph immutableTaskGraph2 = taskGraph2.snapshot();
+            new TornadoExecutionPlan(immutableTaskGraph2).execute();
+
+            assertTrue(cache.getHits() > hits);
+            for (int i = 0; i < numElements; i++) {
+                assertEquals(a[i] + b[i], c[i]);
+                assertEquals(a[i] + b[i], d[i]);
+            }
+        } finally {
+            System.clearProperty("tornado.kernel.cache.enable");
+        }
+    }
+}
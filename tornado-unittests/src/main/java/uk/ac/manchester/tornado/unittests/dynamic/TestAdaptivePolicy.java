@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2023, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.unittests.dynamic;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.DRMode;
+import uk.ac.manchester.tornado.api.ImmutableTaskGraph;
+import uk.ac.manchester.tornado.api.Policy;
+import uk.ac.manchester.tornado.api.TaskGraph;
+import uk.ac.manchester.tornado.api.TornadoExecutionPlan;
+import uk.ac.manchester.tornado.api.enums.DataTransferMode;
+import uk.ac.manchester.tornado.runtime.tasks.AdaptiveDeviceSelector;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+/**
+ * Tests for the adaptive policy of the dynamic reconfiguration. The selector
+ * tests feed synthetic execution times, so they do not depend on the devices
+ * available.
+ *
+ * <p>
+ * How to run?
+ * </p>
+ * <code>
+ *     tornado-test -V uk.ac.manchester.tornado.unittests.dynamic.TestAdaptivePolicy
+ * </code>
+ */
+public class TestAdaptivePolicy extends TornadoTestBase {
+
+    private static final long SIZE = 1024;
+
+    /**
+     * Runs one execution with the selector, using the given execution time for
+     * each candidate.
+     */
+    private static int step(AdaptiveDeviceSelector selector, long[] times) {
+        int device = selector.selectDevice(SIZE);
+        selector.recordExecution(SIZE, device, times[device]);
+        return device;
+    }
+
+    @Test
+    public void testInitialWinner() {
+        AdaptiveDeviceSelector selector = new AdaptiveDeviceSelector(3, 0.5, 8, 0.5, 2);
+        long[] times = new long[] { 300, 100, 200 };
+        // Two executions per candidate: warm-up and measurement
+        for (int i = 0; i < 6; i++) {
+            step(selector, times);
+        }
+        assertEquals(1, selector.getWinner(SIZE));
+        assertEquals(100.0, selector.getEstimate(SIZE, 1), 0.0);
+    }
+
+    @Test
+    public void testMigration() {
+        AdaptiveDeviceSelector selector = new AdaptiveDeviceSelector(2, 0.5, 4, 1.0, 2);
+        long[] times = new long[] { 100, 200 };
+        for (int i = 0; i < 20; i++) {
+            step(selector, times);
+        }
+        assertEquals(0, selector.getWinner(SIZE));
+
+        // Device 0 becomes slower: device 1 must take over after it wins two probes
+        times[0] = 1000;
+        for (int i = 0; i < 40; i++) {
+            step(selector, times);
+        }
+        assertEquals(1, selector.getWinner(SIZE));
+    }
+
+    @Test
+    public void testNoMigrationOnSingleOutlier() {
+        AdaptiveDeviceSelector selector = new AdaptiveDeviceSelector(2, 0.5, 4, 1.0, 3);
+        long[] times = new long[] { 100, 150 };
+        for (int i = 0; i < 20; i++) {
+            step(selector, times);
+        }
+        assertEquals(0, selector.getWinner(SIZE));
+
+        // One slow execution of the winner
+        times[0] = 400;
+        int device = step(selector, times);
+        assertEquals(0, device);
+        times[0] = 100;
+        for (int i = 0; i < 20; i++) {
+            step(selector, times);
+        }
+        assertEquals(0, selector.getWinner(SIZE));
+    }
+
+    @Test
+    public void testExplorationBudget() {
+        AdaptiveDeviceSelector selector = new AdaptiveDeviceSelector(2, 0.5, 2, 0.05, 3);
+        long[] times = new long[] { 100, 10000 };
+        int probes = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (step(selector, times) == 1) {
+                probes++;
+            }
+        }
+        // Each probe costs 99x the time of the winner: a 5% budget allows a few
+        // probes only, instead of one every two executions
+        assertTrue(probes > 1);
+        assertTrue(probes < 10);
+    }
+
+    @Test
+    public void testSizeBuckets() {
+        AdaptiveDeviceSelector selector = new AdaptiveDeviceSelector(2, 0.5, 8, 0.5, 2);
+        for (int i = 0; i < 4; i++) {
+            int device = selector.selectDevice(16);
+            selector.recordExecution(16, device, device == 0 ? 10 : 20);
+            device = selector.selectDevice(1 << 20);
+            selector.recordExecution(1 << 20, device, device == 0 ? 2000 : 1000);
+        }
+        assertEquals(0, selector.getWinner(16));
+        assertEquals(1, selector.getWinner(1 << 20));
+        assertNotEquals(AdaptiveDeviceSelector.getSizeBucket(16), AdaptiveDeviceSelector.getSizeBucket(1 << 20));
+        assertEquals(AdaptiveDeviceSelector.getSizeBucket(1024), AdaptiveDeviceSelector.getSizeBucket(2047));
+    }
+
+    @Test
+    public void testDynamicAdaptive() {
+        int numElements = 4096;
+        int[] a = new int[numElements];
+        int[] b = new int[numElements];
+
+        Arrays.fill(a, 10);
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.FIRST_EXECUTION, a) //
+                .task("t0", TestDynamic::compute, a, b) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, b); //
+
+        ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
+        TornadoExecutionPlan executionPlan = new TornadoExecutionPlan(immutableTaskGraph);
+        executionPlan.withDynamicReconfiguration(Policy.ADAPTIVE, DRMode.SERIAL);
+
+        // Each execution may run on a different device
+        for (int i = 0; i < 20; i++) {
+            Arrays.fill(b, 0);
+            executionPlan.execute();
+            for (int j = 0; j < b.length; j++) {
+                assertEquals(a[j] * 2, b[j]);
+            }
+        }
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright (c) 2023, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.unittests.dynamic;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.DRMode;
+import uk.ac.manchester.tornado.api.ImmutableTaskGraph;
+import uk.ac.manchester.tornado.api.Policy;
+import uk.ac.manchester.tornado.api.TaskGraph;
+import uk.ac.manchester.tornado.api.TornadoExecutionPlan;
+import uk.ac.manchester.tornado.api.enums.DataTransferMode;
+import uk.ac.manchester.tornado.runtime.tasks.ExecutionHistory;
+import uk.ac.manchester.tornado.runtime.tasks.ReconfigurationTargets;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+/**
+ * Tests for the execution history of the dynamic reconfiguration.
+ *
+ * <p>
+ * How to run?
+ * </p>
+ * <code>
+ *     tornado-test -V uk.ac.manchester.tornado.unittests.dynamic.TestExecutionHistory
+ * </code>
+ */
+public class TestExecutionHistory extends TornadoTestBase {
+
+    private static final String SIGNATURE = "PERFORMANCE|compute";
+    private static final String GPU = "OpenCL:GPU";
+    private static final String CPU = "OpenCL:CPU";
+    private static final double SEEDED_JVM_TIME = 1;
+    private static final double SEEDED_DEVICE_TIME = 1e12;
+
+    @Test
+    public void testInterpolation() {
+        ExecutionHistory history = new ExecutionHistory();
+        history.record(SIGNATURE, GPU, 1000, 100);
+        history.record(SIGNATURE, GPU, 3000, 300);
+
+        assertEquals(100, history.estimate(SIGNATURE, GPU, 1000), 0.0);
+        assertEquals(200, history.estimate(SIGNATURE, GPU, 2000), 0.0);
+        // Outside the measured range, the closest size is used
+        assertEquals(100, history.estimate(SIGNATURE, GPU, 10), 0.0);
+        assertEquals(300, history.estimate(SIGNATURE, GPU, 1_000_000), 0.0);
+        assertTrue(Double.isNaN(history.estimate(SIGNATURE, CPU, 1000)));
+    }
+
+    @Test
+    public void testMeanOfMeasurements() {
+        ExecutionHistory history = new ExecutionHistory();
+        history.record(SIGNATURE, GPU, 1000, 100);
+        history.record(SIGNATURE, GPU, 1000, 300);
+        assertEquals(200, history.estimate(SIGNATURE, GPU, 1000), 0.0);
+
+        history.seed(SIGNATURE, GPU, 1000, 50);
+        assertEquals(50, history.estimate(SIGNATURE, GPU, 1000), 0.0);
+    }
+
+    @Test
+    public void testBestDevice() {
+        ExecutionHistory history = new ExecutionHistory();
+        // The CPU wins for small sizes and the GPU for large sizes
+        history.seed(SIGNATURE, CPU, 1024, 10);
+        history.seed(SIGNATURE, GPU, 1024, 50);
+        history.seed(SIGNATURE, CPU, 1 << 20, 10000);
+        history.seed(SIGNATURE, GPU, 1 << 20, 500);
+        history.seed(SIGNATURE, ExecutionHistory.JVM_DEVICE, 1024, 1000);
+        history.seed(SIGNATURE, ExecutionHistory.JVM_DEVICE, 1 << 20, 1_000_000);
+
+        List<String> devices = List.of(GPU, CPU, ExecutionHistory.JVM_DEVICE);
+        assertEquals(CPU, history.getBestDevice(SIGNATURE, devices, 2048));
+        assertEquals(GPU, history.getBestDevice(SIGNATURE, devices, 1 << 19));
+        assertEquals(CPU, history.getBestDevice(SIGNATURE, List.of(GPU, CPU), 2048));
+        assertEquals(GPU, history.getBestDevice(SIGNATURE, List.of(GPU, CPU), 1 << 19));
+        assertNull(history.getBestDevice("PERFORMANCE|other", List.of(GPU, CPU), 2048));
+    }
+
+    @Test
+    public void testBestDeviceRequiresAllDevices() {
+        ExecutionHistory history = new ExecutionHistory();
+        history.seed(SIGNATURE, CPU, 1024, 10);
+        history.seed(SIGNATURE, GPU, 1024, 50);
+
+        // The JVM has not been measured, and it could be the fastest device
+        assertNull(history.getBestDevice(SIGNATURE, List.of(GPU, CPU, ExecutionHistory.JVM_DEVICE), 1024));
+        assertNull(history.getBestDevice(SIGNATURE, List.of(ExecutionHistory.JVM_DEVICE), 1024));
+
+        history.seed(SIGNATURE, ExecutionHistory.JVM_DEVICE, 1024, 20);
+        assertEquals(CPU, history.getBestDevice(SIGNATURE, List.of(GPU, CPU, ExecutionHistory.JVM_DEVICE), 1024));
+    }
+
+    @Test
+    public void testSaveAndLoad() throws IOException {
+        Path file = Files.createTempDirectory("tornado-history").resolve("history.tsv");
+        ExecutionHistory history = new ExecutionHistory(file);
+        history.record(SIGNATURE, GPU, 1000, 100);
+        history.record(SIGNATURE, ExecutionHistory.JVM_DEVICE, 1000, 900);
+        history.save();
+
+        // Malformed entries are ignored
+        Files.write(file, List.of("not\tan\tentry"), StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        ExecutionHistory loaded = new ExecutionHistory(file);
+        assertEquals(100, loaded.estimate(SIGNATURE, GPU, 1000), 0.0);
+        assertEquals(900, loaded.estimate(SIGNATURE, ExecutionHistory.JVM_DEVICE, 1000), 0.0);
+        Files.delete(file);
+        Files.delete(file.getParent());
+    }
+
+    @Test
+    public void testSaveFailureIsNotFatal() throws IOException {
+        // The parent of the history file is a regular file, so it cannot be saved
+        Path parent = Files.createTempFile("tornado-history", ".tsv");
+        ExecutionHistory history = new ExecutionHistory(parent.resolve("history.tsv"));
+        history.record(SIGNATURE, GPU, 1000, 100);
+        history.save();
+
+        assertEquals(100, history.estimate(SIGNATURE, GPU, 1000), 0.0);
+        Files.delete(parent);
+    }
+
+    @Test
+    public void testSeededHistorySkipsProfiling() throws NoSuchMethodException {
+        int numElements = 256;
+        int[] a = new int[numElements];
+        int[] b = new int[numElements];
+        Arrays.fill(a, 10);
+
+        // Every device is measured, and the JVM is the fastest one for this task-graph
+        Method method = TestDynamic.class.getMethod("compute", int[].class, int[].class);
+        String signature = ExecutionHistory.getSignature(Policy.PERFORMANCE, List.of(method));
+        List<String> devices = ReconfigurationTargets.fromRuntime().getIdentities();
+        ExecutionHistory history = ExecutionHistory.getInstance();
+        try {
+            for (String device : devices) {
+                history.seed(signature, device, numElements, device.equals(ExecutionHistory.JVM_DEVICE) ? SEEDED_JVM_TIME : SEEDED_DEVICE_TIME);
+            }
+
+            TaskGraph taskGraph = new TaskGraph("s0") //
+                    .transferToDevice(DataTransferMode.FIRST_EXECUTION, a) //
+                    .task("t0", TestDynamic::compute, a, b) //
+                    .transferToHost(DataTransferMode.EVERY_EXECUTION, b); //
+
+            ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
+            TornadoExecutionPlan executionPlan = new TornadoExecutionPlan(immutableTaskGraph);
+            executionPlan.withDynamicReconfiguration(Policy.PERFORMANCE, DRMode.SERIAL).execute();
+
+            for (int i = 0; i < b.length; i++) {
+                assertEquals(a[i] * 2, b[i]);
+            }
+
+            // A profiling pass would have recorded a new measurement for every device
+            for (String device : devices) {
+                assertEquals(device.equals(ExecutionHistory.JVM_DEVICE) ? SEEDED_JVM_TIME : SEEDED_DEVICE_TIME, history.estimate(signature, device, numElements), 0.0);
+            }
+        } finally {
+            history.clear();
+        }
+    }
+
+    @Test
+    public void testPartialHistoryProfilesAllDevices() throws NoSuchMethodException {
+        int numElements = 256;
+        int[] a = new int[numElements];
+        int[] b = new int[numElements];
+        Arrays.fill(a, 10);
+
+        // Only the JVM has been measured
+        Method method = TestDynamic.class.getMethod("compute", int[].class, int[].class);
+        String signature = ExecutionHistory.getSignature(Policy.PERFORMANCE, List.of(method));
+        List<String> devices = ReconfigurationTargets.fromRuntime().getIdentities();
+        ExecutionHistory history = ExecutionHistory.getInstance();
+        try {
+            history.seed(signature, ExecutionHistory.JVM_DEVICE, numElements, SEEDED_JVM_TIME);
+
+            TaskGraph taskGraph = new TaskGraph("s0") //
+                    .transferToDevice(DataTransferMode.FIRST_EXECUTION, a) //
+                    .task("t0", TestDynamic::compute, a, b) //
+                    .transferToHost(DataTransferMode.EVERY_EXECUTION, b); //
+
+            ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
+            TornadoExecutionPlan executionPlan = new TornadoExecutionPlan(immutableTaskGraph);
+            executionPlan.withDynamicReconfiguration(Policy.PERFORMANCE, DRMode.SERIAL).execute();
+
+            for (int i = 0; i < b.length; i++) {
+                assertEquals(a[i] * 2, b[i]);
+            }
+
+            // The devices without measurements have been profiled
+            for (String device : devices) {
+                assertFalse(device, Double.isNaN(history.estimate(signature, device, numElements)));
+            }
+        } finally {
+            history.clear();
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2023, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.unittests.dynamic;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.TornadoDriver;
+import uk.ac.manchester.tornado.api.TornadoRuntimeInterface;
+import uk.ac.manchester.tornado.api.TornadoTargetDevice;
+import uk.ac.manchester.tornado.api.common.TornadoDevice;
+import uk.ac.manchester.tornado.api.enums.TornadoDeviceType;
+import uk.ac.manchester.tornado.api.enums.TornadoVMBackendType;
+import uk.ac.manchester.tornado.api.runtime.TornadoRuntime;
+import uk.ac.manchester.tornado.runtime.tasks.ExecutionHistory;
+import uk.ac.manchester.tornado.runtime.tasks.ReconfigurationTargets;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+/**
+ * Tests for the enumeration of the devices of all drivers for the dynamic
+ * reconfiguration. It uses mock drivers, and the drivers of the runtime (for
+ * instance, the virtual OpenCL device).
+ *
+ * <p>
+ * How to run?
+ * </p>
+ * <code>
+ *     tornado-test -V uk.ac.manchester.tornado.unittests.dynamic.TestReconfigurationTargets
+ * </code>
+ */
+public class TestReconfigurationTargets extends TornadoTestBase {
+
+    private static TornadoDevice mockDevice(String name) {
+        TornadoTargetDevice physicalDevice = (TornadoTargetDevice) Proxy.newProxyInstance(TornadoTargetDevice.class.getClassLoader(), new Class<?>[] { TornadoTargetDevice.class },
+                (proxy, method, args) -> method.getName().equals("getDeviceName") ? name : null);
+        return (TornadoDevice) Proxy.newProxyInstance(TornadoDevice.class.getClassLoader(), new Class<?>[] { TornadoDevice.class }, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getPhysicalDevice":
+                    return physicalDevice;
+                case "getDeviceName":
+                    return name;
+                case "getDeviceType":
+                    return TornadoDeviceType.GPU;
+                default:
+                    return null;
+            }
+        });
+    }
+
+    private static class MockDriver implements TornadoDriver {
+        private final String name;
+        private final TornadoDevice[] devices;
+
+        MockDriver(String name, String... deviceNames) {
+            this.name = name;
+            this.devices = new TornadoDevice[deviceNames.length];
+            for (int i = 0; i < deviceNames.length; i++) {
+                devices[i] = mockDevice(deviceNames[i]);
+            }
+        }
+
+        @Override
+        public TornadoDevice getDefaultDevice() {
+            return devices[0];
+        }
+
+        @Override
+        public void setDefaultDevice(int index) {
+        }
+
+        @Override
+        public int getDeviceCount() {
+            return devices.length;
+        }
+
+        @Override
+        public TornadoDevice getDevice(int index) {
+            return devices[index];
+        }
+
+        @Override
+        public TornadoDeviceType getTypeDefaultDevice() {
+            return TornadoDeviceType.GPU;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public int getNumPlatforms() {
+            return 1;
+        }
+
+        @Override
+        public TornadoVMBackendType getBackendType() {
+            return TornadoVMBackendType.VIRTUAL;
+        }
+    }
+
+    @Test
+    public void testAllDriversAndDevices() {
+        ReconfigurationTargets targets = new ReconfigurationTargets(List.of( //
+                new MockDriver("OpenCL", "gpu0", "cpu0"), //
+                new MockDriver("PTX"), //
+                new MockDriver("SPIRV", "gpu1")));
+
+        assertEquals(4, targets.size());
+        assertEquals(3, targets.getNumDevices());
+        assertEquals("0:0", targets.get(0).getDeviceProperty());
+        assertEquals("0:1", targets.get(1).getDeviceProperty());
+        // The PTX driver has no devices
+        assertEquals("2:0", targets.get(2).getDeviceProperty());
+        assertEquals(2, targets.indexOf(2, 0));
+        assertEquals(-1, targets.indexOf(1, 0));
+
+        assertTrue(targets.get(3).isJVM());
+        assertFalse(targets.get(2).isJVM());
+        assertEquals(List.of("OpenCL:gpu0", "OpenCL:cpu0", "SPIRV:gpu1", ExecutionHistory.JVM_DEVICE), targets.getIdentities());
+    }
+
+    @Test
+    public void testRuntimeDrivers() {
+        TornadoRuntimeInterface runtime = TornadoRuntime.getTornadoRuntime();
+        int numDevices = 0;
+        for (int i = 0; i < runtime.getNumDrivers(); i++) {
+            numDevices += runtime.getDriver(i).getDeviceCount();
+        }
+
+        ReconfigurationTargets targets = ReconfigurationTargets.fromRuntime();
+        assertEquals(numDevices, targets.getNumDevices());
+        for (int i = 0; i < targets.getNumDevices(); i++) {
+            ReconfigurationTargets.Target target = targets.get(i);
+            assertEquals(runtime.getDriver(target.getDriverIndex()).getDevice(target.getDeviceIndex()), target.getDevice());
+        }
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2023, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.unittests.executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.ImmutableTaskGraph;
+import uk.ac.manchester.tornado.api.TaskGraph;
+import uk.ac.manchester.tornado.api.TornadoExecutionPlan;
+import uk.ac.manchester.tornado.api.TornadoExecutionResult;
+import uk.ac.manchester.tornado.api.annotations.Parallel;
+import uk.ac.manchester.tornado.api.enums.DataTransferMode;
+import uk.ac.manchester.tornado.api.enums.ProfilerMode;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+import uk.ac.manchester.tornado.unittests.tools.Exceptions.UnsupportedConfigurationException;
+
+/**
+ * Tests for the ahead-of-time compilation of all tasks of an execution plan.
+ *
+ * <p>
+ * How to run?
+ * </p>
+ * <code>
+ *     tornado-test -V uk.ac.manchester.tornado.unittests.executor.TestCompileAll
+ * </code>
+ */
+public class TestCompileAll extends TornadoTestBase {
+
+    private static final int NUM_ELEMENTS = 256;
+
+    /**
+     * Timer of a task in the JSON log of the profiler, e.g.
+     * {@code "s0.t0": { ..., "TASK_COMPILE_TIME": "123456" }}.
+     */
+    private static final Pattern TASK_COMPILE_TIME = Pattern.compile("\"([^\"]+)\": \\{[^{}]*\"TASK_COMPILE_TIME\": \"(\\d+)\"");
+
+    public static void add(int[] a, int[] b) {
+        for (@Parallel int i = 0; i < a.length; i++) {
+            b[i] = a[i] + 1;
+        }
+    }
+
+    public static void multiply(int[] a, int[] b) {
+        for (@Parallel int i = 0; i < a.length; i++) {
+            b[i] = a[i] * 2;
+        }
+    }
+
+    public static void subtract(int[] a, int[] b) {
+        for (@Parallel int i = 0; i < a.length; i++) {
+            b[i] = a[i] - 3;
+        }
+    }
+
+    /**
+     * Pipeline of tasks: each task reads the output of the previous one.
+     */
+    private static TaskGraph createPipeline(String name, int[] input, int[][] buffers) {
+        TaskGraph taskGraph = new TaskGraph(name).transferToDevice(DataTransferMode.FIRST_EXECUTION, input);
+        int[] previous = input;
+        for (int i = 0; i < buffers.length; i++) {
+            switch (i % 3) {
+                case 0:
+                    taskGraph.task("t" + i, TestCompileAll::add, previous, buffers[i]);
+                    break;
+                case 1:
+                    taskGraph.task("t" + i, TestCompileAll::multiply, previous, buffers[i]);
+                    break;
+                default:
+                    taskGraph.task("t" + i, TestCompileAll::subtract, previous, buffers[i]);
+                    break;
+            }
+            previous = buffers[i];
+        }
+        return taskGraph.transferToHost(DataTransferMode.EVERY_EXECUTION, previous);
+    }
+
+    private static int expectedValue(int value, int numTasks) {
+        for (int i = 0; i < numTasks; i++) {
+            switch (i % 3) {
+                case 0:
+                    value = value + 1;
+                    break;
+                case 1:
+                    value = value * 2;
+                    break;
+                default:
+                    value = value - 3;
+                    break;
+            }
+        }
+        return value;
+    }
+
+    private static int[][] newBuffers(int numTasks) {
+        int[][] buffers = new int[numTasks][];
+        for (int i = 0; i < numTasks; i++) {
+            buffers[i] = new int[NUM_ELEMENTS];
+        }
+        return buffers;
+    }
+
+    private static Map<String, Long> getTaskCompileTimes(String profileLog) {
+        Map<String, Long> compileTimes = new HashMap<>();
+        Matcher matcher = TASK_COMPILE_TIME.matcher(profileLog);
+        while (matcher.find()) {
+            compileTimes.put(matcher.group(1), Long.parseLong(matcher.group(2)));
+        }
+        return compileTimes;
+    }
+
+    @Test
+    public void testCompileAllPipeline() {
+        final int numTasks = 12;
+        int[] input = new int[NUM_ELEMENTS];
+        Arrays.setAll(input, i -> i);
+        int[][] buffers = newBuffers(numTasks);
+
+        ImmutableTaskGraph immutableTaskGraph = createPipeline("s0", input, buffers).snapshot();
+        TornadoExecutionPlan executionPlan = new TornadoExecutionPlan(immutableTaskGraph);
+        executionPlan.compileAll().execute();
+
+        for (int i = 0; i < NUM_ELEMENTS; i++) {
+            assertEquals(expectedValue(i, numTasks), buffers[numTasks - 1][i]);
+        }
+    }
+
+    @Test
+    public void testCompileAllTaskGraphs() {
+        final int numTasks = 4;
+        int[] inputA = new int[NUM_ELEMENTS];
+        int[] inputB = new int[NUM_ELEMENTS];
+        Arrays.fill(inputA, 10);
+        Arrays.fill(inputB, 20);
+        int[][] buffersA = newBuffers(numTasks);
+        int[][] buffersB = newBuffers(numTasks);
+
+        ImmutableTaskGraph graphA = createPipeline("s0", inputA, buffersA).snapshot();
+        ImmutableTaskGraph graphB = createPipeline("s1", inputB, buffersB).snapshot();
+        TornadoExecutionPlan executionPlan = new TornadoExecutionPlan(graphA, graphB);
+        executionPlan.withProfiler(ProfilerMode.SILENT).withWarmUp();
+
+        TornadoExecutionResult executionResult = executionPlan.execute();
+        for (int i = 0; i < NUM_ELEMENTS; i++) {
+            assertEquals(expectedValue(10, numTasks), buffersA[numTasks - 1][i]);
+            assertEquals(expectedValue(20, numTasks), buffersB[numTasks - 1][i]);
+        }
+        assertTrue(executionResult.getProfilerResult().getTotalTime() > 0);
+    }
+
+    /**
+     * The compile time of each task is reported by the profiler. The compile
+     * times are measured within the call to {@code compileAll()}, so their sum
+     * can only exceed the wall-clock time of the call if at least two tasks were
+     * compiled at the same time.
+     */
+    @Test
+    public void testCompileAllReportsConcurrentCompileTimes() {
+        if (Integer.parseInt(System.getProperty("tornado.compiler.threads", "4")) < 2) {
+            throw new UnsupportedConfigurationException("Concurrent compilation needs -Dtornado.compiler.threads=2 or more");
+        }
+        final int numTasks = 12;
+        int[] input = new int[NUM_ELEMENTS];
+        Arrays.setAll(input, i -> i);
+        int[][] buffers = newBuffers(numTasks);
+
+        ImmutableTaskGraph immutableTaskGraph = createPipeline("s0", input, buffers).snapshot();
+        TornadoExecutionPlan executionPlan = new TornadoExecutionPlan(immutableTaskGraph).withProfiler(ProfilerMode.SILENT);
+
+        final long start = System.nanoTime();
+        executionPlan.compileAll();
+        final long wallTime = System.nanoTime() - start;
+
+        TornadoExecutionResult executionResult = executionPlan.execute();
+        for (int i = 0; i < NUM_ELEMENTS; i++) {
+            assertEquals(expectedValue(i, numTasks), buffers[numTasks - 1][i]);
+        }
+
+        Map<String, Long> compileTimes = getTaskCompileTimes(executionResult.getProfilerResult().getProfileLog());
+        long totalCompileTime = 0;
+        for (int i = 0; i < numTasks; i++) {
+            Long compileTime = compileTimes.get("s0.t" + i);
+            assertTrue("Missing TASK_COMPILE_TIME for task s0.t" + i, compileTime != null && compileTime > 0);
+            totalCompileTime += compileTime;
+        }
+        assertTrue(String.format("The tasks were compiled one after the other: %d ns of compilation in %d ns", totalCompileTime, wallTime), totalCompileTime > wallTime);
+    }
+}
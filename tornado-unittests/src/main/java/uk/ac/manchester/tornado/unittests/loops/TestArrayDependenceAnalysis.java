@@ -0,0 +1,577 @@
+/*
+ * Copyright (c) 2023, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.unittests.loops;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.TaskGraph;
+import uk.ac.manchester.tornado.api.TornadoExecutionPlan;
+import uk.ac.manchester.tornado.api.enums.DataTransferMode;
+import uk.ac.manchester.tornado.api.exceptions.TornadoBailoutRuntimeException;
+import uk.ac.manchester.tornado.runtime.analyzer.AffineExpression;
+import uk.ac.manchester.tornado.runtime.analyzer.ArrayDependenceAnalysis;
+import uk.ac.manchester.tornado.runtime.analyzer.ArrayDependenceAnalysis.ArrayAccess;
+import uk.ac.manchester.tornado.runtime.analyzer.ArrayDependenceAnalysis.LoopLevel;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+import uk.ac.manchester.tornado.unittests.tools.Exceptions.UnsupportedConfigurationException;
+
+/**
+ * Tests for the array dependence analysis used by the auto-paralleliser
+ * ({@code -Dtornado.parallelise.auto=True}). Each test describes the loops and
+ * array accesses of a sample kernel, as the auto-paralleliser extracts them
+ * from the Graal IR, and checks how many of its outer loops are parallel.
+ *
+ * <p>
+ * The {@code testAutoParallelise*} tests compile sequential kernels with the
+ * auto-paralleliser. They run with bailouts disabled, so a kernel that is not
+ * parallelised fails with the reason reported by the analysis.
+ * </p>
+ *
+ * <p>
+ * How to run?
+ * </p>
+ * <code>
+ *     tornado-test -V uk.ac.manchester.tornado.unittests.loops.TestArrayDependenceAnalysis
+ *     tornado-test -V --jvm="-Dtornado.parallelise.auto=True -Dtornado.recover.bailout=False" uk.ac.manchester.tornado.unittests.loops.TestArrayDependenceAnalysis
+ * </code>
+ */
+public class TestArrayDependenceAnalysis extends TornadoTestBase {
+
+    private static final Object N = "n";
+    private static final Object M = "m";
+    private static final Object A = "a";
+    private static final Object B = "b";
+    private static final Object C = "c";
+
+    private static final int SIZE = 1024;
+    private static final int MATRIX_SIZE = 64;
+
+    private static AffineExpression i(int level) {
+        return AffineExpression.variable(level);
+    }
+
+    private static AffineExpression k(long value) {
+        return AffineExpression.constant(value);
+    }
+
+    private static AffineExpression n(Object symbol) {
+        return AffineExpression.symbol(symbol);
+    }
+
+    private static LoopLevel loop(long lower, Object limit) {
+        return new LoopLevel(lower, null, limit, null);
+    }
+
+    private static ArrayAccess read(Object array, int depth, AffineExpression... subscripts) {
+        return new ArrayAccess(array, true, Arrays.asList(subscripts), false, depth, 0, array + Arrays.toString(subscripts));
+    }
+
+    private static ArrayAccess write(Object array, int depth, AffineExpression... subscripts) {
+        return new ArrayAccess(array, true, Arrays.asList(subscripts), true, depth, 0, array + Arrays.toString(subscripts));
+    }
+
+    private static ArrayDependenceAnalysis analyse(List<LoopLevel> levels, ArrayAccess... accesses) {
+        ArrayDependenceAnalysis analysis = new ArrayDependenceAnalysis(levels);
+        for (ArrayAccess access : accesses) {
+            analysis.addAccess(access);
+        }
+        return analysis;
+    }
+
+    /**
+     * <code>
+     *     for (int i = 0; i < n; i++) c[i] = a[i] + b[i];
+     * </code>
+     */
+    @Test
+    public void testVectorAdd() {
+        ArrayDependenceAnalysis analysis = analyse(List.of(loop(0, N)), read(A, 1, i(0)), read(B, 1, i(0)), write(C, 1, i(0)));
+        assertEquals(1, analysis.getParallelDepth(3));
+        assertNull(analysis.getRejectionReason());
+    }
+
+    /**
+     * <code>
+     *     for (int i = 1; i < n; i++) a[i] = a[i - 1] + b[i];
+     * </code>
+     */
+    @Test
+    public void testPrefixSum() {
+        ArrayDependenceAnalysis analysis = analyse(List.of(loop(1, N)), read(A, 1, i(0).subtract(k(1))), read(B, 1, i(0)), write(A, 1, i(0)));
+        assertEquals(0, analysis.getParallelDepth(3));
+        assertTrue(analysis.getRejectionReason().contains("loop-carried dependence"));
+    }
+
+    /**
+     * <code>
+     *     for (int i = 0; i < n; i++) a[i] = a[i] * 2;
+     * </code>
+     */
+    @Test
+    public void testInPlaceUpdate() {
+        ArrayDependenceAnalysis analysis = analyse(List.of(loop(0, N)), read(A, 1, i(0)), write(A, 1, i(0)));
+        assertEquals(1, analysis.getParallelDepth(3));
+    }
+
+    /**
+     * GCD test: even elements are written and odd elements are read.
+     *
+     * <code>
+     *     for (int i = 0; i < n; i++) a[2 * i] = a[2 * i + 1];
+     * </code>
+     */
+    @Test
+    public void testGCD() {
+        ArrayDependenceAnalysis analysis = analyse(List.of(loop(0, N)), read(A, 1, i(0).scale(2).add(k(1))), write(A, 1, i(0).scale(2)));
+        assertEquals(1, analysis.getParallelDepth(3));
+    }
+
+    /**
+     * Banerjee test with a {@code <=} bound: the written and the read ranges do
+     * not overlap.
+     *
+     * <code>
+     *     for (int i = 0; i <= 99; i++) a[i] = a[i + 100];
+     * </code>
+     */
+    @Test
+    public void testBanerjee() {
+        ArrayDependenceAnalysis analysis = analyse(List.of(new LoopLevel(0L, 99L, null, null)), read(A, 1, i(0).add(k(100))), write(A, 1, i(0)));
+        assertEquals(1, analysis.getParallelDepth(3));
+    }
+
+    /**
+     * <code>
+     *     for (int i = 0; i <= 100; i++) a[i] = a[i + 100];
+     * </code>
+     */
+    @Test
+    public void testBanerjeeOverlap() {
+        ArrayDependenceAnalysis analysis = analyse(List.of(new LoopLevel(0L, 100L, null, null)), read(A, 1, i(0).add(k(100))), write(A, 1, i(0)));
+        assertEquals(0, analysis.getParallelDepth(3));
+    }
+
+    /**
+     * <code>
+     *     for (int i = 0; i < n; i++) a[i] = a[i + 1];
+     * </code>
+     */
+    @Test
+    public void testAntiDependence() {
+        ArrayDependenceAnalysis analysis = analyse(List.of(loop(0, N)), read(A, 1, i(0).add(k(1))), write(A, 1, i(0)));
+        assertEquals(0, analysis.getParallelDepth(3));
+    }
+
+    /**
+     * All iterations write the same element.
+     *
+     * <code>
+     *     for (int i = 0; i < n; i++) a[0] = b[i];
+     * </code>
+     */
+    @Test
+    public void testOutputDependence() {
+        ArrayDependenceAnalysis analysis = analyse(List.of(loop(0, N)), read(B, 1, i(0)), write(A, 1, k(0)));
+        assertEquals(0, analysis.getParallelDepth(3));
+    }
+
+    /**
+     * Flattened matrix multiplication. The {@code k} loop carries the
+     * accumulator.
+     *
+     * <code>
+     *     for (int i = 0; i < n; i++)
+     *         for (int j = 0; j < n; j++) {
+     *             float sum = 0;
+     *             for (int k = 0; k < n; k++) sum += a[i * n + k] * b[k * n + j];
+     *             c[i * n + j] = sum;
+     *         }
+     * </code>
+     */
+    @Test
+    public void testMatrixMultiplication() {
+        List<LoopLevel> levels = List.of(loop(0, N), loop(0, N), new LoopLevel(0L, null, N, "loop-carried value"));
+        ArrayDependenceAnalysis analysis = analyse(levels, //
+                read(A, 3, n(N).multiply(i(0)).add(i(2))), //
+                read(B, 3, n(N).multiply(i(2)).add(i(1))), //
+                write(C, 2, n(N).multiply(i(0)).add(i(1))));
+        assertEquals(2, analysis.getParallelDepth(3));
+        assertTrue(analysis.getRejectionReason().contains("loop-carried value"));
+    }
+
+    /**
+     * The inner index does not provably stay within a row.
+     *
+     * <code>
+     *     for (int i = 0; i < n; i++)
+     *         for (int j = 0; j < m; j++) c[i * n + j] = 0;
+     * </code>
+     */
+    @Test
+    public void testUnknownRowSize() {
+        ArrayDependenceAnalysis analysis = analyse(List.of(loop(0, N), loop(0, M)), write(C, 2, n(N).multiply(i(0)).add(i(1))));
+        assertEquals(0, analysis.getParallelDepth(3));
+    }
+
+    /**
+     * <code>
+     *     for (int i = 1; i < n; i++)
+     *         for (int j = 1; j < m; j++) a[i][j] = a[i][j - 1] + a[i - 1][j];
+     * </code>
+     */
+    @Test
+    public void testWavefront() {
+        ArrayDependenceAnalysis analysis = analyse(List.of(loop(1, N), loop(1, M)), //
+                read(A, 2, i(0), i(1).subtract(k(1))), //
+                read(A, 2, i(0).subtract(k(1)), i(1)), //
+                write(A, 2, i(0), i(1)));
+        assertEquals(0, analysis.getParallelDepth(3));
+    }
+
+    /**
+     * <code>
+     *     for (int i = 0; i < n; i++)
+     *         for (int j = 1; j < m; j++) a[i][j] = a[i][j - 1];
+     * </code>
+     */
+    @Test
+    public void testRowRecurrence() {
+        ArrayDependenceAnalysis analysis = analyse(List.of(loop(0, N), loop(1, M)), read(A, 2, i(0), i(1).subtract(k(1))), write(A, 2, i(0), i(1)));
+        assertEquals(1, analysis.getParallelDepth(3));
+        assertTrue(analysis.getRejectionReason().startsWith("loop 1"));
+    }
+
+    /**
+     * A symbolic offset that is common to both accesses cancels out.
+     *
+     * <code>
+     *     for (int i = 0; i < n; i++) a[i + offset] = a[i + offset] + 1;
+     * </code>
+     */
+    @Test
+    public void testSymbolicOffset() {
+        Object offset = "offset";
+        ArrayDependenceAnalysis analysis = analyse(List.of(loop(0, N)), read(A, 1, i(0).add(n(offset))), write(A, 1, i(0).add(n(offset))));
+        assertEquals(1, analysis.getParallelDepth(3));
+    }
+
+    /**
+     * <code>
+     *     for (int i = 0; i < n; i++) a[index[i]] = b[i];
+     * </code>
+     */
+    @Test
+    public void testIndirectAccess() {
+        ArrayAccess scatter = new ArrayAccess(A, true, Arrays.asList((AffineExpression) null), true, 1, 0, "a[index[i]]");
+        ArrayDependenceAnalysis analysis = analyse(List.of(loop(0, N)), read(B, 1, i(0)), scatter);
+        assertEquals(0, analysis.getParallelDepth(3));
+        assertTrue(analysis.getRejectionReason().contains("a[index[i]]"));
+    }
+
+    /**
+     * Arrays that are not parameters can alias each other.
+     *
+     * <code>
+     *     for (int i = 0; i < n; i++) x[i] = y[i + 1];
+     * </code>
+     */
+    @Test
+    public void testMayAlias() {
+        Object x = "x";
+        Object y = "y";
+        ArrayAccess load = new ArrayAccess(y, false, List.of(i(0).add(k(1))), false, 1, 0, "y[i + 1]");
+        ArrayAccess store = new ArrayAccess(x, false, List.of(i(0)), true, 1, 0, "x[i]");
+        assertEquals(0, analyse(List.of(loop(0, N)), load, store).getParallelDepth(3));
+    }
+
+    /**
+     * Each iteration uses its own temporary array.
+     *
+     * <code>
+     *     for (int i = 0; i < n; i++) {
+     *         float[] tmp = new float[4];
+     *         for (int j = 0; j < 4; j++) tmp[0] += a[i * 4 + j];
+     *         c[i] = tmp[0];
+     *     }
+     * </code>
+     */
+    @Test
+    public void testPrivateArray() {
+        Object tmp = "tmp";
+        List<LoopLevel> levels = List.of(loop(0, N), new LoopLevel(0L, 3L, null, null));
+        ArrayDependenceAnalysis analysis = analyse(levels, //
+                new ArrayAccess(tmp, false, List.of(k(0)), false, 2, 1, "tmp[0]"), //
+                new ArrayAccess(tmp, false, List.of(k(0)), true, 2, 1, "tmp[0]"), //
+                new ArrayAccess(tmp, false, List.of(k(0)), false, 1, 1, "tmp[0]"), //
+                read(A, 2, i(0).scale(4).add(i(1))), //
+                write(C, 1, i(0)));
+        assertEquals(1, analysis.getParallelDepth(3));
+    }
+
+    @Test
+    public void testUnanalysableAccess() {
+        ArrayDependenceAnalysis analysis = analyse(List.of(loop(0, N)), write(C, 1, i(0)));
+        analysis.addUnanalysableAccess("call to foo()");
+        assertEquals(0, analysis.getParallelDepth(3));
+        assertTrue(analysis.getRejectionReason().contains("call to foo()"));
+    }
+
+    private static void assumeAutoParallelisation() {
+        if (!Boolean.parseBoolean(System.getProperty("tornado.parallelise.auto", "False")) || Boolean.parseBoolean(System.getProperty("tornado.recover.bailout", "True"))) {
+            throw new UnsupportedConfigurationException("Run with -Dtornado.parallelise.auto=True -Dtornado.recover.bailout=False");
+        }
+    }
+
+    private static float[] createArray(int size) {
+        float[] array = new float[size];
+        for (int i = 0; i < size; i++) {
+            array[i] = i % 100 + 0.5f;
+        }
+        return array;
+    }
+
+    private static void execute(TaskGraph taskGraph) {
+        new TornadoExecutionPlan(taskGraph.snapshot()).execute();
+    }
+
+    private static void assertNotParallelised(TaskGraph taskGraph, String reason) {
+        try {
+            execute(taskGraph);
+            fail("The kernel must not be parallelised");
+        } catch (TornadoBailoutRuntimeException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains(reason));
+        }
+    }
+
+    private static void vectorAddLessEqual(float[] a, float[] b, float[] c, int last) {
+        for (int i = 0; i <= last; i++) {
+            c[i] = a[i] + b[i];
+        }
+    }
+
+    private static void scaleLessEqualConstant(float[] a, float[] b) {
+        for (int i = 0; i <= 511; i++) {
+            b[i] = a[i] * 2;
+        }
+    }
+
+    private static void scaleNotEqual(float[] a, float[] b, int n) {
+        for (int i = 0; i != n; i++) {
+            b[i] = a[i] * 2;
+        }
+    }
+
+    private static void reverse(float[] a, float[] b) {
+        for (int i = 0; i < a.length; i++) {
+            b[i] = a[a.length - 1 - i];
+        }
+    }
+
+    private static void deinterleave(float[] a, int n) {
+        for (int i = 0; i < n; i++) {
+            a[i << 1] = a[(i << 1) + 1];
+        }
+    }
+
+    private static void matrixMultiply(float[] a, float[] b, float[] c, int n) {
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                float sum = 0;
+                for (int k = 0; k < n; k++) {
+                    sum += a[i * n + k] * b[k * n + j];
+                }
+                c[i * n + j] = sum;
+            }
+        }
+    }
+
+    private static void prefixSum(float[] a) {
+        for (int i = 1; i < a.length; i++) {
+            a[i] = a[i - 1] + a[i];
+        }
+    }
+
+    private static void shiftLeft(float[] a, int n) {
+        for (int i = 0; i < n; i++) {
+            a[i] = a[i + 1];
+        }
+    }
+
+    private static void sum(float[] a, float[] result) {
+        float sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i];
+        }
+        result[0] = sum;
+    }
+
+    /**
+     * The {@code <=} bound is normalised to an exclusive range of
+     * {@code last + 1} threads.
+     */
+    @Test
+    public void testAutoParalleliseLessEqual() {
+        assumeAutoParallelisation();
+        final int last = SIZE / 2;
+        float[] a = createArray(SIZE);
+        float[] b = createArray(SIZE);
+        float[] c = new float[SIZE];
+
+        execute(new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.FIRST_EXECUTION, a, b, c) //
+                .task("t0", TestArrayDependenceAnalysis::vectorAddLessEqual, a, b, c, last) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, c));
+
+        float[] expected = new float[SIZE];
+        vectorAddLessEqual(a, b, expected, last);
+        assertArrayEquals(expected, c, 0.0f);
+    }
+
+    @Test
+    public void testAutoParalleliseLessEqualConstant() {
+        assumeAutoParallelisation();
+        float[] a = createArray(SIZE);
+        float[] b = new float[SIZE];
+
+        execute(new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.FIRST_EXECUTION, a, b) //
+                .task("t0", TestArrayDependenceAnalysis::scaleLessEqualConstant, a, b) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, b));
+
+        float[] expected = new float[SIZE];
+        scaleLessEqualConstant(a, expected);
+        assertArrayEquals(expected, b, 0.0f);
+    }
+
+    @Test
+    public void testAutoParalleliseNotEqual() {
+        assumeAutoParallelisation();
+        final int n = SIZE / 2 + 1;
+        float[] a = createArray(SIZE);
+        float[] b = new float[SIZE];
+
+        execute(new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.FIRST_EXECUTION, a, b) //
+                .task("t0", TestArrayDependenceAnalysis::scaleNotEqual, a, b, n) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, b));
+
+        float[] expected = new float[SIZE];
+        scaleNotEqual(a, expected, n);
+        assertArrayEquals(expected, b, 0.0f);
+    }
+
+    /**
+     * The subscript {@code a.length - 1 - i} has the length of the array as a
+     * symbol, and the bound of the loop is the same symbol.
+     */
+    @Test
+    public void testAutoParalleliseReverse() {
+        assumeAutoParallelisation();
+        float[] a = createArray(SIZE);
+        float[] b = new float[SIZE];
+
+        execute(new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.FIRST_EXECUTION, a, b) //
+                .task("t0", TestArrayDependenceAnalysis::reverse, a, b) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, b));
+
+        float[] expected = new float[SIZE];
+        reverse(a, expected);
+        assertArrayEquals(expected, b, 0.0f);
+    }
+
+    /**
+     * GCD test on shifted subscripts: even elements are written and odd elements
+     * are read.
+     */
+    @Test
+    public void testAutoParalleliseShiftedSubscripts() {
+        assumeAutoParallelisation();
+        float[] a = createArray(SIZE);
+        float[] expected = a.clone();
+
+        execute(new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.FIRST_EXECUTION, a) //
+                .task("t0", TestArrayDependenceAnalysis::deinterleave, a, SIZE / 2) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, a));
+
+        deinterleave(expected, SIZE / 2);
+        assertArrayEquals(expected, a, 0.0f);
+    }
+
+    /**
+     * The two outer loops are parallelised, and the {@code k} loop, which carries
+     * the accumulator, runs in each thread.
+     */
+    @Test
+    public void testAutoParalleliseMatrixMultiplication() {
+        assumeAutoParallelisation();
+        float[] a = createArray(MATRIX_SIZE * MATRIX_SIZE);
+        float[] b = createArray(MATRIX_SIZE * MATRIX_SIZE);
+        float[] c = new float[MATRIX_SIZE * MATRIX_SIZE];
+
+        execute(new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.FIRST_EXECUTION, a, b) //
+                .task("t0", TestArrayDependenceAnalysis::matrixMultiply, a, b, c, MATRIX_SIZE) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, c));
+
+        float[] expected = new float[MATRIX_SIZE * MATRIX_SIZE];
+        matrixMultiply(a, b, expected, MATRIX_SIZE);
+        assertArrayEquals(expected, c, 0.01f);
+    }
+
+    @Test
+    public void testAutoParalleliseRejectsPrefixSum() {
+        assumeAutoParallelisation();
+        float[] a = createArray(SIZE);
+        assertNotParallelised(new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.FIRST_EXECUTION, a) //
+                .task("t0", TestArrayDependenceAnalysis::prefixSum, a) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, a), "loop-carried dependence");
+    }
+
+    @Test
+    public void testAutoParalleliseRejectsAntiDependence() {
+        assumeAutoParallelisation();
+        float[] a = createArray(SIZE);
+        assertNotParallelised(new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.FIRST_EXECUTION, a) //
+                .task("t0", TestArrayDependenceAnalysis::shiftLeft, a, SIZE - 1) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, a), "loop-carried dependence");
+    }
+
+    @Test
+    public void testAutoParalleliseRejectsReduction() {
+        assumeAutoParallelisation();
+        float[] a = createArray(SIZE);
+        float[] result = new float[1];
+        assertNotParallelised(new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.FIRST_EXECUTION, a) //
+                .task("t0", TestArrayDependenceAnalysis::sum, a, result) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, result), "loop-carried value");
+    }
+}
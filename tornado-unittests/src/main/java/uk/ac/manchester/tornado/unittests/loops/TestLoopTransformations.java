@@ -31,7 +31,9 @@ import uk.ac.manchester.tornado.api.TornadoDriver;
 import uk.ac.manchester.tornado.api.TornadoExecutionPlan;
 import uk.ac.manchester.tornado.api.annotations.Parallel;
 import uk.ac.manchester.tornado.api.enums.DataTransferMode;
+import uk.ac.manchester.tornado.api.enums.TornadoDeviceType;
 import uk.ac.manchester.tornado.api.runtime.TornadoRuntime;
+import uk.ac.manchester.tornado.runtime.graal.loop.PartialUnrollPolicies;
 import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
 
 /**
@@ -139,6 +141,54 @@ public class TestLoopTransformations extends TornadoTestBase {
         }
     }
 
+    @Test
+    public void testPartialUnrollRuntimeTripCount() {
+        // The trip count of the inner loop is not a multiple of any unroll factor
+        int size = 509;
+
+        float[] matrixA = new float[size * size];
+        float[] matrixB = new float[size];
+        float[] matrixC = new float[size];
+        float[] resultSeq = new float[size];
+
+        Random r = new Random();
+        IntStream.range(0, size * size).forEach(idx -> matrixA[idx] = r.nextFloat());
+        IntStream.range(0, size).forEach(idx -> matrixB[idx] = r.nextFloat());
+
+        TornadoRuntime.setProperty("tornado.experimental.partial.unroll", "True");
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.FIRST_EXECUTION, matrixA, matrixB) //
+                .task("t0", TestLoopTransformations::matrixVectorMultiplication, matrixA, matrixB, matrixC, size) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, matrixC);
+
+        ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
+        TornadoExecutionPlan executionPlan = new TornadoExecutionPlan(immutableTaskGraph);
+        executionPlan.execute();
+
+        matrixVectorMultiplication(matrixA, matrixB, resultSeq, size);
+        for (int i = 0; i < size; i++) {
+            assertEquals(resultSeq[i], matrixC[i], 0.01f);
+        }
+    }
+
+    @Test
+    public void testPartialUnrollCostModel() {
+        // Small loop bodies with unknown trip counts
+        assertEquals(8, PartialUnrollPolicies.selectUnrollFactor(20, 4, TornadoDeviceType.GPU, -1));
+        assertEquals(4, PartialUnrollPolicies.selectUnrollFactor(20, 4, TornadoDeviceType.CPU, -1));
+        assertEquals(1, PartialUnrollPolicies.selectUnrollFactor(20, 4, TornadoDeviceType.FPGA, -1));
+
+        // Large loop bodies and high register pressure limit the unroll factor
+        assertEquals(2, PartialUnrollPolicies.selectUnrollFactor(200, 4, TornadoDeviceType.GPU, -1));
+        assertEquals(4, PartialUnrollPolicies.selectUnrollFactor(20, 12, TornadoDeviceType.GPU, -1));
+        assertEquals(1, PartialUnrollPolicies.selectUnrollFactor(20, 12, TornadoDeviceType.CPU, -1));
+
+        // Short loops keep at least two iterations of the unrolled loop
+        assertEquals(2, PartialUnrollPolicies.selectUnrollFactor(20, 4, TornadoDeviceType.GPU, 5));
+        assertEquals(1, PartialUnrollPolicies.selectUnrollFactor(20, 4, TornadoDeviceType.GPU, 3));
+    }
+
     private static void matrixTranspose(final float[] A, float[] B, final int size) {
         for (@Parallel int i = 0; i < size; i++) {
             for (@Parallel int j = 0; j < size; j++) {
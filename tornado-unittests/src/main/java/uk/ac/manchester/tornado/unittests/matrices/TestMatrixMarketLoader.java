@@ -0,0 +1,302 @@
+/*
+ * Copyright (c) 2023, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.unittests.matrices;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.matrix.MatrixMarketLoader;
+import uk.ac.manchester.tornado.matrix.SparseMatrixUtils;
+import uk.ac.manchester.tornado.matrix.SparseMatrixUtils.CSRMatrix;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+/**
+ * Tests for the parser of Matrix Market files and for its binary cache. They
+ * do not need any device.
+ *
+ * <p>
+ * How to run?
+ * </p>
+ * <code>
+ *     tornado-test -V uk.ac.manchester.tornado.unittests.matrices.TestMatrixMarketLoader
+ * </code>
+ */
+public class TestMatrixMarketLoader extends TornadoTestBase {
+
+    private static final String GENERAL = "%%MatrixMarket matrix coordinate real general\n" //
+            + "% 4x5 matrix with the entries out of order\n" //
+            + "%\n" //
+            + "4 5 6\n" //
+            + "3 2 1.5\n" //
+            + "1 1 -2.0\n" //
+            + "4 5 2.5e-1\n" //
+            + "1 4 3\n" //
+            + "2 3 4.25\n" //
+            + "3 1 -1e2\n";
+
+    private static final int[] GENERAL_ROWS = { 0, 2, 3, 5, 6 };
+    private static final int[] GENERAL_COLS = { 0, 3, 2, 0, 1, 4 };
+    private static final float[] GENERAL_VALUES = { -2.0f, 3.0f, 4.25f, -100.0f, 1.5f, 0.25f };
+
+    private static final String SYMMETRIC = "%%MatrixMarket matrix coordinate real symmetric\n" //
+            + "3 3 4\n" //
+            + "1 1 1.0\n" //
+            + "2 1 2.0\n" //
+            + "3 2 3.0\n" //
+            + "3 3 4.0\n";
+
+    private Path directory;
+
+    @Before
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("tornado-matrices");
+    }
+
+    @After
+    public void deleteDirectory() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    private String write(String name, String contents) throws IOException {
+        Path file = directory.resolve(name);
+        Files.write(file, contents.getBytes(StandardCharsets.US_ASCII));
+        return file.toString();
+    }
+
+    private static void assertCSR(int[] rows, int[] cols, float[] values, CSRMatrix<float[]> matrix) {
+        assertEquals(rows.length - 1, matrix.size);
+        assertEquals(cols.length, matrix.n);
+        assertArrayEquals(rows, matrix.rows);
+        assertArrayEquals(cols, matrix.cols);
+        assertArrayEquals(values, matrix.vals, 0.0f);
+    }
+
+    private static void assertSameMatrix(CSRMatrix<float[]> expected, CSRMatrix<float[]> matrix) {
+        assertCSR(expected.rows, expected.cols, expected.vals, matrix);
+    }
+
+    private static void assertSameMatrixD(CSRMatrix<double[]> expected, CSRMatrix<double[]> matrix) {
+        assertEquals(expected.size, matrix.size);
+        assertEquals(expected.n, matrix.n);
+        assertArrayEquals(expected.rows, matrix.rows);
+        assertArrayEquals(expected.cols, matrix.cols);
+        assertArrayEquals(expected.vals, matrix.vals, 0.0);
+    }
+
+    /**
+     * Random matrix in the layout used by the SuiteSparse collection: single
+     * spaces and one entry per line, without repeated coordinates.
+     */
+    private String writeRandomMatrix(String name, int nRows, int nCols, int nEntries, boolean symmetric) throws IOException {
+        Random random = new Random(7);
+        Set<Long> coordinates = new HashSet<>();
+        StringBuilder entries = new StringBuilder();
+        while (coordinates.size() < nEntries) {
+            int row = random.nextInt(nRows);
+            int col = random.nextInt(nCols);
+            if (symmetric && col > row) {
+                continue;
+            }
+            if (coordinates.add(((long) row << 32) | col)) {
+                entries.append(String.format(Locale.ROOT, "%d %d %.6f\n", row + 1, col + 1, random.nextFloat() * 200 - 100));
+            }
+        }
+        String banner = String.format("%%%%MatrixMarket matrix coordinate real %s\n", symmetric ? "symmetric" : "general");
+        return write(name, banner + "% generated\n" + String.format("%d %d %d\n", nRows, nCols, nEntries) + entries);
+    }
+
+    @Test
+    public void testGeneralMatrix() throws IOException {
+        String path = write("general.mtx", GENERAL);
+        assertCSR(GENERAL_ROWS, GENERAL_COLS, GENERAL_VALUES, MatrixMarketLoader.loadMatrixF(path));
+
+        CSRMatrix<double[]> matrix = MatrixMarketLoader.loadMatrixD(path);
+        assertArrayEquals(GENERAL_ROWS, matrix.rows);
+        assertArrayEquals(GENERAL_COLS, matrix.cols);
+        assertArrayEquals(new double[] { -2.0, 3.0, 4.25, -100.0, 1.5, 0.25 }, matrix.vals, 0.0);
+    }
+
+    @Test
+    public void testSymmetricMatrix() throws IOException {
+        String path = write("symmetric.mtx", SYMMETRIC);
+        // The entries below the diagonal are mirrored, and the diagonal is not
+        assertCSR(new int[] { 0, 2, 4, 6 }, new int[] { 0, 1, 0, 2, 1, 2 }, new float[] { 1, 2, 2, 3, 3, 4 }, MatrixMarketLoader.loadMatrixF(path));
+    }
+
+    @Test
+    public void testPatternMatrix() throws IOException {
+        String path = write("pattern.mtx", "%%MatrixMarket matrix coordinate pattern symmetric\n" //
+                + "3 3 3\n" //
+                + "2 1\n" //
+                + "3 3\n" //
+                + "3 2\n");
+        CSRMatrix<float[]> matrix = MatrixMarketLoader.loadMatrixF(path);
+        assertArrayEquals(new int[] { 0, 1, 3, 5 }, matrix.rows);
+        assertArrayEquals(new int[] { 1, 0, 2, 1, 2 }, matrix.cols);
+        for (float value : matrix.vals) {
+            assertTrue(value >= 0 && value < 256);
+        }
+        // Mirrored entries get the value of the entry in the file
+        assertEquals(matrix.vals[0], matrix.vals[1], 0.0f);
+        assertEquals(matrix.vals[2], matrix.vals[3], 0.0f);
+
+        // The values are a function of the coordinates, so every load is the same
+        assertSameMatrix(matrix, MatrixMarketLoader.loadMatrixF(path));
+        CSRMatrix<double[]> matrixD = MatrixMarketLoader.loadMatrixD(path);
+        for (int i = 0; i < matrix.n; i++) {
+            assertEquals(matrix.vals[i], (float) matrixD.vals[i], 0.0f);
+        }
+    }
+
+    @Test
+    public void testCommentsAndBlankLines() throws IOException {
+        String path = write("comments.mtx", "%%matrixmarket MATRIX Coordinate Real General\r\n" //
+                + "%\r\n" //
+                + "\r\n" //
+                + "% size line follows\r\n" //
+                + "4   5\t6\r\n" //
+                + "3 2 1.5\r\n" //
+                + "  1 1 -2.0\r\n" //
+                + "% comment between the entries\r\n" //
+                + "\r\n" //
+                + "4 5 2.5e-1\r\n" //
+                + "1\t4 3\r\n" //
+                + "2 3 4.25   \r\n" //
+                + "3 1 -1e2");
+        assertCSR(GENERAL_ROWS, GENERAL_COLS, GENERAL_VALUES, MatrixMarketLoader.loadMatrixF(path));
+    }
+
+    @Test(expected = IOException.class)
+    public void testMissingBanner() throws IOException {
+        MatrixMarketLoader.loadMatrixF(write("nobanner.mtx", GENERAL.substring(GENERAL.indexOf('\n') + 1)));
+    }
+
+    @Test(expected = IOException.class)
+    public void testDenseMatrix() throws IOException {
+        MatrixMarketLoader.loadMatrixF(write("dense.mtx", "%%MatrixMarket matrix array real general\n2 2\n1.0\n2.0\n3.0\n4.0\n"));
+    }
+
+    @Test(expected = IOException.class)
+    public void testWrongNumberOfEntries() throws IOException {
+        MatrixMarketLoader.loadMatrixF(write("entries.mtx", GENERAL.replace("4 5 6\n", "4 5 7\n")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEntryOutOfBounds() throws IOException {
+        MatrixMarketLoader.loadMatrixF(write("bounds.mtx", GENERAL.replace("4 5 2.5e-1\n", "5 5 2.5e-1\n")));
+    }
+
+    @Test
+    public void testBinaryRoundTrip() throws IOException {
+        String path = writeRandomMatrix("random.mtx", 300, 200, 4000, false);
+
+        CSRMatrix<float[]> matrix = MatrixMarketLoader.loadMatrixF(path);
+        Path cache = directory.resolve("float.csr");
+        MatrixMarketLoader.writeBinary(matrix, cache);
+        assertSameMatrix(matrix, MatrixMarketLoader.readBinaryF(cache));
+
+        CSRMatrix<double[]> matrixD = MatrixMarketLoader.loadMatrixD(path);
+        Path cacheD = directory.resolve("double.csr");
+        MatrixMarketLoader.writeBinary(matrixD, cacheD);
+        assertSameMatrixD(matrixD, MatrixMarketLoader.readBinaryD(cacheD));
+    }
+
+    @Test(expected = IOException.class)
+    public void testBinaryWrongValueType() throws IOException {
+        Path cache = directory.resolve("float.csr");
+        MatrixMarketLoader.writeBinary(MatrixMarketLoader.loadMatrixF(write("general.mtx", GENERAL)), cache);
+        MatrixMarketLoader.readBinaryD(cache);
+    }
+
+    @Test
+    public void testCachedMatrix() throws IOException {
+        String path = write("general.mtx", GENERAL);
+        Path cache = directory.resolve("general.mtx" + MatrixMarketLoader.CACHE_SUFFIX);
+
+        // The first load creates the cache, and the second one reads it
+        assertCSR(GENERAL_ROWS, GENERAL_COLS, GENERAL_VALUES, MatrixMarketLoader.loadCachedMatrixF(path));
+        assertTrue(Files.isRegularFile(cache));
+        assertSameMatrix(MatrixMarketLoader.readBinaryF(cache), MatrixMarketLoader.loadCachedMatrixF(path));
+        assertCSR(GENERAL_ROWS, GENERAL_COLS, GENERAL_VALUES, MatrixMarketLoader.loadCachedMatrixF(path));
+
+        // A cache older than the matrix file is rebuilt
+        write("general.mtx", SYMMETRIC);
+        Files.setLastModifiedTime(cache, FileTime.fromMillis(Files.getLastModifiedTime(Path.of(path)).toMillis() - 60_000));
+        CSRMatrix<float[]> matrix = MatrixMarketLoader.loadCachedMatrixF(path);
+        assertArrayEquals(new int[] { 0, 2, 4, 6 }, matrix.rows);
+        assertSameMatrix(matrix, MatrixMarketLoader.readBinaryF(cache));
+    }
+
+    @Test
+    public void testCachedMatrixWithTruncatedCache() throws IOException {
+        String path = write("general.mtx", GENERAL);
+        Path cache = directory.resolve("general.mtx" + MatrixMarketLoader.CACHE_SUFFIX);
+        MatrixMarketLoader.loadCachedMatrixF(path);
+
+        // Keep the header, but drop the values
+        byte[] bytes = Files.readAllBytes(cache);
+        Files.write(cache, Arrays.copyOf(bytes, bytes.length - Float.BYTES));
+        assertCSR(GENERAL_ROWS, GENERAL_COLS, GENERAL_VALUES, MatrixMarketLoader.loadCachedMatrixF(path));
+        assertCSR(GENERAL_ROWS, GENERAL_COLS, GENERAL_VALUES, MatrixMarketLoader.readBinaryF(cache));
+    }
+
+    @Test
+    public void testCachedMatrixWhenTheCacheCannotBeWritten() throws IOException {
+        String path = write("general.mtx", GENERAL);
+        // A non-empty directory in the place of the cache file cannot be replaced
+        Path cache = Files.createDirectory(directory.resolve("general.mtx" + MatrixMarketLoader.CACHE_SUFFIX));
+        Files.createFile(cache.resolve("file"));
+
+        assertCSR(GENERAL_ROWS, GENERAL_COLS, GENERAL_VALUES, MatrixMarketLoader.loadCachedMatrixF(path));
+        assertTrue(Files.isDirectory(cache));
+        assertFalse(Files.exists(Path.of(cache + ".tmp")));
+    }
+
+    @Test
+    public void testSameAsSparseMatrixUtils() throws IOException {
+        String path = writeRandomMatrix("general.mtx", 500, 400, 6000, false);
+        assertSameMatrix(SparseMatrixUtils.loadMatrixF(path), MatrixMarketLoader.loadMatrixF(path));
+    }
+
+    @Test
+    public void testSymmetricSameAsSparseMatrixUtils() throws IOException {
+        String path = writeRandomMatrix("symmetric.mtx", 500, 500, 6000, true);
+        assertSameMatrix(SparseMatrixUtils.loadMatrixF(path), MatrixMarketLoader.loadMatrixF(path));
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * Copyright (c) 2023, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.unittests.matrices;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.benchmarks.LinearAlgebraArrays;
+import uk.ac.manchester.tornado.matrix.EllpackMatrix;
+import uk.ac.manchester.tornado.matrix.SellCSigmaMatrix;
+import uk.ac.manchester.tornado.matrix.SparseMatrixUtils.CSRMatrix;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+/**
+ * Tests for the conversion of CSR matrices into the ELLPACK and SELL-C-sigma
+ * formats. The SpMV kernels run as plain Java methods, so the tests do not
+ * need any device.
+ *
+ * <p>
+ * How to run?
+ * </p>
+ * <code>
+ *     tornado-test -V uk.ac.manchester.tornado.unittests.matrices.TestSparseMatrixFormats
+ * </code>
+ */
+public class TestSparseMatrixFormats extends TornadoTestBase {
+
+    /**
+     * Rows of length 2, 1, 4, 0 and 2.
+     */
+    private static final float[][] DENSE = { //
+            { 1, 0, 2, 0, 0 }, //
+            { 0, 3, 0, 0, 0 }, //
+            { 4, 5, 0, 6, 7 }, //
+            { 0, 0, 0, 0, 0 }, //
+            { 0, 0, 8, 0, 9 } };
+
+    static CSRMatrix<float[]> fromDense(float[][] dense) {
+        int n = 0;
+        for (float[] row : dense) {
+            for (float value : row) {
+                n += value != 0 ? 1 : 0;
+            }
+        }
+        CSRMatrix<float[]> csr = new CSRMatrix<>();
+        csr.size = dense.length;
+        csr.n = n;
+        csr.rows = new int[dense.length + 1];
+        csr.cols = new int[n];
+        csr.vals = new float[n];
+        int index = 0;
+        for (int i = 0; i < dense.length; i++) {
+            for (int j = 0; j < dense[i].length; j++) {
+                if (dense[i][j] != 0) {
+                    csr.cols[index] = j;
+                    csr.vals[index] = dense[i][j];
+                    index++;
+                }
+            }
+            csr.rows[i + 1] = index;
+        }
+        return csr;
+    }
+
+    /**
+     * Square matrix with short rows, a few long rows and some empty rows.
+     */
+    static float[][] randomDense(int size, long seed) {
+        Random random = new Random(seed);
+        float[][] dense = new float[size][size];
+        for (int i = 0; i < size; i++) {
+            final int length = (i % 7 == 3) ? size / 2 : (i % 5 == 4) ? 0 : 1 + random.nextInt(4);
+            for (int k = 0; k < length; k++) {
+                dense[i][random.nextInt(size)] = 1 + random.nextInt(9);
+            }
+        }
+        return dense;
+    }
+
+    static float[] spmvCSR(CSRMatrix<float[]> csr, float[] vec) {
+        float[] out = new float[csr.size];
+        LinearAlgebraArrays.spmv(csr.vals, csr.cols, csr.rows, vec, csr.size, out);
+        return out;
+    }
+
+    private static float[] spmvEllpack(EllpackMatrix matrix, float[] vec) {
+        float[] out = new float[matrix.size];
+        LinearAlgebraArrays.spmvEllpack(matrix.vals, matrix.cols, matrix.rowLengths, vec, matrix.size, out);
+        return out;
+    }
+
+    private static float[] spmvSellCSigma(SellCSigmaMatrix matrix, float[] vec) {
+        float[] out = new float[matrix.size];
+        LinearAlgebraArrays.spmvSellCSigma(matrix.vals, matrix.cols, matrix.sliceOffsets, matrix.rowLengths, matrix.permutation, vec, matrix.size, matrix.chunkHeight, out);
+        return out;
+    }
+
+    private static float[] randomVector(int size, long seed) {
+        Random random = new Random(seed);
+        float[] vec = new float[size];
+        for (int i = 0; i < size; i++) {
+            vec[i] = random.nextFloat();
+        }
+        return vec;
+    }
+
+    @Test
+    public void testEllpackLayout() {
+        EllpackMatrix matrix = EllpackMatrix.fromCSR(fromDense(DENSE));
+
+        assertEquals(5, matrix.size);
+        assertEquals(9, matrix.n);
+        assertEquals(4, matrix.width);
+        assertEquals(20, matrix.getStorageSize());
+        assertArrayEquals(new int[] { 2, 1, 4, 0, 2 }, matrix.rowLengths);
+
+        // The k-th entry of row i is at k * size + i. Padding is column 0 and value 0.
+        assertArrayEquals(new float[] { //
+                1, 3, 4, 0, 8, //
+                2, 0, 5, 0, 9, //
+                0, 0, 6, 0, 0, //
+                0, 0, 7, 0, 0 }, matrix.vals, 0.0f);
+        assertArrayEquals(new int[] { //
+                0, 1, 0, 0, 2, //
+                2, 0, 1, 0, 4, //
+                0, 0, 3, 0, 0, //
+                0, 0, 4, 0, 0 }, matrix.cols);
+    }
+
+    @Test
+    public void testSellCSigmaLayout() {
+        SellCSigmaMatrix matrix = SellCSigmaMatrix.fromCSR(fromDense(DENSE), 2, 4);
+
+        // Rows 0-3 are sorted by decreasing length. Row 4 is alone in its window.
+        assertArrayEquals(new int[] { 2, 0, 1, 3, 4 }, matrix.permutation);
+        assertArrayEquals(new int[] { 4, 2, 1, 0, 2 }, matrix.rowLengths);
+
+        // Slices of 2 rows with widths 4, 1 and 2. The last slice has one row.
+        assertEquals(3, matrix.numSlices);
+        assertArrayEquals(new int[] { 0, 8, 10, 14 }, matrix.sliceOffsets);
+        assertEquals(14, matrix.getStorageSize());
+
+        // The k-th entry of the row at position p is at sliceOffsets[p / C] + k * C + p % C
+        assertArrayEquals(new float[] { //
+                4, 1, 5, 2, 6, 0, 7, 0, // slice 0: rows 2 and 0
+                3, 0, // slice 1: rows 1 and 3
+                8, 0, 9, 0 }, matrix.vals, 0.0f); // slice 2: row 4 and padding
+        assertArrayEquals(new int[] { //
+                0, 0, 1, 2, 3, 0, 4, 0, //
+                1, 0, //
+                2, 0, 4, 0 }, matrix.cols);
+    }
+
+    @Test
+    public void testSellCSigmaWithoutSorting() {
+        SellCSigmaMatrix matrix = SellCSigmaMatrix.fromCSR(fromDense(DENSE), 2, 1);
+
+        assertArrayEquals(new int[] { 0, 1, 2, 3, 4 }, matrix.permutation);
+        assertArrayEquals(new int[] { 2, 1, 4, 0, 2 }, matrix.rowLengths);
+        assertArrayEquals(new int[] { 0, 4, 12, 16 }, matrix.sliceOffsets);
+    }
+
+    @Test
+    public void testSellCSigmaSortsWholeMatrix() {
+        // A window larger than the matrix sorts all rows. Rows 0 and 4 have the
+        // same length and keep their order.
+        for (int sigma : new int[] { 5, 64 }) {
+            SellCSigmaMatrix matrix = SellCSigmaMatrix.fromCSR(fromDense(DENSE), 2, sigma);
+            assertArrayEquals(new int[] { 2, 0, 4, 1, 3 }, matrix.permutation);
+            assertArrayEquals(new int[] { 4, 2, 2, 1, 0 }, matrix.rowLengths);
+            assertArrayEquals(new int[] { 0, 8, 12, 12 }, matrix.sliceOffsets);
+        }
+    }
+
+    @Test
+    public void testSellCSigmaPartialSlice() {
+        // Five rows in slices of 4: the second slice is padded with 3 empty rows
+        SellCSigmaMatrix matrix = SellCSigmaMatrix.fromCSR(fromDense(DENSE), 4, 5);
+        assertEquals(2, matrix.numSlices);
+        assertArrayEquals(new int[] { 0, 16, 16 }, matrix.sliceOffsets);
+
+        matrix = SellCSigmaMatrix.fromCSR(fromDense(DENSE), 4, 1);
+        assertArrayEquals(new int[] { 0, 16, 24 }, matrix.sliceOffsets);
+        assertEquals(0.0f, matrix.vals[16 + 1], 0.0f);
+        assertEquals(9.0f, matrix.vals[16 + 4], 0.0f);
+    }
+
+    @Test
+    public void testSellCSigmaWithOneRowPerSlice() {
+        // C = 1 stores each row without padding
+        SellCSigmaMatrix matrix = SellCSigmaMatrix.fromCSR(fromDense(DENSE), 1, 5);
+        assertEquals(9, matrix.getStorageSize());
+        assertArrayEquals(new int[] { 0, 4, 6, 8, 9, 9 }, matrix.sliceOffsets);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidChunkHeight() {
+        SellCSigmaMatrix.fromCSR(fromDense(DENSE), 0, 4);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidSigma() {
+        SellCSigmaMatrix.fromCSR(fromDense(DENSE), 4, 0);
+    }
+
+    @Test
+    public void testSpmvMatchesCSR() {
+        final int size = 37;
+        CSRMatrix<float[]> csr = fromDense(randomDense(size, 3));
+        float[] vec = randomVector(size, 5);
+        float[] expected = spmvCSR(csr, vec);
+
+        // Both formats add the entries of each row in the same order as CSR
+        assertArrayEquals(expected, spmvEllpack(EllpackMatrix.fromCSR(csr), vec), 0.0f);
+
+        final int[][] parameters = { { 1, 1 }, { 4, 1 }, { 4, 8 }, { 3, 5 }, { 8, 37 }, { 8, 100 }, { 32, 64 }, { 64, 16 } };
+        for (int[] parameter : parameters) {
+            SellCSigmaMatrix matrix = SellCSigmaMatrix.fromCSR(csr, parameter[0], parameter[1]);
+            assertArrayEquals("C=" + parameter[0] + ", sigma=" + parameter[1], expected, spmvSellCSigma(matrix, vec), 0.0f);
+        }
+    }
+}
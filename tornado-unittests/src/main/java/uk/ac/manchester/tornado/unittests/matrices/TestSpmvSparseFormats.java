@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2023, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.unittests.matrices;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.ImmutableTaskGraph;
+import uk.ac.manchester.tornado.api.TaskGraph;
+import uk.ac.manchester.tornado.api.TornadoExecutionPlan;
+import uk.ac.manchester.tornado.api.enums.DataTransferMode;
+import uk.ac.manchester.tornado.benchmarks.LinearAlgebraArrays;
+import uk.ac.manchester.tornado.matrix.EllpackMatrix;
+import uk.ac.manchester.tornado.matrix.SellCSigmaMatrix;
+import uk.ac.manchester.tornado.matrix.SparseMatrixUtils.CSRMatrix;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+/**
+ * Tests for the SpMV kernels with matrices in the ELLPACK and SELL-C-sigma
+ * formats. The results are compared with the CSR kernel run on the host.
+ *
+ * <p>
+ * How to run?
+ * </p>
+ * <code>
+ *     tornado-test -V uk.ac.manchester.tornado.unittests.matrices.TestSpmvSparseFormats
+ * </code>
+ */
+public class TestSpmvSparseFormats extends TornadoTestBase {
+
+    // Not a multiple of the slice heights
+    private static final int SIZE = 1000;
+
+    private static float[] createVector() {
+        Random random = new Random(17);
+        float[] vec = new float[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            vec[i] = random.nextFloat();
+        }
+        return vec;
+    }
+
+    @Test
+    public void testSpmvEllpack() {
+        CSRMatrix<float[]> csr = TestSparseMatrixFormats.fromDense(TestSparseMatrixFormats.randomDense(SIZE, 11));
+        EllpackMatrix matrix = EllpackMatrix.fromCSR(csr);
+        float[] vec = createVector();
+        float[] out = new float[SIZE];
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.FIRST_EXECUTION, matrix.vals, matrix.cols, matrix.rowLengths, vec) //
+                .task("t0", LinearAlgebraArrays::spmvEllpack, matrix.vals, matrix.cols, matrix.rowLengths, vec, SIZE, out) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, out);
+
+        ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
+        new TornadoExecutionPlan(immutableTaskGraph).execute();
+
+        assertArrayEquals(TestSparseMatrixFormats.spmvCSR(csr, vec), out, 0.01f);
+    }
+
+    private static void runSellCSigma(CSRMatrix<float[]> csr, int chunkHeight, int sigma) {
+        SellCSigmaMatrix matrix = SellCSigmaMatrix.fromCSR(csr, chunkHeight, sigma);
+        float[] vec = createVector();
+        float[] out = new float[SIZE];
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.FIRST_EXECUTION, matrix.vals, matrix.cols, matrix.sliceOffsets, matrix.rowLengths, matrix.permutation, vec) //
+                .task("t0", LinearAlgebraArrays::spmvSellCSigma, matrix.vals, matrix.cols, matrix.sliceOffsets, matrix.rowLengths, matrix.permutation, vec, SIZE, chunkHeight, out) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, out);
+
+        ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
+        new TornadoExecutionPlan(immutableTaskGraph).execute();
+
+        assertArrayEquals("C=" + chunkHeight + ", sigma=" + sigma, TestSparseMatrixFormats.spmvCSR(csr, vec), out, 0.01f);
+    }
+
+    @Test
+    public void testSpmvSellCSigma() {
+        CSRMatrix<float[]> csr = TestSparseMatrixFormats.fromDense(TestSparseMatrixFormats.randomDense(SIZE, 13));
+        runSellCSigma(csr, 32, 256);
+    }
+
+    @Test
+    public void testSpmvSellCSigmaEdgeCases() {
+        CSRMatrix<float[]> csr = TestSparseMatrixFormats.fromDense(TestSparseMatrixFormats.randomDense(SIZE, 13));
+        // No sorting, and a window larger than the matrix
+        runSellCSigma(csr, 32, 1);
+        runSellCSigma(csr, 8, 4096);
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2023, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.unittests.memory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.exceptions.TornadoOutOfMemoryException;
+import uk.ac.manchester.tornado.drivers.common.TornadoBufferProvider;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+/**
+ * Tests for the device buffer pool. It uses a buffer provider that does not
+ * allocate device memory, but records native allocations and releases.
+ *
+ * <p>
+ * How to run?
+ * </p>
+ * <code>
+ *     tornado-test -V uk.ac.manchester.tornado.unittests.memory.TestBufferProvider
+ * </code>
+ */
+public class TestBufferProvider extends TornadoTestBase {
+
+    private static final long KB = 1024;
+
+    private static class FakeBufferProvider extends TornadoBufferProvider {
+        private final long maxAllocationSize;
+        private final Map<Long, Long> liveBuffers = new HashMap<>();
+        private final List<Long> releasedBuffers = new ArrayList<>();
+        private long nextBuffer = 1;
+
+        FakeBufferProvider(long deviceMemory, long maxAllocationSize) {
+            super(null, deviceMemory);
+            this.maxAllocationSize = maxAllocationSize;
+        }
+
+        @Override
+        protected long allocateBuffer(long size) {
+            long buffer = nextBuffer++;
+            liveBuffers.put(buffer, size);
+            return buffer;
+        }
+
+        @Override
+        protected void releaseBuffer(long buffer) {
+            assertTrue(liveBuffers.containsKey(buffer));
+            liveBuffers.remove(buffer);
+            releasedBuffers.add(buffer);
+        }
+
+        @Override
+        protected long getDeviceMaxAllocationSize() {
+            return maxAllocationSize;
+        }
+    }
+
+    @Test
+    public void testReuseBeforeAllocate() {
+        FakeBufferProvider provider = new FakeBufferProvider(1024 * KB, 1024 * KB);
+        long buffer = provider.getBufferWithSize(100 * KB);
+        provider.markBufferReleased(buffer, 100 * KB);
+
+        // Enough memory is available, but the free buffer must be reused
+        long reused = provider.getBufferWithSize(90 * KB);
+        assertEquals(buffer, reused);
+        assertEquals(1, provider.liveBuffers.size());
+        assertEquals(1, provider.getStatistics().getHits());
+        assertEquals(1, provider.getStatistics().getMisses());
+    }
+
+    @Test
+    public void testBestFit() {
+        FakeBufferProvider provider = new FakeBufferProvider(1024 * KB, 1024 * KB);
+        long small = provider.getBufferWithSize(16 * KB);
+        long medium = provider.getBufferWithSize(64 * KB);
+        long large = provider.getBufferWithSize(100 * KB);
+        provider.markBufferReleased(large, 100 * KB);
+        provider.markBufferReleased(small, 16 * KB);
+        provider.markBufferReleased(medium, 64 * KB);
+
+        assertEquals(medium, provider.getBufferWithSize(60 * KB));
+        assertEquals(small, provider.getBufferWithSize(10 * KB));
+    }
+
+    @Test
+    public void testNoReuseOfMuchLargerBuffers() {
+        FakeBufferProvider provider = new FakeBufferProvider(1024 * KB, 1024 * KB);
+        long large = provider.getBufferWithSize(512 * KB);
+        provider.markBufferReleased(large, 512 * KB);
+
+        // There is memory available, so a small request does not take the large buffer
+        long small = provider.getBufferWithSize(4 * KB);
+        assertNotEquals(large, small);
+        assertEquals(2, provider.liveBuffers.size());
+    }
+
+    @Test
+    public void testLRUEviction() {
+        FakeBufferProvider provider = new FakeBufferProvider(256 * KB, 1024 * KB);
+        long first = provider.getBufferWithSize(64 * KB);
+        long second = provider.getBufferWithSize(64 * KB);
+        long third = provider.getBufferWithSize(64 * KB);
+        long fourth = provider.getBufferWithSize(64 * KB);
+        provider.markBufferReleased(second, 64 * KB);
+        provider.markBufferReleased(fourth, 64 * KB);
+        provider.markBufferReleased(first, 64 * KB);
+        provider.markBufferReleased(third, 64 * KB);
+
+        // The device is full and no free buffer fits: evict least recently released
+        // buffers (second, then fourth)
+        long buffer = provider.getBufferWithSize(128 * KB);
+        assertEquals(2, provider.releasedBuffers.size());
+        assertEquals(second, (long) provider.releasedBuffers.get(0));
+        assertEquals(fourth, (long) provider.releasedBuffers.get(1));
+        assertTrue(provider.liveBuffers.containsKey(buffer));
+        assertEquals(2, provider.getStatistics().getEvictions());
+    }
+
+    @Test
+    public void testSizeClasses() {
+        FakeBufferProvider provider = new FakeBufferProvider(1024 * KB, 1024 * KB);
+        long buffer = provider.getBufferWithSize(300);
+        // 300 bytes are rounded up to the 320-byte size class
+        assertEquals(320L, (long) provider.liveBuffers.get(buffer));
+        TornadoBufferProvider.BufferPoolStatistics statistics = provider.getStatistics();
+        assertEquals(320L, statistics.getBytesInUse());
+        assertEquals(1.0 - (300.0 / 320.0), statistics.getFragmentation(), 1e-9);
+    }
+
+    @Test
+    public void testHighWaterMark() {
+        FakeBufferProvider provider = new FakeBufferProvider(1024 * KB, 1024 * KB);
+        long a = provider.getBufferWithSize(128 * KB);
+        long b = provider.getBufferWithSize(128 * KB);
+        provider.markBufferReleased(a, 128 * KB);
+        provider.markBufferReleased(b, 128 * KB);
+        provider.resetBuffers();
+
+        TornadoBufferProvider.BufferPoolStatistics statistics = provider.getStatistics();
+        assertEquals(256 * KB, statistics.getHighWaterMark());
+        assertEquals(0, statistics.getPooledBytes());
+        assertEquals(0, statistics.getBytesInUse());
+        assertTrue(provider.liveBuffers.isEmpty());
+    }
+
+    @Test(expected = TornadoOutOfMemoryException.class)
+    public void testOutOfMemory() {
+        FakeBufferProvider provider = new FakeBufferProvider(128 * KB, 1024 * KB);
+        provider.getBufferWithSize(64 * KB);
+        provider.getBufferWithSize(128 * KB);
+    }
+
+    @Test
+    public void testConcurrentAllocations() throws InterruptedException {
+        FakeBufferProvider provider = new FakeBufferProvider(1024 * KB, 1024 * KB);
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    long buffer = provider.getBufferWithSize(KB);
+                    provider.markBufferReleased(buffer, KB);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        TornadoBufferProvider.BufferPoolStatistics statistics = provider.getStatistics();
+        assertEquals(4000, statistics.getHits() + statistics.getMisses());
+        assertEquals(0, statistics.getBytesInUse());
+        assertTrue(statistics.getMisses() <= threads.length);
+    }
+}
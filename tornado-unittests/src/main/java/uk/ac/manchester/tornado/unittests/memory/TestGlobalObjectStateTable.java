@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2023, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.unittests.memory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.runtime.tasks.GlobalObjectState;
+import uk.ac.manchester.tornado.runtime.tasks.GlobalObjectStateTable;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+/**
+ * Tests for the table that maps user objects to their global state.
+ *
+ * <p>
+ * How to run?
+ * </p>
+ * <code>
+ *     tornado-test -V uk.ac.manchester.tornado.unittests.memory.TestGlobalObjectStateTable
+ * </code>
+ */
+public class TestGlobalObjectStateTable extends TornadoTestBase {
+
+    @Test
+    public void testSameObject() {
+        GlobalObjectStateTable table = new GlobalObjectStateTable();
+        float[] array = new float[16];
+        GlobalObjectState state = table.resolve(array);
+        assertSame(state, table.resolve(array));
+        assertEquals(1, table.size());
+    }
+
+    @Test
+    public void testEqualObjectsAreDistinct() {
+        GlobalObjectStateTable table = new GlobalObjectStateTable();
+        // Two different objects that are equal must not share state
+        String a = new String("tornado");
+        String b = new String("tornado");
+        assertNotSame(table.resolve(a), table.resolve(b));
+        assertEquals(2, table.size());
+    }
+
+    @Test
+    public void testClear() {
+        GlobalObjectStateTable table = new GlobalObjectStateTable();
+        int[] array = new int[16];
+        GlobalObjectState state = table.resolve(array);
+        table.clear();
+        assertEquals(0, table.size());
+        assertNotSame(state, table.resolve(array));
+    }
+
+    @Test
+    public void testConcurrentResolve() throws InterruptedException {
+        GlobalObjectStateTable table = new GlobalObjectStateTable();
+        final int[] array = new int[16];
+        final Set<GlobalObjectState> states = ConcurrentHashMap.newKeySet();
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    states.add(table.resolve(array));
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(1, states.size());
+        assertEquals(1, table.size());
+    }
+}
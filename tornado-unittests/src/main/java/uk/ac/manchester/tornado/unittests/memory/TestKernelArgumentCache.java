@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2023, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.unittests.memory;
+
+import static org.junit.Assert.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.drivers.common.KernelArgumentCache;
+import uk.ac.manchester.tornado.drivers.common.KernelArgumentSetter;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+/**
+ * Tests for the snapshot of kernel arguments. It uses a kernel that does not
+ * set native arguments, but records the slots that are set.
+ *
+ * <p>
+ * How to run?
+ * </p>
+ * <code>
+ *     tornado-test -V uk.ac.manchester.tornado.unittests.memory.TestKernelArgumentCache
+ * </code>
+ */
+public class TestKernelArgumentCache extends TornadoTestBase {
+
+    private static class RecordingKernel implements KernelArgumentSetter {
+        private final List<Integer> boundSlots = new ArrayList<>();
+        private final List<Integer> boundSizes = new ArrayList<>();
+
+        @Override
+        public void setArg(int index, ByteBuffer buffer) {
+            boundSlots.add(index);
+            boundSizes.add(buffer.position());
+        }
+
+        @Override
+        public void setLocalRegion(int index, long size) {
+            boundSlots.add(index);
+        }
+
+        @Override
+        public void setArgUnused(int index) {
+            boundSlots.add(index);
+        }
+    }
+
+    private final ByteBuffer buffer = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+
+    private void launch(KernelArgumentCache cache, long kernelContext, int value, long localSize) {
+        buffer.clear();
+        buffer.putLong(kernelContext);
+        cache.setArg(0, buffer);
+        if (localSize > 0) {
+            cache.setLocalRegion(1, localSize);
+        } else {
+            cache.setArgUnused(1);
+        }
+        buffer.clear();
+        buffer.putInt(value);
+        cache.setArg(2, buffer);
+    }
+
+    @Test
+    public void testUnchangedArgumentsAreNotSet() {
+        RecordingKernel kernel = new RecordingKernel();
+        KernelArgumentCache cache = new KernelArgumentCache(kernel);
+        cache.validate(0);
+
+        launch(cache, 0x1000, 42, 0);
+        launch(cache, 0x1000, 42, 0);
+        launch(cache, 0x1000, 42, 0);
+
+        assertEquals(List.of(0, 1, 2), kernel.boundSlots);
+        assertEquals(3, cache.getNumBinds());
+        assertEquals(6, cache.getNumSkipped());
+    }
+
+    @Test
+    public void testOnlyChangedSlotsAreSet() {
+        RecordingKernel kernel = new RecordingKernel();
+        KernelArgumentCache cache = new KernelArgumentCache(kernel);
+        cache.validate(0);
+
+        launch(cache, 0x1000, 42, 0);
+        kernel.boundSlots.clear();
+
+        launch(cache, 0x1000, 43, 0);
+        assertEquals(List.of(2), kernel.boundSlots);
+        kernel.boundSlots.clear();
+
+        launch(cache, 0x1000, 43, 256);
+        assertEquals(List.of(1), kernel.boundSlots);
+        kernel.boundSlots.clear();
+
+        launch(cache, 0x1000, 43, 512);
+        assertEquals(List.of(1), kernel.boundSlots);
+        kernel.boundSlots.clear();
+
+        launch(cache, 0x2000, 43, 0);
+        assertEquals(List.of(0, 1), kernel.boundSlots);
+    }
+
+    @Test
+    public void testValueLengthIsCompared() {
+        RecordingKernel kernel = new RecordingKernel();
+        KernelArgumentCache cache = new KernelArgumentCache(kernel);
+
+        buffer.clear();
+        buffer.putInt(0);
+        cache.setArg(0, buffer);
+        buffer.clear();
+        buffer.putLong(0);
+        cache.setArg(0, buffer);
+
+        // Same leading bytes, but a different argument size
+        assertEquals(List.of(0, 0), kernel.boundSlots);
+    }
+
+    @Test
+    public void testInvalidationOnBufferRelease() {
+        RecordingKernel kernel = new RecordingKernel();
+        KernelArgumentCache cache = new KernelArgumentCache(kernel);
+        cache.validate(0);
+        launch(cache, 0x1000, 42, 0);
+
+        // No buffer released: nothing is set
+        cache.validate(0);
+        launch(cache, 0x1000, 42, 0);
+        assertEquals(3, kernel.boundSlots.size());
+
+        // A released buffer handle can be reused by a new allocation
+        cache.validate(1);
+        launch(cache, 0x1000, 42, 0);
+        assertEquals(6, kernel.boundSlots.size());
+    }
+
+    @Test
+    public void testExplicitInvalidation() {
+        RecordingKernel kernel = new RecordingKernel();
+        KernelArgumentCache cache = new KernelArgumentCache(kernel);
+        launch(cache, 0x1000, 42, 0);
+        cache.invalidate();
+        launch(cache, 0x1000, 42, 0);
+        assertEquals(List.of(0, 1, 2, 0, 1, 2), kernel.boundSlots);
+    }
+
+    @Test
+    public void testConstantDataChanges() {
+        RecordingKernel kernel = new RecordingKernel();
+        KernelArgumentCache cache = new KernelArgumentCache(kernel);
+        cache.validate(0);
+
+        // The constant data is passed as a new array in each launch
+        cache.setArg(0, KernelArgumentCache.wrap(new byte[] { 1, 2, 3, 4, 5, 6 }));
+        cache.setArg(0, KernelArgumentCache.wrap(new byte[] { 1, 2, 3, 4, 5, 6 }));
+        assertEquals(List.of(0), kernel.boundSlots);
+        assertEquals(List.of(6), kernel.boundSizes);
+
+        // Updated constants are set again
+        cache.setArg(0, KernelArgumentCache.wrap(new byte[] { 1, 2, 3, 4, 5, 7 }));
+        assertEquals(List.of(0, 0), kernel.boundSlots);
+        assertEquals(List.of(6, 6), kernel.boundSizes);
+        assertEquals(1, cache.getNumSkipped());
+    }
+
+    @Test
+    public void testManySlots() {
+        RecordingKernel kernel = new RecordingKernel();
+        KernelArgumentCache cache = new KernelArgumentCache(kernel);
+        final int numSlots = 100;
+        for (int run = 0; run < 2; run++) {
+            for (int i = 0; i < numSlots; i++) {
+                buffer.clear();
+                buffer.putInt(i);
+                cache.setArg(i, buffer);
+            }
+        }
+        assertEquals(numSlots, kernel.boundSlots.size());
+        assertEquals(numSlots, cache.getNumSkipped());
+    }
+}
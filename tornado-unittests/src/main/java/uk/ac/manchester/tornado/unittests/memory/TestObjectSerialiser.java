@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2023, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.unittests.memory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.exceptions.TornadoInternalError;
+import uk.ac.manchester.tornado.drivers.common.mm.ObjectSerialiser;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+/**
+ * Tests for the serialisation of the primitive fields of task parameters into
+ * device buffers.
+ *
+ * <p>
+ * How to run?
+ * </p>
+ * <code>
+ *     tornado-test -V uk.ac.manchester.tornado.unittests.memory.TestObjectSerialiser
+ * </code>
+ */
+public class TestObjectSerialiser extends TornadoTestBase {
+
+    private static class Base {
+        protected int base;
+    }
+
+    private static class Parameters extends Base {
+        private final long seed;
+        private float alpha;
+        private double beta;
+        private short s;
+        private char c;
+        private byte b;
+        private boolean flag;
+        private int[] data;
+
+        Parameters(long seed) {
+            this.seed = seed;
+        }
+    }
+
+    private static final String[] FIELD_NAMES = { "base", "seed", "alpha", "beta", "s", "c", "b", "flag", "data" };
+
+    private static Field[] getFields() throws NoSuchFieldException {
+        Field[] fields = new Field[FIELD_NAMES.length];
+        for (int i = 0; i < fields.length; i++) {
+            Class<?> declaringClass = i == 0 ? Base.class : Parameters.class;
+            fields[i] = declaringClass.getDeclaredField(FIELD_NAMES[i]);
+            fields[i].setAccessible(true);
+        }
+        return fields;
+    }
+
+    private static int[] getOffsets() {
+        return getOffsets(16);
+    }
+
+    private static int[] getOffsets(int headerSize) {
+        // One 8-byte slot per field, after the header
+        int[] offsets = new int[FIELD_NAMES.length];
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = headerSize + 8 * i;
+        }
+        return offsets;
+    }
+
+    @Test
+    public void testRoundTrip() throws NoSuchFieldException {
+        ObjectSerialiser serialiser = ObjectSerialiser.forClass(Parameters.class, getFields(), getOffsets());
+        ByteBuffer buffer = ByteBuffer.allocate(16 + 8 * FIELD_NAMES.length).order(ByteOrder.LITTLE_ENDIAN);
+
+        Parameters source = new Parameters(123456789012L);
+        source.base = -7;
+        source.alpha = 1.5f;
+        source.beta = -2.25;
+        source.s = (short) -300;
+        source.c = 'T';
+        source.b = (byte) 0x7f;
+        source.flag = true;
+        source.data = new int[4];
+        serialiser.serialise(buffer, source);
+
+        assertEquals(-7, buffer.getInt(16));
+        assertEquals(123456789012L, buffer.getLong(24));
+        assertEquals(1.5f, buffer.getFloat(32), 0.0f);
+        assertEquals(1, buffer.get(72));
+
+        Parameters target = new Parameters(0);
+        int[] data = new int[8];
+        target.data = data;
+        serialiser.deserialise(buffer, target);
+
+        assertEquals(source.base, target.base);
+        assertEquals(source.seed, target.seed);
+        assertEquals(source.alpha, target.alpha, 0.0f);
+        assertEquals(source.beta, target.beta, 0.0);
+        assertEquals(source.s, target.s);
+        assertEquals(source.c, target.c);
+        assertEquals(source.b, target.b);
+        assertEquals(source.flag, target.flag);
+        // Reference fields are written by the object wrappers of each backend
+        assertSame(data, target.data);
+    }
+
+    @Test
+    public void testSerialiserIsCached() throws NoSuchFieldException {
+        ObjectSerialiser first = ObjectSerialiser.forClass(Parameters.class, getFields(), getOffsets());
+        ObjectSerialiser second = ObjectSerialiser.forClass(Parameters.class, getFields(), getOffsets());
+        assertSame(first, second);
+    }
+
+    @Test
+    public void testSerialiserPerLayout() throws NoSuchFieldException {
+        ObjectSerialiser first = ObjectSerialiser.forClass(Parameters.class, getFields(), getOffsets(16));
+        ObjectSerialiser second = ObjectSerialiser.forClass(Parameters.class, getFields(), getOffsets(24));
+        assertNotSame(first, second);
+        assertSame(second, ObjectSerialiser.forClass(Parameters.class, getFields(), getOffsets(24)));
+
+        // Each serialiser writes at its own offsets
+        Parameters source = new Parameters(42L);
+        source.base = -7;
+        ByteBuffer buffer = ByteBuffer.allocate(24 + 8 * FIELD_NAMES.length).order(ByteOrder.LITTLE_ENDIAN);
+        second.serialise(buffer, source);
+        assertEquals(-7, buffer.getInt(24));
+        assertEquals(42L, buffer.getLong(32));
+        assertEquals(0, buffer.getInt(16));
+    }
+
+    @Test(expected = TornadoInternalError.class)
+    public void testOffsetsMustMatchFields() throws NoSuchFieldException {
+        ObjectSerialiser.forClass(Parameters.class, getFields(), new int[] { 16, 24 });
+    }
+}
@@ -18,6 +18,7 @@
 package uk.ac.manchester.tornado.unittests.profiler;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertTrue;
 
 import java.util.Arrays;
@@ -31,7 +32,10 @@ import uk.ac.manchester.tornado.api.TornadoExecutionResult;
 import uk.ac.manchester.tornado.api.enums.DataTransferMode;
 import uk.ac.manchester.tornado.api.enums.ProfilerMode;
 import uk.ac.manchester.tornado.api.enums.TornadoVMBackendType;
+import uk.ac.manchester.tornado.api.profiler.ProfilerHistogram;
+import uk.ac.manchester.tornado.api.profiler.ProfilerType;
 import uk.ac.manchester.tornado.api.runtime.TornadoRuntime;
+import uk.ac.manchester.tornado.runtime.profiler.TimeProfiler;
 import uk.ac.manchester.tornado.unittests.TestHello;
 import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
 
@@ -247,4 +251,80 @@ public class TestProfiler extends TornadoTestBase {
         executionPlan.withoutProfiler().execute();
 
     }
+
+    @Test
+    public void testHistogramPercentiles() {
+        ProfilerHistogram histogram = new ProfilerHistogram();
+        for (long i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1000000, histogram.getMax());
+        // Values are bucketed with a relative error below 1/64
+        assertEquals(500000, histogram.getP50(), 500000 / 64.0);
+        assertEquals(990000, histogram.getP99(), 990000 / 64.0);
+
+        ProfilerHistogram merged = new ProfilerHistogram();
+        merged.add(histogram);
+        merged.add(histogram);
+        assertEquals(2000, merged.getCount());
+        assertEquals(histogram.getP50(), merged.getP50());
+    }
+
+    @Test
+    public void testProfilerTaskSlots() {
+        TimeProfiler profiler = new TimeProfiler();
+        assertEquals(TimeProfiler.NO_TASK_SLOT, profiler.registerTask(TimeProfiler.NO_TASK_NAME));
+
+        int slot0 = profiler.registerTask("s0.t0");
+        int slot1 = profiler.registerTask("s0.t1");
+        assertNotEquals(slot0, slot1);
+        assertEquals(slot0, profiler.registerTask("s0.t0"));
+
+        // Values set through the slot are reported under the name of the task
+        profiler.setTaskTimer(ProfilerType.TASK_KERNEL_TIME, slot1, 42);
+        assertEquals(42, profiler.getTaskTimer(ProfilerType.TASK_KERNEL_TIME, "s0.t1"));
+        assertEquals(0, profiler.getTaskTimer(ProfilerType.TASK_KERNEL_TIME, "s0.t0"));
+
+        profiler.setTaskTimer(ProfilerType.TASK_KERNEL_TIME, "s0.t0", 7);
+        profiler.addValueToMetric(ProfilerType.TOTAL_COPY_IN_SIZE_BYTES, slot0, 100);
+        profiler.addValueToMetric(ProfilerType.TOTAL_COPY_IN_SIZE_BYTES, "s0.t0", 28);
+        assertEquals(7, profiler.getTaskTimer(ProfilerType.TASK_KERNEL_TIME, "s0.t0"));
+        assertTrue(profiler.createJson(new StringBuffer(), "s0").contains("\"" + ProfilerType.TOTAL_COPY_IN_SIZE_BYTES + "\": \"128\""));
+    }
+
+    @Test
+    public void testProfilerHistograms() {
+        int numElements = 16;
+        int numExecutions = 10;
+        int[] a = new int[numElements];
+        int[] b = new int[numElements];
+        int[] c = new int[numElements];
+
+        Arrays.fill(a, 1);
+        Arrays.fill(b, 2);
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.FIRST_EXECUTION, a, b) //
+                .task("t0", TestHello::add, a, b, c) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, c);
+
+        ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
+        TornadoExecutionPlan executionPlan = new TornadoExecutionPlan(immutableTaskGraph);
+        executionPlan.withProfiler(ProfilerMode.SILENT);
+
+        TornadoExecutionResult executionResult = null;
+        for (int i = 0; i < numExecutions; i++) {
+            executionResult = executionPlan.execute();
+        }
+
+        ProfilerHistogram totalTime = executionResult.getProfilerResult().getTotalTimeHistogram();
+        assertEquals(numExecutions, totalTime.getCount());
+        assertTrue(totalTime.getP50() > 0);
+        assertTrue(totalTime.getP50() <= totalTime.getP99());
+        assertTrue(totalTime.getP99() <= totalTime.getMax());
+        assertTrue(executionResult.getProfilerResult().getDeviceReadTimeHistogram().getCount() > 0);
+
+        executionPlan.withoutProfiler();
+    }
 }
@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) 2023, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.unittests.tasks;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.DataParallelSplit;
+import uk.ac.manchester.tornado.api.ImmutableTaskGraph;
+import uk.ac.manchester.tornado.api.TaskGraph;
+import uk.ac.manchester.tornado.api.TornadoExecutionPlan;
+import uk.ac.manchester.tornado.api.TornadoDriver;
+import uk.ac.manchester.tornado.api.annotations.Parallel;
+import uk.ac.manchester.tornado.api.data.nativetypes.FloatArray;
+import uk.ac.manchester.tornado.api.enums.DataTransferMode;
+import uk.ac.manchester.tornado.api.exceptions.TornadoRuntimeException;
+import uk.ac.manchester.tornado.api.runtime.TornadoRuntime;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+import uk.ac.manchester.tornado.unittests.common.TornadoVMMultiDeviceNotSupported;
+
+/**
+ * Tests for splitting the iteration space of a single task across two devices
+ * with {@link DataParallelSplit}.
+ *
+ * <p>
+ * How to run?
+ * </p>
+ * <code>
+ *     tornado-test -V uk.ac.manchester.tornado.unittests.tasks.TestDataParallelSplit
+ * </code>
+ */
+public class TestDataParallelSplit extends TornadoTestBase {
+
+    private static final int NUM_ELEMENTS = 8192 + 123;
+
+    public static void vectorAdd(float[] a, float[] b, float[] c, float[] coefficients) {
+        for (@Parallel int i = 0; i < c.length; i++) {
+            c[i] = a[i] + b[i] * coefficients[0];
+        }
+    }
+
+    public static void vectorAddNative(FloatArray a, FloatArray b, FloatArray c) {
+        for (@Parallel int i = 0; i < c.getSize(); i++) {
+            c.set(i, a.get(i) + b.get(i));
+        }
+    }
+
+    public static void blur(float[] input, float[] output) {
+        for (@Parallel int i = 1; i < input.length - 1; i++) {
+            output[i] = (input[i - 1] + input[i] + input[i + 1]) / 3;
+        }
+    }
+
+    @BeforeClass
+    public static void setUpBeforeClass() {
+        if (TornadoRuntime.getTornadoRuntime().getDriver(0).getDeviceCount() < 2) {
+            throw new TornadoVMMultiDeviceNotSupported("This test needs at least 2 devices enabled");
+        }
+    }
+
+    private static DataParallelSplit splitOnTwoDevices() {
+        TornadoDriver driver = TornadoRuntime.getTornadoRuntime().getDriver(0);
+        return new DataParallelSplit(driver.getDevice(0), driver.getDevice(1));
+    }
+
+    @Test
+    public void testSplitWithRatios() {
+        float[] a = new float[NUM_ELEMENTS];
+        float[] b = new float[NUM_ELEMENTS];
+        float[] c = new float[NUM_ELEMENTS];
+        float[] coefficients = new float[] { 2.0f };
+
+        IntStream.range(0, NUM_ELEMENTS).forEach(i -> {
+            a[i] = i;
+            b[i] = NUM_ELEMENTS - i;
+        });
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.FIRST_EXECUTION, a, b, coefficients) //
+                .task("t0", TestDataParallelSplit::vectorAdd, a, b, c, coefficients) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, c);
+
+        ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
+        TornadoExecutionPlan executionPlan = new TornadoExecutionPlan(immutableTaskGraph);
+        executionPlan.withDataParallelSplit(splitOnTwoDevices().withRatios(3, 1)).execute();
+
+        for (int i = 0; i < NUM_ELEMENTS; i++) {
+            assertEquals(a[i] + b[i] * 2.0f, c[i], 0.01f);
+        }
+    }
+
+    @Test
+    public void testSplitNativeArrays() {
+        FloatArray a = new FloatArray(NUM_ELEMENTS);
+        FloatArray b = new FloatArray(NUM_ELEMENTS);
+        FloatArray c = new FloatArray(NUM_ELEMENTS);
+
+        for (int i = 0; i < NUM_ELEMENTS; i++) {
+            a.set(i, i);
+            b.set(i, 2 * i);
+        }
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.FIRST_EXECUTION, a, b) //
+                .task("t0", TestDataParallelSplit::vectorAddNative, a, b, c) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, c);
+
+        ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
+        TornadoExecutionPlan executionPlan = new TornadoExecutionPlan(immutableTaskGraph);
+        executionPlan.withDataParallelSplit(splitOnTwoDevices()).execute();
+
+        for (int i = 0; i < NUM_ELEMENTS; i++) {
+            assertEquals(3 * i, c.get(i), 0.01f);
+        }
+    }
+
+    @Test
+    public void testSplitStencilWithHalo() {
+        float[] input = new float[NUM_ELEMENTS];
+        float[] output = new float[NUM_ELEMENTS];
+
+        IntStream.range(0, NUM_ELEMENTS).forEach(i -> input[i] = i % 17);
+        Arrays.fill(output, -1.0f);
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.FIRST_EXECUTION, input, output) //
+                .task("t0", TestDataParallelSplit::blur, input, output) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, output);
+
+        ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
+        TornadoExecutionPlan executionPlan = new TornadoExecutionPlan(immutableTaskGraph);
+        executionPlan.withDataParallelSplit(splitOnTwoDevices().withRatios(1, 2).withHalo(1)).execute();
+
+        assertEquals(-1.0f, output[0], 0.0f);
+        assertEquals(-1.0f, output[NUM_ELEMENTS - 1], 0.0f);
+        for (int i = 1; i < NUM_ELEMENTS - 1; i++) {
+            assertEquals((input[i - 1] + input[i] + input[i + 1]) / 3, output[i], 0.01f);
+        }
+    }
+
+    @Test
+    public void testSplitAdaptiveRatios() {
+        final int numExecutions = 8;
+        float[] a = new float[NUM_ELEMENTS];
+        float[] b = new float[NUM_ELEMENTS];
+        float[] c = new float[NUM_ELEMENTS];
+        float[] coefficients = new float[] { 1.0f };
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.EVERY_EXECUTION, a, b, coefficients) //
+                .task("t0", TestDataParallelSplit::vectorAdd, a, b, c, coefficients) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, c);
+
+        ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
+        TornadoExecutionPlan executionPlan = new TornadoExecutionPlan(immutableTaskGraph);
+        DataParallelSplit split = splitOnTwoDevices().withAdaptiveRatios();
+        executionPlan.withDataParallelSplit(split);
+
+        // Rebalance on any difference of throughput, so the ratios always move
+        System.setProperty("tornado.split.rebalance.threshold", "0");
+        try {
+            long[] firstSlices = null;
+            for (int execution = 0; execution < numExecutions; execution++) {
+                final int offset = execution;
+                IntStream.range(0, NUM_ELEMENTS).forEach(i -> {
+                    a[i] = i + offset;
+                    b[i] = offset;
+                });
+
+                executionPlan.execute();
+                if (firstSlices == null) {
+                    firstSlices = split.getSliceSizes();
+                }
+
+                for (int i = 0; i < NUM_ELEMENTS; i++) {
+                    assertEquals(i + 2 * offset, c[i], 0.01f);
+                }
+            }
+
+            // The ratios and the slices have been rebalanced
+            assertFalse(Arrays.equals(split.getRatios(), split.getCurrentRatios()));
+            assertFalse(Arrays.equals(firstSlices, split.getSliceSizes()));
+            assertEquals(NUM_ELEMENTS, Arrays.stream(split.getSliceSizes()).sum());
+        } finally {
+            System.clearProperty("tornado.split.rebalance.threshold");
+        }
+    }
+
+    @Test(expected = TornadoRuntimeException.class)
+    public void testSplitRequiresSingleTask() {
+        float[] a = new float[NUM_ELEMENTS];
+        float[] b = new float[NUM_ELEMENTS];
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.FIRST_EXECUTION, a) //
+                .task("t0", TestDataParallelSplit::blur, a, b) //
+                .task("t1", TestDataParallelSplit::blur, b, a) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, a);
+
+        new TornadoExecutionPlan(taskGraph.snapshot()).withDataParallelSplit(splitOnTwoDevices());
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2023, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.unittests.tasks;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.runtime.common.DevicePartition;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+/**
+ * Tests for the slices computed by {@link DevicePartition} for a data-parallel
+ * split. They do not need any device.
+ *
+ * <p>
+ * How to run?
+ * </p>
+ * <code>
+ *     tornado-test -V uk.ac.manchester.tornado.unittests.tasks.TestDevicePartition
+ * </code>
+ */
+public class TestDevicePartition extends TornadoTestBase {
+
+    private static final int FLOAT_SIZE = 4;
+    private static final int DOUBLE_SIZE = 8;
+    private static final int BROADCAST = 0;
+
+    private static DevicePartition partition(long[] ownedElements, int halo, int... elementSizes) {
+        long[] firstElements = new long[ownedElements.length];
+        for (int i = 1; i < ownedElements.length; i++) {
+            firstElements[i] = firstElements[i - 1] + ownedElements[i - 1];
+        }
+        return new DevicePartition(firstElements, ownedElements, halo, elementSizes);
+    }
+
+    @Test
+    public void testSplitEvenly() {
+        assertArrayEquals(new long[] { 500, 500 }, DevicePartition.splitIterationSpace(1000, new float[] { 1, 1 }));
+    }
+
+    @Test
+    public void testSplitWithRatios() {
+        // 766.5 and 255.5 elements: the tie of the remainders goes to the first device
+        assertArrayEquals(new long[] { 768, 256 }, DevicePartition.splitIterationSpace(1024, new float[] { 3, 1 }));
+    }
+
+    @Test
+    public void testSplitLargestRemainder() {
+        // 7 elements are shared out after the guaranteed one per device. 2.33 each,
+        // and the remaining element goes to the first of the largest remainders
+        assertArrayEquals(new long[] { 4, 3, 3 }, DevicePartition.splitIterationSpace(10, new float[] { 1, 1, 1 }));
+        // 0.6 * 97 = 58.2, 0.3 * 97 = 29.1 and 0.1 * 97 = 9.7: the third device has
+        // the largest remainder and receives the last element
+        assertArrayEquals(new long[] { 59, 30, 11 }, DevicePartition.splitIterationSpace(100, new float[] { 6, 3, 1 }));
+    }
+
+    @Test
+    public void testSplitEveryDeviceGetsOneElement() {
+        long[] elements = DevicePartition.splitIterationSpace(4, new float[] { 1, 1000 });
+        assertArrayEquals(new long[] { 1, 3 }, elements);
+    }
+
+    @Test
+    public void testSplitCoversIterationSpace() {
+        final float[] ratios = { 0.37f, 1.9f, 0.05f, 2.71f };
+        for (long numElements : new long[] { 4, 17, 1000, 8192 + 123, (1L << 31) + 7 }) {
+            long[] elements = DevicePartition.splitIterationSpace(numElements, ratios);
+            assertEquals(numElements, Arrays.stream(elements).sum());
+            assertTrue(Arrays.stream(elements).allMatch(e -> e >= 1));
+        }
+    }
+
+    @Test
+    public void testOffsetsWithoutHalo() {
+        DevicePartition partition = partition(new long[] { 768, 256 }, 0, FLOAT_SIZE, BROADCAST, DOUBLE_SIZE);
+
+        assertFalse(partition.hasHalo(0));
+        assertFalse(partition.hasHalo(1));
+        assertArrayEquals(new long[] { 0, 768 }, partition.getSliceOffsets());
+        assertArrayEquals(new long[] { 768, 256 }, partition.getSliceSizes());
+
+        assertEquals(0, partition.getOffset(0, 0));
+        assertEquals(768 * FLOAT_SIZE, partition.getSliceSize(0, 0));
+        assertEquals(768 * FLOAT_SIZE, partition.getOffset(0, 1));
+        assertEquals(256 * FLOAT_SIZE, partition.getSliceSize(0, 1));
+        assertEquals(768 * DOUBLE_SIZE, partition.getOffset(2, 1));
+        assertEquals(256 * DOUBLE_SIZE, partition.getSliceSize(2, 1));
+
+        // Broadcast objects are copied whole
+        assertFalse(partition.isPartitioned(1));
+        assertEquals(0, partition.getOffset(1, 1));
+        assertEquals(0, partition.getSliceSize(1, 1));
+    }
+
+    @Test
+    public void testOffsetsWithHalo() {
+        DevicePartition partition = partition(new long[] { 768, 256 }, 2, FLOAT_SIZE, BROADCAST, DOUBLE_SIZE);
+
+        // The halo is clipped at the boundaries of the arrays
+        assertEquals(0, partition.getLeftHalo(0));
+        assertEquals(2, partition.getLeftHalo(1));
+        assertEquals(770, partition.getNumThreads(0));
+        assertEquals(258, partition.getNumThreads(1));
+        assertTrue(partition.hasHalo(0));
+        assertTrue(partition.hasHalo(1));
+
+        assertArrayEquals(new long[] { 0, 766 }, partition.getSliceOffsets());
+        assertArrayEquals(new long[] { 770, 258 }, partition.getSliceSizes());
+        assertEquals(0, partition.getOffset(0, 0));
+        assertEquals(770 * FLOAT_SIZE, partition.getSliceSize(0, 0));
+        assertEquals(766 * FLOAT_SIZE, partition.getOffset(0, 1));
+        assertEquals(258 * FLOAT_SIZE, partition.getSliceSize(0, 1));
+        assertEquals(766 * DOUBLE_SIZE, partition.getOffset(2, 1));
+        assertEquals(258 * DOUBLE_SIZE, partition.getSliceSize(2, 1));
+
+        // The owned elements do not include the halo
+        assertEquals(768, partition.getFirstElement(1));
+        assertEquals(256, partition.getOwnedElements(1));
+    }
+
+    @Test
+    public void testHaloInTheMiddleDevice() {
+        DevicePartition partition = partition(new long[] { 100, 100, 100 }, 3, FLOAT_SIZE);
+        assertArrayEquals(new long[] { 0, 97, 197 }, partition.getSliceOffsets());
+        assertArrayEquals(new long[] { 103, 106, 103 }, partition.getSliceSizes());
+    }
+
+    @Test
+    public void testRebalanceTowardsThroughput() {
+        DevicePartition partition = partition(new long[] { 500, 500 }, 0, FLOAT_SIZE);
+        float[] ratios = { 1, 1 };
+
+        // The first device is three times faster: the measured shares are 0.75 and
+        // 0.25, and the new ratios move halfway from 0.5
+        float[] newRatios = partition.rebalance(ratios, new double[] { 1.0, 3.0 }, 0.05);
+        assertNotSame(ratios, newRatios);
+        assertArrayEquals(new float[] { 0.625f, 0.375f }, newRatios, 1e-6f);
+    }
+
+    @Test
+    public void testRebalanceBelowThreshold() {
+        DevicePartition partition = partition(new long[] { 500, 500 }, 0, FLOAT_SIZE);
+        float[] ratios = { 1, 1 };
+
+        // A 2% difference in throughput does not change the split
+        assertSame(ratios, partition.rebalance(ratios, new double[] { 1.0, 1.02 }, 0.05));
+        // Without a threshold, any difference changes the split
+        assertNotSame(ratios, partition.rebalance(ratios, new double[] { 1.0, 1.02 }, 0.0));
+    }
+
+    @Test
+    public void testRebalanceWithoutMeasurements() {
+        DevicePartition partition = partition(new long[] { 500, 500 }, 0, FLOAT_SIZE);
+        float[] ratios = { 1, 1 };
+        assertSame(ratios, partition.rebalance(ratios, new double[] { 1.0, 0.0 }, 0.05));
+    }
+
+    @Test
+    public void testSameSlices() {
+        DevicePartition partition = partition(new long[] { 768, 256 }, 0, FLOAT_SIZE);
+        assertTrue(partition.hasSameSlices(partition(new long[] { 768, 256 }, 0, FLOAT_SIZE)));
+        assertFalse(partition.hasSameSlices(partition(new long[] { 512, 512 }, 0, FLOAT_SIZE)));
+        assertFalse(partition.hasSameSlices(partition(new long[] { 768, 256 }, 1, FLOAT_SIZE)));
+        assertFalse(partition.hasSameSlices(null));
+    }
+}
@@ -0,0 +1,237 @@
+/*
+ * Copyright (c) 2023, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.unittests.tasks;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Method;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.annotations.Parallel;
+import uk.ac.manchester.tornado.api.annotations.Reduce;
+import uk.ac.manchester.tornado.runtime.analyzer.ReduceCodeAnalysis.REDUCE_OPERATION;
+import uk.ac.manchester.tornado.runtime.tasks.ParallelJavaFallback;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+/**
+ * Tests for the multi-threaded Java execution of tasks that bail out. The
+ * tests do not need an accelerator.
+ *
+ * <p>
+ * How to run?
+ * </p>
+ * <code>
+ *     tornado-test -V uk.ac.manchester.tornado.unittests.tasks.TestParallelJavaFallback
+ * </code>
+ */
+public class TestParallelJavaFallback extends TornadoTestBase {
+
+    private static final int NUM_PARTITIONS = 4;
+    private static final int CHUNK_SIZE = 16;
+
+    public static void vectorAdd(int[] a, int[] b, int[] c) {
+        for (@Parallel int i = 0; i < c.length; i++) {
+            c[i] = a[i] + b[i];
+        }
+    }
+
+    public static void stridedIncrement(int[] a) {
+        for (@Parallel int i = 3; i < a.length; i += 3) {
+            a[i] += 1;
+        }
+    }
+
+    public static void matrixMultiplication(float[] a, float[] b, float[] c, int size) {
+        for (@Parallel int i = 0; i < size; i++) {
+            for (@Parallel int j = 0; j < size; j++) {
+                float sum = 0.0f;
+                for (int k = 0; k < size; k++) {
+                    sum += a[(i * size) + k] * b[(k * size) + j];
+                }
+                c[(i * size) + j] = sum;
+            }
+        }
+    }
+
+    public static void reductionAdd(int[] input, @Reduce int[] result) {
+        for (@Parallel int i = 0; i < input.length; i++) {
+            result[0] += input[i];
+        }
+    }
+
+    public static void reductionMax(double[] input, @Reduce double[] result) {
+        for (@Parallel int i = 0; i < input.length; i++) {
+            result[0] = Math.max(result[0], input[i]);
+        }
+    }
+
+    public static void reductionWithInitialValue(int[] input, @Reduce int[] result) {
+        result[0] = 10;
+        for (@Parallel int i = 0; i < input.length; i++) {
+            result[0] += input[i];
+        }
+    }
+
+    public static void reductionWithFinalStep(float[] input, @Reduce float[] result) {
+        for (@Parallel int i = 0; i < input.length; i++) {
+            result[0] += input[i] * input[i];
+        }
+        result[0] = (float) Math.sqrt(result[0]);
+    }
+
+    public static void stencil(float[] a, float[] b, int steps) {
+        for (int t = 0; t < steps; t++) {
+            for (@Parallel int i = 1; i < a.length - 1; i++) {
+                b[i] = (a[i - 1] + a[i] + a[i + 1]) / 3.0f;
+            }
+            for (int i = 1; i < a.length - 1; i++) {
+                a[i] = b[i];
+            }
+        }
+    }
+
+    public static void sequential(int[] a) {
+        for (int i = 1; i < a.length; i++) {
+            a[i] += a[i - 1];
+        }
+    }
+
+    private static Method getMethod(String name) {
+        for (Method method : TestParallelJavaFallback.class.getMethods()) {
+            if (method.getName().equals(name)) {
+                return method;
+            }
+        }
+        throw new IllegalArgumentException(name);
+    }
+
+    @Test
+    public void testVectorAdd() {
+        final int size = 1000;
+        int[] a = IntStream.range(0, size).toArray();
+        int[] b = IntStream.range(0, size).map(i -> 2 * i).toArray();
+        int[] c = new int[size];
+
+        assertTrue(ParallelJavaFallback.execute(getMethod("vectorAdd"), new REDUCE_OPERATION[3], new Object[] { a, b, c }, NUM_PARTITIONS, CHUNK_SIZE));
+
+        for (int i = 0; i < size; i++) {
+            assertEquals(3 * i, c[i]);
+        }
+    }
+
+    @Test
+    public void testStridedLoop() {
+        final int size = 997;
+        int[] a = new int[size];
+        int[] expected = new int[size];
+        stridedIncrement(expected);
+
+        assertTrue(ParallelJavaFallback.execute(getMethod("stridedIncrement"), new REDUCE_OPERATION[1], new Object[] { a }, NUM_PARTITIONS, 5));
+
+        assertArrayEquals(expected, a);
+    }
+
+    @Test
+    public void testMatrixMultiplication() {
+        final int size = 67;
+        float[] a = new float[size * size];
+        float[] b = new float[size * size];
+        float[] c = new float[size * size];
+        float[] expected = new float[size * size];
+        Random r = new Random(7);
+        for (int i = 0; i < a.length; i++) {
+            a[i] = r.nextFloat();
+            b[i] = r.nextFloat();
+        }
+        matrixMultiplication(a, b, expected, size);
+
+        assertTrue(ParallelJavaFallback.execute(getMethod("matrixMultiplication"), new REDUCE_OPERATION[4], new Object[] { a, b, c, size }, NUM_PARTITIONS, 3));
+
+        assertArrayEquals(expected, c, 0.0f);
+    }
+
+    @Test
+    public void testReductionAdd() {
+        final int size = 4096;
+        int[] input = IntStream.range(0, size).toArray();
+        int[] result = new int[1];
+
+        REDUCE_OPERATION[] reductions = new REDUCE_OPERATION[] { null, REDUCE_OPERATION.SUM };
+        assertTrue(ParallelJavaFallback.execute(getMethod("reductionAdd"), reductions, new Object[] { input, result }, NUM_PARTITIONS, CHUNK_SIZE));
+
+        assertEquals(IntStream.range(0, size).sum(), result[0]);
+    }
+
+    @Test
+    public void testReductionMax() {
+        final int size = 4096;
+        double[] input = new Random(11).doubles(size, -100.0, 100.0).toArray();
+        double[] result = new double[] { Double.NEGATIVE_INFINITY };
+        double[] expected = new double[] { Double.NEGATIVE_INFINITY };
+        reductionMax(input, expected);
+
+        REDUCE_OPERATION[] reductions = new REDUCE_OPERATION[] { null, REDUCE_OPERATION.MAX };
+        assertTrue(ParallelJavaFallback.execute(getMethod("reductionMax"), reductions, new Object[] { input, result }, NUM_PARTITIONS, CHUNK_SIZE));
+
+        assertEquals(expected[0], result[0], 0.0);
+    }
+
+    @Test
+    public void testNoParallelLoop() {
+        int[] a = new int[] { 1, 2, 3 };
+        assertFalse(ParallelJavaFallback.execute(getMethod("sequential"), new REDUCE_OPERATION[1], new Object[] { a }, NUM_PARTITIONS, CHUNK_SIZE));
+        // The method has not been executed
+        assertArrayEquals(new int[] { 1, 2, 3 }, a);
+    }
+
+    /**
+     * The code before and after the parallel loop would run once per partition,
+     * so the methods run sequentially.
+     */
+    @Test
+    public void testSideEffectsOutsideTheLoop() {
+        int[] input = IntStream.range(0, 1024).toArray();
+        int[] intResult = new int[1];
+        REDUCE_OPERATION[] reductions = new REDUCE_OPERATION[] { null, REDUCE_OPERATION.SUM };
+        assertFalse(ParallelJavaFallback.execute(getMethod("reductionWithInitialValue"), reductions, new Object[] { input, intResult }, NUM_PARTITIONS, CHUNK_SIZE));
+        assertEquals(0, intResult[0]);
+
+        float[] floatInput = new float[] { 3.0f, 4.0f };
+        float[] floatResult = new float[1];
+        assertFalse(ParallelJavaFallback.execute(getMethod("reductionWithFinalStep"), reductions, new Object[] { floatInput, floatResult }, NUM_PARTITIONS, 1));
+        assertEquals(0.0f, floatResult[0], 0.0f);
+    }
+
+    /**
+     * The partitions would not synchronise between the time steps, so the method
+     * runs sequentially.
+     */
+    @Test
+    public void testParallelLoopInsideSequentialLoop() {
+        float[] a = new float[] { 0, 0, 9, 0, 0 };
+        float[] b = new float[a.length];
+        assertFalse(ParallelJavaFallback.execute(getMethod("stencil"), new REDUCE_OPERATION[3], new Object[] { a, b, 4 }, NUM_PARTITIONS, 1));
+        assertArrayEquals(new float[] { 0, 0, 9, 0, 0 }, a, 0.0f);
+    }
+}
@@ -0,0 +1,284 @@
+/*
+ * Copyright (c) 2023, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.unittests.tasks;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.After;
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.ImmutableTaskGraph;
+import uk.ac.manchester.tornado.api.TaskGraph;
+import uk.ac.manchester.tornado.api.TornadoExecutionPlan;
+import uk.ac.manchester.tornado.api.TornadoExecutionResult;
+import uk.ac.manchester.tornado.api.annotations.Parallel;
+import uk.ac.manchester.tornado.api.data.nativetypes.FloatArray;
+import uk.ac.manchester.tornado.api.enums.DataTransferMode;
+import uk.ac.manchester.tornado.api.enums.ProfilerMode;
+import uk.ac.manchester.tornado.api.enums.TornadoVMBackendType;
+import uk.ac.manchester.tornado.api.profiler.ProfilerType;
+import uk.ac.manchester.tornado.api.runtime.TornadoRuntime;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+/**
+ * Tests for the fusion of chains of element-wise tasks. The results must be the
+ * same as the ones of the tasks executed one after the other, including the
+ * chains that cannot be fused. The profiler log shows which tasks launched a
+ * kernel and the bytes transferred: a fused chain launches a single kernel
+ * (with the id of its first task), and its intermediate arrays are only
+ * transferred if they are listed in transferToHost. Fusion is only done for
+ * OpenCL devices.
+ *
+ * <p>
+ * How to run?
+ * </p>
+ * <code>
+ *     tornado-test -V uk.ac.manchester.tornado.unittests.tasks.TestTaskFusion
+ * </code>
+ */
+public class TestTaskFusion extends TornadoTestBase {
+
+    private static final Pattern TASK_KERNEL_TIME = Pattern.compile("\"([^\"]+)\": \\{[^{}]*\"" + ProfilerType.TASK_KERNEL_TIME + "\": \"\\d+\"");
+
+    public static void scale(float[] a, float[] b, float alpha) {
+        for (@Parallel int i = 0; i < a.length; i++) {
+            b[i] = alpha * a[i];
+        }
+    }
+
+    public static void add(float[] a, float[] b, float[] c) {
+        for (@Parallel int i = 0; i < c.length; i++) {
+            c[i] = a[i] + b[i];
+        }
+    }
+
+    public static void clamp(float[] a, float[] b, float min, float max) {
+        for (@Parallel int i = 0; i < a.length; i++) {
+            b[i] = Math.min(Math.max(a[i], min), max);
+        }
+    }
+
+    public static void reverse(float[] a, float[] b) {
+        for (@Parallel int i = 0; i < a.length; i++) {
+            b[i] = a[a.length - 1 - i];
+        }
+    }
+
+    public static void scaleNative(FloatArray a, FloatArray b, float alpha) {
+        for (@Parallel int i = 0; i < a.getSize(); i++) {
+            b.set(i, alpha * a.get(i));
+        }
+    }
+
+    public static void addNative(FloatArray a, FloatArray b, FloatArray c) {
+        for (@Parallel int i = 0; i < c.getSize(); i++) {
+            c.set(i, a.get(i) + b.get(i));
+        }
+    }
+
+    @After
+    public void disableTaskFusion() {
+        TornadoRuntime.setProperty("tornado.experimental.fusion", "False");
+    }
+
+    private static boolean isFusionSupported() {
+        int driverIndex = TornadoRuntime.getTornadoRuntime().getDefaultDevice().getDriverIndex();
+        return TornadoRuntime.getTornadoRuntime().getBackendType(driverIndex) == TornadoVMBackendType.OPENCL;
+    }
+
+    /**
+     * @return The ids of the tasks that launched a kernel.
+     */
+    private static Set<String> getLaunchedTasks(String profileLog) {
+        Set<String> tasks = new HashSet<>();
+        Matcher matcher = TASK_KERNEL_TIME.matcher(profileLog);
+        while (matcher.find()) {
+            tasks.add(matcher.group(1));
+        }
+        return tasks;
+    }
+
+    /**
+     * @return The value of a metric of the task-graph {@code s0}, or 0 if it is
+     *         not reported.
+     */
+    private static long getGraphMetric(String profileLog, ProfilerType type) {
+        Matcher matcher = Pattern.compile("\"s0\": \\{[^{]*\"" + type + "\": \"(\\d+)\"").matcher(profileLog);
+        return matcher.find() ? Long.parseLong(matcher.group(1)) : 0;
+    }
+
+    private static float[] randomArray(int size, Random random) {
+        float[] array = new float[size];
+        for (int i = 0; i < size; i++) {
+            array[i] = random.nextFloat() * 2.0f - 1.0f;
+        }
+        return array;
+    }
+
+    @Test
+    public void testFuseElementWiseChain() {
+        final int size = 8192;
+        final float alpha = 3.0f;
+        Random random = new Random();
+        float[] a = randomArray(size, random);
+        float[] b = randomArray(size, random);
+        float[] scaled = new float[size];
+        float[] sum = new float[size];
+        float[] result = new float[size];
+
+        TornadoRuntime.setProperty("tornado.experimental.fusion", "True");
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.EVERY_EXECUTION, a, b) //
+                .task("t0", TestTaskFusion::scale, a, scaled, alpha) //
+                .task("t1", TestTaskFusion::add, scaled, b, sum) //
+                .task("t2", TestTaskFusion::clamp, sum, result, -1.0f, 1.0f) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, result);
+
+        ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
+        TornadoExecutionPlan executionPlan = new TornadoExecutionPlan(immutableTaskGraph).withProfiler(ProfilerMode.SILENT);
+        TornadoExecutionResult executionResult = executionPlan.execute();
+        String profileLog = executionResult.getProfilerResult().getProfileLog();
+        executionPlan.withoutProfiler();
+
+        for (int i = 0; i < size; i++) {
+            float expected = Math.min(Math.max(alpha * a[i] + b[i], -1.0f), 1.0f);
+            assertEquals(expected, result[i], 0.001f);
+        }
+
+        assertEquals(isFusionSupported() ? Set.of("s0.t0") : Set.of("s0.t0", "s0.t1", "s0.t2"), getLaunchedTasks(profileLog));
+        // Only a and b are copied in, and only the result is copied out
+        long copyOutBytes = getGraphMetric(profileLog, ProfilerType.TOTAL_COPY_OUT_SIZE_BYTES);
+        assertEquals(2 * copyOutBytes, getGraphMetric(profileLog, ProfilerType.TOTAL_COPY_IN_SIZE_BYTES));
+        // The intermediate arrays are never copied back
+        for (int i = 0; i < size; i++) {
+            assertEquals(0.0f, scaled[i], 0.0f);
+            assertEquals(0.0f, sum[i], 0.0f);
+        }
+    }
+
+    @Test
+    public void testFuseWithIntermediateTransferredToHost() {
+        final int size = 4096;
+        final float alpha = 0.5f;
+        Random random = new Random();
+        float[] a = randomArray(size, random);
+        float[] b = randomArray(size, random);
+        float[] scaled = new float[size];
+        float[] result = new float[size];
+
+        TornadoRuntime.setProperty("tornado.experimental.fusion", "True");
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.EVERY_EXECUTION, a, b) //
+                .task("t0", TestTaskFusion::scale, a, scaled, alpha) //
+                .task("t1", TestTaskFusion::add, scaled, b, result) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, scaled, result);
+
+        ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
+        TornadoExecutionPlan executionPlan = new TornadoExecutionPlan(immutableTaskGraph).withProfiler(ProfilerMode.SILENT);
+        TornadoExecutionResult executionResult = executionPlan.execute();
+        String profileLog = executionResult.getProfilerResult().getProfileLog();
+        executionPlan.withoutProfiler();
+
+        for (int i = 0; i < size; i++) {
+            assertEquals(alpha * a[i], scaled[i], 0.001f);
+            assertEquals(alpha * a[i] + b[i], result[i], 0.001f);
+        }
+
+        assertEquals(isFusionSupported() ? Set.of("s0.t0") : Set.of("s0.t0", "s0.t1"), getLaunchedTasks(profileLog));
+        // The requested intermediate is copied out with the result
+        assertEquals(getGraphMetric(profileLog, ProfilerType.TOTAL_COPY_IN_SIZE_BYTES), getGraphMetric(profileLog, ProfilerType.TOTAL_COPY_OUT_SIZE_BYTES));
+    }
+
+    @Test
+    public void testNoFusionAcrossIterations() {
+        final int size = 4096;
+        final float alpha = 2.0f;
+        Random random = new Random();
+        float[] a = randomArray(size, random);
+        float[] scaled = new float[size];
+        float[] result = new float[size];
+
+        TornadoRuntime.setProperty("tornado.experimental.fusion", "True");
+
+        // The second task reads elements written by other iterations of the first task
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.EVERY_EXECUTION, a) //
+                .task("t0", TestTaskFusion::scale, a, scaled, alpha) //
+                .task("t1", TestTaskFusion::reverse, scaled, result) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, result);
+
+        ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
+        TornadoExecutionPlan executionPlan = new TornadoExecutionPlan(immutableTaskGraph).withProfiler(ProfilerMode.SILENT);
+        TornadoExecutionResult executionResult = executionPlan.execute();
+        String profileLog = executionResult.getProfilerResult().getProfileLog();
+        executionPlan.withoutProfiler();
+
+        for (int i = 0; i < size; i++) {
+            assertEquals(alpha * a[size - 1 - i], result[i], 0.001f);
+        }
+
+        assertEquals(Set.of("s0.t0", "s0.t1"), getLaunchedTasks(profileLog));
+    }
+
+    @Test
+    public void testFuseNativeArrays() {
+        final int size = 8192;
+        final float alpha = 4.0f;
+        FloatArray a = new FloatArray(size);
+        FloatArray b = new FloatArray(size);
+        FloatArray scaled = new FloatArray(size);
+        FloatArray result = new FloatArray(size);
+        Random random = new Random();
+        for (int i = 0; i < size; i++) {
+            a.set(i, random.nextFloat());
+            b.set(i, random.nextFloat());
+        }
+
+        TornadoRuntime.setProperty("tornado.experimental.fusion", "True");
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.FIRST_EXECUTION, a, b) //
+                .task("t0", TestTaskFusion::scaleNative, a, scaled, alpha) //
+                .task("t1", TestTaskFusion::addNative, scaled, b, result) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, result);
+
+        ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
+        TornadoExecutionPlan executionPlan = new TornadoExecutionPlan(immutableTaskGraph).withProfiler(ProfilerMode.SILENT);
+        TornadoExecutionResult executionResult = null;
+        for (int run = 0; run < 3; run++) {
+            executionResult = executionPlan.execute();
+        }
+        String profileLog = executionResult.getProfilerResult().getProfileLog();
+        executionPlan.withoutProfiler();
+
+        for (int i = 0; i < size; i++) {
+            assertEquals(alpha * a.get(i) + b.get(i), result.get(i), 0.001f);
+            assertEquals(0.0f, scaled.get(i), 0.0f);
+        }
+
+        assertEquals(isFusionSupported() ? Set.of("s0.t0") : Set.of("s0.t0", "s0.t1"), getLaunchedTasks(profileLog));
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2023, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.unittests.virtual;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.ImmutableTaskGraph;
+import uk.ac.manchester.tornado.api.TaskGraph;
+import uk.ac.manchester.tornado.api.TornadoExecutionPlan;
+import uk.ac.manchester.tornado.api.TornadoVM_Intrinsics;
+import uk.ac.manchester.tornado.api.annotations.Parallel;
+import uk.ac.manchester.tornado.api.enums.DataTransferMode;
+import uk.ac.manchester.tornado.api.enums.TornadoVMBackendType;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+/**
+ * Checks the OpenCL code generated for the atomic operations on array
+ * elements. Int and long additions use the atomic builtins, and float additions
+ * use a compare-and-swap loop on the bits of the element.
+ *
+ * <p>
+ * How to run?
+ * </p>
+ * <code>
+ *     tornado-test -V --jvm="-Dtornado.device.desc=virtual-device-GPU.json -Dtornado.print.kernel=True -Dtornado.virtual.device=True -Dtornado.print.kernel.dir=virtualKernelOut.out" uk.ac.manchester.tornado.unittests.virtual.TestVirtualDeviceAtomics
+ * </code>
+ */
+public class TestVirtualDeviceAtomics extends TornadoTestBase {
+
+    private static final String SOURCE_DIR = System.getProperty("tornado.print.kernel.dir");
+
+    private static final int SIZE = 1024;
+    private static final int BINS = 16;
+
+    @After
+    public void after() {
+        // make sure the source file generated is deleted
+        File fileLog = new File(SOURCE_DIR);
+        if (fileLog.exists()) {
+            fileLog.delete();
+        }
+    }
+
+    private static void histograms(int[] input, int[] ints, long[] longs, float[] floats) {
+        for (@Parallel int i = 0; i < input.length; i++) {
+            TornadoVM_Intrinsics.atomic_add(ints, input[i] % BINS, 1);
+            TornadoVM_Intrinsics.atomic_add(longs, input[i] % BINS, 1L);
+            TornadoVM_Intrinsics.atomic_add(floats, input[i] % BINS, 0.5f);
+        }
+    }
+
+    @Test
+    public void testVirtualDeviceAtomics() {
+        assertNotBackend(TornadoVMBackendType.PTX);
+        assertNotBackend(TornadoVMBackendType.SPIRV);
+
+        int[] input = new int[SIZE];
+        int[] ints = new int[BINS];
+        long[] longs = new long[BINS];
+        float[] floats = new float[BINS];
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.EVERY_EXECUTION, input, ints, longs, floats) //
+                .task("t0", TestVirtualDeviceAtomics::histograms, input, ints, longs, floats) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, ints, longs, floats);
+
+        ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
+        TornadoExecutionPlan executionPlan = new TornadoExecutionPlan(immutableTaskGraph);
+        executionPlan.execute();
+
+        String generatedKernel = null;
+        try {
+            generatedKernel = new String(Files.readAllBytes(new File(SOURCE_DIR).toPath()));
+        } catch (IOException e) {
+            e.printStackTrace();
+            Assert.fail();
+        }
+
+        // The virtual device reports cl_khr_int64_base_atomics
+        Assert.assertTrue(generatedKernel.contains("#pragma OPENCL EXTENSION cl_khr_int64_base_atomics : enable"));
+
+        // Int and long additions
+        Assert.assertTrue(generatedKernel.contains("atomic_add(&(*("));
+        Assert.assertTrue(generatedKernel.contains("atom_add(&(*("));
+
+        // Float addition: compare-and-swap loop on the bits of the element
+        Assert.assertTrue(generatedKernel.contains("volatile __global uint *_ptr = (volatile __global uint *) "));
+        Assert.assertTrue(generatedKernel.contains("_current = atomic_cmpxchg(_ptr, _expected, as_uint(as_float(_expected) + "));
+        Assert.assertTrue(generatedKernel.contains("} while (_current != _expected);"));
+        Assert.assertTrue(generatedKernel.contains("= as_float(_current);"));
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2023, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.unittests.virtual;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.DataParallelSplit;
+import uk.ac.manchester.tornado.api.ImmutableTaskGraph;
+import uk.ac.manchester.tornado.api.TaskGraph;
+import uk.ac.manchester.tornado.api.TornadoDriver;
+import uk.ac.manchester.tornado.api.TornadoExecutionPlan;
+import uk.ac.manchester.tornado.api.annotations.Parallel;
+import uk.ac.manchester.tornado.api.enums.DataTransferMode;
+import uk.ac.manchester.tornado.api.enums.TornadoVMBackendType;
+import uk.ac.manchester.tornado.api.runtime.TornadoRuntime;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+/**
+ * It checks that a data-parallel split generates one kernel per virtual
+ * device, specialised for the number of elements of the slice of each device.
+ *
+ * <p>
+ * How to run?
+ * </p>
+ * <code>
+ *     tornado-test -V --jvm="-Dtornado.device.desc=virtual-device-GPU.json,virtual-device-CPU.json -Dtornado.print.kernel=True -Dtornado.virtual.device=True -Dtornado.print.kernel.dir=virtualKernelOut.out" uk.ac.manchester.tornado.unittests.virtual.TestVirtualDeviceDataParallelSplit
+ * </code>
+ */
+public class TestVirtualDeviceDataParallelSplit extends TornadoTestBase {
+
+    private static final String SOURCE_DIR = System.getProperty("tornado.print.kernel.dir");
+
+    private static final int SIZE = 1024;
+
+    @After
+    public void after() {
+        // make sure the source file generated is deleted
+        File fileLog = new File(SOURCE_DIR);
+        if (fileLog.exists()) {
+            fileLog.delete();
+        }
+    }
+
+    private static void vectorAdd(float[] a, float[] b, float[] c) {
+        for (@Parallel int i = 0; i < c.length; i++) {
+            c[i] = a[i] + b[i];
+        }
+    }
+
+    private static void blur(float[] input, float[] output) {
+        for (@Parallel int i = 1; i < input.length - 1; i++) {
+            output[i] = (input[i - 1] + input[i] + input[i + 1]) / 3;
+        }
+    }
+
+    private static String readGeneratedKernels() {
+        try {
+            return new String(Files.readAllBytes(new File(SOURCE_DIR).toPath()));
+        } catch (IOException e) {
+            e.printStackTrace();
+            Assert.fail();
+            return null;
+        }
+    }
+
+    /**
+     * It checks that the kernel generated for each device is specialised for the
+     * number of elements of its slice. The devices run concurrently, so the
+     * kernels can be printed in any order.
+     */
+    private static void assertKernelBounds(String generatedKernels, long... sliceSizes) {
+        List<String> kernels = new ArrayList<>(Arrays.asList(generatedKernels.split("__kernel void")));
+        kernels.remove(0);
+        Assert.assertEquals(sliceSizes.length, kernels.size());
+        for (long sliceSize : sliceSizes) {
+            Pattern bound = Pattern.compile("<\\s*" + sliceSize + "\\b");
+            String kernel = kernels.stream().filter(k -> bound.matcher(k).find()).findFirst().orElse(null);
+            Assert.assertNotNull("No kernel for a slice of " + sliceSize + " elements", kernel);
+            Assert.assertFalse(kernel, kernel.contains(Integer.toString(SIZE)));
+            kernels.remove(kernel);
+        }
+    }
+
+    @Test
+    public void testVirtualDeviceDataParallelSplit() {
+        assertNotBackend(TornadoVMBackendType.PTX);
+        assertNotBackend(TornadoVMBackendType.SPIRV);
+
+        float[] a = new float[SIZE];
+        float[] b = new float[SIZE];
+        float[] c = new float[SIZE];
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.EVERY_EXECUTION, a, b) //
+                .task("t0", TestVirtualDeviceDataParallelSplit::vectorAdd, a, b, c) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, c);
+
+        TornadoDriver driver = TornadoRuntime.getTornadoRuntime().getDriver(0);
+        Assert.assertEquals(2, driver.getDeviceCount());
+
+        ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
+        TornadoExecutionPlan executionPlan = new TornadoExecutionPlan(immutableTaskGraph);
+        DataParallelSplit split = new DataParallelSplit(driver.getDevice(0), driver.getDevice(1)).withRatios(3, 1);
+        executionPlan.withDataParallelSplit(split).execute();
+
+        // Three quarters of the iteration space for the first device
+        Assert.assertArrayEquals(new long[] { 0, 768 }, split.getSliceOffsets());
+        Assert.assertArrayEquals(new long[] { 768, 256 }, split.getSliceSizes());
+
+        // One kernel per device, each one with the number of elements of its slice
+        assertKernelBounds(readGeneratedKernels(), 768, 256);
+    }
+
+    @Test
+    public void testVirtualDeviceDataParallelSplitHalo() {
+        assertNotBackend(TornadoVMBackendType.PTX);
+        assertNotBackend(TornadoVMBackendType.SPIRV);
+
+        float[] input = new float[SIZE];
+        float[] output = new float[SIZE];
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.EVERY_EXECUTION, input) //
+                .task("t0", TestVirtualDeviceDataParallelSplit::blur, input, output) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, output);
+
+        TornadoDriver driver = TornadoRuntime.getTornadoRuntime().getDriver(0);
+        Assert.assertEquals(2, driver.getDeviceCount());
+
+        ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
+        TornadoExecutionPlan executionPlan = new TornadoExecutionPlan(immutableTaskGraph);
+        DataParallelSplit split = new DataParallelSplit(driver.getDevice(0), driver.getDevice(1)).withRatios(1, 1).withHalo(1);
+        executionPlan.withDataParallelSplit(split).execute();
+
+        // Each slice is extended with one element at the inner side
+        Assert.assertArrayEquals(new long[] { 0, 511 }, split.getSliceOffsets());
+        Assert.assertArrayEquals(new long[] { 513, 513 }, split.getSliceSizes());
+
+        // The loop of the stencil runs up to the last element of each slice
+        assertKernelBounds(readGeneratedKernels(), 512, 512);
+    }
+}
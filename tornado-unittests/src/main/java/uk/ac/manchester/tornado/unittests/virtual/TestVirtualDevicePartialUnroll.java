@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2023, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.unittests.virtual;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.ImmutableTaskGraph;
+import uk.ac.manchester.tornado.api.TaskGraph;
+import uk.ac.manchester.tornado.api.TornadoExecutionPlan;
+import uk.ac.manchester.tornado.api.annotations.Parallel;
+import uk.ac.manchester.tornado.api.enums.DataTransferMode;
+import uk.ac.manchester.tornado.api.enums.TornadoVMBackendType;
+import uk.ac.manchester.tornado.api.runtime.TornadoRuntime;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+/**
+ * Checks the OpenCL code generated for a loop with a trip count that is only
+ * known at runtime when partial unrolling is enabled with a fixed unroll
+ * factor. Inside the parallel loop, the sequential loop must be split into a
+ * main loop with one copy of the body per unrolled iteration, followed by a
+ * remainder loop that runs the body once per iteration.
+ *
+ * <p>
+ * How to run?
+ * </p>
+ * <code>
+ *     tornado-test -V --jvm="-Dtornado.device.desc=virtual-device-GPU.json -Dtornado.print.kernel=True -Dtornado.virtual.device=True -Dtornado.experimental.partial.unroll=True -Dtornado.unroll.factor=4 -Dtornado.print.kernel.dir=virtualKernelOut.out" uk.ac.manchester.tornado.unittests.virtual.TestVirtualDevicePartialUnroll
+ * </code>
+ */
+public class TestVirtualDevicePartialUnroll extends TornadoTestBase {
+
+    private static final String SOURCE_DIR = System.getProperty("tornado.print.kernel.dir");
+
+    private static final int UNROLL_FACTOR = 4;
+
+    /**
+     * Each copy of the body of the sequential loop reads one element of the matrix
+     * and one element of the vector.
+     */
+    private static final int LOADS_PER_ITERATION = 2;
+
+    private static final Pattern FOR_LOOP = Pattern.compile("for\\s*\\(");
+    private static final Pattern FLOAT_ACCESS = Pattern.compile("\\(__global float \\*\\)");
+
+    @After
+    public void after() {
+        TornadoRuntime.setProperty("tornado.experimental.partial.unroll", "False");
+        TornadoRuntime.setProperty("tornado.unroll.factor", "0");
+
+        // make sure the source file generated is deleted
+        File fileLog = new File(SOURCE_DIR);
+        if (fileLog.exists()) {
+            fileLog.delete();
+        }
+    }
+
+    private static void matrixVectorMultiplication(final float[] A, final float[] B, final float[] C, final int size) {
+        for (@Parallel int i = 0; i < size; i++) {
+            float sum = 0.0f;
+            for (int j = 0; j < size; j++) {
+                sum += A[(i * size) + j] * B[j];
+            }
+            C[i] = sum;
+        }
+    }
+
+    /**
+     * Returns the bodies of the loops in the order they appear in the kernel.
+     * Each body goes from the opening brace after the loop header to its matching
+     * closing brace.
+     */
+    private static List<String> getLoopBodies(String kernel) {
+        List<String> bodies = new ArrayList<>();
+        Matcher matcher = FOR_LOOP.matcher(kernel);
+        while (matcher.find()) {
+            int begin = kernel.indexOf('{', matcher.end());
+            int depth = 0;
+            for (int i = begin; i < kernel.length(); i++) {
+                if (kernel.charAt(i) == '{') {
+                    depth++;
+                } else if (kernel.charAt(i) == '}' && --depth == 0) {
+                    bodies.add(kernel.substring(begin + 1, i));
+                    break;
+                }
+            }
+        }
+        return bodies;
+    }
+
+    private static int countFloatAccesses(String code) {
+        int count = 0;
+        Matcher matcher = FLOAT_ACCESS.matcher(code);
+        while (matcher.find()) {
+            count++;
+        }
+        return count;
+    }
+
+    @Test
+    public void testVirtualDevicePartialUnrollGPU() {
+        assertNotBackend(TornadoVMBackendType.PTX);
+        assertNotBackend(TornadoVMBackendType.SPIRV);
+
+        final int size = 509;
+        float[] matrixA = new float[size * size];
+        float[] vectorB = new float[size];
+        float[] vectorC = new float[size];
+
+        TornadoRuntime.setProperty("tornado.experimental.partial.unroll", "True");
+        TornadoRuntime.setProperty("tornado.unroll.factor", Integer.toString(UNROLL_FACTOR));
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.EVERY_EXECUTION, matrixA, vectorB) //
+                .task("t0", TestVirtualDevicePartialUnroll::matrixVectorMultiplication, matrixA, vectorB, vectorC, size) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, vectorC);
+
+        ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
+        TornadoExecutionPlan executionPlan = new TornadoExecutionPlan(immutableTaskGraph);
+        executionPlan.execute();
+
+        String generatedKernel = null;
+        try {
+            generatedKernel = new String(Files.readAllBytes(new File(SOURCE_DIR).toPath()));
+        } catch (IOException e) {
+            e.printStackTrace();
+            Assert.fail();
+        }
+
+        // The first loop is the parallel loop, and it contains the sequential loops
+        List<String> loops = getLoopBodies(generatedKernel);
+        Assert.assertTrue("Expected the unrolled and the remainder loops in:\n" + generatedKernel, loops.size() >= 3);
+        List<Integer> loadsPerLoop = new ArrayList<>();
+        for (String body : loops.subList(1, loops.size())) {
+            Assert.assertTrue("Nested sequential loops in:\n" + generatedKernel, loops.get(0).contains(body) && !FOR_LOOP.matcher(body).find());
+            loadsPerLoop.add(countFloatAccesses(body));
+        }
+
+        // Exactly one main loop, with UNROLL_FACTOR copies of the body
+        final int unrolledLoads = UNROLL_FACTOR * LOADS_PER_ITERATION;
+        Assert.assertEquals("Loads per loop " + loadsPerLoop + " in:\n" + generatedKernel, 1, Collections.frequency(loadsPerLoop, unrolledLoads));
+
+        // Any other loop runs a single copy of the body. The pre-loop, if any, comes
+        // before the main loop, and the remainder loop comes after it.
+        Assert.assertEquals("Loads per loop " + loadsPerLoop + " in:\n" + generatedKernel, loadsPerLoop.size() - 1, Collections.frequency(loadsPerLoop, LOADS_PER_ITERATION));
+        final int mainLoop = loadsPerLoop.indexOf(unrolledLoads);
+        Assert.assertEquals("Expected one remainder loop after the unrolled loop in:\n" + generatedKernel, loadsPerLoop.size() - 2, mainLoop);
+    }
+}